@@ -22,6 +22,7 @@ package org.wso2.carbon.apimgt.core.api;
 import org.wso2.carbon.apimgt.core.dao.ApiType;
 import org.wso2.carbon.apimgt.core.exception.APIManagementException;
 import org.wso2.carbon.apimgt.core.models.API;
+import org.wso2.carbon.apimgt.core.models.APIResults;
 import org.wso2.carbon.apimgt.core.models.Application;
 import org.wso2.carbon.apimgt.core.models.DocumentContent;
 import org.wso2.carbon.apimgt.core.models.DocumentInfo;
@@ -30,6 +31,7 @@ import org.wso2.carbon.apimgt.core.models.Subscription;
 import org.wso2.carbon.apimgt.core.workflow.Workflow;
 
 import java.io.InputStream;
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 
@@ -46,6 +48,15 @@ public interface APIManager {
      */
     API getAPIbyUUID(String uuid) throws APIManagementException;
 
+    /**
+     * Returns details of the APIs of the given UUIDs, which are retrieved together instead of one by one
+     *
+     * @param uuids UUIDs of the APIs
+     * @return APIs in the order of the given UUIDs. UUIDs which do not match an API are ignored
+     * @throws APIManagementException if failed to get the APIs
+     */
+    List<API> getAPIsByUUIDs(Collection<String> uuids) throws APIManagementException;
+
     /**
      * Get a list of APIs published by the given provider. If a given API has multiple APIs,
      * only the latest version will
@@ -58,6 +69,19 @@ public interface APIManager {
      */
     List<API> getAPIsByProvider(String providerName, ApiType apiType) throws APIManagementException;
 
+    /**
+     * Get a page of the APIs published by the given provider, ordered by name.
+     *
+     * @param providerName username of the the user who created the API
+     * @param apiType      Type of API
+     * @param cursor       cursor returned with the previous page, or null to get the first page
+     * @param limit        maximum number of APIs in the page
+     * @return {@link APIResults} with the APIs and the cursor of the next page
+     * @throws APIManagementException if failed to get the APIs, or the cursor is invalid
+     */
+    APIResults getAPIsByProvider(String providerName, ApiType apiType, String cursor, int limit)
+            throws APIManagementException;
+
     /**
      * Retrieves the last updated time of an API
      * 
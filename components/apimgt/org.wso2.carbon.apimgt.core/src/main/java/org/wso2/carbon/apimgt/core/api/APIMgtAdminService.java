@@ -22,10 +22,11 @@ package org.wso2.carbon.apimgt.core.api;
 import org.wso2.carbon.apimgt.core.exception.APIConfigRetrievalException;
 import org.wso2.carbon.apimgt.core.exception.APIManagementException;
 import org.wso2.carbon.apimgt.core.models.API;
+import org.wso2.carbon.apimgt.core.models.APIResource;
 import org.wso2.carbon.apimgt.core.models.APISummary;
 import org.wso2.carbon.apimgt.core.models.Label;
+import org.wso2.carbon.apimgt.core.models.SubscriptionChanges;
 import org.wso2.carbon.apimgt.core.models.SubscriptionValidationData;
-import org.wso2.carbon.apimgt.core.models.UriTemplate;
 import org.wso2.carbon.apimgt.core.models.policy.Policy;
 
 import java.util.List;
@@ -55,6 +56,37 @@ public interface APIMgtAdminService {
     List<SubscriptionValidationData> getAPISubscriptionsOfApi(String apiContext, String apiVersion)
             throws APIManagementException;
 
+    /**
+     * Return the API subscriptions which were added, updated or removed after the given revision
+     *
+     * @param revision Revision returned by the previous call, or a negative value to retrieve all the subscriptions
+     * @return changes of the subscriptions up to the latest revision, or with the revision -1 if the subscriptions
+     * removed after the given revision are no longer kept and all the subscriptions must be retrieved again
+     * @throws APIManagementException If failed to get the changes of subscriptions.
+     */
+    SubscriptionChanges getAPISubscriptionChanges(long revision) throws APIManagementException;
+
+    /**
+     * Return a page of API subscriptions, which starts after the last subscription of the previous page
+     *
+     * @param lastSubscriptionId Subscription ID of the last subscription of the previous page, or null for the first
+     *                           page
+     * @param lastKeyEnvType     Key environment type of the last subscription of the previous page
+     * @param limit              Maximum number of subscriptions in the page
+     * @return subscriptions of the page
+     * @throws APIManagementException If failed to get list of subscriptions.
+     */
+    List<SubscriptionValidationData> getAPISubscriptions(String lastSubscriptionId, String lastKeyEnvType, int limit)
+            throws APIManagementException;
+
+    /**
+     * Return the latest revision of API subscriptions
+     *
+     * @return latest revision of subscriptions
+     * @throws APIManagementException If failed to get the revision.
+     */
+    long getAPISubscriptionRevision() throws APIManagementException;
+
     /**
      * Load api info from db
      *
@@ -155,13 +187,13 @@ public interface APIMgtAdminService {
     String getAPIGatewayServiceConfig(String apiId) throws APIConfigRetrievalException;
 
     /**
-     * Retrieve Resources for API
+     * Retrieve Resources for API, along with the scopes the API definition sets on them
      * @param apiContext Context of API
      * @param apiVersion Version of API
      * @return list of API Resources
      * @throws APIManagementException if failed to retrieve resources
      */
-    List<UriTemplate> getAllResourcesForApi(String apiContext, String apiVersion) throws APIManagementException;
+    List<APIResource> getAllResourcesForApi(String apiContext, String apiVersion) throws APIManagementException;
 
     /**
      * Get a list of APIs with given gateway labels and status
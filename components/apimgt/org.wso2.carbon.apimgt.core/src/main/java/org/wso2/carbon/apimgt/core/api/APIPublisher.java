@@ -23,6 +23,7 @@ package org.wso2.carbon.apimgt.core.api;
 import org.wso2.carbon.apimgt.core.exception.APIManagementException;
 import org.wso2.carbon.apimgt.core.exception.LabelException;
 import org.wso2.carbon.apimgt.core.models.API;
+import org.wso2.carbon.apimgt.core.models.APIResults;
 import org.wso2.carbon.apimgt.core.models.DocumentInfo;
 import org.wso2.carbon.apimgt.core.models.Endpoint;
 import org.wso2.carbon.apimgt.core.models.Label;
@@ -253,6 +254,17 @@ public interface APIPublisher extends APIManager {
      */
     List<API> searchAPIs(Integer limit, Integer offset, String query) throws APIManagementException;
 
+    /**
+     * Returns a page of all the APIs, ordered by name. Unlike offset based pagination, each page is retrieved from
+     * where the previous page ended.
+     *
+     * @param cursor cursor returned with the previous page, or null to get the first page
+     * @param limit  maximum number of APIs in the page
+     * @return {@link APIResults} with the APIs and the cursor of the next page
+     * @throws APIManagementException if failed to get the APIs, or the cursor is invalid
+     */
+    APIResults getAPIs(String cursor, int limit) throws APIManagementException;
+
     /**
      * Update the subscription status
      *
@@ -23,6 +23,7 @@ package org.wso2.carbon.apimgt.core.api;
 import org.wso2.carbon.apimgt.core.exception.APIManagementException;
 import org.wso2.carbon.apimgt.core.exception.LabelException;
 import org.wso2.carbon.apimgt.core.models.API;
+import org.wso2.carbon.apimgt.core.models.APIResults;
 import org.wso2.carbon.apimgt.core.models.Application;
 import org.wso2.carbon.apimgt.core.models.Comment;
 import org.wso2.carbon.apimgt.core.models.Label;
@@ -67,6 +68,17 @@ public interface APIStore extends APIManager {
      */
     List<API> searchAPIs(String query, int offset, int limit) throws APIManagementException;
 
+    /**
+     * Returns a page of the published and prototyped APIs which are visible to the user, ordered by name. Unlike
+     * offset based pagination, each page is retrieved from where the previous page ended.
+     *
+     * @param cursor cursor returned with the previous page, or null to get the first page
+     * @param limit  maximum number of APIs in the page
+     * @return {@link APIResults} with the APIs and the cursor of the next page
+     * @throws APIManagementException if failed to get the APIs, or the cursor is invalid
+     */
+    APIResults getAPIs(String cursor, int limit) throws APIManagementException;
+
     /**
      * Function to remove an Application from the API Store
      *
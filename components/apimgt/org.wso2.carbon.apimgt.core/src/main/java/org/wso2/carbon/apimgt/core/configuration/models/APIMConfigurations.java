@@ -43,6 +43,8 @@ public class APIMConfigurations {
     private String username = "admin";
     @Element(description = "password for topic")
     private String password = "admin";
+    @Element(description = "format of the messages published to the gateway topics, json or binary")
+    private String brokerMessageFormat = "json";
     @Element(description = "password for topic")
     private boolean reverseProxyEnabled = false;
     @Element(description = "hostname")
@@ -64,6 +66,38 @@ public class APIMConfigurations {
     @Element(description = "label extractor")
     private String labelExtractorImplClass = "org.wso2.carbon.apimgt.core.impl.DefaultLabelExtractorImpl";
 
+    @Element(description = "time in seconds after which cached reference data such as policy IDs is reloaded, " +
+            "0 to reload only when changed")
+    private int referenceDataCacheTimeout = 0;
+
+    @Element(description = "maximum size in megabytes of the on-disk cache of API thumbnails and document files, " +
+            "0 to disable the cache")
+    private int resourceContentCacheSize = 0;
+
+    @Element(description = "maximum number of cached APIs, swagger definitions, gateway configurations and last " +
+            "updated times, 0 to disable the cache")
+    private int apiModelCacheSize = 0;
+
+    @Element(description = "time in seconds after which a cached API model is reloaded, 0 to reload only when " +
+            "changed")
+    private int apiModelCacheTimeout = 0;
+
+    @Element(description = "broker topic used to invalidate the API model caches of the other nodes, empty when " +
+            "the database is not shared with other nodes")
+    private String apiModelCacheInvalidationTopic = "";
+
+    @Element(description = "time in hours for which removed subscriptions are kept for gateways retrieving the " +
+            "subscription changes, 0 to keep them")
+    private int removedSubscriptionRetention = 24;
+
+    @Element(description = "broker topic the traffic manager publishes the throttle decisions to, which are kept to " +
+            "serve the throttle state to the gateways, empty to not serve it")
+    private String throttleDataTopic = "throttleData";
+
+    @Element(description = "time in seconds the throttle topic has to be subscribed for before the throttle state is " +
+            "served to the gateways, which should be at least the longest throttle window")
+    private int throttleStateWarmUpPeriod = 3600;
+
     @Element(description = "Key Manager Configurations")
     private KeyMgtConfigurations keyManagerConfigs = new KeyMgtConfigurations();
 
@@ -126,6 +160,10 @@ public class APIMConfigurations {
         return password;
     }
 
+    public String getBrokerMessageFormat() {
+        return brokerMessageFormat;
+    }
+
     public String getGatewayPackageName() {
         return gatewayPackageName;
     }
@@ -134,6 +172,38 @@ public class APIMConfigurations {
         return gatewayPackageNamePath;
     }
 
+    public int getReferenceDataCacheTimeout() {
+        return referenceDataCacheTimeout;
+    }
+
+    public int getResourceContentCacheSize() {
+        return resourceContentCacheSize;
+    }
+
+    public int getApiModelCacheSize() {
+        return apiModelCacheSize;
+    }
+
+    public int getApiModelCacheTimeout() {
+        return apiModelCacheTimeout;
+    }
+
+    public String getApiModelCacheInvalidationTopic() {
+        return apiModelCacheInvalidationTopic;
+    }
+
+    public int getRemovedSubscriptionRetention() {
+        return removedSubscriptionRetention;
+    }
+
+    public String getThrottleDataTopic() {
+        return throttleDataTopic;
+    }
+
+    public int getThrottleStateWarmUpPeriod() {
+        return throttleStateWarmUpPeriod;
+    }
+
     public KeyMgtConfigurations getKeyManagerConfigs() {
         return keyManagerConfigs;
     }
@@ -23,6 +23,7 @@ package org.wso2.carbon.apimgt.core.dao;
 import org.wso2.carbon.apimgt.core.exception.APIMgtDAOException;
 import org.wso2.carbon.apimgt.core.models.APISubscriptionResults;
 import org.wso2.carbon.apimgt.core.models.Subscription;
+import org.wso2.carbon.apimgt.core.models.SubscriptionChanges;
 import org.wso2.carbon.apimgt.core.models.SubscriptionValidationData;
 import org.wso2.carbon.apimgt.core.models.SubscriptionValidationResult;
 import org.wso2.carbon.apimgt.core.util.APIMgtConstants;
@@ -86,6 +87,39 @@ public interface APISubscriptionDAO {
     @CheckForNull
     List<SubscriptionValidationData> getAPISubscriptionsOfAPIForValidation(int limit) throws APIMgtDAOException;
 
+    /**
+     * Retrieve the API Subscriptions which were added, updated or removed after the given revision, for validation
+     *
+     * @param revision Revision returned by the previous call, or a negative value to retrieve all the subscriptions
+     * @return {@link SubscriptionChanges} up to the latest revision, or with the revision -1 if the subscriptions
+     * removed after the given revision are no longer kept
+     * @throws APIMgtDAOException   If failed to get subscriptions.
+     */
+    SubscriptionChanges getAPISubscriptionChangesForValidation(long revision) throws APIMgtDAOException;
+
+    /**
+     * Retrieve a page of API Subscriptions for validation. Subscriptions are ordered by the subscription ID and key
+     * environment type, and each page starts after the last subscription of the previous page.
+     *
+     * @param lastSubscriptionId Subscription ID of the last subscription of the previous page, or null for the first
+     *                           page
+     * @param lastKeyEnvType     Key environment type of the last subscription of the previous page
+     * @param limit              Maximum number of subscriptions in the page
+     * @return A list of {@link SubscriptionValidationData} objects, with the subscription ID set
+     * @throws APIMgtDAOException   If failed to get subscriptions.
+     */
+    List<SubscriptionValidationData> getAPISubscriptionsForValidation(String lastSubscriptionId, String lastKeyEnvType,
+                                                                      int limit) throws APIMgtDAOException;
+
+    /**
+     * Retrieve the latest revision of API Subscriptions
+     *
+     * @return Latest revision, which can be used to retrieve the changes made after it
+     * @throws APIMgtDAOException   If failed to get the revision.
+     * @see #getAPISubscriptionChangesForValidation(long)
+     */
+    long getLatestSubscriptionRevision() throws APIMgtDAOException;
+
     /**
      * Retrieves all available API Subscriptions. This method supports result pagination and ensuring results
      * returned are those that belong to the specified username
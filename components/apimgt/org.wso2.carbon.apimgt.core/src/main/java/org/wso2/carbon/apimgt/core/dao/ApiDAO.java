@@ -22,6 +22,8 @@ package org.wso2.carbon.apimgt.core.dao;
 
 import org.wso2.carbon.apimgt.core.exception.APIMgtDAOException;
 import org.wso2.carbon.apimgt.core.models.API;
+import org.wso2.carbon.apimgt.core.models.APICursor;
+import org.wso2.carbon.apimgt.core.models.APIResults;
 import org.wso2.carbon.apimgt.core.models.Comment;
 import org.wso2.carbon.apimgt.core.models.DocumentInfo;
 import org.wso2.carbon.apimgt.core.models.Endpoint;
@@ -29,6 +31,7 @@ import org.wso2.carbon.apimgt.core.models.UriTemplate;
 import org.wso2.carbon.apimgt.core.util.APIMgtConstants.APILCWorkflowStatus;
 
 import java.io.InputStream;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -47,6 +50,15 @@ public interface ApiDAO {
      */
     @CheckForNull API getAPI(String apiID) throws APIMgtDAOException;
 
+    /**
+     * Retrieve the APIs of the given IDs. IDs which do not match an API are ignored.
+     * @param apiIDs The UUIDs of the APIs
+     * @return {@code List<API>} in the order of the given IDs
+     * @throws APIMgtDAOException if error occurs while accessing data layer
+     *
+     */
+    List<API> getAPIs(Collection<String> apiIDs) throws APIMgtDAOException;
+
     /**
      * Retrieve a given instance of an APISummary object
      * @param apiID The UUID that uniquely identifies an API
@@ -126,6 +138,69 @@ public interface ApiDAO {
      */
     List<API> getAPIsByStatus(Set<String> roles, List<String> statuses, ApiType apiType) throws APIMgtDAOException;
 
+    /**
+     * Retrieves a page of summary data of all available APIs. APIs are ordered by name and UUID, and the page starts
+     * after the given cursor, or after skipping the given number of APIs if no cursor is given. The total number of
+     * APIs is counted only when no cursor is given, and is carried in the cursor otherwise. If the limit is not
+     * positive, only the total number of APIs is returned.
+     *
+     * @param apiType Type of API
+     * @param after   Cursor returned with the previous page, or null to start from the beginning
+     * @param offset  Number of APIs to skip after the cursor
+     * @param limit   Maximum number of APIs in the page
+     * @return {@link APIResults} with the matching APIs and the cursor of the next page
+     * @throws APIMgtDAOException if error occurs while accessing data layer
+     */
+    APIResults getAPIs(ApiType apiType, APICursor after, int offset, int limit) throws APIMgtDAOException;
+
+    /**
+     * Retrieves a page of summary data of all available APIs of a given provider.
+     *
+     * @param providerName A given API Provider
+     * @param apiType      Type of API
+     * @param after        Cursor returned with the previous page, or null to start from the beginning
+     * @param offset       Number of APIs to skip after the cursor
+     * @param limit        Maximum number of APIs in the page
+     * @return {@link APIResults} with the matching APIs and the cursor of the next page
+     * @throws APIMgtDAOException if error occurs while accessing data layer
+     * @see #getAPIs(ApiType, APICursor, int, int)
+     */
+    APIResults getAPIsForProvider(String providerName, ApiType apiType, APICursor after, int offset, int limit)
+            throws APIMgtDAOException;
+
+    /**
+     * Retrieves a page of summary data of all available APIs with life cycle status that matches the status list
+     * provided
+     *
+     * @param statuses A list of matching life cycle statuses
+     * @param apiType  Type of API
+     * @param after    Cursor returned with the previous page, or null to start from the beginning
+     * @param offset   Number of APIs to skip after the cursor
+     * @param limit    Maximum number of APIs in the page
+     * @return {@link APIResults} with the matching APIs and the cursor of the next page
+     * @throws APIMgtDAOException if error occurs while accessing data layer
+     * @see #getAPIs(ApiType, APICursor, int, int)
+     */
+    APIResults getAPIsByStatus(List<String> statuses, ApiType apiType, APICursor after, int offset, int limit)
+            throws APIMgtDAOException;
+
+    /**
+     * Retrieves a page of summary data of all available APIs with life cycle status that matches the status list
+     * provided which has role based visibility
+     *
+     * @param roles    role list of current user
+     * @param statuses status of APIs to be returned
+     * @param apiType  Type of API
+     * @param after    Cursor returned with the previous page, or null to start from the beginning
+     * @param offset   Number of APIs to skip after the cursor
+     * @param limit    Maximum number of APIs in the page
+     * @return {@link APIResults} with the matching APIs and the cursor of the next page
+     * @throws APIMgtDAOException if failed to fetch APIs from database
+     * @see #getAPIs(ApiType, APICursor, int, int)
+     */
+    APIResults getAPIsByStatus(Set<String> roles, List<String> statuses, ApiType apiType, APICursor after,
+                               int offset, int limit) throws APIMgtDAOException;
+
     /**
      * Retrieves summary of paginated data of all available APIs that match the given search criteria. This will use
      * the full text search for API table
@@ -236,7 +311,7 @@ public interface ApiDAO {
     String getSwaggerDefinition(String apiID) throws APIMgtDAOException;
 
     /**
-     * Get image of a given API
+     * Get image of a given API. The returned stream reads a copy of the image on disk, so it must be closed after use.
      * @param apiID The UUID of the respective API
      * @return Image stream
      * @throws APIMgtDAOException if error occurs while accessing data layer
@@ -284,6 +359,8 @@ public interface ApiDAO {
     DocumentInfo getDocumentInfo(String resourceID) throws APIMgtDAOException;
 
     /**
+     * Get the file content of a document. The returned stream reads a copy of the file on disk, so it must be closed
+     * after use.
      *
      * @param resourceID The UUID of the respective resource
      * @return {@link InputStream} Document File content
@@ -559,6 +636,17 @@ public interface ApiDAO {
      * @throws APIMgtDAOException if error occurs while accessing data layer
      */
     List<UriTemplate> getResourcesOfApi(String apiContext, String apiVersion) throws APIMgtDAOException;
+
+    /**
+     * Get swagger definition of the API with the given context and version
+     *
+     * @param apiContext context of API
+     * @param apiVersion version of API
+     * @return Swagger definition String, or null if there is no such API
+     * @throws APIMgtDAOException if error occurs while accessing data layer
+     */
+    String getSwaggerDefinitionOfApi(String apiContext, String apiVersion) throws APIMgtDAOException;
+
     /**
      * Check Endpoint is exist
      * @param name name of endpoint
@@ -0,0 +1,308 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.core.dao.impl;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.apimgt.core.api.EventObserver;
+import org.wso2.carbon.apimgt.core.exception.APIMgtDAOException;
+import org.wso2.carbon.apimgt.core.models.Event;
+import org.wso2.carbon.apimgt.core.util.APIMgtConstants;
+
+import java.time.ZonedDateTime;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded in memory cache of API models which are read far more often than they change, such as APIs, their swagger
+ * definitions and gateway configurations, and the last updated times used to validate requests with ETags. Values are
+ * cached by the UUID of the API or the document they belong to.
+ * <p>
+ * The API DAO invalidates the values of an API or a document after changing it, and the values of all APIs after
+ * changing data which is shared by APIs, such as endpoints. API events captured as an {@link EventObserver} also
+ * invalidate the values of the API. Other nodes are notified of local invalidations through the
+ * {@link InvalidationListener}, and a time to live can be set to bound how long a value changed without a
+ * notification is served.
+ * <p>
+ * A value loaded while its entry is invalidated is returned but not cached, so that a value read before a change is
+ * not served after it. Cached values are shared between callers and must not be modified. The cache is disabled until
+ * the maximum number of entries is set, and the values and statistics are discarded when it is configured again.
+ */
+public final class APIModelCache implements EventObserver {
+
+    private static final Logger log = LoggerFactory.getLogger(APIModelCache.class);
+    private static final APIModelCache instance = new APIModelCache();
+
+    /**
+     * Kinds of values held in the cache
+     */
+    public enum Type {
+        API, SWAGGER_DEFINITION, GATEWAY_CONFIG, API_LAST_UPDATED_TIME, SWAGGER_DEFINITION_LAST_UPDATED_TIME,
+        GATEWAY_CONFIG_LAST_UPDATED_TIME, THUMBNAIL_LAST_UPDATED_TIME, DOCUMENT_LAST_UPDATED_TIME
+    }
+
+    /**
+     * Loads a value from the database when it is not cached.
+     *
+     * @param <T> type of the value
+     */
+    @FunctionalInterface
+    public interface Loader<T> {
+        T load() throws APIMgtDAOException;
+    }
+
+    /**
+     * Notified when values are invalidated on this node, so that other nodes can invalidate them as well.
+     */
+    @FunctionalInterface
+    public interface InvalidationListener {
+        /**
+         * @param id UUID of the API or document whose values were invalidated, or null if all values were invalidated
+         */
+        void invalidated(String id);
+    }
+
+    // Null while the cache is disabled
+    private volatile Cache<CacheKey, Object> entries;
+    // Incremented on each invalidation, so that values loaded before it are not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    private int maxEntries;
+    private long timeToLiveMillis;
+    private volatile InvalidationListener invalidationListener;
+
+    private APIModelCache() {
+    }
+
+    public static APIModelCache getInstance() {
+        return instance;
+    }
+
+    /**
+     * Sets the maximum number of cached values. The least recently used values are evicted when it is exceeded.
+     *
+     * @param maxEntries maximum number of values, or 0 to disable the cache
+     */
+    public synchronized void setMaxEntries(int maxEntries) {
+        this.maxEntries = Math.max(maxEntries, 0);
+        rebuild();
+    }
+
+    /**
+     * Sets the time after which a cached value is loaded again from the database.
+     *
+     * @param timeToLive time to live, or 0 to keep the values until they are invalidated or evicted
+     * @param timeUnit   unit of the time to live
+     */
+    public synchronized void setTimeToLive(long timeToLive, TimeUnit timeUnit) {
+        timeToLiveMillis = timeUnit.toMillis(timeToLive);
+        rebuild();
+    }
+
+    /**
+     * @param invalidationListener listener notified of local invalidations, or null to remove the listener
+     */
+    public void setInvalidationListener(InvalidationListener invalidationListener) {
+        this.invalidationListener = invalidationListener;
+    }
+
+    public boolean isEnabled() {
+        return entries != null;
+    }
+
+    /**
+     * Returns the cached value, or loads and caches it if it is not cached. Null values are not cached.
+     *
+     * @param type   kind of the value
+     * @param id     UUID of the API or document the value belongs to
+     * @param loader loads the value from the database
+     * @param <T>    type of the value
+     * @return cached or loaded value
+     * @throws APIMgtDAOException if the value could not be loaded
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(Type type, String id, Loader<T> loader) throws APIMgtDAOException {
+        Cache<CacheKey, Object> cache = entries;
+        if (cache == null || id == null) {
+            return loader.load();
+        }
+
+        CacheKey key = new CacheKey(type, id);
+        Object cachedValue = cache.getIfPresent(key);
+        if (cachedValue != null) {
+            return (T) cachedValue;
+        }
+
+        long loadGeneration = generation.get();
+        T value = loader.load();
+        if (value != null && loadGeneration == generation.get()) {
+            cache.put(key, value);
+            // An invalidation counted after the check above may have discarded the entry before it was put
+            if (loadGeneration != generation.get()) {
+                cache.invalidate(key);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Discards the cached values of an API or a document on this node and notifies the other nodes.
+     *
+     * @param id UUID of the API or document
+     */
+    public void invalidate(String id) {
+        if (id == null) {
+            return;
+        }
+        invalidateLocally(id);
+        notifyInvalidation(id);
+    }
+
+    /**
+     * Discards all the cached values on this node and notifies the other nodes.
+     */
+    public void invalidateAll() {
+        invalidateLocally(null);
+        notifyInvalidation(null);
+    }
+
+    /**
+     * Discards cached values without notifying the other nodes, such as when another node notifies a change.
+     *
+     * @param id UUID of the API or document, or null to discard all the values
+     */
+    public void invalidateLocally(String id) {
+        // Counted before the entries are discarded, so that a value loaded meanwhile is not put back afterwards
+        generation.incrementAndGet();
+        Cache<CacheKey, Object> cache = entries;
+        if (cache == null) {
+            return;
+        }
+        if (id == null) {
+            cache.invalidateAll();
+            return;
+        }
+        for (Type type : Type.values()) {
+            cache.invalidate(new CacheKey(type, id));
+        }
+    }
+
+    /**
+     * Invalidates the values of the API an event is about. The DAO invalidates them on changes made on this node, so
+     * this only covers changes which are not made through the DAO.
+     */
+    @Override
+    public void captureEvent(Event event, String username, ZonedDateTime eventTime, Map<String, String> metadata) {
+        if (metadata == null || (event != Event.API_UPDATE && event != Event.API_DELETION
+                && event != Event.LIFE_CYCLE_CHANGE)) {
+            return;
+        }
+        String apiId = metadata.get(APIMgtConstants.FunctionsConstants.API_ID);
+        if (apiId != null) {
+            invalidateLocally(apiId);
+        }
+    }
+
+    public int size() {
+        Cache<CacheKey, Object> cache = entries;
+        return cache == null ? 0 : (int) cache.size();
+    }
+
+    public long getHitCount() {
+        return getStats().hitCount();
+    }
+
+    public long getMissCount() {
+        return getStats().missCount();
+    }
+
+    public long getEvictionCount() {
+        return getStats().evictionCount();
+    }
+
+    /**
+     * @return ratio of lookups served from the cache, or 0 if there were no lookups
+     */
+    public double getHitRate() {
+        CacheStats stats = getStats();
+        return stats.requestCount() == 0 ? 0 : stats.hitRate();
+    }
+
+    private CacheStats getStats() {
+        Cache<CacheKey, Object> cache = entries;
+        return cache == null ? new CacheStats(0, 0, 0, 0, 0, 0) : cache.stats();
+    }
+
+    private void rebuild() {
+        if (maxEntries == 0) {
+            entries = null;
+            return;
+        }
+        CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder().maximumSize(maxEntries).recordStats();
+        if (timeToLiveMillis > 0) {
+            builder.expireAfterWrite(timeToLiveMillis, TimeUnit.MILLISECONDS);
+        }
+        entries = builder.build();
+    }
+
+    private void notifyInvalidation(String id) {
+        InvalidationListener listener = invalidationListener;
+        if (listener == null) {
+            return;
+        }
+        try {
+            listener.invalidated(id);
+        } catch (RuntimeException e) {
+            // The local change has been made, so a failed notification should not fail it
+            log.error("Error while notifying the invalidation of API model cache entries of " + id, e);
+        }
+    }
+
+    private static final class CacheKey {
+        private final Type type;
+        private final String id;
+
+        private CacheKey(Type type, String id) {
+            this.type = type;
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof CacheKey)) {
+                return false;
+            }
+            CacheKey that = (CacheKey) other;
+            return type == that.type && id.equals(that.id);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(type, id);
+        }
+    }
+}
@@ -28,6 +28,7 @@ import org.wso2.carbon.apimgt.core.models.API;
 import org.wso2.carbon.apimgt.core.models.APISubscriptionResults;
 import org.wso2.carbon.apimgt.core.models.Application;
 import org.wso2.carbon.apimgt.core.models.Subscription;
+import org.wso2.carbon.apimgt.core.models.SubscriptionChanges;
 import org.wso2.carbon.apimgt.core.models.SubscriptionValidationData;
 import org.wso2.carbon.apimgt.core.models.SubscriptionValidationResult;
 import org.wso2.carbon.apimgt.core.util.APIMgtConstants;
@@ -41,6 +42,8 @@ import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Default implementation of the APISubscriptionDAO interface. Uses SQL syntax that is common to H2 and MySQL DBs.
@@ -49,8 +52,25 @@ import java.util.List;
 public class APISubscriptionDAOImpl implements APISubscriptionDAO {
 
     private static final String AM_SUBSCRIPTION_TABLE_NAME = "AM_SUBSCRIPTION";
+    private static final int SUBSCRIPTION_REVISION_ID = 1;
+    private static final long PURGE_INTERVAL_MILLIS = TimeUnit.HOURS.toMillis(1);
     private static final Logger log = LoggerFactory.getLogger(APISubscriptionDAOImpl.class);
 
+    private static volatile long removedSubscriptionRetentionMillis = TimeUnit.DAYS.toMillis(1);
+    private static final AtomicLong nextPurgeTime = new AtomicLong();
+
+    /**
+     * Sets the time for which removed subscriptions are kept for gateways retrieving the subscription changes. A
+     * gateway which has not retrieved the changes within this time retrieves all the subscriptions again.
+     *
+     * @param retention time to keep removed subscriptions, or 0 to keep them until they are removed manually
+     * @param timeUnit  unit of the retention time
+     */
+    public static void setRemovedSubscriptionRetention(long retention, TimeUnit timeUnit) {
+        removedSubscriptionRetentionMillis = timeUnit.toMillis(retention);
+        nextPurgeTime.set(0);
+    }
+
     /**
      * Retrieve a given instance of an API Subscription
      *
@@ -233,6 +253,150 @@ public class APISubscriptionDAOImpl implements APISubscriptionDAO {
         }
     }
 
+    /**
+     * Retrieve the API Subscriptions which were added, updated or removed after the given revision, for validation.
+     * Each change of the subscriptions is given the next revision in the same transaction, and the changes are read
+     * up to the latest committed revision, so that a change committed while reading is returned by the next call.
+     * Removed subscriptions are kept only for a limited time, so the changes after an older revision are returned
+     * with the revision -1, to retrieve all the subscriptions again.
+     *
+     * @param revision Revision returned by the previous call, or a negative value to retrieve all the subscriptions
+     * @return {@link SubscriptionChanges} up to the latest revision
+     * @throws APIMgtDAOException   If failed to get subscriptions.
+     */
+    @Override
+    public SubscriptionChanges getAPISubscriptionChangesForValidation(long revision) throws APIMgtDAOException {
+        final String getChangedSubscriptionsSql = "SELECT SUBS.API_ID AS API_ID, SUBS.APPLICATION_ID AS APP_ID, " +
+                "SUBS.SUB_STATUS AS SUB_STATUS, API.PROVIDER AS API_PROVIDER, API.NAME AS API_NAME, " +
+                "API.CONTEXT AS API_CONTEXT, API.VERSION AS API_VERSION, APP.NAME AS APP_NAME, " +
+                "APP.CREATED_BY AS APP_OWNER, POLICY.NAME AS SUBS_POLICY , KEY_MAP.CLIENT_ID AS CLIENT_ID, " +
+                "KEY_MAP.KEY_TYPE AS KEY_ENV_TYPE " +
+                "FROM AM_SUBSCRIPTION SUBS, AM_API API, AM_APPLICATION APP, AM_SUBSCRIPTION_POLICY POLICY, " +
+                "AM_APP_KEY_MAPPING KEY_MAP " +
+                "WHERE SUBS.API_ID = API.UUID AND SUBS.APPLICATION_ID = APP.UUID AND SUBS.TIER_ID = POLICY.UUID AND " +
+                "KEY_MAP.APPLICATION_ID = SUBS.APPLICATION_ID AND SUBS.REVISION > ? AND SUBS.REVISION <= ?";
+        final String getRemovedSubscriptionsSql = "SELECT API_CONTEXT, API_VERSION, CLIENT_ID, KEY_TYPE " +
+                "FROM AM_DELETED_SUBSCRIPTION WHERE REVISION > ? AND REVISION <= ?";
+        final String getRevisionSql = "SELECT REVISION, PURGED_REVISION FROM AM_SUBSCRIPTION_REVISION WHERE ID = ?";
+        try (Connection conn = DAOUtil.getConnection()) {
+            long latestRevision = 0;
+            long purgedRevision = 0;
+            try (PreparedStatement ps = conn.prepareStatement(getRevisionSql)) {
+                ps.setInt(1, SUBSCRIPTION_REVISION_ID);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) {
+                        latestRevision = rs.getLong("REVISION");
+                        purgedRevision = rs.getLong("PURGED_REVISION");
+                    }
+                }
+            }
+            if (revision >= 0 && revision < purgedRevision) {
+                // Subscriptions removed after the given revision may have been purged
+                return new SubscriptionChanges(-1, new ArrayList<>(), new ArrayList<>());
+            }
+            if (revision >= latestRevision) {
+                return new SubscriptionChanges(latestRevision, new ArrayList<>(), new ArrayList<>());
+            }
+            List<SubscriptionValidationData> subscriptions;
+            try (PreparedStatement ps = conn.prepareStatement(getChangedSubscriptionsSql)) {
+                ps.setLong(1, revision);
+                ps.setLong(2, latestRevision);
+                try (ResultSet rs = ps.executeQuery()) {
+                    subscriptions = createSubscriptionValidationDataFromResultSet(rs);
+                }
+            }
+            List<SubscriptionValidationData> removedSubscriptions = new ArrayList<>();
+            if (revision >= 0) {
+                try (PreparedStatement ps = conn.prepareStatement(getRemovedSubscriptionsSql)) {
+                    ps.setLong(1, revision);
+                    ps.setLong(2, latestRevision);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            SubscriptionValidationData removedSubscription = new SubscriptionValidationData(
+                                    rs.getString("API_CONTEXT"), rs.getString("API_VERSION"),
+                                    rs.getString("CLIENT_ID"));
+                            removedSubscription.setKeyEnvType(rs.getString("KEY_TYPE"));
+                            removedSubscriptions.add(removedSubscription);
+                        }
+                    }
+                }
+            }
+            return new SubscriptionChanges(latestRevision, subscriptions, removedSubscriptions);
+        } catch (SQLException e) {
+            log.error("Error while executing sql query", e);
+            throw new APIMgtDAOException(e);
+        }
+    }
+
+    /**
+     * Retrieve a page of API Subscriptions for validation. The page is selected by the position of the last
+     * subscription of the previous page instead of an offset, so that each page is read from the index of the
+     * subscriptions and the subscriptions can be read in pages of bounded size.
+     *
+     * @param lastSubscriptionId Subscription ID of the last subscription of the previous page, or null for the first
+     *                           page
+     * @param lastKeyEnvType     Key environment type of the last subscription of the previous page
+     * @param limit              Maximum number of subscriptions in the page
+     * @return A list of {@link SubscriptionValidationData} objects, with the subscription ID set
+     * @throws APIMgtDAOException   If failed to get subscriptions.
+     */
+    @Override
+    public List<SubscriptionValidationData> getAPISubscriptionsForValidation(String lastSubscriptionId,
+                                                                             String lastKeyEnvType, int limit)
+            throws APIMgtDAOException {
+        String getSubscriptionsSql = "SELECT SUBS.UUID AS SUBS_UUID, SUBS.API_ID AS API_ID, " +
+                "SUBS.APPLICATION_ID AS APP_ID, SUBS.SUB_STATUS AS SUB_STATUS, API.PROVIDER AS API_PROVIDER, " +
+                "API.NAME AS API_NAME, API.CONTEXT AS API_CONTEXT, API.VERSION AS API_VERSION, " +
+                "APP.NAME AS APP_NAME, APP.CREATED_BY AS APP_OWNER, POLICY.NAME AS SUBS_POLICY , " +
+                "KEY_MAP.CLIENT_ID AS CLIENT_ID, KEY_MAP.KEY_TYPE AS KEY_ENV_TYPE " +
+                "FROM AM_SUBSCRIPTION SUBS, AM_API API, AM_APPLICATION APP, AM_SUBSCRIPTION_POLICY POLICY, " +
+                "AM_APP_KEY_MAPPING KEY_MAP " +
+                "WHERE SUBS.API_ID = API.UUID AND SUBS.APPLICATION_ID = APP.UUID AND SUBS.TIER_ID = POLICY.UUID AND " +
+                "KEY_MAP.APPLICATION_ID = SUBS.APPLICATION_ID ";
+        if (lastSubscriptionId != null) {
+            getSubscriptionsSql += "AND (SUBS.UUID > ? OR (SUBS.UUID = ? AND KEY_MAP.KEY_TYPE > ?)) ";
+        }
+        getSubscriptionsSql += "ORDER BY SUBS.UUID, KEY_MAP.KEY_TYPE";
+        try (Connection conn = DAOUtil.getConnection();
+             PreparedStatement ps = conn.prepareStatement(getSubscriptionsSql)) {
+            if (lastSubscriptionId != null) {
+                ps.setString(1, lastSubscriptionId);
+                ps.setString(2, lastSubscriptionId);
+                ps.setString(3, lastKeyEnvType);
+            }
+            // The limit is set on the statement, as the syntax to limit the rows differs between the databases
+            ps.setMaxRows(limit);
+            List<SubscriptionValidationData> subscriptions = new ArrayList<>(limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    SubscriptionValidationData subscription = createSubscriptionValidationData(rs);
+                    subscription.setSubscriptionId(rs.getString("SUBS_UUID"));
+                    subscriptions.add(subscription);
+                }
+            }
+            return subscriptions;
+        } catch (SQLException e) {
+            log.error("Error while executing sql query", e);
+            throw new APIMgtDAOException(e);
+        }
+    }
+
+    /**
+     * Retrieve the latest revision of API Subscriptions
+     *
+     * @return Latest revision, which can be used to retrieve the changes made after it
+     * @throws APIMgtDAOException   If failed to get the revision.
+     */
+    @Override
+    public long getLatestSubscriptionRevision() throws APIMgtDAOException {
+        try (Connection conn = DAOUtil.getConnection()) {
+            return getSubscriptionRevision(conn);
+        } catch (SQLException e) {
+            log.error("Error while executing sql query", e);
+            throw new APIMgtDAOException(e);
+        }
+    }
+
     /**
      * Retrieves all available API Subscriptions. This method supports result pagination and ensuring results
      * returned are those that belong to the specified username
@@ -358,13 +522,27 @@ public class APISubscriptionDAOImpl implements APISubscriptionDAO {
      */
     @Override
     public void deleteAPISubscription(String subscriptionId) throws APIMgtDAOException {
+        // Keep the keys of the removed subscription, so that gateways can remove it when retrieving the changes
+        final String addDeletedSubscriptionSql = "INSERT INTO AM_DELETED_SUBSCRIPTION (UUID, API_CONTEXT, " +
+                "API_VERSION, CLIENT_ID, KEY_TYPE, REVISION, DELETED_TIME) SELECT SUBS.UUID, API.CONTEXT, " +
+                "API.VERSION, KEY_MAP.CLIENT_ID, KEY_MAP.KEY_TYPE, ?, ? FROM AM_SUBSCRIPTION SUBS, AM_API API, " +
+                "AM_APP_KEY_MAPPING " +
+                "KEY_MAP WHERE SUBS.UUID = ? AND SUBS.API_ID = API.UUID AND KEY_MAP.APPLICATION_ID = " +
+                "SUBS.APPLICATION_ID";
         final String deleteSubscriptionSql = "DELETE FROM AM_SUBSCRIPTION WHERE UUID = ? ";
         try (Connection conn = DAOUtil.getConnection()) {
             boolean originalAutoCommitState = conn.getAutoCommit();
             conn.setAutoCommit(false);
-            try (PreparedStatement ps = conn.prepareStatement(deleteSubscriptionSql)) {
+            try (PreparedStatement addDeletedPs = conn.prepareStatement(addDeletedSubscriptionSql);
+                 PreparedStatement ps = conn.prepareStatement(deleteSubscriptionSql)) {
+                long deletedTime = System.currentTimeMillis();
+                addDeletedPs.setLong(1, nextSubscriptionRevision(conn));
+                addDeletedPs.setTimestamp(2, new Timestamp(deletedTime));
+                addDeletedPs.setString(3, subscriptionId);
+                addDeletedPs.execute();
                 ps.setString(1, subscriptionId);
                 ps.execute();
+                purgeRemovedSubscriptions(conn, deletedTime);
                 conn.commit();
             } catch (SQLException ex) {
                 conn.rollback();
@@ -441,14 +619,15 @@ public class APISubscriptionDAOImpl implements APISubscriptionDAO {
     @Override
     public void updateSubscriptionStatus(String subId, APIMgtConstants.SubscriptionStatus subStatus)
             throws APIMgtDAOException {
-        final String updateSubscriptionSql = "UPDATE AM_SUBSCRIPTION SET SUB_STATUS = ?, LAST_UPDATED_TIME = ? "
-                + "WHERE UUID = ?";
+        final String updateSubscriptionSql = "UPDATE AM_SUBSCRIPTION SET SUB_STATUS = ?, LAST_UPDATED_TIME = ?, "
+                + "REVISION = ? WHERE UUID = ?";
         try (Connection conn = DAOUtil.getConnection()) {
             conn.setAutoCommit(false);
             try (PreparedStatement preparedStatement = conn.prepareStatement(updateSubscriptionSql)) {
                 preparedStatement.setString(1, subStatus.toString());
                 preparedStatement.setTimestamp(2, Timestamp.valueOf(LocalDateTime.now()));
-                preparedStatement.setString(3, subId);
+                preparedStatement.setLong(3, nextSubscriptionRevision(conn));
+                preparedStatement.setString(4, subId);
                 preparedStatement.execute();
                 conn.commit();
             } catch (SQLException ex) {
@@ -481,12 +660,13 @@ public class APISubscriptionDAOImpl implements APISubscriptionDAO {
     @Override
     public void updateSubscriptionPolicy(String subId, String policy) throws APIMgtDAOException {
         final String updateSubscriptionSql = "UPDATE AM_SUBSCRIPTION SET TIER_ID = " +
-                "(SELECT UUID FROM AM_SUBSCRIPTION_POLICY WHERE NAME = ?) WHERE UUID = ?";
+                "(SELECT UUID FROM AM_SUBSCRIPTION_POLICY WHERE NAME = ?), REVISION = ? WHERE UUID = ?";
         try (Connection conn = DAOUtil.getConnection()) {
             conn.setAutoCommit(false);
             try (PreparedStatement preparedStatement = conn.prepareStatement(updateSubscriptionSql)) {
                 preparedStatement.setString(1, policy);
-                preparedStatement.setString(2, subId);
+                preparedStatement.setLong(2, nextSubscriptionRevision(conn));
+                preparedStatement.setString(3, subId);
                 preparedStatement.execute();
                 conn.commit();
             } catch (SQLException ex) {
@@ -556,15 +736,7 @@ public class APISubscriptionDAOImpl implements APISubscriptionDAO {
         }
         try {
             while (rs.next()) {
-                SubscriptionValidationData subValidationData = new SubscriptionValidationData(
-                        rs.getString("API_CONTEXT"), rs.getString("API_VERSION"), rs.getString("CLIENT_ID"));
-                subValidationData.setSubscriptionPolicy(rs.getString("SUBS_POLICY"));
-                subValidationData.setApiName(rs.getString("API_NAME"));
-                subValidationData.setApiProvider(rs.getString("API_PROVIDER"));
-                subValidationData.setApplicationName(rs.getString("APP_NAME"));
-                subValidationData.setApplicationOwner(rs.getString("APP_OWNER"));
-                subValidationData.setKeyEnvType(rs.getString("KEY_ENV_TYPE"));
-                subscriptionList.add(subValidationData);
+                subscriptionList.add(createSubscriptionValidationData(rs));
             }
         } catch (SQLException e) {
             log.error("Error while executing sql query", e);
@@ -573,6 +745,18 @@ public class APISubscriptionDAOImpl implements APISubscriptionDAO {
         return subscriptionList;
     }
 
+    private SubscriptionValidationData createSubscriptionValidationData(ResultSet rs) throws SQLException {
+        SubscriptionValidationData subValidationData = new SubscriptionValidationData(
+                rs.getString("API_CONTEXT"), rs.getString("API_VERSION"), rs.getString("CLIENT_ID"));
+        subValidationData.setSubscriptionPolicy(rs.getString("SUBS_POLICY"));
+        subValidationData.setApiName(rs.getString("API_NAME"));
+        subValidationData.setApiProvider(rs.getString("API_PROVIDER"));
+        subValidationData.setApplicationName(rs.getString("APP_NAME"));
+        subValidationData.setApplicationOwner(rs.getString("APP_OWNER"));
+        subValidationData.setKeyEnvType(rs.getString("KEY_ENV_TYPE"));
+        return subValidationData;
+    }
+
     private List<Subscription> createSubscriptionsFromResultSet(ResultSet rs) throws APIMgtDAOException {
         List<Subscription> subscriptionList = new ArrayList<>();
         Subscription subscription;
@@ -684,7 +868,8 @@ public class APISubscriptionDAOImpl implements APISubscriptionDAO {
 
         //add new subscription
         final String addSubscriptionSql = "INSERT INTO AM_SUBSCRIPTION (UUID, TIER_ID, API_ID, APPLICATION_ID," +
-                "SUB_STATUS, CREATED_TIME) VALUES (?,(SELECT UUID FROM AM_SUBSCRIPTION_POLICY WHERE NAME = ?),?,?,?,?)";
+                "SUB_STATUS, CREATED_TIME, REVISION) VALUES (?,(SELECT UUID FROM AM_SUBSCRIPTION_POLICY " +
+                "WHERE NAME = ?),?,?,?,?,?)";
 
         try (PreparedStatement ps = conn.prepareStatement(addSubscriptionSql)) {
             conn.setAutoCommit(false);
@@ -694,7 +879,88 @@ public class APISubscriptionDAOImpl implements APISubscriptionDAO {
             ps.setString(4, appId);
             ps.setString(5, status != null ? status.toString() : APIMgtConstants.SubscriptionStatus.ACTIVE.toString());
             ps.setTimestamp(6, Timestamp.valueOf(LocalDateTime.now()));
+            ps.setLong(7, nextSubscriptionRevision(conn));
+            ps.execute();
+        }
+    }
+
+    /**
+     * Increments the revision of the subscriptions and returns it. The revision is locked until the transaction of the
+     * given connection ends, so that changes are committed in the order of their revisions.
+     *
+     * @param conn Connection of the transaction which changes the subscriptions
+     * @return Revision of the change
+     * @throws SQLException If failed to increment the revision
+     */
+    static long nextSubscriptionRevision(Connection conn) throws SQLException {
+        final String incrementRevisionSql = "UPDATE AM_SUBSCRIPTION_REVISION SET REVISION = REVISION + 1 " +
+                "WHERE ID = ?";
+        try (PreparedStatement ps = conn.prepareStatement(incrementRevisionSql)) {
+            ps.setInt(1, SUBSCRIPTION_REVISION_ID);
+            if (ps.executeUpdate() == 0) {
+                // The row is added by the database scripts
+                throw new SQLException("Subscription revision " + SUBSCRIPTION_REVISION_ID
+                        + " is not found in AM_SUBSCRIPTION_REVISION");
+            }
+        }
+        return getSubscriptionRevision(conn);
+    }
+
+    /**
+     * Removes the subscriptions removed before the retention time, at most once per purge interval. The revision up
+     * to which they are removed is recorded, so that gateways which have not retrieved the changes after it retrieve
+     * all the subscriptions again. The revision is locked by the given connection, so the removal is not
+     * concurrent with other changes of the subscriptions.
+     *
+     * @param conn Connection of the transaction which removed a subscription
+     * @param now  Current time
+     * @throws SQLException If failed to remove the subscriptions
+     */
+    private void purgeRemovedSubscriptions(Connection conn, long now) throws SQLException {
+        final String getPurgedRevisionSql = "SELECT MAX(REVISION) AS REVISION FROM AM_DELETED_SUBSCRIPTION " +
+                "WHERE DELETED_TIME < ?";
+        final String purgeSql = "DELETE FROM AM_DELETED_SUBSCRIPTION WHERE REVISION <= ?";
+        final String setPurgedRevisionSql = "UPDATE AM_SUBSCRIPTION_REVISION SET PURGED_REVISION = ? WHERE ID = ?";
+        long retentionMillis = removedSubscriptionRetentionMillis;
+        long purgeTime = nextPurgeTime.get();
+        if (retentionMillis <= 0 || now < purgeTime || !nextPurgeTime.compareAndSet(purgeTime,
+                now + Math.min(retentionMillis, PURGE_INTERVAL_MILLIS))) {
+            return;
+        }
+        long purgedRevision;
+        try (PreparedStatement ps = conn.prepareStatement(getPurgedRevisionSql)) {
+            ps.setTimestamp(1, new Timestamp(now - retentionMillis));
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) {
+                    return;
+                }
+                purgedRevision = rs.getLong("REVISION");
+                if (rs.wasNull()) {
+                    return;
+                }
+            }
+        }
+        try (PreparedStatement ps = conn.prepareStatement(purgeSql)) {
+            ps.setLong(1, purgedRevision);
+            ps.execute();
+        }
+        try (PreparedStatement ps = conn.prepareStatement(setPurgedRevisionSql)) {
+            ps.setLong(1, purgedRevision);
+            ps.setInt(2, SUBSCRIPTION_REVISION_ID);
             ps.execute();
         }
     }
+
+    private static long getSubscriptionRevision(Connection conn) throws SQLException {
+        final String getRevisionSql = "SELECT REVISION FROM AM_SUBSCRIPTION_REVISION WHERE ID = ?";
+        try (PreparedStatement ps = conn.prepareStatement(getRevisionSql)) {
+            ps.setInt(1, SUBSCRIPTION_REVISION_ID);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getLong("REVISION");
+                }
+            }
+        }
+        return 0L;
+    }
 }
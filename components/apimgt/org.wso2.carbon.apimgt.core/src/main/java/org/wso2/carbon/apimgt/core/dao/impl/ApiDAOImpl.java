@@ -30,6 +30,8 @@ import org.wso2.carbon.apimgt.core.dao.ApiType;
 import org.wso2.carbon.apimgt.core.exception.APIMgtDAOException;
 import org.wso2.carbon.apimgt.core.exception.ExceptionCodes;
 import org.wso2.carbon.apimgt.core.models.API;
+import org.wso2.carbon.apimgt.core.models.APICursor;
+import org.wso2.carbon.apimgt.core.models.APIResults;
 import org.wso2.carbon.apimgt.core.models.BusinessInformation;
 import org.wso2.carbon.apimgt.core.models.Comment;
 import org.wso2.carbon.apimgt.core.models.CorsConfiguration;
@@ -54,9 +56,12 @@ import java.sql.Types;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -89,6 +94,12 @@ public class ApiDAOImpl implements ApiDAO {
     private static final String AM_ENDPOINT_TABLE_NAME = "AM_ENDPOINT";
     private static final Logger log = LoggerFactory.getLogger(ApiDAOImpl.class);
 
+    /**
+     * Maximum number of APIs retrieved by a single query, which keeps the IN clauses within the limits of the
+     * supported databases
+     */
+    private static final int MAX_APIS_PER_QUERY = 500;
+
     ApiDAOImpl(ApiDAOVendorSpecificStatements sqlStatements) {
         this.sqlStatements = sqlStatements;
     }
@@ -105,12 +116,45 @@ public class ApiDAOImpl implements ApiDAO {
              PreparedStatement statement = connection.prepareStatement(query)) {
             statement.setString(1, apiID);
 
-            return constructAPIFromResultSet(connection, statement);
+            return constructAPIsFromResultSet(connection, statement).get(apiID);
         } catch (SQLException | IOException e) {
             throw new APIMgtDAOException(e);
         }
     }
 
+    /**
+     * @see ApiDAO#getAPIs(Collection)
+     */
+    @Override
+    @SuppressFBWarnings("SQL_PREPARED_STATEMENT_GENERATED_FROM_NONCONSTANT_STRING")
+    public List<API> getAPIs(Collection<String> apiIDs) throws APIMgtDAOException {
+        List<String> uniqueApiIDs = new ArrayList<>(new LinkedHashSet<>(apiIDs));
+        Map<String, API> apis = new HashMap<>();
+
+        try (Connection connection = DAOUtil.getConnection()) {
+            for (int i = 0; i < uniqueApiIDs.size(); i += MAX_APIS_PER_QUERY) {
+                List<String> batch = uniqueApiIDs.subList(i, Math.min(i + MAX_APIS_PER_QUERY, uniqueApiIDs.size()));
+                final String query = API_SELECT + " WHERE UUID IN (" + DAOUtil.getParameterString(batch.size()) + ")";
+
+                try (PreparedStatement statement = connection.prepareStatement(query)) {
+                    setStringParameters(statement, batch);
+                    apis.putAll(constructAPIsFromResultSet(connection, statement));
+                }
+            }
+        } catch (SQLException | IOException e) {
+            throw new APIMgtDAOException(e);
+        }
+
+        List<API> apiList = new ArrayList<>();
+        for (String apiID : uniqueApiIDs) {
+            API api = apis.get(apiID);
+            if (api != null) {
+                apiList.add(api);
+            }
+        }
+        return apiList;
+    }
+
     /**
      * @see ApiDAO#getAPISummary(String)
      */
@@ -180,12 +224,11 @@ public class ApiDAOImpl implements ApiDAO {
     @Override
     @SuppressFBWarnings("SQL_PREPARED_STATEMENT_GENERATED_FROM_NONCONSTANT_STRING")
     public List<API> getAPIs(ApiType apiType) throws APIMgtDAOException {
-        final String query = API_SUMMARY_SELECT + " WHERE API_TYPE_ID = " +
-                "(SELECT TYPE_ID FROM AM_API_TYPES WHERE TYPE_NAME = ?)";
+        final String query = API_SUMMARY_SELECT + " WHERE API_TYPE_ID = ?";
 
         try (Connection connection = DAOUtil.getConnection();
              PreparedStatement statement = connection.prepareStatement(query)) {
-            statement.setString(1, apiType.toString());
+            statement.setInt(1, getApiTypeId(connection, apiType));
 
             return constructAPISummaryList(connection, statement);
         } catch (SQLException e) {
@@ -199,13 +242,12 @@ public class ApiDAOImpl implements ApiDAO {
     @Override
     @SuppressFBWarnings("SQL_PREPARED_STATEMENT_GENERATED_FROM_NONCONSTANT_STRING")
     public List<API> getAPIsForProvider(String providerName, ApiType apiType) throws APIMgtDAOException {
-        final String query = API_SUMMARY_SELECT + " WHERE PROVIDER = ? AND API_TYPE_ID = " +
-                "(SELECT TYPE_ID FROM AM_API_TYPES WHERE TYPE_NAME = ?)";
+        final String query = API_SUMMARY_SELECT + " WHERE PROVIDER = ? AND API_TYPE_ID = ?";
 
         try (Connection connection = DAOUtil.getConnection();
              PreparedStatement statement = connection.prepareStatement(query)) {
             statement.setString(1, providerName);
-            statement.setString(2, apiType.toString());
+            statement.setInt(2, getApiTypeId(connection, apiType));
 
             return constructAPISummaryList(connection, statement);
         } catch (SQLException e) {
@@ -221,7 +263,7 @@ public class ApiDAOImpl implements ApiDAO {
     public List<API> getAPIsByStatus(List<String> statuses, ApiType apiType) throws APIMgtDAOException {
         final String query = API_SUMMARY_SELECT + " WHERE CURRENT_LC_STATUS IN (" +
                 DAOUtil.getParameterString(statuses.size()) + ") AND " +
-                "API_TYPE_ID = (SELECT TYPE_ID FROM AM_API_TYPES WHERE TYPE_NAME = ?)";
+                "API_TYPE_ID = ?";
 
         try (Connection connection = DAOUtil.getConnection();
              PreparedStatement statement = connection.prepareStatement(query)) {
@@ -231,7 +273,7 @@ public class ApiDAOImpl implements ApiDAO {
                 statement.setString(++i, status);
             }
 
-            statement.setString(++i, apiType.toString());
+            statement.setInt(++i, getApiTypeId(connection, apiType));
 
             return constructAPISummaryList(connection, statement);
         } catch (SQLException e) {
@@ -259,7 +301,7 @@ public class ApiDAOImpl implements ApiDAO {
                 "VISIBILITY = '" + API.Visibility.PUBLIC + "' " +
                 "AND " +
                 "CURRENT_LC_STATUS  IN (" + DAOUtil.getParameterString(statuses.size()) + ") AND " +
-                "API_TYPE_ID = (SELECT TYPE_ID FROM AM_API_TYPES WHERE TYPE_NAME = ?)" +
+                "API_TYPE_ID = ? " +
                 "UNION " +
                 API_SUMMARY_SELECT +
                 " WHERE " +
@@ -269,7 +311,7 @@ public class ApiDAOImpl implements ApiDAO {
                 "(" + DAOUtil.getParameterString(roles.size()) + ")) " +
                 "AND " + "CURRENT_LC_STATUS  IN (" +
                 DAOUtil.getParameterString(statuses.size()) + ") AND " +
-                "API_TYPE_ID = (SELECT TYPE_ID FROM AM_API_TYPES WHERE TYPE_NAME = ?)";
+                "API_TYPE_ID = ?";
 
         try (Connection connection = DAOUtil.getConnection();
              PreparedStatement statement = connection.prepareStatement(query)) {
@@ -279,7 +321,7 @@ public class ApiDAOImpl implements ApiDAO {
                 statement.setString(++i, status);
             }
 
-            statement.setString(++i, apiType.toString());
+            statement.setInt(++i, getApiTypeId(connection, apiType));
 
             //put desired roles into the query
             for (String role : roles) {
@@ -290,7 +332,7 @@ public class ApiDAOImpl implements ApiDAO {
                 statement.setString(++i, status);
             }
 
-            statement.setString(++i, apiType.toString());
+            statement.setInt(++i, getApiTypeId(connection, apiType));
 
             return constructAPISummaryList(connection, statement);
         } catch (SQLException e) {
@@ -301,6 +343,105 @@ public class ApiDAOImpl implements ApiDAO {
     }
 
 
+    /**
+     * @see ApiDAO#getAPIs(ApiType, APICursor, int, int)
+     */
+    @Override
+    public APIResults getAPIs(ApiType apiType, APICursor after, int offset, int limit) throws APIMgtDAOException {
+        final String condition = "API_TYPE_ID = ?";
+
+        try (Connection connection = DAOUtil.getConnection()) {
+            return getAPISummaryPage(connection, condition, (statement, index) -> {
+                statement.setInt(++index, getApiTypeId(connection, apiType));
+                return index;
+            }, after, offset, limit);
+        } catch (SQLException e) {
+            throw new APIMgtDAOException(e);
+        }
+    }
+
+    /**
+     * @see ApiDAO#getAPIsForProvider(String, ApiType, APICursor, int, int)
+     */
+    @Override
+    public APIResults getAPIsForProvider(String providerName, ApiType apiType, APICursor after, int offset,
+                                         int limit) throws APIMgtDAOException {
+        final String condition = "PROVIDER = ? AND API_TYPE_ID = ?";
+
+        try (Connection connection = DAOUtil.getConnection()) {
+            return getAPISummaryPage(connection, condition, (statement, index) -> {
+                statement.setString(++index, providerName);
+                statement.setInt(++index, getApiTypeId(connection, apiType));
+                return index;
+            }, after, offset, limit);
+        } catch (SQLException e) {
+            throw new APIMgtDAOException(e);
+        }
+    }
+
+    /**
+     * @see ApiDAO#getAPIsByStatus(List, ApiType, APICursor, int, int)
+     */
+    @Override
+    public APIResults getAPIsByStatus(List<String> statuses, ApiType apiType, APICursor after, int offset,
+                                      int limit) throws APIMgtDAOException {
+        final String condition = "CURRENT_LC_STATUS IN (" + DAOUtil.getParameterString(statuses.size()) + ") AND " +
+                "API_TYPE_ID = ?";
+
+        try (Connection connection = DAOUtil.getConnection()) {
+            return getAPISummaryPage(connection, condition, (statement, index) -> {
+                for (String status : statuses) {
+                    statement.setString(++index, status);
+                }
+                statement.setInt(++index, getApiTypeId(connection, apiType));
+                return index;
+            }, after, offset, limit);
+        } catch (SQLException e) {
+            throw new APIMgtDAOException(e);
+        }
+    }
+
+    /**
+     * @see ApiDAO#getAPIsByStatus(Set, List, ApiType, APICursor, int, int)
+     */
+    @Override
+    public APIResults getAPIsByStatus(Set<String> roles, List<String> statuses, ApiType apiType, APICursor after,
+                                      int offset, int limit) throws APIMgtDAOException {
+        if (roles == null || statuses == null) {
+            String errorMessage = "Role list or API status list should not be null to retrieve APIs.";
+            log.error(errorMessage);
+            throw new APIMgtDAOException(errorMessage);
+        }
+        //APIs with public visibility, and APIs with restricted visibility which are visible to one of the roles.
+        //Unlike getAPIsByStatus(Set, List, ApiType) a single condition is used instead of a union, so that the
+        //APIs can be paginated in the database
+        String visibilityCondition = "VISIBILITY = '" + API.Visibility.PUBLIC + "'";
+        if (!roles.isEmpty()) {
+            visibilityCondition = "(" + visibilityCondition + " OR (VISIBILITY = '" + API.Visibility.RESTRICTED +
+                    "' AND UUID IN (SELECT API_ID FROM AM_API_VISIBLE_ROLES WHERE ROLE IN (" +
+                    DAOUtil.getParameterString(roles.size()) + "))))";
+        }
+        final String condition = "CURRENT_LC_STATUS IN (" + DAOUtil.getParameterString(statuses.size()) + ") AND " +
+                "API_TYPE_ID = ? AND " + visibilityCondition;
+
+        try (Connection connection = DAOUtil.getConnection()) {
+            return getAPISummaryPage(connection, condition, (statement, index) -> {
+                for (String status : statuses) {
+                    statement.setString(++index, status);
+                }
+                statement.setInt(++index, getApiTypeId(connection, apiType));
+                for (String role : roles) {
+                    statement.setString(++index, role);
+                }
+                return index;
+            }, after, offset, limit);
+        } catch (SQLException e) {
+            String errorMessage = "Error while retrieving API list in store.";
+            log.error(errorMessage, e);
+            throw new APIMgtDAOException(errorMessage, e);
+        }
+    }
+
     /**
      * @see org.wso2.carbon.apimgt.core.dao.ApiDAO#searchAPIs(Set, String, String, ApiType, int, int)
      */
@@ -427,7 +568,7 @@ public class ApiDAOImpl implements ApiDAO {
         final String query = API_SUMMARY_SELECT +
                 " WHERE LOWER(NAME) LIKE ? AND CURRENT_LC_STATUS IN (" +
                 DAOUtil.getParameterString(statuses.size()) + ") AND " +
-                "API_TYPE_ID = (SELECT TYPE_ID FROM AM_API_TYPES WHERE TYPE_NAME = ?)";
+                "API_TYPE_ID = ?";
 
         try (Connection connection = DAOUtil.getConnection();
              PreparedStatement statement = connection.prepareStatement(query)) {
@@ -439,7 +580,7 @@ public class ApiDAOImpl implements ApiDAO {
                 statement.setString(++i, status);
             }
 
-            statement.setString(++i, apiType.toString());
+            statement.setInt(++i, getApiTypeId(connection, apiType));
 
             return constructAPISummaryList(connection, statement);
         } catch (SQLException e) {
@@ -453,13 +594,13 @@ public class ApiDAOImpl implements ApiDAO {
     @Override
     public boolean isAPINameExists(String apiName, String providerName, ApiType apiType) throws APIMgtDAOException {
         final String apiExistsQuery = "SELECT 1 FROM AM_API WHERE LOWER(NAME) = ? AND PROVIDER = ? AND " +
-                "API_TYPE_ID = (SELECT TYPE_ID FROM AM_API_TYPES WHERE TYPE_NAME = ?)";
+                "API_TYPE_ID = ?";
 
         try (Connection connection = DAOUtil.getConnection();
              PreparedStatement statement = connection.prepareStatement(apiExistsQuery)) {
             statement.setString(1, apiName.toLowerCase(Locale.ENGLISH));
             statement.setString(2, providerName);
-            statement.setString(3, apiType.toString());
+            statement.setInt(3, getApiTypeId(connection, apiType));
 
             try (ResultSet rs = statement.executeQuery()) {
                 if (rs.next()) {
@@ -667,6 +808,7 @@ public class ApiDAOImpl implements ApiDAO {
                 deleteUrlMappings(connection, apiID);
                 addUrlMappings(connection, substituteAPI.getUriTemplates().values(), apiID);
                 connection.commit();
+                APIModelCache.getInstance().invalidate(apiID);
             } catch (SQLException | IOException e) {
                 String msg = "Couldn't update api : " + substituteAPI.getName();
                 connection.rollback();
@@ -699,6 +841,8 @@ public class ApiDAOImpl implements ApiDAO {
                 statement.setString(1, apiID);
                 statement.execute();
                 connection.commit();
+                // The documents of the API are deleted along with it
+                APIModelCache.getInstance().invalidateAll();
             } catch (SQLException | IOException e) {
                 String msg = "Couldn't delete api : " + apiID;
                 log.error(msg, e);
@@ -739,6 +883,7 @@ public class ApiDAOImpl implements ApiDAO {
                 connection.setAutoCommit(false);
                 updateAPIDefinition(connection, apiID, swaggerDefinition, updatedBy);
                 connection.commit();
+                APIModelCache.getInstance().invalidate(apiID);
             } catch (SQLException e) {
                 connection.rollback();
                 throw new APIMgtDAOException(e);
@@ -772,6 +917,7 @@ public class ApiDAOImpl implements ApiDAO {
     public void updateGatewayConfig(String apiID, String gatewayConfig, String updatedBy) throws APIMgtDAOException {
         try (Connection connection = DAOUtil.getConnection()) {
             updateGatewayConfig(connection, apiID, gatewayConfig, updatedBy);
+            APIModelCache.getInstance().invalidate(apiID);
         } catch (SQLException e) {
             throw new APIMgtDAOException(e);
         }
@@ -1065,7 +1211,31 @@ public class ApiDAOImpl implements ApiDAO {
     }
 
     /**
-     * Get image of a given API
+     * @see org.wso2.carbon.apimgt.core.dao.ApiDAO#getSwaggerDefinitionOfApi(String, String)
+     */
+    @Override
+    public String getSwaggerDefinitionOfApi(String apiContext, String apiVersion) throws APIMgtDAOException {
+        final String apiIdFromContextQuery = "SELECT UUID FROM AM_API WHERE CONTEXT = ? AND VERSION = ?";
+        try (Connection connection = DAOUtil.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(apiIdFromContextQuery)) {
+            preparedStatement.setString(1, apiContext);
+            preparedStatement.setString(2, apiVersion);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                if (resultSet.next()) {
+                    return getAPIDefinition(connection, resultSet.getString("UUID"));
+                }
+            }
+        } catch (SQLException | IOException e) {
+            String msg = "Couldn't retrieve swagger definition for Api Name: " + apiContext;
+            log.error(msg, e);
+            throw new APIMgtDAOException(msg, e, ExceptionCodes.APIMGT_DAO_EXCEPTION);
+        }
+        return null;
+    }
+
+    /**
+     * Get image of a given API. The image is copied from the database to a file, which the returned stream reads, so
+     * the database connection is released before this method returns.
      *
      * @param apiID The UUID of the respective API
      * @return Image stream
@@ -1074,7 +1244,7 @@ public class ApiDAOImpl implements ApiDAO {
     @Override
     public InputStream getImage(String apiID) throws APIMgtDAOException {
         try (Connection connection = DAOUtil.getConnection()) {
-            return ApiResourceDAO.getBinaryValueForCategory(connection, apiID, ResourceCategory.IMAGE);
+            return ApiResourceDAO.streamBinaryValueForCategory(connection, apiID, ResourceCategory.IMAGE);
         } catch (SQLException | IOException e) {
             throw new APIMgtDAOException("Couldn't retrieve api thumbnail for api " + apiID, e);
         }
@@ -1099,6 +1269,7 @@ public class ApiDAOImpl implements ApiDAO {
                                 ResourceCategory.IMAGE, image, updatedBy);
                     }
                     connection.commit();
+                    APIModelCache.getInstance().invalidate(apiID);
                 } catch (SQLException e) {
                     connection.rollback();
                     throw new APIMgtDAOException(e);
@@ -1130,6 +1301,7 @@ public class ApiDAOImpl implements ApiDAO {
                 statement.setString(3, apiID);
                 statement.execute();
                 connection.commit();
+                APIModelCache.getInstance().invalidate(apiID);
             } catch (SQLException e) {
                 connection.rollback();
                 throw new APIMgtDAOException(e);
@@ -1174,6 +1346,9 @@ public class ApiDAOImpl implements ApiDAO {
     }
 
     /**
+     * The file is copied from the database to a file, which the returned stream reads, so the database connection is
+     * released before this method returns.
+     *
      * @param resourceID The UUID of the respective Document
      * @return {@link InputStream} Document Info object
      * @throws APIMgtDAOException if error occurs while accessing data layer
@@ -1182,8 +1357,8 @@ public class ApiDAOImpl implements ApiDAO {
     @CheckForNull
     public InputStream getDocumentFileContent(String resourceID) throws APIMgtDAOException {
         try (Connection connection = DAOUtil.getConnection()) {
-            return ApiResourceDAO.getBinaryResource(connection, resourceID);
-        } catch (SQLException e) {
+            return ApiResourceDAO.streamBinaryResource(connection, resourceID);
+        } catch (SQLException | IOException e) {
             throw new APIMgtDAOException(e);
         }
     }
@@ -1246,6 +1421,7 @@ public class ApiDAOImpl implements ApiDAO {
                 DocMetaDataDAO.updateDocInfo(connection, documentInfo, updatedBy);
 
                 connection.commit();
+                APIModelCache.getInstance().invalidate(documentInfo.getId());
             } catch (SQLException e) {
                 connection.rollback();
                 throw new APIMgtDAOException(e);
@@ -1272,6 +1448,7 @@ public class ApiDAOImpl implements ApiDAO {
                     throw new APIMgtDAOException(errorMessage);
                 }
                 connection.commit();
+                APIModelCache.getInstance().invalidate(resourceID);
             } catch (SQLException e) {
                 connection.rollback();
                 throw new APIMgtDAOException(e);
@@ -1296,6 +1473,7 @@ public class ApiDAOImpl implements ApiDAO {
                     throw new APIMgtDAOException("Cannot add inline content for a document that does not exist");
                 }
                 connection.commit();
+                APIModelCache.getInstance().invalidate(resourceID);
             } catch (SQLException e) {
                 connection.rollback();
                 throw new APIMgtDAOException(e);
@@ -1320,6 +1498,7 @@ public class ApiDAOImpl implements ApiDAO {
                 connection.setAutoCommit(false);
                 ApiResourceDAO.deleteResource(connection, resourceID);
                 connection.commit();
+                APIModelCache.getInstance().invalidate(resourceID);
             } catch (SQLException e) {
                 connection.rollback();
                 throw new APIMgtDAOException(e);
@@ -1366,8 +1545,16 @@ public class ApiDAOImpl implements ApiDAO {
         return exist;
     }
 
-    private API constructAPIFromResultSet(Connection connection, PreparedStatement statement) throws SQLException,
-            IOException {
+    /**
+     * Constructs the APIs returned by the given statement. The child entities of all the APIs, such as tags,
+     * endpoints and URI templates, are retrieved with a fixed number of queries irrespective of the number of APIs.
+     *
+     * @return APIs mapped to their IDs, in the order returned by the statement
+     */
+    private Map<String, API> constructAPIsFromResultSet(Connection connection, PreparedStatement statement)
+            throws SQLException, IOException {
+        Map<String, API.APIBuilder> apiBuilders = new LinkedHashMap<>();
+        Map<String, Integer> apiTypeIDs = new HashMap<>();
         try (ResultSet rs = statement.executeQuery()) {
             while (rs.next()) {
                 BusinessInformation businessInformation = new BusinessInformation();
@@ -1392,39 +1579,124 @@ public class ApiDAOImpl implements ApiDAO {
 
                 String apiPrimaryKey = rs.getString("UUID");
 
-                return new API.APIBuilder(rs.getString("PROVIDER"), rs.getString("NAME"), rs.getString("VERSION")).
+                apiBuilders.put(apiPrimaryKey, new API.APIBuilder(rs.getString("PROVIDER"), rs.getString("NAME"),
+                        rs.getString("VERSION")).
                         id(apiPrimaryKey).
                         context(rs.getString("CONTEXT")).
                         isDefaultVersion(rs.getBoolean("IS_DEFAULT_VERSION")).
                         description(rs.getString("DESCRIPTION")).
                         visibility(API.Visibility.valueOf(rs.getString("VISIBILITY"))).
-                        visibleRoles(getVisibleRoles(connection, apiPrimaryKey)).
                         isResponseCachingEnabled(rs.getBoolean("IS_RESPONSE_CACHED")).
                         cacheTimeout(rs.getInt("CACHE_TIMEOUT")).
-                        tags(getTags(connection, apiPrimaryKey)).
-                        labels(getLabelNames(connection, apiPrimaryKey)).
-                        wsdlUri(ApiResourceDAO.
-                                getTextValueForCategory(connection, apiPrimaryKey,
-                                        ResourceCategory.WSDL_URI)).
-                        transport(getTransports(connection, apiPrimaryKey)).
-                        endpoint(getEndPointsForApi(connection, apiPrimaryKey)).
                         businessInformation(businessInformation).
                         lifecycleInstanceId(rs.getString("LIFECYCLE_INSTANCE_ID")).
                         lifeCycleStatus(rs.getString("CURRENT_LC_STATUS")).
                         corsConfiguration(corsConfiguration).
-                        apiType(getApiTypeById(connection, rs.getInt("API_TYPE_ID"))).
                         createdBy(rs.getString("CREATED_BY")).
                         updatedBy(rs.getString("UPDATED_BY")).
                         createdTime(rs.getTimestamp("CREATED_TIME").toLocalDateTime()).
                         lastUpdatedTime(rs.getTimestamp("LAST_UPDATED_TIME").toLocalDateTime()).
-                        uriTemplates(getUriTemplates(connection, apiPrimaryKey)).
-                        policies(getSubscripitonPolciesByAPIId(connection, apiPrimaryKey)).copiedFromApiId(rs.getString
-                        ("COPIED_FROM_API")).
-                        workflowStatus(rs.getString("LC_WORKFLOW_STATUS")).build();
+                        copiedFromApiId(rs.getString("COPIED_FROM_API")).
+                        workflowStatus(rs.getString("LC_WORKFLOW_STATUS")));
+                apiTypeIDs.put(apiPrimaryKey, rs.getInt("API_TYPE_ID"));
             }
         }
 
-        return null;
+        Map<String, API> apis = new LinkedHashMap<>();
+        if (apiBuilders.isEmpty()) {
+            return apis;
+        }
+
+        List<String> apiIDs = new ArrayList<>(apiBuilders.keySet());
+        Map<String, Set<String>> visibleRoles = getVisibleRoles(connection, apiIDs);
+        Map<String, Set<String>> tags = getTags(connection, apiIDs);
+        Map<String, Set<String>> labels = getLabelNames(connection, apiIDs);
+        Map<String, String> wsdlUris = ApiResourceDAO.getTextValuesForCategory(connection, apiIDs,
+                ResourceCategory.WSDL_URI);
+        Map<String, Set<String>> transports = getTransports(connection, apiIDs);
+        Map<String, Map<String, Endpoint>> endpoints = getEndPointsForApis(connection, apiIDs);
+        Map<String, Map<String, UriTemplate>> uriTemplates = getUriTemplates(connection, apiIDs);
+        Map<String, Set<String>> policies = getSubscripitonPolciesByAPIIds(connection, apiIDs);
+        Map<Integer, ApiType> apiTypes = getApiTypes(connection);
+
+        for (Map.Entry<String, API.APIBuilder> apiBuilder : apiBuilders.entrySet()) {
+            String apiID = apiBuilder.getKey();
+            ApiType apiType = apiTypes.get(apiTypeIDs.get(apiID));
+            if (apiType == null) {
+                throw new SQLException("API Type Id " + apiTypeIDs.get(apiID) + " does not exist");
+            }
+
+            apis.put(apiID, apiBuilder.getValue().
+                    visibleRoles(visibleRoles.getOrDefault(apiID, new HashSet<>())).
+                    tags(tags.getOrDefault(apiID, new HashSet<>())).
+                    labels(labels.getOrDefault(apiID, new HashSet<>())).
+                    wsdlUri(wsdlUris.get(apiID)).
+                    transport(transports.getOrDefault(apiID, new HashSet<>())).
+                    endpoint(endpoints.getOrDefault(apiID, new HashMap<>())).
+                    apiType(apiType).
+                    uriTemplates(uriTemplates.getOrDefault(apiID, new HashMap<>())).
+                    policies(policies.getOrDefault(apiID, new HashSet<>())).build());
+        }
+
+        return apis;
+    }
+
+    /**
+     * Retrieves a page of APIs matching the given condition on AM_API, ordered by name and UUID. The APIs after the
+     * cursor are found with a seek condition on (NAME, UUID) instead of skipping the previous rows, so that each page
+     * costs the same. The APIs matching the condition are counted only for the first page, and the count is carried
+     * to the next pages in the cursor.
+     */
+    @SuppressFBWarnings("SQL_PREPARED_STATEMENT_GENERATED_FROM_NONCONSTANT_STRING")
+    private APIResults getAPISummaryPage(Connection connection, String condition, ConditionParameters parameters,
+                                         APICursor after, int offset, int limit) throws SQLException {
+        long totalCount;
+        if (after == null) {
+            final String countQuery = "SELECT COUNT(*) FROM AM_API WHERE " + condition;
+            try (PreparedStatement statement = connection.prepareStatement(countQuery)) {
+                parameters.set(statement, 0);
+                try (ResultSet rs = statement.executeQuery()) {
+                    totalCount = rs.next() ? rs.getLong(1) : 0;
+                }
+            }
+        } else {
+            totalCount = after.getTotalCount();
+        }
+
+        APIResults results = new APIResults();
+        results.setTotalCount(totalCount);
+        if (limit <= 0) {
+            results.setApiList(new ArrayList<>());
+            return results;
+        }
+
+        String query = API_SUMMARY_SELECT + " WHERE " + condition;
+        if (after != null) {
+            query += " AND (NAME > ? OR (NAME = ? AND UUID > ?))";
+        }
+        query = sqlStatements.getPaginatedQuery(query + " ORDER BY NAME, UUID");
+
+        List<API> apiList;
+        try (PreparedStatement statement = connection.prepareStatement(query)) {
+            int index = parameters.set(statement, 0);
+            if (after != null) {
+                statement.setString(++index, after.getName());
+                statement.setString(++index, after.getName());
+                statement.setString(++index, after.getId());
+            }
+            // One more API than the limit is retrieved, to find out whether there is a next page
+            sqlStatements.setPaginationParameters(statement, index, offset,
+                    limit < Integer.MAX_VALUE ? limit + 1 : limit);
+            apiList = constructAPISummaryList(connection, statement);
+        }
+
+        if (apiList.size() > limit) {
+            apiList = new ArrayList<>(apiList.subList(0, limit));
+            API lastAPI = apiList.get(limit - 1);
+            results.setNextCursor(new APICursor(lastAPI.getName(), lastAPI.getId(), totalCount));
+        }
+        results.setApiList(apiList);
+        return results;
     }
 
     private List<API> constructAPISummaryList(Connection connection, PreparedStatement statement) throws SQLException {
@@ -1474,28 +1746,13 @@ public class ApiDAOImpl implements ApiDAO {
     }
 
 
-    private Set<String> getTags(Connection connection, String apiID) throws SQLException {
-        Set<String> tags = new HashSet<>();
-
-        final String query = "SELECT TAG_ID FROM AM_API_TAG_MAPPING WHERE API_ID = ?";
-        try (PreparedStatement statement = connection.prepareStatement(query)) {
-            statement.setString(1, apiID);
-            statement.execute();
-
-            try (ResultSet rs = statement.getResultSet()) {
-                List<String> tagIDs = new ArrayList<>();
-
-                while (rs.next()) {
-                    tagIDs.add(rs.getString("TAG_ID"));
-                }
-
-                if (!tagIDs.isEmpty()) {
-                    tags = TagDAOImpl.getTagsByIDs(connection, tagIDs);
-                }
-            }
-        }
+    @SuppressFBWarnings("SQL_PREPARED_STATEMENT_GENERATED_FROM_NONCONSTANT_STRING")
+    private Map<String, Set<String>> getTags(Connection connection, List<String> apiIDs) throws SQLException {
+        final String query = "SELECT AM_API_TAG_MAPPING.API_ID, AM_TAGS.NAME FROM AM_API_TAG_MAPPING INNER JOIN " +
+                "AM_TAGS ON AM_API_TAG_MAPPING.TAG_ID = AM_TAGS.TAG_ID WHERE AM_API_TAG_MAPPING.API_ID IN (" +
+                DAOUtil.getParameterString(apiIDs.size()) + ")";
 
-        return tags;
+        return getValuesOfAPIs(connection, query, "NAME", apiIDs);
     }
 
     private void addVisibleRole(Connection connection, String apiID, Set<String> roles) throws SQLException {
@@ -1519,22 +1776,12 @@ public class ApiDAOImpl implements ApiDAO {
         }
     }
 
-    private Set<String> getVisibleRoles(Connection connection, String apiID) throws SQLException {
-        Set<String> roles = new HashSet<>();
-
-        final String query = "SELECT ROLE FROM AM_API_VISIBLE_ROLES WHERE API_ID = ?";
-        try (PreparedStatement statement = connection.prepareStatement(query)) {
-            statement.setString(1, apiID);
-            statement.execute();
-
-            try (ResultSet rs = statement.getResultSet()) {
-                while (rs.next()) {
-                    roles.add(rs.getString("ROLE"));
-                }
-            }
-        }
+    @SuppressFBWarnings("SQL_PREPARED_STATEMENT_GENERATED_FROM_NONCONSTANT_STRING")
+    private Map<String, Set<String>> getVisibleRoles(Connection connection, List<String> apiIDs) throws SQLException {
+        final String query = "SELECT API_ID, ROLE FROM AM_API_VISIBLE_ROLES WHERE API_ID IN (" +
+                DAOUtil.getParameterString(apiIDs.size()) + ")";
 
-        return roles;
+        return getValuesOfAPIs(connection, query, "ROLE", apiIDs);
     }
 
     private void addAPIDefinition(Connection connection, String apiID, String apiDefinition, String addedBy)
@@ -1553,10 +1800,7 @@ public class ApiDAOImpl implements ApiDAO {
     }
 
     private String getAPIDefinition(Connection connection, String apiID) throws SQLException, IOException {
-        InputStream apiDefinition = ApiResourceDAO.getBinaryValueForCategory(connection, apiID,
-                ResourceCategory.SWAGGER);
-
-        return IOUtils.toString(apiDefinition, StandardCharsets.UTF_8);
+        return ApiResourceDAO.getBinaryValueAsString(connection, apiID, ResourceCategory.SWAGGER);
     }
 
     private void addGatewayConfig(Connection connection, String apiID, String gatewayConfig, String addedBy)
@@ -1570,13 +1814,7 @@ public class ApiDAOImpl implements ApiDAO {
     }
 
     private String getGatewayConfig(Connection connection, String apiID) throws SQLException, IOException {
-        InputStream gatewayConfig = ApiResourceDAO
-                .getBinaryValueForCategory(connection, apiID, ResourceCategory.GATEWAY_CONFIG);
-
-        if (gatewayConfig != null) {
-            return IOUtils.toString(gatewayConfig, StandardCharsets.UTF_8);
-        }
-        return null;
+        return ApiResourceDAO.getBinaryValueAsString(connection, apiID, ResourceCategory.GATEWAY_CONFIG);
     }
 
     private void updateGatewayConfig(Connection connection, String apiID, String gatewayConfig, String updatedBy)
@@ -1588,19 +1826,7 @@ public class ApiDAOImpl implements ApiDAO {
     }
 
     private String getAPIThrottlePolicyID(Connection connection, String policyName) throws SQLException {
-        final String query = "SELECT UUID FROM AM_API_POLICY WHERE NAME = ?";
-        try (PreparedStatement statement = connection.prepareStatement(query)) {
-            statement.setString(1, policyName);
-            statement.execute();
-
-            try (ResultSet rs = statement.getResultSet()) {
-                if (rs.next()) {
-                    return rs.getString("UUID");
-                }
-            }
-        }
-
-        throw new SQLException("API Policy " + policyName + ", does not exist");
+        return ReferenceDataCache.getInstance().getAPIPolicyID(connection, policyName);
     }
 
 
@@ -1736,25 +1962,43 @@ public class ApiDAOImpl implements ApiDAO {
 
     private Map<String, UriTemplate> getUriTemplates(Connection connection, String apiId) throws SQLException,
             IOException {
-        final String query = "SELECT OPERATION_ID,API_ID,HTTP_METHOD,URL_PATTERN,AUTH_SCHEME,API_POLICY_ID FROM " +
-                "AM_API_OPERATION_MAPPING WHERE API_ID = ?";
-        Map<String, UriTemplate> uriTemplateSet = new HashMap();
+        return getUriTemplates(connection, Collections.singletonList(apiId)).getOrDefault(apiId, new HashMap<>());
+    }
+
+    @SuppressFBWarnings("SQL_PREPARED_STATEMENT_GENERATED_FROM_NONCONSTANT_STRING")
+    private Map<String, Map<String, UriTemplate>> getUriTemplates(Connection connection, List<String> apiIDs)
+            throws SQLException, IOException {
+        final String query = "SELECT AM_API_OPERATION_MAPPING.OPERATION_ID,AM_API_OPERATION_MAPPING.API_ID," +
+                "AM_API_OPERATION_MAPPING.HTTP_METHOD,AM_API_OPERATION_MAPPING.URL_PATTERN," +
+                "AM_API_OPERATION_MAPPING.AUTH_SCHEME,AM_API_OPERATION_MAPPING.API_POLICY_ID," +
+                "AM_API_POLICY.NAME AS POLICY_NAME FROM AM_API_OPERATION_MAPPING LEFT OUTER JOIN AM_API_POLICY ON " +
+                "AM_API_OPERATION_MAPPING.API_POLICY_ID=AM_API_POLICY.UUID WHERE AM_API_OPERATION_MAPPING.API_ID IN (" +
+                DAOUtil.getParameterString(apiIDs.size()) + ")";
+        Map<String, Map<String, Map<String, Endpoint>>> operationEndpoints = getEndPointsForOperations(connection,
+                apiIDs);
+        Map<String, Map<String, UriTemplate>> uriTemplates = new HashMap<>();
         try (PreparedStatement statement = connection.prepareStatement(query)) {
-            statement.setString(1, apiId);
-            statement.execute();
-            try (ResultSet rs = statement.getResultSet()) {
+            setStringParameters(statement, apiIDs);
+            try (ResultSet rs = statement.executeQuery()) {
                 while (rs.next()) {
+                    String apiId = rs.getString("API_ID");
+                    String operationId = rs.getString("OPERATION_ID");
+                    String policyName = rs.getString("POLICY_NAME");
+                    if (policyName == null) {
+                        throw new SQLException("API Policy ID " + rs.getString("API_POLICY_ID") + ", does not exist");
+                    }
+                    Map<String, Endpoint> endpoints = operationEndpoints.getOrDefault(apiId, new HashMap<>())
+                            .getOrDefault(operationId, new HashMap<>());
                     UriTemplate uriTemplate = new UriTemplate.UriTemplateBuilder()
                             .uriTemplate(rs.getString("URL_PATTERN")).authType(rs.getString("AUTH_SCHEME"))
-                            .httpVerb(rs.getString("HTTP_METHOD"))
-                            .policy(getAPIThrottlePolicyName(connection, rs.getString("API_POLICY_ID"))).templateId
-                                    (rs.getString("OPERATION_ID")).endpoint(getEndPointsForOperation(connection,
-                                    apiId, rs.getString("OPERATION_ID"))).build();
-                    uriTemplateSet.put(uriTemplate.getTemplateId(), uriTemplate);
+                            .httpVerb(rs.getString("HTTP_METHOD")).policy(policyName).templateId(operationId)
+                            .endpoint(endpoints).build();
+                    uriTemplates.computeIfAbsent(apiId, k -> new HashMap<>())
+                            .put(uriTemplate.getTemplateId(), uriTemplate);
                 }
             }
         }
-        return uriTemplateSet;
+        return uriTemplates;
     }
 
     private void addSubscriptionPolicies(Connection connection, Set<String> policies, String apiID)
@@ -1780,38 +2024,17 @@ public class ApiDAOImpl implements ApiDAO {
     }
 
     private String getSubscriptionThrottlePolicyID(Connection connection, String policyName) throws SQLException {
-        final String query = "SELECT UUID from AM_SUBSCRIPTION_POLICY where NAME=?";
-        try (PreparedStatement statement = connection.prepareStatement(query)) {
-            statement.setString(1, policyName);
-            statement.execute();
-
-            try (ResultSet rs = statement.getResultSet()) {
-                if (rs.next()) {
-                    return rs.getString("UUID");
-                }
-            }
-        }
-
-        throw new SQLException("Subscription Policy " + policyName + ", does not exist");
+        return ReferenceDataCache.getInstance().getSubscriptionPolicyID(connection, policyName);
     }
 
-    private Set<String> getSubscripitonPolciesByAPIId(Connection connection, String apiId) throws SQLException {
-        final String query = "SELECT amPolcySub.NAME FROM AM_API_SUBS_POLICY_MAPPING apimsubmapping," +
-                "AM_SUBSCRIPTION_POLICY amPolcySub where apimsubmapping.SUBSCRIPTION_POLICY_ID=amPolcySub.UUID " +
-                "AND apimsubmapping.API_ID = ?";
-        Set<String> policies = new HashSet<>();
-        try (PreparedStatement statement = connection.prepareStatement(query)) {
-            statement.setString(1, apiId);
-            statement.execute();
-
-            try (ResultSet rs = statement.getResultSet()) {
-                while (rs.next()) {
-                    policies.add(rs.getString("NAME"));
-                }
-            }
-        }
+    @SuppressFBWarnings("SQL_PREPARED_STATEMENT_GENERATED_FROM_NONCONSTANT_STRING")
+    private Map<String, Set<String>> getSubscripitonPolciesByAPIIds(Connection connection, List<String> apiIDs)
+            throws SQLException {
+        final String query = "SELECT apimsubmapping.API_ID, amPolcySub.NAME FROM AM_API_SUBS_POLICY_MAPPING " +
+                "apimsubmapping,AM_SUBSCRIPTION_POLICY amPolcySub where apimsubmapping.SUBSCRIPTION_POLICY_ID=" +
+                "amPolcySub.UUID AND apimsubmapping.API_ID IN (" + DAOUtil.getParameterString(apiIDs.size()) + ")";
 
-        return policies;
+        return getValuesOfAPIs(connection, query, "NAME", apiIDs);
     }
 
     private boolean checkTableColumnExists(DatabaseMetaData databaseMetaData, String tableName, String columnName)
@@ -1825,37 +2048,11 @@ public class ApiDAOImpl implements ApiDAO {
     }
 
     private int getApiTypeId(Connection connection, ApiType apiType) throws SQLException {
-        final String query = "SELECT TYPE_ID FROM AM_API_TYPES WHERE TYPE_NAME = ?";
-
-        try (PreparedStatement statement = connection.prepareStatement(query)) {
-            statement.setString(1, apiType.toString());
-            statement.execute();
-
-            try (ResultSet rs = statement.getResultSet()) {
-                if (rs.next()) {
-                    return rs.getInt("TYPE_ID");
-                }
-
-                throw new SQLException("API Type " + apiType.toString() + " does not exist");
-            }
-        }
+        return ReferenceDataCache.getInstance().getApiTypeID(connection, apiType);
     }
 
-    private ApiType getApiTypeById(Connection connection, int apiTypeId) throws SQLException {
-        final String query = "SELECT TYPE_NAME FROM AM_API_TYPES WHERE TYPE_ID = ?";
-
-        try (PreparedStatement statement = connection.prepareStatement(query)) {
-            statement.setInt(1, apiTypeId);
-            statement.execute();
-
-            try (ResultSet rs = statement.getResultSet()) {
-                if (rs.next()) {
-                    return ApiType.valueOf(rs.getString("TYPE_NAME"));
-                }
-
-                throw new SQLException("API Type Id " + apiTypeId + " does not exist");
-            }
-        }
+    private Map<Integer, ApiType> getApiTypes(Connection connection) throws SQLException {
+        return ReferenceDataCache.getInstance().getApiTypes(connection);
     }
 
     static void initResourceCategories() throws APIMgtDAOException {
@@ -1969,6 +2166,8 @@ public class ApiDAOImpl implements ApiDAO {
                 connection.setAutoCommit(false);
                 deleteEndpoint(connection, endpointId);
                 connection.commit();
+                // APIs hold the endpoints they refer to
+                APIModelCache.getInstance().invalidateAll();
                 return true;
             } catch (SQLException e) {
                 String msg = "Couldn't Add Endpoint " + endpointId;
@@ -2097,6 +2296,7 @@ public class ApiDAOImpl implements ApiDAO {
                 statement.setString(6, endpoint.getId());
                 statement.execute();
                 connection.commit();
+                APIModelCache.getInstance().invalidateAll();
                 return true;
             } catch (SQLException e) {
                 String msg = "Couldn't Update Endpoint " + endpoint.getName();
@@ -2222,22 +2422,30 @@ public class ApiDAOImpl implements ApiDAO {
 
     private Map<String, Endpoint> getEndPointsForApi(Connection connection, String apiId) throws SQLException,
             IOException {
-        Map<String, Endpoint> endpointMap = new HashMap();
+        return getEndPointsForApis(connection, Collections.singletonList(apiId)).getOrDefault(apiId, new HashMap<>());
+    }
+
+    @SuppressFBWarnings("SQL_PREPARED_STATEMENT_GENERATED_FROM_NONCONSTANT_STRING")
+    private Map<String, Map<String, Endpoint>> getEndPointsForApis(Connection connection, List<String> apiIDs)
+            throws SQLException, IOException {
+        Map<String, Map<String, Endpoint>> endpointMap = new HashMap<>();
         final String query = "SELECT AM_ENDPOINT.UUID,AM_ENDPOINT.NAME,AM_ENDPOINT.SECURITY_CONFIGURATION,AM_ENDPOINT" +
                 ".APPLICABLE_LEVEL,AM_ENDPOINT.ENDPOINT_CONFIGURATION,AM_ENDPOINT.TPS,AM_ENDPOINT.TYPE," +
-                "AM_API_ENDPOINT_MAPPING.TYPE AS ENDPOINT_LEVEL FROM AM_API_ENDPOINT_MAPPING INNER JOIN AM_ENDPOINT " +
-                "ON AM_API_ENDPOINT_MAPPING.ENDPOINT_ID=AM_ENDPOINT.UUID WHERE AM_API_ENDPOINT_MAPPING.API_ID = ?";
+                "AM_API_ENDPOINT_MAPPING.TYPE AS ENDPOINT_LEVEL,AM_API_ENDPOINT_MAPPING.API_ID FROM " +
+                "AM_API_ENDPOINT_MAPPING INNER JOIN AM_ENDPOINT ON " +
+                "AM_API_ENDPOINT_MAPPING.ENDPOINT_ID=AM_ENDPOINT.UUID WHERE AM_API_ENDPOINT_MAPPING.API_ID IN (" +
+                DAOUtil.getParameterString(apiIDs.size()) + ")";
         try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
-            preparedStatement.setString(1, apiId);
+            setStringParameters(preparedStatement, apiIDs);
             try (ResultSet resultSet = preparedStatement.executeQuery()) {
                 while (resultSet.next()) {
                     Endpoint endpoint = constructEndPointDetails(resultSet);
                     if (APIMgtConstants.GLOBAL_ENDPOINT.equals(endpoint.getApplicableLevel())) {
-                        endpointMap.put(resultSet.getString("ENDPOINT_LEVEL"), new Endpoint.Builder().
-                                id(endpoint.getId()).applicableLevel(APIMgtConstants.GLOBAL_ENDPOINT).build());
-                    } else {
-                        endpointMap.put(resultSet.getString("ENDPOINT_LEVEL"), endpoint);
+                        endpoint = new Endpoint.Builder().id(endpoint.getId())
+                                .applicableLevel(APIMgtConstants.GLOBAL_ENDPOINT).build();
                     }
+                    endpointMap.computeIfAbsent(resultSet.getString("API_ID"), k -> new HashMap<>())
+                            .put(resultSet.getString("ENDPOINT_LEVEL"), endpoint);
                 }
             }
         }
@@ -2288,16 +2496,11 @@ public class ApiDAOImpl implements ApiDAO {
         final String query = "DELETE FROM AM_API_RESOURCE_ENDPOINT WHERE API_ID = ?";
         Set<String> endpoints = new HashSet();
         getUriTemplates(connection, apiId).forEach((k, v) -> {
-            try {
-                Map<String, Endpoint> apiEndPointMap = getEndPointsForOperation(connection, apiId, v.getTemplateId());
-                apiEndPointMap.forEach((k1, v1) -> {
-                    if (APIMgtConstants.API_SPECIFIC_ENDPOINT.equals(v1.getApplicableLevel())) {
-                        endpoints.add(v1.getId());
-                    }
-                });
-            } catch (SQLException | IOException e) {
-                log.error("Couldn't retrieve UriTemplates for api : " + apiId, e);
-            }
+            v.getEndpoint().forEach((k1, v1) -> {
+                if (APIMgtConstants.API_SPECIFIC_ENDPOINT.equals(v1.getApplicableLevel())) {
+                    endpoints.add(v1.getId());
+                }
+            });
         });
         try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
             preparedStatement.setString(1, apiId);
@@ -2312,26 +2515,32 @@ public class ApiDAOImpl implements ApiDAO {
         }
     }
 
-    private Map<String, Endpoint> getEndPointsForOperation(Connection connection, String apiId, String operationId)
+    /**
+     * Retrieves the endpoints of the operations of the given APIs, mapped to the API ID and then to the operation ID
+     */
+    @SuppressFBWarnings("SQL_PREPARED_STATEMENT_GENERATED_FROM_NONCONSTANT_STRING")
+    private Map<String, Map<String, Map<String, Endpoint>>> getEndPointsForOperations(Connection connection,
+                                                                                      List<String> apiIDs)
             throws SQLException, IOException {
-        Map<String, Endpoint> endpointMap = new HashMap();
+        Map<String, Map<String, Map<String, Endpoint>>> endpointMap = new HashMap<>();
         final String query = "SELECT AM_ENDPOINT.UUID,AM_ENDPOINT.NAME,AM_ENDPOINT.SECURITY_CONFIGURATION,AM_ENDPOINT" +
                 ".APPLICABLE_LEVEL,AM_ENDPOINT.ENDPOINT_CONFIGURATION,AM_ENDPOINT.TPS,AM_ENDPOINT.TYPE," +
-                "AM_API_RESOURCE_ENDPOINT.TYPE AS ENDPOINT_LEVEL FROM AM_API_RESOURCE_ENDPOINT INNER JOIN AM_ENDPOINT" +
-                " ON AM_API_RESOURCE_ENDPOINT.ENDPOINT_ID=AM_ENDPOINT.UUID WHERE AM_API_RESOURCE_ENDPOINT.API_ID = ? " +
-                "AND OPERATION_ID = ?";
+                "AM_API_RESOURCE_ENDPOINT.TYPE AS ENDPOINT_LEVEL,AM_API_RESOURCE_ENDPOINT.API_ID," +
+                "AM_API_RESOURCE_ENDPOINT.OPERATION_ID FROM AM_API_RESOURCE_ENDPOINT INNER JOIN AM_ENDPOINT" +
+                " ON AM_API_RESOURCE_ENDPOINT.ENDPOINT_ID=AM_ENDPOINT.UUID WHERE AM_API_RESOURCE_ENDPOINT.API_ID IN (" +
+                DAOUtil.getParameterString(apiIDs.size()) + ")";
         try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
-            preparedStatement.setString(1, apiId);
-            preparedStatement.setString(2, operationId);
+            setStringParameters(preparedStatement, apiIDs);
             try (ResultSet resultSet = preparedStatement.executeQuery()) {
                 while (resultSet.next()) {
                     Endpoint endpoint = constructEndPointDetails(resultSet);
                     if (APIMgtConstants.API_SPECIFIC_ENDPOINT.equals(endpoint.getApplicableLevel())) {
-                        endpointMap.put(resultSet.getString("ENDPOINT_LEVEL"), new Endpoint.Builder().
-                                id(endpoint.getId()).applicableLevel(endpoint.getApplicableLevel()).build());
-                    } else {
-                        endpointMap.put(resultSet.getString("ENDPOINT_LEVEL"), endpoint);
+                        endpoint = new Endpoint.Builder().id(endpoint.getId())
+                                .applicableLevel(endpoint.getApplicableLevel()).build();
                     }
+                    endpointMap.computeIfAbsent(resultSet.getString("API_ID"), k -> new HashMap<>())
+                            .computeIfAbsent(resultSet.getString("OPERATION_ID"), k -> new HashMap<>())
+                            .put(resultSet.getString("ENDPOINT_LEVEL"), endpoint);
                 }
             }
         }
@@ -2386,46 +2595,45 @@ public class ApiDAOImpl implements ApiDAO {
         }
     }
 
-    private Set<String> getLabelNames(Connection connection, String apiID) throws SQLException {
-        Set<String> labelNames = new HashSet<>();
-
-        final String query = "SELECT LABEL_ID FROM AM_API_LABEL_MAPPING WHERE API_ID = ?";
-        try (PreparedStatement statement = connection.prepareStatement(query)) {
-            statement.setString(1, apiID);
-            statement.execute();
-
-            try (ResultSet rs = statement.getResultSet()) {
-                List<String> labelIDs = new ArrayList<>();
+    @SuppressFBWarnings("SQL_PREPARED_STATEMENT_GENERATED_FROM_NONCONSTANT_STRING")
+    private Map<String, Set<String>> getLabelNames(Connection connection, List<String> apiIDs) throws SQLException {
+        final String query = "SELECT AM_API_LABEL_MAPPING.API_ID, AM_LABELS.NAME FROM AM_API_LABEL_MAPPING INNER " +
+                "JOIN AM_LABELS ON AM_API_LABEL_MAPPING.LABEL_ID = AM_LABELS.LABEL_ID WHERE " +
+                "AM_API_LABEL_MAPPING.API_ID IN (" + DAOUtil.getParameterString(apiIDs.size()) + ")";
 
-                while (rs.next()) {
-                    labelIDs.add(rs.getString("LABEL_ID"));
-                }
+        return getValuesOfAPIs(connection, query, "NAME", apiIDs);
+    }
 
-                if (!labelIDs.isEmpty()) {
-                    labelNames = LabelDAOImpl.getLabelNamesByIDs(labelIDs);
-                }
-            }
-        }
+    @SuppressFBWarnings("SQL_PREPARED_STATEMENT_GENERATED_FROM_NONCONSTANT_STRING")
+    private Map<String, Set<String>> getTransports(Connection connection, List<String> apiIDs) throws SQLException {
+        final String query = "SELECT API_ID, TRANSPORT FROM AM_API_TRANSPORTS WHERE API_ID IN (" +
+                DAOUtil.getParameterString(apiIDs.size()) + ")";
 
-        return labelNames;
+        return getValuesOfAPIs(connection, query, "TRANSPORT", apiIDs);
     }
 
-    private Set<String> getTransports(Connection connection, String apiID) throws SQLException {
-        Set<String> transports = new HashSet<>();
-
-        final String query = "SELECT TRANSPORT FROM AM_API_TRANSPORTS WHERE API_ID = ?";
+    /**
+     * Runs a query selecting API_ID and the given column for the given APIs, and groups the values by API ID
+     */
+    private Map<String, Set<String>> getValuesOfAPIs(Connection connection, String query, String column,
+                                                     List<String> apiIDs) throws SQLException {
+        Map<String, Set<String>> values = new HashMap<>();
         try (PreparedStatement statement = connection.prepareStatement(query)) {
-            statement.setString(1, apiID);
-            statement.execute();
-
-            try (ResultSet rs = statement.getResultSet()) {
+            setStringParameters(statement, apiIDs);
+            try (ResultSet rs = statement.executeQuery()) {
                 while (rs.next()) {
-                    transports.add(rs.getString("TRANSPORT"));
+                    values.computeIfAbsent(rs.getString("API_ID"), k -> new HashSet<>()).add(rs.getString(column));
                 }
             }
         }
 
-        return transports;
+        return values;
+    }
+
+    private static void setStringParameters(PreparedStatement statement, List<String> values) throws SQLException {
+        for (int i = 0; i < values.size(); ++i) {
+            statement.setString(i + 1, values.get(i));
+        }
     }
 
     private static boolean isApiTypesExist(Connection connection) throws SQLException {
@@ -2456,23 +2664,6 @@ public class ApiDAOImpl implements ApiDAO {
         }
     }
 
-
-    private String getAPIThrottlePolicyName(Connection connection, String policyID) throws SQLException {
-        final String query = "SELECT NAME FROM AM_API_POLICY WHERE UUID = ?";
-        try (PreparedStatement statement = connection.prepareStatement(query)) {
-            statement.setString(1, policyID);
-            statement.execute();
-
-            try (ResultSet rs = statement.getResultSet()) {
-                if (rs.next()) {
-                    return rs.getString("NAME");
-                }
-            }
-        }
-
-        throw new SQLException("API Policy ID " + policyID + ", does not exist");
-    }
-
     /**
      * Update an existing API workflow state
      *
@@ -2493,6 +2684,7 @@ public class ApiDAOImpl implements ApiDAO {
                 statement.setString(3, apiID);
                 statement.execute();
                 connection.commit();
+                APIModelCache.getInstance().invalidate(apiID);
             } catch (SQLException e) {
                 connection.rollback();
                 throw new APIMgtDAOException(e);
@@ -2506,4 +2698,15 @@ public class ApiDAOImpl implements ApiDAO {
         }
     }
 
+    /**
+     * Sets the parameters of a query condition
+     */
+    private interface ConditionParameters {
+        /**
+         * @param statement statement to set the parameters of
+         * @param index     index of the parameter before the condition
+         * @return index of the last parameter of the condition
+         */
+        int set(PreparedStatement statement, int index) throws SQLException;
+    }
 }
@@ -96,4 +96,21 @@ public interface ApiDAOVendorSpecificStatements {
     PreparedStatement prepareAttributeSearchStatementForStore(Connection connection, List<String> roles, Map<String,
             String> attributeMap, int offset, int limit) throws APIMgtDAOException;
 
+    /**
+     * Returns the given query restricted to a range of its rows. The offset and limit parameters follow the
+     * parameters of the given query, and are set with {@link #setPaginationParameters(PreparedStatement, int, int,
+     * int)}
+     * @param query query with an ORDER BY clause
+     * @return String
+     */
+    String getPaginatedQuery(String query);
+
+    /**
+     * Set the offset and limit parameters of a query returned by {@link #getPaginatedQuery(String)}
+     * @param statement SQL PreparedStatement
+     * @param index index of the last parameter of the original query
+     * @param offset number of rows to skip
+     * @param limit maximum number of rows to return
+     */
+    void setPaginationParameters(PreparedStatement statement, int index, int offset, int limit) throws SQLException;
 }
@@ -26,6 +26,8 @@ import org.wso2.carbon.apimgt.core.dao.ApiType;
 import org.wso2.carbon.apimgt.core.exception.APIMgtDAOException;
 import org.wso2.carbon.apimgt.core.exception.ExceptionCodes;
 import org.wso2.carbon.apimgt.core.models.API;
+import org.wso2.carbon.apimgt.core.models.APICursor;
+import org.wso2.carbon.apimgt.core.models.APIResults;
 import org.wso2.carbon.apimgt.core.models.Comment;
 import org.wso2.carbon.apimgt.core.models.DocumentInfo;
 import org.wso2.carbon.apimgt.core.models.Endpoint;
@@ -41,6 +43,8 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -473,6 +477,11 @@ public class ApiFileDAOImpl implements ApiDAO {
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public String getSwaggerDefinitionOfApi(String apiContext, String apiVersion) throws APIMgtDAOException {
+        throw new UnsupportedOperationException();
+    }
+
     /**
      * @see ApiDAO#getAPIs(ApiType)
      */
@@ -519,6 +528,41 @@ public class ApiFileDAOImpl implements ApiDAO {
         throw new UnsupportedOperationException();
     }
 
+    /**
+     * @see ApiDAO#getAPIs(ApiType, APICursor, int, int)
+     */
+    @Override
+    public APIResults getAPIs(ApiType apiType, APICursor after, int offset, int limit) throws APIMgtDAOException {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * @see ApiDAO#getAPIsForProvider(String, ApiType, APICursor, int, int)
+     */
+    @Override
+    public APIResults getAPIsForProvider(String providerName, ApiType apiType, APICursor after, int offset,
+                                         int limit) throws APIMgtDAOException {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * @see ApiDAO#getAPIsByStatus(List, ApiType, APICursor, int, int)
+     */
+    @Override
+    public APIResults getAPIsByStatus(List<String> statuses, ApiType apiType, APICursor after, int offset,
+                                      int limit) throws APIMgtDAOException {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * @see ApiDAO#getAPIsByStatus(Set, List, ApiType, APICursor, int, int)
+     */
+    @Override
+    public APIResults getAPIsByStatus(Set<String> roles, List<String> statuses, ApiType apiType, APICursor after,
+                                      int offset, int limit) throws APIMgtDAOException {
+        throw new UnsupportedOperationException();
+    }
+
     /**
      * @see ApiDAO#searchAPIs(Set roles, String user, String searchString, ApiType apiType, int offset, int limit)
      */
@@ -585,6 +629,21 @@ public class ApiFileDAOImpl implements ApiDAO {
         return null;
     }
 
+    /**
+     * @see ApiDAO#getAPIs(Collection apiIDs)
+     */
+    @Override
+    public List<API> getAPIs(Collection<String> apiIDs) throws APIMgtDAOException {
+        List<API> apiList = new ArrayList<>();
+        for (String apiID : new LinkedHashSet<>(apiIDs)) {
+            API api = getAPI(apiID);
+            if (api != null) {
+                apiList.add(api);
+            }
+        }
+        return apiList;
+    }
+
     /**
      * @see ApiDAO#getAPISummary(String apiID)
      */
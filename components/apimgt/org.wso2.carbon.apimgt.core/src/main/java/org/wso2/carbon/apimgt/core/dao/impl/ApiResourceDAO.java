@@ -20,19 +20,22 @@
 
 package org.wso2.carbon.apimgt.core.dao.impl;
 
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import org.apache.commons.io.IOUtils;
 import org.wso2.carbon.apimgt.core.models.ResourceCategory;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.sql.Blob;
+import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 class ApiResourceDAO {
 
@@ -129,6 +132,30 @@ class ApiResourceDAO {
         return null;
     }
 
+    @SuppressFBWarnings("SQL_PREPARED_STATEMENT_GENERATED_FROM_NONCONSTANT_STRING")
+    static Map<String, String> getTextValuesForCategory(Connection connection, List<String> apiIDs,
+                                                        ResourceCategory resourceCategory) throws SQLException {
+        final String query = "SELECT AM_API_RESOURCES.API_ID, AM_API_RESOURCES.RESOURCE_TEXT_VALUE FROM " +
+                "AM_API_RESOURCES INNER JOIN AM_RESOURCE_CATEGORIES ON AM_API_RESOURCES.RESOURCE_CATEGORY_ID = " +
+                "AM_RESOURCE_CATEGORIES.RESOURCE_CATEGORY_ID WHERE AM_RESOURCE_CATEGORIES.RESOURCE_CATEGORY = ? AND " +
+                "AM_API_RESOURCES.API_ID IN (" + DAOUtil.getParameterString(apiIDs.size()) + ")";
+        Map<String, String> textValues = new HashMap<>();
+        try (PreparedStatement statement = connection.prepareStatement(query)) {
+            statement.setString(1, resourceCategory.toString());
+            for (int i = 0; i < apiIDs.size(); ++i) {
+                statement.setString(i + 2, apiIDs.get(i));
+            }
+
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    textValues.putIfAbsent(rs.getString("API_ID"), rs.getString("RESOURCE_TEXT_VALUE"));
+                }
+            }
+        }
+
+        return textValues;
+    }
+
     static void updateTextValueForCategory(Connection connection, String apiID,
                                            ResourceCategory category,
                                            String resourceValue, String updatedBy) throws SQLException {
@@ -145,8 +172,8 @@ class ApiResourceDAO {
         }
     }
 
-    static InputStream getBinaryValueForCategory(Connection connection, String apiID,
-                                                 ResourceCategory category) throws SQLException, IOException {
+    static String getBinaryValueAsString(Connection connection, String apiID, ResourceCategory category)
+            throws SQLException, IOException {
         final String query = "SELECT RESOURCE_BINARY_VALUE FROM AM_API_RESOURCES WHERE API_ID = ? AND " +
                 "RESOURCE_CATEGORY_ID = ?";
         try (PreparedStatement statement = connection.prepareStatement(query)) {
@@ -156,9 +183,10 @@ class ApiResourceDAO {
 
             try (ResultSet rs =  statement.getResultSet()) {
                 if (rs.next()) {
-                    InputStream inputStream = new ByteArrayInputStream(IOUtils.toByteArray(rs.getBinaryStream
-                            ("RESOURCE_BINARY_VALUE")));
-                    return inputStream;
+                    InputStream binaryValue = rs.getBinaryStream("RESOURCE_BINARY_VALUE");
+                    if (binaryValue != null) {
+                        return IOUtils.toString(binaryValue, StandardCharsets.UTF_8);
+                    }
                 }
             }
         }
@@ -166,26 +194,91 @@ class ApiResourceDAO {
         return null;
     }
 
-    static InputStream getBinaryResource(Connection connection, String resourceID) throws SQLException {
-        final String query = "SELECT RESOURCE_BINARY_VALUE FROM AM_API_RESOURCES WHERE UUID = ?";
+    /**
+     * Opens a stream of the binary value of the given category of an API.
+     *
+     * @see #streamBinaryValue(Connection, String, String, ResourceCategory)
+     */
+    static InputStream streamBinaryValueForCategory(Connection connection, String apiID, ResourceCategory category)
+            throws SQLException, IOException {
+        return streamBinaryValue(connection, "API_ID = ? AND RESOURCE_CATEGORY_ID = ?", apiID, category);
+    }
 
-        try (PreparedStatement statement = connection.prepareStatement(query)) {
-            statement.setString(1, resourceID);
-            statement.execute();
+    /**
+     * Opens a stream of the binary value of the given resource.
+     *
+     * @see #streamBinaryValue(Connection, String, String, ResourceCategory)
+     */
+    static InputStream streamBinaryResource(Connection connection, String resourceID)
+            throws SQLException, IOException {
+        return streamBinaryValue(connection, "UUID = ?", resourceID, null);
+    }
 
-            try (ResultSet rs =  statement.getResultSet()) {
-                if (rs.next()) {
-                    Blob blob = rs.getBlob("RESOURCE_BINARY_VALUE");
-                    if (blob != null) {
-                        return blob.getBinaryStream();
+    /**
+     * Opens a stream of the binary value of the resource matching the given condition. The value is copied from the
+     * database to a file by the {@link BinaryResourceCache} instead of to memory, so the connection can be closed as
+     * soon as this method returns, and is not held while the stream is sent to a slow client.
+     * <p>
+     * If the {@link BinaryResourceCache} is enabled, the cached content is returned when the resource has not been
+     * updated since it was cached.
+     *
+     * @param connection connection to read the resource with
+     * @param condition  condition selecting the resource, with the ID as the first parameter and the category ID as
+     *                   the second parameter if a category is given
+     * @param id         ID bound to the first parameter of the condition
+     * @param category   category bound to the second parameter of the condition, or null
+     * @return stream of the binary value, or null if there is no such resource or it has no binary value
+     */
+    @SuppressFBWarnings("SQL_PREPARED_STATEMENT_GENERATED_FROM_NONCONSTANT_STRING")
+    private static InputStream streamBinaryValue(Connection connection, String condition, String id,
+                                                 ResourceCategory category) throws SQLException, IOException {
+        BinaryResourceCache cache = BinaryResourceCache.getInstance();
+        String resourceID = null;
+        String lastUpdatedTime = null;
+        if (cache.isEnabled()) {
+            final String query = "SELECT UUID, LAST_UPDATED_TIME FROM AM_API_RESOURCES WHERE " + condition;
+            try (PreparedStatement statement = connection.prepareStatement(query)) {
+                setIdAndCategory(connection, statement, id, category);
+                try (ResultSet rs = statement.executeQuery()) {
+                    if (!rs.next()) {
+                        return null;
                     }
+                    resourceID = rs.getString("UUID");
+                    lastUpdatedTime = rs.getString("LAST_UPDATED_TIME");
+                }
+            }
+            if (lastUpdatedTime != null) {
+                InputStream cachedValue = cache.get(resourceID, lastUpdatedTime);
+                if (cachedValue != null) {
+                    return cachedValue;
                 }
             }
         }
 
+        final String query = "SELECT RESOURCE_BINARY_VALUE FROM AM_API_RESOURCES WHERE " + condition;
+        try (PreparedStatement statement = connection.prepareStatement(query)) {
+            setIdAndCategory(connection, statement, id, category);
+            try (ResultSet rs = statement.executeQuery()) {
+                if (rs.next()) {
+                    try (InputStream value = rs.getBinaryStream("RESOURCE_BINARY_VALUE")) {
+                        if (value != null) {
+                            return cache.copy(resourceID, lastUpdatedTime, value);
+                        }
+                    }
+                }
+            }
+        }
         return null;
     }
 
+    private static void setIdAndCategory(Connection connection, PreparedStatement statement, String id,
+                                         ResourceCategory category) throws SQLException {
+        statement.setString(1, id);
+        if (category != null) {
+            statement.setInt(2, ResourceCategoryDAO.getResourceCategoryID(connection, category));
+        }
+    }
+
     static String getTextResource(Connection connection, String resourceID) throws SQLException {
         final String query = "SELECT RESOURCE_TEXT_VALUE FROM AM_API_RESOURCES WHERE UUID = ?";
 
@@ -391,15 +391,23 @@ public class ApplicationDAOImpl implements ApplicationDAO {
             throws APIMgtDAOException {
         final String addApplicationKeysQuery = "INSERT INTO AM_APP_KEY_MAPPING (APPLICATION_ID, CLIENT_ID, KEY_TYPE,"
                 + "STATE, CREATE_MODE) VALUES (?, ?, ?, ?, ?)";
+        final String updateSubscriptionRevisionQuery = "UPDATE AM_SUBSCRIPTION SET REVISION = ? WHERE "
+                + "APPLICATION_ID = ?";
         try (Connection conn = DAOUtil.getConnection()) {
             conn.setAutoCommit(false);
-            try (PreparedStatement ps = conn.prepareStatement(addApplicationKeysQuery)) {
+            try (PreparedStatement ps = conn.prepareStatement(addApplicationKeysQuery);
+                 PreparedStatement revisionPs = conn.prepareStatement(updateSubscriptionRevisionQuery)) {
                 ps.setString(1, appId);
                 ps.setString(2, oAuthAppDetails.getClientId());
                 ps.setString(3, oAuthAppDetails.getParameter(KeyManagerConstants.APP_KEY_TYPE).toString());
                 ps.setString(4, "COMPLETED"); //temporary fix
                 ps.setString(5, "CREATED"); //temporary fix
                 ps.executeUpdate();
+                // Gateways validate subscriptions by consumer key, so the subscriptions of the application are
+                // changed for them
+                revisionPs.setLong(1, APISubscriptionDAOImpl.nextSubscriptionRevision(conn));
+                revisionPs.setString(2, appId);
+                revisionPs.executeUpdate();
                 conn.commit();
             } catch (SQLException ex) {
                 conn.rollback();
@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.core.dao.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded on-disk cache of binary resources, such as API thumbnails and document files, so that frequently
+ * downloaded resources are not read from the database on each request.
+ * <p>
+ * Entries are keyed by the UUID of the resource and the time it was last updated, so an updated resource is read
+ * from the database again. Every resource streamed from the database is first copied to a file, so that the
+ * database connection is not held while the resource is sent to a client. The file is kept in the cache if the
+ * cache is enabled and the resource fits in it. When the total size exceeds the maximum, the least recently used
+ * resources are removed. The cache is disabled until a maximum size is set.
+ */
+public final class BinaryResourceCache {
+
+    private static final Logger log = LoggerFactory.getLogger(BinaryResourceCache.class);
+    private static final BinaryResourceCache instance = new BinaryResourceCache();
+
+    // Access ordered, so that iteration starts from the least recently used resource
+    private final Map<String, CachedResource> resources = new LinkedHashMap<>(16, 0.75f, true);
+    private volatile long maxSize;
+    private long size;
+    private Path directory;
+
+    private BinaryResourceCache() {
+    }
+
+    public static BinaryResourceCache getInstance() {
+        return instance;
+    }
+
+    /**
+     * Sets the maximum total size of the cached resources.
+     *
+     * @param maxSize maximum size in bytes, or 0 to disable the cache
+     */
+    public synchronized void setMaxSize(long maxSize) {
+        this.maxSize = maxSize;
+        evict();
+    }
+
+    /**
+     * Removes all the cached resources.
+     */
+    public synchronized void invalidate() {
+        for (CachedResource resource : resources.values()) {
+            delete(resource.path);
+        }
+        resources.clear();
+        size = 0;
+    }
+
+    boolean isEnabled() {
+        return maxSize > 0;
+    }
+
+    /**
+     * @param resourceID      UUID of the resource
+     * @param lastUpdatedTime time the resource was last updated
+     * @return stream of the cached content, or null if the given version of the resource is not cached
+     * @throws IOException if the cached content could not be opened
+     */
+    synchronized InputStream get(String resourceID, String lastUpdatedTime) throws IOException {
+        CachedResource resource = resources.get(resourceID);
+        if (resource == null) {
+            return null;
+        }
+        if (!resource.lastUpdatedTime.equals(lastUpdatedTime)) {
+            remove(resourceID);
+            return null;
+        }
+        try {
+            return Files.newInputStream(resource.path);
+        } catch (NoSuchFileException e) {
+            log.warn("Cached content of resource " + resourceID + " was removed from " + resource.path);
+            remove(resourceID);
+            return null;
+        }
+    }
+
+    /**
+     * Copies the given content to a file, and returns a stream of the file. This lets the caller release the database
+     * connection the content is read from before the file is streamed to a client, however slow the client is. The
+     * file is added to the cache if the cache is enabled and the content fits in it, and is deleted when the stream
+     * is closed otherwise.
+     *
+     * @param resourceID      UUID of the resource, or null if the resource is not to be cached
+     * @param lastUpdatedTime time the resource was last updated, or null if the resource is not to be cached
+     * @param content         content of the resource, which is read to the end but not closed
+     * @return stream of the copied content
+     * @throws IOException if the content could not be read or copied
+     */
+    InputStream copy(String resourceID, String lastUpdatedTime, InputStream content) throws IOException {
+        Path path = Files.createTempFile(getDirectory(), "resource", ".tmp");
+        long length;
+        InputStream copiedContent;
+        try {
+            length = Files.copy(content, path, StandardCopyOption.REPLACE_EXISTING);
+            copiedContent = Files.newInputStream(path);
+        } catch (IOException e) {
+            delete(path);
+            throw e;
+        }
+        if (resourceID == null || lastUpdatedTime == null || !isEnabled() || length > maxSize) {
+            return new TemporaryFileInputStream(copiedContent, path);
+        }
+        // The stream is opened before the file is added, so that it can still be read if the file is evicted
+        put(resourceID, lastUpdatedTime, path, length);
+        return copiedContent;
+    }
+
+    private synchronized Path getDirectory() throws IOException {
+        if (directory == null || !Files.isDirectory(directory)) {
+            directory = Files.createTempDirectory("apim-resources");
+        }
+        return directory;
+    }
+
+    private synchronized void put(String resourceID, String lastUpdatedTime, Path path, long length) {
+        remove(resourceID);
+        resources.put(resourceID, new CachedResource(lastUpdatedTime, path, length));
+        size += length;
+        evict();
+    }
+
+    private void remove(String resourceID) {
+        CachedResource resource = resources.remove(resourceID);
+        if (resource != null) {
+            size -= resource.length;
+            delete(resource.path);
+        }
+    }
+
+    private void evict() {
+        Iterator<CachedResource> iterator = resources.values().iterator();
+        while (size > maxSize && iterator.hasNext()) {
+            CachedResource resource = iterator.next();
+            iterator.remove();
+            size -= resource.length;
+            delete(resource.path);
+        }
+    }
+
+    private static void delete(Path path) {
+        try {
+            // A stream which is still reading the file can continue to do so
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Couldn't delete cached resource " + path, e);
+        }
+    }
+
+    private static final class CachedResource {
+
+        private final String lastUpdatedTime;
+        private final Path path;
+        private final long length;
+
+        private CachedResource(String lastUpdatedTime, Path path, long length) {
+            this.lastUpdatedTime = lastUpdatedTime;
+            this.path = path;
+            this.length = length;
+        }
+    }
+
+    /**
+     * Stream of a copied resource which is not cached, which deletes the file when the stream is closed.
+     */
+    private static final class TemporaryFileInputStream extends FilterInputStream {
+
+        private final Path path;
+
+        private TemporaryFileInputStream(InputStream content, Path path) {
+            super(content);
+            this.path = path;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                delete(path);
+            }
+        }
+    }
+}
@@ -308,5 +308,11 @@ public class DAOFactory {
         ApiDAOImpl.initResourceCategories();
         ApiDAOImpl.initApiTypes();
         PolicyDAOImpl.initDefaultPolicies();
+
+        try (Connection connection = DAOUtil.getConnection()) {
+            ReferenceDataCache.getInstance().initialize(connection);
+        } catch (SQLException e) {
+            throw new APIMgtDAOException(e);
+        }
     }
 }
@@ -44,6 +44,9 @@ public class DAOUtil {
         }
 
         DAOUtil.dataSource = dataSource;
+        ReferenceDataCache.getInstance().invalidate();
+        BinaryResourceCache.getInstance().invalidate();
+        APIModelCache.getInstance().invalidateLocally(null);
     }
 
     /**
@@ -85,6 +88,9 @@ public class DAOUtil {
 
     public static void clearDataSource() {
         dataSource = null;
+        ReferenceDataCache.getInstance().invalidate();
+        BinaryResourceCache.getInstance().invalidate();
+        APIModelCache.getInstance().invalidateLocally(null);
     }
 }
 
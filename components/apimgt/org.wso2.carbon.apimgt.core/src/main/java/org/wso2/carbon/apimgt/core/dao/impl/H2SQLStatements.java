@@ -69,7 +69,7 @@ public class H2SQLStatements implements ApiDAOVendorSpecificStatements {
     public String getApiSearchQuery(int roleCount) {
         return API_SUMMARY_SELECT +
                 " LEFT JOIN FTL_SEARCH_DATA (?, 0, 0) FT ON API.UUID=FT.KEYS[0]" +
-                " WHERE API.API_TYPE_ID = (SELECT TYPE_ID FROM AM_API_TYPES WHERE TYPE_NAME = ?)" +
+                " WHERE API.API_TYPE_ID = ?" +
                 " AND ((`GROUP_ID` IN (" + DAOUtil.getParameterString(roleCount) + ")) OR (PROVIDER = ?))" +
                 " AND FT.TABLE='AM_API'" +
                 " GROUP BY UUID ORDER BY NAME OFFSET ? LIMIT ?";
@@ -90,7 +90,7 @@ public class H2SQLStatements implements ApiDAOVendorSpecificStatements {
         // Replacing special characters and allowing only alphabetical letters, numbers and space
         statement.setString(++index, searchString.toLowerCase(Locale.ENGLISH).
                 replaceAll("[^a-zA-Z0-9\\s]", "") + '*');
-        statement.setString(++index, apiType.toString());
+        statement.setInt(++index, ReferenceDataCache.getInstance().getApiTypeID(statement.getConnection(), apiType));
 
         for (String role : roles) {
             statement.setString(++index, role);
@@ -120,7 +120,7 @@ public class H2SQLStatements implements ApiDAOVendorSpecificStatements {
 
         return API_SUMMARY_SELECT +
                 " WHERE " + searchQuery.toString() +
-                " AND API.API_TYPE_ID = (SELECT TYPE_ID FROM AM_API_TYPES WHERE TYPE_NAME = ?)" +
+                " AND API.API_TYPE_ID = ?" +
                 " AND ((GROUP_ID IN (" + DAOUtil.getParameterString(roleCount) + ")) OR  (PROVIDER = ?))" +
                 " GROUP BY UUID ORDER BY NAME OFFSET ? LIMIT ?";
     }
@@ -142,7 +142,7 @@ public class H2SQLStatements implements ApiDAOVendorSpecificStatements {
             statement.setString(++index, entry.getValue());
         }
 
-        statement.setString(++index, apiType.toString());
+        statement.setInt(++index, ReferenceDataCache.getInstance().getApiTypeID(statement.getConnection(), apiType));
 
         for (String role : roles) {
             statement.setString(++index, role);
@@ -223,4 +223,22 @@ public class H2SQLStatements implements ApiDAOVendorSpecificStatements {
             throw new APIMgtDAOException(errorMsg, e);
         }
     }
+
+    /**
+     * @see ApiDAOVendorSpecificStatements#getPaginatedQuery(String)
+     */
+    @Override
+    public String getPaginatedQuery(String query) {
+        return query + " LIMIT ? OFFSET ?";
+    }
+
+    /**
+     * @see ApiDAOVendorSpecificStatements#setPaginationParameters(PreparedStatement, int, int, int)
+     */
+    @Override
+    public void setPaginationParameters(PreparedStatement statement, int index, int offset, int limit)
+            throws SQLException {
+        statement.setInt(++index, limit);
+        statement.setInt(++index, offset);
+    }
 }
@@ -304,6 +304,8 @@ public class LabelDAOImpl implements LabelDAO {
                 statement.setString(1, labelId);
                 statement.execute();
                 connection.commit();
+                // APIs hold the names of their labels
+                APIModelCache.getInstance().invalidateAll();
             } catch (SQLException e) {
                 connection.rollback();
                 String message = "Error while deleting the label [label id] " + labelId;
@@ -69,13 +69,13 @@ public class MssqlSQLStatements implements ApiDAOVendorSpecificStatements {
         if (roleCount > 0) {
             return API_SUMMARY_SELECT +
                     " WHERE CONTAINS(API.*, ?)" +
-                    " AND API.API_TYPE_ID = (SELECT TYPE_ID FROM AM_API_TYPES WHERE TYPE_NAME = ?)" +
+                    " AND API.API_TYPE_ID = ?" +
                     " AND ((GROUP_ID IN (" + DAOUtil.getParameterString(roleCount) + ")) OR (PROVIDER = ?))" +
                     " ORDER BY NAME OFFSET ? ROWS FETCH NEXT ? ROWS ONLY";
         } else {
             return API_SUMMARY_SELECT +
                     " WHERE CONTAINS(API.*, ?)" +
-                    " AND API.API_TYPE_ID = (SELECT TYPE_ID FROM AM_API_TYPES WHERE TYPE_NAME = ?)" +
+                    " AND API.API_TYPE_ID = ?" +
                     " AND PROVIDER = ?" +
                     " ORDER BY NAME OFFSET ? ROWS FETCH NEXT ? ROWS ONLY";
         }
@@ -93,7 +93,7 @@ public class MssqlSQLStatements implements ApiDAOVendorSpecificStatements {
                                       int offset, int limit) throws SQLException {
         int index = 0;
         statement.setString(++index, "\"" + searchString.toLowerCase(Locale.ENGLISH) + "*\"");
-        statement.setString(++index, apiType.toString());
+        statement.setInt(++index, ReferenceDataCache.getInstance().getApiTypeID(statement.getConnection(), apiType));
 
         for (String role : roles) {
             statement.setString(++index, role);
@@ -124,13 +124,13 @@ public class MssqlSQLStatements implements ApiDAOVendorSpecificStatements {
         if (roleCount > 0) {
             return API_SUMMARY_SELECT +
                     " WHERE " + searchQuery.toString() +
-                    " AND API.API_TYPE_ID = (SELECT TYPE_ID FROM AM_API_TYPES WHERE TYPE_NAME = ?)" +
+                    " AND API.API_TYPE_ID = ?" +
                     " AND ((GROUP_ID IN (" + DAOUtil.getParameterString(roleCount) + ")) OR  (PROVIDER = ?))" +
                     " ORDER BY NAME OFFSET ? ROWS FETCH NEXT ? ROWS ONLY";
         } else {
             return API_SUMMARY_SELECT +
                     " WHERE " + searchQuery.toString() +
-                    " AND API.API_TYPE_ID = (SELECT TYPE_ID FROM AM_API_TYPES WHERE TYPE_NAME = ?)" +
+                    " AND API.API_TYPE_ID = ?" +
                     " AND PROVIDER = ?" +
                     " ORDER BY NAME OFFSET ? ROWS FETCH NEXT ? ROWS ONLY";
         }
@@ -153,7 +153,7 @@ public class MssqlSQLStatements implements ApiDAOVendorSpecificStatements {
             statement.setString(++index, entry.getValue());
         }
 
-        statement.setString(++index, apiType.toString());
+        statement.setInt(++index, ReferenceDataCache.getInstance().getApiTypeID(statement.getConnection(), apiType));
 
         for (String role : roles) {
             statement.setString(++index, role);
@@ -236,4 +236,22 @@ public class MssqlSQLStatements implements ApiDAOVendorSpecificStatements {
             throw new APIMgtDAOException(errorMsg, e);
         }
     }
+
+    /**
+     * @see ApiDAOVendorSpecificStatements#getPaginatedQuery(String)
+     */
+    @Override
+    public String getPaginatedQuery(String query) {
+        return query + " OFFSET ? ROWS FETCH NEXT ? ROWS ONLY";
+    }
+
+    /**
+     * @see ApiDAOVendorSpecificStatements#setPaginationParameters(PreparedStatement, int, int, int)
+     */
+    @Override
+    public void setPaginationParameters(PreparedStatement statement, int index, int offset, int limit)
+            throws SQLException {
+        statement.setInt(++index, offset);
+        statement.setInt(++index, limit);
+    }
 }
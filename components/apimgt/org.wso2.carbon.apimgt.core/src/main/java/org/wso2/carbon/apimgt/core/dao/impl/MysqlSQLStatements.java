@@ -70,14 +70,14 @@ public class MysqlSQLStatements implements ApiDAOVendorSpecificStatements {
             return API_SUMMARY_SELECT +
                     " WHERE MATCH (`NAME`,`PROVIDER`,`CONTEXT`,`VERSION`,`DESCRIPTION`,`CURRENT_LC_STATUS`," +
                     "`TECHNICAL_OWNER`, `BUSINESS_OWNER`) AGAINST (? IN BOOLEAN MODE)" +
-                    " AND API.API_TYPE_ID = (SELECT TYPE_ID FROM AM_API_TYPES WHERE TYPE_NAME = ?)" +
+                    " AND API.API_TYPE_ID = ?" +
                     " AND ((`GROUP_ID` IN (" + DAOUtil.getParameterString(roleCount) + ")) OR (PROVIDER = ?))" +
                     " GROUP BY UUID ORDER BY NAME LIMIT ?, ?";
         } else {
             return API_SUMMARY_SELECT +
                     " WHERE MATCH (`NAME`,`PROVIDER`,`CONTEXT`,`VERSION`,`DESCRIPTION`,`CURRENT_LC_STATUS`," +
                     "`TECHNICAL_OWNER`, `BUSINESS_OWNER`) AGAINST (? IN BOOLEAN MODE)" +
-                    " AND API.API_TYPE_ID = (SELECT TYPE_ID FROM AM_API_TYPES WHERE TYPE_NAME = ?)" +
+                    " AND API.API_TYPE_ID = ?" +
                     " AND PROVIDER = ?" +
                     " GROUP BY UUID ORDER BY NAME LIMIT ?, ?";
         }
@@ -96,7 +96,7 @@ public class MysqlSQLStatements implements ApiDAOVendorSpecificStatements {
                                  int offset, int limit) throws SQLException {
         int index = 0;
         statement.setString(++index, '*' + searchString.toLowerCase(Locale.ENGLISH) + '*');
-        statement.setString(++index, apiType.toString());
+        statement.setInt(++index, ReferenceDataCache.getInstance().getApiTypeID(statement.getConnection(), apiType));
 
         for (String role : roles) {
             statement.setString(++index, role);
@@ -127,13 +127,13 @@ public class MysqlSQLStatements implements ApiDAOVendorSpecificStatements {
         if (roleCount > 0) {
             return API_SUMMARY_SELECT +
                     " WHERE " + searchQuery.toString() +
-                    " AND API.API_TYPE_ID = (SELECT TYPE_ID FROM AM_API_TYPES WHERE TYPE_NAME = ?)" +
+                    " AND API.API_TYPE_ID = ?" +
                     " AND ((GROUP_ID IN (" + DAOUtil.getParameterString(roleCount) + ")) OR (PROVIDER = ?))" +
                     " GROUP BY UUID ORDER BY NAME LIMIT ?, ?";
         } else {
             return API_SUMMARY_SELECT +
                     " WHERE " + searchQuery.toString() +
-                    " AND API.API_TYPE_ID = (SELECT TYPE_ID FROM AM_API_TYPES WHERE TYPE_NAME = ?)" +
+                    " AND API.API_TYPE_ID = ?" +
                     " AND PROVIDER = ?" +
                     " GROUP BY UUID ORDER BY NAME LIMIT ?, ?";
         }
@@ -156,7 +156,7 @@ public class MysqlSQLStatements implements ApiDAOVendorSpecificStatements {
             statement.setString(++index, entry.getValue());
         }
 
-        statement.setString(++index, apiType.toString());
+        statement.setInt(++index, ReferenceDataCache.getInstance().getApiTypeID(statement.getConnection(), apiType));
 
         for (String role : roles) {
             statement.setString(++index, role);
@@ -239,4 +239,22 @@ public class MysqlSQLStatements implements ApiDAOVendorSpecificStatements {
             throw new APIMgtDAOException(errorMsg, e);
         }
     }
+
+    /**
+     * @see ApiDAOVendorSpecificStatements#getPaginatedQuery(String)
+     */
+    @Override
+    public String getPaginatedQuery(String query) {
+        return query + " LIMIT ?, ?";
+    }
+
+    /**
+     * @see ApiDAOVendorSpecificStatements#setPaginationParameters(PreparedStatement, int, int, int)
+     */
+    @Override
+    public void setPaginationParameters(PreparedStatement statement, int index, int offset, int limit)
+            throws SQLException {
+        statement.setInt(++index, offset);
+        statement.setInt(++index, limit);
+    }
 }
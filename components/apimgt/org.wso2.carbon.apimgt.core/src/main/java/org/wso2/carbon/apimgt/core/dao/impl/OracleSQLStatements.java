@@ -76,7 +76,7 @@ public class OracleSQLStatements implements ApiDAOVendorSpecificStatements {
             return "SELECT * FROM (" +
                     API_SUMMARY_SELECT +
                     " WHERE (CONTAINS(INDEXER, ?, 1) > 0)" +
-                    " AND API.API_TYPE_ID = (SELECT TYPE_ID FROM AM_API_TYPES WHERE TYPE_NAME = ?)" +
+                    " AND API.API_TYPE_ID = ?" +
                     " AND ((GROUP_ID IN (" + DAOUtil.getParameterString(roleCount) + ")) OR (PROVIDER = ?))" +
                     " ORDER BY NAME " +
                     ") A WHERE rownum <= ?) where rnum >= ?";
@@ -84,7 +84,7 @@ public class OracleSQLStatements implements ApiDAOVendorSpecificStatements {
             return "SELECT * FROM (" +
                     API_SUMMARY_SELECT +
                     " WHERE (CONTAINS(INDEXER, ?, 1) > 0)" +
-                    " AND API.API_TYPE_ID = (SELECT TYPE_ID FROM AM_API_TYPES WHERE TYPE_NAME = ?)" +
+                    " AND API.API_TYPE_ID = ?" +
                     " AND PROVIDER = ?" +
                     " ORDER BY NAME " +
                     ") A WHERE rownum <= ?) where rnum >= ?";
@@ -106,7 +106,7 @@ public class OracleSQLStatements implements ApiDAOVendorSpecificStatements {
 
         // Replacing special characters and allowing only alphabetical letters, numbers and space
         statement.setString(++index, '%' + searchString.toLowerCase(Locale.ENGLISH) + '%');
-        statement.setString(++index, apiType.toString());
+        statement.setInt(++index, ReferenceDataCache.getInstance().getApiTypeID(statement.getConnection(), apiType));
 
         for (String role : roles) {
             statement.setString(++index, role);
@@ -139,7 +139,7 @@ public class OracleSQLStatements implements ApiDAOVendorSpecificStatements {
             return "SELECT * FROM (" +
                     API_SUMMARY_SELECT +
                     " WHERE " + searchQuery.toString() +
-                    " AND API.API_TYPE_ID = (SELECT TYPE_ID FROM AM_API_TYPES WHERE TYPE_NAME = ?)" +
+                    " AND API.API_TYPE_ID = ?" +
                     " AND ((GROUP_ID IN (" + DAOUtil.getParameterString(roleCount) + ")) OR  (PROVIDER = ?))" +
                     " ORDER BY NAME" +
                     ")  A WHERE rownum <= ?) where rnum >= ?";
@@ -147,7 +147,7 @@ public class OracleSQLStatements implements ApiDAOVendorSpecificStatements {
             return "SELECT * FROM (" +
                     API_SUMMARY_SELECT +
                     " WHERE " + searchQuery.toString() +
-                    " AND API.API_TYPE_ID = (SELECT TYPE_ID FROM AM_API_TYPES WHERE TYPE_NAME = ?)" +
+                    " AND API.API_TYPE_ID = ?" +
                     " AND PROVIDER = ?" +
                     " ORDER BY NAME" +
                     ")  A WHERE rownum <= ?) where rnum >= ?";
@@ -171,7 +171,7 @@ public class OracleSQLStatements implements ApiDAOVendorSpecificStatements {
             statement.setString(++index, entry.getValue());
         }
 
-        statement.setString(++index, apiType.toString());
+        statement.setInt(++index, ReferenceDataCache.getInstance().getApiTypeID(statement.getConnection(), apiType));
 
         for (String role : roles) {
             statement.setString(++index, role);
@@ -251,4 +251,22 @@ public class OracleSQLStatements implements ApiDAOVendorSpecificStatements {
         }
 
     }
+
+    /**
+     * @see ApiDAOVendorSpecificStatements#getPaginatedQuery(String)
+     */
+    @Override
+    public String getPaginatedQuery(String query) {
+        return "SELECT * FROM (SELECT PAGE.*, rownum rnum FROM (" + query + ") PAGE WHERE rownum <= ?) WHERE rnum > ?";
+    }
+
+    /**
+     * @see ApiDAOVendorSpecificStatements#setPaginationParameters(PreparedStatement, int, int, int)
+     */
+    @Override
+    public void setPaginationParameters(PreparedStatement statement, int index, int offset, int limit)
+            throws SQLException {
+        statement.setLong(++index, (long) offset + limit);
+        statement.setInt(++index, offset);
+    }
 }
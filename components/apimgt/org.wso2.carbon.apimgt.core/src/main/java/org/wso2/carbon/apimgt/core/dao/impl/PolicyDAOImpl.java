@@ -134,6 +134,9 @@ public class PolicyDAOImpl implements PolicyDAO {
         } catch (SQLException e) {
             log.error(e.getMessage(), e);
             throw new APIMgtDAOException(e);
+        } finally {
+            // Policy IDs are cached by name
+            ReferenceDataCache.getInstance().invalidatePolicies();
         }
     }
 
@@ -165,6 +168,10 @@ public class PolicyDAOImpl implements PolicyDAO {
         } catch (SQLException e) {
             log.error(e.getMessage(), e);
             throw new APIMgtDAOException(e);
+        } finally {
+            ReferenceDataCache.getInstance().invalidatePolicies();
+            // APIs hold the names of their policies
+            APIModelCache.getInstance().invalidateAll();
         }
 
     }
@@ -1106,6 +1113,9 @@ public class PolicyDAOImpl implements PolicyDAO {
         } catch (SQLException e)    {
             log.error("An Error occurred while deleting Policy with name [" + policyName + "], " , e);
             throw new APIMgtDAOException("Error occurred while deleting Policy with name : " + policyName, e);
+        } finally {
+            ReferenceDataCache.getInstance().invalidatePolicies();
+            APIModelCache.getInstance().invalidateAll();
         }
     }
 
@@ -1278,6 +1288,9 @@ public class PolicyDAOImpl implements PolicyDAO {
             String msg = "An Error occurred while deleting Policy with name [" + policyName + "], ";
             log.error(msg, e);
             throw new APIMgtDAOException(msg + policyName, e);
+        } finally {
+            ReferenceDataCache.getInstance().invalidatePolicies();
+            APIModelCache.getInstance().invalidateAll();
         }
     }
 
@@ -1293,6 +1306,9 @@ public class PolicyDAOImpl implements PolicyDAO {
             String msg = "An Error occurred while deleting Policy with uuid [" + uuid + "], ";
             log.error(msg, e);
             throw new APIMgtDAOException(msg, e);
+        } finally {
+            ReferenceDataCache.getInstance().invalidatePolicies();
+            APIModelCache.getInstance().invalidateAll();
         }
     }
 
@@ -1321,6 +1337,9 @@ public class PolicyDAOImpl implements PolicyDAO {
             String msg = "An Error occurred while deleting Policy with uuid [" + uuid + "], ";
             log.error(msg, e);
             throw new APIMgtDAOException(msg, e);
+        } finally {
+            ReferenceDataCache.getInstance().invalidatePolicies();
+            APIModelCache.getInstance().invalidateAll();
         }
     }
 
@@ -73,13 +73,13 @@ public class PostgresSQLStatements implements ApiDAOVendorSpecificStatements {
         if (roleCount > 0) {
             return API_SUMMARY_SELECT +
                     " WHERE textsearchable_index_col @@ to_tsquery(replace(?, ' ', '+'))" +
-                    " AND API.API_TYPE_ID = (SELECT TYPE_ID FROM AM_API_TYPES WHERE TYPE_NAME = ?)" +
+                    " AND API.API_TYPE_ID = ?" +
                     " AND ((GROUP_ID IN (" + DAOUtil.getParameterString(roleCount) + ")) OR (PROVIDER = ?))" +
                     " GROUP BY UUID ORDER BY NAME  OFFSET ? LIMIT ?";
         } else {
             return API_SUMMARY_SELECT +
                     " WHERE textsearchable_index_col @@ to_tsquery(replace(?, ' ', '+'))" +
-                    " AND API.API_TYPE_ID = (SELECT TYPE_ID FROM AM_API_TYPES WHERE TYPE_NAME = ?)" +
+                    " AND API.API_TYPE_ID = ?" +
                     " AND PROVIDER = ?" +
                     " GROUP BY UUID ORDER BY NAME  OFFSET ? LIMIT ?";
         }
@@ -99,7 +99,7 @@ public class PostgresSQLStatements implements ApiDAOVendorSpecificStatements {
 
         // Replacing special characters and allowing only alphabetical letters, numbers and space
         statement.setString(++index, searchString.toLowerCase(Locale.ENGLISH) + ":*");
-        statement.setString(++index, apiType.toString());
+        statement.setInt(++index, ReferenceDataCache.getInstance().getApiTypeID(statement.getConnection(), apiType));
 
         for (String role : roles) {
             statement.setString(++index, role);
@@ -130,13 +130,13 @@ public class PostgresSQLStatements implements ApiDAOVendorSpecificStatements {
         if (roleCount > 0) {
             return API_SUMMARY_SELECT +
                     " WHERE " + searchQuery.toString() +
-                    " AND API.API_TYPE_ID = (SELECT TYPE_ID FROM AM_API_TYPES WHERE TYPE_NAME = ?)" +
+                    " AND API.API_TYPE_ID = ?" +
                     " AND ((GROUP_ID IN (" + DAOUtil.getParameterString(roleCount) + ")) OR  (PROVIDER = ?))" +
                     " GROUP BY UUID ORDER BY NAME  OFFSET ? LIMIT ?";
         } else {
             return API_SUMMARY_SELECT +
                     " WHERE " + searchQuery.toString() +
-                    " AND API.API_TYPE_ID = (SELECT TYPE_ID FROM AM_API_TYPES WHERE TYPE_NAME = ?)" +
+                    " AND API.API_TYPE_ID = ?" +
                     " AND PROVIDER = ?" +
                     " GROUP BY UUID ORDER BY NAME  OFFSET ? LIMIT ?";
         }
@@ -159,7 +159,7 @@ public class PostgresSQLStatements implements ApiDAOVendorSpecificStatements {
             statement.setString(++index, entry.getValue());
         }
 
-        statement.setString(++index, apiType.toString());
+        statement.setInt(++index, ReferenceDataCache.getInstance().getApiTypeID(statement.getConnection(), apiType));
 
         for (String role : roles) {
             statement.setString(++index, role);
@@ -241,4 +241,22 @@ public class PostgresSQLStatements implements ApiDAOVendorSpecificStatements {
             throw new APIMgtDAOException(errorMsg, e);
         }
     }
+
+    /**
+     * @see ApiDAOVendorSpecificStatements#getPaginatedQuery(String)
+     */
+    @Override
+    public String getPaginatedQuery(String query) {
+        return query + " LIMIT ? OFFSET ?";
+    }
+
+    /**
+     * @see ApiDAOVendorSpecificStatements#setPaginationParameters(PreparedStatement, int, int, int)
+     */
+    @Override
+    public void setPaginationParameters(PreparedStatement statement, int index, int offset, int limit)
+            throws SQLException {
+        statement.setInt(++index, limit);
+        statement.setInt(++index, offset);
+    }
 }
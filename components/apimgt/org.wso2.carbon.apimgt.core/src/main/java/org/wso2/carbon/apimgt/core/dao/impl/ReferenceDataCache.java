@@ -0,0 +1,247 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.core.dao.impl;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.apimgt.core.dao.ApiType;
+import org.wso2.carbon.apimgt.core.models.ResourceCategory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In memory cache of reference data which rarely changes, such as the IDs of resource categories, API types and
+ * throttle policies, so that DAOs can resolve them without querying the database on each call.
+ * <p>
+ * The data is loaded when the DAOs are set up, and is reloaded after the data source changes or the cache is
+ * invalidated. Policy DAOs invalidate the policies when they are added, updated or deleted. Since another node may
+ * change the policies, a time to live can be set, after which all the data is reloaded.
+ */
+public final class ReferenceDataCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ReferenceDataCache.class);
+    private static final ReferenceDataCache instance = new ReferenceDataCache();
+
+    private volatile Map<ResourceCategory, Integer> resourceCategoryIDs = Collections.emptyMap();
+    private volatile Map<ApiType, Integer> apiTypeIDs = Collections.emptyMap();
+    private volatile Map<Integer, ApiType> apiTypes = Collections.emptyMap();
+    private final Map<String, String> apiPolicyIDs = new ConcurrentHashMap<>();
+    private final Map<String, String> subscriptionPolicyIDs = new ConcurrentHashMap<>();
+
+    private volatile boolean loaded;
+    private volatile long loadedTime;
+    private volatile long timeToLiveMillis;
+
+    private ReferenceDataCache() {
+    }
+
+    public static ReferenceDataCache getInstance() {
+        return instance;
+    }
+
+    /**
+     * Sets the time after which the cached data is reloaded from the database.
+     *
+     * @param timeToLive time to live, or 0 to keep the data until the cache is invalidated
+     * @param timeUnit   unit of the time to live
+     */
+    public void setTimeToLive(long timeToLive, TimeUnit timeUnit) {
+        timeToLiveMillis = timeUnit.toMillis(timeToLive);
+    }
+
+    /**
+     * Discards all the cached data, so that it is reloaded on the next lookup.
+     */
+    public void invalidate() {
+        loaded = false;
+        apiPolicyIDs.clear();
+        subscriptionPolicyIDs.clear();
+    }
+
+    /**
+     * Discards the cached policy IDs, so that they are reloaded on the next lookup.
+     */
+    public void invalidatePolicies() {
+        apiPolicyIDs.clear();
+        subscriptionPolicyIDs.clear();
+    }
+
+    /**
+     * Loads the data unless it is already loaded and has not expired.
+     */
+    void initialize(Connection connection) throws SQLException {
+        if (isExpired()) {
+            load(connection, false);
+        }
+    }
+
+    int getResourceCategoryID(Connection connection, ResourceCategory category) throws SQLException {
+        initialize(connection);
+        Integer resourceCategoryID = resourceCategoryIDs.get(category);
+        if (resourceCategoryID == null) {
+            // The categories could have been added after the data was loaded
+            load(connection, true);
+            resourceCategoryID = resourceCategoryIDs.get(category);
+        }
+        if (resourceCategoryID == null) {
+            throw new SQLException("Resource category does not exist");
+        }
+        return resourceCategoryID;
+    }
+
+    int getApiTypeID(Connection connection, ApiType apiType) throws SQLException {
+        initialize(connection);
+        Integer apiTypeID = apiTypeIDs.get(apiType);
+        if (apiTypeID == null) {
+            load(connection, true);
+            apiTypeID = apiTypeIDs.get(apiType);
+        }
+        if (apiTypeID == null) {
+            throw new SQLException("API Type " + apiType.toString() + " does not exist");
+        }
+        return apiTypeID;
+    }
+
+    /**
+     * @return API types mapped to their IDs
+     */
+    Map<Integer, ApiType> getApiTypes(Connection connection) throws SQLException {
+        initialize(connection);
+        return apiTypes;
+    }
+
+    String getAPIPolicyID(Connection connection, String policyName) throws SQLException {
+        initialize(connection);
+        String policyID = apiPolicyIDs.get(policyName);
+        if (policyID == null) {
+            policyID = getPolicyID(connection, "AM_API_POLICY", policyName);
+            if (policyID == null) {
+                throw new SQLException("API Policy " + policyName + ", does not exist");
+            }
+            apiPolicyIDs.put(policyName, policyID);
+        }
+        return policyID;
+    }
+
+    String getSubscriptionPolicyID(Connection connection, String policyName) throws SQLException {
+        initialize(connection);
+        String policyID = subscriptionPolicyIDs.get(policyName);
+        if (policyID == null) {
+            policyID = getPolicyID(connection, "AM_SUBSCRIPTION_POLICY", policyName);
+            if (policyID == null) {
+                throw new SQLException("Subscription Policy " + policyName + ", does not exist");
+            }
+            subscriptionPolicyIDs.put(policyName, policyID);
+        }
+        return policyID;
+    }
+
+    private boolean isExpired() {
+        return !loaded || (timeToLiveMillis > 0 && System.currentTimeMillis() - loadedTime >= timeToLiveMillis);
+    }
+
+    private synchronized void load(Connection connection, boolean force) throws SQLException {
+        if (!force && !isExpired()) {
+            return;
+        }
+
+        Map<ResourceCategory, Integer> categoryIDs = new EnumMap<>(ResourceCategory.class);
+        final String categoryQuery = "SELECT RESOURCE_CATEGORY_ID, RESOURCE_CATEGORY FROM AM_RESOURCE_CATEGORIES";
+        try (PreparedStatement statement = connection.prepareStatement(categoryQuery);
+             ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                String category = rs.getString("RESOURCE_CATEGORY");
+                for (ResourceCategory resourceCategory : ResourceCategory.values()) {
+                    if (resourceCategory.toString().equals(category)) {
+                        categoryIDs.put(resourceCategory, rs.getInt("RESOURCE_CATEGORY_ID"));
+                    }
+                }
+            }
+        }
+
+        Map<ApiType, Integer> typeIDs = new EnumMap<>(ApiType.class);
+        Map<Integer, ApiType> types = new HashMap<>();
+        final String typeQuery = "SELECT TYPE_ID, TYPE_NAME FROM AM_API_TYPES";
+        try (PreparedStatement statement = connection.prepareStatement(typeQuery);
+             ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                ApiType apiType = ApiType.valueOf(rs.getString("TYPE_NAME"));
+                typeIDs.put(apiType, rs.getInt("TYPE_ID"));
+                types.put(rs.getInt("TYPE_ID"), apiType);
+            }
+        }
+
+        Map<String, String> apiPolicies = getPolicyIDs(connection, "AM_API_POLICY");
+        Map<String, String> subscriptionPolicies = getPolicyIDs(connection, "AM_SUBSCRIPTION_POLICY");
+
+        resourceCategoryIDs = categoryIDs;
+        apiTypeIDs = typeIDs;
+        apiTypes = Collections.unmodifiableMap(types);
+        apiPolicyIDs.clear();
+        apiPolicyIDs.putAll(apiPolicies);
+        subscriptionPolicyIDs.clear();
+        subscriptionPolicyIDs.putAll(subscriptionPolicies);
+        loadedTime = System.currentTimeMillis();
+        loaded = true;
+
+        if (log.isDebugEnabled()) {
+            log.debug("Loaded reference data: " + categoryIDs.size() + " resource categories, " + typeIDs.size()
+                    + " API types, " + apiPolicies.size() + " API policies and " + subscriptionPolicies.size()
+                    + " subscription policies");
+        }
+    }
+
+    @SuppressFBWarnings("SQL_PREPARED_STATEMENT_GENERATED_FROM_NONCONSTANT_STRING")
+    private static Map<String, String> getPolicyIDs(Connection connection, String tableName) throws SQLException {
+        final String query = "SELECT UUID, NAME FROM " + tableName;
+        Map<String, String> policyIDs = new HashMap<>();
+        try (PreparedStatement statement = connection.prepareStatement(query);
+             ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                policyIDs.put(rs.getString("NAME"), rs.getString("UUID"));
+            }
+        }
+        return policyIDs;
+    }
+
+    @SuppressFBWarnings("SQL_PREPARED_STATEMENT_GENERATED_FROM_NONCONSTANT_STRING")
+    private static String getPolicyID(Connection connection, String tableName, String policyName)
+            throws SQLException {
+        final String query = "SELECT UUID FROM " + tableName + " WHERE NAME = ?";
+        try (PreparedStatement statement = connection.prepareStatement(query)) {
+            statement.setString(1, policyName);
+            try (ResultSet rs = statement.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getString("UUID");
+                }
+            }
+        }
+        return null;
+    }
+}
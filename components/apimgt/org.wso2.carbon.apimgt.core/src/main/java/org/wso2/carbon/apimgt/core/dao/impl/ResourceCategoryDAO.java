@@ -48,22 +48,7 @@ class ResourceCategoryDAO {
     }
 
     static int getResourceCategoryID(Connection connection, ResourceCategory category) throws SQLException {
-        final String query = "SELECT RESOURCE_CATEGORY_ID FROM AM_RESOURCE_CATEGORIES WHERE RESOURCE_CATEGORY = ?";
-        int resourceTypeID;
-
-        try (PreparedStatement statement = connection.prepareStatement(query)) {
-            statement.setString(1, category.toString());
-
-            try (ResultSet rs = statement.executeQuery()) {
-                if (rs.next()) {
-                    resourceTypeID = rs.getInt("RESOURCE_CATEGORY_ID");
-                } else {
-                    throw new SQLException("Resource category does not exist");
-                }
-            }
-        }
-
-        return resourceTypeID;
+        return ReferenceDataCache.getInstance().getResourceCategoryID(connection, category);
     }
 
     static void addResourceCategories(Connection connection) throws SQLException {
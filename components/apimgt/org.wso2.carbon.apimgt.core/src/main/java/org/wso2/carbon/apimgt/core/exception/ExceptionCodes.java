@@ -120,6 +120,8 @@ public enum ExceptionCodes implements ErrorHandler {
             "Error occurred while obtaining URI for Location header"),
     LAST_UPDATED_TIME_RETRIEVAL_ERROR(900702, "Error while retrieving last access time for the resource", 500,
             "Error while retrieving last access time for the resource"),
+    INVALID_PAGINATION_CURSOR(900703, "Invalid pagination cursor", 400,
+            "The cursor is not one returned with a previous page of results"),
 
 
     // Oauth related codes
@@ -51,9 +51,11 @@ public class APIGatewayPublisherImpl implements APIGateway {
     private String gatewayFileExtension = ".bal";
     private String endpointConfigName = "endpoint";
     private String gwHome;
+    private BrokerUtil.MessageFormat messageFormat;
 
     public APIGatewayPublisherImpl() {
         config = ServiceReferenceHolder.getInstance().getAPIMConfiguration();
+        messageFormat = BrokerUtil.MessageFormat.fromString(config.getBrokerMessageFormat());
 
         //TODO:Remove this once broker is integrated
         gwHome = System.getProperty("gwHome");
@@ -212,7 +214,7 @@ public class APIGatewayPublisherImpl implements APIGateway {
      * @throws GatewayException     If there is a failure to publish to gateway
      */
     private void publishToPublisherTopic(GatewayDTO gatewayDTO) throws GatewayException {
-        BrokerUtil.publishToTopic(config.getPublisherTopic(), gatewayDTO);
+        BrokerUtil.publishToTopic(config.getPublisherTopic(), gatewayDTO, messageFormat);
     }
 
     /**
@@ -222,7 +224,7 @@ public class APIGatewayPublisherImpl implements APIGateway {
      * @throws GatewayException     If there is a failure to publish to gateway
      */
     private void publishToStoreTopic(GatewayDTO gatewayDTO) throws GatewayException {
-        BrokerUtil.publishToTopic(config.getStoreTopic(), gatewayDTO);
+        BrokerUtil.publishToTopic(config.getStoreTopic(), gatewayDTO, messageFormat);
     }
 
     /**
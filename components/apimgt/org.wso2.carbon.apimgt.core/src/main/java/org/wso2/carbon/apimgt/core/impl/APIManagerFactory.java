@@ -29,6 +29,7 @@ import org.wso2.carbon.apimgt.core.api.APIPublisher;
 import org.wso2.carbon.apimgt.core.api.APIStore;
 import org.wso2.carbon.apimgt.core.api.IdentityProvider;
 import org.wso2.carbon.apimgt.core.api.KeyManager;
+import org.wso2.carbon.apimgt.core.dao.impl.APIModelCache;
 import org.wso2.carbon.apimgt.core.dao.impl.DAOFactory;
 import org.wso2.carbon.apimgt.core.exception.APIManagementException;
 import org.wso2.carbon.apimgt.core.exception.APIMgtDAOException;
@@ -112,6 +113,7 @@ public class APIManagerFactory {
             userAwareAPIPublisher.registerObserver(new EventLogger());
             userAwareAPIPublisher.registerObserver(new FunctionTrigger(DAOFactory.getFunctionDAO(),
                     new RestCallUtilImpl()));
+            userAwareAPIPublisher.registerObserver(APIModelCache.getInstance());
 
             return userAwareAPIPublisher;
         } catch (APIMgtDAOException e) {
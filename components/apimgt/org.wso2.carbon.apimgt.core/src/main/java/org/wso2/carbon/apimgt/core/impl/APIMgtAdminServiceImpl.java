@@ -2,6 +2,7 @@ package org.wso2.carbon.apimgt.core.impl;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.wso2.carbon.apimgt.core.api.APIDefinition;
 import org.wso2.carbon.apimgt.core.api.APIMgtAdminService;
 import org.wso2.carbon.apimgt.core.dao.APISubscriptionDAO;
 import org.wso2.carbon.apimgt.core.dao.ApiDAO;
@@ -13,14 +14,20 @@ import org.wso2.carbon.apimgt.core.exception.APIManagementException;
 import org.wso2.carbon.apimgt.core.exception.APIMgtDAOException;
 import org.wso2.carbon.apimgt.core.exception.ExceptionCodes;
 import org.wso2.carbon.apimgt.core.models.API;
+import org.wso2.carbon.apimgt.core.models.APIResource;
 import org.wso2.carbon.apimgt.core.models.APISummary;
 import org.wso2.carbon.apimgt.core.models.Label;
+import org.wso2.carbon.apimgt.core.models.Scope;
+import org.wso2.carbon.apimgt.core.models.SubscriptionChanges;
 import org.wso2.carbon.apimgt.core.models.SubscriptionValidationData;
 import org.wso2.carbon.apimgt.core.models.UriTemplate;
 import org.wso2.carbon.apimgt.core.models.policy.Policy;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 /**
  * Implementation of APIMgtAdminService
@@ -33,6 +40,7 @@ public class APIMgtAdminServiceImpl implements APIMgtAdminService {
     private PolicyDAO policyDAO;
     private ApiDAO apiDAO;
     private LabelDAO labelDAO;
+    private APIDefinition apiDefinitionFromSwagger20 = new APIDefinitionFromSwagger20();
 
     public APIMgtAdminServiceImpl(APISubscriptionDAO apiSubscriptionDAO, PolicyDAO policyDAO, ApiDAO apiDAO,
                                   LabelDAO labelDAO) {
@@ -59,6 +67,31 @@ public class APIMgtAdminServiceImpl implements APIMgtAdminService {
         return apiSubscriptionDAO.getAPISubscriptionsOfAPIForValidation(apiContext, apiVersion);
     }
 
+    /**
+     * @see org.wso2.carbon.apimgt.core.api.APIMgtAdminService#getAPISubscriptionChanges(long)
+     */
+    @Override
+    public SubscriptionChanges getAPISubscriptionChanges(long revision) throws APIManagementException {
+        return apiSubscriptionDAO.getAPISubscriptionChangesForValidation(revision);
+    }
+
+    /**
+     * @see org.wso2.carbon.apimgt.core.api.APIMgtAdminService#getAPISubscriptions(String, String, int)
+     */
+    @Override
+    public List<SubscriptionValidationData> getAPISubscriptions(String lastSubscriptionId, String lastKeyEnvType,
+                                                                int limit) throws APIManagementException {
+        return apiSubscriptionDAO.getAPISubscriptionsForValidation(lastSubscriptionId, lastKeyEnvType, limit);
+    }
+
+    /**
+     * @see org.wso2.carbon.apimgt.core.api.APIMgtAdminService#getAPISubscriptionRevision()
+     */
+    @Override
+    public long getAPISubscriptionRevision() throws APIManagementException {
+        return apiSubscriptionDAO.getLatestSubscriptionRevision();
+    }
+
     /**
      * @see org.wso2.carbon.apimgt.core.api.APIMgtAdminService#getAPIInfo()
      */
@@ -207,9 +240,18 @@ public class APIMgtAdminServiceImpl implements APIMgtAdminService {
      * @see org.wso2.carbon.apimgt.core.api.APIMgtAdminService#getAllResourcesForApi(String, String)
      */
     @Override
-    public List<UriTemplate> getAllResourcesForApi(String apiContext, String apiVersion) throws APIManagementException {
+    public List<APIResource> getAllResourcesForApi(String apiContext, String apiVersion)
+            throws APIManagementException {
         try {
-            return apiDAO.getResourcesOfApi(apiContext, apiVersion);
+            List<UriTemplate> uriTemplates = apiDAO.getResourcesOfApi(apiContext, apiVersion);
+            Map<String, Scope> scopes = getScopesOfResources(apiDAO.getSwaggerDefinitionOfApi(apiContext,
+                    apiVersion));
+            List<APIResource> apiResources = new ArrayList<>(uriTemplates.size());
+            for (UriTemplate uriTemplate : uriTemplates) {
+                apiResources.add(new APIResource.Builder().uriTemplate(uriTemplate)
+                        .scope(scopes.get(getResourceKey(uriTemplate))).build());
+            }
+            return apiResources;
         } catch (APIManagementException e) {
             String msg = "Couldn't retrieve resources for Api Name: " + apiContext;
             log.error(msg, e);
@@ -217,6 +259,29 @@ public class APIMgtAdminServiceImpl implements APIMgtAdminService {
         }
     }
 
+    /**
+     * @param swaggerDefinition swagger definition of an API, may be null
+     * @return scopes set on the resources of the API definition, keyed by the URI template and HTTP verb
+     * @throws APIManagementException if the definition cannot be parsed
+     */
+    private Map<String, Scope> getScopesOfResources(String swaggerDefinition) throws APIManagementException {
+        Map<String, Scope> scopes = new HashMap<>();
+        if (swaggerDefinition == null) {
+            return scopes;
+        }
+        for (APIResource apiResource : apiDefinitionFromSwagger20.parseSwaggerAPIResources(
+                new StringBuilder(swaggerDefinition))) {
+            if (apiResource.getScope() != null) {
+                scopes.put(getResourceKey(apiResource.getUriTemplate()), apiResource.getScope());
+            }
+        }
+        return scopes;
+    }
+
+    private static String getResourceKey(UriTemplate uriTemplate) {
+        return uriTemplate.getUriTemplate() + ':' + uriTemplate.getHttpVerb().toUpperCase(Locale.ENGLISH);
+    }
+
     @Override public List<API> getAPIsByStatus(List<String> gatewayLabels, String status)
             throws APIManagementException {
         List<API> apiList;
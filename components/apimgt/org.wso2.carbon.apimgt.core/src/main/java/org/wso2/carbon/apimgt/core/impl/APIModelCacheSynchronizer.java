@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.core.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.apimgt.core.api.Broker;
+import org.wso2.carbon.apimgt.core.dao.impl.APIModelCache;
+import org.wso2.carbon.apimgt.core.exception.BrokerException;
+
+import java.util.UUID;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.Session;
+import javax.jms.TextMessage;
+import javax.jms.Topic;
+import javax.jms.TopicConnection;
+import javax.jms.TopicPublisher;
+import javax.jms.TopicSession;
+import javax.jms.TopicSubscriber;
+
+/**
+ * Keeps the {@link APIModelCache} of the nodes sharing a database consistent, by publishing the invalidations made on
+ * this node to a broker topic and invalidating the entries published by the other nodes.
+ * <p>
+ * Each message holds the UUID of the API or document whose entries were invalidated, or {@value #ALL} if all the
+ * entries were invalidated. If the connection to the broker fails, the cache is cleared and disabled, since changes
+ * made on the other nodes can no longer be noticed.
+ */
+public class APIModelCacheSynchronizer implements APIModelCache.InvalidationListener {
+
+    private static final Logger log = LoggerFactory.getLogger(APIModelCacheSynchronizer.class);
+
+    static final String ALL = "*";
+    static final String NODE_ID_PROPERTY = "nodeId";
+
+    private final Broker broker;
+    private final String topicName;
+    private final APIModelCache cache;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private TopicConnection topicConnection;
+    private TopicSession publisherSession;
+    private TopicPublisher topicPublisher;
+
+    public APIModelCacheSynchronizer(Broker broker, String topicName, APIModelCache cache) {
+        this.broker = broker;
+        this.topicName = topicName;
+        this.cache = cache;
+    }
+
+    /**
+     * Subscribes to the invalidations of the other nodes, and starts publishing the invalidations of this node.
+     *
+     * @throws JMSException    if the topic could not be subscribed to
+     * @throws BrokerException if the broker connection could not be created
+     */
+    public synchronized void start() throws JMSException, BrokerException {
+        topicConnection = broker.getTopicConnection();
+        try {
+            topicConnection.setExceptionListener(e -> {
+                log.error("Connection to the API model cache invalidation topic " + topicName + " failed. The API "
+                        + "model cache is disabled.", e);
+                cache.setMaxEntries(0);
+                cache.invalidateLocally(null);
+            });
+
+            TopicSession subscriberSession = topicConnection.createTopicSession(false, Session.AUTO_ACKNOWLEDGE);
+            Topic topic = subscriberSession.createTopic(topicName);
+            TopicSubscriber topicSubscriber = subscriberSession.createSubscriber(topic);
+            topicSubscriber.setMessageListener(this::onMessage);
+
+            publisherSession = topicConnection.createTopicSession(false, Session.AUTO_ACKNOWLEDGE);
+            topicPublisher = publisherSession.createPublisher(publisherSession.createTopic(topicName));
+            topicConnection.start();
+        } catch (JMSException e) {
+            stop();
+            throw e;
+        }
+        cache.setInvalidationListener(this);
+    }
+
+    /**
+     * Stops publishing and receiving invalidations.
+     */
+    public synchronized void stop() {
+        cache.setInvalidationListener(null);
+        if (topicConnection != null) {
+            try {
+                topicConnection.close();
+            } catch (JMSException e) {
+                log.error("Error occurred while closing topic connection for topic : " + topicName, e);
+            }
+        }
+        topicConnection = null;
+        publisherSession = null;
+        topicPublisher = null;
+    }
+
+    @Override
+    public synchronized void invalidated(String id) {
+        if (topicPublisher == null) {
+            return;
+        }
+        try {
+            TextMessage message = publisherSession.createTextMessage(id == null ? ALL : id);
+            message.setStringProperty(NODE_ID_PROPERTY, nodeId);
+            topicPublisher.publish(message);
+        } catch (JMSException e) {
+            // Entries of the other nodes still expire after the time to live of the cache
+            log.error("Error occurred while publishing API model cache invalidation of " + id + " to topic : "
+                    + topicName, e);
+        }
+    }
+
+    private void onMessage(Message message) {
+        try {
+            if (!(message instanceof TextMessage) || nodeId.equals(message.getStringProperty(NODE_ID_PROPERTY))) {
+                return;
+            }
+            String id = ((TextMessage) message).getText();
+            cache.invalidateLocally(ALL.equals(id) ? null : id);
+        } catch (JMSException e) {
+            // The entry the message is about is unknown, so all the entries are invalidated
+            log.error("Error occurred while reading API model cache invalidation from topic : " + topicName, e);
+            cache.invalidateLocally(null);
+        }
+    }
+}
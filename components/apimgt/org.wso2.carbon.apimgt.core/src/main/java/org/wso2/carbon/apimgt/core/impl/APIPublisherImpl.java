@@ -50,6 +50,8 @@ import org.wso2.carbon.apimgt.core.exception.GatewayException;
 import org.wso2.carbon.apimgt.core.exception.LabelException;
 import org.wso2.carbon.apimgt.core.exception.WorkflowException;
 import org.wso2.carbon.apimgt.core.models.API;
+import org.wso2.carbon.apimgt.core.models.APICursor;
+import org.wso2.carbon.apimgt.core.models.APIResults;
 import org.wso2.carbon.apimgt.core.models.CorsConfiguration;
 import org.wso2.carbon.apimgt.core.models.DocumentInfo;
 import org.wso2.carbon.apimgt.core.models.Endpoint;
@@ -993,7 +995,7 @@ public class APIPublisherImpl extends AbstractAPIManager implements APIPublisher
                 //TODO get the logged in user and user roles from key manager.
                 apiResults = getApiDAO().searchAPIs(roles, user, query, ApiType.STANDARD, offset, limit);
             } else {
-                apiResults = getApiDAO().getAPIs(ApiType.STANDARD);
+                apiResults = getApiDAO().getAPIs(ApiType.STANDARD, null, offset, limit).getApiList();
             }
         } catch (APIMgtDAOException e) {
             String errorMsg = "Error occurred while Searching the API with query " + query;
@@ -1003,6 +1005,21 @@ public class APIPublisherImpl extends AbstractAPIManager implements APIPublisher
         return apiResults;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public APIResults getAPIs(String cursor, int limit) throws APIManagementException {
+        APICursor after = parseCursor(cursor);
+        try {
+            return getApiDAO().getAPIs(ApiType.STANDARD, after, 0, limit);
+        } catch (APIMgtDAOException e) {
+            String errorMsg = "Error occurred while retrieving APIs";
+            log.error(errorMsg, e);
+            throw new APIManagementException(errorMsg, e, ExceptionCodes.APIMGT_DAO_EXCEPTION);
+        }
+    }
+
     /**
      * Update the subscription status
      *
@@ -56,6 +56,8 @@ import org.wso2.carbon.apimgt.core.exception.KeyManagementException;
 import org.wso2.carbon.apimgt.core.exception.LabelException;
 import org.wso2.carbon.apimgt.core.exception.WorkflowException;
 import org.wso2.carbon.apimgt.core.models.API;
+import org.wso2.carbon.apimgt.core.models.APICursor;
+import org.wso2.carbon.apimgt.core.models.APIResults;
 import org.wso2.carbon.apimgt.core.models.APIStatus;
 import org.wso2.carbon.apimgt.core.models.AccessTokenInfo;
 import org.wso2.carbon.apimgt.core.models.AccessTokenRequest;
@@ -144,7 +146,8 @@ public class APIStoreImpl extends AbstractAPIManager implements APIStore, APIMOb
     public List<API> getAllAPIsByStatus(int offset, int limit, String[] statuses) throws APIManagementException {
         List<API> apiResults = null;
         try {
-            apiResults = getApiDAO().getAPIsByStatus(new ArrayList<>(Arrays.asList(statuses)), ApiType.STANDARD);
+            apiResults = getApiDAO().getAPIsByStatus(new ArrayList<>(Arrays.asList(statuses)), ApiType.STANDARD,
+                    null, offset, limit).getApiList();
         } catch (APIMgtDAOException e) {
             String errorMsg = "Error occurred while fetching APIs for the given statuses     - "
                     + Arrays.toString(statuses);
@@ -1022,10 +1025,8 @@ public class APIStoreImpl extends AbstractAPIManager implements APIStore, APIMOb
                             attributeMap, offset, limit);
                 }
             } else {
-                List<String> statuses = new ArrayList<>();
-                statuses.add(APIStatus.PUBLISHED.getStatus());
-                statuses.add(APIStatus.PROTOTYPED.getStatus());
-                apiResults = getApiDAO().getAPIsByStatus(roles, statuses, ApiType.STANDARD);
+                apiResults = getApiDAO().getAPIsByStatus(roles, getStoreVisibleStatuses(), ApiType.STANDARD, null,
+                        offset, limit).getApiList();
             }
 
         } catch (APIMgtDAOException e) {
@@ -1037,6 +1038,32 @@ public class APIStoreImpl extends AbstractAPIManager implements APIStore, APIMOb
         return apiResults;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public APIResults getAPIs(String cursor, int limit) throws APIManagementException {
+        APICursor after = parseCursor(cursor);
+        try {
+            Set<String> roles = APIUtils.getAllRolesOfUser(getUsername());
+            return getApiDAO().getAPIsByStatus(roles, getStoreVisibleStatuses(), ApiType.STANDARD, after, 0, limit);
+        } catch (APIMgtDAOException e) {
+            String errorMsg = "Error occurred while retrieving APIs";
+            log.error(errorMsg, e);
+            throw new APIManagementException(errorMsg, e, ExceptionCodes.APIMGT_DAO_EXCEPTION);
+        }
+    }
+
+    /**
+     * @return life cycle statuses of the APIs which are listed in the store
+     */
+    private static List<String> getStoreVisibleStatuses() {
+        List<String> statuses = new ArrayList<>();
+        statuses.add(APIStatus.PUBLISHED.getStatus());
+        statuses.add(APIStatus.PROTOTYPED.getStatus());
+        return statuses;
+    }
+
     /**
      * @see APIStore#deleteApplication(String)
      */
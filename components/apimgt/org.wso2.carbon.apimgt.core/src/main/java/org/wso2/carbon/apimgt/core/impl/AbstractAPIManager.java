@@ -39,6 +39,7 @@ import org.wso2.carbon.apimgt.core.dao.LabelDAO;
 import org.wso2.carbon.apimgt.core.dao.PolicyDAO;
 import org.wso2.carbon.apimgt.core.dao.TagDAO;
 import org.wso2.carbon.apimgt.core.dao.WorkflowDAO;
+import org.wso2.carbon.apimgt.core.dao.impl.APIModelCache;
 import org.wso2.carbon.apimgt.core.exception.APIManagementException;
 import org.wso2.carbon.apimgt.core.exception.APIMgtDAOException;
 import org.wso2.carbon.apimgt.core.exception.APIMgtResourceAlreadyExistsException;
@@ -46,7 +47,9 @@ import org.wso2.carbon.apimgt.core.exception.ExceptionCodes;
 import org.wso2.carbon.apimgt.core.exception.WorkflowException;
 import org.wso2.carbon.apimgt.core.internal.ServiceReferenceHolder;
 import org.wso2.carbon.apimgt.core.models.API;
+import org.wso2.carbon.apimgt.core.models.APICursor;
 import org.wso2.carbon.apimgt.core.models.APIResource;
+import org.wso2.carbon.apimgt.core.models.APIResults;
 import org.wso2.carbon.apimgt.core.models.Application;
 import org.wso2.carbon.apimgt.core.models.DocumentContent;
 import org.wso2.carbon.apimgt.core.models.DocumentInfo;
@@ -59,6 +62,7 @@ import org.wso2.carbon.apimgt.core.workflow.Workflow;
 
 import java.io.InputStream;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -128,7 +132,7 @@ public abstract class AbstractAPIManager implements APIManager {
     public API getAPIbyUUID(String uuid) throws APIManagementException {
         API api = null;
         try {
-            api = apiDAO.getAPI(uuid);
+            api = APIModelCache.getInstance().get(APIModelCache.Type.API, uuid, () -> apiDAO.getAPI(uuid));
         } catch (APIMgtDAOException e) {
             String errorMsg = "Error occurred while retrieving API with id " + uuid;
             log.error(errorMsg, e);
@@ -137,6 +141,21 @@ public abstract class AbstractAPIManager implements APIManager {
         return api;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<API> getAPIsByUUIDs(Collection<String> uuids) throws APIManagementException {
+        try {
+            // The API model cache loads APIs one at a time, so a batch is read from the database instead
+            return getApiDAO().getAPIs(uuids);
+        } catch (APIMgtDAOException e) {
+            String errorMsg = "Error occurred while retrieving APIs with ids " + uuids;
+            log.error(errorMsg, e);
+            throw new APIManagementException(errorMsg, e, ExceptionCodes.APIMGT_DAO_EXCEPTION);
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -151,6 +170,22 @@ public abstract class AbstractAPIManager implements APIManager {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public APIResults getAPIsByProvider(String providerName, ApiType apiType, String cursor, int limit)
+            throws APIManagementException {
+        APICursor after = parseCursor(cursor);
+        try {
+            return getApiDAO().getAPIsForProvider(providerName, apiType, after, 0, limit);
+        } catch (APIMgtDAOException e) {
+            String errorMsg = "Unable to fetch APIs of " + providerName;
+            log.error(errorMsg, e);
+            throw new APIManagementException(errorMsg, e, ExceptionCodes.APIMGT_DAO_EXCEPTION);
+        }
+    }
+
     /**
      * @see APIManager#getLastUpdatedTimeOfAPI(java.lang.String)
      */
@@ -158,7 +193,8 @@ public abstract class AbstractAPIManager implements APIManager {
     public String getLastUpdatedTimeOfAPI(String apiId) throws APIManagementException {
         String lastUpdatedTime;
         try {
-            lastUpdatedTime = apiDAO.getLastUpdatedTimeOfAPI(apiId);
+            lastUpdatedTime = APIModelCache.getInstance().get(APIModelCache.Type.API_LAST_UPDATED_TIME, apiId,
+                    () -> apiDAO.getLastUpdatedTimeOfAPI(apiId));
         } catch (APIMgtDAOException e) {
             String errorMsg = "Error occurred while retrieving the last update time of API with id " + apiId;
             log.error(errorMsg, e);
@@ -176,7 +212,8 @@ public abstract class AbstractAPIManager implements APIManager {
     public String getLastUpdatedTimeOfSwaggerDefinition(String apiId) throws APIManagementException {
         String lastUpdatedTime;
         try {
-            lastUpdatedTime = apiDAO.getLastUpdatedTimeOfSwaggerDefinition(apiId);
+            lastUpdatedTime = APIModelCache.getInstance().get(APIModelCache.Type.SWAGGER_DEFINITION_LAST_UPDATED_TIME,
+                    apiId, () -> apiDAO.getLastUpdatedTimeOfSwaggerDefinition(apiId));
         } catch (APIMgtDAOException e) {
             String errorMsg =
                     "Error occurred while retrieving the last update time of the swagger definition of API with id "
@@ -266,7 +303,8 @@ public abstract class AbstractAPIManager implements APIManager {
      */
     @Override public String getSwagger20Definition(String api) throws APIManagementException {
         try {
-            return getApiDAO().getSwaggerDefinition(api);
+            return APIModelCache.getInstance().get(APIModelCache.Type.SWAGGER_DEFINITION, api,
+                    () -> getApiDAO().getSwaggerDefinition(api));
 
         } catch (APIMgtDAOException e) {
             String errorMsg = "Couldn't retrieve swagger definition for apiId " + api;
@@ -486,7 +524,8 @@ public abstract class AbstractAPIManager implements APIManager {
     @Override
     public String getApiGatewayConfig(String apiId) throws APIManagementException {
         try {
-            return getApiDAO().getGatewayConfig(apiId);
+            return APIModelCache.getInstance().get(APIModelCache.Type.GATEWAY_CONFIG, apiId,
+                    () -> getApiDAO().getGatewayConfig(apiId));
 
         } catch (APIMgtDAOException e) {
             log.error("Couldn't retrieve swagger definition for apiId " + apiId, e);
@@ -502,7 +541,8 @@ public abstract class AbstractAPIManager implements APIManager {
     public String getLastUpdatedTimeOfGatewayConfig(String apiId) throws APIManagementException {
         String lastUpdatedTime;
         try {
-            lastUpdatedTime = getApiDAO().getLastUpdatedTimeOfGatewayConfig(apiId);
+            lastUpdatedTime = APIModelCache.getInstance().get(APIModelCache.Type.GATEWAY_CONFIG_LAST_UPDATED_TIME,
+                    apiId, () -> getApiDAO().getLastUpdatedTimeOfGatewayConfig(apiId));
         } catch (APIMgtDAOException e) {
             String errorMsg =
                     "Error occurred while retrieving the last update time of the gateway configuration of API with id "
@@ -521,7 +561,8 @@ public abstract class AbstractAPIManager implements APIManager {
     public String getLastUpdatedTimeOfDocument(String documentId) throws APIManagementException {
         String lastUpdatedTime;
         try {
-            lastUpdatedTime = apiDAO.getLastUpdatedTimeOfDocument(documentId);
+            lastUpdatedTime = APIModelCache.getInstance().get(APIModelCache.Type.DOCUMENT_LAST_UPDATED_TIME,
+                    documentId, () -> apiDAO.getLastUpdatedTimeOfDocument(documentId));
         } catch (APIMgtDAOException e) {
             String errorMsg = "Error occurred while retrieving the last updated time of document " + documentId;
             log.error(errorMsg, e);
@@ -554,7 +595,8 @@ public abstract class AbstractAPIManager implements APIManager {
     public String getLastUpdatedTimeOfAPIThumbnailImage(String apiId) throws APIManagementException {
         String lastUpdatedTime;
         try {
-            lastUpdatedTime = apiDAO.getLastUpdatedTimeOfAPIThumbnailImage(apiId);
+            lastUpdatedTime = APIModelCache.getInstance().get(APIModelCache.Type.THUMBNAIL_LAST_UPDATED_TIME, apiId,
+                    () -> apiDAO.getLastUpdatedTimeOfAPIThumbnailImage(apiId));
         } catch (APIMgtDAOException e) {
             String errorMsg =
                     "Error occurred while retrieving the last updated time of the thumbnail image of the API " + apiId;
@@ -775,4 +817,24 @@ public abstract class AbstractAPIManager implements APIManager {
     public TagDAO getTagDAO() {
         return tagDAO;
     }
+
+    /**
+     * Parses a cursor token returned with a page of APIs
+     *
+     * @param cursor cursor token, or null
+     * @return the cursor, or null if no token is given
+     * @throws APIManagementException if the token is not a valid cursor
+     */
+    protected APICursor parseCursor(String cursor) throws APIManagementException {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            return APICursor.fromToken(cursor);
+        } catch (IllegalArgumentException e) {
+            String errorMsg = "Invalid cursor: " + cursor;
+            log.error(errorMsg, e);
+            throw new APIManagementException(errorMsg, e, ExceptionCodes.INVALID_PAGINATION_CURSOR);
+        }
+    }
 }
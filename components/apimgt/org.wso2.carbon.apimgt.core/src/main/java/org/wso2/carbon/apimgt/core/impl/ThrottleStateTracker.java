@@ -0,0 +1,388 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.core.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.apimgt.core.api.Broker;
+import org.wso2.carbon.apimgt.core.exception.BrokerException;
+import org.wso2.carbon.apimgt.core.util.BinaryMessageReader;
+import org.wso2.carbon.apimgt.core.util.BrokerUtil;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import javax.jms.BytesMessage;
+import javax.jms.JMSException;
+import javax.jms.MapMessage;
+import javax.jms.Message;
+import javax.jms.MessageFormatException;
+import javax.jms.Session;
+import javax.jms.Topic;
+import javax.jms.TopicConnection;
+import javax.jms.TopicSession;
+import javax.jms.TopicSubscriber;
+
+/**
+ * Keeps the throttle state published by the traffic manager, so that gateways which missed some of the throttle
+ * messages, such as after a broker disconnection, can load the complete state instead of waiting for the throttle
+ * windows to expire.
+ * <p>
+ * The state only holds the messages received since this node subscribed to the throttle topic. Throttle decisions
+ * published before expire with their throttle window, so the state is reported as ready only once the topic has been
+ * subscribed for a warm-up period, which should be at least the longest throttle window. Blocking conditions and key
+ * templates published before are not known until they are published again, so the gateways must merge them into the
+ * ones they have instead of replacing them.
+ * <p>
+ * The topic is subscribed on a dedicated scheduler thread. If the subscription fails or the connection is lost, it is
+ * retried with an exponential backoff, and the warm-up period starts again once it succeeds, as the messages
+ * published in the meantime are lost.
+ */
+public class ThrottleStateTracker {
+
+    private static final Logger log = LoggerFactory.getLogger(ThrottleStateTracker.class);
+
+    public static final String BLOCKING_CONDITIONS_API = "API";
+    public static final String BLOCKING_CONDITIONS_APPLICATION = "APPLICATION";
+    public static final String BLOCKING_CONDITIONS_USER = "USER";
+    public static final String BLOCKING_CONDITIONS_IP = "IP";
+
+    static final String THROTTLE_KEY = "throttleKey";
+    static final String IS_THROTTLED = "isThrottled";
+    static final String EXPIRY_TIMESTAMP = "expiryTimeStamp";
+    static final String BLOCKING_CONDITION_KEY = "blockingCondition";
+    static final String BLOCKING_CONDITION_VALUE = "conditionValue";
+    static final String BLOCKING_CONDITION_STATE = "state";
+    static final String POLICY_TEMPLATE_KEY = "keyTemplateValue";
+    static final String TEMPLATE_KEY_STATE = "keyTemplateState";
+    static final String TRUE = "true";
+    static final String ADD = "add";
+
+    private static final long INITIAL_RETRY_INTERVAL_MILLIS = 1000;
+    private static final long MAX_RETRY_INTERVAL_MILLIS = 60000;
+    private static final double RETRY_JITTER = 0.2;
+
+    private static final ThrottleStateTracker instance = new ThrottleStateTracker();
+
+    private final Map<String, Long> throttleKeys = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> blockingConditions = new ConcurrentHashMap<>();
+    private final Set<String> keyTemplates = ConcurrentHashMap.newKeySet();
+
+    private final long initialRetryIntervalMillis;
+    private final long maxRetryIntervalMillis;
+
+    private Broker broker;
+    private String topicName;
+    private long warmUpMillis;
+    private volatile ScheduledExecutorService scheduler;
+    private volatile boolean running;
+
+    // Accessed on the scheduler thread only
+    private TopicConnection topicConnection;
+    private int connectAttempts = 0;
+
+    // Time the topic was subscribed at, or 0 while it is not subscribed
+    private volatile long subscribedAt = 0;
+
+    ThrottleStateTracker() {
+        this(INITIAL_RETRY_INTERVAL_MILLIS, MAX_RETRY_INTERVAL_MILLIS);
+    }
+
+    /**
+     * @param initialRetryIntervalMillis time to wait before the first retry to subscribe
+     * @param maxRetryIntervalMillis     maximum time to wait between two retries to subscribe
+     */
+    ThrottleStateTracker(long initialRetryIntervalMillis, long maxRetryIntervalMillis) {
+        this.initialRetryIntervalMillis = initialRetryIntervalMillis;
+        this.maxRetryIntervalMillis = maxRetryIntervalMillis;
+    }
+
+    public static ThrottleStateTracker getInstance() {
+        return instance;
+    }
+
+    /**
+     * Subscribes to the throttle messages published by the traffic manager in the background.
+     *
+     * @param broker       broker the messages are published to
+     * @param topicName    name of the throttle topic
+     * @param warmUpMillis time the topic has to be subscribed for before the state is reported as ready
+     */
+    public synchronized void start(Broker broker, String topicName, long warmUpMillis) {
+        if (running) {
+            return;
+        }
+        this.broker = broker;
+        this.topicName = topicName;
+        this.warmUpMillis = warmUpMillis;
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ThrottleStateTracker-" + topicName);
+            thread.setDaemon(true);
+            return thread;
+        });
+        running = true;
+        scheduler.execute(this::connect);
+    }
+
+    /**
+     * Stops receiving throttle messages.
+     */
+    public synchronized void stop() {
+        running = false;
+        subscribedAt = 0;
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            try {
+                scheduler.awaitTermination(MAX_RETRY_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            scheduler = null;
+        }
+        closeConnection();
+    }
+
+    /**
+     * @return whether the topic has been subscribed for the warm-up period without losing the connection, so that
+     * the state holds all the throttle decisions that have not expired
+     */
+    public boolean isReady() {
+        long since = subscribedAt;
+        return since > 0 && System.currentTimeMillis() - since >= warmUpMillis;
+    }
+
+    /**
+     * @param attempt number of the retry, starting from 0
+     * @return time to wait before the given retry, doubling with each retry up to the maximum, with a random jitter
+     */
+    long getRetryInterval(int attempt) {
+        long interval = initialRetryIntervalMillis << Math.min(attempt, 30);
+        if (interval <= 0 || interval > maxRetryIntervalMillis) {
+            interval = maxRetryIntervalMillis;
+        }
+        double jitter = 1 + RETRY_JITTER * (2 * ThreadLocalRandom.current().nextDouble() - 1);
+        return Math.max(1, (long) (interval * jitter));
+    }
+
+    private void connect() {
+        if (!running) {
+            return;
+        }
+        TopicConnection connection = null;
+        try {
+            connection = broker.getTopicConnection();
+            TopicConnection failedConnection = connection;
+            connection.setExceptionListener(e -> execute(() -> onConnectionFailure(failedConnection, e)));
+            TopicSession session = connection.createTopicSession(false, Session.AUTO_ACKNOWLEDGE);
+            Topic topic = session.createTopic(topicName);
+            TopicSubscriber topicSubscriber = session.createSubscriber(topic);
+            topicSubscriber.setMessageListener(this::onMessage);
+            connection.start();
+        } catch (JMSException | BrokerException | RuntimeException e) {
+            closeQuietly(connection);
+            long retryInterval = getRetryInterval(connectAttempts++);
+            log.error("Error occurred while subscribing to throttle topic : " + topicName + ". Retrying in "
+                    + retryInterval + "ms", e);
+            schedule(this::connect, retryInterval);
+            return;
+        }
+        topicConnection = connection;
+        connectAttempts = 0;
+        subscribedAt = System.currentTimeMillis();
+        log.info("Subscribed to throttle topic : " + topicName + ". The throttle state is served to the gateways "
+                + "after " + warmUpMillis + "ms");
+    }
+
+    private void onConnectionFailure(TopicConnection failedConnection, JMSException e) {
+        if (failedConnection != topicConnection) {
+            return;
+        }
+        // Messages published from now on are missed, so the state is not served until the warm-up period has passed
+        // again after subscribing
+        subscribedAt = 0;
+        closeConnection();
+        long retryInterval = getRetryInterval(connectAttempts++);
+        log.error("Connection to the throttle topic " + topicName + " failed. The throttle state is not served to "
+                + "the gateways until it is restored. Retrying in " + retryInterval + "ms", e);
+        schedule(this::connect, retryInterval);
+    }
+
+    private void execute(Runnable task) {
+        ScheduledExecutorService currentScheduler = scheduler;
+        if (currentScheduler != null) {
+            try {
+                currentScheduler.execute(task);
+            } catch (RejectedExecutionException e) {
+                // Stopped
+            }
+        }
+    }
+
+    private void schedule(Runnable task, long delayMillis) {
+        ScheduledExecutorService currentScheduler = scheduler;
+        if (currentScheduler != null) {
+            try {
+                currentScheduler.schedule(task, delayMillis, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // Stopped
+            }
+        }
+    }
+
+    private void closeConnection() {
+        closeQuietly(topicConnection);
+        topicConnection = null;
+    }
+
+    private static void closeQuietly(TopicConnection connection) {
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (JMSException e) {
+                log.error("Error occurred while closing the throttle topic connection", e);
+            }
+        }
+    }
+
+    /**
+     * @return throttled keys whose throttle window has not expired, with the time it expires at
+     */
+    public Map<String, Long> getThrottleKeys() {
+        long now = System.currentTimeMillis();
+        throttleKeys.values().removeIf(expiryTime -> expiryTime <= now);
+        return new HashMap<>(throttleKeys);
+    }
+
+    /**
+     * @param conditionType type of the blocking conditions, such as API or IP
+     * @return values of the enabled blocking conditions of the type
+     */
+    public Set<String> getBlockingConditions(String conditionType) {
+        Set<String> values = blockingConditions.get(conditionType);
+        return values != null ? new HashSet<>(values) : Collections.emptySet();
+    }
+
+    /**
+     * @return key templates of the custom policies
+     */
+    public Set<String> getKeyTemplates() {
+        return new HashSet<>(keyTemplates);
+    }
+
+    void onMessage(Message message) {
+        try {
+            if (message instanceof MapMessage) {
+                applyMapMessage((MapMessage) message);
+            } else if (message instanceof BytesMessage) {
+                BytesMessage bytesMessage = (BytesMessage) message;
+                byte[] body = new byte[(int) bytesMessage.getBodyLength()];
+                bytesMessage.readBytes(body);
+                applyBinaryMessage(body);
+            }
+        } catch (JMSException e) {
+            log.error("Error occurred while reading throttle message", e);
+        } catch (NumberFormatException e) {
+            log.error("Dropping the throttle message as its expiry time is not valid", e);
+        }
+    }
+
+    private void applyMapMessage(MapMessage message) throws JMSException {
+        String throttleKey = message.getString(THROTTLE_KEY);
+        if (throttleKey != null) {
+            applyThrottleDecision(throttleKey, TRUE.equalsIgnoreCase(message.getString(IS_THROTTLED)),
+                    Long.parseLong(message.getString(EXPIRY_TIMESTAMP)));
+            return;
+        }
+        String condition = message.getString(BLOCKING_CONDITION_KEY);
+        if (condition != null) {
+            applyBlockingCondition(condition, message.getString(BLOCKING_CONDITION_VALUE),
+                    TRUE.equals(message.getString(BLOCKING_CONDITION_STATE)));
+            return;
+        }
+        String keyTemplate = message.getString(POLICY_TEMPLATE_KEY);
+        if (keyTemplate != null) {
+            applyKeyTemplate(keyTemplate, ADD.equals(message.getString(TEMPLATE_KEY_STATE)));
+        }
+    }
+
+    private void applyBinaryMessage(byte[] body) throws MessageFormatException {
+        BinaryMessageReader reader = new BinaryMessageReader(body);
+        int version = reader.readByte();
+        if (version != BrokerUtil.BINARY_FORMAT_VERSION) {
+            throw new MessageFormatException("Unsupported binary message format version " + version);
+        }
+        switch (reader.readByte()) {
+            case BrokerUtil.THROTTLE_DECISION:
+                String throttleKey = reader.readString();
+                if (throttleKey != null) {
+                    applyThrottleDecision(throttleKey, reader.readBoolean(), reader.readVarLong());
+                }
+                break;
+            case BrokerUtil.BLOCKING_CONDITION:
+                applyBlockingCondition(reader.readString(), reader.readString(), reader.readBoolean());
+                break;
+            case BrokerUtil.KEY_TEMPLATE:
+                String keyTemplate = reader.readString();
+                if (keyTemplate != null) {
+                    applyKeyTemplate(keyTemplate, reader.readBoolean());
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void applyThrottleDecision(String throttleKey, boolean throttled, long expiryTime) {
+        if (throttled) {
+            throttleKeys.put(throttleKey, expiryTime);
+        } else {
+            throttleKeys.remove(throttleKey);
+        }
+    }
+
+    private void applyBlockingCondition(String condition, String conditionValue, boolean enabled) {
+        if (condition == null || conditionValue == null) {
+            return;
+        }
+        if (enabled) {
+            blockingConditions.computeIfAbsent(condition, type -> ConcurrentHashMap.newKeySet()).add(conditionValue);
+        } else {
+            Set<String> values = blockingConditions.get(condition);
+            if (values != null) {
+                values.remove(conditionValue);
+            }
+        }
+    }
+
+    private void applyKeyTemplate(String keyTemplate, boolean added) {
+        if (added) {
+            keyTemplates.add(keyTemplate);
+        } else {
+            keyTemplates.remove(keyTemplate);
+        }
+    }
+}
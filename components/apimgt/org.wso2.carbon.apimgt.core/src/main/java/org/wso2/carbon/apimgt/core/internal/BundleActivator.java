@@ -21,6 +21,7 @@
 package org.wso2.carbon.apimgt.core.internal;
 
 import com.zaxxer.hikari.HikariDataSource;
+import org.apache.commons.lang3.StringUtils;
 import org.osgi.framework.BundleContext;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
@@ -31,15 +32,25 @@ import org.osgi.service.jndi.JNDIContextManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wso2.carbon.apimgt.core.api.Broker;
+import org.wso2.carbon.apimgt.core.configuration.models.APIMConfigurations;
+import org.wso2.carbon.apimgt.core.dao.impl.APIModelCache;
+import org.wso2.carbon.apimgt.core.dao.impl.APISubscriptionDAOImpl;
+import org.wso2.carbon.apimgt.core.dao.impl.BinaryResourceCache;
 import org.wso2.carbon.apimgt.core.dao.impl.DAOUtil;
 import org.wso2.carbon.apimgt.core.dao.impl.DataSource;
 import org.wso2.carbon.apimgt.core.dao.impl.DataSourceImpl;
+import org.wso2.carbon.apimgt.core.dao.impl.ReferenceDataCache;
+import org.wso2.carbon.apimgt.core.exception.BrokerException;
+import org.wso2.carbon.apimgt.core.impl.APIModelCacheSynchronizer;
 import org.wso2.carbon.apimgt.core.impl.BrokerImpl;
+import org.wso2.carbon.apimgt.core.impl.ThrottleStateTracker;
 import org.wso2.carbon.apimgt.core.util.BrokerUtil;
 import org.wso2.carbon.apimgt.core.workflow.WorkflowExtensionsConfigBuilder;
 import org.wso2.carbon.datasource.core.api.DataSourceService;
 import org.wso2.carbon.kernel.configprovider.ConfigProvider;
 
+import java.util.concurrent.TimeUnit;
+import javax.jms.JMSException;
 import javax.naming.Context;
 import javax.naming.NamingException;
 
@@ -63,14 +74,49 @@ public class BundleActivator {
             Context ctx = jndiContextManager.newInitialContext();
             DataSource dataSource = new DataSourceImpl((HikariDataSource) ctx.lookup("java:comp/env/jdbc/WSO2AMDB"));
             DAOUtil.initialize(dataSource);
+            APIMConfigurations apimConfigurations = ServiceReferenceHolder.getInstance().getAPIMConfiguration();
+            ReferenceDataCache.getInstance().setTimeToLive(apimConfigurations.getReferenceDataCacheTimeout(),
+                    TimeUnit.SECONDS);
+            BinaryResourceCache.getInstance().setMaxSize(apimConfigurations.getResourceContentCacheSize() * 1024L
+                    * 1024L);
+            APISubscriptionDAOImpl.setRemovedSubscriptionRetention(
+                    apimConfigurations.getRemovedSubscriptionRetention(), TimeUnit.HOURS);
             WorkflowExtensionsConfigBuilder.build(configProvider);
             Broker broker = new BrokerImpl();
             BrokerUtil.initialize(broker);
+            initializeAPIModelCache(apimConfigurations, broker);
+            initializeThrottleStateTracker(apimConfigurations, broker);
         } catch (NamingException e) {
             log.error("Error occurred while jndi lookup", e);
         }
     }
 
+    private void initializeAPIModelCache(APIMConfigurations apimConfigurations, Broker broker) {
+        APIModelCache cache = APIModelCache.getInstance();
+        cache.setTimeToLive(apimConfigurations.getApiModelCacheTimeout(), TimeUnit.SECONDS);
+        String topicName = apimConfigurations.getApiModelCacheInvalidationTopic();
+        if (apimConfigurations.getApiModelCacheSize() > 0 && !StringUtils.isEmpty(topicName)) {
+            try {
+                new APIModelCacheSynchronizer(broker, topicName, cache).start();
+            } catch (JMSException | BrokerException e) {
+                // Changes made on the other nodes would not be noticed, so the cache is left disabled
+                log.error("Error occurred while subscribing to API model cache invalidation topic : " + topicName
+                        + ". The API model cache is disabled.", e);
+                return;
+            }
+        }
+        cache.setMaxEntries(apimConfigurations.getApiModelCacheSize());
+    }
+
+    private void initializeThrottleStateTracker(APIMConfigurations apimConfigurations, Broker broker) {
+        String topicName = apimConfigurations.getThrottleDataTopic();
+        if (StringUtils.isEmpty(topicName)) {
+            return;
+        }
+        ThrottleStateTracker.getInstance().start(broker, topicName,
+                TimeUnit.SECONDS.toMillis(apimConfigurations.getThrottleStateWarmUpPeriod()));
+    }
+
     @Reference (
             name = "org.wso2.carbon.datasource.DataSourceService",
             service = DataSourceService.class,
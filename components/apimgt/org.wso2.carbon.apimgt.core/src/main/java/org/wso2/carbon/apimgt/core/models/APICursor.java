@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.core.models;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position in a list of APIs ordered by name and UUID, used to retrieve the APIs after it without skipping rows in
+ * the database. It also carries the total number of APIs in the list, which is counted only for the first page.
+ * <p>
+ * Clients receive the cursor as an opaque token, which is passed back to retrieve the next page.
+ */
+public final class APICursor {
+
+    private static final String SEPARATOR = "\n";
+
+    private final String name;
+    private final String id;
+    private final long totalCount;
+
+    public APICursor(String name, String id, long totalCount) {
+        this.name = name;
+        this.id = id;
+        this.totalCount = totalCount;
+    }
+
+    /**
+     * @param token token returned by {@link #toToken()}
+     * @return cursor represented by the token
+     * @throws IllegalArgumentException if the token is not a valid cursor token
+     */
+    public static APICursor fromToken(String token) {
+        String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        // The name is the last field, so that it may contain the separator
+        String[] fields = value.split(SEPARATOR, 3);
+        if (fields.length != 3 || fields[1].isEmpty()) {
+            throw new IllegalArgumentException("Invalid API cursor: " + token);
+        }
+        return new APICursor(fields[2], fields[1], Long.parseLong(fields[0]));
+    }
+
+    /**
+     * @return URL safe token representing this cursor
+     */
+    public String toToken() {
+        String value = totalCount + SEPARATOR + id + SEPARATOR + name;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return name of the last API of the previous page
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return UUID of the last API of the previous page
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * @return total number of APIs in the list, as counted when the first page was retrieved
+     */
+    public long getTotalCount() {
+        return totalCount;
+    }
+}
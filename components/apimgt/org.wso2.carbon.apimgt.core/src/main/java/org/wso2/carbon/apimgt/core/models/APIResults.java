@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.core.models;
+
+import java.util.List;
+
+/**
+ * A page of APIs, with the cursor to retrieve the next page
+ */
+public final class APIResults {
+    private List<API> apiList;
+    private APICursor nextCursor;
+    private long totalCount;
+
+    public List<API> getApiList() {
+        return apiList;
+    }
+
+    public void setApiList(List<API> apiList) {
+        this.apiList = apiList;
+    }
+
+    /**
+     * @return cursor of the next page, or null if this is the last page
+     */
+    public APICursor getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(APICursor nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * @return total number of APIs in all the pages
+     */
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    public void setTotalCount(long totalCount) {
+        this.totalCount = totalCount;
+    }
+}
@@ -71,6 +71,10 @@ public class APISummary implements Serializable {
         this.uriTemplates = uriTemplates;
     }
 
+    public String getVersion() {
+        return version;
+    }
+
     public void setVersion(String version) {
         this.version = version;
     }
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.core.models;
+
+import java.util.List;
+
+/**
+ * Subscriptions which were added, updated or removed after a given revision, used by gateways to keep their
+ * subscription data up to date without retrieving all the subscriptions.
+ */
+public final class SubscriptionChanges {
+
+    private final long revision;
+    private final List<SubscriptionValidationData> subscriptions;
+    private final List<SubscriptionValidationData> removedSubscriptions;
+
+    public SubscriptionChanges(long revision, List<SubscriptionValidationData> subscriptions,
+                               List<SubscriptionValidationData> removedSubscriptions) {
+        this.revision = revision;
+        this.subscriptions = subscriptions;
+        this.removedSubscriptions = removedSubscriptions;
+    }
+
+    /**
+     * @return revision of the subscriptions up to which the changes are included, to be given when retrieving the
+     * next changes, or -1 if the changes after the requested revision are no longer available and all the
+     * subscriptions must be retrieved again
+     */
+    public long getRevision() {
+        return revision;
+    }
+
+    /**
+     * @return subscriptions which were added or updated
+     */
+    public List<SubscriptionValidationData> getSubscriptions() {
+        return subscriptions;
+    }
+
+    /**
+     * @return subscriptions which were removed. Only the API context, API version, consumer key and key type of
+     * these are set.
+     */
+    public List<SubscriptionValidationData> getRemovedSubscriptions() {
+        return removedSubscriptions;
+    }
+}
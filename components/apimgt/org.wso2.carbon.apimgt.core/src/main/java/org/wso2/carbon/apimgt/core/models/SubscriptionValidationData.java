@@ -35,6 +35,7 @@ public final class SubscriptionValidationData {
     private String applicationOwner;
     private String keyAuthType;
     private String keyEnvType;
+    private String subscriptionId;
 
     public SubscriptionValidationData(String apiContext, String apiVersion, String consumerKey) {
         this.apiContext = apiContext;
@@ -109,4 +110,12 @@ public final class SubscriptionValidationData {
     public void setKeyEnvType(String keyEnvType) {
         this.keyEnvType = keyEnvType;
     }
+
+    public String getSubscriptionId() {
+        return subscriptionId;
+    }
+
+    public void setSubscriptionId(String subscriptionId) {
+        this.subscriptionId = subscriptionId;
+    }
 }
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.core.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+import javax.jms.MessageFormatException;
+
+/**
+ * Reads the fields of a binary broker message, written by {@link BinaryMessageWriter}.
+ *
+ * @see BrokerUtil
+ */
+public final class BinaryMessageReader {
+
+    private static final int MAX_VAR_LONG_BYTES = 10;
+
+    private final byte[] data;
+    private int position;
+
+    public BinaryMessageReader(byte[] data) {
+        this.data = data;
+    }
+
+    public int readByte() throws MessageFormatException {
+        if (position >= data.length) {
+            throw new MessageFormatException("Unexpected end of the binary message at " + position);
+        }
+        return data[position++] & 0xFF;
+    }
+
+    public boolean readBoolean() throws MessageFormatException {
+        return readByte() != 0;
+    }
+
+    public long readVarLong() throws MessageFormatException {
+        long value = 0;
+        for (int i = 0; i < MAX_VAR_LONG_BYTES; i++) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << (7 * i);
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new MessageFormatException("Invalid variable length integer in the binary message at " + position);
+    }
+
+    public Long readNullableLong() throws MessageFormatException {
+        if (!readBoolean()) {
+            return null;
+        }
+        long zigzag = readVarLong();
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+
+    public String readString() throws MessageFormatException {
+        int length = readLength();
+        if (length < 0) {
+            return null;
+        }
+        if (length > data.length - position) {
+            throw new MessageFormatException("String of " + length + " bytes exceeds the binary message at "
+                    + position);
+        }
+        String value = new String(data, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return value;
+    }
+
+    public Set<String> readStrings() throws MessageFormatException {
+        int size = readLength();
+        if (size < 0) {
+            return null;
+        }
+        Set<String> values = new HashSet<>();
+        for (int i = 0; i < size; i++) {
+            values.add(readString());
+        }
+        return values;
+    }
+
+    /**
+     * @return length of a string or collection, or -1 if the value is null
+     */
+    public int readLength() throws MessageFormatException {
+        long length = readVarLong() - 1;
+        if (length > data.length) {
+            throw new MessageFormatException("Invalid length " + length + " in the binary message at " + position);
+        }
+        return (int) length;
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.core.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Writes the fields of a binary broker message. Numbers are written as variable length integers (7 bits per byte,
+ * least significant group first), and strings as their UTF-8 bytes prefixed with the length. The length of a string
+ * or collection is written plus one, so that a null value is written as 0.
+ *
+ * @see BrokerUtil
+ */
+final class BinaryMessageWriter {
+
+    private static final int INITIAL_CAPACITY = 128;
+
+    private byte[] buffer = new byte[INITIAL_CAPACITY];
+    private int size;
+
+    BinaryMessageWriter writeByte(int value) {
+        ensureCapacity(1);
+        buffer[size++] = (byte) value;
+        return this;
+    }
+
+    BinaryMessageWriter writeBoolean(boolean value) {
+        return writeByte(value ? 1 : 0);
+    }
+
+    /**
+     * Writes a number as an unsigned variable length integer.
+     */
+    BinaryMessageWriter writeVarLong(long value) {
+        ensureCapacity(10);
+        long remaining = value;
+        while ((remaining & ~0x7FL) != 0) {
+            buffer[size++] = (byte) ((remaining & 0x7F) | 0x80);
+            remaining >>>= 7;
+        }
+        buffer[size++] = (byte) remaining;
+        return this;
+    }
+
+    /**
+     * Writes a number which may be negative or null, as a presence flag followed by the zigzag encoded value, so
+     * that numbers close to zero take a single byte.
+     */
+    BinaryMessageWriter writeNullableLong(Long value) {
+        writeBoolean(value != null);
+        if (value != null) {
+            writeVarLong((value << 1) ^ (value >> 63));
+        }
+        return this;
+    }
+
+    BinaryMessageWriter writeString(String value) {
+        if (value == null) {
+            return writeVarLong(0);
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(bytes.length + 1L);
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, size, bytes.length);
+        size += bytes.length;
+        return this;
+    }
+
+    BinaryMessageWriter writeStrings(Collection<String> values) {
+        writeLength(values);
+        if (values == null) {
+            return this;
+        }
+        for (String value : values) {
+            writeString(value);
+        }
+        return this;
+    }
+
+    /**
+     * Writes the size of a collection, whose elements are written by the caller.
+     */
+    BinaryMessageWriter writeLength(Collection<?> values) {
+        return writeVarLong(values == null ? 0 : values.size() + 1L);
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf(buffer, size);
+    }
+
+    private void ensureCapacity(int length) {
+        if (size + length > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + length));
+        }
+    }
+}
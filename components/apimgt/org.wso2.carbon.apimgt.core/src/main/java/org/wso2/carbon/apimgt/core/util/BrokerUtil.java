@@ -22,26 +22,65 @@ import com.google.gson.Gson;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wso2.carbon.apimgt.core.api.Broker;
+import org.wso2.carbon.apimgt.core.dto.APIDTO;
+import org.wso2.carbon.apimgt.core.dto.EndpointDTO;
 import org.wso2.carbon.apimgt.core.dto.GatewayDTO;
 import org.wso2.carbon.apimgt.core.exception.BrokerException;
 import org.wso2.carbon.apimgt.core.exception.ExceptionCodes;
 import org.wso2.carbon.apimgt.core.exception.GatewayException;
+import org.wso2.carbon.apimgt.core.models.APISummary;
+import org.wso2.carbon.apimgt.core.models.Endpoint;
+import org.wso2.carbon.apimgt.core.models.SubscriptionValidationData;
+import org.wso2.carbon.apimgt.core.models.UriTemplate;
 
+import java.util.List;
+import java.util.Map;
+import javax.jms.BytesMessage;
 import javax.jms.JMSException;
+import javax.jms.Message;
 import javax.jms.Session;
-import javax.jms.TextMessage;
 import javax.jms.Topic;
 import javax.jms.TopicConnection;
 import javax.jms.TopicPublisher;
 import javax.jms.TopicSession;
 
 /**
- * The util class to handle broker related operations
+ * The util class to handle broker related operations.
+ * <p>
+ * Messages are published as JSON text messages, or in a compact binary format as bytes messages. A binary message
+ * starts with the format version and the message type, each in one byte, followed by the fields of the message in a
+ * fixed order. Numbers are written as variable length integers and strings are prefixed with their length, see
+ * {@link BinaryMessageWriter}. Fields are only ever added to the end of a message type; any other change to the
+ * layout is made under a new format version.
  */
 public class BrokerUtil {
     private static final Logger log = LoggerFactory.getLogger(BrokerUtil.class);
+    private static final Gson gson = new Gson();
     private static Broker broker;
 
+    public static final int BINARY_FORMAT_VERSION = 1;
+    public static final int API_EVENT = 1;
+    public static final int ENDPOINT_EVENT = 2;
+    public static final int SUBSCRIPTION_EVENT = 3;
+    public static final int THROTTLE_DECISION = 4;
+    public static final int BLOCKING_CONDITION = 5;
+    public static final int KEY_TEMPLATE = 6;
+
+    /**
+     * Format of the messages published to broker topics
+     */
+    public enum MessageFormat {
+        JSON, BINARY;
+
+        /**
+         * @param value name of the format, case insensitive
+         * @return the format of the given name, or JSON if the name is not known
+         */
+        public static MessageFormat fromString(String value) {
+            return BINARY.name().equalsIgnoreCase(value) ? BINARY : JSON;
+        }
+    }
+
     /**
      * Initialize Broker Utils
      *
@@ -55,12 +94,25 @@ public class BrokerUtil {
     }
 
     /**
-     * Publish to broker topic
+     * Publish to broker topic as a JSON message
      *
      * @param topicName     publishing topic name
      * @param gatewayDTO    topic message data object
      */
     public static void publishToTopic(String topicName, GatewayDTO gatewayDTO) throws GatewayException {
+        publishToTopic(topicName, gatewayDTO, MessageFormat.JSON);
+    }
+
+    /**
+     * Publish to broker topic. Events which cannot be encoded in the binary format (see
+     * {@link #encodeGatewayEvent(GatewayDTO)}) are published as JSON messages.
+     *
+     * @param topicName     publishing topic name
+     * @param gatewayDTO    topic message data object
+     * @param messageFormat format of the message
+     */
+    public static void publishToTopic(String topicName, GatewayDTO gatewayDTO, MessageFormat messageFormat)
+            throws GatewayException {
         TopicSession topicSession = null;
         Topic topic = null;
         TopicPublisher topicPublisher = null;
@@ -71,8 +123,15 @@ public class BrokerUtil {
 
             topic = topicSession.createTopic(topicName);
             topicPublisher = topicSession.createPublisher(topic);
-            TextMessage textMessage = topicSession.createTextMessage(new Gson().toJson(gatewayDTO));
-            topicPublisher.publish(textMessage);
+            Message message;
+            if (messageFormat == MessageFormat.BINARY && isBinaryEncodable(gatewayDTO)) {
+                BytesMessage bytesMessage = topicSession.createBytesMessage();
+                bytesMessage.writeBytes(encodeGatewayEvent(gatewayDTO));
+                message = bytesMessage;
+            } else {
+                message = topicSession.createTextMessage(gson.toJson(gatewayDTO));
+            }
+            topicPublisher.publish(message);
         } catch (JMSException e) {
             String errorMessage = "Error occurred while publishing " + gatewayDTO.getEventType() + " event to JMS " +
                     "topic :" + topicName;
@@ -108,6 +167,130 @@ public class BrokerUtil {
         }
     }
 
+    /**
+     * @param gatewayDTO gateway event
+     * @return true if the event can be encoded in the binary format
+     */
+    public static boolean isBinaryEncodable(GatewayDTO gatewayDTO) {
+        return gatewayDTO instanceof APIDTO || gatewayDTO instanceof EndpointDTO;
+    }
+
+    /**
+     * Encodes an API or endpoint event in the binary format. Events of APIs hold the ID, name, context and version
+     * of the API along with its URI templates and their endpoints. Subscription events carry the whole API and
+     * application, so they are only published as JSON.
+     *
+     * @param gatewayDTO API or endpoint event
+     * @return encoded event
+     */
+    public static byte[] encodeGatewayEvent(GatewayDTO gatewayDTO) {
+        BinaryMessageWriter writer = new BinaryMessageWriter().writeByte(BINARY_FORMAT_VERSION);
+        if (gatewayDTO instanceof APIDTO) {
+            writer.writeByte(API_EVENT).writeString(gatewayDTO.getEventType()).writeStrings(gatewayDTO.getLabels());
+            APISummary apiSummary = ((APIDTO) gatewayDTO).getApiSummary();
+            writer.writeBoolean(apiSummary != null);
+            if (apiSummary != null) {
+                writer.writeString(apiSummary.getId()).writeString(apiSummary.getName())
+                        .writeString(apiSummary.getContext()).writeString(apiSummary.getVersion());
+                writeUriTemplates(writer, apiSummary.getUriTemplates());
+            }
+        } else if (gatewayDTO instanceof EndpointDTO) {
+            writer.writeByte(ENDPOINT_EVENT).writeString(gatewayDTO.getEventType())
+                    .writeStrings(gatewayDTO.getLabels());
+            writeEndpoint(writer, ((EndpointDTO) gatewayDTO).getEndpoint());
+        } else {
+            throw new IllegalArgumentException("Events of type " + gatewayDTO.getClass().getSimpleName()
+                    + " cannot be encoded in the binary format");
+        }
+        return writer.toByteArray();
+    }
+
+    /**
+     * Writes the URI templates of an API, each with the endpoints of the template keyed by their type.
+     */
+    private static void writeUriTemplates(BinaryMessageWriter writer, List<UriTemplate> uriTemplates) {
+        writer.writeLength(uriTemplates);
+        if (uriTemplates == null) {
+            return;
+        }
+        for (UriTemplate uriTemplate : uriTemplates) {
+            writer.writeString(uriTemplate.getTemplateId()).writeString(uriTemplate.getUriTemplate())
+                    .writeString(uriTemplate.getHttpVerb()).writeString(uriTemplate.getAuthType())
+                    .writeString(uriTemplate.getPolicy());
+            Map<String, Endpoint> endpoints = uriTemplate.getEndpoint();
+            writer.writeLength(endpoints == null ? null : endpoints.keySet());
+            if (endpoints != null) {
+                for (Map.Entry<String, Endpoint> entry : endpoints.entrySet()) {
+                    writer.writeString(entry.getKey());
+                    writeEndpoint(writer, entry.getValue());
+                }
+            }
+        }
+    }
+
+    private static void writeEndpoint(BinaryMessageWriter writer, Endpoint endpoint) {
+        writer.writeBoolean(endpoint != null);
+        if (endpoint != null) {
+            writer.writeString(endpoint.getId()).writeString(endpoint.getName()).writeString(endpoint.getType())
+                    .writeString(endpoint.getEndpointConfig()).writeString(endpoint.getSecurity())
+                    .writeString(endpoint.getApplicableLevel()).writeNullableLong(endpoint.getMaxTps());
+        }
+    }
+
+    /**
+     * Encodes a subscription event for the gateways in the binary format.
+     *
+     * @param action         action of the event, such as new or removed
+     * @param subscription   subscription along with the key of the application
+     * @return encoded event
+     */
+    public static byte[] encodeSubscriptionEvent(String action, SubscriptionValidationData subscription) {
+        return new BinaryMessageWriter().writeByte(BINARY_FORMAT_VERSION).writeByte(SUBSCRIPTION_EVENT)
+                .writeString(action).writeString(subscription.getApiContext())
+                .writeString(subscription.getApiVersion()).writeString(subscription.getApiProvider())
+                .writeString(subscription.getConsumerKey()).writeString(subscription.getSubscriptionPolicy())
+                .writeString(subscription.getApplicationName()).writeString(subscription.getApplicationOwner())
+                .writeString(subscription.getKeyEnvType()).toByteArray();
+    }
+
+    /**
+     * Encodes a throttle decision in the binary format.
+     *
+     * @param throttleKey throttle key
+     * @param throttled   whether the key is throttled
+     * @param expiryTime  time the throttle window of the key expires, in milliseconds
+     * @return encoded decision
+     */
+    public static byte[] encodeThrottleDecision(String throttleKey, boolean throttled, long expiryTime) {
+        return new BinaryMessageWriter().writeByte(BINARY_FORMAT_VERSION).writeByte(THROTTLE_DECISION)
+                .writeString(throttleKey).writeBoolean(throttled).writeVarLong(expiryTime).toByteArray();
+    }
+
+    /**
+     * Encodes a blocking condition update in the binary format.
+     *
+     * @param condition      type of the blocking condition, such as API or IP
+     * @param conditionValue value of the blocking condition
+     * @param enabled        whether the condition is enabled or removed
+     * @return encoded update
+     */
+    public static byte[] encodeBlockingCondition(String condition, String conditionValue, boolean enabled) {
+        return new BinaryMessageWriter().writeByte(BINARY_FORMAT_VERSION).writeByte(BLOCKING_CONDITION)
+                .writeString(condition).writeString(conditionValue).writeBoolean(enabled).toByteArray();
+    }
+
+    /**
+     * Encodes a key template update in the binary format.
+     *
+     * @param keyTemplate key template of a custom policy
+     * @param added       whether the template is added or removed
+     * @return encoded update
+     */
+    public static byte[] encodeKeyTemplate(String keyTemplate, boolean added) {
+        return new BinaryMessageWriter().writeByte(BINARY_FORMAT_VERSION).writeByte(KEY_TEMPLATE)
+                .writeString(keyTemplate).writeBoolean(added).toByteArray();
+    }
+
     /**
      * Retrieve a new TopicConnection from broker connection pool
      *
@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.core.dao.impl;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.apimgt.core.SampleTestObjectCreator;
+import org.wso2.carbon.apimgt.core.api.APIStore;
+import org.wso2.carbon.apimgt.core.dao.ApiDAO;
+import org.wso2.carbon.apimgt.core.impl.APIGatewayPublisherImpl;
+import org.wso2.carbon.apimgt.core.impl.APIStoreImpl;
+import org.wso2.carbon.apimgt.core.impl.GatewaySourceGeneratorImpl;
+import org.wso2.carbon.apimgt.core.models.API;
+import org.wso2.carbon.apimgt.core.models.Event;
+import org.wso2.carbon.apimgt.core.util.APIMgtConstants;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+public class APIModelCacheIT extends DAOIntegrationTestBase {
+
+    private static final String ADMIN = "admin";
+    private static final int REQUESTS = 50;
+
+    @AfterMethod
+    public void resetCache() {
+        APIModelCache cache = APIModelCache.getInstance();
+        cache.setMaxEntries(0);
+        cache.setTimeToLive(0, TimeUnit.SECONDS);
+        cache.setInvalidationListener(null);
+        cache.invalidateLocally(null);
+    }
+
+    @Test(description = "Compare the database queries of repeated API reads with and without the cache")
+    public void testRepeatedReadsAreServedFromCache() throws Exception {
+        ApiDAO apiDAO = DAOFactory.getApiDAO();
+        API api = SampleTestObjectCreator.createDefaultAPI()
+                .gatewayConfig(SampleTestObjectCreator.createAlternativeGatewayConfig()).build();
+        apiDAO.addAPI(api);
+        APIStore apiStore = createAPIStore(apiDAO);
+        APIModelCache cache = APIModelCache.getInstance();
+
+        CountingDataSource countingDataSource = new CountingDataSource(dataSource);
+        DAOUtil.clearDataSource();
+        DAOUtil.initialize(countingDataSource);
+        try {
+            // Changing the data source discards the cached reference data, which is loaded by the first retrieval
+            apiStore.getAPIbyUUID(api.getId());
+            countingDataSource.reset();
+            readAPI(apiStore, api.getId());
+            int statementsWithoutCache = countingDataSource.getStatementCount();
+            Assert.assertTrue(statementsWithoutCache >= REQUESTS * 5);
+
+            cache.setMaxEntries(100);
+            long misses = cache.getMissCount();
+            long hits = cache.getHitCount();
+            countingDataSource.reset();
+            readAPI(apiStore, api.getId());
+            int statementsWithCache = countingDataSource.getStatementCount();
+            // Each value is only loaded by the first request
+            Assert.assertTrue(statementsWithCache * REQUESTS <= statementsWithoutCache,
+                    "Statements without cache: " + statementsWithoutCache + ", with cache: " + statementsWithCache);
+            Assert.assertEquals(cache.getMissCount() - misses, 5);
+            Assert.assertEquals(cache.getHitCount() - hits, (REQUESTS - 1) * 5);
+            Assert.assertTrue(cache.getHitRate() > 0);
+            Assert.assertEquals(apiStore.getAPIbyUUID(api.getId()).getId(), api.getId());
+        } finally {
+            DAOUtil.clearDataSource();
+            DAOUtil.initialize(dataSource);
+        }
+    }
+
+    @Test(description = "Read the changed values after the API is updated through the DAO")
+    public void testChangesInvalidateCache() throws Exception {
+        ApiDAO apiDAO = DAOFactory.getApiDAO();
+        API api = SampleTestObjectCreator.createDefaultAPI()
+                .gatewayConfig(SampleTestObjectCreator.createAlternativeGatewayConfig()).build();
+        apiDAO.addAPI(api);
+        APIStore apiStore = createAPIStore(apiDAO);
+        APIModelCache cache = APIModelCache.getInstance();
+        cache.setMaxEntries(100);
+        List<String> invalidatedIds = new ArrayList<>();
+        cache.setInvalidationListener(invalidatedIds::add);
+
+        Assert.assertEquals(apiStore.getAPIbyUUID(api.getId()).getDescription(), api.getDescription());
+        API updatedAPI = new API.APIBuilder(api).description("Updated description").build();
+        apiDAO.updateAPI(api.getId(), updatedAPI);
+        Assert.assertEquals(apiStore.getAPIbyUUID(api.getId()).getDescription(), "Updated description");
+
+        apiStore.getSwagger20Definition(api.getId());
+        String swagger = SampleTestObjectCreator.createAlternativeSwaggerDefinition();
+        apiDAO.updateSwaggerDefinition(api.getId(), swagger, ADMIN);
+        Assert.assertEquals(apiStore.getSwagger20Definition(api.getId()), swagger);
+
+        apiStore.getApiGatewayConfig(api.getId());
+        apiDAO.updateGatewayConfig(api.getId(), "updated gateway config", ADMIN);
+        Assert.assertEquals(apiStore.getApiGatewayConfig(api.getId()), "updated gateway config");
+
+        Assert.assertEquals(invalidatedIds, Collections.nCopies(3, api.getId()));
+    }
+
+    @Test(description = "Invalidate the values of an API on events and on messages from other nodes")
+    public void testEventsAndRemoteInvalidations() throws Exception {
+        ApiDAO apiDAO = DAOFactory.getApiDAO();
+        API api = SampleTestObjectCreator.createDefaultAPI().build();
+        apiDAO.addAPI(api);
+        APIStore apiStore = createAPIStore(apiDAO);
+        APIModelCache cache = APIModelCache.getInstance();
+        cache.setMaxEntries(100);
+        List<String> invalidatedIds = new ArrayList<>();
+        cache.setInvalidationListener(invalidatedIds::add);
+
+        apiStore.getAPIbyUUID(api.getId());
+        Assert.assertEquals(cache.size(), 1);
+        cache.captureEvent(Event.API_UPDATE, ADMIN, ZonedDateTime.now(),
+                Collections.singletonMap(APIMgtConstants.FunctionsConstants.API_ID, api.getId()));
+        Assert.assertEquals(cache.size(), 0);
+
+        apiStore.getAPIbyUUID(api.getId());
+        cache.invalidateLocally(api.getId());
+        Assert.assertEquals(cache.size(), 0);
+        // Neither events nor invalidations received from other nodes are published again
+        Assert.assertTrue(invalidatedIds.isEmpty());
+    }
+
+    @Test(description = "Do not cache a value loaded while the values of its API are invalidated")
+    public void testValueLoadedDuringInvalidationIsNotCached() throws Exception {
+        APIModelCache cache = APIModelCache.getInstance();
+        cache.setMaxEntries(100);
+        String apiId = UUID.randomUUID().toString();
+
+        String value = cache.get(APIModelCache.Type.API_LAST_UPDATED_TIME, apiId, () -> {
+            cache.invalidateLocally(apiId);
+            return "stale";
+        });
+        Assert.assertEquals(value, "stale");
+        Assert.assertEquals(cache.size(), 0);
+        Assert.assertEquals(cache.get(APIModelCache.Type.API_LAST_UPDATED_TIME, apiId, () -> "current"), "current");
+        Assert.assertEquals(cache.get(APIModelCache.Type.API_LAST_UPDATED_TIME, apiId, () -> "reloaded"), "current");
+    }
+
+    @Test(description = "Evict the least recently used values when the cache is full")
+    public void testCacheIsBounded() throws Exception {
+        ApiDAO apiDAO = DAOFactory.getApiDAO();
+        APIStore apiStore = createAPIStore(apiDAO);
+        APIModelCache cache = APIModelCache.getInstance();
+        cache.setMaxEntries(3);
+        long evictions = cache.getEvictionCount();
+        for (int i = 0; i < 5; i++) {
+            API api = SampleTestObjectCreator.createUniqueAPI().build();
+            apiDAO.addAPI(api);
+            apiStore.getAPIbyUUID(api.getId());
+        }
+        Assert.assertEquals(cache.size(), 3);
+        Assert.assertEquals(cache.getEvictionCount() - evictions, 2);
+    }
+
+    @Test(description = "Reload a value after the time to live elapses")
+    public void testValuesExpire() throws Exception {
+        ApiDAO apiDAO = DAOFactory.getApiDAO();
+        API api = SampleTestObjectCreator.createDefaultAPI().build();
+        apiDAO.addAPI(api);
+        APIStore apiStore = createAPIStore(apiDAO);
+        APIModelCache cache = APIModelCache.getInstance();
+        cache.setMaxEntries(100);
+        cache.setTimeToLive(50, TimeUnit.MILLISECONDS);
+        long misses = cache.getMissCount();
+
+        apiStore.getLastUpdatedTimeOfAPI(api.getId());
+        apiStore.getLastUpdatedTimeOfAPI(api.getId());
+        Assert.assertEquals(cache.getMissCount() - misses, 1);
+        Thread.sleep(100);
+        apiStore.getLastUpdatedTimeOfAPI(api.getId());
+        Assert.assertEquals(cache.getMissCount() - misses, 2);
+    }
+
+    private static APIStore createAPIStore(ApiDAO apiDAO) throws Exception {
+        return new APIStoreImpl(ADMIN, null, apiDAO, DAOFactory.getApplicationDAO(), DAOFactory.getAPISubscriptionDAO(),
+                DAOFactory.getPolicyDAO(), DAOFactory.getTagDAO(), DAOFactory.getLabelDAO(),
+                DAOFactory.getWorkflowDAO(), new GatewaySourceGeneratorImpl(), new APIGatewayPublisherImpl());
+    }
+
+    private static void readAPI(APIStore apiStore, String apiId) throws Exception {
+        for (int i = 0; i < REQUESTS; i++) {
+            apiStore.getLastUpdatedTimeOfAPI(apiId);
+            apiStore.getAPIbyUUID(apiId);
+            apiStore.getLastUpdatedTimeOfSwaggerDefinition(apiId);
+            apiStore.getSwagger20Definition(apiId);
+            apiStore.getApiGatewayConfig(apiId);
+        }
+    }
+}
@@ -32,6 +32,8 @@ import org.wso2.carbon.apimgt.core.dao.ApiType;
 import org.wso2.carbon.apimgt.core.dao.LabelDAO;
 import org.wso2.carbon.apimgt.core.exception.APIMgtDAOException;
 import org.wso2.carbon.apimgt.core.models.API;
+import org.wso2.carbon.apimgt.core.models.APICursor;
+import org.wso2.carbon.apimgt.core.models.APIResults;
 import org.wso2.carbon.apimgt.core.models.APIStatus;
 import org.wso2.carbon.apimgt.core.models.Comment;
 import org.wso2.carbon.apimgt.core.models.DocumentInfo;
@@ -44,10 +46,15 @@ import org.wso2.carbon.apimgt.core.util.APIUtils;
 import org.wso2.carbon.apimgt.core.util.ETagUtils;
 import org.wso2.carbon.apimgt.core.util.EndPointComparator;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Base64;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -55,6 +62,11 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 public class ApiDAOImplIT extends DAOIntegrationTestBase {
     private static final String ADMIN = "admin";
@@ -394,6 +406,52 @@ public class ApiDAOImplIT extends DAOIntegrationTestBase {
         Assert.assertTrue(api.equals(apiFromDB), TestUtil.printDiff(api, apiFromDB));
     }
 
+    @Test(description = "Test retrieving APIs with a fixed number of queries irrespective of the number of APIs")
+    public void testGetAPIsWithBatchedQueries() throws Exception {
+        ApiDAO apiDAO = DAOFactory.getApiDAO();
+        testAddGetEndpoint();
+        API defaultAPI = SampleTestObjectCreator.createDefaultAPI().build();
+        apiDAO.addAPI(defaultAPI);
+        List<API> apis = new ArrayList<>();
+        apis.add(defaultAPI);
+        for (int i = 0; i < 3; i++) {
+            API api = SampleTestObjectCreator.createUniqueAPI().build();
+            apiDAO.addAPI(api);
+            apis.add(0, api);
+        }
+        List<String> apiIDs = new ArrayList<>();
+        for (API api : apis) {
+            apiIDs.add(api.getId());
+        }
+        apiIDs.add(UUID.randomUUID().toString());
+
+        CountingDataSource countingDataSource = new CountingDataSource(dataSource);
+        DAOUtil.clearDataSource();
+        DAOUtil.initialize(countingDataSource);
+        try {
+            // Changing the data source discards the cached reference data, which is loaded by the first retrieval
+            apiDAO.getAPI(defaultAPI.getId());
+            countingDataSource.reset();
+
+            API apiFromDB = apiDAO.getAPI(defaultAPI.getId());
+            int statementsPerAPI = countingDataSource.getStatementCount();
+            Assert.assertEquals(apiFromDB, defaultAPI, TestUtil.printDiff(apiFromDB, defaultAPI));
+            // One query for the APIs and one for each type of child entity, irrespective of the number of operations
+            Assert.assertTrue(statementsPerAPI <= 10, "Statements executed to retrieve an API: " + statementsPerAPI);
+
+            countingDataSource.reset();
+            List<API> apisFromDB = apiDAO.getAPIs(apiIDs);
+            Assert.assertEquals(countingDataSource.getStatementCount(), statementsPerAPI);
+            Assert.assertEquals(apisFromDB.size(), apis.size());
+            for (int i = 0; i < apis.size(); i++) {
+                Assert.assertEquals(apisFromDB.get(i), apis.get(i), TestUtil.printDiff(apisFromDB.get(i), apis.get(i)));
+            }
+        } finally {
+            DAOUtil.clearDataSource();
+            DAOUtil.initialize(dataSource);
+        }
+    }
+
     @Test
     public void testAddDuplicateProviderNameVersionAPI() throws Exception {
         ApiDAO apiDAO = DAOFactory.getApiDAO();
@@ -513,6 +571,65 @@ public class ApiDAOImplIT extends DAOIntegrationTestBase {
                 TestUtil.printDiff(apiList, expectedAPIs));
     }
 
+    @Test(description = "Test retrieving APIs page by page with a cursor")
+    public void testGetAPIsWithCursor() throws Exception {
+        ApiDAO apiDAO = DAOFactory.getApiDAO();
+        testAddGetEndpoint();
+        List<API> apis = new ArrayList<>();
+        API defaultAPI = SampleTestObjectCreator.createDefaultAPI().build();
+        apiDAO.addAPI(defaultAPI);
+        apis.add(defaultAPI);
+        for (int i = 0; i < 4; i++) {
+            API api = SampleTestObjectCreator.createUniqueAPI().build();
+            apiDAO.addAPI(api);
+            apis.add(api);
+        }
+        apis.sort(Comparator.comparing(API::getName).thenComparing(API::getId));
+
+        CountingDataSource countingDataSource = new CountingDataSource(dataSource);
+        DAOUtil.clearDataSource();
+        DAOUtil.initialize(countingDataSource);
+        try {
+            // Changing the data source discards the cached reference data, which is loaded by the first retrieval
+            apiDAO.getAPIs(ApiType.STANDARD, null, 0, 1);
+
+            List<API> apisFromDB = new ArrayList<>();
+            List<Integer> statementCounts = new ArrayList<>();
+            APICursor cursor = null;
+            do {
+                countingDataSource.reset();
+                APIResults page = apiDAO.getAPIs(ApiType.STANDARD, cursor, 0, 2);
+                statementCounts.add(countingDataSource.getStatementCount());
+                Assert.assertEquals(page.getTotalCount(), apis.size());
+                Assert.assertTrue(page.getApiList().size() <= 2);
+                apisFromDB.addAll(page.getApiList());
+                cursor = page.getNextCursor() == null ? null
+                        : APICursor.fromToken(page.getNextCursor().toToken());
+            } while (cursor != null);
+
+            Assert.assertEquals(statementCounts.size(), 3);
+            // Only the first page counts the APIs, later pages take the total from the cursor
+            Assert.assertEquals((int) statementCounts.get(1), statementCounts.get(0) - 1);
+            Assert.assertEquals(statementCounts.get(2), statementCounts.get(1));
+            Assert.assertEquals(apisFromDB.size(), apis.size());
+            for (int i = 0; i < apis.size(); i++) {
+                Assert.assertEquals(apisFromDB.get(i).getId(), apis.get(i).getId());
+            }
+
+            APIResults secondPage = apiDAO.getAPIs(ApiType.STANDARD, null, 2, 2);
+            Assert.assertEquals(secondPage.getApiList().get(0).getId(), apis.get(2).getId());
+            Assert.assertEquals(secondPage.getApiList().get(1).getId(), apis.get(3).getId());
+
+            APIResults emptyPage = apiDAO.getAPIs(ApiType.STANDARD, null, 0, 0);
+            Assert.assertEquals(emptyPage.getTotalCount(), apis.size());
+            Assert.assertTrue(emptyPage.getApiList().isEmpty());
+            Assert.assertNull(emptyPage.getNextCursor());
+        } finally {
+            DAOUtil.clearDataSource();
+            DAOUtil.initialize(dataSource);
+        }
+    }
+
     @Test
     public void testGetStandardAPIsForProvider() throws Exception {
         ApiDAO apiDAO = DAOFactory.getApiDAO();
@@ -812,6 +929,9 @@ public class ApiDAOImplIT extends DAOIntegrationTestBase {
         API api = SampleTestObjectCreator.createUniqueAPI().build();
         apiDAO.addAPI(api);
         Assert.assertNotNull(apiDAO.getSwaggerDefinition(api.getId()));
+        Assert.assertEquals(apiDAO.getSwaggerDefinitionOfApi(api.getContext(), api.getVersion()),
+                apiDAO.getSwaggerDefinition(api.getId()));
+        Assert.assertNull(apiDAO.getSwaggerDefinitionOfApi(api.getContext(), "0.0.0"));
     }
 
     @Test
@@ -930,8 +1050,127 @@ public class ApiDAOImplIT extends DAOIntegrationTestBase {
         API api = SampleTestObjectCreator.createDefaultAPI().build();
         apiDAO.addAPI(api);
         apiDAO.updateImage(api.getId(), SampleTestObjectCreator.createDefaultThumbnailImage(), "image/jpg", ADMIN);
-        InputStream image = apiDAO.getImage(api.getId());
-        Assert.assertNotNull(image);
+        try (InputStream image = apiDAO.getImage(api.getId())) {
+            Assert.assertNotNull(image);
+            Assert.assertEquals(IOUtils.toByteArray(image),
+                    IOUtils.toByteArray(SampleTestObjectCreator.createDefaultThumbnailImage()));
+        }
+    }
+
+    @Test(description = "Download a large document file concurrently, streaming it from the database")
+    public void testGetDocumentFileContentConcurrently() throws Exception {
+        downloadDocumentConcurrently(20 * 1024 * 1024, 8);
+    }
+
+    /**
+     * Runs with the perf-tests profile only, as it downloads 400 MB.
+     */
+    @Test(groups = "perf", description = "Measure the heap used by concurrent downloads of a 50 MB document file")
+    public void testGetLargeDocumentFileContentConcurrently() throws Exception {
+        final int documentSize = 50 * 1024 * 1024;
+        long heapGrowth = downloadDocumentConcurrently(documentSize, 8);
+        // The downloads are streamed, so the heap holds less than a single copy of the document
+        Assert.assertTrue(heapGrowth < documentSize, "Heap grew by " + heapGrowth + " bytes");
+    }
+
+    /**
+     * Downloads a generated document file with concurrent readers, and pauses them half way to check that no
+     * connection is held while the content is streamed.
+     *
+     * @return growth of the used heap while the downloads were paused, after a garbage collection
+     */
+    private long downloadDocumentConcurrently(int documentSize, int downloads) throws Exception {
+        ApiDAO apiDAO = DAOFactory.getApiDAO();
+        testAddGetEndpoint();
+        API api = SampleTestObjectCreator.createDefaultAPI().build();
+        apiDAO.addAPI(api);
+        DocumentInfo documentInfo = SampleTestObjectCreator.createDefaultFileDocumentationInfo();
+        apiDAO.addDocumentInfo(api.getId(), documentInfo);
+        apiDAO.addDocumentFileContent(documentInfo.getId(), createLargeContent(documentSize), "large.bin", ADMIN);
+        String expectedDigest = digest(createLargeContent(documentSize));
+
+        CountingDataSource countingDataSource = new CountingDataSource(dataSource);
+        DAOUtil.clearDataSource();
+        DAOUtil.initialize(countingDataSource);
+        ExecutorService executorService = Executors.newFixedThreadPool(downloads);
+        try {
+            CountDownLatch startLatch = new CountDownLatch(1);
+            CountDownLatch pausedLatch = new CountDownLatch(downloads);
+            CountDownLatch resumeLatch = new CountDownLatch(1);
+            List<Future<String>> digests = new ArrayList<>();
+            for (int i = 0; i < downloads; i++) {
+                digests.add(executorService.submit(() -> {
+                    startLatch.await();
+                    try (InputStream content = apiDAO.getDocumentFileContent(documentInfo.getId())) {
+                        MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+                        update(messageDigest, content, documentSize / 2);
+                        pausedLatch.countDown();
+                        resumeLatch.await();
+                        update(messageDigest, content, Long.MAX_VALUE);
+                        return Base64.getEncoder().encodeToString(messageDigest.digest());
+                    }
+                }));
+            }
+            long usedHeap = getUsedHeap();
+            long startTime = System.nanoTime();
+            startLatch.countDown();
+            Assert.assertTrue(pausedLatch.await(2, TimeUnit.MINUTES));
+            long heapGrowth = getUsedHeap() - usedHeap;
+            // The content is copied out of the database before it is streamed, so open streams hold no connection
+            Assert.assertEquals(countingDataSource.getOpenConnectionCount(), 0);
+            resumeLatch.countDown();
+            for (Future<String> digest : digests) {
+                Assert.assertEquals(digest.get(2, TimeUnit.MINUTES), expectedDigest);
+            }
+            log.info("Downloaded a document of {} bytes {} times concurrently in {} ms, with {} bytes of heap growth",
+                    documentSize, downloads, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime),
+                    heapGrowth);
+            Assert.assertNull(apiDAO.getDocumentFileContent(UUID.randomUUID().toString()));
+            Assert.assertEquals(countingDataSource.getOpenConnectionCount(), 0);
+            return heapGrowth;
+        } finally {
+            executorService.shutdownNow();
+            DAOUtil.clearDataSource();
+            DAOUtil.initialize(dataSource);
+        }
+    }
+
+    @Test(description = "Serve document file content from the on-disk cache until the document is updated")
+    public void testGetDocumentFileContentFromCache() throws Exception {
+        ApiDAO apiDAO = DAOFactory.getApiDAO();
+        testAddGetEndpoint();
+        API api = SampleTestObjectCreator.createDefaultAPI().build();
+        apiDAO.addAPI(api);
+        DocumentInfo documentInfo = SampleTestObjectCreator.createDefaultFileDocumentationInfo();
+        apiDAO.addDocumentInfo(api.getId(), documentInfo);
+        apiDAO.addDocumentFileContent(documentInfo.getId(), IOUtils.toInputStream("content 1"), "doc.txt", ADMIN);
+
+        CountingDataSource countingDataSource = new CountingDataSource(dataSource);
+        DAOUtil.clearDataSource();
+        DAOUtil.initialize(countingDataSource);
+        BinaryResourceCache.getInstance().setMaxSize(1024 * 1024);
+        try {
+            try (InputStream content = apiDAO.getDocumentFileContent(documentInfo.getId())) {
+                Assert.assertEquals(IOUtils.toString(content), "content 1");
+            }
+            countingDataSource.reset();
+            try (InputStream content = apiDAO.getDocumentFileContent(documentInfo.getId())) {
+                Assert.assertEquals(IOUtils.toString(content), "content 1");
+            }
+            // Only the last updated time is read from the database
+            Assert.assertEquals(countingDataSource.getStatementCount(), 1);
+
+            Thread.sleep(1);
+            apiDAO.addDocumentFileContent(documentInfo.getId(), IOUtils.toInputStream("content 2"), "doc.txt", ADMIN);
+            try (InputStream content = apiDAO.getDocumentFileContent(documentInfo.getId())) {
+                Assert.assertEquals(IOUtils.toString(content), "content 2");
+            }
+            Assert.assertEquals(countingDataSource.getOpenConnectionCount(), 0);
+        } finally {
+            BinaryResourceCache.getInstance().setMaxSize(0);
+            DAOUtil.clearDataSource();
+            DAOUtil.initialize(dataSource);
+        }
     }
 
     @Test
@@ -1519,4 +1758,40 @@ public class ApiDAOImplIT extends DAOIntegrationTestBase {
         Assert.assertEquals(apiFromDB, expectedAPI, TestUtil.printDiff(apiFromDB, expectedAPI));
 
     }
+
+    /**
+     * Creates a stream of generated content, so that large documents can be added without holding them in memory.
+     */
+    private static InputStream createLargeContent(int size) {
+        return new InputStream() {
+            private int position;
+
+            @Override
+            public int read() {
+                return position < size ? (position++ * 31) & 0xff : -1;
+            }
+        };
+    }
+
+    private static String digest(InputStream content) throws IOException, NoSuchAlgorithmException {
+        MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+        update(messageDigest, content, Long.MAX_VALUE);
+        return Base64.getEncoder().encodeToString(messageDigest.digest());
+    }
+
+    private static void update(MessageDigest messageDigest, InputStream content, long count) throws IOException {
+        byte[] buffer = new byte[8192];
+        long remaining = count;
+        int read;
+        while (remaining > 0 && (read = content.read(buffer, 0, (int) Math.min(buffer.length, remaining))) >= 0) {
+            messageDigest.update(buffer, 0, read);
+            remaining -= read;
+        }
+    }
+
+    private static long getUsedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
 }
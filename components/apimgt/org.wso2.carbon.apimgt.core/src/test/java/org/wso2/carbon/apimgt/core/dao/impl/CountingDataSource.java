@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.core.dao.impl;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Wraps a {@link DataSource} and counts the statements prepared on the connections it returns, so that tests can
+ * verify the number of queries issued by a DAO method, and the connections which are still open.
+ */
+public class CountingDataSource implements DataSource {
+    private final DataSource dataSource;
+    private final AtomicInteger statementCount = new AtomicInteger();
+    private final AtomicInteger openConnectionCount = new AtomicInteger();
+
+    CountingDataSource(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Connection connection = dataSource.getConnection();
+        openConnectionCount.incrementAndGet();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class[]{Connection.class},
+                (proxy, method, args) -> {
+                    String methodName = method.getName();
+                    if ("prepareStatement".equals(methodName) || "createStatement".equals(methodName)
+                            || "prepareCall".equals(methodName)) {
+                        statementCount.incrementAndGet();
+                    } else if ("close".equals(methodName) && !connection.isClosed()) {
+                        openConnectionCount.decrementAndGet();
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    @Override
+    public HikariDataSource getDatasource() throws SQLException {
+        return dataSource.getDatasource();
+    }
+
+    /**
+     * @return number of statements created since this data source was created or last reset
+     */
+    public int getStatementCount() {
+        return statementCount.get();
+    }
+
+    /**
+     * @return number of connections returned by this data source which are not closed yet
+     */
+    public int getOpenConnectionCount() {
+        return openConnectionCount.get();
+    }
+
+    public void reset() {
+        statementCount.set(0);
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.core.dao.impl;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.apimgt.core.SampleTestObjectCreator;
+import org.wso2.carbon.apimgt.core.dao.ApiType;
+import org.wso2.carbon.apimgt.core.dao.PolicyDAO;
+import org.wso2.carbon.apimgt.core.models.ResourceCategory;
+import org.wso2.carbon.apimgt.core.models.policy.APIPolicy;
+import org.wso2.carbon.apimgt.core.util.APIMgtConstants;
+
+import java.sql.Connection;
+import java.util.concurrent.TimeUnit;
+
+public class ReferenceDataCacheIT extends DAOIntegrationTestBase {
+
+    private static final String GOLD_TIER = "Gold";
+
+    @Test(description = "Resolve reference data without querying the database once it is loaded")
+    public void testReferenceDataIsResolvedFromCache() throws Exception {
+        DAOFactory.getApiDAO();
+        ReferenceDataCache cache = ReferenceDataCache.getInstance();
+        CountingDataSource countingDataSource = new CountingDataSource(dataSource);
+
+        try (Connection connection = countingDataSource.getConnection()) {
+            int apiTypeID = cache.getApiTypeID(connection, ApiType.STANDARD);
+            Assert.assertEquals(cache.getApiTypes(connection).get(apiTypeID), ApiType.STANDARD);
+            cache.getResourceCategoryID(connection, ResourceCategory.SWAGGER);
+            Assert.assertNotNull(cache.getAPIPolicyID(connection, GOLD_TIER));
+            Assert.assertNotNull(cache.getSubscriptionPolicyID(connection, GOLD_TIER));
+            Assert.assertEquals(countingDataSource.getStatementCount(), 0);
+        }
+    }
+
+    @Test(description = "Resolve the new ID of a policy after it is deleted and added again")
+    public void testPolicyChangesInvalidateCache() throws Exception {
+        PolicyDAO policyDAO = DAOFactory.getPolicyDAO();
+        APIPolicy policy = SampleTestObjectCreator.createDefaultAPIPolicy();
+        policyDAO.addPolicy(APIMgtConstants.ThrottlePolicyConstants.API_LEVEL, policy);
+        ReferenceDataCache cache = ReferenceDataCache.getInstance();
+
+        try (Connection connection = DAOUtil.getConnection()) {
+            String policyID = cache.getAPIPolicyID(connection, policy.getPolicyName());
+            Assert.assertEquals(policyID, policyDAO.getPolicy(APIMgtConstants.ThrottlePolicyConstants.API_LEVEL,
+                    policy.getPolicyName()).getUuid());
+
+            policyDAO.deletePolicy(policy.getPolicyName(), APIMgtConstants.ThrottlePolicyConstants.API_LEVEL);
+            policyDAO.addPolicy(APIMgtConstants.ThrottlePolicyConstants.API_LEVEL, policy);
+            String newPolicyID = policyDAO.getPolicy(APIMgtConstants.ThrottlePolicyConstants.API_LEVEL,
+                    policy.getPolicyName()).getUuid();
+            Assert.assertNotEquals(newPolicyID, policyID);
+            Assert.assertEquals(cache.getAPIPolicyID(connection, policy.getPolicyName()), newPolicyID);
+        }
+    }
+
+    @Test(description = "Reload the reference data after the time to live elapses")
+    public void testReferenceDataIsReloadedAfterTimeToLive() throws Exception {
+        DAOFactory.getApiDAO();
+        ReferenceDataCache cache = ReferenceDataCache.getInstance();
+        CountingDataSource countingDataSource = new CountingDataSource(dataSource);
+
+        cache.setTimeToLive(50, TimeUnit.MILLISECONDS);
+        try (Connection connection = countingDataSource.getConnection()) {
+            cache.getApiTypeID(connection, ApiType.STANDARD);
+            Thread.sleep(100);
+            countingDataSource.reset();
+            cache.getApiTypeID(connection, ApiType.STANDARD);
+            Assert.assertTrue(countingDataSource.getStatementCount() > 0);
+        } finally {
+            cache.setTimeToLive(0, TimeUnit.SECONDS);
+        }
+    }
+}
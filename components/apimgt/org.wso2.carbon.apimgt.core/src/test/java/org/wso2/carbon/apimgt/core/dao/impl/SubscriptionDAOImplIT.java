@@ -28,14 +28,18 @@ import org.wso2.carbon.apimgt.core.models.API;
 import org.wso2.carbon.apimgt.core.models.Application;
 import org.wso2.carbon.apimgt.core.models.OAuthApplicationInfo;
 import org.wso2.carbon.apimgt.core.models.Subscription;
+import org.wso2.carbon.apimgt.core.models.SubscriptionChanges;
 import org.wso2.carbon.apimgt.core.models.SubscriptionValidationData;
 import org.wso2.carbon.apimgt.core.util.APIMgtConstants;
 import org.wso2.carbon.apimgt.core.util.ETagUtils;
 import org.wso2.carbon.apimgt.core.util.KeyManagerConstants;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 public class SubscriptionDAOImplIT extends DAOIntegrationTestBase {
 
@@ -575,6 +579,229 @@ public class SubscriptionDAOImplIT extends DAOIntegrationTestBase {
         Assert.assertTrue(pendingSubscriptions.size() == 2);
     }
 
+    @Test
+    public void testGetSubscriptionChangesForValidation() throws Exception {
+        //add test apis, apps and subscriptions
+        ApisAndApps apisAndApps = createApisAppsAndSubscriptions();
+
+        APISubscriptionDAO subscriptionDAO = DAOFactory.getAPISubscriptionDAO();
+        ApplicationDAO applicationDAO = DAOFactory.getApplicationDAO();
+
+        API api1 = apisAndApps.getApis().get(0);
+        Application app1 = apisAndApps.getApps().get(0);
+        for (int i = 0; i < apisAndApps.getApps().size(); i++) {
+            registerOAuthAppForApplication(applicationDAO, "client-key-for-app-" + (i + 1),
+                    "client-secret-for-app-" + (i + 1), apisAndApps.getApps().get(i).getId());
+        }
+
+        //get all subscriptions and the revision to continue from
+        SubscriptionChanges changes = subscriptionDAO.getAPISubscriptionChangesForValidation(-1);
+        Assert.assertEquals(changes.getSubscriptions().size(), 9, "There should be 9 subscriptions (only).");
+        Assert.assertTrue(changes.getRemovedSubscriptions().isEmpty());
+        long revision = changes.getRevision();
+
+        //no changes after the revision
+        changes = subscriptionDAO.getAPISubscriptionChangesForValidation(revision);
+        Assert.assertEquals(changes.getRevision(), revision);
+        Assert.assertTrue(changes.getSubscriptions().isEmpty());
+        Assert.assertTrue(changes.getRemovedSubscriptions().isEmpty());
+
+        //add app1: api1
+        String uuid = UUID.randomUUID().toString();
+        subscriptionDAO.addAPISubscription(uuid, api1.getId(), app1.getId(), GOLD_TIER,
+                APIMgtConstants.SubscriptionStatus.ACTIVE);
+        changes = subscriptionDAO.getAPISubscriptionChangesForValidation(revision);
+        Assert.assertTrue(changes.getRevision() > revision);
+        Assert.assertEquals(changes.getSubscriptions().size(), 1);
+        validateSubscriptionsOfApi(changes.getSubscriptions().get(0), api1, app1);
+        Assert.assertEquals(changes.getSubscriptions().get(0).getConsumerKey(), "client-key-for-app-1");
+        revision = changes.getRevision();
+
+        //update the policy of app1: api1
+        subscriptionDAO.updateSubscriptionPolicy(uuid, SILVER_TIER);
+        changes = subscriptionDAO.getAPISubscriptionChangesForValidation(revision);
+        Assert.assertEquals(changes.getSubscriptions().size(), 1);
+        Assert.assertEquals(changes.getSubscriptions().get(0).getSubscriptionPolicy(), SILVER_TIER);
+        Assert.assertTrue(changes.getRemovedSubscriptions().isEmpty());
+        revision = changes.getRevision();
+
+        //remove app1: api1
+        subscriptionDAO.deleteAPISubscription(uuid);
+        changes = subscriptionDAO.getAPISubscriptionChangesForValidation(revision);
+        Assert.assertTrue(changes.getSubscriptions().isEmpty());
+        Assert.assertEquals(changes.getRemovedSubscriptions().size(), 1);
+        SubscriptionValidationData removedSubscription = changes.getRemovedSubscriptions().get(0);
+        Assert.assertEquals(removedSubscription.getApiContext(), api1.getContext());
+        Assert.assertEquals(removedSubscription.getApiVersion(), api1.getVersion());
+        Assert.assertEquals(removedSubscription.getConsumerKey(), "client-key-for-app-1");
+
+        //all subscriptions do not include removed subscriptions
+        changes = subscriptionDAO.getAPISubscriptionChangesForValidation(-1);
+        Assert.assertEquals(changes.getSubscriptions().size(), 9, "There should be 9 subscriptions (only).");
+        Assert.assertTrue(changes.getRemovedSubscriptions().isEmpty());
+    }
+
+    @Test
+    public void testRemovedSubscriptionsArePurged() throws Exception {
+        Application app = TestUtil.addTestApplication();
+        API api1 = TestUtil.addCustomAPI(API_1, API_VERSION, API1_CONTEXT);
+        API api2 = TestUtil.addCustomAPI(API_2, API_VERSION, API2_CONTEXT);
+        registerOAuthAppForApplication(DAOFactory.getApplicationDAO(), "client-key", "client-secret", app.getId());
+        APISubscriptionDAO subscriptionDAO = DAOFactory.getAPISubscriptionDAO();
+        String uuid1 = UUID.randomUUID().toString();
+        subscriptionDAO.addAPISubscription(uuid1, api1.getId(), app.getId(), GOLD_TIER,
+                APIMgtConstants.SubscriptionStatus.ACTIVE);
+        String uuid2 = UUID.randomUUID().toString();
+        subscriptionDAO.addAPISubscription(uuid2, api2.getId(), app.getId(), GOLD_TIER,
+                APIMgtConstants.SubscriptionStatus.ACTIVE);
+        long revision = subscriptionDAO.getLatestSubscriptionRevision();
+
+        try {
+            //the removal of api1 is purged when api2 is removed
+            APISubscriptionDAOImpl.setRemovedSubscriptionRetention(1, TimeUnit.MILLISECONDS);
+            subscriptionDAO.deleteAPISubscription(uuid1);
+            long removedRevision = subscriptionDAO.getLatestSubscriptionRevision();
+            Thread.sleep(10);
+            subscriptionDAO.deleteAPISubscription(uuid2);
+
+            //the changes after a purged removal are not available
+            SubscriptionChanges changes = subscriptionDAO.getAPISubscriptionChangesForValidation(revision);
+            Assert.assertEquals(changes.getRevision(), -1);
+            Assert.assertTrue(changes.getSubscriptions().isEmpty());
+            Assert.assertTrue(changes.getRemovedSubscriptions().isEmpty());
+
+            //the changes after the purged revision are available
+            changes = subscriptionDAO.getAPISubscriptionChangesForValidation(removedRevision);
+            Assert.assertEquals(changes.getRevision(), subscriptionDAO.getLatestSubscriptionRevision());
+            Assert.assertEquals(changes.getRemovedSubscriptions().size(), 1);
+            Assert.assertEquals(changes.getRemovedSubscriptions().get(0).getApiContext(), api2.getContext());
+        } finally {
+            APISubscriptionDAOImpl.setRemovedSubscriptionRetention(1, TimeUnit.DAYS);
+        }
+    }
+
+    @Test
+    public void testGetSubscriptionsForValidationInPages() throws Exception {
+        //add test apis, apps and subscriptions
+        ApisAndApps apisAndApps = createApisAppsAndSubscriptions();
+
+        APISubscriptionDAO subscriptionDAO = DAOFactory.getAPISubscriptionDAO();
+        ApplicationDAO applicationDAO = DAOFactory.getApplicationDAO();
+        for (int i = 0; i < apisAndApps.getApps().size(); i++) {
+            registerOAuthAppForApplication(applicationDAO, "client-key-for-app-" + (i + 1),
+                    "client-secret-for-app-" + (i + 1), apisAndApps.getApps().get(i).getId());
+        }
+        //subscriptions of app1 have a key of each type
+        OAuthApplicationInfo oAuthAppInfo = new OAuthApplicationInfo();
+        oAuthAppInfo.setClientId("sandbox-client-key-for-app-1");
+        oAuthAppInfo.setClientSecret("sandbox-client-secret-for-app-1");
+        oAuthAppInfo.addParameter(KeyManagerConstants.APP_KEY_TYPE, "Sandbox");
+        applicationDAO.addApplicationKeys(apisAndApps.getApps().get(0).getId(), oAuthAppInfo);
+        int subscriptionCount = subscriptionDAO.getAPISubscriptionsOfAPIForValidation(-1).size();
+
+        //read the subscriptions in pages of 2, starting after the last subscription of the previous page
+        List<SubscriptionValidationData> subscriptions = new ArrayList<>();
+        List<SubscriptionValidationData> page = subscriptionDAO.getAPISubscriptionsForValidation(null, null, 2);
+        while (!page.isEmpty()) {
+            Assert.assertTrue(page.size() <= 2);
+            subscriptions.addAll(page);
+            SubscriptionValidationData last = page.get(page.size() - 1);
+            page = subscriptionDAO.getAPISubscriptionsForValidation(last.getSubscriptionId(), last.getKeyEnvType(), 2);
+        }
+        Assert.assertEquals(subscriptions.size(), subscriptionCount);
+        for (int i = 1; i < subscriptions.size(); i++) {
+            SubscriptionValidationData previous = subscriptions.get(i - 1);
+            SubscriptionValidationData current = subscriptions.get(i);
+            int order = previous.getSubscriptionId().compareTo(current.getSubscriptionId());
+            Assert.assertTrue(order < 0 || (order == 0
+                    && previous.getKeyEnvType().compareTo(current.getKeyEnvType()) < 0));
+        }
+    }
+
+    @Test
+    public void testGetSubscriptionChangesAfterKeyGeneration() throws Exception {
+        Application app = TestUtil.addTestApplication();
+        API api = TestUtil.addTestAPI();
+        APISubscriptionDAO subscriptionDAO = DAOFactory.getAPISubscriptionDAO();
+        subscriptionDAO.addAPISubscription(UUID.randomUUID().toString(), api.getId(), app.getId(), GOLD_TIER,
+                APIMgtConstants.SubscriptionStatus.ACTIVE);
+        long revision = subscriptionDAO.getLatestSubscriptionRevision();
+
+        //the subscription has no consumer key until the keys of the application are generated
+        Assert.assertTrue(subscriptionDAO.getAPISubscriptionChangesForValidation(revision - 1).getSubscriptions()
+                .isEmpty());
+        registerOAuthAppForApplication(DAOFactory.getApplicationDAO(), "client-key", "client-secret", app.getId());
+
+        SubscriptionChanges changes = subscriptionDAO.getAPISubscriptionChangesForValidation(revision);
+        Assert.assertEquals(changes.getSubscriptions().size(), 1);
+        Assert.assertEquals(changes.getSubscriptions().get(0).getConsumerKey(), "client-key");
+        Assert.assertTrue(changes.getRevision() > revision);
+    }
+
+    @Test
+    public void testGetSubscriptionChangesOfLargeNumberOfSubscriptions() throws Exception {
+        testGetSubscriptionChangesOfSubscriptions(5000);
+    }
+
+    /**
+     * Runs with the perf-tests profile only, as it adds a million rows.
+     */
+    @Test(groups = "perf")
+    public void testGetSubscriptionChangesOfMillionSubscriptions() throws Exception {
+        testGetSubscriptionChangesOfSubscriptions(1000000);
+    }
+
+    private void testGetSubscriptionChangesOfSubscriptions(int subscriptionCount) throws Exception {
+        Application app = TestUtil.addTestApplication();
+        API api = TestUtil.addTestAPI();
+        registerOAuthAppForApplication(DAOFactory.getApplicationDAO(), "client-key", "client-secret", app.getId());
+
+        //add existing subscriptions directly, as the DAO checks for duplicate subscriptions
+        final String addSubscriptionSql = "INSERT INTO AM_SUBSCRIPTION (UUID, TIER_ID, API_ID, APPLICATION_ID, " +
+                "SUB_STATUS, REVISION) VALUES (?,(SELECT UUID FROM AM_SUBSCRIPTION_POLICY WHERE NAME = ?),?,?,?,?)";
+        try (Connection conn = DAOUtil.getConnection();
+             PreparedStatement ps = conn.prepareStatement(addSubscriptionSql)) {
+            conn.setAutoCommit(false);
+            for (int i = 0; i < subscriptionCount; i++) {
+                ps.setString(1, UUID.randomUUID().toString());
+                ps.setString(2, GOLD_TIER);
+                ps.setString(3, api.getId());
+                ps.setString(4, app.getId());
+                ps.setString(5, APIMgtConstants.SubscriptionStatus.ACTIVE.toString());
+                ps.setLong(6, 0);
+                ps.addBatch();
+                if (i % 500 == 499) {
+                    ps.executeBatch();
+                    conn.commit();
+                }
+            }
+            conn.setAutoCommit(DAOUtil.isAutoCommit());
+        }
+
+        APISubscriptionDAO subscriptionDAO = DAOFactory.getAPISubscriptionDAO();
+        API newApi = TestUtil.addCustomAPI(API_1, API_VERSION, API1_CONTEXT);
+        String uuid = UUID.randomUUID().toString();
+        subscriptionDAO.addAPISubscription(uuid, newApi.getId(), app.getId(), GOLD_TIER,
+                APIMgtConstants.SubscriptionStatus.ACTIVE);
+
+        //only the new subscription is returned
+        SubscriptionChanges changes = subscriptionDAO.getAPISubscriptionChangesForValidation(0);
+        Assert.assertEquals(changes.getSubscriptions().size(), 1);
+        Assert.assertTrue(changes.getRemovedSubscriptions().isEmpty());
+        long revision = changes.getRevision();
+
+        subscriptionDAO.updateSubscriptionStatus(uuid, APIMgtConstants.SubscriptionStatus.BLOCKED);
+        changes = subscriptionDAO.getAPISubscriptionChangesForValidation(revision);
+        Assert.assertEquals(changes.getSubscriptions().size(), 1);
+        revision = changes.getRevision();
+
+        subscriptionDAO.deleteAPISubscription(uuid);
+        changes = subscriptionDAO.getAPISubscriptionChangesForValidation(revision);
+        Assert.assertTrue(changes.getSubscriptions().isEmpty());
+        Assert.assertEquals(changes.getRemovedSubscriptions().size(), 1);
+        Assert.assertEquals(subscriptionDAO.getSubscriptionCountByAPI(api.getId()), subscriptionCount);
+    }
+
     private ApisAndApps createApisAppsAndSubscriptions() throws Exception {
         List<Application> apps = new ArrayList<>();
         //add 4 apps
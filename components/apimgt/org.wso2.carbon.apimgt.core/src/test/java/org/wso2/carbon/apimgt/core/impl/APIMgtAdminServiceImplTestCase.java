@@ -21,6 +21,7 @@
 package org.wso2.carbon.apimgt.core.impl;
 
 import org.mockito.Mockito;
+import org.testng.Assert;
 import org.testng.annotations.Test;
 import org.wso2.carbon.apimgt.core.SampleTestObjectCreator;
 import org.wso2.carbon.apimgt.core.dao.APISubscriptionDAO;
@@ -31,8 +32,10 @@ import org.wso2.carbon.apimgt.core.dao.PolicyDAO;
 import org.wso2.carbon.apimgt.core.exception.APIManagementException;
 import org.wso2.carbon.apimgt.core.exception.APIMgtDAOException;
 import org.wso2.carbon.apimgt.core.models.API;
+import org.wso2.carbon.apimgt.core.models.APIResource;
 import org.wso2.carbon.apimgt.core.models.Label;
 import org.wso2.carbon.apimgt.core.models.SubscriptionValidationData;
+import org.wso2.carbon.apimgt.core.models.UriTemplate;
 import org.wso2.carbon.apimgt.core.models.policy.Policy;
 
 import java.util.ArrayList;
@@ -112,6 +115,23 @@ public class APIMgtAdminServiceImplTestCase {
         verify(apiDAO, times(1)).getAPIs(ApiType.STANDARD);
     }
 
+    @Test(description = "Get resources of API along with their scopes")
+    public void testGetAllResourcesForApi() throws APIManagementException {
+        ApiDAO apiDAO = mock(ApiDAO.class);
+        APIMgtAdminServiceImpl adminService = newAPIMgtAdminServiceImplforApiDAO(apiDAO);
+        List<UriTemplate> uriTemplates = new ArrayList<>();
+        uriTemplates.add(new UriTemplate.UriTemplateBuilder().uriTemplate("/apis").httpVerb("GET").build());
+        uriTemplates.add(new UriTemplate.UriTemplateBuilder().uriTemplate("/unknown").httpVerb("GET").build());
+        when(apiDAO.getResourcesOfApi(API_CONTEXT, API_VERSION)).thenReturn(uriTemplates);
+        when(apiDAO.getSwaggerDefinitionOfApi(API_CONTEXT, API_VERSION))
+                .thenReturn(SampleTestObjectCreator.apiDefinition);
+        List<APIResource> apiResources = adminService.getAllResourcesForApi(API_CONTEXT, API_VERSION);
+        Assert.assertEquals(apiResources.size(), 2);
+        Assert.assertSame(apiResources.get(0).getUriTemplate(), uriTemplates.get(0));
+        Assert.assertEquals(apiResources.get(0).getScope().getKey(), "apim:api_view");
+        Assert.assertNull(apiResources.get(1).getScope());
+    }
+
     @Test(description = "Delete a label")
     public void testDeleteLabel() throws APIManagementException {
         LabelDAO labelDAO = Mockito.mock(LabelDAO.class);
@@ -21,6 +21,7 @@
 package org.wso2.carbon.apimgt.core.impl;
 
 import com.google.common.io.Files;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import org.testng.Assert;
 import org.testng.annotations.BeforeClass;
@@ -43,6 +44,8 @@ import org.wso2.carbon.apimgt.core.exception.ApiDeleteFailureException;
 import org.wso2.carbon.apimgt.core.exception.LabelException;
 import org.wso2.carbon.apimgt.core.models.API;
 import org.wso2.carbon.apimgt.core.models.API.APIBuilder;
+import org.wso2.carbon.apimgt.core.models.APICursor;
+import org.wso2.carbon.apimgt.core.models.APIResults;
 import org.wso2.carbon.apimgt.core.models.APIStatus;
 import org.wso2.carbon.apimgt.core.models.Application;
 import org.wso2.carbon.apimgt.core.models.DocumentInfo;
@@ -404,11 +407,36 @@ public class APIPublisherImplTestCase {
     public void testSearchAPIsWithNullQuery() throws APIManagementException {
         ApiDAO apiDAO = Mockito.mock(ApiDAO.class);
         APIPublisherImpl apiPublisher = getApiPublisherImpl(apiDAO);
-        List<API> apimResultsFromDAO = new ArrayList<>();
-        Mockito.when(apiDAO.searchAPIs(new HashSet<>(), USER, null, ApiType.STANDARD, 1, 2)).
-                thenReturn(apimResultsFromDAO);
+        APIResults apiResultsFromDAO = new APIResults();
+        apiResultsFromDAO.setApiList(new ArrayList<>());
+        Mockito.when(apiDAO.getAPIs(ApiType.STANDARD, null, 1, 2)).thenReturn(apiResultsFromDAO);
         apiPublisher.searchAPIs(2, 1, null);
-        Mockito.verify(apiDAO, Mockito.times(1)).getAPIs(ApiType.STANDARD);
+        Mockito.verify(apiDAO, Mockito.times(1)).getAPIs(ApiType.STANDARD, null, 1, 2);
+    }
+
+    @Test(description = "Get a page of APIs with a cursor")
+    public void testGetAPIsWithCursor() throws APIManagementException {
+        ApiDAO apiDAO = Mockito.mock(ApiDAO.class);
+        APIPublisherImpl apiPublisher = getApiPublisherImpl(apiDAO);
+        APIResults apiResultsFromDAO = new APIResults();
+        apiResultsFromDAO.setApiList(new ArrayList<>());
+        Mockito.when(apiDAO.getAPIs(Mockito.eq(ApiType.STANDARD), Mockito.any(APICursor.class), Mockito.eq(0),
+                Mockito.eq(10))).thenReturn(apiResultsFromDAO);
+        APIResults apiResults = apiPublisher.getAPIs(new APICursor("PizzaShackAPI", UUID.randomUUID().toString(), 20)
+                .toToken(), 10);
+        Assert.assertSame(apiResults, apiResultsFromDAO);
+        ArgumentCaptor<APICursor> cursorCaptor = ArgumentCaptor.forClass(APICursor.class);
+        Mockito.verify(apiDAO, Mockito.times(1)).getAPIs(Mockito.eq(ApiType.STANDARD), cursorCaptor.capture(),
+                Mockito.eq(0), Mockito.eq(10));
+        Assert.assertEquals(cursorCaptor.getValue().getName(), "PizzaShackAPI");
+        Assert.assertEquals(cursorCaptor.getValue().getTotalCount(), 20);
+    }
+
+    @Test(description = "Get a page of APIs with an invalid cursor", expectedExceptions = APIManagementException.class)
+    public void testGetAPIsWithInvalidCursor() throws APIManagementException {
+        ApiDAO apiDAO = Mockito.mock(ApiDAO.class);
+        APIPublisherImpl apiPublisher = getApiPublisherImpl(apiDAO);
+        apiPublisher.getAPIs("not a cursor", 10);
     }
 
     @Test(description = "Exception when searching APIs", expectedExceptions = APIManagementException.class)
@@ -50,6 +50,7 @@ import org.wso2.carbon.apimgt.core.exception.LabelException;
 import org.wso2.carbon.apimgt.core.internal.ServiceReferenceHolder;
 import org.wso2.carbon.apimgt.core.models.API;
 import org.wso2.carbon.apimgt.core.models.API.APIBuilder;
+import org.wso2.carbon.apimgt.core.models.APIResults;
 import org.wso2.carbon.apimgt.core.models.APIStatus;
 import org.wso2.carbon.apimgt.core.models.Application;
 import org.wso2.carbon.apimgt.core.models.Comment;
@@ -141,15 +142,31 @@ public class APIStoreImplTestCase {
     public void searchAPIsEmpty() throws APIManagementException {
         ApiDAO apiDAO = Mockito.mock(ApiDAO.class);
         APIStore apiStore = getApiStoreImpl(apiDAO);
-        List<API> apimResultsFromDAO = new ArrayList<>();
+        APIResults apiResultsFromDAO = new APIResults();
+        apiResultsFromDAO.setApiList(new ArrayList<>());
         List<String> statuses = new ArrayList<>();
         statuses.add(APIStatus.PUBLISHED.getStatus());
         statuses.add(APIStatus.PROTOTYPED.getStatus());
-        Mockito.when(apiDAO.getAPIsByStatus(statuses, ApiType.STANDARD)).thenReturn(apimResultsFromDAO);
+        Mockito.when(apiDAO.getAPIsByStatus(APIUtils.getAllRolesOfUser("admin"), statuses, ApiType.STANDARD, null,
+                1, 2)).thenReturn(apiResultsFromDAO);
         List<API> apis = apiStore.searchAPIs("", 1, 2);
         Assert.assertNotNull(apis);
         Mockito.verify(apiDAO, Mockito.atLeastOnce()).getAPIsByStatus(APIUtils.getAllRolesOfUser("admin"),
-                statuses, ApiType.STANDARD);
+                statuses, ApiType.STANDARD, null, 1, 2);
+    }
+
+    @Test(description = "Get the first page of APIs")
+    public void getAPIsWithoutCursor() throws APIManagementException {
+        ApiDAO apiDAO = Mockito.mock(ApiDAO.class);
+        APIStore apiStore = getApiStoreImpl(apiDAO);
+        APIResults apiResultsFromDAO = new APIResults();
+        apiResultsFromDAO.setApiList(new ArrayList<>());
+        List<String> statuses = new ArrayList<>();
+        statuses.add(APIStatus.PUBLISHED.getStatus());
+        statuses.add(APIStatus.PROTOTYPED.getStatus());
+        Mockito.when(apiDAO.getAPIsByStatus(APIUtils.getAllRolesOfUser(USER_NAME), statuses, ApiType.STANDARD,
+                null, 0, 25)).thenReturn(apiResultsFromDAO);
+        Assert.assertSame(apiStore.getAPIs(null, 25), apiResultsFromDAO);
     }
 
     @Test(description = "Search API", expectedExceptions = APIManagementException.class)
@@ -168,13 +185,14 @@ public class APIStoreImplTestCase {
     public void getAPIsByStatus() throws APIManagementException {
         ApiDAO apiDAO = Mockito.mock(ApiDAO.class);
         APIStore apiStore = getApiStoreImpl(apiDAO);
-        List<API> expectedAPIs = new ArrayList<API>();
-        Mockito.when(apiDAO.getAPIsByStatus(Arrays.asList(STATUS_CREATED, STATUS_PUBLISHED), ApiType.STANDARD)).
-                thenReturn(expectedAPIs);
+        APIResults expectedAPIs = new APIResults();
+        expectedAPIs.setApiList(new ArrayList<>());
+        Mockito.when(apiDAO.getAPIsByStatus(Arrays.asList(STATUS_CREATED, STATUS_PUBLISHED), ApiType.STANDARD, null,
+                1, 2)).thenReturn(expectedAPIs);
         List<API> actualAPIs = apiStore.getAllAPIsByStatus(1, 2, new String[] {STATUS_CREATED, STATUS_PUBLISHED});
         Assert.assertNotNull(actualAPIs);
         Mockito.verify(apiDAO, Mockito.times(1)).
-                getAPIsByStatus(Arrays.asList(STATUS_CREATED, STATUS_PUBLISHED), ApiType.STANDARD);
+                getAPIsByStatus(Arrays.asList(STATUS_CREATED, STATUS_PUBLISHED), ApiType.STANDARD, null, 1, 2);
     }
 
     @Test(description = "Add Composite API")
@@ -895,8 +913,8 @@ public class APIStoreImplTestCase {
         ApiDAO apiDAO = Mockito.mock(ApiDAO.class);
         APIStore apiStore = getApiStoreImpl(apiDAO);
         String[] statuses = {STATUS_CREATED, STATUS_PUBLISHED};
-        Mockito.when(apiDAO.getAPIsByStatus(Arrays.asList(STATUS_CREATED, STATUS_PUBLISHED), ApiType.STANDARD)).
-                thenThrow(new APIMgtDAOException(
+        Mockito.when(apiDAO.getAPIsByStatus(Arrays.asList(STATUS_CREATED, STATUS_PUBLISHED), ApiType.STANDARD, null,
+                1, 2)).thenThrow(new APIMgtDAOException(
                         "Error occurred while fetching APIs for the given statuses - " + Arrays.toString(statuses)));
         apiStore.getAllAPIsByStatus(1, 2, statuses);
     }
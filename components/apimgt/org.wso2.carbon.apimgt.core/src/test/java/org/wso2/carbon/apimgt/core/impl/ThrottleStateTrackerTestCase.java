@@ -0,0 +1,192 @@
+/*
+ *
+ *   Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.carbon.apimgt.core.impl;
+
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.apimgt.core.api.Broker;
+import org.wso2.carbon.apimgt.core.exception.BrokerException;
+import org.wso2.carbon.apimgt.core.exception.ExceptionCodes;
+import org.wso2.carbon.apimgt.core.util.BrokerUtil;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+import javax.jms.BytesMessage;
+import javax.jms.ExceptionListener;
+import javax.jms.JMSException;
+import javax.jms.MapMessage;
+import javax.jms.Session;
+import javax.jms.Topic;
+import javax.jms.TopicConnection;
+import javax.jms.TopicSession;
+import javax.jms.TopicSubscriber;
+
+/**
+ * Test class for ThrottleStateTracker
+ */
+public class ThrottleStateTrackerTestCase {
+
+    @Test(description = "Test tracking throttle decisions")
+    public void testThrottleDecisions() throws Exception {
+        ThrottleStateTracker tracker = new ThrottleStateTracker();
+        long expiryTime = System.currentTimeMillis() + 60000;
+        tracker.onMessage(throttleDecision("/pizzashack/1.0.0:1.0.0_default", true, expiryTime));
+        tracker.onMessage(throttleDecision("app1:user1", true, expiryTime));
+        tracker.onMessage(throttleDecision("expired", true, System.currentTimeMillis() - 1000));
+        tracker.onMessage(throttleDecision("app1:user1", false, expiryTime));
+
+        Map<String, Long> throttleKeys = tracker.getThrottleKeys();
+        Assert.assertEquals(throttleKeys.size(), 1);
+        Assert.assertEquals(throttleKeys.get("/pizzashack/1.0.0:1.0.0_default"), Long.valueOf(expiryTime));
+    }
+
+    @Test(description = "Test tracking blocking conditions and key templates")
+    public void testBlockingConditionsAndKeyTemplates() throws Exception {
+        ThrottleStateTracker tracker = new ThrottleStateTracker();
+        tracker.onMessage(mapMessage(ThrottleStateTracker.BLOCKING_CONDITION_KEY, "IP",
+                ThrottleStateTracker.BLOCKING_CONDITION_VALUE, "10.0.0.1",
+                ThrottleStateTracker.BLOCKING_CONDITION_STATE, "true"));
+        tracker.onMessage(mapMessage(ThrottleStateTracker.BLOCKING_CONDITION_KEY, "API",
+                ThrottleStateTracker.BLOCKING_CONDITION_VALUE, "/pizzashack/1.0.0",
+                ThrottleStateTracker.BLOCKING_CONDITION_STATE, "true"));
+        tracker.onMessage(mapMessage(ThrottleStateTracker.BLOCKING_CONDITION_KEY, "API",
+                ThrottleStateTracker.BLOCKING_CONDITION_VALUE, "/pizzashack/1.0.0",
+                ThrottleStateTracker.BLOCKING_CONDITION_STATE, "false"));
+        tracker.onMessage(mapMessage(ThrottleStateTracker.POLICY_TEMPLATE_KEY, "$userId:$apiContext",
+                ThrottleStateTracker.TEMPLATE_KEY_STATE, "add"));
+
+        Assert.assertEquals(tracker.getBlockingConditions(ThrottleStateTracker.BLOCKING_CONDITIONS_IP).size(), 1);
+        Assert.assertTrue(tracker.getBlockingConditions(ThrottleStateTracker.BLOCKING_CONDITIONS_IP)
+                .contains("10.0.0.1"));
+        Assert.assertTrue(tracker.getBlockingConditions(ThrottleStateTracker.BLOCKING_CONDITIONS_API).isEmpty());
+        Assert.assertTrue(tracker.getBlockingConditions(ThrottleStateTracker.BLOCKING_CONDITIONS_USER).isEmpty());
+        Assert.assertTrue(tracker.getKeyTemplates().contains("$userId:$apiContext"));
+
+        tracker.onMessage(mapMessage(ThrottleStateTracker.POLICY_TEMPLATE_KEY, "$userId:$apiContext",
+                ThrottleStateTracker.TEMPLATE_KEY_STATE, "remove"));
+        Assert.assertTrue(tracker.getKeyTemplates().isEmpty());
+    }
+
+    @Test(description = "Test tracking messages of the binary format")
+    public void testBinaryMessages() throws Exception {
+        ThrottleStateTracker tracker = new ThrottleStateTracker();
+        long expiryTime = System.currentTimeMillis() + 60000;
+        tracker.onMessage(bytesMessage(BrokerUtil.encodeThrottleDecision("app1:user1", true, expiryTime)));
+        tracker.onMessage(bytesMessage(BrokerUtil.encodeBlockingCondition("USER", "user1", true)));
+        tracker.onMessage(bytesMessage(BrokerUtil.encodeKeyTemplate("$userId", true)));
+        tracker.onMessage(bytesMessage(new byte[]{BrokerUtil.BINARY_FORMAT_VERSION}));
+
+        Assert.assertEquals(tracker.getThrottleKeys().get("app1:user1"), Long.valueOf(expiryTime));
+        Assert.assertTrue(tracker.getBlockingConditions(ThrottleStateTracker.BLOCKING_CONDITIONS_USER)
+                .contains("user1"));
+        Assert.assertTrue(tracker.getKeyTemplates().contains("$userId"));
+    }
+
+    @Test(description = "Test subscribing again after the connection is lost")
+    public void testReconnectsAfterConnectionFailure() throws Exception {
+        TopicConnection connection = Mockito.mock(TopicConnection.class);
+        TopicSession session = Mockito.mock(TopicSession.class);
+        Mockito.when(connection.createTopicSession(false, Session.AUTO_ACKNOWLEDGE)).thenReturn(session);
+        Mockito.when(session.createSubscriber(Mockito.any(Topic.class)))
+                .thenReturn(Mockito.mock(TopicSubscriber.class));
+        Broker broker = Mockito.mock(Broker.class);
+        Mockito.when(broker.getTopicConnection())
+                .thenThrow(new BrokerException("Broker is not available", ExceptionCodes.BROKER_EXCEPTION))
+                .thenReturn(connection);
+
+        ThrottleStateTracker tracker = new ThrottleStateTracker(10, 50);
+        Assert.assertFalse(tracker.isReady());
+        tracker.start(broker, "throttleData", 0);
+        try {
+            waitFor(tracker::isReady);
+            Mockito.verify(broker, Mockito.times(2)).getTopicConnection();
+
+            ArgumentCaptor<ExceptionListener> exceptionListener = ArgumentCaptor.forClass(ExceptionListener.class);
+            Mockito.verify(connection, Mockito.atLeastOnce()).setExceptionListener(exceptionListener.capture());
+            exceptionListener.getValue().onException(new JMSException("Connection lost"));
+            Mockito.verify(broker, Mockito.timeout(10000).times(3)).getTopicConnection();
+            waitFor(tracker::isReady);
+            Mockito.verify(connection, Mockito.atLeastOnce()).close();
+        } finally {
+            tracker.stop();
+        }
+        Assert.assertFalse(tracker.isReady());
+    }
+
+    @Test(description = "Test the state is not reported as ready before the warm-up period has passed")
+    public void testNotReadyDuringWarmUp() throws Exception {
+        TopicConnection connection = Mockito.mock(TopicConnection.class);
+        TopicSession session = Mockito.mock(TopicSession.class);
+        Mockito.when(connection.createTopicSession(false, Session.AUTO_ACKNOWLEDGE)).thenReturn(session);
+        Mockito.when(session.createSubscriber(Mockito.any(Topic.class)))
+                .thenReturn(Mockito.mock(TopicSubscriber.class));
+        Broker broker = Mockito.mock(Broker.class);
+        Mockito.when(broker.getTopicConnection()).thenReturn(connection);
+
+        ThrottleStateTracker tracker = new ThrottleStateTracker(10, 50);
+        tracker.start(broker, "throttleData", 60000);
+        try {
+            Mockito.verify(connection, Mockito.timeout(10000)).start();
+            Assert.assertFalse(tracker.isReady());
+        } finally {
+            tracker.stop();
+        }
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (!condition.getAsBoolean()) {
+            Assert.assertTrue(System.currentTimeMillis() < deadline, "Timed out waiting for the condition");
+            Thread.sleep(10);
+        }
+    }
+
+    private static MapMessage throttleDecision(String throttleKey, boolean throttled, long expiryTime)
+            throws JMSException {
+        return mapMessage(ThrottleStateTracker.THROTTLE_KEY, throttleKey, ThrottleStateTracker.IS_THROTTLED,
+                String.valueOf(throttled), ThrottleStateTracker.EXPIRY_TIMESTAMP, String.valueOf(expiryTime));
+    }
+
+    private static MapMessage mapMessage(String... keysAndValues) throws JMSException {
+        Map<String, String> values = new HashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            values.put(keysAndValues[i], keysAndValues[i + 1]);
+        }
+        MapMessage message = Mockito.mock(MapMessage.class);
+        Mockito.when(message.getString(Mockito.anyString())).thenAnswer(
+                invocation -> values.get((String) invocation.getArguments()[0]));
+        return message;
+    }
+
+    private static BytesMessage bytesMessage(byte[] body) throws JMSException {
+        BytesMessage message = Mockito.mock(BytesMessage.class);
+        Mockito.when(message.getBodyLength()).thenReturn((long) body.length);
+        Mockito.when(message.readBytes(Mockito.any(byte[].class))).thenAnswer(invocation -> {
+            byte[] target = (byte[]) invocation.getArguments()[0];
+            System.arraycopy(body, 0, target, 0, body.length);
+            return body.length;
+        });
+        return message;
+    }
+}
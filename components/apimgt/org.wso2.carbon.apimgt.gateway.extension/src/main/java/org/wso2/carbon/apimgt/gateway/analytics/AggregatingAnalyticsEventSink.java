@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.analytics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.apimgt.gateway.analytics.dto.AnalyticsEventStreamDTO;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sink which rolls up the analytics events with an {@link AnalyticsAggregator}, and sends only the aggregates of the
+ * completed windows to the given sink. Windows are completed on the flush calls of the drainer thread, and the open
+ * windows are sent when the sink is closed.
+ */
+public class AggregatingAnalyticsEventSink implements AnalyticsEventSink {
+
+    private static final Logger log = LoggerFactory.getLogger(AggregatingAnalyticsEventSink.class);
+
+    private final AnalyticsEventSink sink;
+    private final AnalyticsAggregator aggregator;
+
+    private final AtomicLong aggregatedEvents = new AtomicLong();
+    private final AtomicLong publishedAggregates = new AtomicLong();
+    private final AtomicLong failedAggregates = new AtomicLong();
+    private final AtomicLong overflowEvents = new AtomicLong();
+
+    /**
+     * @param sink       sink to send the aggregates to
+     * @param aggregator aggregator holding the open windows
+     */
+    public AggregatingAnalyticsEventSink(AnalyticsEventSink sink, AnalyticsAggregator aggregator) {
+        this.sink = sink;
+        this.aggregator = aggregator;
+    }
+
+    @Override
+    public void publish(AnalyticsEventStreamDTO[] events, int count) {
+        long currentTime = System.currentTimeMillis();
+        for (int i = 0; i < count; i++) {
+            aggregator.add(events[i], currentTime);
+        }
+        aggregatedEvents.set(aggregator.getAggregatedEventCount());
+        overflowEvents.set(aggregator.getOverflowEventCount());
+    }
+
+    @Override
+    public void flush(long currentTime) throws AnalyticsException {
+        send(aggregator.completeWindows(currentTime));
+    }
+
+    @Override
+    public void close() {
+        try {
+            send(aggregator.completeAllWindows());
+        } catch (AnalyticsException | RuntimeException e) {
+            log.error("Error while publishing the analytics aggregates of the open windows", e);
+        } finally {
+            sink.close();
+        }
+    }
+
+    /**
+     * @return number of events added to the aggregates
+     */
+    public long getAggregatedEventCount() {
+        return aggregatedEvents.get();
+    }
+
+    /**
+     * @return number of aggregates sent to the sink
+     */
+    public long getPublishedAggregateCount() {
+        return publishedAggregates.get();
+    }
+
+    /**
+     * @return number of aggregates which the sink failed to send
+     */
+    public long getFailedAggregateCount() {
+        return failedAggregates.get();
+    }
+
+    /**
+     * @return number of events added to an overflow aggregate as their window was full
+     */
+    public long getOverflowEventCount() {
+        return overflowEvents.get();
+    }
+
+    private void send(List<AnalyticsAggregate> aggregates) throws AnalyticsException {
+        if (aggregates.isEmpty()) {
+            return;
+        }
+        try {
+            sink.publishAggregates(aggregates);
+            publishedAggregates.addAndGet(aggregates.size());
+        } catch (AnalyticsException | RuntimeException e) {
+            failedAggregates.addAndGet(aggregates.size());
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.analytics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Requests of an API, application and resource within a time window, rolled up by the analytics aggregator.
+ */
+public class AnalyticsAggregate {
+
+    /**
+     * Used in place of the application or resource of the requests which did not fit in the key limit of the window
+     */
+    public static final String OVERFLOW = "__other__";
+
+    private static final int MAX_RESPONSE_CODES = 32;
+    private static final double[] PERCENTILES = {50, 90, 95, 99};
+
+    private final long windowStart;
+    private final long windowEnd;
+    private final String apiName;
+    private final String version;
+    private final String applicationId;
+    private final String resource;
+
+    private long requestCount;
+    private long faultCount;
+    private long throttledCount;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final Map<String, Long> responseCodeCounts = new LinkedHashMap<>();
+
+    public AnalyticsAggregate(long windowStart, long windowEnd, String apiName, String version,
+                              String applicationId, String resource) {
+        this.windowStart = windowStart;
+        this.windowEnd = windowEnd;
+        this.apiName = apiName;
+        this.version = version;
+        this.applicationId = applicationId;
+        this.resource = resource;
+    }
+
+    /**
+     * Adds a request to the aggregate.
+     *
+     * @param latencyMillis latency of the request, or a negative value if it is not known
+     * @param responseCode  response code, or null if the request has no response
+     * @param fault         whether the request failed
+     * @param throttled     whether the request was throttled out
+     */
+    public void add(long latencyMillis, String responseCode, boolean fault, boolean throttled) {
+        requestCount++;
+        if (fault) {
+            faultCount++;
+        }
+        if (throttled) {
+            throttledCount++;
+        }
+        latency.record(latencyMillis);
+        if (responseCode != null) {
+            String code = responseCodeCounts.size() < MAX_RESPONSE_CODES
+                    || responseCodeCounts.containsKey(responseCode) ? responseCode : OVERFLOW;
+            responseCodeCounts.merge(code, 1L, Long::sum);
+        }
+    }
+
+    public long getWindowStart() {
+        return windowStart;
+    }
+
+    public long getWindowEnd() {
+        return windowEnd;
+    }
+
+    public String getApiName() {
+        return apiName;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public String getApplicationId() {
+        return applicationId;
+    }
+
+    public String getResource() {
+        return resource;
+    }
+
+    public long getRequestCount() {
+        return requestCount;
+    }
+
+    public long getFaultCount() {
+        return faultCount;
+    }
+
+    public long getThrottledCount() {
+        return throttledCount;
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    public Map<String, Long> getResponseCodeCounts() {
+        return responseCodeCounts;
+    }
+
+    /**
+     * @return attributes of the aggregate, including the latency percentiles and the non empty latency buckets, to
+     * be serialized by the sinks
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("windowStart", windowStart);
+        map.put("windowEnd", windowEnd);
+        map.put("apiName", apiName);
+        map.put("version", version);
+        map.put("applicationId", applicationId);
+        map.put("resource", resource);
+        map.put("requestCount", requestCount);
+        map.put("faultCount", faultCount);
+        map.put("throttledCount", throttledCount);
+        map.put("responseCodes", responseCodeCounts);
+        Map<String, Object> latencyMap = new LinkedHashMap<>();
+        latencyMap.put("count", latency.getTotalCount());
+        latencyMap.put("min", latency.getMin());
+        latencyMap.put("mean", latency.getMean());
+        for (double percentile : PERCENTILES) {
+            latencyMap.put("p" + (int) percentile, latency.getValueAtPercentile(percentile));
+        }
+        latencyMap.put("max", latency.getMax());
+        latencyMap.put("buckets", latency.getBuckets());
+        map.put("latency", latencyMap);
+        return map;
+    }
+}
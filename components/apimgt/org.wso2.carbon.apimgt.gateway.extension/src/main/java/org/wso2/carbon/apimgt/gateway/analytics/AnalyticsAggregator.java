@@ -0,0 +1,222 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.analytics;
+
+import org.wso2.carbon.apimgt.gateway.analytics.dto.AnalyticsEventStreamDTO;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Rolls up analytics events into aggregates per API, version, application and resource over fixed time windows.
+ * <p>
+ * A window holds at most the given number of keys. Once it is full, the requests of a new key are added to the
+ * overflow aggregate of their API, which has {@link AnalyticsAggregate#OVERFLOW} as the application and resource.
+ * The number of overflow aggregates of a window is bounded as well, and beyond that the requests are added to a
+ * single aggregate with {@link AnalyticsAggregate#OVERFLOW} as every attribute. A window is completed once its end
+ * plus the allowed lateness has passed, and an event which arrives for a completed window is added to the oldest
+ * open window. This class is not thread safe.
+ */
+public class AnalyticsAggregator {
+
+    private final long windowMillis;
+    private final long allowedLatenessMillis;
+    private final int maxKeys;
+    private final int maxOverflowKeys;
+    private final TreeMap<Long, Map<Key, AnalyticsAggregate>> windows = new TreeMap<>();
+    private long completedUntil = Long.MIN_VALUE;
+
+    private long aggregatedEvents;
+    private long overflowEvents;
+    private long lateEvents;
+
+    /**
+     * @param windowMillis          length of a window in milliseconds
+     * @param allowedLatenessMillis time to wait for late events after the end of a window
+     * @param maxKeys               maximum number of aggregates in a window, excluding the overflow aggregates
+     */
+    public AnalyticsAggregator(long windowMillis, long allowedLatenessMillis, int maxKeys) {
+        if (windowMillis <= 0) {
+            throw new IllegalArgumentException("Window length should be positive: " + windowMillis);
+        }
+        this.windowMillis = windowMillis;
+        this.allowedLatenessMillis = Math.max(0, allowedLatenessMillis);
+        this.maxKeys = Math.max(1, maxKeys);
+        this.maxOverflowKeys = Math.max(1, this.maxKeys / 10);
+    }
+
+    /**
+     * Adds an event to the aggregate of its window.
+     *
+     * @param event       analytics event
+     * @param currentTime time used for the events which do not have a valid request time
+     */
+    public void add(AnalyticsEventStreamDTO event, long currentTime) {
+        long requestTime = parseLong(event.getRequestTime(), currentTime);
+        long windowStart = requestTime - Math.floorMod(requestTime, windowMillis);
+        if (windowStart < completedUntil) {
+            windowStart = completedUntil;
+            lateEvents++;
+        }
+        long windowEnd = windowStart + windowMillis;
+        Map<Key, AnalyticsAggregate> window = windows.computeIfAbsent(windowStart, start -> new HashMap<>());
+
+        String resource = event.getUriTemplate() != null ? event.getUriTemplate() : event.getResourcePath();
+        if (event.getMethod() != null && resource != null) {
+            resource = event.getMethod() + ' ' + resource;
+        }
+        Key key = new Key(event.getApiName(), event.getVersion(), event.getApplicationId(), resource);
+        AnalyticsAggregate aggregate = window.get(key);
+        if (aggregate == null) {
+            if (window.size() >= maxKeys) {
+                overflowEvents++;
+                key = new Key(event.getApiName(), event.getVersion(), AnalyticsAggregate.OVERFLOW,
+                        AnalyticsAggregate.OVERFLOW);
+                aggregate = window.get(key);
+                if (aggregate == null && window.size() >= maxKeys + maxOverflowKeys) {
+                    key = new Key(AnalyticsAggregate.OVERFLOW, AnalyticsAggregate.OVERFLOW,
+                            AnalyticsAggregate.OVERFLOW, AnalyticsAggregate.OVERFLOW);
+                    aggregate = window.get(key);
+                }
+            }
+            if (aggregate == null) {
+                aggregate = new AnalyticsAggregate(windowStart, windowEnd, key.apiName, key.version,
+                        key.applicationId, key.resource);
+                window.put(key, aggregate);
+            }
+        }
+
+        long responseTime = parseLong(event.getResponseTime(), -1);
+        long latency = responseTime >= 0 && requestTime <= responseTime ? responseTime - requestTime : -1;
+        aggregate.add(latency, event.getResponseCode(), event.getIsFaultDataExist(),
+                event.getIsThrottleDataExist() || Boolean.parseBoolean(event.getIsThrottled()));
+        aggregatedEvents++;
+    }
+
+    /**
+     * Removes the windows which are completed at the given time.
+     *
+     * @param currentTime current time in milliseconds
+     * @return aggregates of the completed windows
+     */
+    public List<AnalyticsAggregate> completeWindows(long currentTime) {
+        return removeWindows(currentTime - allowedLatenessMillis - windowMillis + 1);
+    }
+
+    /**
+     * Removes all the windows, whether they are completed or not.
+     *
+     * @return aggregates of all the windows
+     */
+    public List<AnalyticsAggregate> completeAllWindows() {
+        return removeWindows(Long.MAX_VALUE);
+    }
+
+    /**
+     * @return number of events added to the aggregates
+     */
+    public long getAggregatedEventCount() {
+        return aggregatedEvents;
+    }
+
+    /**
+     * @return number of events added to an overflow aggregate as their window was full
+     */
+    public long getOverflowEventCount() {
+        return overflowEvents;
+    }
+
+    /**
+     * @return number of events which arrived after their window was completed
+     */
+    public long getLateEventCount() {
+        return lateEvents;
+    }
+
+    /**
+     * @return number of windows which are not completed yet
+     */
+    public int getOpenWindowCount() {
+        return windows.size();
+    }
+
+    private List<AnalyticsAggregate> removeWindows(long windowStartBefore) {
+        List<AnalyticsAggregate> aggregates = new ArrayList<>();
+        Iterator<Map.Entry<Long, Map<Key, AnalyticsAggregate>>> iterator = windows.headMap(windowStartBefore)
+                .entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Long, Map<Key, AnalyticsAggregate>> window = iterator.next();
+            aggregates.addAll(window.getValue().values());
+            completedUntil = Math.max(completedUntil, window.getKey() + windowMillis);
+            iterator.remove();
+        }
+        return aggregates;
+    }
+
+    private static long parseLong(String value, long defaultValue) {
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    private static final class Key {
+
+        private final String apiName;
+        private final String version;
+        private final String applicationId;
+        private final String resource;
+        private final int hash;
+
+        private Key(String apiName, String version, String applicationId, String resource) {
+            this.apiName = apiName;
+            this.version = version;
+            this.applicationId = applicationId;
+            this.resource = resource;
+            this.hash = Objects.hash(apiName, version, applicationId, resource);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key that = (Key) other;
+            return Objects.equals(apiName, that.apiName) && Objects.equals(version, that.version)
+                    && Objects.equals(applicationId, that.applicationId) && Objects.equals(resource, that.resource);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
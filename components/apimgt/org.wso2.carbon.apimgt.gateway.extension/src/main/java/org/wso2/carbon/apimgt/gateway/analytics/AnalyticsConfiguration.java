@@ -21,6 +21,12 @@ package org.wso2.carbon.apimgt.gateway.analytics;
  * This class is used to keep the Analytics related configurations
  */
 public class AnalyticsConfiguration {
+
+    public static final String LOG_SINK = "log";
+    public static final String FILE_SINK = "file";
+    public static final String JMS_SINK = "jms";
+    public static final String HTTP_SINK = "http";
+
     private boolean enabled = true;
     private boolean skipEventReceiverConnection = false;
 
@@ -37,6 +43,20 @@ public class AnalyticsConfiguration {
     private String workflowEventStreamName = "org.wso2.carbon.apim.workflow";
     private String workflowEventStreamVersion = "2.0.0";
 
+    private String eventSink = LOG_SINK;
+    private int eventBufferSize = 8192;
+    private int eventBatchSize = 200;
+    private long eventFlushIntervalMillis = 1000;
+    private String eventFilePath = "analytics-events.log";
+    private String eventReceiverUrl = "http://localhost:9763/analytics/events";
+    private String eventTopicName = "analyticsEventStream";
+    private String topicServerHost = "localhost";
+    private String topicServerPort = "5672";
+
+    private boolean aggregationEnabled = false;
+    private long aggregationWindowMillis = 10000;
+    private int aggregationMaxKeys = 10000;
+
     public boolean isEnabled() {
         return enabled;
     }
@@ -124,4 +144,100 @@ public class AnalyticsConfiguration {
     public void setWorkflowEventStreamVersion(String workflowEventStreamVersion) {
         this.workflowEventStreamVersion = workflowEventStreamVersion;
     }
+
+    public String getEventSink() {
+        return eventSink;
+    }
+
+    public void setEventSink(String eventSink) {
+        this.eventSink = eventSink;
+    }
+
+    public int getEventBufferSize() {
+        return eventBufferSize;
+    }
+
+    public void setEventBufferSize(int eventBufferSize) {
+        this.eventBufferSize = eventBufferSize;
+    }
+
+    public int getEventBatchSize() {
+        return eventBatchSize;
+    }
+
+    public void setEventBatchSize(int eventBatchSize) {
+        this.eventBatchSize = eventBatchSize;
+    }
+
+    public long getEventFlushIntervalMillis() {
+        return eventFlushIntervalMillis;
+    }
+
+    public void setEventFlushIntervalMillis(long eventFlushIntervalMillis) {
+        this.eventFlushIntervalMillis = eventFlushIntervalMillis;
+    }
+
+    public String getEventFilePath() {
+        return eventFilePath;
+    }
+
+    public void setEventFilePath(String eventFilePath) {
+        this.eventFilePath = eventFilePath;
+    }
+
+    public String getEventReceiverUrl() {
+        return eventReceiverUrl;
+    }
+
+    public void setEventReceiverUrl(String eventReceiverUrl) {
+        this.eventReceiverUrl = eventReceiverUrl;
+    }
+
+    public String getEventTopicName() {
+        return eventTopicName;
+    }
+
+    public void setEventTopicName(String eventTopicName) {
+        this.eventTopicName = eventTopicName;
+    }
+
+    public String getTopicServerHost() {
+        return topicServerHost;
+    }
+
+    public void setTopicServerHost(String topicServerHost) {
+        this.topicServerHost = topicServerHost;
+    }
+
+    public String getTopicServerPort() {
+        return topicServerPort;
+    }
+
+    public void setTopicServerPort(String topicServerPort) {
+        this.topicServerPort = topicServerPort;
+    }
+
+    public boolean isAggregationEnabled() {
+        return aggregationEnabled;
+    }
+
+    public void setAggregationEnabled(boolean aggregationEnabled) {
+        this.aggregationEnabled = aggregationEnabled;
+    }
+
+    public long getAggregationWindowMillis() {
+        return aggregationWindowMillis;
+    }
+
+    public void setAggregationWindowMillis(long aggregationWindowMillis) {
+        this.aggregationWindowMillis = aggregationWindowMillis;
+    }
+
+    public int getAggregationMaxKeys() {
+        return aggregationMaxKeys;
+    }
+
+    public void setAggregationMaxKeys(int aggregationMaxKeys) {
+        this.aggregationMaxKeys = aggregationMaxKeys;
+    }
 }
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.analytics;
+
+import org.wso2.carbon.apimgt.gateway.analytics.dto.AnalyticsEventStreamDTO;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool of analytics event objects. An event is taken from the pool when a request is received, and is returned to
+ * the pool by the event publisher once it has been sent, so that an event object is not allocated for each request.
+ * The pool holds at most the given number of idle events, and creates a new event when it is empty.
+ */
+public class AnalyticsEventPool {
+
+    private final ConcurrentLinkedQueue<AnalyticsEventStreamDTO> idleEvents = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+    private final int maxIdleEvents;
+    private final LongAdder createdEvents = new LongAdder();
+
+    /**
+     * @param maxIdleEvents maximum number of events held by the pool
+     */
+    public AnalyticsEventPool(int maxIdleEvents) {
+        this.maxIdleEvents = maxIdleEvents;
+    }
+
+    /**
+     * @return an idle event, or a new event if the pool is empty
+     */
+    public AnalyticsEventStreamDTO acquire() {
+        AnalyticsEventStreamDTO event = idleEvents.poll();
+        if (event == null) {
+            createdEvents.increment();
+            return new AnalyticsEventStreamDTO();
+        }
+        idleCount.decrementAndGet();
+        return event;
+    }
+
+    /**
+     * Clears the given event and returns it to the pool. The event must not be used by the caller afterwards.
+     *
+     * @param event event which is no longer used
+     */
+    public void release(AnalyticsEventStreamDTO event) {
+        event.reset();
+        if (idleCount.incrementAndGet() <= maxIdleEvents) {
+            idleEvents.offer(event);
+        } else {
+            idleCount.decrementAndGet();
+        }
+    }
+
+    /**
+     * @return number of idle events in the pool
+     */
+    public int getIdleEventCount() {
+        return idleCount.get();
+    }
+
+    /**
+     * @return number of events created as the pool was empty
+     */
+    public long getCreatedEventCount() {
+        return createdEvents.sum();
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.analytics;
+
+import org.wso2.carbon.apimgt.gateway.analytics.dto.AnalyticsEventStreamDTO;
+
+import java.util.List;
+
+/**
+ * Destination of the batches of analytics events drained by the event publisher.
+ */
+public interface AnalyticsEventSink {
+
+    /**
+     * Sends a batch of events. This is only called by the drainer thread of the publisher, and the events are
+     * returned to the event pool once this returns, so implementations must not keep references to them.
+     *
+     * @param events array holding the events of the batch
+     * @param count  number of events in the batch, starting from the first element of the array
+     * @throws AnalyticsException if the batch could not be sent
+     */
+    void publish(AnalyticsEventStreamDTO[] events, int count) throws AnalyticsException;
+
+    /**
+     * Sends the aggregates of completed windows, when the events are rolled up in the gateway by an
+     * {@link AggregatingAnalyticsEventSink}.
+     *
+     * @param aggregates aggregates to send
+     * @throws AnalyticsException if the aggregates could not be sent, or the sink does not support aggregates
+     */
+    default void publishAggregates(List<AnalyticsAggregate> aggregates) throws AnalyticsException {
+        throw new AnalyticsException(getClass().getSimpleName() + " does not support analytics aggregates");
+    }
+
+    /**
+     * Called by the drainer thread once every flush interval, whether there are events or not, so that sinks which
+     * hold events can send them in time.
+     *
+     * @param currentTime current time in milliseconds
+     * @throws AnalyticsException if the held events could not be sent
+     */
+    default void flush(long currentTime) throws AnalyticsException {
+    }
+
+    /**
+     * Releases the resources held by the sink.
+     */
+    void close();
+}
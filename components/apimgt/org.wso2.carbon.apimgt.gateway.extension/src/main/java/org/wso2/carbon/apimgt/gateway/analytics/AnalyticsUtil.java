@@ -28,6 +28,15 @@ import org.wso2.carbon.messaging.CarbonMessage;
  */
 public class AnalyticsUtil {
     private static Logger log = LoggerFactory.getLogger(AnalyticsUtil.class);
+    private static final int MAX_IDLE_EVENTS = 8192;
+    private static final AnalyticsEventPool eventPool = new AnalyticsEventPool(MAX_IDLE_EVENTS);
+
+    /**
+     * @return pool holding the event objects of the requests
+     */
+    public static AnalyticsEventPool getEventPool() {
+        return eventPool;
+    }
 
     /**
      * Setting request related properties
@@ -101,7 +110,7 @@ public class AnalyticsUtil {
      */
     public static AnalyticsEventStreamDTO initializeStreamDTO(CarbonMessage carbonMessage) {
         log.debug("Initializing AnalyticsEventStreamDTO");
-        AnalyticsEventStreamDTO dto = new AnalyticsEventStreamDTO();
+        AnalyticsEventStreamDTO dto = eventPool.acquire();
         dto.setApiName("sampleAPI");
         dto.setVersion("1.0.0");
         dto.setCreator("admin");
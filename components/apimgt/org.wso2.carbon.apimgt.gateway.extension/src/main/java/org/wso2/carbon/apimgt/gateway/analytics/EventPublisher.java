@@ -29,7 +29,8 @@ public interface EventPublisher {
     void init();
 
     /**
-     * Publish event DTO
+     * Publish event DTO. This is called on the response path, so implementations should not block. The publisher
+     * takes ownership of the event, and the caller must not use it afterwards.
      *
      * @param dto AnalyticsEventStreamDTO to be published
      */
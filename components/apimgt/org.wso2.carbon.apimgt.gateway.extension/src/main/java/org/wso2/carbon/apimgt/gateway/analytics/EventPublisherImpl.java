@@ -17,35 +17,274 @@ package org.wso2.carbon.apimgt.gateway.analytics;
  * under the License.
  */
 
-import com.google.gson.Gson;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wso2.carbon.apimgt.gateway.analytics.dto.AnalyticsEventStreamDTO;
+import org.wso2.carbon.apimgt.gateway.http.GatewayHttpClient;
+import org.wso2.carbon.apimgt.gateway.internal.ServiceReferenceHolder;
+import org.wso2.carbon.apimgt.gateway.jms.JmsAnalyticsEventSink;
+import org.wso2.carbon.apimgt.gateway.throttling.dto.JMSConfigDTO;
+import org.wso2.carbon.apimgt.gateway.utils.EventRingBuffer;
+
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
 
 /**
- * Default implementation of the EventPublisher
+ * Default implementation of the EventPublisher.
+ * <p>
+ * Request threads only add the event to a bounded queue, and a background drainer thread sends the events to the
+ * configured sink in batches. A batch is sent once it is full or once the flush interval has elapsed since its first
+ * event. If the queue is full the event is dropped and counted, so publishing never blocks the response. Events are
+ * returned to the event pool of {@link AnalyticsUtil} once they have been sent or dropped.
+ * <p>
+ * If aggregation is enabled, the events are rolled up into time windows in the gateway and only the aggregates are
+ * sent, see {@link AggregatingAnalyticsEventSink}.
  */
 public class EventPublisherImpl implements EventPublisher {
 
     private static Logger log = LoggerFactory.getLogger(EventPublisherImpl.class);
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 10000;
+
+    private volatile EventRingBuffer<AnalyticsEventStreamDTO> queue;
+    private AnalyticsEventPool eventPool;
+    private AnalyticsEventSink sink;
+    private int batchSize;
+    private long flushIntervalMillis;
+    private Thread drainerThread;
+    private volatile boolean running = true;
+
+    private final LongAdder droppedEvents = new LongAdder();
+    private final AtomicLong publishedEvents = new AtomicLong();
+    private final AtomicLong failedEvents = new AtomicLong();
+    private final AtomicLong sentBatches = new AtomicLong();
+
+    /**
+     * Creates a publisher which is started with the analytics configuration of the gateway on {@link #init()}.
+     */
+    public EventPublisherImpl() {
+    }
 
     /**
-     * Initialization of the publisher
+     * @param sink                sink to send the batches of events to
+     * @param eventPool           pool to return the events to once they are sent
+     * @param bufferSize          maximum number of events waiting to be sent
+     * @param batchSize           maximum number of events sent to the sink at once
+     * @param flushIntervalMillis maximum time in milliseconds an event waits for its batch to fill up
+     */
+    public EventPublisherImpl(AnalyticsEventSink sink, AnalyticsEventPool eventPool, int bufferSize, int batchSize,
+                              long flushIntervalMillis) {
+        start(sink, eventPool, bufferSize, batchSize, flushIntervalMillis);
+    }
+
+    /**
+     * Initialization of the publisher. The drainer thread is started on the first call, and later calls have no
+     * effect.
      */
     @Override
-    public void init() {
+    public synchronized void init() {
+        if (queue != null) {
+            return;
+        }
         log.debug("Initializing  EventPublisherImpl");
-
+        AnalyticsConfiguration configuration = ServiceReferenceHolder.getInstance().getAnalyticsConfiguration();
+        if (configuration == null) {
+            configuration = new AnalyticsConfiguration();
+        }
+        AnalyticsEventSink eventSink;
+        try {
+            eventSink = createSink(configuration);
+        } catch (AnalyticsException e) {
+            log.error("Error while creating analytics event sink " + configuration.getEventSink()
+                    + ". Events will be written to the log.", e);
+            eventSink = new LogAnalyticsEventSink();
+        }
+        start(eventSink, AnalyticsUtil.getEventPool(), configuration.getEventBufferSize(),
+                configuration.getEventBatchSize(), configuration.getEventFlushIntervalMillis());
     }
 
     /**
-     * Publish event DTO
+     * Adds the event to the queue, without waiting for it to be sent. The event is dropped if the queue is full.
+     * The event must not be used by the caller afterwards.
      *
      * @param dto AnalyticsEventStreamDTO to be published
      */
     @Override
     public void publishEvent(AnalyticsEventStreamDTO dto) {
-        log.debug("publish event...");
-        log.info("publishing event.. " + new Gson().toJson(AnalyticsUtil.generateStream(dto)));
+        EventRingBuffer<AnalyticsEventStreamDTO> eventQueue = queue;
+        if (eventQueue == null) {
+            init();
+            eventQueue = queue;
+        }
+        if (!eventQueue.offer(dto)) {
+            droppedEvents.increment();
+            eventPool.release(dto);
+        }
+    }
+
+    /**
+     * Stops the drainer thread after sending the events which are already in the queue, and closes the sink.
+     */
+    public void shutdown() {
+        running = false;
+        if (drainerThread == null) {
+            return;
+        }
+        LockSupport.unpark(drainerThread);
+        try {
+            drainerThread.join(SHUTDOWN_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted while waiting for the analytics event publisher to stop", e);
+        }
+    }
+
+    /**
+     * @return number of events sent to the sink
+     */
+    public long getPublishedEventCount() {
+        return publishedEvents.get();
+    }
+
+    /**
+     * @return number of events dropped as the queue was full
+     */
+    public long getDroppedEventCount() {
+        return droppedEvents.sum();
+    }
+
+    /**
+     * @return number of events which the sink failed to send
+     */
+    public long getFailedEventCount() {
+        return failedEvents.get();
+    }
+
+    /**
+     * @return number of batches sent to the sink
+     */
+    public long getSentBatchCount() {
+        return sentBatches.get();
+    }
+
+    /**
+     * @return number of events in the queue which are yet to be sent
+     */
+    public int getPendingEventCount() {
+        EventRingBuffer<AnalyticsEventStreamDTO> eventQueue = queue;
+        return eventQueue == null ? 0 : eventQueue.size();
+    }
+
+    private synchronized void start(AnalyticsEventSink sink, AnalyticsEventPool eventPool, int bufferSize,
+                                    int batchSize, long flushIntervalMillis) {
+        this.sink = sink;
+        this.eventPool = eventPool;
+        this.batchSize = Math.max(1, batchSize);
+        this.flushIntervalMillis = flushIntervalMillis;
+        drainerThread = new Thread(this::drain, "AnalyticsEventPublisher");
+        drainerThread.setDaemon(true);
+        // The queue is published last, as request threads only read the other fields once they see the queue
+        queue = new EventRingBuffer<>(bufferSize);
+        drainerThread.start();
+    }
+
+    private void drain() {
+        EventRingBuffer<AnalyticsEventStreamDTO> eventQueue = queue;
+        AnalyticsEventStreamDTO[] batch = new AnalyticsEventStreamDTO[batchSize];
+        int count = 0;
+        long batchStartTime = 0;
+        long lastDropCheckTime = System.currentTimeMillis();
+        long lastDroppedEvents = 0;
+        while (running || eventQueue.size() > 0) {
+            boolean polled = false;
+            AnalyticsEventStreamDTO event;
+            while (count < batchSize && (event = eventQueue.poll(null)) != null) {
+                if (count == 0) {
+                    batchStartTime = System.currentTimeMillis();
+                }
+                batch[count++] = event;
+                polled = true;
+            }
+            long currentTime = System.currentTimeMillis();
+            boolean flushDue = !running || currentTime - batchStartTime >= flushIntervalMillis;
+            if (count == batchSize || (count > 0 && flushDue)) {
+                send(batch, count);
+                count = 0;
+            } else if (!polled && running) {
+                long waitUntil = count > 0 ? batchStartTime + flushIntervalMillis
+                        : lastDropCheckTime + flushIntervalMillis;
+                eventQueue.awaitEvents(TimeUnit.MILLISECONDS.toNanos(waitUntil - currentTime));
+            }
+
+            if (currentTime - lastDropCheckTime >= flushIntervalMillis) {
+                flushSink(currentTime);
+                long dropped = droppedEvents.sum();
+                if (dropped > lastDroppedEvents) {
+                    log.warn("Analytics event queue is full. Dropped " + (dropped - lastDroppedEvents)
+                            + " events in the last " + (currentTime - lastDropCheckTime) + "ms");
+                    lastDroppedEvents = dropped;
+                }
+                lastDropCheckTime = currentTime;
+            }
+        }
+        if (count > 0) {
+            send(batch, count);
+        }
+        sink.close();
+    }
+
+    private void send(AnalyticsEventStreamDTO[] batch, int count) {
+        try {
+            sink.publish(batch, count);
+            publishedEvents.addAndGet(count);
+            sentBatches.incrementAndGet();
+        } catch (AnalyticsException | RuntimeException e) {
+            // Catching runtime exceptions as well, as the drainer thread must keep running
+            failedEvents.addAndGet(count);
+            log.error("Error while publishing " + count + " analytics events", e);
+        }
+        for (int i = 0; i < count; i++) {
+            eventPool.release(batch[i]);
+            batch[i] = null;
+        }
+    }
+
+    private void flushSink(long currentTime) {
+        try {
+            sink.flush(currentTime);
+        } catch (AnalyticsException | RuntimeException e) {
+            // Catching runtime exceptions as well, as the drainer thread must keep running
+            log.error("Error while flushing analytics event sink", e);
+        }
+    }
+
+    private static AnalyticsEventSink createSink(AnalyticsConfiguration configuration) throws AnalyticsException {
+        AnalyticsEventSink sink = createEventSink(configuration);
+        if (configuration.isAggregationEnabled()) {
+            return new AggregatingAnalyticsEventSink(sink, new AnalyticsAggregator(
+                    configuration.getAggregationWindowMillis(), configuration.getEventFlushIntervalMillis(),
+                    configuration.getAggregationMaxKeys()));
+        }
+        return sink;
+    }
+
+    private static AnalyticsEventSink createEventSink(AnalyticsConfiguration configuration) throws AnalyticsException {
+        String sinkType = configuration.getEventSink();
+        if (AnalyticsConfiguration.FILE_SINK.equals(sinkType)) {
+            return new FileAnalyticsEventSink(Paths.get(configuration.getEventFilePath()));
+        } else if (AnalyticsConfiguration.HTTP_SINK.equals(sinkType)) {
+            return new HttpAnalyticsEventSink(configuration.getEventReceiverUrl(), GatewayHttpClient.getInstance());
+        } else if (AnalyticsConfiguration.JMS_SINK.equals(sinkType)) {
+            JMSConfigDTO jmsConfig = new JMSConfigDTO(configuration.getAnalyzerUser(),
+                    configuration.getAnalyzerPass(), configuration.getEventTopicName());
+            jmsConfig.setClientId("carbon");
+            jmsConfig.setVirtualHostName("carbon");
+            jmsConfig.setDefaultHostname(configuration.getTopicServerHost());
+            jmsConfig.setDefaultPort(configuration.getTopicServerPort());
+            return new JmsAnalyticsEventSink(jmsConfig);
+        }
+        return new LogAnalyticsEventSink();
     }
 }
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.analytics;
+
+import com.google.gson.Gson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.apimgt.gateway.analytics.dto.AnalyticsEventStreamDTO;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Sink which appends the analytics events to a local file, one JSON array per line in the order of the event
+ * stream attributes. Aggregates are written as one JSON object per line.
+ */
+public class FileAnalyticsEventSink implements AnalyticsEventSink {
+
+    private static final Logger log = LoggerFactory.getLogger(FileAnalyticsEventSink.class);
+    private static final Gson gson = new Gson();
+
+    private final BufferedWriter writer;
+
+    public FileAnalyticsEventSink(Path file) throws AnalyticsException {
+        try {
+            writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new AnalyticsException("Error while opening analytics event file " + file, e);
+        }
+    }
+
+    @Override
+    public void publish(AnalyticsEventStreamDTO[] events, int count) throws AnalyticsException {
+        try {
+            for (int i = 0; i < count; i++) {
+                gson.toJson(AnalyticsUtil.generateStream(events[i]), writer);
+                writer.newLine();
+            }
+            writer.flush();
+        } catch (IOException e) {
+            throw new AnalyticsException("Error while writing analytics events to file", e);
+        }
+    }
+
+    @Override
+    public void publishAggregates(List<AnalyticsAggregate> aggregates) throws AnalyticsException {
+        try {
+            for (AnalyticsAggregate aggregate : aggregates) {
+                gson.toJson(aggregate.toMap(), writer);
+                writer.newLine();
+            }
+            writer.flush();
+        } catch (IOException e) {
+            throw new AnalyticsException("Error while writing analytics aggregates to file", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            writer.close();
+        } catch (IOException e) {
+            // swallowing exception since it wont affect the flow
+            log.warn("Error while closing analytics event file", e);
+        }
+    }
+}
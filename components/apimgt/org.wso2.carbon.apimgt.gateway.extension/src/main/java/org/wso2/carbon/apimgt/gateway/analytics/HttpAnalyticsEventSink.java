@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.analytics;
+
+import com.google.gson.Gson;
+import org.wso2.carbon.apimgt.gateway.analytics.dto.AnalyticsEventStreamDTO;
+import org.wso2.carbon.apimgt.gateway.http.GatewayHttpClient;
+import org.wso2.carbon.apimgt.gateway.http.HttpResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sink which posts each batch of analytics events to an HTTP receiver, as a JSON array holding the attributes of
+ * each event in the order of the event stream.
+ */
+public class HttpAnalyticsEventSink implements AnalyticsEventSink {
+
+    private static final Gson gson = new Gson();
+    private static final String CONTENT_TYPE = "application/json";
+
+    private final String receiverUrl;
+    private final GatewayHttpClient httpClient;
+
+    public HttpAnalyticsEventSink(String receiverUrl, GatewayHttpClient httpClient) {
+        this.receiverUrl = receiverUrl;
+        this.httpClient = httpClient;
+    }
+
+    @Override
+    public void publish(AnalyticsEventStreamDTO[] events, int count) throws AnalyticsException {
+        Object[][] streams = new Object[count][];
+        for (int i = 0; i < count; i++) {
+            streams[i] = AnalyticsUtil.generateStream(events[i]);
+        }
+        post(gson.toJson(streams));
+    }
+
+    @Override
+    public void publishAggregates(List<AnalyticsAggregate> aggregates) throws AnalyticsException {
+        List<Map<String, Object>> maps = new ArrayList<>(aggregates.size());
+        for (AnalyticsAggregate aggregate : aggregates) {
+            maps.add(aggregate.toMap());
+        }
+        post(gson.toJson(maps));
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private void post(String body) throws AnalyticsException {
+        HttpResponse response;
+        try {
+            response = httpClient.post(receiverUrl, CONTENT_TYPE, body.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new AnalyticsException("Error while sending analytics events to " + receiverUrl, e);
+        }
+        if (!response.isSuccessful()) {
+            throw new AnalyticsException("Analytics event receiver " + receiverUrl + " responded with "
+                    + response.getStatusCode() + " " + response.getReason());
+        }
+    }
+}
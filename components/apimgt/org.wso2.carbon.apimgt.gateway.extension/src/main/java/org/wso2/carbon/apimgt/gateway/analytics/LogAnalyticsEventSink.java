@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.analytics;
+
+import com.google.gson.Gson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.apimgt.gateway.analytics.dto.AnalyticsEventStreamDTO;
+
+import java.util.List;
+
+/**
+ * Sink which writes the analytics events to the log. This is the default sink, used until an analyzer is
+ * configured.
+ */
+public class LogAnalyticsEventSink implements AnalyticsEventSink {
+
+    private static final Logger log = LoggerFactory.getLogger(LogAnalyticsEventSink.class);
+    private static final Gson gson = new Gson();
+
+    @Override
+    public void publish(AnalyticsEventStreamDTO[] events, int count) {
+        if (log.isInfoEnabled()) {
+            for (int i = 0; i < count; i++) {
+                log.info("publishing event.. " + gson.toJson(AnalyticsUtil.generateStream(events[i])));
+            }
+        }
+    }
+
+    @Override
+    public void publishAggregates(List<AnalyticsAggregate> aggregates) {
+        if (log.isInfoEnabled()) {
+            for (AnalyticsAggregate aggregate : aggregates) {
+                log.info("publishing aggregate.. " + gson.toJson(aggregate.toMap()));
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -472,4 +472,58 @@ public class AnalyticsEventStreamDTO {
     public void setThrottledCount(String throttledCount) {
         this.throttledCount = throttledCount;
     }
+
+    /**
+     * Clears all the attributes, so that the object can be reused for the event of another request.
+     */
+    public void reset() {
+        userAgent = null;
+        hostName = null;
+        method = null;
+        clientIp = null;
+        protocol = null;
+        apiName = null;
+        context = null;
+        version = null;
+        creator = null;
+        endpoint = null;
+        resourcePath = null;
+        uriTemplate = null;
+        consumerKey = null;
+        applicationName = null;
+        applicationId = null;
+        applicationOwner = null;
+        userId = null;
+        subscriber = null;
+        gatewayIp = null;
+        gatewayDomain = null;
+        isThrottled = null;
+        throttledReason = null;
+        throttledPolicy = null;
+        subscriptionPolicy = null;
+        isRequestDataExist = false;
+        requestTime = null;
+        requestCount = null;
+        isResponseDataExist = false;
+        responseTime = null;
+        serviceTime = null;
+        backendTime = null;
+        backendLatency = null;
+        securityLatency = null;
+        throttlingLatency = null;
+        requestMediationLatency = null;
+        responseMediationLatency = null;
+        otherLatency = null;
+        responseCount = null;
+        cacheHit = null;
+        responseSize = null;
+        responseCode = null;
+        isFaultDataExist = false;
+        errorCode = null;
+        errorMessage = null;
+        faultCount = null;
+        isThrottleDataExist = false;
+        throttledTime = null;
+        throttledCount = null;
+    }
 }
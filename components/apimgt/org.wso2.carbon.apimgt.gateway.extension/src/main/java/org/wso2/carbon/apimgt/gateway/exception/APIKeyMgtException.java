@@ -42,4 +42,7 @@ public class APIKeyMgtException extends Exception {
         this.errorCode = errorCode;
     }
 
+    public int getErrorCode() {
+        return errorCode;
+    }
 }
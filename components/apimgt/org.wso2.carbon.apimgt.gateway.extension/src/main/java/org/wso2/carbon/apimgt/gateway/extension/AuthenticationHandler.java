@@ -22,16 +22,31 @@ package org.wso2.carbon.apimgt.gateway.extension;
 import org.osgi.service.component.annotations.Component;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.wso2.carbon.apimgt.gateway.exception.APIKeyMgtException;
+import org.wso2.carbon.apimgt.gateway.internal.ServiceReferenceHolder;
+import org.wso2.carbon.apimgt.gateway.metrics.RequestTimings;
+import org.wso2.carbon.apimgt.gateway.metrics.Stage;
 import org.wso2.carbon.apimgt.gateway.security.Authenticator;
 import org.wso2.carbon.apimgt.gateway.security.OAuthAuthenticator;
+import org.wso2.carbon.apimgt.gateway.security.handlers.JWTKeyValidationHandler;
+import org.wso2.carbon.apimgt.gateway.security.handlers.JWTValidationConfiguration;
+import org.wso2.carbon.apimgt.gateway.throttling.constants.APIThrottleConstants;
+import org.wso2.carbon.apimgt.gateway.throttling.utils.RequestAttributes;
+import org.wso2.carbon.apimgt.gateway.utils.KeyManagerConstants;
 import org.wso2.carbon.messaging.CarbonCallback;
 import org.wso2.carbon.messaging.CarbonMessage;
+import org.wso2.carbon.messaging.DefaultCarbonMessage;
 import org.wso2.carbon.messaging.handler.MessagingHandler;
 
 
 
 /**
- * Handler to manage API authentication through OAuth2
+ * Handler to manage API authentication through OAuth2. When local JWT validation is enabled in the
+ * {@link JWTValidationConfiguration}, requests are authenticated with the {@link JWTKeyValidationHandler} and
+ * rejected with a 401 response if their access token is not valid, or a 403 response if the token does not have
+ * the scope of the resource. Failures to validate the token, such as an unreachable introspection endpoint, are
+ * returned as a 500 response. Otherwise requests are authenticated by the
+ * gateway configuration of the API.
  **/
 @Component(
         name = "org.wso2.carbon.apimgt.gateway.extension.AuthenticationHandler",
@@ -41,6 +56,9 @@ import org.wso2.carbon.messaging.handler.MessagingHandler;
 
 public class AuthenticationHandler implements MessagingHandler {
     private static final Logger LOG = LoggerFactory.getLogger(AuthenticationHandler.class);
+    private static final int UNAUTHORIZED = 401;
+    private static final int FORBIDDEN = 403;
+    private static final int INTERNAL_SERVER_ERROR = 500;
     private volatile Authenticator authenticator;
 
 
@@ -48,13 +66,57 @@ public class AuthenticationHandler implements MessagingHandler {
         if (LOG.isDebugEnabled()) {
             LOG.debug("Authentication Handler initialized");
         }
-
-        initializeAuthenticator();
     }
 
     @Override
     public boolean validateRequestContinuation(CarbonMessage carbonMessage, CarbonCallback carbonCallback) {
-        return true;
+        JWTValidationConfiguration configuration = ServiceReferenceHolder.getInstance()
+                .getJWTValidationConfiguration();
+        if (configuration == null || !configuration.isEnabled()) {
+            return true;
+        }
+        long startTime = System.nanoTime();
+        Authenticator currentAuthenticator = authenticator;
+        try {
+            if (currentAuthenticator == null) {
+                currentAuthenticator = initializeAuthenticator();
+            }
+            return currentAuthenticator.authenticate(carbonMessage);
+        } catch (APIKeyMgtException e) {
+            int status = getStatusCode(e);
+            if (status == INTERNAL_SERVER_ERROR) {
+                LOG.error("API authentication could not be completed with error code " + e.getErrorCode(), e);
+            } else {
+                // We do not need to log authentication failures as errors since these are not product errors.
+                LOG.warn("API authentication failure with error code " + e.getErrorCode() + ": " + e.getMessage());
+            }
+            if (carbonCallback != null) {
+                DefaultCarbonMessage response = new DefaultCarbonMessage();
+                response.setProperty(APIThrottleConstants.HTTP_STATUS_CODE, status);
+                if (status == UNAUTHORIZED) {
+                    response.setHeader("WWW-Authenticate", currentAuthenticator.getChallengeString());
+                }
+                carbonCallback.done(response);
+            }
+            return false;
+        } finally {
+            RequestTimings.get(carbonMessage).add(Stage.AUTHENTICATION, System.nanoTime() - startTime);
+        }
+    }
+
+    /**
+     * @return 500 if the token could not be validated due to an internal failure, 403 if the access token does not
+     * have the scope of the resource, or 401 otherwise
+     */
+    static int getStatusCode(APIKeyMgtException e) {
+        switch (e.getErrorCode()) {
+            case KeyManagerConstants.KeyValidationStatus.API_AUTH_GENERAL_ERROR:
+                return INTERNAL_SERVER_ERROR;
+            case KeyManagerConstants.KeyValidationStatus.INVALID_SCOPE:
+                return FORBIDDEN;
+            default:
+                return UNAUTHORIZED;
+        }
     }
 
     @Override
@@ -79,6 +141,10 @@ public class AuthenticationHandler implements MessagingHandler {
 
     @Override
     public void invokeAtSourceRequestReceiving(CarbonMessage carbonMessage) {
+        long startTime = System.nanoTime();
+        // Attach the request attributes, so the values parsed from the request are shared by the following handlers
+        RequestAttributes.get(carbonMessage);
+        RequestTimings.get(carbonMessage).add(Stage.AUTHENTICATION, System.nanoTime() - startTime);
         /*Timer timer = MetricManager.timer(org.wso2.carbon.metrics.manager.Level.INFO, MetricManager.name(
                 APIConstants.METRICS_PREFIX, this.getClass().getSimpleName()));
         Timer.Context context = timer.start();
@@ -178,9 +244,13 @@ public class AuthenticationHandler implements MessagingHandler {
         return "AuthenticationHandler";
     }
 
-    private void initializeAuthenticator() {
-        authenticator = new OAuthAuthenticator();
-        authenticator.init();
+    private synchronized Authenticator initializeAuthenticator() {
+        if (authenticator == null) {
+            Authenticator oAuthAuthenticator = new OAuthAuthenticator(new JWTKeyValidationHandler());
+            oAuthAuthenticator.init();
+            authenticator = oAuthAuthenticator;
+        }
+        return authenticator;
     }
 
     /*
@@ -25,17 +25,23 @@ import org.wso2.carbon.apimgt.gateway.analytics.AnalyticsUtil;
 import org.wso2.carbon.apimgt.gateway.analytics.EventPublisher;
 import org.wso2.carbon.apimgt.gateway.analytics.dto.AnalyticsEventStreamDTO;
 import org.wso2.carbon.apimgt.gateway.internal.ServiceReferenceHolder;
+import org.wso2.carbon.apimgt.gateway.metrics.GatewayMetrics;
+import org.wso2.carbon.apimgt.gateway.metrics.RequestTimings;
+import org.wso2.carbon.apimgt.gateway.metrics.Stage;
 import org.wso2.carbon.messaging.CarbonCallback;
 import org.wso2.carbon.messaging.CarbonMessage;
 import org.wso2.carbon.messaging.handler.MessagingHandler;
 
 /**
- * Gateway handler for publishing events to analyzer
+ * Gateway handler for publishing events to analyzer. It also times the backend call and records the stage
+ * latencies of each request in {@link GatewayMetrics} once the response is sent.
  */
 @Component(name = "org.wso2.carbon.apimgt.gateway.extension.StatisticsHandler",
         immediate = true, service = MessagingHandler.class)
 public class StatisticsHandler implements MessagingHandler {
     private Logger log = LoggerFactory.getLogger(StatisticsHandler.class);
+    // Set once the configured publisher fails to be created, so that it is not tried again on every response
+    private static volatile boolean publisherUnavailable;
 
     @Override
     public boolean validateRequestContinuation(CarbonMessage carbonMessage, CarbonCallback carbonCallback) {
@@ -65,11 +71,12 @@ public class StatisticsHandler implements MessagingHandler {
     @Override
     public void invokeAtSourceRequestReceiving(CarbonMessage carbonMessage) {
         log.debug("invokeAtSourceRequestReceiving");
-        log.info("Stat handler invoked");
         boolean enabled = ServiceReferenceHolder.getInstance().getAnalyticsConfiguration().isEnabled();
         if (enabled) {
+            long startTime = System.nanoTime();
             AnalyticsEventStreamDTO dto = AnalyticsUtil.processRequestData(carbonMessage);
             carbonMessage.setProperty(GatewayConstants.EVENT_DTO_PROPERTY_NAME, dto);
+            RequestTimings.get(carbonMessage).add(Stage.ANALYTICS, System.nanoTime() - startTime);
         }
     }
 
@@ -86,11 +93,16 @@ public class StatisticsHandler implements MessagingHandler {
     @Override
     public void invokeAtTargetRequestSending(CarbonMessage carbonMessage) {
         log.debug("invokeAtTargetRequestSending");
+        RequestTimings.get(carbonMessage).start(Stage.BACKEND);
     }
 
     @Override
     public void invokeAtTargetResponseReceiving(CarbonMessage carbonMessage) {
         log.debug("invokeAtTargetResponseReceiving");
+        RequestTimings timings = RequestTimings.find(carbonMessage);
+        if (timings != null) {
+            timings.stop(Stage.BACKEND);
+        }
     }
 
     @Override
@@ -106,26 +118,69 @@ public class StatisticsHandler implements MessagingHandler {
     @Override
     public void invokeAtSourceResponseSending(CarbonMessage carbonMessage) {
         log.debug("invokeAtSourceResponseSending");
+        RequestTimings timings = RequestTimings.find(carbonMessage);
         boolean enabled = ServiceReferenceHolder.getInstance().getAnalyticsConfiguration().isEnabled();
         if (enabled) {
-            AnalyticsEventStreamDTO dto = AnalyticsUtil.processResponseData(carbonMessage);
+            long startTime = System.nanoTime();
+            publishEvent(carbonMessage, timings);
+            if (timings != null) {
+                timings.add(Stage.ANALYTICS, System.nanoTime() - startTime);
+            }
+        }
+        if (timings != null) {
+            GatewayMetrics.getInstance().record(GatewayMetrics.getApiName(carbonMessage), timings);
+        }
+    }
+
+    private void publishEvent(CarbonMessage carbonMessage, RequestTimings timings) {
+        AnalyticsEventStreamDTO dto = AnalyticsUtil.processResponseData(carbonMessage);
+        if (timings != null) {
+            // Latency breakdown of the request, in milliseconds
+            dto.setSecurityLatency(timings.getDurationMillis(Stage.AUTHENTICATION));
+            dto.setThrottlingLatency(timings.getDurationMillis(Stage.THROTTLING));
+            dto.setBackendLatency(timings.getDurationMillis(Stage.BACKEND));
+        }
+        EventPublisher publisher = getPublisher();
+        if (publisher == null) {
             carbonMessage.setProperty(GatewayConstants.EVENT_DTO_PROPERTY_NAME, dto);
+            // The failure to create the publisher has been logged already
+            if (log.isDebugEnabled()) {
+                log.debug("Skipping event publishing..");
+            }
+            return;
+        }
+        // The publisher takes ownership of the event, so it is no longer reachable from the message
+        carbonMessage.removeProperty(GatewayConstants.EVENT_DTO_PROPERTY_NAME);
+        publisher.publishEvent(dto);
+    }
 
-            EventPublisher publisher = ServiceReferenceHolder.getInstance().getPublisher();
-            if (publisher == null) {
+    /**
+     * Returns the event publisher, which is created and initialized on the first call only. If the configured
+     * publisher cannot be created, it is not tried again.
+     *
+     * @return event publisher, or null if the configured publisher could not be created
+     */
+    private EventPublisher getPublisher() {
+        EventPublisher publisher = ServiceReferenceHolder.getInstance().getPublisher();
+        if (publisher != null || publisherUnavailable) {
+            return publisher;
+        }
+        synchronized (StatisticsHandler.class) {
+            publisher = ServiceReferenceHolder.getInstance().getPublisher();
+            if (publisher == null && !publisherUnavailable) {
                 String publisherClass = ServiceReferenceHolder.getInstance().getAnalyticsConfiguration()
                         .getEventPublisher();
                 try {
                     publisher = (EventPublisher) Class.forName(publisherClass).newInstance();
                 } catch (InstantiationException | IllegalAccessException | ClassNotFoundException e) {
                     log.error("error occurred while initializing event publisher", e);
-                    log.warn("Skipping event publishing..");
-                    return;
+                    publisherUnavailable = true;
+                    return null;
                 }
+                publisher.init();
                 ServiceReferenceHolder.getInstance().setPublisher(publisher);
             }
-            publisher.init();
-            publisher.publishEvent(dto);
+            return publisher;
         }
     }
 
@@ -20,13 +20,24 @@ package org.wso2.carbon.apimgt.gateway.extension;
 import org.osgi.service.component.annotations.Component;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.wso2.carbon.apimgt.gateway.internal.ServiceReferenceHolder;
+import org.wso2.carbon.apimgt.gateway.metrics.RequestTimings;
+import org.wso2.carbon.apimgt.gateway.metrics.Stage;
+import org.wso2.carbon.apimgt.gateway.resource.APIResourceDataHolder;
+import org.wso2.carbon.apimgt.gateway.throttling.KeyTemplate;
+import org.wso2.carbon.apimgt.gateway.throttling.LocalRateLimiter;
 import org.wso2.carbon.apimgt.gateway.throttling.ThrottleConditionEvaluator;
 import org.wso2.carbon.apimgt.gateway.throttling.ThrottleDataHolder;
+import org.wso2.carbon.apimgt.gateway.throttling.ThrottleException;
+import org.wso2.carbon.apimgt.gateway.throttling.ThrottleKeyCache;
+import org.wso2.carbon.apimgt.gateway.throttling.constants.APIConstants;
 import org.wso2.carbon.apimgt.gateway.throttling.constants.APIThrottleConstants;
 import org.wso2.carbon.apimgt.gateway.throttling.dto.AuthenticationContextDTO;
 import org.wso2.carbon.apimgt.gateway.throttling.dto.ConditionGroupDTO;
 import org.wso2.carbon.apimgt.gateway.throttling.dto.VerbInfoDTO;
+import org.wso2.carbon.apimgt.gateway.throttling.publisher.ThrottlePublisherConfiguration;
 import org.wso2.carbon.apimgt.gateway.throttling.temp.ThrottleDataPublisher;
+import org.wso2.carbon.apimgt.gateway.throttling.utils.RequestAttributes;
 import org.wso2.carbon.apimgt.gateway.throttling.utils.StringUtils;
 import org.wso2.carbon.messaging.CarbonCallback;
 import org.wso2.carbon.messaging.CarbonMessage;
@@ -34,6 +45,7 @@ import org.wso2.carbon.messaging.handler.MessagingHandler;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Messaging Handler implementation to log transport header in specified points
@@ -47,6 +59,11 @@ public class ThrottleHandler implements MessagingHandler {
 
     private static final Logger log = LoggerFactory.getLogger(ThrottleHandler.class);
     private static volatile ThrottleDataPublisher throttleDataPublisher = null;
+    // Hard limits and spike arrest are enforced locally, as the decision has to be taken for each request
+    private static final LocalRateLimiter hardLimitRateLimiter = new LocalRateLimiter("HardLimit");
+    private static final LocalRateLimiter spikeArrestRateLimiter = new LocalRateLimiter("SpikeArrest");
+    private static final long SECOND_IN_MILLIS = 1000;
+    private static final long MINUTE_IN_MILLIS = 60000;
     private String policyKeyApplication = null;
 
     /**
@@ -61,8 +78,15 @@ public class ThrottleHandler implements MessagingHandler {
      * The concurrent access control group id
      */
     private String id;
+    // Resolves the resource matched by a request, or null to use the shared instance once it is first needed
+    private final APIResourceDataHolder apiResourceDataHolder;
 
     public ThrottleHandler() {
+        this(null);
+    }
+
+    ThrottleHandler(APIResourceDataHolder apiResourceDataHolder) {
+        this.apiResourceDataHolder = apiResourceDataHolder;
         if (log.isDebugEnabled()) {
             log.debug("Throttle Handler initialized");
         }
@@ -92,12 +116,14 @@ public class ThrottleHandler implements MessagingHandler {
     public void invokeAtSourceRequestReceiving(CarbonMessage carbonMessage) {
 
         //Handle incoming requests and call throttling method to perform throttling.
-        long executionStartTime = System.currentTimeMillis();
+        long executionStartTime = System.nanoTime();
         try {
             doThrottle(carbonMessage);
         } finally {
-            carbonMessage.setProperty(APIThrottleConstants.THROTTLING_LATENCY, System.currentTimeMillis() -
-                    executionStartTime);
+            long executionTime = System.nanoTime() - executionStartTime;
+            RequestTimings.get(carbonMessage).add(Stage.THROTTLING, executionTime);
+            carbonMessage.setProperty(APIThrottleConstants.THROTTLING_LATENCY,
+                    TimeUnit.NANOSECONDS.toMillis(executionTime));
         }
     }
 
@@ -186,10 +212,6 @@ public class ThrottleHandler implements MessagingHandler {
         boolean isBlockedRequest = false;
         boolean apiLevelThrottledTriggered = false;
         boolean policyLevelUserTriggered = false;
-        String ipLevelBlockingKey = "";
-        String appLevelBlockingKey = "";
-        String apiLevelBlockingKey = "";
-        String userLevelBlockingKey = "";
         boolean stopOnQuotaReach = true;
 
         String apiContext = (String) carbonMsg.getProperty("REST_API_CONTEXT");
@@ -206,238 +228,267 @@ public class ThrottleHandler implements MessagingHandler {
 
         //Do blocking if there are blocking conditions present
         if (ThrottleDataHolder.getInstance().isBlockingConditionsPresent()) {
-            ipLevelBlockingKey = apiTenantDomain + ":" + getClientIp(carbonMsg);
-            apiLevelBlockingKey = apiContext;
-            userLevelBlockingKey = authorizedUser;
-            appLevelBlockingKey = authContext.getSubscriber() + ":" + authContext.getApplicationName();
+            isBlockedRequest = ThrottleDataHolder.getInstance().isRequestBlocked(apiContext,
+                    authContext.getSubscriber(), authContext.getApplicationName(), authorizedUser, apiTenantDomain,
+                    RequestAttributes.get(carbonMsg).getClientIpAddress());
+        }
 
-            isBlockedRequest = ThrottleDataHolder.getInstance().isRequestBlocked(
-                    apiLevelBlockingKey, appLevelBlockingKey, userLevelBlockingKey, ipLevelBlockingKey);
+        if (isBlockedRequest) {
+            String msg = "Request blocked as it violates defined blocking conditions, for API: " + apiContext +
+                    " ,application:" + authContext.getSubscriber() + ":" + authContext.getApplicationName() +
+                    " ,user:" + authorizedUser;
+            if (log.isDebugEnabled()) {
+                log.debug(msg);
+            }
+            carbonMsg.setProperty(APIThrottleConstants.BLOCKED_REASON, msg);
+            carbonMsg.setProperty(APIThrottleConstants.THROTTLED_OUT_REASON, APIThrottleConstants.REQUEST_BLOCKED);
+            isThrottled = true;
+        } else {
+            subscriberTenantDomain = authContext.getSubscriberTenantDomain();
+            stopOnQuotaReach = authContext.isStopOnQuotaReach();
+            //If request is not blocked then only we perform throttling.
+            VerbInfoDTO verbInfoDTO = getResourceDataHolder().getVerbInfo(carbonMsg);
+
+            //If Resource information is not present we wont proceed with throttling
+            if (verbInfoDTO == null) {
+                log.warn("Error while getting throttling information for resource and http verb");
+                return false;
+            }
+            //Keys that do not depend on the user are cached in the resource, so they are not rebuilt per request
+            ThrottleKeyCache resourceKeyCache = verbInfoDTO.getThrottleKeyCache();
+            applicationLevelThrottleKey = ThrottleKeyCache.buildKey(applicationId, ":", authorizedUser);
+            apiLevelThrottleKey = resourceKeyCache.getKey(apiContext, ":", apiVersion);
+
+            applicationLevelTier = authContext.getApplicationTier();
+            subscriptionLevelTier = authContext.getTier();
+            resourceLevelThrottleKey = verbInfoDTO.getRequestKey();
+            apiLevelTier = authContext.getApiTier();
+            resourceLevelTier = verbInfoDTO.getThrottling();
+            //If API level throttle policy is present then it will apply and no resource level policy will apply
+            if (!StringUtils.isEmpty(apiLevelTier) && !APIThrottleConstants.UNLIMITED_TIER.equalsIgnoreCase
+                    (apiLevelTier)) {
+                resourceLevelThrottleKey = apiLevelThrottleKey;
+                apiLevelThrottledTriggered = true;
+            }
 
-            if (isBlockedRequest) {
-                String msg = "Request blocked as it violates defined blocking conditions, for API: " + apiContext +
-                        " ,application:" + appLevelBlockingKey + " ,user:" + authorizedUser;
+            //If verbInfo is present then only we will do resource level throttling
+            if (APIThrottleConstants.UNLIMITED_TIER.equalsIgnoreCase(verbInfoDTO.getThrottling()) &&
+                    !apiLevelThrottledTriggered) {
+                //If unlimited tier throttling will not apply at resource level and pass it
                 if (log.isDebugEnabled()) {
-                    log.debug(msg);
+                    log.debug("Resource level throttling set as unlimited and request will pass resource level");
                 }
-                carbonMsg.setProperty(APIThrottleConstants.BLOCKED_REASON, msg);
-                carbonMsg.setProperty(APIThrottleConstants.THROTTLED_OUT_REASON, APIThrottleConstants.REQUEST_BLOCKED);
-                isThrottled = true;
             } else {
-                subscriberTenantDomain = authContext.getSubscriberTenantDomain();
-                applicationLevelThrottleKey = applicationId + ":" + authorizedUser;
-                apiLevelThrottleKey = apiContext + ":" + apiVersion;
-                stopOnQuotaReach = authContext.isStopOnQuotaReach();
-                //If request is not blocked then only we perform throttling.
-                VerbInfoDTO verbInfoDTO = (VerbInfoDTO) carbonMsg.getProperty(APIThrottleConstants.VERB_INFO_DTO);
-
-                //If Resource information is not present we wont proceed with throttling
-                if (verbInfoDTO == null) {
-                    log.warn("Error while getting throttling information for resource and http verb");
-                    return false;
+                if (APIThrottleConstants.API_POLICY_USER_LEVEL.equalsIgnoreCase(verbInfoDTO.getApplicableLevel())) {
+                    resourceLevelThrottleKey = ThrottleKeyCache.buildKey(resourceLevelThrottleKey, "_",
+                            authorizedUser);
+                    policyLevelUserTriggered = true;
                 }
+                //If tier is not unlimited only throttling will apply.
+                conditionGroupDTOs = verbInfoDTO.getConditionGroups();
 
-                applicationLevelTier = authContext.getApplicationTier();
-                subscriptionLevelTier = authContext.getTier();
-                resourceLevelThrottleKey = verbInfoDTO.getRequestKey();
-                apiLevelTier = authContext.getApiTier();
-                resourceLevelTier = verbInfoDTO.getThrottling();
-                //If API level throttle policy is present then it will apply and no resource level policy will apply
-                if (!StringUtils.isEmpty(apiLevelTier) && !APIThrottleConstants.UNLIMITED_TIER.equalsIgnoreCase
-                        (apiLevelTier)) {
-                    resourceLevelThrottleKey = apiLevelThrottleKey;
-                    apiLevelThrottledTriggered = true;
-                }
+                if (conditionGroupDTOs.length > 0) {
 
-                //If verbInfo is present then only we will do resource level throttling
-                if (APIThrottleConstants.UNLIMITED_TIER.equalsIgnoreCase(verbInfoDTO.getThrottling()) &&
-                        !apiLevelThrottledTriggered) {
-                    //If unlimited tier throttling will not apply at resource level and pass it
-                    if (log.isDebugEnabled()) {
-                        log.debug("Resource level throttling set as unlimited and request will pass resource level");
-                    }
-                } else {
-                    if (APIThrottleConstants.API_POLICY_USER_LEVEL.equalsIgnoreCase(verbInfoDTO.getApplicableLevel())) {
-                        resourceLevelThrottleKey = resourceLevelThrottleKey + "_" + authorizedUser;
-                        policyLevelUserTriggered = true;
-                    }
-                    //If tier is not unlimited only throttling will apply.
-                    conditionGroupDTOs = verbInfoDTO.getConditionGroups();
-
-                    if (conditionGroupDTOs.length > 0) {
+                    // Checking Applicability of Conditions is a relatively expensive operation. So we are
+                    // going to check it only if the API/Resource is throttled out.
+                    if (ThrottleDataHolder.getInstance().isAPIThrottled(resourceLevelThrottleKey)) {
 
-                        // Checking Applicability of Conditions is a relatively expensive operation. So we are
-                        // going to check it only if the API/Resource is throttled out.
-                        if (ThrottleDataHolder.getInstance().isAPIThrottled(resourceLevelThrottleKey)) {
+                        if (log.isDebugEnabled()) {
+                            log.debug("Evaluating Conditional Groups");
+                        }
+                        //Then we will apply resource level throttling
+                        List<ConditionGroupDTO> applicableConditions = ThrottleConditionEvaluator.getInstance()
+                                .getApplicableConditions(carbonMsg, authContext, conditionGroupDTOs);
+                        for (ConditionGroupDTO conditionGroup : applicableConditions) {
+                            String combinedResourceLevelThrottleKey = policyLevelUserTriggered ?
+                                    ThrottleKeyCache.buildKey(resourceLevelThrottleKey, "",
+                                            conditionGroup.getConditionGroupId()) :
+                                    resourceKeyCache.getKey(resourceLevelThrottleKey, "",
+                                            conditionGroup.getConditionGroupId());
 
                             if (log.isDebugEnabled()) {
-                                log.debug("Evaluating Conditional Groups");
+                                log.debug("Checking condition : " + combinedResourceLevelThrottleKey);
                             }
-                            //Then we will apply resource level throttling
-                            List<ConditionGroupDTO> applicableConditions = ThrottleConditionEvaluator.getInstance()
-                                    .getApplicableConditions(carbonMsg, authContext, conditionGroupDTOs);
-                            for (ConditionGroupDTO conditionGroup : applicableConditions) {
-                                String combinedResourceLevelThrottleKey = resourceLevelThrottleKey +
-                                        conditionGroup.getConditionGroupId();
 
-                                if (log.isDebugEnabled()) {
-                                    log.debug("Checking condition : " + combinedResourceLevelThrottleKey);
-                                }
-
-                                if (ThrottleDataHolder.getInstance().isThrottled
-                                        (combinedResourceLevelThrottleKey)) {
-                                    if (!apiLevelThrottledTriggered) {
-                                        isResourceLevelThrottled = isThrottled = true;
-                                    } else {
-                                        isApiLevelThrottled = isThrottled = true;
-                                    }
-                                    long timestamp = ThrottleDataHolder.getInstance()
-                                            .getThrottleNextAccessTimestamp(combinedResourceLevelThrottleKey);
-                                    carbonMsg.setProperty(APIThrottleConstants.THROTTLED_NEXT_ACCESS_TIMESTAMP,
-                                            timestamp);
-                                    break;
+                            if (ThrottleDataHolder.getInstance().isThrottled
+                                    (combinedResourceLevelThrottleKey)) {
+                                if (!apiLevelThrottledTriggered) {
+                                    isResourceLevelThrottled = isThrottled = true;
+                                } else {
+                                    isApiLevelThrottled = isThrottled = true;
                                 }
+                                long timestamp = ThrottleDataHolder.getInstance()
+                                        .getThrottleNextAccessTimestamp(combinedResourceLevelThrottleKey);
+                                carbonMsg.setProperty(APIThrottleConstants.THROTTLED_NEXT_ACCESS_TIMESTAMP,
+                                        timestamp);
+                                break;
                             }
                         }
-
-                    } else {
-                        log.warn("Unable to find throttling information for resource and http verb. Throttling "
-                                + "will not apply");
                     }
+
+                } else {
+                    log.warn("Unable to find throttling information for resource and http verb. Throttling "
+                            + "will not apply");
                 }
+            }
 
-                if (!isApiLevelThrottled) {
-
-                    //Here check resource level throttled. If throttled then call handler throttled and pass.
-                    //Else go for subscription level and application level throttling
-                    //if resource level not throttled then move to subscription level
-                    if (!isResourceLevelThrottled) {
-                        //Subscription Level Throttling
-                        subscriptionLevelThrottleKey = authContext.getApplicationId() + ":" + apiContext + ":"
-                                + apiVersion;
-                        isSubscriptionLevelThrottled = ThrottleDataHolder.getInstance().isThrottled
-                                (subscriptionLevelThrottleKey);
-                        if (!isSubscriptionLevelThrottled && authContext.getSpikeArrestLimit() > 0) {
-                            isSubscriptionLevelSpikeThrottled = isSubscriptionLevelSpike(carbonMsg,
-                                    subscriptionLevelThrottleKey);
-                        }
-                        //If subscription level not throttled then move to application level
-                        if (!isSubscriptionLevelThrottled && !isSubscriptionLevelSpikeThrottled) {
-                            //Application Level Throttling
-                            isApplicationLevelThrottled = ThrottleDataHolder.getInstance().
-                                    isThrottled(applicationLevelThrottleKey);
-
-                            //if application level not throttled means it does not throttled at any level.
-                            if (!isApplicationLevelThrottled) {
-                                boolean keyTemplatesAvailable = ThrottleDataHolder.getInstance()
-                                        .isKeyTemplatesPresent();
-                                if (!keyTemplatesAvailable || !validateCustomPolicy(authorizedUser,
-                                        resourceLevelThrottleKey, apiContext, apiVersion, subscriberTenantDomain,
-                                        apiTenantDomain, applicationId, ThrottleDataHolder.getInstance()
-                                                .getKeyTemplateMap(), carbonMsg)) {
-                                    //Pass message context and continue to avoid performance issue.
-                                    //Did not throttled at any level. So let message go and publish event.
-                                    //publish event to Global Policy Server
-                                    if (isHardLimitThrottled(carbonMsg, authContext, apiContext, apiVersion)) {
-                                        isThrottled = true;
-
-                                    } else {
-                                        throttleDataPublisher.publishNonThrottledEvent(
-                                                applicationLevelThrottleKey, applicationLevelTier,
-                                                apiLevelThrottleKey, apiLevelTier,
-                                                subscriptionLevelThrottleKey, subscriptionLevelTier,
-                                                resourceLevelThrottleKey, resourceLevelTier,
-                                                authorizedUser, apiContext, apiVersion, subscriberTenantDomain,
-                                                apiTenantDomain, applicationId, carbonMsg, authContext);
-                                    }
-                                } else {
-                                    if (log.isDebugEnabled()) {
-                                        log.debug("Request throttled at custom throttling");
-                                    }
-                                    carbonMsg.setProperty(APIThrottleConstants.THROTTLED_OUT_REASON,
-                                            APIThrottleConstants.CUSTOM_POLICY_LIMIT_EXCEED);
+            if (!isApiLevelThrottled) {
+
+                //Here check resource level throttled. If throttled then call handler throttled and pass.
+                //Else go for subscription level and application level throttling
+                //if resource level not throttled then move to subscription level
+                if (!isResourceLevelThrottled) {
+                    //Subscription Level Throttling
+                    subscriptionLevelThrottleKey = ThrottleKeyCache.buildKey(authContext.getApplicationId(), ":",
+                            apiLevelThrottleKey);
+                    isSubscriptionLevelThrottled = ThrottleDataHolder.getInstance().isThrottled
+                            (subscriptionLevelThrottleKey);
+                    if (!isSubscriptionLevelThrottled && authContext.getSpikeArrestLimit() > 0) {
+                        isSubscriptionLevelSpikeThrottled = isSubscriptionLevelSpike(carbonMsg,
+                                authContext, subscriptionLevelThrottleKey);
+                    }
+                    //If subscription level not throttled then move to application level
+                    if (!isSubscriptionLevelThrottled && !isSubscriptionLevelSpikeThrottled) {
+                        //Application Level Throttling
+                        isApplicationLevelThrottled = ThrottleDataHolder.getInstance().
+                                isThrottled(applicationLevelThrottleKey);
+
+                        //if application level not throttled means it does not throttled at any level.
+                        if (!isApplicationLevelThrottled) {
+                            boolean keyTemplatesAvailable = ThrottleDataHolder.getInstance()
+                                    .isKeyTemplatesPresent();
+                            if (!keyTemplatesAvailable || !validateCustomPolicy(authorizedUser,
+                                    resourceLevelThrottleKey, apiContext, apiVersion, subscriberTenantDomain,
+                                    apiTenantDomain, applicationId, ThrottleDataHolder.getInstance()
+                                            .getKeyTemplateMap(), carbonMsg)) {
+                                //Pass message context and continue to avoid performance issue.
+                                //Did not throttled at any level. So let message go and publish event.
+                                //publish event to Global Policy Server
+                                if (isHardLimitThrottled(carbonMsg, authContext, verbInfoDTO,
+                                        apiLevelThrottleKey)) {
                                     isThrottled = true;
 
+                                } else if (throttleDataPublisher != null) {
+                                    throttleDataPublisher.publishNonThrottledEvent(
+                                            applicationLevelThrottleKey, applicationLevelTier,
+                                            apiLevelThrottleKey, apiLevelTier,
+                                            subscriptionLevelThrottleKey, subscriptionLevelTier,
+                                            resourceLevelThrottleKey, resourceLevelTier,
+                                            authorizedUser, apiContext, apiVersion, subscriberTenantDomain,
+                                            apiTenantDomain, applicationId, carbonMsg, authContext);
                                 }
-
                             } else {
                                 if (log.isDebugEnabled()) {
-                                    log.debug("Request throttled at application level for throttle key" +
-                                            applicationLevelThrottleKey);
+                                    log.debug("Request throttled at custom throttling");
                                 }
                                 carbonMsg.setProperty(APIThrottleConstants.THROTTLED_OUT_REASON,
-                                        APIThrottleConstants.APPLICATION_LIMIT_EXCEEDED);
-                                long timestamp = ThrottleDataHolder.getInstance().getThrottleNextAccessTimestamp
-                                        (applicationLevelThrottleKey);
-                                carbonMsg.setProperty(APIThrottleConstants.THROTTLED_NEXT_ACCESS_TIMESTAMP, timestamp);
+                                        APIThrottleConstants.CUSTOM_POLICY_LIMIT_EXCEED);
                                 isThrottled = true;
+
                             }
+
                         } else {
-                            if (!stopOnQuotaReach) {
-                                // This means that we are allowing the requests to continue even after the throttling
-                                // limit has reached.
-                                if (carbonMsg.getProperty(APIThrottleConstants.API_USAGE_THROTTLE_OUT_PROPERTY_KEY)
-                                        == null) {
-                                    carbonMsg.setProperty(APIThrottleConstants.API_USAGE_THROTTLE_OUT_PROPERTY_KEY,
-                                            Boolean
-                                                    .TRUE);
-                                }
-                                isThrottled = false;
-                                if (log.isDebugEnabled()) {
-                                    log.debug("Request throttled at subscription level for throttle key" +
-                                            subscriptionLevelThrottleKey + ". But subscription policy " +
-                                            subscriptionLevelTier + " allows to continue to serve requests");
-                                }
-                            } else {
-                                if (log.isDebugEnabled()) {
-                                    log.debug("Request throttled at subscription level for throttle key" +
-                                            subscriptionLevelThrottleKey);
-                                }
-                                if (!isSubscriptionLevelSpikeThrottled) {
-                                    long timestamp = ThrottleDataHolder.getInstance().getThrottleNextAccessTimestamp
-                                            (subscriptionLevelThrottleKey);
-                                    carbonMsg.setProperty(APIThrottleConstants.THROTTLED_NEXT_ACCESS_TIMESTAMP,
-                                            timestamp);
-                                    carbonMsg.setProperty(APIThrottleConstants.THROTTLED_OUT_REASON,
-                                            APIThrottleConstants
-                                                    .API_LIMIT_EXCEEDED);
-                                    carbonMsg.setProperty(APIThrottleConstants.THROTTLED_OUT_REASON,
-                                            APIThrottleConstants.SUBSCRIPTION_LIMIT_EXCEEDED);
-                                }
-                                isThrottled = true;
+                            if (log.isDebugEnabled()) {
+                                log.debug("Request throttled at application level for throttle key" +
+                                        applicationLevelThrottleKey);
                             }
+                            carbonMsg.setProperty(APIThrottleConstants.THROTTLED_OUT_REASON,
+                                    APIThrottleConstants.APPLICATION_LIMIT_EXCEEDED);
+                            long timestamp = ThrottleDataHolder.getInstance().getThrottleNextAccessTimestamp
+                                    (applicationLevelThrottleKey);
+                            carbonMsg.setProperty(APIThrottleConstants.THROTTLED_NEXT_ACCESS_TIMESTAMP, timestamp);
+                            isThrottled = true;
                         }
                     } else {
-                        if (log.isDebugEnabled()) {
-                            log.debug("Request throttled at resource level for throttle key" +
-                                    verbInfoDTO.getRequestKey());
+                        if (!stopOnQuotaReach) {
+                            // This means that we are allowing the requests to continue even after the throttling
+                            // limit has reached.
+                            if (carbonMsg.getProperty(APIThrottleConstants.API_USAGE_THROTTLE_OUT_PROPERTY_KEY)
+                                    == null) {
+                                carbonMsg.setProperty(APIThrottleConstants.API_USAGE_THROTTLE_OUT_PROPERTY_KEY,
+                                        Boolean
+                                                .TRUE);
+                            }
+                            isThrottled = false;
+                            if (log.isDebugEnabled()) {
+                                log.debug("Request throttled at subscription level for throttle key" +
+                                        subscriptionLevelThrottleKey + ". But subscription policy " +
+                                        subscriptionLevelTier + " allows to continue to serve requests");
+                            }
+                        } else {
+                            if (log.isDebugEnabled()) {
+                                log.debug("Request throttled at subscription level for throttle key" +
+                                        subscriptionLevelThrottleKey);
+                            }
+                            if (!isSubscriptionLevelSpikeThrottled) {
+                                long timestamp = ThrottleDataHolder.getInstance().getThrottleNextAccessTimestamp
+                                        (subscriptionLevelThrottleKey);
+                                carbonMsg.setProperty(APIThrottleConstants.THROTTLED_NEXT_ACCESS_TIMESTAMP,
+                                        timestamp);
+                                carbonMsg.setProperty(APIThrottleConstants.THROTTLED_OUT_REASON,
+                                        APIThrottleConstants
+                                                .API_LIMIT_EXCEEDED);
+                                carbonMsg.setProperty(APIThrottleConstants.THROTTLED_OUT_REASON,
+                                        APIThrottleConstants.SUBSCRIPTION_LIMIT_EXCEEDED);
+                            }
+                            isThrottled = true;
                         }
-                        //is throttled and resource level throttling
-                        carbonMsg.setProperty(APIThrottleConstants.THROTTLED_OUT_REASON,
-                                APIThrottleConstants.RESOURCE_LIMIT_EXCEEDED);
                     }
                 } else {
                     if (log.isDebugEnabled()) {
-                        log.debug("Request throttled at api level for throttle key" + apiLevelThrottleKey);
-                        if (policyLevelUserTriggered) {
-                            log.debug("Request has throttled out in the user level for the throttle key" +
-                                    apiLevelThrottleKey);
-                        }
+                        log.debug("Request throttled at resource level for throttle key" +
+                                verbInfoDTO.getRequestKey());
                     }
+                    //is throttled and resource level throttling
                     carbonMsg.setProperty(APIThrottleConstants.THROTTLED_OUT_REASON,
-                            APIThrottleConstants.API_LIMIT_EXCEEDED);
+                            APIThrottleConstants.RESOURCE_LIMIT_EXCEEDED);
                 }
+            } else {
+                if (log.isDebugEnabled()) {
+                    log.debug("Request throttled at api level for throttle key" + apiLevelThrottleKey);
+                    if (policyLevelUserTriggered) {
+                        log.debug("Request has throttled out in the user level for the throttle key" +
+                                apiLevelThrottleKey);
+                    }
+                }
+                carbonMsg.setProperty(APIThrottleConstants.THROTTLED_OUT_REASON,
+                        APIThrottleConstants.API_LIMIT_EXCEEDED);
             }
-
         }
 
         //if we need to publish throttled level or some other information we can do it here. Just before return.
         return isThrottled;
     }
 
-    private boolean isHardLimitThrottled(CarbonMessage carbonMsg, AuthenticationContextDTO authContext, String
-            apiContext, String apiVersion) {
-        //// TODO: Implement Hardlimit
+    /**
+     * Checks whether the request exceeds the maximum TPS of the backend of the API. The limit is the maximum TPS of
+     * the production or sandbox endpoint of the resource, depending on the key type of the request, and no limit is
+     * applied if the endpoint has no maximum TPS. Up to the maximum TPS requests may reach the backend at once, after
+     * which they are admitted evenly spaced (see {@link LocalRateLimiter}).
+     *
+     * @param carbonMsg           carbon message context which contains message data
+     * @param authContext         authentication context of the request
+     * @param verbInfoDTO         resource of the request
+     * @param apiLevelThrottleKey API level throttle key
+     * @return true if message is throttled else false
+     */
+    private boolean isHardLimitThrottled(CarbonMessage carbonMsg, AuthenticationContextDTO authContext,
+                                         VerbInfoDTO verbInfoDTO, String apiLevelThrottleKey) {
+        Long maxTps = APIConstants.API_KEY_TYPE_SANDBOX.equals(authContext.getKeyType()) ?
+                verbInfoDTO.getSandboxMaxTps() : verbInfoDTO.getProductionMaxTps();
+        if (maxTps == null || maxTps <= 0) {
+            return false;
+        }
+        String hardLimitKey = verbInfoDTO.getThrottleKeyCache().getKey(apiLevelThrottleKey, ":",
+                authContext.getKeyType());
+        if (!hardLimitRateLimiter.tryAcquire(hardLimitKey, maxTps, SECOND_IN_MILLIS)) {
+            if (log.isDebugEnabled()) {
+                log.debug("Request throttled at hard limit for throttle key " + hardLimitKey);
+            }
+            carbonMsg.setProperty(APIThrottleConstants.THROTTLED_OUT_REASON,
+                    APIThrottleConstants.HARD_LIMIT_EXCEEDED);
+            return true;
+        }
         return false;
     }
 
@@ -479,6 +530,10 @@ public class ThrottleHandler implements MessagingHandler {
         return true;
     }
 
+    private APIResourceDataHolder getResourceDataHolder() {
+        return apiResourceDataHolder != null ? apiResourceDataHolder : APIResourceDataHolder.getInstance();
+    }
+
     public void setId(String id) {
         this.id = id;
     }
@@ -511,44 +566,50 @@ public class ThrottleHandler implements MessagingHandler {
         return policyKeyResource;
     }
 
-    private String getClientIp(CarbonMessage carbonMsg) {
-        // // TODO: fetch from CarbonMessage
-        return "10.100.5.192";
-    }
-
 
     /**
      * This method will check if coming request is hitting subscription level spikes.
      *
+     * The spike arrest limit of the subscription is applied per minute if the unit is minutes, and per second
+     * otherwise.
+     *
      * @param carbonMessage carbon message context which contains message data
+     * @param authContext   authentication context of the request
      * @param throttleKey   subscription level throttle key.
      * @return true if message is throttled else false
      */
-    public boolean isSubscriptionLevelSpike(CarbonMessage carbonMessage, String throttleKey) {
-        // TODO: Implement spike arrest or use the synapse spike arrest
+    public boolean isSubscriptionLevelSpike(CarbonMessage carbonMessage, AuthenticationContextDTO authContext,
+                                            String throttleKey) {
+        String spikeArrestUnit = authContext.getSpikeArrestUnit();
+        long unitTime = spikeArrestUnit != null && spikeArrestUnit.startsWith(APIThrottleConstants.MIN) ?
+                MINUTE_IN_MILLIS : SECOND_IN_MILLIS;
+        if (!spikeArrestRateLimiter.tryAcquire(throttleKey, authContext.getSpikeArrestLimit(), unitTime)) {
+            if (log.isDebugEnabled()) {
+                log.debug("Request throttled at subscription level spike arrest for throttle key " + throttleKey);
+            }
+            carbonMessage.setProperty(APIThrottleConstants.THROTTLED_OUT_REASON,
+                    APIThrottleConstants.SUBSCRIPTON_BURST_LIMIT_EXCEEDED);
+            return true;
+        }
         return false;
     }
 
     /**
-     * Validate custom policy is handle by this method. This method call is an expensive operation
-     * and should not enabled by default. If we enabled this policy then all APIs available in system
-     * will have to go through this check.
+     * Validate custom policy is handle by this method. Key templates are parsed when they are received, so the key of
+     * the request is rendered in a single pass over the tokens of each template and looked up in the throttle data
+     * map.
      *
-     * @return
+     * @return true if the request is throttled by a custom policy
      */
     public boolean validateCustomPolicy(String userID, String resourceKey, String apiContext, String apiVersion,
                                         String appTenant, String apiTenant, String appId,
-                                        Map<String, String> keyTemplateMap,
+                                        Map<String, KeyTemplate> keyTemplateMap,
                                         CarbonMessage messageContext) {
-        if (keyTemplateMap != null && keyTemplateMap.size() > 0) {
-            for (String key : keyTemplateMap.keySet()) {
-                key = key.replaceAll("\\$resourceKey", resourceKey);
-                key = key.replaceAll("\\$userId", userID);
-                key = key.replaceAll("\\$apiContext", apiContext);
-                key = key.replaceAll("\\$apiVersion", apiVersion);
-                key = key.replaceAll("\\$appTenant", appTenant);
-                key = key.replaceAll("\\$apiTenant", apiTenant);
-                key = key.replaceAll("\\$appId", appId);
+        if (keyTemplateMap != null && keyTemplateMap.size() > 0
+                && ThrottleDataHolder.getInstance().isThrottleDataPresent()) {
+            for (KeyTemplate keyTemplate : keyTemplateMap.values()) {
+                String key = keyTemplate.render(resourceKey, userID, apiContext, apiVersion, appTenant, apiTenant,
+                        appId);
                 if (ThrottleDataHolder.getInstance().isThrottled(key)) {
                     long timestamp = ThrottleDataHolder.getInstance().getThrottleNextAccessTimestamp(key);
                     messageContext.setProperty(APIThrottleConstants.THROTTLED_NEXT_ACCESS_TIMESTAMP, timestamp);
@@ -565,7 +626,17 @@ public class ThrottleHandler implements MessagingHandler {
     private static synchronized void initDataPublisher() {
 
         if (throttleDataPublisher == null) {
-            throttleDataPublisher = new ThrottleDataPublisher();
+            ThrottlePublisherConfiguration configuration = ServiceReferenceHolder.getInstance()
+                    .getThrottlePublisherConfiguration();
+            if (configuration == null) {
+                configuration = new ThrottlePublisherConfiguration();
+            }
+            try {
+                throttleDataPublisher = new ThrottleDataPublisher(configuration);
+            } catch (ThrottleException e) {
+                log.error("Error while initializing throttle data publisher. Throttle events will not be published",
+                        e);
+            }
         }
     }
 
@@ -638,6 +709,7 @@ public class ThrottleHandler implements MessagingHandler {
             errorDescription = "You have exceeded your quota";
         }
 
+        messageContext.setProperty(APIThrottleConstants.HTTP_STATUS_CODE, httpErrorCode);
         messageContext.setProperty(APIThrottleConstants.ERROR_CODE, errorCode);
         messageContext.setProperty(APIThrottleConstants.ERROR_MESSAGE, errorMessage);
 
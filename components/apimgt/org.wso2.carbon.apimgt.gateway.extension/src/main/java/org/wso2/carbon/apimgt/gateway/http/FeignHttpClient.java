@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.http;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+
+import java.io.IOException;
+
+/**
+ * Feign client which sends the requests through the {@link GatewayHttpClient}, so that Feign based clients share
+ * its connections.
+ */
+public class FeignHttpClient implements Client {
+
+    private final GatewayHttpClient httpClient;
+
+    public FeignHttpClient(GatewayHttpClient httpClient) {
+        this.httpClient = httpClient;
+    }
+
+    @Override
+    public Response execute(Request request, Request.Options options) throws IOException {
+        HttpResponse response = httpClient.execute(request.method(), request.url(), request.headers(),
+                request.body(), options.connectTimeoutMillis(), options.readTimeoutMillis());
+        return Response.builder()
+                .status(response.getStatusCode())
+                .reason(response.getReason())
+                .headers(response.getHeaders())
+                .body(response.getBody())
+                .request(request)
+                .build();
+    }
+
+    /**
+     * @return Feign request options with the timeouts of the given client
+     */
+    public static Request.Options getOptions(GatewayHttpClient httpClient) {
+        HttpClientConfiguration configuration = httpClient.getConfiguration();
+        return new Request.Options(configuration.getConnectTimeoutMillis(), configuration.getReadTimeoutMillis());
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.http;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.RequestBuilder;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.impl.NoConnectionReuseStrategy;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
+import org.wso2.carbon.apimgt.gateway.internal.ServiceReferenceHolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * HTTP client shared by the gateway for the calls to the key manager and the API manager core.
+ * <p>
+ * The client keeps its own pool of connections, which holds up to the maximum connections per route for each route.
+ * A request waits for a connection of its route for up to the connection request timeout when all of them are in
+ * use. A connection is only returned to the pool when its response has been read completely, so every response is
+ * read fully before it is returned, and a connection is closed instead when a request fails.
+ * <p>
+ * Large responses can be read as they are received with a {@link ResponseHandler}, instead of being read completely
+ * into memory.
+ */
+public class GatewayHttpClient {
+
+    private static final ResponseHandler<HttpResponse> BUFFERING_HANDLER = (response, body) ->
+            new HttpResponse(response.getStatusCode(), response.getReason(), response.getHeaders(),
+                    IOUtils.toByteArray(body));
+
+    private static volatile GatewayHttpClient instance;
+
+    private final HttpClientConfiguration configuration;
+    private final CloseableHttpClient httpClient;
+
+    /**
+     * Reads the body of a response as it is received.
+     *
+     * @param <T> type of the result of reading the response
+     */
+    public interface ResponseHandler<T> {
+        /**
+         * @param response status and headers of the response, without the body
+         * @param body     body of the response, which is empty if the response has no body
+         * @return result of reading the response
+         * @throws IOException if the body could not be read
+         */
+        T handle(HttpResponse response, InputStream body) throws IOException;
+    }
+
+    public GatewayHttpClient(HttpClientConfiguration configuration) {
+        this.configuration = configuration;
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setDefaultMaxPerRoute(configuration.getMaxConnectionsPerRoute());
+        connectionManager.setMaxTotal(configuration.getMaxConnections());
+        HttpClientBuilder builder = HttpClientBuilder.create()
+                .setConnectionManager(connectionManager)
+                .disableRedirectHandling()
+                .disableCookieManagement()
+                .useSystemProperties();
+        if (!configuration.isKeepAlive()) {
+            builder.setConnectionReuseStrategy(NoConnectionReuseStrategy.INSTANCE);
+        }
+        httpClient = builder.build();
+    }
+
+    /**
+     * @return client created with the HTTP client configuration of the gateway, or the default configuration if
+     * it has not been loaded
+     */
+    public static GatewayHttpClient getInstance() {
+        if (instance == null) {
+            synchronized (GatewayHttpClient.class) {
+                if (instance == null) {
+                    HttpClientConfiguration configuration = ServiceReferenceHolder.getInstance()
+                            .getHttpClientConfiguration();
+                    instance = new GatewayHttpClient(configuration != null ? configuration :
+                            new HttpClientConfiguration());
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Closes the connections of the client. Requests can not be sent after the client is closed.
+     *
+     * @throws IOException if the connections could not be closed
+     */
+    public void close() throws IOException {
+        httpClient.close();
+    }
+
+    public HttpClientConfiguration getConfiguration() {
+        return configuration;
+    }
+
+    /**
+     * Sends a POST request.
+     *
+     * @param url         URL of the request
+     * @param contentType content type of the body
+     * @param body        body of the request
+     * @return response of the request
+     * @throws IOException if the request could not be sent or the response could not be read
+     */
+    public HttpResponse post(String url, String contentType, byte[] body) throws IOException {
+        Map<String, Collection<String>> headers = Collections.singletonMap("Content-Type",
+                Collections.singletonList(contentType));
+        return execute("POST", url, headers, body);
+    }
+
+    /**
+     * Sends a request with the configured timeouts.
+     *
+     * @see #execute(String, String, Map, byte[], int, int)
+     */
+    public HttpResponse execute(String method, String url, Map<String, Collection<String>> headers, byte[] body)
+            throws IOException {
+        return execute(method, url, headers, body, configuration.getConnectTimeoutMillis(),
+                configuration.getReadTimeoutMillis());
+    }
+
+    /**
+     * Sends a request and reads the complete response.
+     *
+     * @param method               HTTP method
+     * @param url                  URL of the request
+     * @param headers              headers of the request
+     * @param body                 body of the request, or null if there is no body
+     * @param connectTimeoutMillis timeout to connect to the server
+     * @param readTimeoutMillis    timeout to read the response
+     * @return response of the request
+     * @throws IOException if the request could not be sent or the response could not be read
+     */
+    public HttpResponse execute(String method, String url, Map<String, Collection<String>> headers, byte[] body,
+                                int connectTimeoutMillis, int readTimeoutMillis) throws IOException {
+        return execute(method, url, headers, body, connectTimeoutMillis, readTimeoutMillis, BUFFERING_HANDLER);
+    }
+
+    /**
+     * Sends a request with the configured timeouts, and reads the response with the given handler as it is received.
+     * The part of the body which is not read by the handler is skipped, so that the connection can be reused.
+     *
+     * @param method  HTTP method
+     * @param url     URL of the request
+     * @param headers headers of the request
+     * @param handler handler which reads the response
+     * @param <T>     type of the result of reading the response
+     * @return result of the handler
+     * @throws IOException if the request could not be sent or the response could not be read
+     */
+    public <T> T stream(String method, String url, Map<String, Collection<String>> headers,
+                        ResponseHandler<T> handler) throws IOException {
+        return execute(method, url, headers, null, configuration.getConnectTimeoutMillis(),
+                configuration.getReadTimeoutMillis(), handler);
+    }
+
+    private <T> T execute(String method, String url, Map<String, Collection<String>> headers, byte[] body,
+                          int connectTimeoutMillis, int readTimeoutMillis, ResponseHandler<T> handler)
+            throws IOException {
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(connectTimeoutMillis)
+                .setSocketTimeout(readTimeoutMillis)
+                .setConnectionRequestTimeout(configuration.getConnectionRequestTimeoutMillis())
+                .build();
+        RequestBuilder requestBuilder = RequestBuilder.create(method).setUri(url).setConfig(requestConfig);
+        if (headers != null) {
+            for (Map.Entry<String, Collection<String>> header : headers.entrySet()) {
+                // The length of the body is set by the client
+                if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(header.getKey())
+                        || HttpHeaders.TRANSFER_ENCODING.equalsIgnoreCase(header.getKey())) {
+                    continue;
+                }
+                for (String value : header.getValue()) {
+                    requestBuilder.addHeader(header.getKey(), value);
+                }
+            }
+        }
+        if (body != null) {
+            requestBuilder.setEntity(new ByteArrayEntity(body));
+        }
+
+        // The connection is closed if the response is not read completely, and returned to the pool otherwise
+        try (CloseableHttpResponse response = httpClient.execute(requestBuilder.build())) {
+            HttpEntity entity = response.getEntity();
+            InputStream inputStream = entity != null ? entity.getContent() : new ByteArrayInputStream(new byte[0]);
+            T result = handler.handle(new HttpResponse(response.getStatusLine().getStatusCode(),
+                    response.getStatusLine().getReasonPhrase(), getHeaders(response), new byte[0]), inputStream);
+            EntityUtils.consume(entity);
+            return result;
+        }
+    }
+
+    private static Map<String, Collection<String>> getHeaders(CloseableHttpResponse response) {
+        Map<String, Collection<String>> headers = new LinkedHashMap<>();
+        for (Header header : response.getAllHeaders()) {
+            headers.computeIfAbsent(header.getName(), name -> new ArrayList<>()).add(header.getValue());
+        }
+        return headers;
+    }
+}
@@ -23,6 +23,14 @@ import org.osgi.service.component.annotations.ReferencePolicy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wso2.carbon.apimgt.gateway.analytics.AnalyticsConfiguration;
+import org.wso2.carbon.apimgt.gateway.http.HttpClientConfiguration;
+import org.wso2.carbon.apimgt.gateway.metrics.MetricsConfiguration;
+import org.wso2.carbon.apimgt.gateway.resource.ResourceStoreConfiguration;
+import org.wso2.carbon.apimgt.gateway.security.handlers.JWTValidationConfiguration;
+import org.wso2.carbon.apimgt.gateway.security.handlers.TokenCacheConfiguration;
+import org.wso2.carbon.apimgt.gateway.subscription.SubscriptionStoreConfiguration;
+import org.wso2.carbon.apimgt.gateway.throttling.ThrottleReceiverConfiguration;
+import org.wso2.carbon.apimgt.gateway.throttling.publisher.ThrottlePublisherConfiguration;
 import org.wso2.carbon.kernel.configprovider.CarbonConfigurationException;
 import org.wso2.carbon.kernel.configprovider.ConfigProvider;
 
@@ -57,6 +65,104 @@ public class ConfigurationActivator {
         log.info("Setting default analytics configurations");
         log.debug("Analytics enabled = " + analyticsConfiguration.isEnabled());
         ServiceReferenceHolder.getInstance().setAnalyticsConfiguration(analyticsConfiguration);
+
+        ThrottlePublisherConfiguration throttlePublisherConfiguration = null;
+        try {
+            throttlePublisherConfiguration = configProvider
+                    .getConfigurationObject(ThrottlePublisherConfiguration.class);
+        } catch (CarbonConfigurationException e) {
+            log.error("error getting config : ThrottlePublisherConfiguration", e);
+        }
+        if (throttlePublisherConfiguration == null) {
+            throttlePublisherConfiguration = new ThrottlePublisherConfiguration();
+            log.info("Setting default throttle publisher configurations");
+        }
+        ServiceReferenceHolder.getInstance().setThrottlePublisherConfiguration(throttlePublisherConfiguration);
+
+        ThrottleReceiverConfiguration throttleReceiverConfiguration = null;
+        try {
+            throttleReceiverConfiguration = configProvider.getConfigurationObject(ThrottleReceiverConfiguration.class);
+        } catch (CarbonConfigurationException e) {
+            log.error("error getting config : ThrottleReceiverConfiguration", e);
+        }
+        if (throttleReceiverConfiguration == null) {
+            throttleReceiverConfiguration = new ThrottleReceiverConfiguration();
+            log.info("Setting default throttle receiver configurations");
+        }
+        ServiceReferenceHolder.getInstance().setThrottleReceiverConfiguration(throttleReceiverConfiguration);
+
+        HttpClientConfiguration httpClientConfiguration = null;
+        try {
+            httpClientConfiguration = configProvider.getConfigurationObject(HttpClientConfiguration.class);
+        } catch (CarbonConfigurationException e) {
+            log.error("error getting config : HttpClientConfiguration", e);
+        }
+        if (httpClientConfiguration == null) {
+            httpClientConfiguration = new HttpClientConfiguration();
+            log.info("Setting default HTTP client configurations");
+        }
+        ServiceReferenceHolder.getInstance().setHttpClientConfiguration(httpClientConfiguration);
+
+        JWTValidationConfiguration jwtValidationConfiguration = null;
+        try {
+            jwtValidationConfiguration = configProvider.getConfigurationObject(JWTValidationConfiguration.class);
+        } catch (CarbonConfigurationException e) {
+            log.error("error getting config : JWTValidationConfiguration", e);
+        }
+        if (jwtValidationConfiguration == null) {
+            jwtValidationConfiguration = new JWTValidationConfiguration();
+            log.info("Setting default JWT validation configurations");
+        }
+        ServiceReferenceHolder.getInstance().setJWTValidationConfiguration(jwtValidationConfiguration);
+
+        TokenCacheConfiguration tokenCacheConfiguration = null;
+        try {
+            tokenCacheConfiguration = configProvider.getConfigurationObject(TokenCacheConfiguration.class);
+        } catch (CarbonConfigurationException e) {
+            log.error("error getting config : TokenCacheConfiguration", e);
+        }
+        if (tokenCacheConfiguration == null) {
+            tokenCacheConfiguration = new TokenCacheConfiguration();
+            log.info("Setting default token cache configurations");
+        }
+        ServiceReferenceHolder.getInstance().setTokenCacheConfiguration(tokenCacheConfiguration);
+
+        SubscriptionStoreConfiguration subscriptionStoreConfiguration = null;
+        try {
+            subscriptionStoreConfiguration = configProvider
+                    .getConfigurationObject(SubscriptionStoreConfiguration.class);
+        } catch (CarbonConfigurationException e) {
+            log.error("error getting config : SubscriptionStoreConfiguration", e);
+        }
+        if (subscriptionStoreConfiguration == null) {
+            subscriptionStoreConfiguration = new SubscriptionStoreConfiguration();
+            log.info("Setting default subscription store configurations");
+        }
+        ServiceReferenceHolder.getInstance().setSubscriptionStoreConfiguration(subscriptionStoreConfiguration);
+
+        ResourceStoreConfiguration resourceStoreConfiguration = null;
+        try {
+            resourceStoreConfiguration = configProvider.getConfigurationObject(ResourceStoreConfiguration.class);
+        } catch (CarbonConfigurationException e) {
+            log.error("error getting config : ResourceStoreConfiguration", e);
+        }
+        if (resourceStoreConfiguration == null) {
+            resourceStoreConfiguration = new ResourceStoreConfiguration();
+            log.info("Setting default resource store configurations");
+        }
+        ServiceReferenceHolder.getInstance().setResourceStoreConfiguration(resourceStoreConfiguration);
+
+        MetricsConfiguration metricsConfiguration = null;
+        try {
+            metricsConfiguration = configProvider.getConfigurationObject(MetricsConfiguration.class);
+        } catch (CarbonConfigurationException e) {
+            log.error("error getting config : MetricsConfiguration", e);
+        }
+        if (metricsConfiguration == null) {
+            metricsConfiguration = new MetricsConfiguration();
+            log.info("Setting default metrics configurations");
+        }
+        ServiceReferenceHolder.getInstance().setMetricsConfiguration(metricsConfiguration);
     }
 
     /**
@@ -67,5 +173,13 @@ public class ConfigurationActivator {
     protected void unregisterConfigProvider(ConfigProvider configProvider) {
         ServiceReferenceHolder.getInstance().setConfigProvider(null);
         ServiceReferenceHolder.getInstance().setAnalyticsConfiguration(null);
+        ServiceReferenceHolder.getInstance().setThrottlePublisherConfiguration(null);
+        ServiceReferenceHolder.getInstance().setThrottleReceiverConfiguration(null);
+        ServiceReferenceHolder.getInstance().setHttpClientConfiguration(null);
+        ServiceReferenceHolder.getInstance().setJWTValidationConfiguration(null);
+        ServiceReferenceHolder.getInstance().setTokenCacheConfiguration(null);
+        ServiceReferenceHolder.getInstance().setSubscriptionStoreConfiguration(null);
+        ServiceReferenceHolder.getInstance().setResourceStoreConfiguration(null);
+        ServiceReferenceHolder.getInstance().setMetricsConfiguration(null);
     }
 }
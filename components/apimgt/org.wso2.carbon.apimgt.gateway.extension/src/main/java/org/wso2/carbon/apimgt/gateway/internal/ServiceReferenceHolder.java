@@ -20,6 +20,14 @@ package org.wso2.carbon.apimgt.gateway.internal;
 
 import org.wso2.carbon.apimgt.gateway.analytics.AnalyticsConfiguration;
 import org.wso2.carbon.apimgt.gateway.analytics.EventPublisher;
+import org.wso2.carbon.apimgt.gateway.http.HttpClientConfiguration;
+import org.wso2.carbon.apimgt.gateway.metrics.MetricsConfiguration;
+import org.wso2.carbon.apimgt.gateway.security.handlers.JWTValidationConfiguration;
+import org.wso2.carbon.apimgt.gateway.security.handlers.TokenCacheConfiguration;
+import org.wso2.carbon.apimgt.gateway.resource.ResourceStoreConfiguration;
+import org.wso2.carbon.apimgt.gateway.subscription.SubscriptionStoreConfiguration;
+import org.wso2.carbon.apimgt.gateway.throttling.ThrottleReceiverConfiguration;
+import org.wso2.carbon.apimgt.gateway.throttling.publisher.ThrottlePublisherConfiguration;
 import org.wso2.carbon.kernel.configprovider.ConfigProvider;
 
 
@@ -29,8 +37,16 @@ import org.wso2.carbon.kernel.configprovider.ConfigProvider;
 public class ServiceReferenceHolder {
     private static ServiceReferenceHolder instance = new ServiceReferenceHolder();
     private ConfigProvider configProvider;
-    private EventPublisher publisher;
+    private volatile EventPublisher publisher;
     private AnalyticsConfiguration analyticsConfiguration;
+    private ThrottlePublisherConfiguration throttlePublisherConfiguration;
+    private HttpClientConfiguration httpClientConfiguration;
+    private JWTValidationConfiguration jwtValidationConfiguration;
+    private TokenCacheConfiguration tokenCacheConfiguration;
+    private SubscriptionStoreConfiguration subscriptionStoreConfiguration;
+    private ResourceStoreConfiguration resourceStoreConfiguration;
+    private MetricsConfiguration metricsConfiguration;
+    private ThrottleReceiverConfiguration throttleReceiverConfiguration;
 
     private ServiceReferenceHolder() {
 
@@ -63,4 +79,68 @@ public class ServiceReferenceHolder {
     public void setAnalyticsConfiguration(AnalyticsConfiguration analyticsConfiguration) {
         this.analyticsConfiguration = analyticsConfiguration;
     }
+
+    public ThrottlePublisherConfiguration getThrottlePublisherConfiguration() {
+        return throttlePublisherConfiguration;
+    }
+
+    public void setThrottlePublisherConfiguration(ThrottlePublisherConfiguration throttlePublisherConfiguration) {
+        this.throttlePublisherConfiguration = throttlePublisherConfiguration;
+    }
+
+    public HttpClientConfiguration getHttpClientConfiguration() {
+        return httpClientConfiguration;
+    }
+
+    public void setHttpClientConfiguration(HttpClientConfiguration httpClientConfiguration) {
+        this.httpClientConfiguration = httpClientConfiguration;
+    }
+
+    public JWTValidationConfiguration getJWTValidationConfiguration() {
+        return jwtValidationConfiguration;
+    }
+
+    public void setJWTValidationConfiguration(JWTValidationConfiguration jwtValidationConfiguration) {
+        this.jwtValidationConfiguration = jwtValidationConfiguration;
+    }
+
+    public TokenCacheConfiguration getTokenCacheConfiguration() {
+        return tokenCacheConfiguration;
+    }
+
+    public void setTokenCacheConfiguration(TokenCacheConfiguration tokenCacheConfiguration) {
+        this.tokenCacheConfiguration = tokenCacheConfiguration;
+    }
+
+    public SubscriptionStoreConfiguration getSubscriptionStoreConfiguration() {
+        return subscriptionStoreConfiguration;
+    }
+
+    public void setSubscriptionStoreConfiguration(SubscriptionStoreConfiguration subscriptionStoreConfiguration) {
+        this.subscriptionStoreConfiguration = subscriptionStoreConfiguration;
+    }
+
+    public ResourceStoreConfiguration getResourceStoreConfiguration() {
+        return resourceStoreConfiguration;
+    }
+
+    public void setResourceStoreConfiguration(ResourceStoreConfiguration resourceStoreConfiguration) {
+        this.resourceStoreConfiguration = resourceStoreConfiguration;
+    }
+
+    public MetricsConfiguration getMetricsConfiguration() {
+        return metricsConfiguration;
+    }
+
+    public void setMetricsConfiguration(MetricsConfiguration metricsConfiguration) {
+        this.metricsConfiguration = metricsConfiguration;
+    }
+
+    public ThrottleReceiverConfiguration getThrottleReceiverConfiguration() {
+        return throttleReceiverConfiguration;
+    }
+
+    public void setThrottleReceiverConfiguration(ThrottleReceiverConfiguration throttleReceiverConfiguration) {
+        this.throttleReceiverConfiguration = throttleReceiverConfiguration;
+    }
 }
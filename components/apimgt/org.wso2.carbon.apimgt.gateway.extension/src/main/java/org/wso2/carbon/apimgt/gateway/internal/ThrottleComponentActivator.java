@@ -21,10 +21,15 @@ package org.wso2.carbon.apimgt.gateway.internal;
 import org.osgi.framework.BundleContext;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.wso2.andes.client.AMQConnectionFactory;
+import org.wso2.andes.url.URLSyntaxException;
 import org.wso2.carbon.apimgt.gateway.jms.JmsThrottleReceiver;
 import org.wso2.carbon.apimgt.gateway.jms.ThrottleJMSListner;
+import org.wso2.carbon.apimgt.gateway.throttling.ThrottleDataRetrievalClient;
+import org.wso2.carbon.apimgt.gateway.throttling.ThrottleReceiverConfiguration;
 import org.wso2.carbon.apimgt.gateway.throttling.dto.JMSConfigDTO;
 
 
@@ -39,6 +44,9 @@ public class ThrottleComponentActivator {
 
     private static final Logger log = LoggerFactory.getLogger(ThrottleComponentActivator.class);
 
+    private JmsThrottleReceiver jmsThrottleReceiver;
+    private ThrottleJMSListner throttleJMSListner;
+
     @Activate
     protected void activate(BundleContext context) {
 
@@ -46,26 +54,51 @@ public class ThrottleComponentActivator {
             log.debug("Activating throttling component ...");
         }
 
+        ThrottleReceiverConfiguration configuration = ServiceReferenceHolder.getInstance()
+                .getThrottleReceiverConfiguration();
+        if (configuration == null) {
+            configuration = new ThrottleReceiverConfiguration();
+        }
+
         //Creating JMS Config DTO
-        JMSConfigDTO jmsDto = new JMSConfigDTO("admin", "admin", "throttleData");
+        JMSConfigDTO jmsDto = new JMSConfigDTO(configuration.getUsername(), configuration.getPassword(),
+                configuration.getTopicName());
         jmsDto.setClientId("carbon");
         jmsDto.setVirtualHostName("carbon");
-        jmsDto.setDefaultHostname("localhost");
-        jmsDto.setDefaultPort("5672");
-        jmsDto.setMessageListenerl(new ThrottleJMSListner());
+        jmsDto.setDefaultHostname(configuration.getTopicServerHost());
+        jmsDto.setDefaultPort(configuration.getTopicServerPort());
+        throttleJMSListner = new ThrottleJMSListner();
+        jmsDto.setMessageListenerl(throttleJMSListner);
 
-        // registering jms subscriber
-        JmsThrottleReceiver jmsThrottleReceiver = new JmsThrottleReceiver();
-        jmsThrottleReceiver.registerSubscriber(jmsDto);
+        JmsThrottleReceiver.SnapshotLoader snapshotLoader = null;
+        if (configuration.isResyncEnabled()) {
+            snapshotLoader = new ThrottleDataRetrievalClient(configuration.getThrottleDataUrl())::loadSnapshot;
+        }
 
-        return;
+        // registering jms subscriber
+        try {
+            jmsThrottleReceiver = new JmsThrottleReceiver(jmsDto, new AMQConnectionFactory(
+                    JmsThrottleReceiver.getTCPConnectionURL(jmsDto)), throttleJMSListner, snapshotLoader,
+                    configuration.getInitialRetryIntervalMillis(), configuration.getMaxRetryIntervalMillis());
+            jmsThrottleReceiver.start();
+        } catch (URLSyntaxException e) {
+            log.error("Jms Subscription Failed", e);
+        }
     }
 
-    // TODO: need to implement a shutdown method
+    @Deactivate
     protected void deactivate(BundleContext componentContext) {
         if (log.isDebugEnabled()) {
             log.debug("Deactivating component");
         }
+        if (jmsThrottleReceiver != null) {
+            jmsThrottleReceiver.stop();
+            jmsThrottleReceiver = null;
+        }
+        if (throttleJMSListner != null) {
+            throttleJMSListner.getMessageProcessor().shutdown();
+            throttleJMSListner = null;
+        }
     }
 
 }
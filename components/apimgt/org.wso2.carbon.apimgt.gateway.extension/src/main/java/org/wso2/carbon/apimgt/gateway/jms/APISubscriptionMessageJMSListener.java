@@ -27,9 +27,9 @@ import org.wso2.carbon.apimgt.gateway.APIMConfigurations;
 import org.wso2.carbon.apimgt.gateway.GatewayConstants;
 import org.wso2.carbon.apimgt.gateway.exception.APISubscriptionValidationException;
 import org.wso2.carbon.apimgt.gateway.subscription.APISubscriptionDataHolder;
+import org.wso2.carbon.apimgt.gateway.subscription.Subscription;
 
-import java.util.HashMap;
-import java.util.Map;
+import javax.jms.BytesMessage;
 import javax.jms.JMSException;
 import javax.jms.Message;
 import javax.jms.TextMessage;
@@ -45,6 +45,7 @@ import javax.naming.NamingException;
  */
 class APISubscriptionMessageJMSListener {
     private static final Logger log = LoggerFactory.getLogger(APITopicSubscriber.class);
+    private static final Gson GSON = new Gson();
     private TopicConnection topicConnection;
     private TopicSession topicSession;
     private APIMConfigurations config = null;
@@ -81,23 +82,31 @@ class APISubscriptionMessageJMSListener {
      * @throws APISubscriptionValidationException throws if subscription validation exception occurred
      */
     void receive(TopicSubscriber topicSubscriber) throws APISubscriptionValidationException {
+        receive(topicSubscriber, 0);
+    }
+
+    /**
+     * Try to read msg from topic, waiting at most the given time for a message
+     *
+     * @param topicSubscriber current subscriber
+     * @param timeout         time to wait for a message in milliseconds, or 0 to wait until a message is received
+     * @throws APISubscriptionValidationException throws if subscription validation exception occurred
+     */
+    void receive(TopicSubscriber topicSubscriber, long timeout) throws APISubscriptionValidationException {
         try {
-            Message message = topicSubscriber.receive();
+            Message message = timeout > 0 ? topicSubscriber.receive(timeout) : topicSubscriber.receive();
+            String action;
+            Subscription subscription;
             if (message instanceof TextMessage) {
                 TextMessage textMessage = (TextMessage) message;
                 String msg = textMessage.getText();
                 if (log.isDebugEnabled()) {
                     log.debug("Got API Subscription from topic subscriber = " + msg);
                 }
-                JsonObject jsonMsg = new Gson().fromJson(msg, JsonObject.class);
-
-                String action = jsonMsg.get(GatewayConstants.ACTION).getAsString();
+                JsonObject jsonMsg = GSON.fromJson(msg, JsonObject.class);
 
-                if (!GatewayConstants.ACTION_NEW.equalsIgnoreCase(action) &&
-                        !GatewayConstants.ACTION_REMOVED.equalsIgnoreCase(action)) {
-                    throw new APISubscriptionValidationException("Invalid " + GatewayConstants.ACTION + " (" + action
-                            + ") found in subscription message.");
-                }
+                action = jsonMsg.get(GatewayConstants.ACTION).getAsString();
+                validateAction(action);
 
                 String apiContext = jsonMsg.get(GatewayConstants.API_CONTEXT).getAsString();
                 String apiVersion = jsonMsg.get(GatewayConstants.API_VERSION).getAsString();
@@ -108,27 +117,45 @@ class APISubscriptionMessageJMSListener {
                     String appOwner = jsonMsg.get(GatewayConstants.APPLICATION_OWNER).getAsString();
                     String subscriptionPolicy = jsonMsg.get(GatewayConstants.SUBSCRIPTION_POLICY).getAsString();
                     String keyEnvType = jsonMsg.get(GatewayConstants.KEY_ENV_TYPE).getAsString();
-                    Map<String, String> subscriptionData = new HashMap<>();
-                    subscriptionData.put(GatewayConstants.SUBSCRIPTION_POLICY, subscriptionPolicy);
-                    subscriptionData.put(GatewayConstants.API_CONTEXT, apiContext);
-                    subscriptionData.put(GatewayConstants.API_VERSION, apiVersion);
-                    subscriptionData.put(GatewayConstants.API_PROVIDER, apiProvider);
-                    subscriptionData.put(GatewayConstants.APPLICATION_NAME, appName);
-                    subscriptionData.put(GatewayConstants.APPLICATION_OWNER, appOwner);
-                    subscriptionData.put(GatewayConstants.CONSUMER_KEY, consumerKey);
-                    subscriptionData.put(GatewayConstants.KEY_ENV_TYPE, keyEnvType);
-                    APISubscriptionDataHolder.getInstance().addApiSubscriptionToMap(apiContext, apiVersion, consumerKey,
-                            subscriptionData);
-                } else if (GatewayConstants.ACTION_REMOVED.equalsIgnoreCase(action)) {
-                    APISubscriptionDataHolder.getInstance().removeApiSubscriptionFromMap(apiContext, apiVersion,
-                            consumerKey);
+                    subscription = new Subscription(apiContext, apiVersion, apiProvider, consumerKey,
+                            subscriptionPolicy, appName, appOwner, keyEnvType);
+                } else {
+                    subscription = new Subscription(apiContext, apiVersion, null, consumerKey, null, null, null,
+                            null);
+                }
+            } else if (message instanceof BytesMessage) {
+                BinaryMessageDecoder.SubscriptionEvent event = BinaryMessageDecoder
+                        .decodeSubscriptionEvent(BinaryMessageDecoder.readBody((BytesMessage) message));
+                action = event.getAction();
+                validateAction(action);
+                subscription = event.getSubscription();
+                if (log.isDebugEnabled()) {
+                    log.debug("Got binary API Subscription from topic subscriber, action: " + action + ", API: "
+                            + subscription.getApiContext() + ", version: " + subscription.getApiVersion());
                 }
+            } else {
+                return;
+            }
+
+            if (GatewayConstants.ACTION_NEW.equalsIgnoreCase(action)) {
+                APISubscriptionDataHolder.getInstance().addSubscription(subscription);
+            } else {
+                APISubscriptionDataHolder.getInstance().removeApiSubscriptionFromMap(subscription.getApiContext(),
+                        subscription.getApiVersion(), subscription.getConsumerKey());
             }
         } catch (JMSException e) {
             throw new APISubscriptionValidationException(e);
         }
     }
 
+    private static void validateAction(String action) throws APISubscriptionValidationException {
+        if (!GatewayConstants.ACTION_NEW.equalsIgnoreCase(action) &&
+                !GatewayConstants.ACTION_REMOVED.equalsIgnoreCase(action)) {
+            throw new APISubscriptionValidationException("Invalid " + GatewayConstants.ACTION + " (" + action
+                    + ") found in subscription message.");
+        }
+    }
+
     /**
      * Stop the jms listener
      */
@@ -18,11 +18,18 @@
 
 package org.wso2.carbon.apimgt.gateway.jms;
 
+import feign.FeignException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wso2.andes.url.URLSyntaxException;
 import org.wso2.carbon.apimgt.gateway.exception.APISubscriptionValidationException;
+import org.wso2.carbon.apimgt.gateway.internal.ServiceReferenceHolder;
+import org.wso2.carbon.apimgt.gateway.subscription.APISubscriptionDataHolder;
+import org.wso2.carbon.apimgt.gateway.subscription.SubscriptionRetrievalClient;
+import org.wso2.carbon.apimgt.gateway.subscription.SubscriptionStoreConfiguration;
 
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 import javax.jms.JMSException;
 import javax.jms.TopicSubscriber;
 import javax.naming.NamingException;
@@ -45,12 +52,33 @@ public class APISubscriptionReceiver extends Thread {
             log.error("Unable to subscribe to the topic", e);
             return;
         }
+        // Subscribe before loading, so that the updates made while loading are not missed
+        SubscriptionStoreConfiguration configuration = ServiceReferenceHolder.getInstance()
+                .getSubscriptionStoreConfiguration();
+        if (configuration == null) {
+            configuration = new SubscriptionStoreConfiguration();
+        }
+        boolean syncEnabled = configuration.isWarmUpEnabled();
+        long syncIntervalMillis = TimeUnit.SECONDS.toMillis(configuration.getSyncInterval());
+        if (syncEnabled) {
+            synchronizeSubscriptions();
+        }
+        long nextSyncTime = System.currentTimeMillis() + syncIntervalMillis;
 
         while (true) {
             try {
-                sus.receive(subscriber);
+                sus.receive(subscriber, syncEnabled ? syncIntervalMillis : 0);
             } catch (APISubscriptionValidationException e) {
                 log.error("Error occurred while receiving subscription message.", e);
+                if (syncEnabled) {
+                    // Messages may have been missed, so catch up with the changes since the last synchronization
+                    synchronizeSubscriptions();
+                    nextSyncTime = System.currentTimeMillis() + syncIntervalMillis;
+                }
+            }
+            if (syncEnabled && syncIntervalMillis > 0 && System.currentTimeMillis() >= nextSyncTime) {
+                synchronizeSubscriptions();
+                nextSyncTime = System.currentTimeMillis() + syncIntervalMillis;
             }
             try {
                 Thread.sleep(1000L);
@@ -60,4 +88,12 @@ public class APISubscriptionReceiver extends Thread {
         }
 
     }
+
+    private void synchronizeSubscriptions() {
+        try {
+            APISubscriptionDataHolder.getInstance().synchronize(new SubscriptionRetrievalClient());
+        } catch (FeignException | IOException e) {
+            log.error("Unable to load the subscriptions from API manager core", e);
+        }
+    }
 }
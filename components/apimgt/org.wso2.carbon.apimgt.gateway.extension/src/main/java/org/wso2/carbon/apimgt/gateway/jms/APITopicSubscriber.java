@@ -47,6 +47,7 @@ import javax.naming.NamingException;
  */
 public class APITopicSubscriber {
     private static final Logger log = LoggerFactory.getLogger(APITopicSubscriber.class);
+    private static final Gson GSON = new Gson();
     private TopicConnection topicConnection;
     private TopicSession topicSession;
     private APIMConfigurations config = null;
@@ -102,7 +103,7 @@ public class APITopicSubscriber {
             if (log.isDebugEnabled()) {
                 log.debug("Got API config from topic subscriber = " + msg);
             }
-            GatewayConfigDTO dto = new Gson().fromJson(msg, GatewayConfigDTO.class);
+            GatewayConfigDTO dto = GSON.fromJson(msg, GatewayConfigDTO.class);
             deployApiConfig(dto);
         }
     }
@@ -0,0 +1,229 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.jms;
+
+import org.wso2.carbon.apimgt.core.dto.APIDTO;
+import org.wso2.carbon.apimgt.core.dto.EndpointDTO;
+import org.wso2.carbon.apimgt.core.dto.GatewayDTO;
+import org.wso2.carbon.apimgt.core.models.APISummary;
+import org.wso2.carbon.apimgt.core.models.Endpoint;
+import org.wso2.carbon.apimgt.core.models.UriTemplate;
+import org.wso2.carbon.apimgt.core.util.BinaryMessageReader;
+import org.wso2.carbon.apimgt.core.util.BrokerUtil;
+import org.wso2.carbon.apimgt.gateway.subscription.Subscription;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.jms.BytesMessage;
+import javax.jms.JMSException;
+import javax.jms.MessageFormatException;
+
+/**
+ * Decodes the messages published to the broker topics in the binary format of {@link BrokerUtil}. Bytes after the
+ * known fields of a message are ignored, so that fields added to a message type later do not break older gateways.
+ */
+public final class BinaryMessageDecoder {
+
+    private BinaryMessageDecoder() {
+    }
+
+    /**
+     * Subscription added or removed in the API manager.
+     */
+    public static final class SubscriptionEvent {
+
+        private final String action;
+        private final Subscription subscription;
+
+        SubscriptionEvent(String action, Subscription subscription) {
+            this.action = action;
+            this.subscription = subscription;
+        }
+
+        public String getAction() {
+            return action;
+        }
+
+        public Subscription getSubscription() {
+            return subscription;
+        }
+    }
+
+    /**
+     * @param message bytes message
+     * @return body of the message
+     * @throws JMSException if the body could not be read
+     */
+    public static byte[] readBody(BytesMessage message) throws JMSException {
+        byte[] body = new byte[(int) message.getBodyLength()];
+        message.readBytes(body);
+        return body;
+    }
+
+    /**
+     * Decodes a throttle decision, blocking condition or key template message.
+     *
+     * @param data        encoded message
+     * @param publishTime time the message was published, or 0 if it is not known
+     * @return decoded message
+     * @throws MessageFormatException if the message is not a valid throttle message
+     */
+    public static ThrottleMessage decodeThrottleMessage(byte[] data, long publishTime)
+            throws MessageFormatException {
+        BinaryMessageReader reader = open(data);
+        int type = reader.readByte();
+        switch (type) {
+            case BrokerUtil.THROTTLE_DECISION:
+                return ThrottleMessage.throttleDecision(required(reader.readString(), "throttle key"),
+                        reader.readBoolean(), reader.readVarLong(), publishTime);
+            case BrokerUtil.BLOCKING_CONDITION:
+                String condition = reader.readString();
+                return ThrottleMessage.blockingCondition(condition, required(reader.readString(), "condition value"),
+                        reader.readBoolean(), publishTime);
+            case BrokerUtil.KEY_TEMPLATE:
+                return ThrottleMessage.keyTemplate(required(reader.readString(), "key template"),
+                        reader.readBoolean(), publishTime);
+            default:
+                throw new MessageFormatException("Unexpected type " + type + " of a throttle message");
+        }
+    }
+
+    /**
+     * Decodes a subscription event.
+     *
+     * @param data encoded event
+     * @return decoded event
+     * @throws MessageFormatException if the message is not a valid subscription event
+     */
+    public static SubscriptionEvent decodeSubscriptionEvent(byte[] data) throws MessageFormatException {
+        BinaryMessageReader reader = open(data);
+        expectType(reader, BrokerUtil.SUBSCRIPTION_EVENT);
+        String action = reader.readString();
+        String apiContext = reader.readString();
+        String apiVersion = reader.readString();
+        String apiProvider = reader.readString();
+        String consumerKey = reader.readString();
+        String subscriptionPolicy = reader.readString();
+        String applicationName = reader.readString();
+        String applicationOwner = reader.readString();
+        String keyEnvType = reader.readString();
+        return new SubscriptionEvent(action, new Subscription(apiContext, apiVersion, apiProvider, consumerKey,
+                subscriptionPolicy, applicationName, applicationOwner, keyEnvType));
+    }
+
+    /**
+     * Decodes an API or endpoint event.
+     *
+     * @param data encoded event
+     * @return {@link APIDTO} or {@link EndpointDTO}
+     * @throws MessageFormatException if the message is not a valid API or endpoint event
+     */
+    public static GatewayDTO decodeGatewayEvent(byte[] data) throws MessageFormatException {
+        BinaryMessageReader reader = open(data);
+        int type = reader.readByte();
+        String eventType = reader.readString();
+        Set<String> labels = reader.readStrings();
+        GatewayDTO gatewayDTO;
+        if (type == BrokerUtil.API_EVENT) {
+            APIDTO apiDTO = new APIDTO(eventType);
+            if (reader.readBoolean()) {
+                APISummary apiSummary = new APISummary(reader.readString());
+                apiSummary.setName(reader.readString());
+                apiSummary.setContext(reader.readString());
+                apiSummary.setVersion(reader.readString());
+                apiSummary.setUriTemplates(readUriTemplates(reader));
+                apiDTO.setApiSummary(apiSummary);
+            }
+            gatewayDTO = apiDTO;
+        } else if (type == BrokerUtil.ENDPOINT_EVENT) {
+            EndpointDTO endpointDTO = new EndpointDTO(eventType);
+            endpointDTO.setEndpoint(readEndpoint(reader));
+            gatewayDTO = endpointDTO;
+        } else {
+            throw new MessageFormatException("Unexpected type " + type + " of a gateway event");
+        }
+        gatewayDTO.setLabels(labels);
+        return gatewayDTO;
+    }
+
+    private static List<UriTemplate> readUriTemplates(BinaryMessageReader reader) throws MessageFormatException {
+        int count = reader.readLength();
+        if (count < 0) {
+            return null;
+        }
+        List<UriTemplate> uriTemplates = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            UriTemplate.UriTemplateBuilder builder = new UriTemplate.UriTemplateBuilder()
+                    .templateId(reader.readString()).uriTemplate(reader.readString()).httpVerb(reader.readString())
+                    .authType(reader.readString()).policy(reader.readString());
+            int endpointCount = reader.readLength();
+            if (endpointCount < 0) {
+                builder.endpoint(null);
+            } else {
+                Map<String, Endpoint> endpoints = new HashMap<>();
+                for (int j = 0; j < endpointCount; j++) {
+                    endpoints.put(reader.readString(), readEndpoint(reader));
+                }
+                builder.endpoint(endpoints);
+            }
+            uriTemplates.add(builder.build());
+        }
+        return uriTemplates;
+    }
+
+    private static Endpoint readEndpoint(BinaryMessageReader reader) throws MessageFormatException {
+        if (!reader.readBoolean()) {
+            return null;
+        }
+        Endpoint.Builder builder = new Endpoint.Builder().id(reader.readString()).name(reader.readString())
+                .type(reader.readString()).endpointConfig(reader.readString())
+                .security(reader.readString()).applicableLevel(reader.readString());
+        Long maxTps = reader.readNullableLong();
+        if (maxTps != null) {
+            builder.maxTps(maxTps);
+        }
+        return builder.build();
+    }
+
+    private static BinaryMessageReader open(byte[] data) throws MessageFormatException {
+        BinaryMessageReader reader = new BinaryMessageReader(data);
+        int version = reader.readByte();
+        if (version != BrokerUtil.BINARY_FORMAT_VERSION) {
+            throw new MessageFormatException("Unsupported binary message format version " + version);
+        }
+        return reader;
+    }
+
+    private static void expectType(BinaryMessageReader reader, int expectedType) throws MessageFormatException {
+        int type = reader.readByte();
+        if (type != expectedType) {
+            throw new MessageFormatException("Unexpected message type " + type + ", expected " + expectedType);
+        }
+    }
+
+    private static String required(String value, String field) throws MessageFormatException {
+        if (value == null) {
+            throw new MessageFormatException("The " + field + " is missing in the binary message");
+        }
+        return value;
+    }
+}
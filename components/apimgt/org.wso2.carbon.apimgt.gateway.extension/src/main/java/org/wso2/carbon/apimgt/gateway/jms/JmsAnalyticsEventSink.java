@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.jms;
+
+import com.google.gson.Gson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.andes.client.AMQConnectionFactory;
+import org.wso2.andes.url.URLSyntaxException;
+import org.wso2.carbon.apimgt.gateway.analytics.AnalyticsAggregate;
+import org.wso2.carbon.apimgt.gateway.analytics.AnalyticsEventSink;
+import org.wso2.carbon.apimgt.gateway.analytics.AnalyticsException;
+import org.wso2.carbon.apimgt.gateway.analytics.AnalyticsUtil;
+import org.wso2.carbon.apimgt.gateway.analytics.dto.AnalyticsEventStreamDTO;
+import org.wso2.carbon.apimgt.gateway.throttling.dto.JMSConfigDTO;
+
+import java.util.List;
+import javax.jms.JMSException;
+import javax.jms.Session;
+import javax.jms.TopicConnection;
+import javax.jms.TopicPublisher;
+import javax.jms.TopicSession;
+
+/**
+ * Sink which publishes the analytics events to a topic, each event as a text message holding the JSON array of its
+ * attributes, and each aggregate as a text message holding its JSON object. Each batch is sent in a single
+ * transacted session commit. The connection is created when the first batch is sent, and is recreated for the next
+ * batch if sending fails.
+ */
+public class JmsAnalyticsEventSink implements AnalyticsEventSink {
+
+    private static final Logger log = LoggerFactory.getLogger(JmsAnalyticsEventSink.class);
+    private static final Gson gson = new Gson();
+
+    private final JMSConfigDTO config;
+    private TopicConnection topicConnection;
+    private TopicSession topicSession;
+    private TopicPublisher topicPublisher;
+
+    public JmsAnalyticsEventSink(JMSConfigDTO config) {
+        this.config = config;
+    }
+
+    @Override
+    public void publish(AnalyticsEventStreamDTO[] events, int count) throws AnalyticsException {
+        try {
+            if (topicPublisher == null) {
+                connect();
+            }
+            for (int i = 0; i < count; i++) {
+                topicPublisher.publish(topicSession.createTextMessage(gson.toJson(AnalyticsUtil
+                        .generateStream(events[i]))));
+            }
+            topicSession.commit();
+        } catch (JMSException e) {
+            close();
+            throw new AnalyticsException("Error while publishing analytics events to topic " + config.getTopicName(),
+                    e);
+        } catch (URLSyntaxException e) {
+            throw new AnalyticsException("Invalid connection url for topic " + config.getTopicName(), e);
+        }
+    }
+
+    @Override
+    public void publishAggregates(List<AnalyticsAggregate> aggregates) throws AnalyticsException {
+        try {
+            if (topicPublisher == null) {
+                connect();
+            }
+            for (AnalyticsAggregate aggregate : aggregates) {
+                topicPublisher.publish(topicSession.createTextMessage(gson.toJson(aggregate.toMap())));
+            }
+            topicSession.commit();
+        } catch (JMSException e) {
+            close();
+            throw new AnalyticsException("Error while publishing analytics aggregates to topic "
+                    + config.getTopicName(), e);
+        } catch (URLSyntaxException e) {
+            throw new AnalyticsException("Invalid connection url for topic " + config.getTopicName(), e);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (topicConnection != null) {
+            try {
+                topicConnection.close();
+            } catch (JMSException e) {
+                // swallowing exception since it wont affect the flow
+                log.warn("Exception while closing topicConnection ", e);
+            }
+        }
+        topicConnection = null;
+        topicSession = null;
+        topicPublisher = null;
+    }
+
+    private void connect() throws JMSException, URLSyntaxException {
+        topicConnection = new AMQConnectionFactory(JmsThrottleReceiver.getTCPConnectionURL(config))
+                .createTopicConnection();
+        topicConnection.start();
+        topicSession = topicConnection.createTopicSession(true, Session.SESSION_TRANSACTED);
+        topicPublisher = topicSession.createPublisher(topicSession.createTopic(config.getTopicName()));
+        log.info("JmsAnalyticsEventSink connected to Topic:" + config.getTopicName());
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.jms;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.apimgt.gateway.throttling.ThrottleException;
+import org.wso2.carbon.apimgt.gateway.throttling.dto.JMSConfigDTO;
+import org.wso2.carbon.apimgt.gateway.throttling.publisher.ThrottleEvent;
+import org.wso2.carbon.apimgt.gateway.throttling.publisher.ThrottleEventSink;
+
+import javax.jms.JMSException;
+import javax.jms.MapMessage;
+import javax.jms.Session;
+import javax.jms.TopicConnection;
+import javax.jms.TopicConnectionFactory;
+import javax.jms.TopicPublisher;
+import javax.jms.TopicSession;
+
+/**
+ * Sink which publishes the throttle events to the traffic manager topic. Each batch is sent in a single transacted
+ * session commit. The connection is created when the first batch is sent, and is recreated if sending fails. While
+ * the broker cannot be reached, the connection is retried with the same exponential backoff as the
+ * {@link JmsThrottleReceiver}, and the batches sent before the next retry fail without connecting.
+ */
+public class JmsThrottleEventSink implements ThrottleEventSink {
+
+    private static final Logger log = LoggerFactory.getLogger(JmsThrottleEventSink.class);
+
+    private final JMSConfigDTO config;
+    private final TopicConnectionFactory connectionFactory;
+    private final long initialRetryIntervalMillis;
+    private final long maxRetryIntervalMillis;
+
+    // Accessed by the drainer thread of the publisher only
+    private TopicConnection topicConnection;
+    private TopicSession topicSession;
+    private TopicPublisher topicPublisher;
+    private int connectAttempts = 0;
+    private long nextConnectTime = 0;
+
+    /**
+     * @param config                     configuration of the topic
+     * @param connectionFactory          factory of the topic connections
+     * @param initialRetryIntervalMillis time to wait before the first retry to connect
+     * @param maxRetryIntervalMillis     maximum time to wait between two retries to connect
+     */
+    public JmsThrottleEventSink(JMSConfigDTO config, TopicConnectionFactory connectionFactory,
+                                long initialRetryIntervalMillis, long maxRetryIntervalMillis) {
+        if (initialRetryIntervalMillis <= 0 || maxRetryIntervalMillis < initialRetryIntervalMillis) {
+            throw new IllegalArgumentException("Invalid retry intervals: " + initialRetryIntervalMillis + ", "
+                    + maxRetryIntervalMillis);
+        }
+        this.config = config;
+        this.connectionFactory = connectionFactory;
+        this.initialRetryIntervalMillis = initialRetryIntervalMillis;
+        this.maxRetryIntervalMillis = maxRetryIntervalMillis;
+    }
+
+    @Override
+    public void publish(ThrottleEvent[] events, int count) throws ThrottleException {
+        try {
+            if (topicPublisher == null) {
+                long currentTime = System.currentTimeMillis();
+                if (currentTime < nextConnectTime) {
+                    throw new ThrottleException("Not connected to topic " + config.getTopicName()
+                            + ". Retrying to connect in " + (nextConnectTime - currentTime) + "ms");
+                }
+                connect();
+            }
+            for (int i = 0; i < count; i++) {
+                topicPublisher.publish(toMessage(events[i]));
+            }
+            topicSession.commit();
+            connectAttempts = 0;
+        } catch (JMSException e) {
+            close();
+            nextConnectTime = System.currentTimeMillis() + JmsThrottleReceiver.getRetryInterval(
+                    initialRetryIntervalMillis, maxRetryIntervalMillis, connectAttempts++);
+            throw new ThrottleException("Error while publishing throttle events to topic " + config.getTopicName(),
+                    e);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (topicConnection != null) {
+            try {
+                topicConnection.close();
+            } catch (JMSException e) {
+                // swallowing exception since it wont affect the flow
+                log.warn("Exception while closing topicConnection ", e);
+            }
+        }
+        topicConnection = null;
+        topicSession = null;
+        topicPublisher = null;
+    }
+
+    private void connect() throws JMSException {
+        topicConnection = connectionFactory.createTopicConnection();
+        topicConnection.start();
+        topicSession = topicConnection.createTopicSession(true, Session.SESSION_TRANSACTED);
+        topicPublisher = topicSession.createPublisher(topicSession.createTopic(config.getTopicName()));
+        log.info("JmsThrottleEventSink connected to Topic:" + config.getTopicName());
+    }
+
+    private MapMessage toMessage(ThrottleEvent event) throws JMSException {
+        MapMessage message = topicSession.createMapMessage();
+        message.setString("appKey", event.getApplicationLevelThrottleKey());
+        message.setString("appTier", event.getApplicationLevelTier());
+        message.setString("apiKey", event.getApiLevelThrottleKey());
+        message.setString("apiTier", event.getApiLevelTier());
+        message.setString("subscriptionKey", event.getSubscriptionLevelThrottleKey());
+        message.setString("subscriptionTier", event.getSubscriptionLevelTier());
+        message.setString("resourceKey", event.getResourceLevelThrottleKey());
+        message.setString("resourceTier", event.getResourceLevelTier());
+        message.setString("userId", event.getAuthorizedUser());
+        message.setString("apiContext", event.getApiContext());
+        message.setString("apiVersion", event.getApiVersion());
+        message.setString("appTenant", event.getAppTenant());
+        message.setString("apiTenant", event.getApiTenant());
+        message.setString("appId", event.getAppId());
+        message.setLong("timestamp", event.getTimestamp());
+        return message;
+    }
+}
@@ -22,36 +22,54 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wso2.carbon.apimgt.gateway.throttling.ThrottleDataHolder;
 import org.wso2.carbon.apimgt.gateway.throttling.constants.APIThrottleConstants;
+import org.wso2.carbon.apimgt.gateway.throttling.dto.ThrottleDataSnapshotDTO;
 
 import java.util.Date;
-import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
+import javax.jms.BytesMessage;
 import javax.jms.JMSException;
 import javax.jms.MapMessage;
 import javax.jms.Message;
 import javax.jms.MessageListener;
 
 /**
- * This class is used to subscribe to a jms topic and update the throttle maps
+ * This class is used to subscribe to a jms topic and update the throttle maps.
+ * <p>
+ * Messages are decoded on the JMS session thread and applied in batches by a {@link ThrottleMessageProcessor}, so
+ * that a burst of throttle decisions does not hold up the session.
  */
 public class ThrottleJMSListner implements MessageListener {
 
     private static final Logger log = LoggerFactory.getLogger(ThrottleJMSListner.class);
 
-    // These patterns will be used to determine for which type of keys the throttling condition has occurred.
-    private Pattern apiPattern = Pattern.compile("/.*/(.*):\\1_(condition_(\\d*)|default)");
-    private static final int API_PATTERN_GROUPS = 3;
-    private static final int API_PATTERN_CONDITION_INDEX = 2;
+    private static final int DEFAULT_WORKER_COUNT = 4;
+    private static final int DEFAULT_QUEUE_CAPACITY = 10000;
+    private static final int DEFAULT_MAX_BATCH_SIZE = 500;
 
-    private Pattern resourcePattern = Pattern.compile("/.*/(.*)/\\1(.*)?:[A-Z]{0,5}_(condition_(\\d*)|default)");
-    public static final int RESOURCE_PATTERN_GROUPS = 4;
-    public static final int RESOURCE_PATTERN_CONDITION_INDEX = 3;
+    // Suffixes of the throttle keys of API and resource level conditions, such as
+    // /pizzashack/1.0.0:1.0.0_condition_1 or /pizzashack/1.0.0/1.0.0/menu:GET_default
+    private static final String DEFAULT_CONDITION_SUFFIX = "_default";
+    private static final String CONDITION_SUFFIX = "_condition_";
+    private static final int MAX_HTTP_METHOD_LENGTH = 5;
 
-    private boolean isSubscribed = false;
+    private final ThrottleMessageProcessor messageProcessor;
+
+    public ThrottleJMSListner() {
+        this(DEFAULT_WORKER_COUNT, DEFAULT_QUEUE_CAPACITY, DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    /**
+     * @param workerCount   number of threads applying the messages
+     * @param queueCapacity maximum number of messages waiting to be applied by each thread
+     * @param maxBatchSize  maximum number of messages applied at once
+     */
+    public ThrottleJMSListner(int workerCount, int queueCapacity, int maxBatchSize) {
+        messageProcessor = new ThrottleMessageProcessor(this::applyMessages, workerCount, queueCapacity,
+                maxBatchSize);
+    }
 
     @Override
     public void onMessage(Message message) {
@@ -64,43 +82,14 @@ public class ThrottleJMSListner implements MessageListener {
             if (message != null) {
 
                 if (message instanceof MapMessage) {
-                    MapMessage mapMessage = (MapMessage) message;
-                    Map<String, Object> map = new HashMap<String, Object>();
-                    Enumeration enumeration = mapMessage.getMapNames();
-                    while (enumeration.hasMoreElements()) {
-                        String key = (String) enumeration.nextElement();
-                        map.put(key, mapMessage.getObject(key));
-                    }
-
-                    if (log.isDebugEnabled()) {
-                        log.debug("JMS message map :" + map);
+                    ThrottleMessage throttleMessage = decode((MapMessage) message);
+                    if (throttleMessage != null) {
+                        messageProcessor.submit(throttleMessage);
                     }
-
-                    if (map.get(APIThrottleConstants.THROTTLE_KEY) != null) {
-                        /**
-                         * This message contains throttle data in map which contains Keys
-                         * throttleKey - Key of particular throttling level
-                         * isThrottled - Whether message has throttled or not
-                         * expiryTimeStamp - When the throttling time window will expires
-                         */
-                        handleThrottleUpdateMessage(map);
-                    } else if (map.get(APIThrottleConstants.BLOCKING_CONDITION_KEY) != null) {
-                        /**
-                         * This message contains blocking condition data
-                         * blockingCondition - Blocking condition type
-                         * conditionValue - blocking condition value
-                         * state - State whether blocking condition is enabled or not
-                         */
-                        handleBlockingMessage(map);
-                    } else if (map.get(APIThrottleConstants.POLICY_TEMPLATE_KEY) != null) {
-                        /**
-                         * This message contains key template data
-                         * keyTemplateValue - Value of key template
-                         * keyTemplateState - whether key template active or not
-                         */
-                        handleKeyTemplateMessage(map);
-                    }
-
+                } else if (message instanceof BytesMessage) {
+                    byte[] body = BinaryMessageDecoder.readBody((BytesMessage) message);
+                    messageProcessor.submit(BinaryMessageDecoder.decodeThrottleMessage(body,
+                            message.getJMSTimestamp()));
                 } else {
                     log.warn("Event dropped due to unsupported message type " + message.getClass());
                 }
@@ -109,21 +98,141 @@ public class ThrottleJMSListner implements MessageListener {
             }
         } catch (JMSException e) {
             log.error("JMSException occurred when processing the received message ", e);
+        } catch (NumberFormatException e) {
+            log.error("Dropping the event received through jms receiver as its expiry time is not valid", e);
         }
     }
 
-    private void handleThrottleUpdateMessage(Map<String, Object> map) {
+    public ThrottleMessageProcessor getMessageProcessor() {
+        return messageProcessor;
+    }
 
-        String throttleKey = map.get(APIThrottleConstants.THROTTLE_KEY).toString();
-        String throttleState = map.get(APIThrottleConstants.IS_THROTTLED).toString();
-        Long timeStamp = Long.parseLong(map.get(APIThrottleConstants.EXPIRY_TIMESTAMP).toString());
+    /**
+     * Replaces the throttle decisions of the gateway with the throttle state held by the traffic manager, and adds its
+     * blocking conditions and key templates to the ones of the gateway. The state only holds the blocking conditions
+     * and key templates published since the API manager core subscribed to the throttle topic, so the ones the gateway
+     * already has are kept. This should be called while no messages are being applied, so that an older message does
+     * not override the snapshot.
+     *
+     * @param snapshot throttle state
+     */
+    public void applySnapshot(ThrottleDataSnapshotDTO snapshot) {
+        Map<String, Long> throttledAPIKeys = new HashMap<>();
+        for (Map.Entry<String, Long> entry : snapshot.getThrottleKeys().entrySet()) {
+            String extractedKey = extractAPIorResourceKey(entry.getKey());
+            if (extractedKey != null && entry.getValue() != null) {
+                throttledAPIKeys.merge(extractedKey, entry.getValue(), Math::max);
+            }
+        }
+        ThrottleDataHolder throttleDataHolder = ThrottleDataHolder.getInstance();
+        throttleDataHolder.replaceThrottleData(snapshot.getThrottleKeys(), throttledAPIKeys);
+        throttleDataHolder.addBlockingConditions(snapshot.getApiBlockingConditions(),
+                snapshot.getApplicationBlockingConditions(), snapshot.getUserBlockingConditions(),
+                snapshot.getIpBlockingConditions());
+        throttleDataHolder.addKeyTemplates(snapshot.getKeyTemplates());
+        log.info("Loaded the throttle state with " + snapshot.getThrottleKeys().size() + " throttled keys");
+    }
+
+    /**
+     * Reads the fields of a message directly from the map message.
+     *
+     * @return decoded message, or null if the message is not of a known type
+     */
+    static ThrottleMessage decode(MapMessage mapMessage) throws JMSException {
+        long publishTime = mapMessage.getJMSTimestamp();
+        String throttleKey = mapMessage.getString(APIThrottleConstants.THROTTLE_KEY);
+        if (throttleKey != null) {
+            /**
+             * This message contains throttle data in map which contains Keys
+             * throttleKey - Key of particular throttling level
+             * isThrottled - Whether message has throttled or not
+             * expiryTimeStamp - When the throttling time window will expires
+             */
+            boolean throttled = APIThrottleConstants.TRUE.equalsIgnoreCase(
+                    mapMessage.getString(APIThrottleConstants.IS_THROTTLED));
+            long expiryTime = Long.parseLong(mapMessage.getString(APIThrottleConstants.EXPIRY_TIMESTAMP));
+            return ThrottleMessage.throttleDecision(throttleKey, throttled, expiryTime, publishTime);
+        }
+        String condition = mapMessage.getString(APIThrottleConstants.BLOCKING_CONDITION_KEY);
+        if (condition != null) {
+            /**
+             * This message contains blocking condition data
+             * blockingCondition - Blocking condition type
+             * conditionValue - blocking condition value
+             * state - State whether blocking condition is enabled or not
+             */
+            String conditionValue = mapMessage.getString(APIThrottleConstants.BLOCKING_CONDITION_VALUE);
+            if (log.isDebugEnabled()) {
+                log.debug("Received Key -  blockingCondition : " + condition + " , " + "conditionValue :"
+                        + conditionValue + " , " + "tenantDomain : "
+                        + mapMessage.getString(APIThrottleConstants.BLOCKING_CONDITION_DOMAIN));
+            }
+            if (conditionValue == null) {
+                log.warn("Dropping the " + condition + " blocking condition event as it does not have a value");
+                return null;
+            }
+            String conditionState = mapMessage.getString(APIThrottleConstants.BLOCKING_CONDITION_STATE);
+            return ThrottleMessage.blockingCondition(condition, conditionValue,
+                    APIThrottleConstants.TRUE.equals(conditionState), publishTime);
+        }
+        String keyTemplate = mapMessage.getString(APIThrottleConstants.POLICY_TEMPLATE_KEY);
+        if (keyTemplate != null) {
+            /**
+             * This message contains key template data
+             * keyTemplateValue - Value of key template
+             * keyTemplateState - whether key template active or not
+             */
+            return ThrottleMessage.keyTemplate(keyTemplate,
+                    APIThrottleConstants.ADD.equals(mapMessage.getString(APIThrottleConstants.TEMPLATE_KEY_STATE)),
+                    publishTime);
+        }
+        return null;
+    }
+
+    /**
+     * Applies a batch of messages in order. A throttle decision which is followed by another decision of the same key
+     * in the batch is skipped, as the later decision replaces it.
+     */
+    void applyMessages(List<ThrottleMessage> messages) {
+        Map<String, ThrottleMessage> latestDecisions = null;
+        if (messages.size() > 1) {
+            latestDecisions = new HashMap<>();
+            for (ThrottleMessage message : messages) {
+                if (message.getType() == ThrottleMessage.Type.THROTTLE_DECISION) {
+                    latestDecisions.put(message.getKey(), message);
+                }
+            }
+        }
+        for (ThrottleMessage message : messages) {
+            switch (message.getType()) {
+                case THROTTLE_DECISION:
+                    if (latestDecisions == null || latestDecisions.get(message.getKey()) == message) {
+                        handleThrottleUpdateMessage(message);
+                    }
+                    break;
+                case BLOCKING_CONDITION:
+                    handleBlockingMessage(message);
+                    break;
+                case KEY_TEMPLATE:
+                    handleKeyTemplateMessage(message);
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    private void handleThrottleUpdateMessage(ThrottleMessage message) {
+
+        String throttleKey = message.getKey();
+        long timeStamp = message.getExpiryTime();
 
         if (log.isDebugEnabled()) {
             log.debug("Received Key -  throttleKey : " + throttleKey + " , " +
-                    "isThrottled :" + throttleState + " , expiryTime : " + new Date(timeStamp).toString());
+                    "isThrottled :" + message.isEnabled() + " , expiryTime : " + new Date(timeStamp).toString());
         }
 
-        if (APIThrottleConstants.TRUE.equalsIgnoreCase(throttleState)) {
+        if (message.isEnabled()) {
             ThrottleDataHolder.getInstance().addThrottleData(throttleKey, timeStamp);
 
             String extractedKey = extractAPIorResourceKey(throttleKey);
@@ -149,41 +258,31 @@ public class ThrottleJMSListner implements MessageListener {
         }
     }
 
-    // Synchronized due to blocking data contains or not can updated by multiple threads.
-    // Will not be a performance issue as this will not happen more frequently
-    private synchronized void handleBlockingMessage(Map<String, Object> map) {
-        if (log.isDebugEnabled()) {
-            log.debug("Received Key -  blockingCondition : " + map.get(APIThrottleConstants.BLOCKING_CONDITION_KEY)
-                    .toString()
-                    + " , " + "conditionValue :" + map.get(APIThrottleConstants.BLOCKING_CONDITION_VALUE).toString()
-                    + " , " +
-                    "tenantDomain : " + map.get(APIThrottleConstants.BLOCKING_CONDITION_DOMAIN));
-        }
-
-        String condition = map.get(APIThrottleConstants.BLOCKING_CONDITION_KEY).toString();
-        String conditionValue = map.get(APIThrottleConstants.BLOCKING_CONDITION_VALUE).toString();
-        String conditionState = map.get(APIThrottleConstants.BLOCKING_CONDITION_STATE).toString();
+    // Each update is applied atomically by the blocking condition index, so messages need not be handled one at a time
+    private void handleBlockingMessage(ThrottleMessage message) {
+        String condition = message.getCondition();
+        String conditionValue = message.getKey();
 
         if (APIThrottleConstants.BLOCKING_CONDITIONS_APPLICATION.equals(condition)) {
-            if (APIThrottleConstants.TRUE.equals(conditionState)) {
+            if (message.isEnabled()) {
                 ThrottleDataHolder.getInstance().addApplicationBlockingCondition(conditionValue, conditionValue);
             } else {
                 ThrottleDataHolder.getInstance().removeApplicationBlockingCondition(conditionValue);
             }
         } else if (APIThrottleConstants.BLOCKING_CONDITIONS_API.equals(condition)) {
-            if (APIThrottleConstants.TRUE.equals(conditionState)) {
+            if (message.isEnabled()) {
                 ThrottleDataHolder.getInstance().addAPIBlockingCondition(conditionValue, conditionValue);
             } else {
                 ThrottleDataHolder.getInstance().removeAPIBlockingCondition(conditionValue);
             }
         } else if (APIThrottleConstants.BLOCKING_CONDITIONS_USER.equals(condition)) {
-            if (APIThrottleConstants.TRUE.equals(conditionState)) {
+            if (message.isEnabled()) {
                 ThrottleDataHolder.getInstance().addUserBlockingCondition(conditionValue, conditionValue);
             } else {
                 ThrottleDataHolder.getInstance().removeUserBlockingCondition(conditionValue);
             }
         } else if (APIThrottleConstants.BLOCKING_CONDITIONS_IP.equals(condition)) {
-            if (APIThrottleConstants.TRUE.equals(conditionState)) {
+            if (message.isEnabled()) {
                 ThrottleDataHolder.getInstance().addIplockingCondition(conditionValue, conditionValue);
             } else {
                 ThrottleDataHolder.getInstance().removeIpBlockingCondition(conditionValue);
@@ -191,34 +290,93 @@ public class ThrottleJMSListner implements MessageListener {
         }
     }
 
-    private String extractAPIorResourceKey(String throttleKey) {
-        Matcher m = resourcePattern.matcher(throttleKey);
-        if (m.matches()) {
-            if (m.groupCount() == RESOURCE_PATTERN_GROUPS) {
-                String condition = m.group(RESOURCE_PATTERN_CONDITION_INDEX);
-                String resourceKey = throttleKey.substring(0, throttleKey.indexOf("_" + condition));
-                return resourceKey;
+    /**
+     * Extracts the API or resource key of the throttle key of an API or resource level condition, such as
+     * /pizzashack/1.0.0:1.0.0 of /pizzashack/1.0.0:1.0.0_condition_1 or /pizzashack/1.0.0/1.0.0/menu:GET of
+     * /pizzashack/1.0.0/1.0.0/menu:GET_default. The key is parsed by hand, as this is called for each throttle
+     * decision.
+     *
+     * @param throttleKey throttle key
+     * @return API or resource key, or null if the throttle key is not of an API or resource level condition
+     */
+    static String extractAPIorResourceKey(String throttleKey) {
+        int suffixIndex = getConditionSuffixIndex(throttleKey);
+        if (suffixIndex <= 0 || throttleKey.charAt(0) != '/') {
+            return null;
+        }
+        if (isResourceKey(throttleKey, suffixIndex) || isAPIKey(throttleKey, suffixIndex)) {
+            return throttleKey.substring(0, suffixIndex);
+        }
+        return null;
+    }
+
+    /**
+     * @return index of the _default or _condition_{id} suffix, or -1 if the key does not end with either
+     */
+    private static int getConditionSuffixIndex(String throttleKey) {
+        if (throttleKey.endsWith(DEFAULT_CONDITION_SUFFIX)) {
+            return throttleKey.length() - DEFAULT_CONDITION_SUFFIX.length();
+        }
+        int index = throttleKey.length();
+        while (index > 0 && Character.isDigit(throttleKey.charAt(index - 1))) {
+            index--;
+        }
+        index -= CONDITION_SUFFIX.length();
+        return index >= 0 && throttleKey.startsWith(CONDITION_SUFFIX, index) ? index : -1;
+    }
+
+    /**
+     * Checks for a resource key of the form /{context}/{version}/{version}{resource}:{HTTP method}.
+     */
+    private static boolean isResourceKey(String throttleKey, int end) {
+        int methodIndex = throttleKey.lastIndexOf(':', end - 1);
+        if (methodIndex < 0 || end - methodIndex - 1 > MAX_HTTP_METHOD_LENGTH) {
+            return false;
+        }
+        for (int i = methodIndex + 1; i < end; i++) {
+            char c = throttleKey.charAt(i);
+            if (c < 'A' || c > 'Z') {
+                return false;
             }
-        } else {
-            m = apiPattern.matcher(throttleKey);
-            if (m.matches()) {
-                if (m.groupCount() == API_PATTERN_GROUPS) {
-                    String condition = m.group(API_PATTERN_CONDITION_INDEX);
-                    String resourceKey = throttleKey.substring(0, throttleKey.indexOf("_" + condition));
-                    return resourceKey;
+        }
+        // Look for a segment which is repeated right after itself, such as /1.0.0/1.0.0
+        for (int first = throttleKey.indexOf('/', 1); first >= 0 && first < methodIndex;
+             first = throttleKey.indexOf('/', first + 1)) {
+            for (int second = throttleKey.indexOf('/', first + 1); second >= 0 && second < methodIndex;
+                 second = throttleKey.indexOf('/', second + 1)) {
+                int length = second - first - 1;
+                if (second + 1 + length <= methodIndex
+                        && throttleKey.regionMatches(first + 1, throttleKey, second + 1, length)) {
+                    return true;
                 }
             }
         }
-        return null;
+        return false;
+    }
+
+    /**
+     * Checks for an API key of the form /{context}/{version}:{version}.
+     */
+    private static boolean isAPIKey(String throttleKey, int end) {
+        for (int separator = throttleKey.indexOf(':'); separator >= 0 && separator < end;
+             separator = throttleKey.indexOf(':', separator + 1)) {
+            int length = end - separator - 1;
+            int versionIndex = separator - length - 1;
+            if (versionIndex >= 1 && throttleKey.charAt(versionIndex) == '/'
+                    && throttleKey.regionMatches(versionIndex + 1, throttleKey, separator + 1, length)) {
+                return true;
+            }
+        }
+        return false;
     }
 
-    private synchronized void handleKeyTemplateMessage(Map<String, Object> map) {
-        if (!log.isDebugEnabled()) {
-            log.debug("Received Key -  KeyTemplate : " + map.get(APIThrottleConstants.POLICY_TEMPLATE_KEY).toString());
+    // Synchronized as the key templates present flag is updated along with the templates
+    private synchronized void handleKeyTemplateMessage(ThrottleMessage message) {
+        if (log.isDebugEnabled()) {
+            log.debug("Received Key -  KeyTemplate : " + message.getKey());
         }
-        String keyTemplateValue = map.get(APIThrottleConstants.POLICY_TEMPLATE_KEY).toString();
-        String keyTemplateState = map.get(APIThrottleConstants.TEMPLATE_KEY_STATE).toString();
-        if (APIThrottleConstants.ADD.equals(keyTemplateState)) {
+        String keyTemplateValue = message.getKey();
+        if (message.isEnabled()) {
             ThrottleDataHolder.getInstance().addKeyTemplate(keyTemplateValue, keyTemplateValue);
         } else {
             ThrottleDataHolder.getInstance().removeKeyTemplate(keyTemplateValue);
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.jms;
+
+/**
+ * Throttle decision, blocking condition or key template update received from the traffic manager.
+ */
+public final class ThrottleMessage {
+
+    /**
+     * Type of the update carried by a message.
+     */
+    public enum Type {
+        THROTTLE_DECISION, BLOCKING_CONDITION, KEY_TEMPLATE
+    }
+
+    private final Type type;
+    private final String key;
+    private final String condition;
+    private final boolean enabled;
+    private final long expiryTime;
+    private final long publishTime;
+
+    private ThrottleMessage(Type type, String key, String condition, boolean enabled, long expiryTime,
+                            long publishTime) {
+        this.type = type;
+        this.key = key;
+        this.condition = condition;
+        this.enabled = enabled;
+        this.expiryTime = expiryTime;
+        this.publishTime = publishTime;
+    }
+
+    /**
+     * @param throttleKey throttle key
+     * @param throttled   whether the key is throttled
+     * @param expiryTime  time the throttle window of the key expires
+     * @param publishTime time the message was published, or 0 if it is not known
+     * @return throttle decision message
+     */
+    public static ThrottleMessage throttleDecision(String throttleKey, boolean throttled, long expiryTime,
+                                                   long publishTime) {
+        return new ThrottleMessage(Type.THROTTLE_DECISION, throttleKey, null, throttled, expiryTime, publishTime);
+    }
+
+    /**
+     * @param condition      type of the blocking condition, such as API or IP
+     * @param conditionValue value of the blocking condition
+     * @param enabled        whether the condition is enabled or removed
+     * @param publishTime    time the message was published, or 0 if it is not known
+     * @return blocking condition message
+     */
+    public static ThrottleMessage blockingCondition(String condition, String conditionValue, boolean enabled,
+                                                    long publishTime) {
+        return new ThrottleMessage(Type.BLOCKING_CONDITION, conditionValue, condition, enabled, 0, publishTime);
+    }
+
+    /**
+     * @param keyTemplate key template of a custom policy
+     * @param added       whether the template is added or removed
+     * @param publishTime time the message was published, or 0 if it is not known
+     * @return key template message
+     */
+    public static ThrottleMessage keyTemplate(String keyTemplate, boolean added, long publishTime) {
+        return new ThrottleMessage(Type.KEY_TEMPLATE, keyTemplate, null, added, 0, publishTime);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * @return throttle key, blocking condition value or key template, depending on the type of the message
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * @return type of the blocking condition, or null if this is not a blocking condition message
+     */
+    public String getCondition() {
+        return condition;
+    }
+
+    /**
+     * @return whether the key is throttled, the blocking condition is enabled or the key template is added
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getExpiryTime() {
+        return expiryTime;
+    }
+
+    public long getPublishTime() {
+        return publishTime;
+    }
+}
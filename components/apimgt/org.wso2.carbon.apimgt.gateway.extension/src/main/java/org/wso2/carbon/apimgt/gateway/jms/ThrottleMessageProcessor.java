@@ -0,0 +1,244 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.jms;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Applies the messages received from the traffic manager on a set of worker threads, so that the JMS session thread
+ * only decodes messages and hands them over.
+ * <p>
+ * Each worker has its own bounded queue, and a message is queued to a worker chosen by the hash of its key, so the
+ * updates of a key are applied in the order they were received. A worker drains whatever is in its queue, up to the
+ * maximum batch size, and applies it as one batch. If a queue is full the JMS session thread waits for space, so
+ * decisions are never dropped.
+ * <p>
+ * The decision lag is the time from the publishing of a message until it has been applied. It is measured with the
+ * JMS timestamp of the message, so it includes any clock difference between the traffic manager and the gateway.
+ */
+public class ThrottleMessageProcessor {
+
+    private static final Logger log = LoggerFactory.getLogger(ThrottleMessageProcessor.class);
+    private static final long POLL_TIMEOUT_MILLIS = 100;
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 10000;
+    private static final long IDLE_CHECK_INTERVAL_MILLIS = 10;
+
+    private final BlockingQueue<ThrottleMessage>[] queues;
+    private final Thread[] workers;
+    private final Consumer<List<ThrottleMessage>> applier;
+    private final int maxBatchSize;
+    private volatile boolean running = true;
+
+    private final LongAdder submittedMessages = new LongAdder();
+    private final LongAdder appliedMessages = new LongAdder();
+    private final LongAdder appliedBatches = new LongAdder();
+    private final LongAdder failedMessages = new LongAdder();
+    private final LongAdder decisionLagSum = new LongAdder();
+    private final LongAdder decisionLagSamples = new LongAdder();
+    private final AtomicLong maxDecisionLag = new AtomicLong();
+    private volatile long lastDecisionLag;
+
+    /**
+     * @param applier       applies a batch of messages, called by one worker at a time for a given key
+     * @param workerCount   number of worker threads
+     * @param queueCapacity maximum number of messages waiting in the queue of each worker
+     * @param maxBatchSize  maximum number of messages applied at once
+     */
+    @SuppressWarnings("unchecked")
+    public ThrottleMessageProcessor(Consumer<List<ThrottleMessage>> applier, int workerCount, int queueCapacity,
+                                    int maxBatchSize) {
+        if (workerCount <= 0 || queueCapacity <= 0 || maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Worker count, queue capacity and batch size should be positive");
+        }
+        this.applier = applier;
+        this.maxBatchSize = maxBatchSize;
+        this.queues = new BlockingQueue[workerCount];
+        this.workers = new Thread[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            BlockingQueue<ThrottleMessage> queue = new ArrayBlockingQueue<>(queueCapacity);
+            queues[i] = queue;
+            workers[i] = new Thread(() -> process(queue), "ThrottleMessageProcessor-" + i);
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+    }
+
+    /**
+     * Queues a message to the worker of its key, waiting if the queue of the worker is full.
+     *
+     * @param message message to apply
+     * @return false if the message was not queued, as the processor has been shut down or the thread was interrupted
+     */
+    public boolean submit(ThrottleMessage message) {
+        if (!running) {
+            return false;
+        }
+        BlockingQueue<ThrottleMessage> queue = queues[(message.getKey().hashCode() & Integer.MAX_VALUE)
+                % queues.length];
+        try {
+            queue.put(message);
+            submittedMessages.increment();
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted while queueing the throttle message of key " + message.getKey());
+            return false;
+        }
+    }
+
+    /**
+     * Stops the workers after applying the messages which are already queued.
+     */
+    public void shutdown() {
+        running = false;
+        try {
+            for (Thread worker : workers) {
+                worker.join(SHUTDOWN_TIMEOUT_MILLIS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted while waiting for the throttle message processor to stop", e);
+        }
+    }
+
+    /**
+     * Waits until all the messages submitted so far have been applied, or failed to be applied.
+     *
+     * @param timeoutMillis maximum time to wait
+     * @return true if all the messages were applied before the timeout
+     * @throws InterruptedException if the thread was interrupted while waiting
+     */
+    public boolean awaitIdle(long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (appliedMessages.sum() + failedMessages.sum() < submittedMessages.sum()) {
+            if (System.currentTimeMillis() >= deadline) {
+                return false;
+            }
+            Thread.sleep(IDLE_CHECK_INTERVAL_MILLIS);
+        }
+        return true;
+    }
+
+    /**
+     * @return number of messages applied
+     */
+    public long getAppliedMessageCount() {
+        return appliedMessages.sum();
+    }
+
+    /**
+     * @return number of batches applied
+     */
+    public long getAppliedBatchCount() {
+        return appliedBatches.sum();
+    }
+
+    /**
+     * @return number of messages which failed to be applied
+     */
+    public long getFailedMessageCount() {
+        return failedMessages.sum();
+    }
+
+    /**
+     * @return number of messages waiting to be applied
+     */
+    public int getPendingMessageCount() {
+        int pending = 0;
+        for (BlockingQueue<ThrottleMessage> queue : queues) {
+            pending += queue.size();
+        }
+        return pending;
+    }
+
+    /**
+     * @return decision lag in milliseconds of the last applied message
+     */
+    public long getLastDecisionLag() {
+        return lastDecisionLag;
+    }
+
+    /**
+     * @return largest decision lag in milliseconds since the processor was started
+     */
+    public long getMaxDecisionLag() {
+        return maxDecisionLag.get();
+    }
+
+    /**
+     * @return average decision lag in milliseconds since the processor was started
+     */
+    public double getAverageDecisionLag() {
+        long samples = decisionLagSamples.sum();
+        return samples == 0 ? 0 : (double) decisionLagSum.sum() / samples;
+    }
+
+    private void process(BlockingQueue<ThrottleMessage> queue) {
+        List<ThrottleMessage> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            ThrottleMessage message;
+            try {
+                message = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (message == null) {
+                continue;
+            }
+            batch.add(message);
+            queue.drainTo(batch, maxBatchSize - 1);
+            try {
+                applier.accept(batch);
+                recordApplied(batch, System.currentTimeMillis());
+            } catch (RuntimeException e) {
+                // Catching runtime exceptions as well, as the worker must keep running
+                failedMessages.add(batch.size());
+                log.error("Error while applying " + batch.size() + " throttle messages", e);
+            }
+            batch.clear();
+        }
+    }
+
+    private void recordApplied(List<ThrottleMessage> batch, long currentTime) {
+        appliedMessages.add(batch.size());
+        appliedBatches.increment();
+        for (ThrottleMessage message : batch) {
+            if (message.getPublishTime() > 0) {
+                long lag = Math.max(0, currentTime - message.getPublishTime());
+                decisionLagSum.add(lag);
+                decisionLagSamples.increment();
+                lastDecisionLag = lag;
+                if (lag > maxDecisionLag.get()) {
+                    maxDecisionLag.accumulateAndGet(lag, Math::max);
+                }
+            }
+        }
+    }
+}
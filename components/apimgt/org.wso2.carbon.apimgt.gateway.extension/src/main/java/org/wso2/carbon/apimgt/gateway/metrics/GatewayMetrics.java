@@ -0,0 +1,323 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.apimgt.gateway.internal.ServiceReferenceHolder;
+import org.wso2.carbon.apimgt.gateway.throttling.ThrottleDataHolder;
+import org.wso2.carbon.apimgt.gateway.throttling.constants.APIThrottleConstants;
+import org.wso2.carbon.messaging.CarbonMessage;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Latencies of the gateway handler stages per API. Each API has one {@link StageLatencyHistogram} per
+ * {@link Stage}, which are recorded from the {@link RequestTimings} of each request once its response is sent.
+ * <p>
+ * The number of APIs is bounded, and requests of APIs seen after the limit is reached are recorded under
+ * {@link #OVERFLOW_API}. The latencies, along with how long the throttle data has been stale, are exposed through JMX
+ * and, if enabled, through an HTTP endpoint in the Prometheus text format.
+ */
+public class GatewayMetrics implements GatewayMetricsMBean {
+
+    private static final Logger log = LoggerFactory.getLogger(GatewayMetrics.class);
+
+    public static final String OBJECT_NAME = "org.wso2.carbon.apimgt.gateway:type=GatewayMetrics";
+    public static final String OVERFLOW_API = "__other__";
+    public static final String UNKNOWN_API = "__unknown__";
+    public static final String METRIC_NAME = "apim_gateway_stage_latency_seconds";
+    public static final String THROTTLE_DATA_STALE_METRIC_NAME = "apim_gateway_throttle_data_stale_seconds";
+
+    private static final String API_VERSION_PROPERTY = "REST_API_VERSION";
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99};
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final double NANOS_PER_MICRO = TimeUnit.MICROSECONDS.toNanos(1);
+    private static final Stage[] STAGES = Stage.values();
+
+    private static volatile GatewayMetrics instance;
+
+    private final ConcurrentHashMap<String, StageLatencyHistogram[]> histograms = new ConcurrentHashMap<>();
+    private final boolean enabled;
+    private final int maxApis;
+    private MetricsScrapeServer scrapeServer;
+
+    /**
+     * @param enabled false to ignore all the timings
+     * @param maxApis maximum number of APIs for which latencies are kept separately
+     */
+    public GatewayMetrics(boolean enabled, int maxApis) {
+        if (maxApis <= 0) {
+            throw new IllegalArgumentException("Maximum number of APIs should be positive: " + maxApis);
+        }
+        this.enabled = enabled;
+        this.maxApis = maxApis;
+    }
+
+    /**
+     * @return metrics created with the metrics configuration of the gateway, or the default configuration if it has
+     * not been loaded
+     */
+    public static GatewayMetrics getInstance() {
+        if (instance == null) {
+            synchronized (GatewayMetrics.class) {
+                if (instance == null) {
+                    MetricsConfiguration configuration = ServiceReferenceHolder.getInstance()
+                            .getMetricsConfiguration();
+                    if (configuration == null) {
+                        configuration = new MetricsConfiguration();
+                    }
+                    GatewayMetrics metrics = new GatewayMetrics(configuration.isEnabled(),
+                            configuration.getMaxApis());
+                    if (configuration.isEnabled()) {
+                        if (configuration.isJmxEnabled()) {
+                            metrics.registerMBean();
+                        }
+                        if (configuration.isScrapeEnabled()) {
+                            metrics.startScrapeServer(configuration.getScrapeHost(),
+                                    configuration.getScrapePort());
+                        }
+                    }
+                    instance = metrics;
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Replaces the metrics returned by {@link #getInstance()}.
+     *
+     * @param metrics metrics to use, or null to create them again from the configuration
+     */
+    static void setInstance(GatewayMetrics metrics) {
+        instance = metrics;
+    }
+
+    /**
+     * @param carbonMessage message of the request
+     * @return API of the request as "context:version", or {@link #UNKNOWN_API} if the API is not known
+     */
+    public static String getApiName(CarbonMessage carbonMessage) {
+        Object apiContext = carbonMessage.getProperty(APIThrottleConstants.REST_API_CONTEXT);
+        if (apiContext == null) {
+            return UNKNOWN_API;
+        }
+        Object apiVersion = carbonMessage.getProperty(API_VERSION_PROPERTY);
+        return apiVersion == null ? apiContext.toString() : apiContext + ":" + apiVersion;
+    }
+
+    /**
+     * Records the latencies of the stages timed for a request.
+     *
+     * @param api     API of the request as "context:version"
+     * @param timings timings of the request
+     */
+    public void record(String api, RequestTimings timings) {
+        if (!enabled || !timings.isEnabled()) {
+            return;
+        }
+        StageLatencyHistogram[] apiHistograms = getHistograms(api);
+        for (Stage stage : STAGES) {
+            long duration = timings.getDurationNanos(stage);
+            if (duration >= 0) {
+                apiHistograms[stage.ordinal()].record(duration);
+            }
+        }
+    }
+
+    /**
+     * @param api   API as "context:version"
+     * @param stage stage
+     * @return latencies of the stage for the API, or null if no latencies were recorded for the API
+     */
+    public StageLatencyHistogram getHistogram(String api, Stage stage) {
+        StageLatencyHistogram[] apiHistograms = histograms.get(api);
+        return apiHistograms == null ? null : apiHistograms[stage.ordinal()];
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public String[] getApis() {
+        return histograms.keySet().toArray(new String[0]);
+    }
+
+    @Override
+    public long getRequestCount(String api, String stage) {
+        StageLatencyHistogram histogram = findHistogram(api, stage);
+        return histogram == null ? 0 : histogram.getTotalCount();
+    }
+
+    @Override
+    public double getMeanLatencyMicros(String api, String stage) {
+        StageLatencyHistogram histogram = findHistogram(api, stage);
+        return histogram == null ? 0 : histogram.getMean() / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public double getLatencyPercentileMicros(String api, String stage, double percentile) {
+        StageLatencyHistogram histogram = findHistogram(api, stage);
+        return histogram == null ? 0 : histogram.getValueAtPercentile(percentile) / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public double getThrottleDataStaleSeconds() {
+        long staleSince = ThrottleDataHolder.getInstance().getStaleSince();
+        return staleSince == 0 ? 0 : Math.max(System.currentTimeMillis() - staleSince, 0) / 1000.0;
+    }
+
+    @Override
+    public String scrape() {
+        StringBuilder builder = new StringBuilder();
+        writeTo(builder);
+        return builder.toString();
+    }
+
+    @Override
+    public void reset() {
+        histograms.clear();
+    }
+
+    /**
+     * Writes the latencies as a summary in the Prometheus text format, with the API and the stage as labels, followed
+     * by the staleness of the throttle data as a gauge.
+     *
+     * @param builder builder to write to
+     */
+    public void writeTo(StringBuilder builder) {
+        builder.append("# HELP ").append(METRIC_NAME).append(" Latency of the gateway handler stages per API.\n");
+        builder.append("# TYPE ").append(METRIC_NAME).append(" summary\n");
+        for (Map.Entry<String, StageLatencyHistogram[]> entry : new TreeMap<>(histograms).entrySet()) {
+            String api = escapeLabelValue(entry.getKey());
+            for (Stage stage : STAGES) {
+                StageLatencyHistogram histogram = entry.getValue()[stage.ordinal()];
+                long count = histogram.getTotalCount();
+                if (count == 0) {
+                    continue;
+                }
+                String labels = "api=\"" + api + "\",stage=\"" + stage.getLabel() + "\"";
+                for (double quantile : QUANTILES) {
+                    builder.append(METRIC_NAME).append('{').append(labels).append(",quantile=\"").append(quantile)
+                            .append("\"} ").append(histogram.getValueAtPercentile(quantile * 100) / NANOS_PER_SECOND)
+                            .append('\n');
+                }
+                builder.append(METRIC_NAME).append("_sum{").append(labels).append("} ")
+                        .append(histogram.getSum() / NANOS_PER_SECOND).append('\n');
+                builder.append(METRIC_NAME).append("_count{").append(labels).append("} ").append(count)
+                        .append('\n');
+            }
+        }
+        builder.append("# HELP ").append(THROTTLE_DATA_STALE_METRIC_NAME)
+                .append(" Time since the throttle data became stale, 0 if it is up to date.\n");
+        builder.append("# TYPE ").append(THROTTLE_DATA_STALE_METRIC_NAME).append(" gauge\n");
+        builder.append(THROTTLE_DATA_STALE_METRIC_NAME).append(' ').append(getThrottleDataStaleSeconds())
+                .append('\n');
+    }
+
+    /**
+     * Registers these metrics in the platform MBean server as {@link #OBJECT_NAME}.
+     */
+    public void registerMBean() {
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(OBJECT_NAME);
+            if (mBeanServer.isRegistered(objectName)) {
+                mBeanServer.unregisterMBean(objectName);
+            }
+            mBeanServer.registerMBean(this, objectName);
+        } catch (JMException e) {
+            log.warn("Gateway metrics could not be registered in the MBean server.", e);
+        }
+    }
+
+    /**
+     * Starts an HTTP endpoint serving these metrics at "/metrics". Failures are logged, as the metrics are still
+     * available through JMX.
+     *
+     * @param host host to bind to
+     * @param port port to bind to, or 0 to bind to any free port
+     */
+    public synchronized void startScrapeServer(String host, int port) {
+        if (scrapeServer != null) {
+            return;
+        }
+        try {
+            scrapeServer = new MetricsScrapeServer(this, host, port);
+            scrapeServer.start();
+            log.info("Serving gateway metrics at http://{}:{}{}", host, scrapeServer.getPort(),
+                    MetricsScrapeServer.PATH);
+        } catch (IOException e) {
+            scrapeServer = null;
+            log.error("Error while starting the gateway metrics endpoint at " + host + ":" + port, e);
+        }
+    }
+
+    /**
+     * @return port of the HTTP endpoint, or -1 if it is not started
+     */
+    public synchronized int getScrapePort() {
+        return scrapeServer == null ? -1 : scrapeServer.getPort();
+    }
+
+    public synchronized void stopScrapeServer() {
+        if (scrapeServer != null) {
+            scrapeServer.stop();
+            scrapeServer = null;
+        }
+    }
+
+    private StageLatencyHistogram[] getHistograms(String api) {
+        StageLatencyHistogram[] apiHistograms = histograms.get(api);
+        if (apiHistograms != null) {
+            return apiHistograms;
+        }
+        // The limit may be exceeded by a few APIs when many new APIs are seen at once, which is acceptable
+        String key = histograms.size() < maxApis ? api : OVERFLOW_API;
+        return histograms.computeIfAbsent(key, k -> newHistograms());
+    }
+
+    private StageLatencyHistogram findHistogram(String api, String stageLabel) {
+        Stage stage = Stage.fromLabel(stageLabel);
+        return stage == null ? null : getHistogram(api, stage);
+    }
+
+    private static StageLatencyHistogram[] newHistograms() {
+        StageLatencyHistogram[] apiHistograms = new StageLatencyHistogram[STAGES.length];
+        for (int i = 0; i < apiHistograms.length; i++) {
+            apiHistograms[i] = new StageLatencyHistogram();
+        }
+        return apiHistograms;
+    }
+
+    private static String escapeLabelValue(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
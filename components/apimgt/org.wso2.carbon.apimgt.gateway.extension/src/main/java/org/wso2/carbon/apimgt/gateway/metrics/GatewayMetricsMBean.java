@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.metrics;
+
+/**
+ * Management interface of {@link GatewayMetrics}. Stages are given by their labels, such as "auth" or "backend".
+ */
+public interface GatewayMetricsMBean {
+
+    boolean isEnabled();
+
+    /**
+     * @return APIs for which latencies were recorded, as "context:version"
+     */
+    String[] getApis();
+
+    /**
+     * @param api   API as "context:version"
+     * @param stage label of the stage
+     * @return number of requests of the API which were timed in the stage
+     */
+    long getRequestCount(String api, String stage);
+
+    /**
+     * @param api   API as "context:version"
+     * @param stage label of the stage
+     * @return mean latency of the stage in microseconds
+     */
+    double getMeanLatencyMicros(String api, String stage);
+
+    /**
+     * @param api        API as "context:version"
+     * @param stage      label of the stage
+     * @param percentile percentile between 0 and 100
+     * @return latency of the stage at the given percentile in microseconds
+     */
+    double getLatencyPercentileMicros(String api, String stage, double percentile);
+
+    /**
+     * @return seconds since the throttle data of the gateway became stale, as throttle messages may have been missed
+     * while the connection to the traffic manager was down, or 0 if it is up to date
+     */
+    double getThrottleDataStaleSeconds();
+
+    /**
+     * @return all the latencies and the staleness of the throttle data in the Prometheus text format
+     */
+    String scrape();
+
+    /**
+     * Removes all the recorded latencies.
+     */
+    void reset();
+}
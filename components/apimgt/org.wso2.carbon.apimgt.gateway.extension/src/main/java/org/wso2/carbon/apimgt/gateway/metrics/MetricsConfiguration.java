@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.metrics;
+
+/**
+ * This class is used to keep the configurations of the latency metrics recorded by the gateway handlers. Metrics are
+ * disabled by default, so that the handlers do not pay for the instrumentation unless it is turned on.
+ */
+public class MetricsConfiguration {
+
+    private boolean enabled = false;
+    private int maxApis = 1000;
+    private boolean jmxEnabled = true;
+    private boolean scrapeEnabled = false;
+    private String scrapeHost = "localhost";
+    private int scrapePort = 9797;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getMaxApis() {
+        return maxApis;
+    }
+
+    public void setMaxApis(int maxApis) {
+        this.maxApis = maxApis;
+    }
+
+    public boolean isJmxEnabled() {
+        return jmxEnabled;
+    }
+
+    public void setJmxEnabled(boolean jmxEnabled) {
+        this.jmxEnabled = jmxEnabled;
+    }
+
+    public boolean isScrapeEnabled() {
+        return scrapeEnabled;
+    }
+
+    public void setScrapeEnabled(boolean scrapeEnabled) {
+        this.scrapeEnabled = scrapeEnabled;
+    }
+
+    public String getScrapeHost() {
+        return scrapeHost;
+    }
+
+    public void setScrapeHost(String scrapeHost) {
+        this.scrapeHost = scrapeHost;
+    }
+
+    public int getScrapePort() {
+        return scrapePort;
+    }
+
+    public void setScrapePort(int scrapePort) {
+        this.scrapePort = scrapePort;
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.metrics;
+
+import org.wso2.carbon.messaging.CarbonMessage;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time spent by a request in each {@link Stage}, in nanoseconds. The timings are kept as a property of the
+ * {@link CarbonMessage} and are recorded in {@link GatewayMetrics} once the response is sent. If the metrics are
+ * disabled, a shared instance which ignores all the timings is returned instead.
+ * <p>
+ * A message is processed by one thread at a time, so this class is not thread safe.
+ */
+public class RequestTimings {
+
+    public static final String PROPERTY_NAME = "requestTimings";
+
+    private static final RequestTimings DISABLED = new RequestTimings(false);
+    private static final int STAGE_COUNT = Stage.values().length;
+
+    private final boolean enabled;
+    private final long[] startTimes;
+    private final long[] durations;
+
+    private RequestTimings(boolean enabled) {
+        this.enabled = enabled;
+        this.startTimes = enabled ? new long[STAGE_COUNT] : null;
+        this.durations = enabled ? new long[STAGE_COUNT] : null;
+        if (enabled) {
+            Arrays.fill(durations, -1);
+        }
+    }
+
+    /**
+     * Returns the timings of the given message, creating and attaching them to the message if this is the first
+     * call for the request.
+     *
+     * @param carbonMessage message of the request
+     * @return timings of the request
+     */
+    public static RequestTimings get(CarbonMessage carbonMessage) {
+        Object timings = carbonMessage.getProperty(PROPERTY_NAME);
+        if (timings instanceof RequestTimings) {
+            return (RequestTimings) timings;
+        }
+        if (!GatewayMetrics.getInstance().isEnabled()) {
+            return DISABLED;
+        }
+        RequestTimings requestTimings = new RequestTimings(true);
+        carbonMessage.setProperty(PROPERTY_NAME, requestTimings);
+        return requestTimings;
+    }
+
+    /**
+     * @param carbonMessage message of the request
+     * @return timings attached to the given message, or null if there are none
+     */
+    public static RequestTimings find(CarbonMessage carbonMessage) {
+        Object timings = carbonMessage.getProperty(PROPERTY_NAME);
+        return timings instanceof RequestTimings ? (RequestTimings) timings : null;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Marks the start of a stage which ends in a later handler invocation.
+     *
+     * @param stage stage which starts
+     */
+    public void start(Stage stage) {
+        if (enabled) {
+            startTimes[stage.ordinal()] = System.nanoTime();
+        }
+    }
+
+    /**
+     * Marks the end of a stage started with {@link #start(Stage)}. This has no effect if the stage was not started.
+     *
+     * @param stage stage which ends
+     */
+    public void stop(Stage stage) {
+        if (enabled) {
+            long startTime = startTimes[stage.ordinal()];
+            if (startTime != 0) {
+                add(stage, System.nanoTime() - startTime);
+                startTimes[stage.ordinal()] = 0;
+            }
+        }
+    }
+
+    /**
+     * Adds time spent in a stage. A stage may be entered more than once by a request, and the times are summed up.
+     *
+     * @param stage         stage
+     * @param durationNanos time spent in the stage in nanoseconds
+     */
+    public void add(Stage stage, long durationNanos) {
+        if (enabled && durationNanos >= 0) {
+            int index = stage.ordinal();
+            durations[index] = durations[index] < 0 ? durationNanos : durations[index] + durationNanos;
+        }
+    }
+
+    /**
+     * @param stage stage
+     * @return time spent in the stage in nanoseconds, or -1 if the stage was not timed
+     */
+    public long getDurationNanos(Stage stage) {
+        return enabled ? durations[stage.ordinal()] : -1;
+    }
+
+    /**
+     * @param stage stage
+     * @return time spent in the stage in milliseconds as a string, as kept in analytics events, or null if the stage
+     * was not timed
+     */
+    public String getDurationMillis(Stage stage) {
+        long duration = getDurationNanos(stage);
+        return duration < 0 ? null : Long.toString(TimeUnit.NANOSECONDS.toMillis(duration));
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.metrics;
+
+/**
+ * Stages of a request in the gateway, which are timed by the handlers.
+ */
+public enum Stage {
+
+    AUTHENTICATION("auth"),
+    THROTTLING("throttle"),
+    ANALYTICS("analytics"),
+    BACKEND("backend");
+
+    private final String label;
+
+    Stage(String label) {
+        this.label = label;
+    }
+
+    /**
+     * @return name of the stage used in the exposed metrics
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * @param label name of the stage used in the exposed metrics
+     * @return stage of the given name, or null if there is no such stage
+     */
+    public static Stage fromLabel(String label) {
+        for (Stage stage : values()) {
+            if (stage.label.equals(label)) {
+                return stage;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.metrics;
+
+import org.wso2.carbon.apimgt.gateway.analytics.LatencyHistogram;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of the latencies of a stage in nanoseconds, which can be recorded by many request threads at once.
+ * Values are kept in the buckets of {@link LatencyHistogram}, so reported values are within about 3% of the recorded
+ * values. Recording a value is an increment of a bucket and of two adders, without locks.
+ */
+public class StageLatencyHistogram {
+
+    /**
+     * One minute, in nanoseconds. Higher values are recorded as this value.
+     */
+    public static final long MAX_TRACKABLE_VALUE = TimeUnit.MINUTES.toNanos(1);
+
+    private final AtomicLongArray counts = new AtomicLongArray(LatencyHistogram.bucketIndex(MAX_TRACKABLE_VALUE)
+            + 1);
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * @param nanos latency in nanoseconds. Negative values are ignored
+     */
+    public void record(long nanos) {
+        if (nanos < 0) {
+            return;
+        }
+        long value = Math.min(nanos, MAX_TRACKABLE_VALUE);
+        counts.incrementAndGet(LatencyHistogram.bucketIndex(value));
+        totalCount.increment();
+        sum.add(value);
+        if (value > max.get()) {
+            max.accumulateAndGet(value, Math::max);
+        }
+    }
+
+    public long getTotalCount() {
+        return totalCount.sum();
+    }
+
+    /**
+     * @return sum of the recorded latencies in nanoseconds
+     */
+    public long getSum() {
+        return sum.sum();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * @return mean of the recorded latencies in nanoseconds, or 0 if no values were recorded
+     */
+    public double getMean() {
+        long count = totalCount.sum();
+        return count == 0 ? 0 : (double) sum.sum() / count;
+    }
+
+    /**
+     * Values recorded while this is called may or may not be taken into account.
+     *
+     * @param percentile percentile between 0 and 100
+     * @return highest value of the bucket holding the value at the given percentile in nanoseconds, or 0 if no
+     * values were recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        long[] snapshot = new long[counts.length()];
+        long total = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long countAtPercentile = Math.max(1, (long) Math.ceil(Math.min(percentile, 100) / 100 * total));
+        long count = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            count += snapshot[i];
+            if (count >= countAtPercentile) {
+                return Math.min(LatencyHistogram.lowestValue(i + 1) - 1, max.get());
+            }
+        }
+        return max.get();
+    }
+}
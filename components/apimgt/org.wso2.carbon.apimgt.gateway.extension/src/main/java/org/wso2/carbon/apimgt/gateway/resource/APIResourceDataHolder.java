@@ -0,0 +1,320 @@
+/*
+*  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.carbon.apimgt.gateway.resource;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.apimgt.gateway.internal.ServiceReferenceHolder;
+import org.wso2.carbon.apimgt.gateway.throttling.constants.APIThrottleConstants;
+import org.wso2.carbon.apimgt.gateway.throttling.dto.VerbInfoDTO;
+import org.wso2.carbon.messaging.CarbonMessage;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * This class holds the resources of APIs in each gateway node, and resolves the resource matched by a request.
+ * <p>
+ * The resources of an API are loaded from the API manager core on the first request to the API, and loaded again
+ * once the refresh interval has passed. The number of APIs held is bounded, and the least recently used APIs are
+ * evicted first. The details of each resource are created once when the API is loaded, so that the throttle keys
+ * cached in them are reused across requests.
+ * <p>
+ * A request matches a resource if its HTTP verb is the verb of the resource and its path matches the URI template
+ * of the resource. A {@code {param}} segment of a template matches a single segment of the path, and a trailing
+ * {@code *} segment matches the rest of the path. If several templates match, a template with more literal segments
+ * is chosen over one with fewer, and a template without a trailing {@code *} is chosen over one with it.
+ * <p>
+ * After a load fails, no API is loaded until the failed load retry interval has passed, so that lookups do not pile
+ * up on an API manager core which is not available.
+ */
+public class APIResourceDataHolder {
+
+    private static final Logger log = LoggerFactory.getLogger(APIResourceDataHolder.class);
+    private static final char DELIMITER = '@';
+    private static final String WILDCARD_SEGMENT = "*";
+    private static final Pattern PATH_PARAM = Pattern.compile("\\{[^}]*\\}");
+    private static volatile APIResourceDataHolder instance;
+
+    //key: API_CONTEXT@API_VERSION   value : resources of the API
+    private final Cache<String, List<Resource>> apiResourceCache;
+    private final ResourceLoader resourceLoader;
+    private final long failedLoadRetryMillis;
+    // Time until which APIs are not loaded after a failed load, or 0 if the last load succeeded
+    private final AtomicLong loadBlockedUntil = new AtomicLong();
+
+    /**
+     * Loads the resources of a single API from the API manager core.
+     */
+    @FunctionalInterface
+    public interface ResourceLoader {
+        /**
+         * @return all the resources of the API, or null if they could not be loaded
+         */
+        List<ResourceDTO> loadResources(String apiContext, String apiVersion);
+    }
+
+    /**
+     * @param maxApis               maximum number of APIs held
+     * @param refreshMillis         time after which the resources of an API are loaded again
+     * @param failedLoadRetryMillis time after a failed load during which APIs are not loaded
+     * @param resourceLoader        loader of the resources of APIs which are not held
+     */
+    public APIResourceDataHolder(int maxApis, long refreshMillis, long failedLoadRetryMillis,
+                                 ResourceLoader resourceLoader) {
+        this.resourceLoader = resourceLoader;
+        this.failedLoadRetryMillis = failedLoadRetryMillis;
+        apiResourceCache = CacheBuilder.newBuilder()
+                .maximumSize(maxApis)
+                .expireAfterWrite(refreshMillis, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    public static APIResourceDataHolder getInstance() {
+        if (instance == null) {
+            synchronized (APIResourceDataHolder.class) {
+                if (instance == null) {
+                    ResourceStoreConfiguration configuration = ServiceReferenceHolder.getInstance()
+                            .getResourceStoreConfiguration();
+                    if (configuration == null) {
+                        configuration = new ResourceStoreConfiguration();
+                    }
+                    ResourceRetrievalClient resourceRetrievalClient = new ResourceRetrievalClient();
+                    instance = new APIResourceDataHolder(configuration.getMaxApis(),
+                            TimeUnit.SECONDS.toMillis(configuration.getRefreshInterval()),
+                            TimeUnit.SECONDS.toMillis(configuration.getFailedLoadRetryInterval()),
+                            (apiContext, apiVersion) -> {
+                                ResourceListDTO resources = resourceRetrievalClient
+                                        .loadResourcesOfApi(apiContext, apiVersion);
+                                return resources != null ? resources.getResources() : null;
+                            });
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the details of the resource matched by a request, and attaches them to the message so that they are
+     * resolved once per request.
+     *
+     * @param carbonMessage message of the request
+     * @return details of the matched resource, or null if no resource of the API matches the request
+     */
+    public VerbInfoDTO getVerbInfo(CarbonMessage carbonMessage) {
+        Object verbInfo = carbonMessage.getProperty(APIThrottleConstants.VERB_INFO_DTO);
+        if (verbInfo instanceof VerbInfoDTO) {
+            return (VerbInfoDTO) verbInfo;
+        }
+        String apiContext = (String) carbonMessage.getProperty(APIThrottleConstants.REST_API_CONTEXT);
+        String apiVersion = (String) carbonMessage.getProperty(APIThrottleConstants.REST_API_VERSION);
+        String httpMethod = (String) carbonMessage.getProperty(APIThrottleConstants.HTTP_METHOD);
+        if (apiContext == null || apiVersion == null || httpMethod == null) {
+            return null;
+        }
+        VerbInfoDTO verbInfoDTO = getVerbInfo(apiContext, apiVersion, httpMethod,
+                (String) carbonMessage.getProperty(APIThrottleConstants.REST_URL_POSTFIX));
+        if (verbInfoDTO != null) {
+            carbonMessage.setProperty(APIThrottleConstants.VERB_INFO_DTO, verbInfoDTO);
+        }
+        return verbInfoDTO;
+    }
+
+    /**
+     * @param apiContext context of the API
+     * @param apiVersion version of the API
+     * @param httpMethod HTTP verb of the request
+     * @param postfix    path of the request relative to the API, which may include the query string
+     * @return details of the matched resource, or null if no resource of the API matches the request
+     */
+    public VerbInfoDTO getVerbInfo(String apiContext, String apiVersion, String httpMethod, String postfix) {
+        List<Resource> resources = getResourcesOfApi(apiContext, apiVersion);
+        if (resources == null) {
+            return null;
+        }
+        String[] pathSegments = splitPath(postfix);
+        Resource matchedResource = null;
+        for (Resource resource : resources) {
+            if (resource.matches(pathSegments)
+                    && (matchedResource == null || resource.isMoreSpecificThan(matchedResource))) {
+                matchedResource = resource;
+            }
+        }
+        if (matchedResource == null) {
+            return null;
+        }
+        return matchedResource.verbInfo.get(httpMethod.toUpperCase(Locale.ENGLISH));
+    }
+
+    public long getApiCount() {
+        return apiResourceCache.size();
+    }
+
+    /**
+     * Loads the resources of an API which is not held. Concurrent lookups of the API wait for a single load.
+     *
+     * @return resources of the API, or null if they could not be loaded
+     */
+    private List<Resource> getResourcesOfApi(String apiContext, String apiVersion) {
+        String apiKey = apiContext + DELIMITER + apiVersion;
+        List<Resource> resources = apiResourceCache.getIfPresent(apiKey);
+        if (resources != null || resourceLoader == null) {
+            return resources;
+        }
+        long blockedUntil = loadBlockedUntil.get();
+        if (blockedUntil != 0) {
+            long now = System.currentTimeMillis();
+            // Once the retry interval has passed, the lookup which moves the blocked time retries the load
+            if (now < blockedUntil || !loadBlockedUntil.compareAndSet(blockedUntil, now + failedLoadRetryMillis)) {
+                return null;
+            }
+        }
+        try {
+            resources = apiResourceCache.get(apiKey, () -> {
+                List<ResourceDTO> resourceDTOs = resourceLoader.loadResources(apiContext, apiVersion);
+                if (resourceDTOs == null) {
+                    throw new IOException("No resources received");
+                }
+                return toResources(apiContext, apiVersion, resourceDTOs);
+            });
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            loadBlockedUntil.set(System.currentTimeMillis() + failedLoadRetryMillis);
+            log.error("Error while loading resources of API " + apiContext + ':' + apiVersion + ". Resources "
+                    + "are not loaded for " + failedLoadRetryMillis + " ms.", e);
+            return null;
+        }
+        if (blockedUntil != 0) {
+            loadBlockedUntil.set(0);
+        }
+        return resources;
+    }
+
+    private static List<Resource> toResources(String apiContext, String apiVersion, List<ResourceDTO> resourceDTOs) {
+        Map<String, Resource> resources = new HashMap<>();
+        for (ResourceDTO resourceDTO : resourceDTOs) {
+            if (resourceDTO.getUriTemplate() == null || resourceDTO.getHttpVerb() == null) {
+                continue;
+            }
+            resources.computeIfAbsent(resourceDTO.getUriTemplate(), Resource::new).verbInfo.put(
+                    resourceDTO.getHttpVerb().toUpperCase(Locale.ENGLISH),
+                    VerbInfoDTO.fromAPIResource(apiContext, apiVersion, resourceDTO.toAPIResource()));
+        }
+        return new ArrayList<>(resources.values());
+    }
+
+    private static String[] splitPath(String path) {
+        if (path == null) {
+            return new String[0];
+        }
+        int queryStart = path.indexOf('?');
+        if (queryStart >= 0) {
+            path = path.substring(0, queryStart);
+        }
+        int start = 0;
+        int end = path.length();
+        while (start < end && path.charAt(start) == '/') {
+            start++;
+        }
+        while (end > start && path.charAt(end - 1) == '/') {
+            end--;
+        }
+        return start == end ? new String[0] : path.substring(start, end).split("/");
+    }
+
+    /**
+     * A URI template of an API, with the details of each of its HTTP verbs.
+     */
+    private static final class Resource {
+
+        // Each segment is either a literal, a pattern of a segment with path parameters, or the trailing wildcard
+        private final Object[] segments;
+        private final boolean wildcard;
+        private final int literalCount;
+        private final Map<String, VerbInfoDTO> verbInfo = new HashMap<>();
+
+        private Resource(String uriTemplate) {
+            String[] templateSegments = splitPath(uriTemplate);
+            int segmentCount = templateSegments.length;
+            wildcard = segmentCount > 0 && WILDCARD_SEGMENT.equals(templateSegments[segmentCount - 1]);
+            if (wildcard) {
+                segmentCount--;
+            }
+            segments = new Object[segmentCount];
+            int literals = 0;
+            for (int i = 0; i < segmentCount; i++) {
+                String segment = templateSegments[i];
+                if (segment.indexOf('{') < 0) {
+                    segments[i] = segment;
+                    literals++;
+                } else {
+                    segments[i] = toPattern(segment);
+                }
+            }
+            literalCount = literals;
+        }
+
+        private static Pattern toPattern(String segment) {
+            StringBuilder regex = new StringBuilder();
+            Matcher matcher = PATH_PARAM.matcher(segment);
+            int start = 0;
+            while (matcher.find()) {
+                regex.append(Pattern.quote(segment.substring(start, matcher.start()))).append("[^/]+");
+                start = matcher.end();
+            }
+            regex.append(Pattern.quote(segment.substring(start)));
+            return Pattern.compile(regex.toString());
+        }
+
+        private boolean matches(String[] pathSegments) {
+            if (wildcard ? pathSegments.length < segments.length : pathSegments.length != segments.length) {
+                return false;
+            }
+            for (int i = 0; i < segments.length; i++) {
+                Object segment = segments[i];
+                if (segment instanceof Pattern ? !((Pattern) segment).matcher(pathSegments[i]).matches()
+                        : !segment.equals(pathSegments[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean isMoreSpecificThan(Resource other) {
+            if (literalCount != other.literalCount) {
+                return literalCount > other.literalCount;
+            }
+            if (wildcard != other.wildcard) {
+                return !wildcard;
+            }
+            return segments.length > other.segments.length;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ *
+ *   Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.carbon.apimgt.gateway.resource;
+
+import org.wso2.carbon.apimgt.core.models.APIResource;
+import org.wso2.carbon.apimgt.core.models.Endpoint;
+import org.wso2.carbon.apimgt.core.models.Scope;
+import org.wso2.carbon.apimgt.core.models.UriTemplate;
+import org.wso2.carbon.apimgt.core.util.APIMgtConstants;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Model for a resource of an API, as returned by the resources API of the API manager core
+ */
+public final class ResourceDTO {
+
+    private String uriTemplate;
+    private String httpVerb;
+    private String authType;
+    private String policy;
+    private List<String> scopes = new ArrayList<String>();
+    private Long productionMaxTps;
+    private Long sandboxMaxTps;
+
+    public String getUriTemplate() {
+        return uriTemplate;
+    }
+
+    public void setUriTemplate(String uriTemplate) {
+        this.uriTemplate = uriTemplate;
+    }
+
+    public String getHttpVerb() {
+        return httpVerb;
+    }
+
+    public void setHttpVerb(String httpVerb) {
+        this.httpVerb = httpVerb;
+    }
+
+    public String getAuthType() {
+        return authType;
+    }
+
+    public void setAuthType(String authType) {
+        this.authType = authType;
+    }
+
+    public String getPolicy() {
+        return policy;
+    }
+
+    public void setPolicy(String policy) {
+        this.policy = policy;
+    }
+
+    public List<String> getScopes() {
+        return scopes;
+    }
+
+    public void setScopes(List<String> scopes) {
+        this.scopes = scopes;
+    }
+
+    public Long getProductionMaxTps() {
+        return productionMaxTps;
+    }
+
+    public void setProductionMaxTps(Long productionMaxTps) {
+        this.productionMaxTps = productionMaxTps;
+    }
+
+    public Long getSandboxMaxTps() {
+        return sandboxMaxTps;
+    }
+
+    public void setSandboxMaxTps(Long sandboxMaxTps) {
+        this.sandboxMaxTps = sandboxMaxTps;
+    }
+
+    /**
+     * @return resource of the API definition described by this model. The maximum TPS are set on the production
+     * and sandbox endpoints of the resource, and its scope is the first of the scopes.
+     */
+    public APIResource toAPIResource() {
+        Map<String, Endpoint> endpoints = new HashMap<>();
+        if (productionMaxTps != null) {
+            endpoints.put(APIMgtConstants.PRODUCTION_ENDPOINT, new Endpoint.Builder().maxTps(productionMaxTps)
+                    .build());
+        }
+        if (sandboxMaxTps != null) {
+            endpoints.put(APIMgtConstants.SANDBOX_ENDPOINT, new Endpoint.Builder().maxTps(sandboxMaxTps).build());
+        }
+        UriTemplate template = new UriTemplate.UriTemplateBuilder().uriTemplate(uriTemplate).httpVerb(httpVerb)
+                .authType(authType).policy(policy).endpoint(endpoints).build();
+        APIResource.Builder builder = new APIResource.Builder().uriTemplate(template);
+        if (scopes != null && !scopes.isEmpty()) {
+            Scope scope = new Scope();
+            scope.setKey(scopes.get(0));
+            builder.scope(scope);
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ *
+ *   Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.carbon.apimgt.gateway.resource;
+
+import feign.Feign;
+import feign.Param;
+import feign.RequestLine;
+import feign.gson.GsonDecoder;
+import feign.gson.GsonEncoder;
+import org.wso2.carbon.apimgt.gateway.http.FeignHttpClient;
+import org.wso2.carbon.apimgt.gateway.http.GatewayHttpClient;
+
+/**
+ * Http client util for retrieving the resources of APIs.
+ */
+public final class ResourceRetrievalClient {
+
+    private static final String DEFAULT_APIM_CORE_BASE_URL = "https://localhost:9292";
+
+    private final ResourceRetrievalService resourceRetrievalService;
+
+    public ResourceRetrievalClient() {
+        this(DEFAULT_APIM_CORE_BASE_URL);
+    }
+
+    public ResourceRetrievalClient(String apimCoreBaseUrl) {
+        this(apimCoreBaseUrl, GatewayHttpClient.getInstance());
+    }
+
+    ResourceRetrievalClient(String apimCoreBaseUrl, GatewayHttpClient httpClient) {
+        resourceRetrievalService = Feign.builder()
+                .client(new FeignHttpClient(httpClient))
+                .options(FeignHttpClient.getOptions(httpClient))
+                .encoder(new GsonEncoder())
+                .decoder(new GsonDecoder())
+                .target(ResourceRetrievalService.class, apimCoreBaseUrl);
+    }
+
+    private interface ResourceRetrievalService {
+        @RequestLine("GET /resources?apiContext={apiContext}&apiVersion={apiVersion}")
+        ResourceListDTO getResources(@Param("apiContext") String apiContext, @Param("apiVersion") String apiVersion);
+    }
+
+    /**
+     * @param apiContext context of the API
+     * @param apiVersion version of the API
+     * @return all the resources of the API
+     */
+    ResourceListDTO loadResourcesOfApi(String apiContext, String apiVersion) {
+        return resourceRetrievalService.getResources(apiContext, apiVersion);
+    }
+}
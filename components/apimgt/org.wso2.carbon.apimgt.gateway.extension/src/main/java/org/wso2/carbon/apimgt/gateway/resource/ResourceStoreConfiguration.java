@@ -0,0 +1,62 @@
+/*
+ *
+ *   Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.carbon.apimgt.gateway.resource;
+
+/**
+ * This class is used to keep the configurations of the API resources held in the gateway
+ */
+public class ResourceStoreConfiguration {
+
+    private int maxApis = 10000;
+    private int refreshInterval = 300;
+    private int failedLoadRetryInterval = 5;
+
+    public int getMaxApis() {
+        return maxApis;
+    }
+
+    public void setMaxApis(int maxApis) {
+        this.maxApis = maxApis;
+    }
+
+    /**
+     * @return interval in seconds after which the resources of an API are loaded again from the API manager core
+     */
+    public int getRefreshInterval() {
+        return refreshInterval;
+    }
+
+    public void setRefreshInterval(int refreshInterval) {
+        this.refreshInterval = refreshInterval;
+    }
+
+    /**
+     * @return interval in seconds after a failed load of the resources of an API, during which the resources of APIs
+     * which are not held are not loaded from the API manager core
+     */
+    public int getFailedLoadRetryInterval() {
+        return failedLoadRetryInterval;
+    }
+
+    public void setFailedLoadRetryInterval(int failedLoadRetryInterval) {
+        this.failedLoadRetryInterval = failedLoadRetryInterval;
+    }
+}
@@ -19,30 +19,46 @@
 package org.wso2.carbon.apimgt.gateway.security;
 
 import org.wso2.carbon.apimgt.gateway.exception.APIKeyMgtException;
+import org.wso2.carbon.apimgt.gateway.models.TokenValidationContext;
+import org.wso2.carbon.apimgt.gateway.resource.APIResourceDataHolder;
+import org.wso2.carbon.apimgt.gateway.security.handlers.KeyValidationHandler;
+import org.wso2.carbon.apimgt.gateway.throttling.constants.APIThrottleConstants;
+import org.wso2.carbon.apimgt.gateway.throttling.dto.VerbInfoDTO;
+import org.wso2.carbon.apimgt.gateway.utils.KeyManagerConstants;
 import org.wso2.carbon.messaging.CarbonMessage;
 
 /**
  * An API consumer authenticator which authenticates user requests using
- * the OAuth protocol. This implementation uses some default token/delimiter
- * values to parse OAuth headers, but if needed these settings can be overridden
- * through the APIManagerConfiguration.
+ * the OAuth protocol. The bearer token in the Authorization header of the request
+ * is validated by the given {@link KeyValidationHandler}, which also checks that the
+ * token has the scope of the resource of the request. The resource, along with its scope,
+ * is resolved from the API definition by the {@link APIResourceDataHolder}.
  */
 
 public class OAuthAuthenticator implements Authenticator {
 
-   // protected APIKeyValidator keyValidator;
+    private static final String SECURITY_HEADER = "Authorization";
+    private static final String BEARER_PREFIX = "Bearer ";
+    private static final String CHALLENGE_STRING = "Bearer realm=\"WSO2 API Manager\"";
 
-   /* private String securityHeader = "Authorization";
-    private String defaultAPIHeader = "WSO2_AM_API_DEFAULT_VERSION";
-    private String consumerKeyHeaderSegment = "Bearer";
-    private String oauthHeaderSplitter = ",";
-    private String consumerKeySegmentDelimiter = " ";
-    private String securityContextHeader;
-    private boolean removeOAuthHeadersFromOutMessage = true;
-    private boolean removeDefaultAPIHeaderFromOutMessage = true;
-    private String clientDomainHeader = "referer";
-    private String requestOrigin;
-    */
+    private final KeyValidationHandler keyValidationHandler;
+    private final APIResourceDataHolder apiResourceDataHolder;
+
+    /**
+     * @param keyValidationHandler handler which validates the access tokens
+     */
+    public OAuthAuthenticator(KeyValidationHandler keyValidationHandler) {
+        this(keyValidationHandler, null);
+    }
+
+    /**
+     * @param keyValidationHandler  handler which validates the access tokens
+     * @param apiResourceDataHolder holder of the resources of APIs, or null to use the shared holder
+     */
+    OAuthAuthenticator(KeyValidationHandler keyValidationHandler, APIResourceDataHolder apiResourceDataHolder) {
+        this.keyValidationHandler = keyValidationHandler;
+        this.apiResourceDataHolder = apiResourceDataHolder;
+    }
 
     @Override
     public void init() {
@@ -56,12 +72,59 @@ public class OAuthAuthenticator implements Authenticator {
 
     @Override
     public boolean authenticate(CarbonMessage carbonMessage) throws APIKeyMgtException {
-        return false;
+        String authorizationHeader = carbonMessage.getHeader(SECURITY_HEADER);
+        if (authorizationHeader == null || !authorizationHeader.regionMatches(true, 0, BEARER_PREFIX, 0,
+                BEARER_PREFIX.length())) {
+            throw new APIKeyMgtException(KeyManagerConstants.KeyValidationStatus.API_AUTH_MISSING_CREDENTIALS,
+                    "Required OAuth credentials not provided");
+        }
+        String accessToken = authorizationHeader.substring(BEARER_PREFIX.length()).trim();
+        if (accessToken.isEmpty()) {
+            throw new APIKeyMgtException(KeyManagerConstants.KeyValidationStatus.API_AUTH_MISSING_CREDENTIALS,
+                    "Required OAuth credentials not provided");
+        }
+
+        TokenValidationContext tokenValidationContext = new TokenValidationContext();
+        tokenValidationContext.setAccessToken(accessToken);
+        Object apiContext = carbonMessage.getProperty(APIThrottleConstants.REST_API_CONTEXT);
+        tokenValidationContext.setContext(apiContext != null ? apiContext.toString() : null);
+        Object apiVersion = carbonMessage.getProperty(APIThrottleConstants.REST_API_VERSION);
+        tokenValidationContext.setVersion(apiVersion != null ? apiVersion.toString() : null);
+        VerbInfoDTO verbInfoDTO = getResourceDataHolder().getVerbInfo(carbonMessage);
+        if (verbInfoDTO != null) {
+            tokenValidationContext.setHttpVerb(verbInfoDTO.getHttpVerb());
+            if (verbInfoDTO.getScope() != null && !verbInfoDTO.getScope().isEmpty()) {
+                tokenValidationContext.setAttribute(KeyManagerConstants.REQUIRED_SCOPES, verbInfoDTO.getScope());
+            }
+        }
+
+        if (!keyValidationHandler.validateToken(tokenValidationContext)) {
+            throw new APIKeyMgtException(getValidationStatus(tokenValidationContext,
+                    KeyManagerConstants.KeyValidationStatus.API_AUTH_INVALID_CREDENTIALS), "Invalid access token");
+        }
+        if (!keyValidationHandler.validateScopes(tokenValidationContext)) {
+            throw new APIKeyMgtException(getValidationStatus(tokenValidationContext,
+                    KeyManagerConstants.KeyValidationStatus.INVALID_SCOPE),
+                    "The access token does not allow you to access the requested resource");
+        }
+        return true;
+    }
+
+    private APIResourceDataHolder getResourceDataHolder() {
+        return apiResourceDataHolder != null ? apiResourceDataHolder : APIResourceDataHolder.getInstance();
+    }
+
+    private static int getValidationStatus(TokenValidationContext tokenValidationContext, int defaultStatus) {
+        if (tokenValidationContext.getValidationInfoDTO() != null
+                && tokenValidationContext.getValidationInfoDTO().getValidationStatus() > 0) {
+            return tokenValidationContext.getValidationInfoDTO().getValidationStatus();
+        }
+        return defaultStatus;
     }
 
     @Override
     public String getChallengeString() {
-        return null;
+        return CHALLENGE_STRING;
     }
 
     @Override
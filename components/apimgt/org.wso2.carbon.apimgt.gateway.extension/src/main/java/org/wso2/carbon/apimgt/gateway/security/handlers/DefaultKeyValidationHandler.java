@@ -20,20 +20,22 @@ package org.wso2.carbon.apimgt.gateway.security.handlers;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import com.google.gson.JsonSyntaxException;
-import org.apache.commons.io.IOUtils;
-
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wso2.carbon.apimgt.gateway.exception.APIKeyMgtException;
+import org.wso2.carbon.apimgt.gateway.http.GatewayHttpClient;
+import org.wso2.carbon.apimgt.gateway.http.HttpResponse;
+import org.wso2.carbon.apimgt.gateway.internal.ServiceReferenceHolder;
 import org.wso2.carbon.apimgt.gateway.models.APIKeyValidationInfoDTO;
 import org.wso2.carbon.apimgt.gateway.models.AccessTokenInfo;
 import org.wso2.carbon.apimgt.gateway.models.TokenValidationContext;
 import org.wso2.carbon.apimgt.gateway.utils.KeyManagerConstants;
 
 import java.io.IOException;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -43,16 +45,64 @@ import java.util.Set;
 public class DefaultKeyValidationHandler implements KeyValidationHandler {
     static final Logger LOG = LoggerFactory.getLogger(DefaultKeyValidationHandler.class);
 
+    private static volatile TokenInfoCache tokenInfoCacheInstance;
+
+    private static final String SCOPE_SEPARATOR = "\\s+";
+    private static final String FORM_CONTENT_TYPE = "application/x-www-form-urlencoded";
+
+    private final String introspectEndpoint;
+    private final TokenInfoCache tokenInfoCache;
+    private final GatewayHttpClient httpClient;
+
+    public DefaultKeyValidationHandler() {
+        this(System.getProperty("introspectEndpoint", "http://localhost:9763/oauth2/introspect"),
+                getTokenInfoCache(), GatewayHttpClient.getInstance());
+    }
+
+    DefaultKeyValidationHandler(String introspectEndpoint, TokenInfoCache tokenInfoCache,
+                                GatewayHttpClient httpClient) {
+        this.introspectEndpoint = introspectEndpoint;
+        this.tokenInfoCache = tokenInfoCache;
+        this.httpClient = httpClient;
+    }
+
+    /**
+     * @return cache of token introspection results shared by the handlers, created with the token cache
+     * configuration of the gateway, or the default configuration if it has not been loaded
+     */
+    public static TokenInfoCache getTokenInfoCache() {
+        if (tokenInfoCacheInstance == null) {
+            synchronized (DefaultKeyValidationHandler.class) {
+                if (tokenInfoCacheInstance == null) {
+                    TokenCacheConfiguration configuration = ServiceReferenceHolder.getInstance()
+                            .getTokenCacheConfiguration();
+                    if (configuration == null) {
+                        configuration = new TokenCacheConfiguration();
+                    }
+                    tokenInfoCacheInstance = new TokenInfoCache(configuration.getMaxEntries(),
+                            configuration.getTtlMillis(), configuration.getNegativeTtlMillis());
+                }
+            }
+        }
+        return tokenInfoCacheInstance;
+    }
+
     @Override
     public boolean validateToken(TokenValidationContext tokenValidationContext) throws APIKeyMgtException {
-        AccessTokenInfo tokenInfo = getTokenMetadata(tokenValidationContext.getAccessToken());
+        // Cached results are shared between requests, so they should not be modified
+        AccessTokenInfo tokenInfo = tokenInfoCache.get(tokenValidationContext.getAccessToken(),
+                this::getTokenMetadata);
         setValuesForOAuth2ValidationContext(tokenValidationContext, tokenInfo);
         return tokenInfo.isTokenValid();
     }
 
+    /**
+     * Checks whether the token holds all the scopes in the {@link KeyManagerConstants#REQUIRED_SCOPES} attribute of
+     * the context. The token should be validated before its scopes are checked.
+     */
     @Override
     public boolean validateScopes(TokenValidationContext tokenValidationContext) throws APIKeyMgtException {
-        return false;
+        return validateRequiredScopes(tokenValidationContext);
     }
 
     @Override
@@ -62,18 +112,13 @@ public class DefaultKeyValidationHandler implements KeyValidationHandler {
 
     private AccessTokenInfo getTokenMetadata(String accessToken) throws APIKeyMgtException {
         AccessTokenInfo tokenInfo = new AccessTokenInfo();
-        URL url;
-        HttpURLConnection urlConn = null;
         try {
-            String introspectEndpoint = System.getProperty("introspectEndpoint",
-                    "http://localhost:9763/oauth2/introspect");
-            url = new URL(introspectEndpoint);
-            urlConn = (HttpURLConnection) url.openConnection();
-            urlConn.setDoOutput(true);
-            urlConn.setRequestMethod("POST");
-            urlConn.getOutputStream()
-                    .write(("token=" + accessToken).getBytes("UTF-8"));
-            String responseStr = new String(IOUtils.toByteArray(urlConn.getInputStream()), "UTF-8");
+            HttpResponse response = httpClient.post(introspectEndpoint, FORM_CONTENT_TYPE,
+                    ("token=" + URLEncoder.encode(accessToken, "UTF-8")).getBytes(StandardCharsets.UTF_8));
+            if (!response.isSuccessful()) {
+                throw new IOException("Token introspect endpoint returned status " + response.getStatusCode());
+            }
+            String responseStr = response.getBodyAsString();
             JsonParser parser = new JsonParser();
             JsonObject jObj = parser.parse(responseStr).getAsJsonObject();
             boolean active = jObj.getAsJsonPrimitive("active").getAsBoolean();
@@ -103,7 +148,7 @@ public class DefaultKeyValidationHandler implements KeyValidationHandler {
             } else {
 
                 tokenInfo.setTokenValid(false);
-                LOG.error("Invalid OAuth Token. ");
+                LOG.debug("Invalid OAuth Token.");
                 tokenInfo.setErrorcode(KeyManagerConstants.KeyValidationStatus.API_AUTH_INVALID_CREDENTIALS);
                 return tokenInfo;
 
@@ -114,22 +159,18 @@ public class DefaultKeyValidationHandler implements KeyValidationHandler {
         } catch (IOException e) {
             String msg = "Error while connecting to token introspect endpoint.";
             LOG.error(msg, e);
-            throw new APIKeyMgtException(msg, e);
+            throw new APIKeyMgtException(KeyManagerConstants.KeyValidationStatus.API_AUTH_GENERAL_ERROR, msg, e);
         } catch (JsonSyntaxException e) {
             String msg = "Error while processing the response returned from token introspect endpoint.";
             LOG.error(msg, e);
-            throw new APIKeyMgtException(msg, e);
-        } finally {
-            if (urlConn != null) {
-                urlConn.disconnect();
-            }
+            throw new APIKeyMgtException(KeyManagerConstants.KeyValidationStatus.API_AUTH_GENERAL_ERROR, msg, e);
         }
 
         return tokenInfo;
     }
 
-    private void setValuesForOAuth2ValidationContext(TokenValidationContext validationContext,
-                                                     AccessTokenInfo tokenInfo) {
+    static void setValuesForOAuth2ValidationContext(TokenValidationContext validationContext,
+                                                    AccessTokenInfo tokenInfo) {
         // Setting TokenInfo in validationContext. Methods down in the chain can use TokenInfo.
         validationContext.setTokenInfo(tokenInfo);
 
@@ -156,4 +197,35 @@ public class DefaultKeyValidationHandler implements KeyValidationHandler {
 
         validationContext.setValidationInfoDTO(apiKeyValidationInfoDTO);
     }
+
+    /**
+     * Checks the scopes of a validated token against the scopes required by the resource, which are held in the
+     * {@link KeyManagerConstants#REQUIRED_SCOPES} attribute of the context as a collection or a space separated
+     * string. If a scope is missing, the validation status of the context is set to
+     * {@link KeyManagerConstants.KeyValidationStatus#INVALID_SCOPE}.
+     */
+    static boolean validateRequiredScopes(TokenValidationContext tokenValidationContext) {
+        AccessTokenInfo tokenInfo = tokenValidationContext.getTokenInfo();
+        if (tokenInfo == null || !tokenInfo.isTokenValid()) {
+            return false;
+        }
+        Object requiredScopes = tokenValidationContext.getAttribute(KeyManagerConstants.REQUIRED_SCOPES);
+        if (requiredScopes == null) {
+            return true;
+        }
+        Collection<?> scopes = requiredScopes instanceof Collection ? (Collection<?>) requiredScopes :
+                Arrays.asList(requiredScopes.toString().split(SCOPE_SEPARATOR));
+        Set<String> tokenScopes = new HashSet<>(Arrays.asList(tokenInfo.getScopes()));
+        for (Object scope : scopes) {
+            if (!tokenScopes.contains(scope.toString())) {
+                if (tokenValidationContext.getValidationInfoDTO() != null) {
+                    tokenValidationContext.getValidationInfoDTO().setAuthorized(false);
+                    tokenValidationContext.getValidationInfoDTO()
+                            .setValidationStatus(KeyManagerConstants.KeyValidationStatus.INVALID_SCOPE);
+                }
+                return false;
+            }
+        }
+        return true;
+    }
 }
@@ -0,0 +1,271 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.security.handlers;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jwt.SignedJWT;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.apimgt.core.exception.APIManagementException;
+import org.wso2.carbon.apimgt.core.impl.JWTWithRSASignatureImpl;
+import org.wso2.carbon.apimgt.gateway.exception.APIKeyMgtException;
+import org.wso2.carbon.apimgt.gateway.internal.ServiceReferenceHolder;
+import org.wso2.carbon.apimgt.gateway.models.AccessTokenInfo;
+import org.wso2.carbon.apimgt.gateway.models.TokenValidationContext;
+import org.wso2.carbon.apimgt.gateway.utils.KeyManagerConstants;
+
+import java.security.PublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.text.ParseException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Key validation handler which validates signed JWT access tokens within the gateway, without calling the key
+ * manager. The signature is verified with the public key of the configured certificate in the trust store, and the
+ * expiry, not before time, issuer and audience of the token are checked. JWTs are rejected if the trusted issuer or
+ * audience is not configured. Tokens which are not JWTs are validated through token introspection by the
+ * {@link DefaultKeyValidationHandler}.
+ * <p>
+ * Validated tokens are kept in the same token cache as the introspected tokens, so the signature of a token is
+ * verified once until the cache entry expires.
+ */
+public class JWTKeyValidationHandler implements KeyValidationHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(JWTKeyValidationHandler.class);
+
+    private static final String SCOPE_SEPARATOR = "\\s+";
+
+    private final JWTValidationConfiguration configuration;
+    private final KeyValidationHandler introspectionHandler;
+    private final TokenInfoCache tokenInfoCache;
+    private volatile RSAPublicKey publicKey;
+
+    public JWTKeyValidationHandler() {
+        this(getConfiguration(), null, new DefaultKeyValidationHandler(),
+                DefaultKeyValidationHandler.getTokenInfoCache());
+    }
+
+    /**
+     * @param configuration        JWT validation configuration
+     * @param publicKey            public key used to verify the tokens, or null to load it from the trust store
+     * @param introspectionHandler handler used to validate tokens which are not JWTs
+     * @param tokenInfoCache       cache of validated tokens
+     */
+    JWTKeyValidationHandler(JWTValidationConfiguration configuration, RSAPublicKey publicKey,
+                            KeyValidationHandler introspectionHandler, TokenInfoCache tokenInfoCache) {
+        this.configuration = configuration;
+        this.publicKey = publicKey;
+        this.introspectionHandler = introspectionHandler;
+        this.tokenInfoCache = tokenInfoCache;
+    }
+
+    @Override
+    public boolean validateToken(TokenValidationContext tokenValidationContext) throws APIKeyMgtException {
+        String accessToken = tokenValidationContext.getAccessToken();
+        if (!isJWT(accessToken)) {
+            return introspectionHandler.validateToken(tokenValidationContext);
+        }
+        AccessTokenInfo tokenInfo = tokenInfoCache.get(accessToken, this::validateJWT);
+        DefaultKeyValidationHandler.setValuesForOAuth2ValidationContext(tokenValidationContext, tokenInfo);
+        return tokenInfo.isTokenValid();
+    }
+
+    /**
+     * Checks whether the token holds all the scopes in the {@link KeyManagerConstants#REQUIRED_SCOPES} attribute of
+     * the context. The token should be validated before its scopes are checked.
+     */
+    @Override
+    public boolean validateScopes(TokenValidationContext tokenValidationContext) throws APIKeyMgtException {
+        return DefaultKeyValidationHandler.validateRequiredScopes(tokenValidationContext);
+    }
+
+    @Override
+    public boolean generateConsumerToken(TokenValidationContext tokenValidationContext) throws APIKeyMgtException {
+        return false;
+    }
+
+    /**
+     * A JWT has three parts separated by dots, while opaque tokens issued by the key manager do not have dots.
+     */
+    static boolean isJWT(String accessToken) {
+        int firstDot = accessToken.indexOf('.');
+        if (firstDot <= 0) {
+            return false;
+        }
+        int secondDot = accessToken.indexOf('.', firstDot + 1);
+        return secondDot > firstDot + 1 && accessToken.indexOf('.', secondDot + 1) < 0;
+    }
+
+    /**
+     * Tokens rejected due to the client, such as expired or tampered tokens, are logged at debug level so that
+     * clients cannot flood the error log. Configuration and key loading problems are logged as errors.
+     */
+    private AccessTokenInfo validateJWT(String accessToken) throws APIKeyMgtException {
+        String issuer = configuration.getIssuer();
+        String audience = configuration.getAudience();
+        if (issuer == null || issuer.isEmpty() || audience == null || audience.isEmpty()) {
+            log.error("JWT rejected as the trusted issuer and audience of JWTs are not configured.");
+            return getInvalidTokenInfo(KeyManagerConstants.KeyValidationStatus.API_AUTH_INVALID_CREDENTIALS);
+        }
+        SignedJWT signedJWT;
+        try {
+            signedJWT = SignedJWT.parse(accessToken);
+        } catch (ParseException e) {
+            log.debug("Access token is not a valid JWT", e);
+            return getInvalidTokenInfo(KeyManagerConstants.KeyValidationStatus.API_AUTH_INVALID_CREDENTIALS);
+        }
+        if (!isRSAAlgorithm(signedJWT.getHeader().getAlgorithm())) {
+            if (log.isDebugEnabled()) {
+                log.debug("JWT is not signed with a supported algorithm: " + signedJWT.getHeader().getAlgorithm());
+            }
+            return getInvalidTokenInfo(KeyManagerConstants.KeyValidationStatus.API_AUTH_INVALID_CREDENTIALS);
+        }
+        try {
+            if (!signedJWT.verify(new RSASSAVerifier(getPublicKey()))) {
+                log.debug("Invalid JWT signature.");
+                return getInvalidTokenInfo(KeyManagerConstants.KeyValidationStatus.API_AUTH_INVALID_CREDENTIALS);
+            }
+        } catch (JOSEException e) {
+            String msg = "Error while verifying the signature of the JWT.";
+            log.error(msg, e);
+            throw new APIKeyMgtException(KeyManagerConstants.KeyValidationStatus.API_AUTH_GENERAL_ERROR, msg, e);
+        }
+
+        Map<String, Object> claims = signedJWT.getPayload().toJSONObject();
+        if (claims == null) {
+            return getInvalidTokenInfo(KeyManagerConstants.KeyValidationStatus.API_AUTH_INVALID_CREDENTIALS);
+        }
+        long currentTime = System.currentTimeMillis();
+        long skew = configuration.getTimestampSkewMillis();
+        long exp = getLongClaim(claims, KeyManagerConstants.OAUTH2_TOKEN_EXP_TIME, -1);
+        if (exp < 0 || exp * 1000 + skew < currentTime) {
+            log.debug("JWT has expired.");
+            return getInvalidTokenInfo(KeyManagerConstants.KeyValidationStatus.API_AUTH_ACCESS_TOKEN_EXPIRED);
+        }
+        long notBefore = getLongClaim(claims, KeyManagerConstants.OAUTH2_TOKEN_NOT_BEFORE_TIME, -1);
+        if (notBefore > 0 && notBefore * 1000 - skew > currentTime) {
+            log.debug("JWT is not valid yet.");
+            return getInvalidTokenInfo(KeyManagerConstants.KeyValidationStatus.API_AUTH_INVALID_CREDENTIALS);
+        }
+        if (!issuer.equals(claims.get(KeyManagerConstants.OAUTH2_TOKEN_ISSUER))) {
+            log.debug("JWT is not issued by the trusted issuer.");
+            return getInvalidTokenInfo(KeyManagerConstants.KeyValidationStatus.API_AUTH_INVALID_CREDENTIALS);
+        }
+        if (!getListClaim(claims, KeyManagerConstants.OAUTH2_TOKEN_AUDIENCE).contains(audience)) {
+            log.debug("JWT is not issued for the gateway audience.");
+            return getInvalidTokenInfo(KeyManagerConstants.KeyValidationStatus.API_AUTH_INVALID_CREDENTIALS);
+        }
+
+        AccessTokenInfo tokenInfo = new AccessTokenInfo();
+        tokenInfo.setTokenValid(true);
+        tokenInfo.setAccessToken(accessToken);
+        Object consumerKey = claims.get(KeyManagerConstants.OAUTH_CLIENT_ID);
+        if (consumerKey == null) {
+            consumerKey = claims.get(KeyManagerConstants.OAUTH2_AUTHORIZED_PARTY);
+        }
+        tokenInfo.setConsumerKey(consumerKey != null ? consumerKey.toString() : null);
+        Object endUser = claims.get(KeyManagerConstants.OAUTH2_TOKEN_SUBJECT);
+        tokenInfo.setEndUserName(endUser != null ? endUser.toString() : null);
+        tokenInfo.setIssuedTime(getLongClaim(claims, KeyManagerConstants.OAUTH2_TOKEN_ISSUED_TIME, 0));
+        tokenInfo.setScopes(getScopes(claims.get(KeyManagerConstants.OAUTH_CLIENT_SCOPE)));
+        // Expiry time in milliseconds, as set for introspected tokens
+        tokenInfo.setValidityPeriod(exp * 1000);
+        return tokenInfo;
+    }
+
+    private RSAPublicKey getPublicKey() throws APIKeyMgtException {
+        RSAPublicKey key = publicKey;
+        if (key == null) {
+            synchronized (this) {
+                key = publicKey;
+                if (key == null) {
+                    key = loadPublicKey();
+                    publicKey = key;
+                }
+            }
+        }
+        return key;
+    }
+
+    private RSAPublicKey loadPublicKey() throws APIKeyMgtException {
+        PublicKey key;
+        try {
+            key = new JWTWithRSASignatureImpl().getPublicKey(configuration.getTrustStorePath(),
+                    configuration.getTrustStorePassword(), configuration.getCertificateAlias());
+        } catch (APIManagementException e) {
+            String msg = "Error while loading the public key to verify JWTs.";
+            log.error(msg, e);
+            throw new APIKeyMgtException(KeyManagerConstants.KeyValidationStatus.API_AUTH_GENERAL_ERROR, msg, e);
+        }
+        if (!(key instanceof RSAPublicKey)) {
+            throw new APIKeyMgtException(KeyManagerConstants.KeyValidationStatus.API_AUTH_GENERAL_ERROR,
+                    "Certificate " + configuration.getCertificateAlias() + " does not have an RSA public key.");
+        }
+        return (RSAPublicKey) key;
+    }
+
+    private static boolean isRSAAlgorithm(JWSAlgorithm algorithm) {
+        return JWSAlgorithm.RS256.equals(algorithm) || JWSAlgorithm.RS384.equals(algorithm)
+                || JWSAlgorithm.RS512.equals(algorithm);
+    }
+
+    private static long getLongClaim(Map<String, Object> claims, String name, long defaultValue) {
+        Object value = claims.get(name);
+        return value instanceof Number ? ((Number) value).longValue() : defaultValue;
+    }
+
+    private static List<?> getListClaim(Map<String, Object> claims, String name) {
+        Object value = claims.get(name);
+        if (value instanceof List) {
+            return (List<?>) value;
+        }
+        return value != null ? Collections.singletonList(value) : Collections.emptyList();
+    }
+
+    private static String[] getScopes(Object scopes) {
+        if (scopes instanceof Collection) {
+            Collection<?> scopeList = (Collection<?>) scopes;
+            String[] scopesArray = new String[scopeList.size()];
+            int i = 0;
+            for (Object scope : scopeList) {
+                scopesArray[i++] = scope.toString();
+            }
+            return scopesArray;
+        }
+        return scopes != null ? scopes.toString().split(SCOPE_SEPARATOR) : new String[0];
+    }
+
+    private static AccessTokenInfo getInvalidTokenInfo(int errorCode) {
+        AccessTokenInfo tokenInfo = new AccessTokenInfo();
+        tokenInfo.setTokenValid(false);
+        tokenInfo.setErrorcode(errorCode);
+        return tokenInfo;
+    }
+
+    private static JWTValidationConfiguration getConfiguration() {
+        JWTValidationConfiguration configuration = ServiceReferenceHolder.getInstance()
+                .getJWTValidationConfiguration();
+        return configuration != null ? configuration : new JWTValidationConfiguration();
+    }
+}
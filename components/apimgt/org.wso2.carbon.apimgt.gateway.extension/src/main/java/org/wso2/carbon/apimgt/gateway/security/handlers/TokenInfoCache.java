@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.security.handlers;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.wso2.carbon.apimgt.gateway.exception.APIKeyMgtException;
+import org.wso2.carbon.apimgt.gateway.models.AccessTokenInfo;
+import org.wso2.carbon.apimgt.gateway.utils.KeyManagerConstants;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of token introspection results, keyed by the SHA-256 hash of the access token so that raw tokens are
+ * not used as map keys. The least recently used tokens are evicted when the cache is full.
+ * <p>
+ * A valid token is cached until the configured time to live elapses or the token expires, whichever comes first.
+ * An invalid token is cached for a shorter time, so that repeated calls with a revoked or unknown token do not reach
+ * the key server on each request. Failures to load a token are not cached.
+ * <p>
+ * When several threads miss on the same token at the same time, only one of them loads it, and the others wait for
+ * that result.
+ */
+public class TokenInfoCache {
+
+    private static final String HASH_ALGORITHM = "SHA-256";
+
+    private final Cache<String, CacheEntry> entries;
+    private final long ttlMillis;
+    private final long negativeTtlMillis;
+
+    // Counted here rather than with the statistics of the Guava cache, which counts a lookup of an expired token as
+    // a hit and its reload as another lookup
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+    /**
+     * Loads the introspection result of a token which is not in the cache.
+     */
+    public interface Loader {
+        AccessTokenInfo load(String accessToken) throws APIKeyMgtException;
+    }
+
+    /**
+     * @param maxEntries        maximum number of tokens held in the cache
+     * @param ttlMillis         maximum time a valid token is cached
+     * @param negativeTtlMillis time an invalid token is cached
+     */
+    public TokenInfoCache(int maxEntries, long ttlMillis, long negativeTtlMillis) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("Maximum number of entries should be positive: " + maxEntries);
+        }
+        this.ttlMillis = ttlMillis;
+        this.negativeTtlMillis = negativeTtlMillis;
+        // Entries expire earlier than the time to live if the token expires or is invalid, which is checked on read
+        this.entries = CacheBuilder.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Math.max(ttlMillis, negativeTtlMillis), TimeUnit.MILLISECONDS)
+                .removalListener((RemovalListener<String, CacheEntry>) notification -> {
+                    if (notification.wasEvicted()) {
+                        evictionCount.increment();
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Returns the cached result of the given token, or loads it with the given loader if it is not cached or has
+     * expired.
+     *
+     * @param accessToken access token
+     * @param loader      loader used on a cache miss
+     * @return introspection result of the token
+     * @throws APIKeyMgtException if the token could not be loaded
+     */
+    public AccessTokenInfo get(String accessToken, Loader loader) throws APIKeyMgtException {
+        return get(accessToken, loader, System.currentTimeMillis());
+    }
+
+    AccessTokenInfo get(String accessToken, Loader loader, long currentTime) throws APIKeyMgtException {
+        String key = hash(accessToken);
+        CacheEntry entry = entries.getIfPresent(key);
+        if (entry != null) {
+            if (entry.expiryTime > currentTime) {
+                hitCount.increment();
+                return entry.tokenInfo;
+            }
+            entries.asMap().remove(key, entry);
+        }
+        missCount.increment();
+
+        try {
+            // Concurrent misses on the same token wait for a single load
+            entry = entries.get(key, () -> newEntry(loader.load(accessToken), currentTime));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof APIKeyMgtException) {
+                throw (APIKeyMgtException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new APIKeyMgtException(KeyManagerConstants.KeyValidationStatus.API_AUTH_GENERAL_ERROR,
+                    "Error while validating the token.", cause);
+        }
+        if (entry.expiryTime <= currentTime) {
+            entries.asMap().remove(key, entry);
+        }
+        return entry.tokenInfo;
+    }
+
+    /**
+     * Removes the given token from the cache, for example when it is revoked.
+     *
+     * @param accessToken access token
+     */
+    public void invalidate(String accessToken) {
+        entries.invalidate(hash(accessToken));
+    }
+
+    public void clear() {
+        entries.invalidateAll();
+    }
+
+    public long size() {
+        return entries.size();
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    private CacheEntry newEntry(AccessTokenInfo tokenInfo, long currentTime) {
+        long expiryTime;
+        if (tokenInfo.isTokenValid()) {
+            expiryTime = currentTime + ttlMillis;
+            // Validity period holds the expiry time of the token in milliseconds
+            long tokenExpiryTime = tokenInfo.getValidityPeriod();
+            if (tokenExpiryTime > 0 && tokenExpiryTime < expiryTime) {
+                expiryTime = tokenExpiryTime;
+            }
+        } else {
+            expiryTime = currentTime + negativeTtlMillis;
+        }
+        return new CacheEntry(tokenInfo, expiryTime);
+    }
+
+    private static String hash(String accessToken) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance(HASH_ALGORITHM);
+            return Base64.getEncoder().encodeToString(digest.digest(accessToken.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(HASH_ALGORITHM + " is not supported.", e);
+        }
+    }
+
+    private static final class CacheEntry {
+
+        private final AccessTokenInfo tokenInfo;
+        private final long expiryTime;
+
+        private CacheEntry(AccessTokenInfo tokenInfo, long expiryTime) {
+            this.tokenInfo = tokenInfo;
+            this.expiryTime = expiryTime;
+        }
+    }
+}
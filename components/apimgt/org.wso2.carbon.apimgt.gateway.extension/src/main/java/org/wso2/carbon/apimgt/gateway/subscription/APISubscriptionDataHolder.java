@@ -18,30 +18,126 @@
 
 package org.wso2.carbon.apimgt.gateway.subscription;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.wso2.carbon.apimgt.gateway.GatewayConstants;
+import org.wso2.carbon.apimgt.gateway.internal.ServiceReferenceHolder;
 
-import java.util.Collections;
+import java.io.IOException;
 import java.util.HashMap;
-import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * This class holds API Subscription data in each gateway node.
+ * <p>
+ * Subscriptions are indexed by API and then by consumer key. The number of APIs held is bounded, and the least
+ * recently used APIs are evicted first. Lookups do not lock, and updates of an API are atomic with respect to the
+ * eviction of that API.
+ * <p>
+ * The subscriptions of an API are either all held or not held at all. An API which is not held, because it was
+ * evicted or had no subscriptions when they were loaded, is loaded from the API manager core on its first lookup.
+ * Subscription changes of an API which is not held are not applied, since the API is loaded with them.
+ * <p>
+ * After a load fails, no API is loaded until the failed load retry interval has passed, and lookups of APIs which are
+ * not held fail fast, so that they do not pile up on an API manager core which is not available. A single lookup then
+ * retries the load.
  */
 
 public class APISubscriptionDataHolder {
 
     private static final Logger log = LoggerFactory.getLogger(APISubscriptionDataHolder.class);
-    private static final int MAX_APIS = 50;
     private static final char DELIMITER = '@';
-    private static APISubscriptionDataHolder instance = new APISubscriptionDataHolder();
+    private static final int EXPORT_BATCH_SIZE = 1000;
+    private static volatile APISubscriptionDataHolder instance;
 
-    //key: API_CONTEXT$API_VERSION   value : Map<CONSUMER_KEY, SUBSCRIPTION_DATA_MAP>
-    private Map<String, Map<String, Map<String, String>>> apiSubscriptionMap = Collections.synchronizedMap(
-            new ExtendedLinkedHashMap());
+    //key: API_CONTEXT@API_VERSION   value : Map<CONSUMER_KEY, SUBSCRIPTION>
+    private final Cache<String, ConcurrentMap<String, Subscription>> apiSubscriptionCache;
+    private final ConcurrentMap<String, ConcurrentMap<String, Subscription>> apiSubscriptionMap;
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder blockedLoadCount = new LongAdder();
+    private final AtomicLong revision = new AtomicLong(-1);
+    // Incremented when a change is not applied because its API is not held, so that a load of the API which could
+    // have missed the change is not kept
+    private final AtomicLong skippedChangeCount = new AtomicLong();
+    private final SubscriptionLoader subscriptionLoader;
+    private final long failedLoadRetryMillis;
+    // Time until which APIs are not loaded after a failed load, or 0 if the last load succeeded
+    private final AtomicLong loadBlockedUntil = new AtomicLong();
+    // APIs evicted while the subscriptions are exported, whose subscriptions added after the eviction are incomplete
+    private volatile Set<String> evictedApiKeys;
+
+    /**
+     * Loads the subscriptions of a single API from the API manager core.
+     */
+    @FunctionalInterface
+    interface SubscriptionLoader {
+        /**
+         * @return all the subscriptions of the API, or null if they could not be loaded
+         */
+        List<SubscriptionDTO> loadSubscriptions(String apiContext, String apiVersion);
+    }
+
+    APISubscriptionDataHolder(int maxApis, SubscriptionLoader subscriptionLoader) {
+        this(maxApis, 0, subscriptionLoader);
+    }
+
+    /**
+     * @param maxApis               maximum number of APIs held
+     * @param failedLoadRetryMillis time after a failed load during which APIs are not loaded
+     * @param subscriptionLoader    loader of the subscriptions of APIs which are not held
+     */
+    APISubscriptionDataHolder(int maxApis, long failedLoadRetryMillis, SubscriptionLoader subscriptionLoader) {
+        this.subscriptionLoader = subscriptionLoader;
+        this.failedLoadRetryMillis = failedLoadRetryMillis;
+        // Subscriptions are updated rarely, so a single segment is used to keep the eviction order global.
+        // Reads do not lock the segment.
+        apiSubscriptionCache = CacheBuilder.newBuilder()
+                .concurrencyLevel(1)
+                .maximumSize(maxApis)
+                .recordStats()
+                .<String, ConcurrentMap<String, Subscription>>removalListener(notification -> {
+                    Set<String> apiKeys = evictedApiKeys;
+                    if (apiKeys != null && notification.wasEvicted()) {
+                        apiKeys.add(notification.getKey());
+                    }
+                })
+                .build();
+        // Updates go through the map view so that adding to an API is atomic with its eviction
+        apiSubscriptionMap = apiSubscriptionCache.asMap();
+    }
 
     public static APISubscriptionDataHolder getInstance() {
+        if (instance == null) {
+            synchronized (APISubscriptionDataHolder.class) {
+                if (instance == null) {
+                    SubscriptionStoreConfiguration configuration = ServiceReferenceHolder.getInstance()
+                            .getSubscriptionStoreConfiguration();
+                    if (configuration == null) {
+                        configuration = new SubscriptionStoreConfiguration();
+                    }
+                    SubscriptionRetrievalClient subscriptionRetrievalClient = new SubscriptionRetrievalClient();
+                    instance = new APISubscriptionDataHolder(configuration.getMaxApis(),
+                            TimeUnit.SECONDS.toMillis(configuration.getFailedLoadRetryInterval()),
+                            (apiContext, apiVersion) -> {
+                                SubscriptionListDTO subscriptions = subscriptionRetrievalClient
+                                        .loadSubscriptionsOfApi(apiContext, apiVersion);
+                                return subscriptions != null ? subscriptions.getSubscriptions() : null;
+                            });
+                }
+            }
+        }
         return instance;
     }
 
@@ -49,15 +145,35 @@ public class APISubscriptionDataHolder {
      * @param apiContext  API Context
      * @param apiVersion  API Version
      * @param consumerKey Consumer Key of Application
-     * @return Subscription data map if a subscription is available, otherwise null
+     * @return Subscription if a subscription is available, otherwise null
+     */
+    public Subscription getSubscription(String apiContext, String apiVersion, String consumerKey) {
+        String apiKey = getApiKey(apiContext, apiVersion);
+        Map<String, Subscription> subscriptionsOfApi = apiSubscriptionCache.getIfPresent(apiKey);
+        if (subscriptionsOfApi == null) {
+            subscriptionsOfApi = loadSubscriptionsOfApi(apiKey, apiContext, apiVersion);
+        }
+        Subscription subscription = subscriptionsOfApi != null ? subscriptionsOfApi.get(consumerKey) : null;
+        if (subscription != null) {
+            hitCount.increment();
+        } else {
+            missCount.increment();
+        }
+        return subscription;
+    }
+
+    /**
+     * Add new subscription to Subscription Map
+     *
+     * @param subscription Subscription
      */
-    public Map<String, String> getApiSubscriptionPolicyIfAvailable(String apiContext, String apiVersion,
-                                                                   String consumerKey) {
-        Map<String, Map<String, String>> subscriptionMap = apiSubscriptionMap.get(apiContext + DELIMITER + apiVersion);
-        if (subscriptionMap != null) {
-            return subscriptionMap.get(consumerKey);
+    public void addSubscription(Subscription subscription) {
+        updateSubscription(subscription);
+        if (log.isDebugEnabled()) {
+            log.debug("Subscription entry added to Subscription Map. API: " + subscription.getApiContext() + ':'
+                    + subscription.getApiVersion() + " Consumer Key: " + subscription.getConsumerKey()
+                    + " Subscription Policy: " + subscription.getSubscriptionPolicy());
         }
-        return null;
     }
 
     /**
@@ -70,23 +186,11 @@ public class APISubscriptionDataHolder {
      */
     public void addApiSubscriptionToMap(String apiContext, String apiVersion, String consumerKey,
                                         Map<String, String> subscriptionData) {
-        String apiKey = apiContext + DELIMITER + apiVersion;
-        synchronized (apiKey.intern()) {
-            if (apiSubscriptionMap.get(apiKey) == null) {
-                Map<String, Map<String, String>> subscriptionsOfApi = new HashMap<>();
-                subscriptionsOfApi.put(consumerKey, subscriptionData);
-                apiSubscriptionMap.put(apiKey, subscriptionsOfApi);
-            } else {
-                apiSubscriptionMap.get(apiKey).put(consumerKey, subscriptionData);
-            }
-            if (log.isDebugEnabled()) {
-                log.debug("Subscription entry added to Subscription Map. API: " + apiContext + ':' + apiVersion +
-                        " Consumer Key: " + consumerKey + " Subscription Policy: " + subscriptionData);
-            }
-            //todo: remove this line
-            log.info("Subscription entry added to Subscription Map. API: " + apiContext + ':' + apiVersion +
-                    " Consumer Key: " + consumerKey + " Subscription Policy: " + subscriptionData);
-        }
+        Map<String, String> data = new HashMap<>(subscriptionData);
+        data.put(GatewayConstants.API_CONTEXT, apiContext);
+        data.put(GatewayConstants.API_VERSION, apiVersion);
+        data.put(GatewayConstants.CONSUMER_KEY, consumerKey);
+        addSubscription(Subscription.fromMap(data));
     }
 
     /**
@@ -97,34 +201,226 @@ public class APISubscriptionDataHolder {
      * @param consumerKey Consumer Key of Application
      */
     public void removeApiSubscriptionFromMap(String apiContext, String apiVersion, String consumerKey) {
-        String apiKey = apiContext + DELIMITER + apiVersion;
-        synchronized (apiKey.intern()) {
-            Map<String, Map<String, String>> subscriptionsOfApi = apiSubscriptionMap.get(apiKey);
-            if (subscriptionsOfApi != null) {
-                subscriptionsOfApi.remove(consumerKey);
+        ConcurrentMap<String, Subscription> subscriptionsOfApi = apiSubscriptionMap.computeIfPresent(
+                getApiKey(apiContext, apiVersion), (apiKey, subscriptions) -> {
+                    subscriptions.remove(consumerKey);
+                    return subscriptions;
+                });
+        if (subscriptionsOfApi == null) {
+            skippedChangeCount.incrementAndGet();
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Subscription entry removed from Subscription Map. API: " + apiContext + ':' + apiVersion +
+                    " Consumer Key: " + consumerKey);
+        }
+    }
+
+    /**
+     * Adds the given subscriptions in bulk, to warm up the subscription data when the gateway starts. The
+     * subscriptions of an API may be added in several calls, but all of them must be added.
+     *
+     * @param subscriptions subscriptions to add
+     */
+    public void addSubscriptions(List<SubscriptionDTO> subscriptions) {
+        for (SubscriptionDTO subscriptionDTO : subscriptions) {
+            putSubscription(Subscription.fromDTO(subscriptionDTO));
+        }
+        if (log.isDebugEnabled()) {
+            log.debug(subscriptions.size() + " subscriptions added to Subscription Map. API count: "
+                    + getApiCount());
+        }
+    }
+
+    /**
+     * Loads all the subscriptions from the API manager core.
+     *
+     * @param subscriptionRetrievalClient client used to retrieve the subscriptions
+     * @throws IOException if the subscriptions could not be loaded
+     */
+    public void warmUp(SubscriptionRetrievalClient subscriptionRetrievalClient) throws IOException {
+        synchronize(subscriptionRetrievalClient);
+        log.info("Loaded subscriptions of " + getApiCount() + " APIs up to revision " + getRevision());
+    }
+
+    /**
+     * Retrieves the subscriptions changed since the last synchronization from the API manager core and applies them.
+     * All the subscriptions are retrieved on the first synchronization. They are streamed and added in batches, so
+     * that the complete list of subscriptions is not held in memory.
+     * <p>
+     * This is used to catch up with the subscription messages which may have been missed, for example while the
+     * connection to the message broker was down.
+     *
+     * @param subscriptionRetrievalClient client used to retrieve the subscriptions
+     * @throws IOException if all the subscriptions could not be loaded
+     */
+    public synchronized void synchronize(SubscriptionRetrievalClient subscriptionRetrievalClient) throws IOException {
+        if (revision.get() < 0) {
+            evictedApiKeys = ConcurrentHashMap.newKeySet();
+            boolean exported = false;
+            try {
+                // The changes made while exporting are retrieved after the revision returned by the export
+                revision.set(subscriptionRetrievalClient.exportSubscriptions(EXPORT_BATCH_SIZE,
+                        this::addSubscriptions));
+                exported = true;
+            } finally {
+                if (exported) {
+                    apiSubscriptionCache.invalidateAll(evictedApiKeys);
+                } else {
+                    // The subscriptions of any API could be incomplete, so they are loaded when they are looked up
+                    apiSubscriptionCache.invalidateAll();
+                }
+                evictedApiKeys = null;
             }
-            if (log.isDebugEnabled()) {
-                log.debug("Subscription entry removed from Subscription Map. API: " + apiContext + ':' + apiVersion +
-                        " Consumer Key: " + consumerKey);
+            return;
+        }
+        SubscriptionChangeListDTO subscriptionChanges = subscriptionRetrievalClient
+                .loadSubscriptionChanges(revision.get());
+        if (subscriptionChanges == null) {
+            return;
+        }
+        if (subscriptionChanges.getRevision() < 0) {
+            // The subscriptions removed since the last synchronization are no longer kept by the API manager core
+            log.info("Subscription changes after revision " + revision.get() + " are no longer available. "
+                    + "Loading all the subscriptions.");
+            apiSubscriptionCache.invalidateAll();
+            revision.set(-1);
+            synchronize(subscriptionRetrievalClient);
+            return;
+        }
+        applyChanges(subscriptionChanges);
+    }
+
+    /**
+     * Applies the given subscription changes, and moves to their revision.
+     *
+     * @param subscriptionChanges subscriptions changed after the current revision
+     */
+    void applyChanges(SubscriptionChangeListDTO subscriptionChanges) {
+        // Removals are applied first, as a subscription which was removed and added again is in both lists
+        List<SubscriptionDTO> removedSubscriptions = subscriptionChanges.getRemovedSubscriptions();
+        if (removedSubscriptions != null) {
+            for (SubscriptionDTO subscriptionDTO : removedSubscriptions) {
+                removeApiSubscriptionFromMap(subscriptionDTO.getApiContext(), subscriptionDTO.getApiVersion(),
+                        subscriptionDTO.getConsumerKey());
             }
-            //todo: remove this line
-            log.info("Subscription entry removed from Subscription Map. API: " + apiContext + ':' + apiVersion +
-                    " Consumer Key: " + consumerKey);
         }
+        if (subscriptionChanges.getSubscriptions() != null) {
+            for (SubscriptionDTO subscriptionDTO : subscriptionChanges.getSubscriptions()) {
+                updateSubscription(Subscription.fromDTO(subscriptionDTO));
+            }
+        }
+        revision.set(subscriptionChanges.getRevision());
+        if (log.isDebugEnabled()) {
+            log.debug("Subscription changes applied up to revision " + subscriptionChanges.getRevision());
+        }
+    }
+
+    /**
+     * @return revision of the last synchronization, or -1 if the subscriptions have not been synchronized
+     */
+    public long getRevision() {
+        return revision.get();
+    }
+
+    public long getApiCount() {
+        return apiSubscriptionCache.size();
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
     }
 
-    private static class ExtendedLinkedHashMap extends LinkedHashMap<String, Map<String, Map<String, String>>> {
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * @return number of lookups which did not load the subscriptions of an API, as a previous load failed
+     */
+    public long getBlockedLoadCount() {
+        return blockedLoadCount.sum();
+    }
 
-        private static final long serialVersionUID = 6103479545023548050L;
+    public long getEvictionCount() {
+        return apiSubscriptionCache.stats().evictionCount();
+    }
 
-        ExtendedLinkedHashMap() {
-            super(APISubscriptionDataHolder.MAX_APIS + 1, 1.0F, false);
+    /**
+     * Loads the subscriptions of an API which is not held. Concurrent lookups of the API wait for a single load.
+     *
+     * @return subscriptions of the API, or null if they could not be loaded
+     */
+    private Map<String, Subscription> loadSubscriptionsOfApi(String apiKey, String apiContext, String apiVersion) {
+        if (subscriptionLoader == null) {
+            return null;
+        }
+        long blockedUntil = loadBlockedUntil.get();
+        if (blockedUntil != 0) {
+            long now = System.currentTimeMillis();
+            // Once the retry interval has passed, the lookup which moves the blocked time retries the load
+            if (now < blockedUntil || !loadBlockedUntil.compareAndSet(blockedUntil, now + failedLoadRetryMillis)) {
+                blockedLoadCount.increment();
+                return null;
+            }
         }
+        long skippedChanges = skippedChangeCount.get();
+        ConcurrentMap<String, Subscription> subscriptionsOfApi;
+        try {
+            subscriptionsOfApi = apiSubscriptionCache.get(apiKey, () -> {
+                List<SubscriptionDTO> subscriptions = subscriptionLoader.loadSubscriptions(apiContext, apiVersion);
+                if (subscriptions == null) {
+                    throw new IOException("No subscriptions received");
+                }
+                ConcurrentMap<String, Subscription> loadedSubscriptions = new ConcurrentHashMap<>();
+                for (SubscriptionDTO subscriptionDTO : subscriptions) {
+                    loadedSubscriptions.put(subscriptionDTO.getConsumerKey(), Subscription.fromDTO(subscriptionDTO));
+                }
+                return loadedSubscriptions;
+            });
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            loadBlockedUntil.set(System.currentTimeMillis() + failedLoadRetryMillis);
+            log.error("Error while loading subscriptions of API " + apiContext + ':' + apiVersion + ". Subscriptions "
+                    + "are not loaded for " + failedLoadRetryMillis + " ms.", e);
+            return null;
+        }
+        if (blockedUntil != 0) {
+            loadBlockedUntil.set(0);
+        }
+        if (skippedChangeCount.get() != skippedChanges) {
+            // A change of the API may have been made after it was loaded, so it is loaded again on the next lookup
+            apiSubscriptionMap.remove(apiKey, subscriptionsOfApi);
+        }
+        return subscriptionsOfApi;
+    }
 
-        // This method is called just after a new entry has been added
-        @Override
-        public boolean removeEldestEntry(Map.Entry eldest) {
-            return size() > MAX_APIS;
+    /**
+     * Applies a subscription change. The change is not applied if the API is not held, since the subscriptions
+     * of the API would be incomplete.
+     */
+    private void updateSubscription(Subscription subscription) {
+        ConcurrentMap<String, Subscription> subscriptionsOfApi = apiSubscriptionMap.computeIfPresent(
+                getApiKey(subscription.getApiContext(), subscription.getApiVersion()), (apiKey, subscriptions) -> {
+                    subscriptions.put(subscription.getConsumerKey(), subscription);
+                    return subscriptions;
+                });
+        if (subscriptionsOfApi == null) {
+            skippedChangeCount.incrementAndGet();
         }
     }
+
+    private void putSubscription(Subscription subscription) {
+        apiSubscriptionMap.compute(getApiKey(subscription.getApiContext(), subscription.getApiVersion()),
+                (apiKey, subscriptionsOfApi) -> {
+                    ConcurrentMap<String, Subscription> subscriptions = subscriptionsOfApi;
+                    if (subscriptions == null) {
+                        subscriptions = new ConcurrentHashMap<>();
+                    }
+                    subscriptions.put(subscription.getConsumerKey(), subscription);
+                    return subscriptions;
+                });
+    }
+
+    private static String getApiKey(String apiContext, String apiVersion) {
+        return apiContext + DELIMITER + apiVersion;
+    }
 }
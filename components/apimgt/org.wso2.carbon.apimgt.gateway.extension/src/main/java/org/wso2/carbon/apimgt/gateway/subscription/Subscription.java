@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.subscription;
+
+import org.wso2.carbon.apimgt.gateway.GatewayConstants;
+
+import java.util.Map;
+
+/**
+ * Subscription of an application to an API, as held by the {@link APISubscriptionDataHolder}.
+ */
+public final class Subscription {
+
+    private final String apiContext;
+    private final String apiVersion;
+    private final String apiProvider;
+    private final String consumerKey;
+    private final String subscriptionPolicy;
+    private final String applicationName;
+    private final String applicationOwner;
+    private final String keyEnvType;
+
+    public Subscription(String apiContext, String apiVersion, String apiProvider, String consumerKey,
+                        String subscriptionPolicy, String applicationName, String applicationOwner,
+                        String keyEnvType) {
+        this.apiContext = apiContext;
+        this.apiVersion = apiVersion;
+        this.apiProvider = apiProvider;
+        this.consumerKey = consumerKey;
+        this.subscriptionPolicy = subscriptionPolicy;
+        this.applicationName = applicationName;
+        this.applicationOwner = applicationOwner;
+        this.keyEnvType = keyEnvType;
+    }
+
+    static Subscription fromDTO(SubscriptionDTO subscriptionDTO) {
+        return new Subscription(subscriptionDTO.getApiContext(), subscriptionDTO.getApiVersion(),
+                subscriptionDTO.getApiProvider(), subscriptionDTO.getConsumerKey(),
+                subscriptionDTO.getSubscriptionPolicy(), subscriptionDTO.getApplicationName(),
+                subscriptionDTO.getApplicationOwner(), subscriptionDTO.getKeyEnvType());
+    }
+
+    static Subscription fromMap(Map<String, String> subscriptionData) {
+        return new Subscription(subscriptionData.get(GatewayConstants.API_CONTEXT),
+                subscriptionData.get(GatewayConstants.API_VERSION), subscriptionData.get(GatewayConstants.API_PROVIDER),
+                subscriptionData.get(GatewayConstants.CONSUMER_KEY),
+                subscriptionData.get(GatewayConstants.SUBSCRIPTION_POLICY),
+                subscriptionData.get(GatewayConstants.APPLICATION_NAME),
+                subscriptionData.get(GatewayConstants.APPLICATION_OWNER),
+                subscriptionData.get(GatewayConstants.KEY_ENV_TYPE));
+    }
+
+    public String getApiContext() {
+        return apiContext;
+    }
+
+    public String getApiVersion() {
+        return apiVersion;
+    }
+
+    public String getApiProvider() {
+        return apiProvider;
+    }
+
+    public String getConsumerKey() {
+        return consumerKey;
+    }
+
+    public String getSubscriptionPolicy() {
+        return subscriptionPolicy;
+    }
+
+    public String getApplicationName() {
+        return applicationName;
+    }
+
+    public String getApplicationOwner() {
+        return applicationOwner;
+    }
+
+    public String getKeyEnvType() {
+        return keyEnvType;
+    }
+
+    @Override
+    public String toString() {
+        return "Subscription{apiContext=" + apiContext + ", apiVersion=" + apiVersion + ", consumerKey="
+                + consumerKey + ", subscriptionPolicy=" + subscriptionPolicy + ", keyEnvType=" + keyEnvType + '}';
+    }
+}
@@ -0,0 +1,39 @@
+package org.wso2.carbon.apimgt.gateway.subscription;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Model for the subscriptions changed after a revision
+ */
+public class SubscriptionChangeListDTO {
+
+    private long revision;
+    private List<SubscriptionDTO> list = new ArrayList<SubscriptionDTO>();
+    private List<SubscriptionDTO> removed = new ArrayList<SubscriptionDTO>();
+
+    public long getRevision() {
+        return revision;
+    }
+
+    public void setRevision(long revision) {
+        this.revision = revision;
+    }
+
+    public List<SubscriptionDTO> getSubscriptions() {
+        return list;
+    }
+
+    public void setList(List<SubscriptionDTO> list) {
+        this.list = list;
+    }
+
+    public List<SubscriptionDTO> getRemovedSubscriptions() {
+        return removed;
+    }
+
+    public void setRemoved(List<SubscriptionDTO> removed) {
+        this.removed = removed;
+    }
+
+}
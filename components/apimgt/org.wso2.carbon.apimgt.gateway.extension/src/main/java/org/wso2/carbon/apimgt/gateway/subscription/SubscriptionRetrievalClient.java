@@ -20,11 +20,30 @@
 
 package org.wso2.carbon.apimgt.gateway.subscription;
 
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonSyntaxException;
 import feign.Feign;
 import feign.Param;
 import feign.RequestLine;
 import feign.gson.GsonDecoder;
 import feign.gson.GsonEncoder;
+import org.wso2.carbon.apimgt.gateway.http.FeignHttpClient;
+import org.wso2.carbon.apimgt.gateway.http.GatewayHttpClient;
+import org.wso2.carbon.apimgt.gateway.http.HttpResponse;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * Http client util for subscription validation.
@@ -32,11 +51,26 @@ import feign.gson.GsonEncoder;
 public final class SubscriptionRetrievalClient {
 
     private static final String DEFAULT_APIM_CORE_BASE_URL = "https://localhost:9292";
+    private static final String SUBSCRIPTION_REVISION_HEADER = "X-Subscription-Revision";
+    private static final String EXPORT_COUNT = "count";
+    private static final Map<String, Collection<String>> EXPORT_HEADERS = Collections.singletonMap("Accept",
+            Collections.singletonList("application/x-ndjson"));
 
     private SubscriptionRetrievalService subscriptionRetrievalService = null;
+    private final String apimCoreBaseUrl;
+    private final GatewayHttpClient httpClient;
+    private final Gson gson = new Gson();
 
     public SubscriptionRetrievalClient(String apimCoreBaseUrl) {
+        this(apimCoreBaseUrl, GatewayHttpClient.getInstance());
+    }
+
+    SubscriptionRetrievalClient(String apimCoreBaseUrl, GatewayHttpClient httpClient) {
+        this.apimCoreBaseUrl = apimCoreBaseUrl;
+        this.httpClient = httpClient;
         subscriptionRetrievalService = Feign.builder()
+                .client(new FeignHttpClient(httpClient))
+                .options(FeignHttpClient.getOptions(httpClient))
                 .encoder(new GsonEncoder())
                 .decoder(new GsonDecoder())
                 .target(SubscriptionRetrievalService.class, apimCoreBaseUrl);
@@ -52,14 +86,117 @@ public final class SubscriptionRetrievalClient {
 
         @RequestLine("GET /subscriptions?context={context}&version={version}")
         SubscriptionListDTO getSubscriptions(@Param("context") String context, @Param("version") String version);
+
+        @RequestLine("GET /subscriptions/changes")
+        SubscriptionChangeListDTO getSubscriptionChanges();
+
+        @RequestLine("GET /subscriptions/changes?since={since}")
+        SubscriptionChangeListDTO getSubscriptionChanges(@Param("since") long since);
     }
 
     SubscriptionListDTO loadSubscriptions(int limit) {
         return subscriptionRetrievalService.getSubscriptions(limit);
     }
 
+    /**
+     * @param since revision returned by the previous call, or a negative value to load all the subscriptions
+     * @return subscriptions changed after the given revision
+     */
+    SubscriptionChangeListDTO loadSubscriptionChanges(long since) {
+        if (since < 0) {
+            return subscriptionRetrievalService.getSubscriptionChanges();
+        }
+        return subscriptionRetrievalService.getSubscriptionChanges(since);
+    }
+
+    /**
+     * Loads all the subscriptions as they are received, so that the complete list of subscriptions is not held in
+     * memory. The subscriptions are streamed by the API manager core as newline delimited JSON, followed by a line
+     * holding the number of subscriptions. The export is rejected if that line is missing or does not match the
+     * subscriptions received, as the API manager core aborts the response when it fails during the export.
+     *
+     * @param batchSize     number of subscriptions passed to the consumer at a time
+     * @param batchConsumer consumer of the loaded subscriptions
+     * @return revision of the subscriptions when the export started, or -1 if the revision was not returned
+     * @throws IOException if the subscriptions could not be loaded, or the export is incomplete
+     */
+    long exportSubscriptions(int batchSize, Consumer<List<SubscriptionDTO>> batchConsumer) throws IOException {
+        return httpClient.stream("GET", apimCoreBaseUrl + "/subscriptions/export", EXPORT_HEADERS,
+                (response, body) -> {
+                    if (!response.isSuccessful()) {
+                        throw new IOException("Unable to export subscriptions. Status: " + response.getStatusCode()
+                                + " " + response.getReason());
+                    }
+                    BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+                    List<SubscriptionDTO> batch = new ArrayList<>(batchSize);
+                    long count = 0;
+                    // Each line is only parsed once the next one is read, as the last line is the count
+                    String previousLine = null;
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        if (line.isEmpty()) {
+                            continue;
+                        }
+                        if (previousLine != null) {
+                            try {
+                                batch.add(gson.fromJson(previousLine, SubscriptionDTO.class));
+                            } catch (JsonSyntaxException e) {
+                                throw new IOException("Invalid subscription received: " + previousLine, e);
+                            }
+                            count++;
+                            if (batch.size() == batchSize) {
+                                batchConsumer.accept(batch);
+                                batch = new ArrayList<>(batchSize);
+                            }
+                        }
+                        previousLine = line;
+                    }
+                    if (getExportCount(previousLine) != count) {
+                        throw new IOException("Subscription export is incomplete. Received " + count
+                                + " subscriptions, followed by: " + previousLine);
+                    }
+                    if (!batch.isEmpty()) {
+                        batchConsumer.accept(batch);
+                    }
+                    return getRevision(response);
+                });
+    }
+
     SubscriptionListDTO loadSubscriptionsOfApi(String apiContext, String apiVersion) {
         return subscriptionRetrievalService.getSubscriptions(apiContext, apiVersion);
     }
 
+    /**
+     * @param line last line of an export
+     * @return number of subscriptions held by the last line, or -1 if it does not hold the count
+     */
+    private static long getExportCount(String line) {
+        if (line == null) {
+            return -1;
+        }
+        try {
+            JsonElement element = new JsonParser().parse(line);
+            if (!element.isJsonObject() || element.getAsJsonObject().entrySet().size() != 1) {
+                return -1;
+            }
+            JsonElement count = element.getAsJsonObject().get(EXPORT_COUNT);
+            return count != null && count.isJsonPrimitive() && count.getAsJsonPrimitive().isNumber() ?
+                    count.getAsLong() : -1;
+        } catch (JsonParseException e) {
+            return -1;
+        }
+    }
+
+    private static long getRevision(HttpResponse response) throws IOException {
+        for (Map.Entry<String, Collection<String>> header : response.getHeaders().entrySet()) {
+            if (SUBSCRIPTION_REVISION_HEADER.equalsIgnoreCase(header.getKey()) && !header.getValue().isEmpty()) {
+                try {
+                    return Long.parseLong(header.getValue().iterator().next().trim());
+                } catch (NumberFormatException e) {
+                    throw new IOException("Invalid subscription revision received", e);
+                }
+            }
+        }
+        return -1;
+    }
 }
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.subscription;
+
+/**
+ * This class is used to keep the configurations of the subscription data held in the gateway
+ */
+public class SubscriptionStoreConfiguration {
+
+    private int maxApis = 10000;
+    private boolean warmUpEnabled = true;
+    private int syncInterval = 300;
+    private int failedLoadRetryInterval = 5;
+
+    public int getMaxApis() {
+        return maxApis;
+    }
+
+    public void setMaxApis(int maxApis) {
+        this.maxApis = maxApis;
+    }
+
+    public boolean isWarmUpEnabled() {
+        return warmUpEnabled;
+    }
+
+    public void setWarmUpEnabled(boolean warmUpEnabled) {
+        this.warmUpEnabled = warmUpEnabled;
+    }
+
+    /**
+     * @return interval in seconds at which the subscriptions are synchronized with the API manager core, or 0 if the
+     * subscriptions are synchronized only when a subscription message could not be received. The subscriptions are
+     * not synchronized if warm up is disabled.
+     */
+    public int getSyncInterval() {
+        return syncInterval;
+    }
+
+    public void setSyncInterval(int syncInterval) {
+        this.syncInterval = syncInterval;
+    }
+
+    /**
+     * @return interval in seconds after a failed load of the subscriptions of an API, during which the subscriptions
+     * of APIs which are not held are not loaded from the API manager core
+     */
+    public int getFailedLoadRetryInterval() {
+        return failedLoadRetryInterval;
+    }
+
+    public void setFailedLoadRetryInterval(int failedLoadRetryInterval) {
+        this.failedLoadRetryInterval = failedLoadRetryInterval;
+    }
+}
@@ -0,0 +1,422 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.throttling;
+
+import org.wso2.carbon.apimgt.gateway.throttling.utils.IPAddress;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index of the blocking conditions of the gateway, which checks whether a request is blocked by its API, application,
+ * user or client IP in one pass, without building any keys.
+ * <p>
+ * API and user conditions are held in hashed sets, and application conditions ({subscriber}:{application}) in sets
+ * of application names per subscriber. IP conditions ({tenantDomain}:{ip} or {tenantDomain}:{ip}/{prefixLength})
+ * are held per tenant; single addresses in a hashed set of parsed addresses, and CIDR ranges in sorted arrays that
+ * are searched with a binary search. An IP condition without a tenant domain applies to all the tenants.
+ * <p>
+ * Lookups do not take any locks. Each update is applied atomically to the set it changes; updates of the IP ranges
+ * of a tenant replace the sorted arrays with a new copy, so a lookup always sees a complete set of ranges. As adding
+ * a single range copies the arrays, a bulk load of IP conditions should use {@link #addIPConditions(Collection)},
+ * which sorts the ranges of each tenant once.
+ */
+public class BlockingConditionIndex {
+
+    private static final char KEY_DELIMITER = ':';
+    private static final char PREFIX_LENGTH_DELIMITER = '/';
+    private static final String ALL_TENANTS = "";
+
+    private final Set<String> apis = ConcurrentHashMap.newKeySet();
+    private final Set<String> users = ConcurrentHashMap.newKeySet();
+    private final Map<String, Set<String>> applications = new ConcurrentHashMap<>();
+    private final Map<String, IPConditions> ipConditions = new ConcurrentHashMap<>();
+
+    public void addAPICondition(String apiContext) {
+        apis.add(apiContext);
+    }
+
+    public void removeAPICondition(String apiContext) {
+        apis.remove(apiContext);
+    }
+
+    public void addUserCondition(String user) {
+        users.add(user);
+    }
+
+    public void removeUserCondition(String user) {
+        users.remove(user);
+    }
+
+    /**
+     * @param condition application condition in the form {subscriber}:{application name}
+     */
+    public void addApplicationCondition(String condition) {
+        int index = condition.indexOf(KEY_DELIMITER);
+        String subscriber = index < 0 ? condition : condition.substring(0, index);
+        String applicationName = index < 0 ? "" : condition.substring(index + 1);
+        applications.compute(subscriber, (key, names) -> {
+            Set<String> applicationNames = names != null ? names : ConcurrentHashMap.newKeySet();
+            applicationNames.add(applicationName);
+            return applicationNames;
+        });
+    }
+
+    /**
+     * @param condition application condition in the form {subscriber}:{application name}
+     */
+    public void removeApplicationCondition(String condition) {
+        int index = condition.indexOf(KEY_DELIMITER);
+        String subscriber = index < 0 ? condition : condition.substring(0, index);
+        String applicationName = index < 0 ? "" : condition.substring(index + 1);
+        applications.computeIfPresent(subscriber, (key, names) -> {
+            names.remove(applicationName);
+            return names.isEmpty() ? null : names;
+        });
+    }
+
+    /**
+     * Adds an IP condition, such as "carbon.super:10.0.0.1", "carbon.super:10.0.0.0/8" or "2001:db8::/32".
+     *
+     * @param condition IP condition
+     * @return false if the condition does not hold a valid IP address or CIDR range
+     */
+    public boolean addIPCondition(String condition) {
+        IPCondition ipCondition = IPCondition.parse(condition);
+        if (ipCondition == null) {
+            return false;
+        }
+        ipConditions.compute(ipCondition.tenantDomain, (key, conditions) -> {
+            IPConditions tenantConditions = conditions != null ? conditions : new IPConditions();
+            tenantConditions.add(ipCondition);
+            return tenantConditions;
+        });
+        return true;
+    }
+
+    /**
+     * Adds IP conditions in bulk. The ranges of each tenant are sorted once, instead of copying the sorted arrays for
+     * each range.
+     *
+     * @param conditions IP conditions, in the same form as {@link #addIPCondition(String)}
+     * @return conditions which were not added as they do not hold a valid IP address or CIDR range
+     */
+    public List<String> addIPConditions(Collection<String> conditions) {
+        List<String> invalidConditions = new ArrayList<>();
+        Map<String, List<IPCondition>> tenantConditions = new HashMap<>();
+        for (String condition : conditions) {
+            IPCondition ipCondition = IPCondition.parse(condition);
+            if (ipCondition == null) {
+                invalidConditions.add(condition);
+            } else {
+                tenantConditions.computeIfAbsent(ipCondition.tenantDomain, key -> new ArrayList<>()).add(ipCondition);
+            }
+        }
+        for (Map.Entry<String, List<IPCondition>> entry : tenantConditions.entrySet()) {
+            ipConditions.compute(entry.getKey(), (key, existingConditions) -> {
+                IPConditions ipConditionsOfTenant = existingConditions != null ? existingConditions :
+                        new IPConditions();
+                ipConditionsOfTenant.addAll(entry.getValue());
+                return ipConditionsOfTenant;
+            });
+        }
+        return invalidConditions;
+    }
+
+    /**
+     * @param condition IP condition, in the same form it was added
+     * @return false if the condition does not hold a valid IP address or CIDR range
+     */
+    public boolean removeIPCondition(String condition) {
+        IPCondition ipCondition = IPCondition.parse(condition);
+        if (ipCondition == null) {
+            return false;
+        }
+        ipConditions.computeIfPresent(ipCondition.tenantDomain, (key, conditions) -> {
+            conditions.remove(ipCondition);
+            return conditions.isEmpty() ? null : conditions;
+        });
+        return true;
+    }
+
+    /**
+     * Checks whether a request matches any of the blocking conditions. Null values do not match any condition.
+     *
+     * @param apiContext      context of the API
+     * @param subscriber      subscriber of the application
+     * @param applicationName name of the application
+     * @param user            authorized user
+     * @param tenantDomain    tenant domain of the API
+     * @param clientIp        IP of the client
+     * @return true if the request is blocked
+     */
+    public boolean isBlocked(String apiContext, String subscriber, String applicationName, String user,
+                             String tenantDomain, IPAddress clientIp) {
+        if (apiContext != null && apis.contains(apiContext)) {
+            return true;
+        }
+        if (user != null && users.contains(user)) {
+            return true;
+        }
+        if (subscriber != null && applicationName != null) {
+            Set<String> applicationNames = applications.get(subscriber);
+            if (applicationNames != null && applicationNames.contains(applicationName)) {
+                return true;
+            }
+        }
+        if (clientIp != null && !ipConditions.isEmpty()) {
+            IPConditions conditions = tenantDomain != null ? ipConditions.get(tenantDomain) : null;
+            if (conditions != null && conditions.matches(clientIp)) {
+                return true;
+            }
+            conditions = ipConditions.get(ALL_TENANTS);
+            return conditions != null && conditions.matches(clientIp);
+        }
+        return false;
+    }
+
+    public boolean isEmpty() {
+        return apis.isEmpty() && users.isEmpty() && applications.isEmpty() && ipConditions.isEmpty();
+    }
+
+    /**
+     * IP conditions of a tenant. Updates are made while holding the map entry of the tenant, so they are not
+     * concurrent with each other, while lookups may run at any time.
+     */
+    private static final class IPConditions {
+
+        private final Set<IPAddress> addresses = ConcurrentHashMap.newKeySet();
+        private volatile IPRanges ranges = IPRanges.EMPTY;
+
+        void add(IPCondition condition) {
+            if (condition.isSingleAddress()) {
+                addresses.add(condition.start);
+            } else {
+                ranges = ranges.add(condition.start, condition.end);
+            }
+        }
+
+        void addAll(List<IPCondition> conditions) {
+            List<IPCondition> rangeConditions = new ArrayList<>();
+            for (IPCondition condition : conditions) {
+                if (condition.isSingleAddress()) {
+                    addresses.add(condition.start);
+                } else {
+                    rangeConditions.add(condition);
+                }
+            }
+            if (!rangeConditions.isEmpty()) {
+                ranges = ranges.addAll(rangeConditions);
+            }
+        }
+
+        void remove(IPCondition condition) {
+            if (condition.isSingleAddress()) {
+                addresses.remove(condition.start);
+            } else {
+                ranges = ranges.remove(condition.start, condition.end);
+            }
+        }
+
+        boolean matches(IPAddress address) {
+            return addresses.contains(address) || ranges.contains(address);
+        }
+
+        boolean isEmpty() {
+            return addresses.isEmpty() && ranges.size() == 0;
+        }
+    }
+
+    /**
+     * Immutable set of IP ranges, sorted by their first address. As the ranges may overlap, the largest last address
+     * of the ranges up to each index is kept as well, so that an address is in the set if the largest last address
+     * of the ranges starting at or before it is not before it.
+     */
+    private static final class IPRanges {
+
+        private static final IPRanges EMPTY = new IPRanges(new IPAddress[0], new IPAddress[0]);
+        private static final Comparator<IPCondition> RANGE_ORDER = Comparator.<IPCondition, IPAddress>comparing(
+                condition -> condition.start).thenComparing(condition -> condition.end);
+
+        private final IPAddress[] starts;
+        private final IPAddress[] ends;
+        private final IPAddress[] maxEnds;
+
+        private IPRanges(IPAddress[] starts, IPAddress[] ends) {
+            this.starts = starts;
+            this.ends = ends;
+            this.maxEnds = new IPAddress[ends.length];
+            for (int i = 0; i < ends.length; i++) {
+                maxEnds[i] = i > 0 && maxEnds[i - 1].compareTo(ends[i]) > 0 ? maxEnds[i - 1] : ends[i];
+            }
+        }
+
+        int size() {
+            return starts.length;
+        }
+
+        boolean contains(IPAddress address) {
+            int low = 0;
+            int high = starts.length - 1;
+            int lastStartBefore = -1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (starts[mid].compareTo(address) <= 0) {
+                    lastStartBefore = mid;
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return lastStartBefore >= 0 && maxEnds[lastStartBefore].compareTo(address) >= 0;
+        }
+
+        IPRanges add(IPAddress start, IPAddress end) {
+            if (indexOf(start, end) >= 0) {
+                return this;
+            }
+            int index = 0;
+            while (index < starts.length && starts[index].compareTo(start) <= 0) {
+                index++;
+            }
+            IPAddress[] newStarts = new IPAddress[starts.length + 1];
+            IPAddress[] newEnds = new IPAddress[ends.length + 1];
+            System.arraycopy(starts, 0, newStarts, 0, index);
+            System.arraycopy(ends, 0, newEnds, 0, index);
+            newStarts[index] = start;
+            newEnds[index] = end;
+            System.arraycopy(starts, index, newStarts, index + 1, starts.length - index);
+            System.arraycopy(ends, index, newEnds, index + 1, ends.length - index);
+            return new IPRanges(newStarts, newEnds);
+        }
+
+        /**
+         * Adds many ranges with a single sort of all the ranges, skipping the ranges which are already in the set.
+         */
+        IPRanges addAll(List<IPCondition> conditions) {
+            IPCondition[] sortedRanges = new IPCondition[starts.length + conditions.size()];
+            for (int i = 0; i < starts.length; i++) {
+                sortedRanges[i] = new IPCondition(ALL_TENANTS, starts[i], ends[i]);
+            }
+            int count = starts.length;
+            for (IPCondition condition : conditions) {
+                sortedRanges[count++] = condition;
+            }
+            Arrays.sort(sortedRanges, RANGE_ORDER);
+
+            IPAddress[] newStarts = new IPAddress[sortedRanges.length];
+            IPAddress[] newEnds = new IPAddress[sortedRanges.length];
+            int size = 0;
+            for (IPCondition range : sortedRanges) {
+                if (size > 0 && newStarts[size - 1].equals(range.start) && newEnds[size - 1].equals(range.end)) {
+                    continue;
+                }
+                newStarts[size] = range.start;
+                newEnds[size] = range.end;
+                size++;
+            }
+            return new IPRanges(Arrays.copyOf(newStarts, size), Arrays.copyOf(newEnds, size));
+        }
+
+        IPRanges remove(IPAddress start, IPAddress end) {
+            int index = indexOf(start, end);
+            if (index < 0) {
+                return this;
+            }
+            IPAddress[] newStarts = Arrays.copyOf(starts, starts.length - 1);
+            IPAddress[] newEnds = Arrays.copyOf(ends, ends.length - 1);
+            System.arraycopy(starts, index + 1, newStarts, index, starts.length - index - 1);
+            System.arraycopy(ends, index + 1, newEnds, index, ends.length - index - 1);
+            return new IPRanges(newStarts, newEnds);
+        }
+
+        private int indexOf(IPAddress start, IPAddress end) {
+            for (int i = 0; i < starts.length; i++) {
+                if (starts[i].equals(start) && ends[i].equals(end)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Parsed IP condition.
+     */
+    private static final class IPCondition {
+
+        private final String tenantDomain;
+        private final IPAddress start;
+        private final IPAddress end;
+
+        private IPCondition(String tenantDomain, IPAddress start, IPAddress end) {
+            this.tenantDomain = tenantDomain;
+            this.start = start;
+            this.end = end;
+        }
+
+        boolean isSingleAddress() {
+            return start.equals(end);
+        }
+
+        /**
+         * @return parsed condition, or null if the condition does not hold a valid IP address or CIDR range
+         */
+        static IPCondition parse(String condition) {
+            // An IPv6 address contains the key delimiter as well, so the value is first parsed without a tenant
+            IPCondition ipCondition = parse(ALL_TENANTS, condition);
+            if (ipCondition == null) {
+                int index = condition.indexOf(KEY_DELIMITER);
+                if (index > 0) {
+                    ipCondition = parse(condition.substring(0, index), condition.substring(index + 1));
+                }
+            }
+            return ipCondition;
+        }
+
+        private static IPCondition parse(String tenantDomain, String value) {
+            int index = value.indexOf(PREFIX_LENGTH_DELIMITER);
+            IPAddress address = IPAddress.parse(index < 0 ? value : value.substring(0, index));
+            if (address == null) {
+                return null;
+            }
+            if (index < 0) {
+                return new IPCondition(tenantDomain, address, address);
+            }
+            int prefixLength;
+            try {
+                prefixLength = Integer.parseInt(value.substring(index + 1).trim());
+            } catch (NumberFormatException e) {
+                return null;
+            }
+            if (prefixLength < 0 || prefixLength > address.getBitLength()) {
+                return null;
+            }
+            return new IPCondition(tenantDomain, address.getNetworkBoundary(prefixLength, false),
+                    address.getNetworkBoundary(prefixLength, true));
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.throttling;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Key template of a custom throttle policy, such as "$userId:$apiContext:$apiVersion". The template is parsed once
+ * into a list of literal and placeholder tokens when it is received, so that rendering the throttle key of a request
+ * is a single pass over the tokens, in a buffer reused by the thread, instead of a regex replacement per placeholder.
+ */
+public class KeyTemplate {
+
+    private static final String[] PLACEHOLDERS = {"$resourceKey", "$userId", "$apiContext", "$apiVersion",
+            "$appTenant", "$apiTenant", "$appId"};
+    private static final int RESOURCE_KEY = 0;
+    private static final int USER_ID = 1;
+    private static final int API_CONTEXT = 2;
+    private static final int API_VERSION = 3;
+    private static final int APP_TENANT = 4;
+    private static final int API_TENANT = 5;
+    private static final int APP_ID = 6;
+    private static final int LITERAL = -1;
+    private static final int INITIAL_KEY_BUFFER_SIZE = 128;
+
+    private static final ThreadLocal<StringBuilder> keyBuffer = ThreadLocal.withInitial(
+            () -> new StringBuilder(INITIAL_KEY_BUFFER_SIZE));
+
+    private final String template;
+    // Each token is either a literal (tokenTypes[i] == LITERAL) or one of the placeholders
+    private final int[] tokenTypes;
+    private final String[] literals;
+
+    public KeyTemplate(String template) {
+        this.template = template;
+        List<String> literalList = new ArrayList<>();
+        List<Integer> typeList = new ArrayList<>();
+        int literalStart = 0;
+        int index = template.indexOf('$');
+        while (index >= 0) {
+            int placeholder = matchPlaceholder(template, index);
+            if (placeholder != LITERAL) {
+                if (index > literalStart) {
+                    typeList.add(LITERAL);
+                    literalList.add(template.substring(literalStart, index));
+                }
+                typeList.add(placeholder);
+                literalList.add(null);
+                literalStart = index + PLACEHOLDERS[placeholder].length();
+                index = template.indexOf('$', literalStart);
+            } else {
+                index = template.indexOf('$', index + 1);
+            }
+        }
+        if (literalStart < template.length()) {
+            typeList.add(LITERAL);
+            literalList.add(template.substring(literalStart));
+        }
+
+        tokenTypes = new int[typeList.size()];
+        for (int i = 0; i < tokenTypes.length; i++) {
+            tokenTypes[i] = typeList.get(i);
+        }
+        literals = literalList.toArray(new String[literalList.size()]);
+    }
+
+    /**
+     * Builds the throttle key of the request by replacing the placeholders of the template with the given values.
+     * The key is built in a buffer reused by the current thread.
+     *
+     * @return throttle key of the request
+     */
+    public String render(String resourceKey, String userId, String apiContext, String apiVersion, String appTenant,
+                         String apiTenant, String appId) {
+        StringBuilder buffer = keyBuffer.get();
+        buffer.setLength(0);
+        for (int i = 0; i < tokenTypes.length; i++) {
+            switch (tokenTypes[i]) {
+                case RESOURCE_KEY:
+                    buffer.append(resourceKey);
+                    break;
+                case USER_ID:
+                    buffer.append(userId);
+                    break;
+                case API_CONTEXT:
+                    buffer.append(apiContext);
+                    break;
+                case API_VERSION:
+                    buffer.append(apiVersion);
+                    break;
+                case APP_TENANT:
+                    buffer.append(appTenant);
+                    break;
+                case API_TENANT:
+                    buffer.append(apiTenant);
+                    break;
+                case APP_ID:
+                    buffer.append(appId);
+                    break;
+                default:
+                    buffer.append(literals[i]);
+            }
+        }
+        return buffer.toString();
+    }
+
+    public String getTemplate() {
+        return template;
+    }
+
+    private static int matchPlaceholder(String template, int index) {
+        for (int i = 0; i < PLACEHOLDERS.length; i++) {
+            if (template.startsWith(PLACEHOLDERS[i], index)) {
+                return i;
+            }
+        }
+        return LITERAL;
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.throttling;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rate limiter used by the gateway to enforce limits locally, without waiting for a decision from the traffic
+ * manager. This is used for hard limits (maximum TPS of the backend) and subscription level spike arrest.
+ * <p>
+ * Each key has a token bucket, which holds as many tokens as the limit and is refilled at the rate of the limit per
+ * unit time. A request takes a token and is rejected if the bucket is empty. Unlike a fixed window, which admits up
+ * to twice the limit around the boundary of two windows, at most the limit is admitted at once, and requests beyond
+ * that are admitted evenly spaced at the rate of the limit. A key which has been idle for a unit time can still be
+ * admitted the limit at once and then the tokens refilled during that unit time, so up to twice the limit less one
+ * request can be admitted within the first unit time after an idle period; the sustained rate never exceeds the
+ * limit.
+ * <p>
+ * The bucket is kept as the time at which it will be full again (the generic cell rate algorithm), in a single
+ * {@link AtomicLong} per key, which is updated using compare and set, so that no lock is taken on the request path.
+ * Buckets of keys which are full are removed periodically, by a cleanup thread shared by all the rate limiters until
+ * they are shut down.
+ */
+public class LocalRateLimiter {
+
+    private static final Logger log = LoggerFactory.getLogger(LocalRateLimiter.class);
+
+    private static final long CLEANUP_INTERVAL_MILLIS = 60000;
+
+    private static final ScheduledThreadPoolExecutor cleanupScheduler = createCleanupScheduler();
+
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final String name;
+    private final ScheduledFuture<?> cleanupTask;
+
+    /**
+     * @param name name of the limiter, used when logging the cleanup of its buckets
+     */
+    public LocalRateLimiter(String name) {
+        this.name = name;
+        cleanupTask = cleanupScheduler.scheduleWithFixedDelay(() -> removeIdleBuckets(System.currentTimeMillis()),
+                CLEANUP_INTERVAL_MILLIS, CLEANUP_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private static ScheduledThreadPoolExecutor createCleanupScheduler() {
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "RateLimiterCleanup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Shut down limiters should not be held by the scheduler until their next cleanup time
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
+    }
+
+    /**
+     * Stops removing idle buckets of this limiter. The limiter should not be used after it is shut down.
+     */
+    public void shutdown() {
+        cleanupTask.cancel(false);
+        buckets.clear();
+    }
+
+    /**
+     * Takes a token for a request from the bucket of the given key, if one is available.
+     *
+     * @param key            key to count the request against, such as the subscription level throttle key
+     * @param limit          maximum number of requests allowed per unit time. No limit is applied if this is
+     *                       zero or negative
+     * @param unitTimeMillis unit time in milliseconds
+     * @return true if the request is allowed, false if the limit has been reached
+     */
+    public boolean tryAcquire(String key, long limit, long unitTimeMillis) {
+        return tryAcquire(key, limit, unitTimeMillis, System.currentTimeMillis());
+    }
+
+    boolean tryAcquire(String key, long limit, long unitTimeMillis, long currentTime) {
+        if (limit <= 0 || unitTimeMillis <= 0) {
+            return true;
+        }
+        TokenBucket bucket = buckets.get(key);
+        if (bucket == null || bucket.unitTimeMillis != unitTimeMillis) {
+            bucket = buckets.compute(key, (k, existing) -> existing != null
+                    && existing.unitTimeMillis == unitTimeMillis ? existing : new TokenBucket(unitTimeMillis));
+        }
+        return bucket.tryAcquire(limit, TimeUnit.MILLISECONDS.toNanos(currentTime));
+    }
+
+    /**
+     * Removes the buckets which are full, as those would admit the next request anyway.
+     *
+     * @param currentTime current time in milliseconds
+     */
+    void removeIdleBuckets(long currentTime) {
+        try {
+            long now = TimeUnit.MILLISECONDS.toNanos(currentTime);
+            int removedBuckets = 0;
+            for (Iterator<TokenBucket> iterator = buckets.values().iterator(); iterator.hasNext(); ) {
+                if (iterator.next().isFull(now)) {
+                    iterator.remove();
+                    removedBuckets++;
+                }
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("Removed " + removedBuckets + " idle buckets from rate limiter " + name);
+            }
+        } catch (RuntimeException e) {
+            // Catching all the runtime exceptions, as the scheduler stops running the task if one is thrown
+            log.error("Error while removing idle buckets from rate limiter " + name, e);
+        }
+    }
+
+    int getBucketCount() {
+        return buckets.size();
+    }
+
+    /**
+     * Token bucket of a key. The state holds the time in nanoseconds at which the bucket will be full again, which
+     * moves forward by the interval between two tokens for each request admitted.
+     */
+    private static final class TokenBucket {
+
+        private final AtomicLong fullAt = new AtomicLong();
+        private final long unitTimeMillis;
+
+        private TokenBucket(long unitTimeMillis) {
+            this.unitTimeMillis = unitTimeMillis;
+        }
+
+        private boolean tryAcquire(long limit, long now) {
+            long unitTimeNanos = TimeUnit.MILLISECONDS.toNanos(unitTimeMillis);
+            long tokenInterval = Math.max(unitTimeNanos / limit, 1);
+            // The bucket is empty once it is a full unit time away from being full
+            long emptyAfter = unitTimeNanos - tokenInterval;
+            while (true) {
+                long current = fullAt.get();
+                // A request with an older clock reading than the last one takes a token as of the last request
+                long start = Math.max(current, now);
+                if (start - now > emptyAfter) {
+                    return false;
+                }
+                if (fullAt.compareAndSet(current, start + tokenInterval)) {
+                    return true;
+                }
+            }
+        }
+
+        private boolean isFull(long now) {
+            return fullAt.get() <= now;
+        }
+    }
+}
@@ -24,14 +24,14 @@ import org.wso2.carbon.apimgt.gateway.throttling.constants.APIThrottleConstants;
 import org.wso2.carbon.apimgt.gateway.throttling.dto.AuthenticationContextDTO;
 import org.wso2.carbon.apimgt.gateway.throttling.dto.ConditionDTO;
 import org.wso2.carbon.apimgt.gateway.throttling.dto.ConditionGroupDTO;
-import org.wso2.carbon.apimgt.gateway.throttling.utils.GatewayUtils;
+import org.wso2.carbon.apimgt.gateway.throttling.utils.IPAddress;
+import org.wso2.carbon.apimgt.gateway.throttling.utils.RequestAttributes;
 import org.wso2.carbon.messaging.CarbonMessage;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
@@ -71,11 +71,13 @@ public class ThrottleConditionEvaluator {
 
         ArrayList<ConditionGroupDTO> matchingConditions = new ArrayList<>(inputConditionGroups.length);
         ConditionGroupDTO defaultGroup = null;
+        RequestAttributes requestAttributes = RequestAttributes.get(carbonMessage);
 
         for (ConditionGroupDTO conditionGroup : inputConditionGroups) {
-            if (APIThrottleConstants.THROTTLE_POLICY_DEFAULT.equals(conditionGroup.getConditionGroupId())) {
+            if (conditionGroup.isDefaultGroup()) {
                 defaultGroup = conditionGroup;
-            } else if (isConditionGroupApplicable(carbonMessage, authenticationContext, conditionGroup)) {
+            } else if (isConditionGroupApplicable(carbonMessage, requestAttributes, authenticationContext,
+                    conditionGroup)) {
                 matchingConditions.add(conditionGroup);
             }
         }
@@ -88,20 +90,22 @@ public class ThrottleConditionEvaluator {
         return matchingConditions;
     }
 
-    private boolean isConditionGroupApplicable(CarbonMessage carbonMessage, AuthenticationContextDTO
-            authenticationContext, ConditionGroupDTO conditionGroup) {
+    private boolean isConditionGroupApplicable(CarbonMessage carbonMessage, RequestAttributes requestAttributes,
+                                               AuthenticationContextDTO authenticationContext,
+                                               ConditionGroupDTO conditionGroup) {
 
-        ConditionDTO[] conditions = conditionGroup.getConditions();
+        int conditionCount = conditionGroup.getConditionCount();
 
         boolean evaluationState = true;
 
-        if (conditions.length == 0) {
+        if (conditionCount == 0) {
             evaluationState = false;
         }
 
         // When multiple conditions have been specified, all the conditions should occur.
-        for (ConditionDTO condition : conditions) {
-            evaluationState = evaluationState & isConditionApplicable(carbonMessage, authenticationContext, condition);
+        for (int i = 0; i < conditionCount; i++) {
+            evaluationState = evaluationState & isConditionApplicable(carbonMessage, requestAttributes,
+                    authenticationContext, conditionGroup.getCondition(i));
 
             // If one of the conditions are false, rest will evaluate to false. So no need to check the rest.
             if (!evaluationState) {
@@ -111,28 +115,28 @@ public class ThrottleConditionEvaluator {
         return evaluationState;
     }
 
-    private boolean isConditionApplicable(CarbonMessage carbonMessage, AuthenticationContextDTO
-            authenticationContext, ConditionDTO condition) {
+    private boolean isConditionApplicable(CarbonMessage carbonMessage, RequestAttributes requestAttributes,
+                                          AuthenticationContextDTO authenticationContext, ConditionDTO condition) {
 
         boolean state = false;
-        switch (condition.getConditionType()) {
-            case APIThrottleConstants.IP_RANGE_TYPE: {
-                state = isWithinIP(carbonMessage, condition);
+        switch (condition.getConditionTypeCode()) {
+            case ConditionDTO.IP_RANGE_CONDITION: {
+                state = isWithinIP(requestAttributes, condition);
                 break;
             }
-            case APIThrottleConstants.IP_SPECIFIC_TYPE: {
-                state = isMatchingIP(carbonMessage, condition);
+            case ConditionDTO.IP_SPECIFIC_CONDITION: {
+                state = isMatchingIP(requestAttributes, condition);
                 break;
             }
-            case APIThrottleConstants.QUERY_PARAMETER_TYPE: {
-                state = isQueryParamPresent(carbonMessage, condition);
+            case ConditionDTO.QUERY_PARAMETER_CONDITION: {
+                state = isQueryParamPresent(requestAttributes, condition);
                 break;
             }
-            case APIThrottleConstants.JWT_CLAIMS_TYPE: {
-                state = isJWTClaimPresent(authenticationContext, condition);
+            case ConditionDTO.JWT_CLAIMS_CONDITION: {
+                state = isJWTClaimPresent(requestAttributes, authenticationContext, condition);
                 break;
             }
-            case APIThrottleConstants.HEADER_TYPE: {
+            case ConditionDTO.HEADER_CONDITION: {
                 state = isHeaderPresent(carbonMessage, condition);
                 break;
             }
@@ -153,35 +157,36 @@ public class ThrottleConditionEvaluator {
                 .getProperty(APIThrottleConstants.TRANSPORT_HEADERS);
         if (transportHeaderMap != null) {
             String value = transportHeaderMap.get(condition.getConditionName());
-            if (value == null) {
+            Pattern pattern = condition.getConditionValuePattern();
+            if (value == null || pattern == null) {
                 return false;
             }
-            Pattern pattern = Pattern.compile(condition.getConditionValue());
-            Matcher matcher = pattern.matcher(value);
-            return matcher.find();
+            return pattern.matcher(value).find();
         }
         return false;
     }
 
-    private boolean isJWTClaimPresent(AuthenticationContextDTO authenticationContext, ConditionDTO condition) {
-        Map assertions = GatewayUtils.getJWTClaims(authenticationContext);
+    private boolean isJWTClaimPresent(RequestAttributes requestAttributes,
+                                      AuthenticationContextDTO authenticationContext, ConditionDTO condition) {
+        Map assertions = requestAttributes.getJWTClaims(authenticationContext);
+        if (assertions == null) {
+            return false;
+        }
 
         Object value = assertions.get(condition.getConditionName());
         if (value == null) {
             return false;
         } else if (value instanceof String) {
-            String valueString = (String) value;
-            return valueString.matches(condition.getConditionValue());
+            Pattern pattern = condition.getConditionValuePattern();
+            return pattern != null && pattern.matcher((String) value).matches();
         } else {
             return false;
         }
     }
 
-    private boolean isQueryParamPresent(CarbonMessage messageContext, ConditionDTO condition) {
-
-        Map<String, String> queryParamMap = GatewayUtils.getQueryParams(messageContext);
+    private boolean isQueryParamPresent(RequestAttributes requestAttributes, ConditionDTO condition) {
 
-        String value = queryParamMap.get(condition.getConditionName());
+        String value = requestAttributes.getQueryParam(condition.getConditionName());
 
         if (value == null) {
             return false;
@@ -189,22 +194,22 @@ public class ThrottleConditionEvaluator {
         return value.equals(condition.getConditionValue());
     }
 
-    private boolean isMatchingIP(CarbonMessage messageContext, ConditionDTO condition) {
-        String currentIpString = GatewayUtils.getIp(messageContext);
+    private boolean isMatchingIP(RequestAttributes requestAttributes, ConditionDTO condition) {
+        String currentIpString = requestAttributes.getClientIp();
+        if (currentIpString == null || currentIpString.isEmpty()) {
+            return false;
+        }
+        IPAddress conditionIp = condition.getStartingIP();
+        IPAddress currentIp = requestAttributes.getClientIpAddress();
+        if (conditionIp != null && currentIp != null) {
+            // Compared numerically, so different notations of the same IPv6 address match
+            return conditionIp.equals(currentIp);
+        }
         return currentIpString.equals(condition.getConditionValue());
     }
 
-    private boolean isWithinIP(CarbonMessage messageContext, ConditionDTO condition) {
-        // For an IP Range Condition, starting IP is set as a the name, ending IP as the value.
-        long startIp = GatewayUtils.ipToLong(condition.getConditionName());
-        long endIp = GatewayUtils.ipToLong(condition.getConditionValue());
-
-        String currentIpString = GatewayUtils.getIp(messageContext);
-        if (!currentIpString.isEmpty()) {
-            long currentIp = GatewayUtils.ipToLong(currentIpString);
-
-            return startIp <= currentIp && endIp >= currentIp;
-        }
-        return false;
+    private boolean isWithinIP(RequestAttributes requestAttributes, ConditionDTO condition) {
+        IPAddress currentIp = requestAttributes.getClientIpAddress();
+        return currentIp != null && currentIp.isInRange(condition.getStartingIP(), condition.getEndingIP());
     }
 }
@@ -20,44 +20,92 @@ package org.wso2.carbon.apimgt.gateway.throttling;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.wso2.carbon.apimgt.gateway.throttling.utils.IPAddress;
 
+import java.util.Collection;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This class will hold throttle data per given node. All throttle handler objects should refer values from this.
  * When throttle data holder initialize it should read complete throttle decision table from global policy engine
  * via web service calls. In addition to that it should subscribe to topic and listen throttle updates.
+ * Throttle keys are removed in the background once they expire, see {@link ThrottleKeyExpiryWheel}.
+ * <p>
+ * While the connection to the topic is down, the data is marked as stale, as the updates published in the meantime
+ * are not received. It is replaced with the complete throttle state once the connection is restored.
  */
 public class ThrottleDataHolder {
 
     private static final Logger log = LoggerFactory.getLogger(ThrottleDataHolder.class);
-    private Map<String, String> blockedAPIConditionsMap = new ConcurrentHashMap<String, String>();
-    private Map<String, String> blockedApplicationConditionsMap = new ConcurrentHashMap<String, String>();
-    private Map<String, String> blockedUserConditionsMap = new ConcurrentHashMap<String, String>();
-    private Map<String, String> blockedIpConditionsMap = new ConcurrentHashMap<String, String>();
-    private Map<String, String> keyTemplateMap = new ConcurrentHashMap<String, String>();
+    private static final long EXPIRY_CHECK_INTERVAL_MILLIS = 1000;
+    private volatile BlockingConditionIndex blockingConditions = new BlockingConditionIndex();
+    private volatile Map<String, KeyTemplate> keyTemplateMap = new ConcurrentHashMap<String, KeyTemplate>();
     private Map<String, Long> throttleDataMap = new ConcurrentHashMap<String, Long>();
     private Map<String, Long> throttledAPIKeysMap = new ConcurrentHashMap<String, Long>();
-    private boolean isBlockingConditionsPresent = false;
     private boolean isKeyTemplatesPresent = false;
+    private volatile long staleSince = 0;
+    private final ThrottleKeyExpiryWheel throttleDataExpiryWheel =
+            new ThrottleKeyExpiryWheel(throttleDataMap, EXPIRY_CHECK_INTERVAL_MILLIS);
+    private final ThrottleKeyExpiryWheel throttledAPIKeysExpiryWheel =
+            new ThrottleKeyExpiryWheel(throttledAPIKeysMap, EXPIRY_CHECK_INTERVAL_MILLIS);
 
     private static final ThrottleDataHolder instance = new ThrottleDataHolder();
 
+    private ThrottleDataHolder() {
+        ScheduledExecutorService expiryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ThrottleDataExpiryScheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        expiryScheduler.scheduleWithFixedDelay(this::removeExpiredThrottleData, EXPIRY_CHECK_INTERVAL_MILLIS,
+                EXPIRY_CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
     public static ThrottleDataHolder getInstance() {
         return instance;
     }
 
     public void addThrottleData(String key, Long value) {
         throttleDataMap.put(key, value);
+        throttleDataExpiryWheel.schedule(key, value);
     }
 
     public void addThrottleDataFromMap(Map<String, Long> data) {
-        throttleDataMap.putAll(data);
+        for (Map.Entry<String, Long> entry : data.entrySet()) {
+            addThrottleData(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Replaces the throttled keys with the given keys. Keys which are not in the given maps are removed, and keys
+     * which have already expired are ignored.
+     *
+     * @param throttleKeys     throttled keys with the time their throttle window expires at
+     * @param throttledAPIKeys throttled API and resource keys with the time their throttle window expires at
+     */
+    public void replaceThrottleData(Map<String, Long> throttleKeys, Map<String, Long> throttledAPIKeys) {
+        long currentTime = System.currentTimeMillis();
+        throttleDataMap.keySet().retainAll(throttleKeys.keySet());
+        for (Map.Entry<String, Long> entry : throttleKeys.entrySet()) {
+            if (entry.getValue() != null && entry.getValue() >= currentTime) {
+                addThrottleData(entry.getKey(), entry.getValue());
+            }
+        }
+        throttledAPIKeysMap.keySet().retainAll(throttledAPIKeys.keySet());
+        for (Map.Entry<String, Long> entry : throttledAPIKeys.entrySet()) {
+            if (entry.getValue() != null && entry.getValue() >= currentTime) {
+                addThrottledAPIKey(entry.getKey(), entry.getValue());
+            }
+        }
     }
 
     public void addThrottledAPIKey(String key, Long value) {
         throttledAPIKeysMap.put(key, value);
+        throttledAPIKeysExpiryWheel.schedule(key, value);
     }
 
     public void removeThrottledAPIKey(String key) {
@@ -65,19 +113,7 @@ public class ThrottleDataHolder {
     }
 
     public boolean isAPIThrottled(String apiKey) {
-        boolean isThrottled = this.throttledAPIKeysMap.containsKey(apiKey);
-        if (isThrottled) {
-            long currentTime = System.currentTimeMillis();
-            long timestamp = this.throttledAPIKeysMap.get(apiKey);
-            if (timestamp >= currentTime) {
-                return isThrottled;
-            } else {
-                this.throttledAPIKeysMap.remove(apiKey);
-                return false;
-            }
-        } else {
-            return isThrottled;
-        }
+        return isThrottled(throttledAPIKeysMap, apiKey);
     }
 
     public void removeThrottleData(String key) {
@@ -85,103 +121,155 @@ public class ThrottleDataHolder {
     }
 
     public void addAPIBlockingCondition(String name, String value) {
-        isBlockingConditionsPresent = true;
-        blockedAPIConditionsMap.put(name, value);
+        blockingConditions.addAPICondition(name);
     }
 
     public void addApplicationBlockingCondition(String name, String value) {
-        isBlockingConditionsPresent = true;
-        blockedApplicationConditionsMap.put(name, value);
+        blockingConditions.addApplicationCondition(name);
     }
 
-
     public void addUserBlockingCondition(String name, String value) {
-        isBlockingConditionsPresent = true;
-        blockedUserConditionsMap.put(name, value);
+        blockingConditions.addUserCondition(name);
     }
 
+    /**
+     * Adds an IP blocking condition, which may be a single IP or a CIDR range.
+     *
+     * @param name  IP condition, such as {tenantDomain}:{ip} or {tenantDomain}:{ip}/{prefixLength}
+     * @param value value of the condition
+     */
     public void addIplockingCondition(String name, String value) {
-        isBlockingConditionsPresent = true;
-        blockedIpConditionsMap.put(name, value);
+        if (!blockingConditions.addIPCondition(name)) {
+            log.warn("Ignoring the IP blocking condition " + name + " as it is not a valid IP address or range");
+        }
     }
 
     public void addUserBlockingConditionsFromMap(Map<String, String> data) {
-        if (data.size() > 0) {
-            blockedUserConditionsMap.putAll(data);
-            isBlockingConditionsPresent = true;
+        for (String name : data.keySet()) {
+            addUserBlockingCondition(name, data.get(name));
         }
     }
 
     public void addIplockingConditionsFromMap(Map<String, String> data) {
-        if (data.size() > 0) {
-            blockedIpConditionsMap.putAll(data);
-            isBlockingConditionsPresent = true;
+        for (String name : data.keySet()) {
+            addIplockingCondition(name, data.get(name));
         }
     }
 
     public void addAPIBlockingConditionsFromMap(Map<String, String> data) {
-        if (data.size() > 0) {
-            blockedAPIConditionsMap.putAll(data);
-            isBlockingConditionsPresent = true;
+        for (String name : data.keySet()) {
+            addAPIBlockingCondition(name, data.get(name));
         }
     }
 
     public void addApplicationBlockingConditionsFromMap(Map<String, String> data) {
-        if (data.size() > 0) {
-            blockedApplicationConditionsMap.putAll(data);
-            isBlockingConditionsPresent = true;
+        for (String name : data.keySet()) {
+            addApplicationBlockingCondition(name, data.get(name));
         }
     }
 
-    public void removeAPIBlockingCondition(String name) {
-        blockedAPIConditionsMap.remove(name);
-        if (isAnyBlockedMapContainsData()) {
-            isBlockingConditionsPresent = true;
-        } else {
-            isBlockingConditionsPresent = false;
+    /**
+     * Replaces all the blocking conditions. The new conditions are indexed before they replace the current ones, so
+     * that requests are checked against either the old or the new conditions, and never against none.
+     *
+     * @param apiConditions         API contexts
+     * @param applicationConditions application conditions in the form {subscriber}:{application name}
+     * @param userConditions        users
+     * @param ipConditions          IP conditions in the form {tenantDomain}:{ip} or {tenantDomain}:{ip}/{prefixLength}
+     */
+    public void replaceBlockingConditions(Collection<String> apiConditions, Collection<String> applicationConditions,
+                                          Collection<String> userConditions, Collection<String> ipConditions) {
+        BlockingConditionIndex index = new BlockingConditionIndex();
+        apiConditions.forEach(index::addAPICondition);
+        applicationConditions.forEach(index::addApplicationCondition);
+        userConditions.forEach(index::addUserCondition);
+        for (String condition : index.addIPConditions(ipConditions)) {
+            log.warn("Ignoring the IP blocking condition " + condition + " as it is not a valid IP address or range");
         }
+        blockingConditions = index;
     }
 
-    public void removeApplicationBlockingCondition(String name) {
-        blockedApplicationConditionsMap.remove(name);
-        if (isAnyBlockedMapContainsData()) {
-            isBlockingConditionsPresent = true;
-        } else {
-            isBlockingConditionsPresent = false;
+    /**
+     * Adds the given blocking conditions to the current ones, which are kept.
+     *
+     * @param apiConditions         API contexts
+     * @param applicationConditions application conditions in the form {subscriber}:{application name}
+     * @param userConditions        users
+     * @param ipConditions          IP conditions in the form {tenantDomain}:{ip} or {tenantDomain}:{ip}/{prefixLength}
+     */
+    public void addBlockingConditions(Collection<String> apiConditions, Collection<String> applicationConditions,
+                                      Collection<String> userConditions, Collection<String> ipConditions) {
+        BlockingConditionIndex index = blockingConditions;
+        apiConditions.forEach(index::addAPICondition);
+        applicationConditions.forEach(index::addApplicationCondition);
+        userConditions.forEach(index::addUserCondition);
+        for (String condition : index.addIPConditions(ipConditions)) {
+            log.warn("Ignoring the IP blocking condition " + condition + " as it is not a valid IP address or range");
         }
     }
 
+    public void removeAPIBlockingCondition(String name) {
+        blockingConditions.removeAPICondition(name);
+    }
+
+    public void removeApplicationBlockingCondition(String name) {
+        blockingConditions.removeApplicationCondition(name);
+    }
 
     public void removeUserBlockingCondition(String name) {
-        blockedUserConditionsMap.remove(name);
-        if (isAnyBlockedMapContainsData()) {
-            isBlockingConditionsPresent = true;
-        } else {
-            isBlockingConditionsPresent = false;
-        }
+        blockingConditions.removeUserCondition(name);
     }
 
     public void removeIpBlockingCondition(String name) {
-        blockedIpConditionsMap.remove(name);
-        if (isAnyBlockedMapContainsData()) {
-            isBlockingConditionsPresent = true;
-        } else {
-            isBlockingConditionsPresent = false;
-        }
+        blockingConditions.removeIPCondition(name);
     }
 
+    /**
+     * Adds a key template of a custom policy. The template is parsed here once, so that requests only need to
+     * render it.
+     *
+     * @param key   key template
+     * @param value value of the key template
+     */
     public void addKeyTemplate(String key, String value) {
-        keyTemplateMap.put(key, value);
+        keyTemplateMap.put(key, new KeyTemplate(key));
         isKeyTemplatesPresent = true;
     }
 
     public void addKeyTemplateFromMap(Map<String, String> data) {
         if (data.size() > 0) {
-            keyTemplateMap.putAll(data);
+            for (String key : data.keySet()) {
+                keyTemplateMap.put(key, new KeyTemplate(key));
+            }
             isKeyTemplatesPresent = true;
         }
     }
 
+    /**
+     * Replaces all the key templates with the given templates.
+     *
+     * @param keyTemplates key templates
+     */
+    public void replaceKeyTemplates(Collection<String> keyTemplates) {
+        Map<String, KeyTemplate> templates = new ConcurrentHashMap<String, KeyTemplate>();
+        for (String keyTemplate : keyTemplates) {
+            templates.put(keyTemplate, new KeyTemplate(keyTemplate));
+        }
+        keyTemplateMap = templates;
+        isKeyTemplatesPresent = !templates.isEmpty();
+    }
+
+    /**
+     * Adds the given key templates to the current ones, which are kept.
+     *
+     * @param keyTemplates key templates
+     */
+    public void addKeyTemplates(Collection<String> keyTemplates) {
+        for (String keyTemplate : keyTemplates) {
+            addKeyTemplate(keyTemplate, keyTemplate);
+        }
+    }
+
     public void removeKeyTemplate(String name) {
         keyTemplateMap.remove(name);
         if (keyTemplateMap.size() > 0) {
@@ -191,16 +279,24 @@ public class ThrottleDataHolder {
         }
     }
 
-    public Map<String, String> getKeyTemplateMap() {
+    public Map<String, KeyTemplate> getKeyTemplateMap() {
         return keyTemplateMap;
     }
 
-    public boolean isRequestBlocked(String apiBlockingKey, String applicationBlockingKey, String userBlockingKey,
-                                    String ipBlockingKey) {
-        return (blockedAPIConditionsMap.containsKey(apiBlockingKey) ||
-                blockedApplicationConditionsMap.containsKey(applicationBlockingKey) ||
-                blockedUserConditionsMap.containsKey(userBlockingKey) ||
-                blockedIpConditionsMap.containsKey(ipBlockingKey));
+    /**
+     * Checks whether a request is blocked by any of the blocking conditions.
+     *
+     * @param apiContext      context of the API
+     * @param subscriber      subscriber of the application
+     * @param applicationName name of the application
+     * @param user            authorized user
+     * @param tenantDomain    tenant domain of the API
+     * @param clientIp        IP of the client, or null if it is not known
+     * @return true if the request is blocked
+     */
+    public boolean isRequestBlocked(String apiContext, String subscriber, String applicationName, String user,
+                                    String tenantDomain, IPAddress clientIp) {
+        return blockingConditions.isBlocked(apiContext, subscriber, applicationName, user, tenantDomain, clientIp);
     }
 
     /**
@@ -213,45 +309,90 @@ public class ThrottleDataHolder {
      * false if key is not there in throttle map(that means its not throttled).
      */
     public boolean isThrottled(String key) {
-        boolean isThrottled = this.throttleDataMap.containsKey(key);
-        if (isThrottled) {
-            long currentTime = System.currentTimeMillis();
-            long timestamp = this.throttleDataMap.get(key);
-            if (timestamp >= currentTime) {
-                return isThrottled;
-            } else {
-                this.throttleDataMap.remove(key);
-                return false;
-            }
-        } else {
-            return isThrottled;
+        return isThrottled(throttleDataMap, key);
+    }
+
+    /**
+     * Checks a key with a single lookup. An expired key is removed here as well, unless it has been updated in the
+     * meantime, so that it does not have to wait for the expiry scheduler.
+     */
+    private static boolean isThrottled(Map<String, Long> throttleKeys, String key) {
+        Long timestamp = throttleKeys.get(key);
+        if (timestamp == null) {
+            return false;
+        }
+        if (timestamp >= System.currentTimeMillis()) {
+            return true;
         }
+        throttleKeys.remove(key, timestamp);
+        return false;
+    }
+
+    /**
+     * @return true if there is at least one throttled key
+     */
+    public boolean isThrottleDataPresent() {
+        return !throttleDataMap.isEmpty();
     }
 
     /**
      * This method used to get the next access timestamp of a given key
      *
      * @param key String unique key of throttle event.
-     * @return throttle next access timestamp
+     * @return throttle next access timestamp, or 0 if the key is not throttled
      */
     public long getThrottleNextAccessTimestamp(String key) {
-        return this.throttleDataMap.get(key);
+        Long timestamp = this.throttleDataMap.get(key);
+        return timestamp != null ? timestamp : 0;
     }
 
-    public boolean isBlockingConditionsPresent() {
-        return isBlockingConditionsPresent;
+    /**
+     * Removes the throttle keys whose expiry time has passed. This is run periodically by the expiry scheduler.
+     */
+    void removeExpiredThrottleData() {
+        try {
+            long currentTime = System.currentTimeMillis();
+            int removedKeys = throttleDataExpiryWheel.expire(currentTime);
+            removedKeys += throttledAPIKeysExpiryWheel.expire(currentTime);
+            if (log.isDebugEnabled() && removedKeys > 0) {
+                log.debug("Removed " + removedKeys + " expired throttle keys");
+            }
+        } catch (RuntimeException e) {
+            // Catching all the runtime exceptions, as the scheduler stops running the task if one is thrown
+            log.error("Error while removing expired throttle keys", e);
+        }
     }
 
-    public void setBlockingConditionsPresent(boolean blockingConditionsPresent) {
-        isBlockingConditionsPresent = blockingConditionsPresent;
+    /**
+     * Marks the throttle data as stale, as updates may be missed from now on. This has no effect if the data is
+     * already stale.
+     */
+    public void markStale() {
+        if (staleSince == 0) {
+            staleSince = System.currentTimeMillis();
+        }
     }
 
-    private boolean isAnyBlockedMapContainsData() {
-        if (blockedAPIConditionsMap.size() > 0 || blockedIpConditionsMap.size() > 0
-                || blockedApplicationConditionsMap.size() > 0 || blockedUserConditionsMap.size() > 0) {
-            return true;
-        }
-        return false;
+    /**
+     * Marks the throttle data as up to date, once it has been replaced with the complete throttle state.
+     */
+    public void markUpToDate() {
+        staleSince = 0;
+    }
+
+    public boolean isStale() {
+        return staleSince != 0;
+    }
+
+    /**
+     * @return time the throttle data became stale at, or 0 if it is up to date
+     */
+    public long getStaleSince() {
+        return staleSince;
+    }
+
+    public boolean isBlockingConditionsPresent() {
+        return !blockingConditions.isEmpty();
     }
 
     public boolean isKeyTemplatesPresent() {
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.throttling;
+
+import feign.Feign;
+import feign.FeignException;
+import feign.RequestLine;
+import feign.gson.GsonDecoder;
+import feign.gson.GsonEncoder;
+import org.wso2.carbon.apimgt.gateway.http.FeignHttpClient;
+import org.wso2.carbon.apimgt.gateway.http.GatewayHttpClient;
+import org.wso2.carbon.apimgt.gateway.throttling.dto.ThrottleDataSnapshotDTO;
+
+import java.io.IOException;
+
+/**
+ * Http client to load the complete throttle state from the traffic manager.
+ */
+public final class ThrottleDataRetrievalClient {
+
+    private final ThrottleDataRetrievalService throttleDataRetrievalService;
+
+    public ThrottleDataRetrievalClient(String throttleDataBaseUrl) {
+        this(throttleDataBaseUrl, GatewayHttpClient.getInstance());
+    }
+
+    ThrottleDataRetrievalClient(String throttleDataBaseUrl, GatewayHttpClient httpClient) {
+        throttleDataRetrievalService = Feign.builder()
+                .client(new FeignHttpClient(httpClient))
+                .options(FeignHttpClient.getOptions(httpClient))
+                .encoder(new GsonEncoder())
+                .decoder(new GsonDecoder())
+                .target(ThrottleDataRetrievalService.class, throttleDataBaseUrl);
+    }
+
+    private interface ThrottleDataRetrievalService {
+        @RequestLine("GET /snapshot")
+        ThrottleDataSnapshotDTO getSnapshot();
+    }
+
+    /**
+     * @return throttled keys, blocking conditions and key templates currently held by the traffic manager
+     * @throws IOException if the throttle state could not be loaded
+     */
+    public ThrottleDataSnapshotDTO loadSnapshot() throws IOException {
+        try {
+            ThrottleDataSnapshotDTO snapshot = throttleDataRetrievalService.getSnapshot();
+            if (snapshot == null) {
+                throw new IOException("Empty throttle state received");
+            }
+            return snapshot;
+        } catch (FeignException e) {
+            throw new IOException("Unable to load the throttle state", e);
+        }
+    }
+}
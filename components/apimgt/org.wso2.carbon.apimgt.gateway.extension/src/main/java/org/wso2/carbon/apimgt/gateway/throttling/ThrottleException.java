@@ -25,6 +25,10 @@ import org.wso2.carbon.apimgt.core.exception.APIManagementException;
  */
 public class ThrottleException extends APIManagementException {
 
+    public ThrottleException(String message) {
+        super(message);
+    }
+
     public ThrottleException(Throwable cause) {
         super(cause);
     }
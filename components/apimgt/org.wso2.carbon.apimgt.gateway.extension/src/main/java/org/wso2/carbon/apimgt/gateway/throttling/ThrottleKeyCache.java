@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.apimgt.gateway.throttling;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Caches the throttle keys of a resource that do not depend on the user of a request, such as
+ * {apiContext}:{apiVersion} or {resourceKey}{conditionGroupId}, so that they are built only the first time they are
+ * seen. Subsequent requests get back the same String instance, which also means its hash code is computed only once
+ * for all the throttle map lookups.
+ * <p>
+ * Keys are cached by their parts and the delimiter, and looked up using parts reused by each thread, so that a lookup
+ * does not allocate. The cache is bounded, and keys are no longer cached once it reaches the maximum number of
+ * entries. Keys that include the user or application of a request have too many values to be cached, so they are
+ * built by {@link #buildKey(String, String, String)} for each request.
+ */
+public class ThrottleKeyCache {
+
+    private static final int DEFAULT_MAX_ENTRIES = 100;
+    private static final String NULL = "null";
+
+    private static final ThreadLocal<KeyParts> lookupParts = ThreadLocal.withInitial(KeyParts::new);
+
+    private final ConcurrentMap<KeyParts, String> keys = new ConcurrentHashMap<>();
+    private final int maxEntries;
+
+    public ThrottleKeyCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    public ThrottleKeyCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Returns the key {first}{delimiter}{second}. Null parts are treated as "null", the same way string
+     * concatenation would treat them.
+     *
+     * @param first     first part of the key
+     * @param delimiter delimiter placed between the two parts
+     * @param second    second part of the key
+     * @return cached key
+     */
+    public String getKey(String first, String delimiter, String second) {
+        KeyParts parts = lookupParts.get().set(first, delimiter, second);
+        String key = keys.get(parts);
+        if (key != null) {
+            return key;
+        }
+
+        key = buildKey(parts.first, parts.delimiter, parts.second);
+        if (keys.size() >= maxEntries) {
+            return key;
+        }
+        String existingKey = keys.putIfAbsent(new KeyParts().set(first, delimiter, second), key);
+        return existingKey != null ? existingKey : key;
+    }
+
+    /**
+     * Builds the key {first}{delimiter}{second} without caching it. Null parts are treated as "null".
+     *
+     * @param first     first part of the key
+     * @param delimiter delimiter placed between the two parts
+     * @param second    second part of the key
+     * @return key
+     */
+    public static String buildKey(String first, String delimiter, String second) {
+        return first + delimiter + second;
+    }
+
+    /**
+     * Removes all the cached keys.
+     */
+    public void clear() {
+        keys.clear();
+    }
+
+    /**
+     * @return number of keys in the cache
+     */
+    public long size() {
+        return keys.size();
+    }
+
+    /**
+     * Parts a key is composed of. The hash codes of the parts are cached by the Strings, so hashing the parts is
+     * cheaper than building the key. Parts used as a cache entry are never modified after they are set.
+     */
+    private static final class KeyParts {
+        private String first;
+        private String delimiter;
+        private String second;
+        private int hashCode;
+
+        private KeyParts set(String first, String delimiter, String second) {
+            this.first = first != null ? first : NULL;
+            this.delimiter = delimiter != null ? delimiter : NULL;
+            this.second = second != null ? second : NULL;
+            this.hashCode = 31 * (31 * this.first.hashCode() + this.delimiter.hashCode()) + this.second.hashCode();
+            return this;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof KeyParts)) {
+                return false;
+            }
+            KeyParts that = (KeyParts) other;
+            return first.equals(that.first) && delimiter.equals(that.delimiter) && second.equals(that.second);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
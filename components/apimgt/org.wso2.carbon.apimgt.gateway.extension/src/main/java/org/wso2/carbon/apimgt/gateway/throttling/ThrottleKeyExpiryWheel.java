@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.throttling;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Removes expired keys from a throttle key map. Each key added to the map is also placed in the time bucket
+ * (tick) that follows its expiry time, and {@link #expire(long)} is run periodically to go through the buckets
+ * which have elapsed. A key is held in one bucket at a time, so a key which is updated with a later expiry time is
+ * moved to the bucket of that time. A key is removed only if its expiry time in the map has elapsed.
+ * <p>
+ * This makes sure that keys which are never read again are removed, instead of staying in the map until they are
+ * looked up. Readers still check the expiry time of a key, so a key is never considered throttled after its expiry
+ * time even if it has not been removed yet.
+ */
+class ThrottleKeyExpiryWheel {
+
+    private final ConcurrentSkipListMap<Long, Bucket> buckets = new ConcurrentSkipListMap<>();
+    // Tick of the bucket each key is held in
+    private final Map<String, Long> scheduledTicks = new ConcurrentHashMap<>();
+    private final Map<String, Long> keys;
+    private final long tickMillis;
+
+    /**
+     * @param keys       throttle key map, from key to expiry timestamp in milliseconds
+     * @param tickMillis size of a time bucket in milliseconds
+     */
+    ThrottleKeyExpiryWheel(Map<String, Long> keys, long tickMillis) {
+        this.keys = keys;
+        this.tickMillis = tickMillis;
+    }
+
+    /**
+     * Schedules removal of the given key once the expiry time has elapsed. The key is moved out of the bucket it was
+     * scheduled in before, unless the expiry time falls in the same bucket.
+     *
+     * @param key        throttle key
+     * @param expiryTime expiry timestamp of the key in milliseconds
+     */
+    void schedule(String key, long expiryTime) {
+        long tick = expiryTime / tickMillis + 1;
+        Long previousTick = scheduledTicks.put(key, tick);
+        if (previousTick != null) {
+            if (previousTick == tick) {
+                return;
+            }
+            Bucket previousBucket = buckets.get(previousTick);
+            if (previousBucket != null) {
+                previousBucket.remove(key);
+            }
+        }
+        Bucket bucket;
+        do {
+            // A bucket is removed before it is drained, so a new bucket is created if the key could not be added
+            bucket = buckets.computeIfAbsent(tick, t -> new Bucket());
+        } while (!bucket.add(key));
+    }
+
+    /**
+     * Removes the keys of all the elapsed buckets whose expiry time has passed.
+     *
+     * @param currentTime current time in milliseconds
+     * @return number of keys removed from the throttle key map
+     */
+    int expire(long currentTime) {
+        int removedKeys = 0;
+        long currentTick = currentTime / tickMillis;
+        Map.Entry<Long, Bucket> bucket = buckets.firstEntry();
+        while (bucket != null && bucket.getKey() <= currentTick) {
+            long tick = bucket.getKey();
+            buckets.remove(tick, bucket.getValue());
+            for (String key : bucket.getValue().drain()) {
+                if (!scheduledTicks.remove(key, tick)) {
+                    // Moved to the bucket of a later expiry time
+                    continue;
+                }
+                Long expiryTime = keys.get(key);
+                if (expiryTime == null) {
+                    continue;
+                }
+                if (expiryTime < currentTime) {
+                    if (keys.remove(key, expiryTime)) {
+                        removedKeys++;
+                    }
+                } else {
+                    schedule(key, expiryTime);
+                }
+            }
+            bucket = buckets.firstEntry();
+        }
+        return removedKeys;
+    }
+
+    /**
+     * @return number of time buckets which are yet to elapse
+     */
+    int getPendingBucketCount() {
+        return buckets.size();
+    }
+
+    /**
+     * @return number of keys which are scheduled to be removed
+     */
+    int getScheduledKeyCount() {
+        return scheduledTicks.size();
+    }
+
+    /**
+     * Keys of a time bucket. Keys are not added once the bucket is drained, so that a key added while the bucket is
+     * being expired is not lost.
+     */
+    private static final class Bucket {
+        private Set<String> keys = new HashSet<>();
+
+        synchronized boolean add(String key) {
+            if (keys == null) {
+                return false;
+            }
+            keys.add(key);
+            return true;
+        }
+
+        synchronized void remove(String key) {
+            if (keys != null) {
+                keys.remove(key);
+            }
+        }
+
+        synchronized List<String> drain() {
+            if (keys == null) {
+                return new ArrayList<>();
+            }
+            List<String> drainedKeys = new ArrayList<>(keys);
+            keys = null;
+            return drainedKeys;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.throttling;
+
+/**
+ * This class is used to keep the configurations of the receiver of the throttle decisions published by the traffic
+ * manager
+ */
+public class ThrottleReceiverConfiguration {
+
+    private String topicName = "throttleData";
+    private String topicServerHost = "localhost";
+    private String topicServerPort = "5672";
+    private String username = "admin";
+    private String password = "admin";
+
+    private long initialRetryIntervalMillis = 1000;
+    private long maxRetryIntervalMillis = 60000;
+
+    // The throttle state is served by the API manager core, which keeps the throttle messages it receives. It only
+    // knows the blocking conditions and key templates published since it subscribed, so loading it is off by default
+    private boolean resyncEnabled = false;
+    private String throttleDataUrl = "https://localhost:9292/api/am/core/v1/throttle";
+
+    public String getTopicName() {
+        return topicName;
+    }
+
+    public void setTopicName(String topicName) {
+        this.topicName = topicName;
+    }
+
+    public String getTopicServerHost() {
+        return topicServerHost;
+    }
+
+    public void setTopicServerHost(String topicServerHost) {
+        this.topicServerHost = topicServerHost;
+    }
+
+    public String getTopicServerPort() {
+        return topicServerPort;
+    }
+
+    public void setTopicServerPort(String topicServerPort) {
+        this.topicServerPort = topicServerPort;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+
+    public long getInitialRetryIntervalMillis() {
+        return initialRetryIntervalMillis;
+    }
+
+    public void setInitialRetryIntervalMillis(long initialRetryIntervalMillis) {
+        this.initialRetryIntervalMillis = initialRetryIntervalMillis;
+    }
+
+    public long getMaxRetryIntervalMillis() {
+        return maxRetryIntervalMillis;
+    }
+
+    public void setMaxRetryIntervalMillis(long maxRetryIntervalMillis) {
+        this.maxRetryIntervalMillis = maxRetryIntervalMillis;
+    }
+
+    public boolean isResyncEnabled() {
+        return resyncEnabled;
+    }
+
+    public void setResyncEnabled(boolean resyncEnabled) {
+        this.resyncEnabled = resyncEnabled;
+    }
+
+    public String getThrottleDataUrl() {
+        return throttleDataUrl;
+    }
+
+    public void setThrottleDataUrl(String throttleDataUrl) {
+        this.throttleDataUrl = throttleDataUrl;
+    }
+}
@@ -71,13 +71,17 @@ public class APIThrottleConstants {
 
     public static final String TRANSPORT_HEADERS = "TRANSPORT_HEADERS";
     public static final String REMOTE_ADDR = "REMOTE_ADDR";
+    public static final String REQUEST_ATTRIBUTES = "REQUEST_ATTRIBUTES";
 
     public static final String THROTTLING_LATENCY = "throttling_latency";
 
     public static final String REST_API_CONTEXT = "REST_API_CONTEXT";
+    public static final String REST_API_VERSION = "REST_API_VERSION";
+    public static final String HTTP_METHOD = "HTTP_METHOD";
     public static final String SYNAPSE_REST_API_VERSION = "SYNAPSE_REST_API_VERSION";
 
     // HttpStatus
+    public static final String HTTP_STATUS_CODE = "HTTP_STATUS_CODE";
     public static final int SC_SERVICE_UNAVAILABLE = 503;
     public static final int SC_FORBIDDEN = 403;
 
@@ -18,18 +18,38 @@
 
 package org.wso2.carbon.apimgt.gateway.throttling.dto;
 
+import org.wso2.carbon.apimgt.gateway.throttling.constants.APIThrottleConstants;
+import org.wso2.carbon.apimgt.gateway.throttling.utils.IPAddress;
+
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
 /**
  * This DTO used to represent a specific condition inside a Condition Group.
  * This is analogous to {@code Condition} object.
+ * <p>
+ * The condition is compiled whenever its type, name or value is set, so that the regex of header and JWT claim
+ * conditions and the IPs of IP conditions are not parsed when the condition is evaluated for a request.
  */
 public class ConditionDTO {
 
+    public static final int UNKNOWN_CONDITION = 0;
+    public static final int IP_RANGE_CONDITION = 1;
+    public static final int IP_SPECIFIC_CONDITION = 2;
+    public static final int QUERY_PARAMETER_CONDITION = 3;
+    public static final int JWT_CLAIMS_CONDITION = 4;
+    public static final int HEADER_CONDITION = 5;
+
     private String conditionType;
     private String conditionName;
     private String conditionValue;
     private boolean isInverted;
 
+    private int conditionTypeCode = UNKNOWN_CONDITION;
+    private Pattern conditionValuePattern;
+    private IPAddress startingIP;
+    private IPAddress endingIP;
+
     public String getConditionType() {
         return conditionType;
     }
@@ -40,6 +60,7 @@ public class ConditionDTO {
 
     public void setConditionName(String conditionName) {
         this.conditionName = conditionName;
+        compile();
     }
 
     public String getConditionValue() {
@@ -48,6 +69,7 @@ public class ConditionDTO {
 
     public void setConditionValue(String conditionValue) {
         this.conditionValue = conditionValue;
+        compile();
     }
 
     public boolean isInverted() {
@@ -56,9 +78,90 @@ public class ConditionDTO {
 
     public void setConditionType(String conditionType) {
         this.conditionType = conditionType;
+        compile();
     }
 
     public void isInverted(boolean invertCondition) {
         this.isInverted = invertCondition;
     }
+
+    /**
+     * @return one of the condition type constants of this class, resolved from the condition type
+     */
+    public int getConditionTypeCode() {
+        return conditionTypeCode;
+    }
+
+    /**
+     * @return compiled condition value of header and JWT claim conditions, or null if the value is not a valid
+     * regex
+     */
+    public Pattern getConditionValuePattern() {
+        return conditionValuePattern;
+    }
+
+    /**
+     * @return starting IP of an IP range condition, or the IP of a specific IP condition. Null if the IP is not valid
+     */
+    public IPAddress getStartingIP() {
+        return startingIP;
+    }
+
+    /**
+     * @return ending IP of an IP range condition, or the IP of a specific IP condition. Null if the IP is not valid
+     */
+    public IPAddress getEndingIP() {
+        return endingIP;
+    }
+
+    private void compile() {
+        conditionTypeCode = toConditionTypeCode(conditionType);
+        conditionValuePattern = null;
+        startingIP = null;
+        endingIP = null;
+        switch (conditionTypeCode) {
+            case IP_RANGE_CONDITION:
+                // For an IP Range Condition, starting IP is set as a the name, ending IP as the value.
+                startingIP = IPAddress.parse(conditionName);
+                endingIP = IPAddress.parse(conditionValue);
+                break;
+            case IP_SPECIFIC_CONDITION:
+                startingIP = IPAddress.parse(conditionValue);
+                endingIP = startingIP;
+                break;
+            case JWT_CLAIMS_CONDITION:
+            case HEADER_CONDITION:
+                if (conditionValue != null) {
+                    try {
+                        conditionValuePattern = Pattern.compile(conditionValue);
+                    } catch (PatternSyntaxException e) {
+                        // The condition does not match any request if the regex is not valid
+                        conditionValuePattern = null;
+                    }
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static int toConditionTypeCode(String conditionType) {
+        if (conditionType == null) {
+            return UNKNOWN_CONDITION;
+        }
+        switch (conditionType) {
+            case APIThrottleConstants.IP_RANGE_TYPE:
+                return IP_RANGE_CONDITION;
+            case APIThrottleConstants.IP_SPECIFIC_TYPE:
+                return IP_SPECIFIC_CONDITION;
+            case APIThrottleConstants.QUERY_PARAMETER_TYPE:
+                return QUERY_PARAMETER_CONDITION;
+            case APIThrottleConstants.JWT_CLAIMS_TYPE:
+                return JWT_CLAIMS_CONDITION;
+            case APIThrottleConstants.HEADER_TYPE:
+                return HEADER_CONDITION;
+            default:
+                return UNKNOWN_CONDITION;
+        }
+    }
 }
@@ -18,6 +18,8 @@
 
 package org.wso2.carbon.apimgt.gateway.throttling.dto;
 
+import org.wso2.carbon.apimgt.gateway.throttling.constants.APIThrottleConstants;
+
 import java.util.Arrays;
 
 /**
@@ -28,6 +30,7 @@ public class ConditionGroupDTO {
 
     private String conditionGroupId;
     private ConditionDTO [] conditions;
+    private boolean defaultGroup;
 
     public ConditionGroupDTO() {
         conditions = new ConditionDTO[]{new ConditionDTO()};
@@ -39,6 +42,26 @@ public class ConditionGroupDTO {
 
     public void setConditionGroupId(String conditionGroupId) {
         this.conditionGroupId = conditionGroupId;
+        this.defaultGroup = APIThrottleConstants.THROTTLE_POLICY_DEFAULT.equals(conditionGroupId);
+    }
+
+    /**
+     * @return true if this is the default condition group of the policy, which applies when no other group matches
+     */
+    public boolean isDefaultGroup() {
+        return defaultGroup;
+    }
+
+    /**
+     * Number of conditions of the group. Used together with {@link #getCondition(int)} to go through the conditions
+     * when evaluating a request, without copying the condition array.
+     */
+    public int getConditionCount() {
+        return conditions.length;
+    }
+
+    public ConditionDTO getCondition(int index) {
+        return conditions[index];
     }
 
     public ConditionDTO[] getConditions() {
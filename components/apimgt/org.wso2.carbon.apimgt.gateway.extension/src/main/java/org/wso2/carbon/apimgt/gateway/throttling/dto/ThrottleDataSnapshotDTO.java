@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.throttling.dto;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Model for the complete throttle state held by the traffic manager, which is loaded by the gateway to catch up with
+ * the throttle messages it may have missed
+ */
+public class ThrottleDataSnapshotDTO {
+
+    private Map<String, Long> throttleKeys = new HashMap<String, Long>();
+    private List<String> apiBlockingConditions = new ArrayList<String>();
+    private List<String> applicationBlockingConditions = new ArrayList<String>();
+    private List<String> userBlockingConditions = new ArrayList<String>();
+    private List<String> ipBlockingConditions = new ArrayList<String>();
+    private List<String> keyTemplates = new ArrayList<String>();
+
+    /**
+     * @return throttled keys with the time their throttle window expires at
+     */
+    public Map<String, Long> getThrottleKeys() {
+        return throttleKeys != null ? throttleKeys : Collections.emptyMap();
+    }
+
+    public void setThrottleKeys(Map<String, Long> throttleKeys) {
+        this.throttleKeys = throttleKeys;
+    }
+
+    public List<String> getApiBlockingConditions() {
+        return apiBlockingConditions != null ? apiBlockingConditions : Collections.emptyList();
+    }
+
+    public void setApiBlockingConditions(List<String> apiBlockingConditions) {
+        this.apiBlockingConditions = apiBlockingConditions;
+    }
+
+    public List<String> getApplicationBlockingConditions() {
+        return applicationBlockingConditions != null ? applicationBlockingConditions : Collections.emptyList();
+    }
+
+    public void setApplicationBlockingConditions(List<String> applicationBlockingConditions) {
+        this.applicationBlockingConditions = applicationBlockingConditions;
+    }
+
+    public List<String> getUserBlockingConditions() {
+        return userBlockingConditions != null ? userBlockingConditions : Collections.emptyList();
+    }
+
+    public void setUserBlockingConditions(List<String> userBlockingConditions) {
+        this.userBlockingConditions = userBlockingConditions;
+    }
+
+    public List<String> getIpBlockingConditions() {
+        return ipBlockingConditions != null ? ipBlockingConditions : Collections.emptyList();
+    }
+
+    public void setIpBlockingConditions(List<String> ipBlockingConditions) {
+        this.ipBlockingConditions = ipBlockingConditions;
+    }
+
+    public List<String> getKeyTemplates() {
+        return keyTemplates != null ? keyTemplates : Collections.emptyList();
+    }
+
+    public void setKeyTemplates(List<String> keyTemplates) {
+        this.keyTemplates = keyTemplates;
+    }
+}
@@ -17,10 +17,16 @@
  */
 package org.wso2.carbon.apimgt.gateway.throttling.dto;
 
+import org.wso2.carbon.apimgt.core.models.APIResource;
+import org.wso2.carbon.apimgt.core.models.Endpoint;
+import org.wso2.carbon.apimgt.core.models.UriTemplate;
+import org.wso2.carbon.apimgt.core.util.APIMgtConstants;
+import org.wso2.carbon.apimgt.gateway.throttling.ThrottleKeyCache;
 import org.wso2.carbon.apimgt.gateway.throttling.constants.APIThrottleConstants;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * This class contains resource details, including throttling, authentication
@@ -41,6 +47,51 @@ public class VerbInfoDTO {
 
     private ConditionGroupDTO[] conditionGroups;
 
+    // Maximum TPS of the production and sandbox endpoints of the resource, applied as hard limits
+    private Long productionMaxTps;
+
+    private Long sandboxMaxTps;
+
+    // Scope an access token should have to access the resource, or null if the resource is not protected by a scope
+    private String scope;
+
+    // Throttle keys of this resource that do not depend on the user (API, hard limit and condition keys) are built
+    // once and reused
+    private final ThrottleKeyCache throttleKeyCache = new ThrottleKeyCache();
+
+    /**
+     * Creates the resource details of a resource in the API definition. The hard limits of the resource are the
+     * maximum TPS of its production and sandbox endpoints, and its scope is the key of the scope of the resource.
+     *
+     * @param apiContext  context of the API
+     * @param apiVersion  version of the API
+     * @param apiResource resource of the API
+     * @return details of the resource
+     */
+    public static VerbInfoDTO fromAPIResource(String apiContext, String apiVersion, APIResource apiResource) {
+        UriTemplate uriTemplate = apiResource.getUriTemplate();
+        VerbInfoDTO verbInfoDTO = new VerbInfoDTO();
+        verbInfoDTO.setHttpVerb(uriTemplate.getHttpVerb());
+        verbInfoDTO.setAuthType(uriTemplate.getAuthType());
+        verbInfoDTO.setThrottling(uriTemplate.getPolicy());
+        // {apiContext}/{apiVersion}{resourceUri}:{httpMethod}
+        verbInfoDTO.setRequestKey(apiContext + "/" + apiVersion + uriTemplate.getUriTemplate() + ":"
+                + uriTemplate.getHttpVerb());
+        Map<String, Endpoint> endpoints = uriTemplate.getEndpoint();
+        if (endpoints != null) {
+            verbInfoDTO.setProductionMaxTps(getMaxTps(endpoints.get(APIMgtConstants.PRODUCTION_ENDPOINT)));
+            verbInfoDTO.setSandboxMaxTps(getMaxTps(endpoints.get(APIMgtConstants.SANDBOX_ENDPOINT)));
+        }
+        if (apiResource.getScope() != null) {
+            verbInfoDTO.setScope(apiResource.getScope().getKey());
+        }
+        return verbInfoDTO;
+    }
+
+    private static Long getMaxTps(Endpoint endpoint) {
+        return endpoint != null ? endpoint.getMaxTps() : null;
+    }
+
     public String getThrottling() {
         return throttling;
     }
@@ -97,6 +148,34 @@ public class VerbInfoDTO {
         this.conditionGroups = conditionGroups.clone();
     }
 
+    public Long getProductionMaxTps() {
+        return productionMaxTps;
+    }
+
+    public void setProductionMaxTps(Long productionMaxTps) {
+        this.productionMaxTps = productionMaxTps;
+    }
+
+    public Long getSandboxMaxTps() {
+        return sandboxMaxTps;
+    }
+
+    public void setSandboxMaxTps(Long sandboxMaxTps) {
+        this.sandboxMaxTps = sandboxMaxTps;
+    }
+
+    public String getScope() {
+        return scope;
+    }
+
+    public void setScope(String scope) {
+        this.scope = scope;
+    }
+
+    public ThrottleKeyCache getThrottleKeyCache() {
+        return throttleKeyCache;
+    }
+
     public ConditionGroupDTO[] getConditionGroups() {
 
         if (conditionGroups != null) {
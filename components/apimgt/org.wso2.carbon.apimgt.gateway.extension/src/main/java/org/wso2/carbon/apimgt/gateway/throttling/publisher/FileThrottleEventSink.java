@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.throttling.publisher;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.apimgt.gateway.throttling.ThrottleException;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Sink which appends the throttle events to a local file, one comma separated event per line. This is meant for
+ * testing and troubleshooting the event stream without a traffic manager.
+ */
+public class FileThrottleEventSink implements ThrottleEventSink {
+
+    private static final Logger log = LoggerFactory.getLogger(FileThrottleEventSink.class);
+    private static final char SEPARATOR = ',';
+
+    private final BufferedWriter writer;
+
+    public FileThrottleEventSink(Path file) throws ThrottleException {
+        try {
+            writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new ThrottleException("Error while opening throttle event file " + file, e);
+        }
+    }
+
+    @Override
+    public void publish(ThrottleEvent[] events, int count) throws ThrottleException {
+        try {
+            for (int i = 0; i < count; i++) {
+                ThrottleEvent event = events[i];
+                writer.append(event.getApplicationLevelThrottleKey()).append(SEPARATOR)
+                        .append(event.getApplicationLevelTier()).append(SEPARATOR)
+                        .append(event.getApiLevelThrottleKey()).append(SEPARATOR)
+                        .append(event.getApiLevelTier()).append(SEPARATOR)
+                        .append(event.getSubscriptionLevelThrottleKey()).append(SEPARATOR)
+                        .append(event.getSubscriptionLevelTier()).append(SEPARATOR)
+                        .append(event.getResourceLevelThrottleKey()).append(SEPARATOR)
+                        .append(event.getResourceLevelTier()).append(SEPARATOR)
+                        .append(event.getAuthorizedUser()).append(SEPARATOR)
+                        .append(event.getApiContext()).append(SEPARATOR)
+                        .append(event.getApiVersion()).append(SEPARATOR)
+                        .append(event.getAppTenant()).append(SEPARATOR)
+                        .append(event.getApiTenant()).append(SEPARATOR)
+                        .append(event.getAppId()).append(SEPARATOR)
+                        .append(Long.toString(event.getTimestamp()));
+                writer.newLine();
+            }
+            writer.flush();
+        } catch (IOException e) {
+            throw new ThrottleException("Error while writing throttle events to file", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            writer.close();
+        } catch (IOException e) {
+            // swallowing exception since it wont affect the flow
+            log.warn("Error while closing throttle event file", e);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.throttling.publisher;
+
+/**
+ * Non throttled request event published to the traffic manager. Events are preallocated in the slots of the
+ * publisher buffer and reused, so the request thread only copies the references of the throttle keys and tiers
+ * which were already built for the request.
+ */
+public class ThrottleEvent {
+
+    private String applicationLevelThrottleKey;
+    private String applicationLevelTier;
+    private String apiLevelThrottleKey;
+    private String apiLevelTier;
+    private String subscriptionLevelThrottleKey;
+    private String subscriptionLevelTier;
+    private String resourceLevelThrottleKey;
+    private String resourceLevelTier;
+    private String authorizedUser;
+    private String apiContext;
+    private String apiVersion;
+    private String appTenant;
+    private String apiTenant;
+    private String appId;
+    private long timestamp;
+
+    public void set(String applicationLevelThrottleKey, String applicationLevelTier,
+                    String apiLevelThrottleKey, String apiLevelTier,
+                    String subscriptionLevelThrottleKey, String subscriptionLevelTier,
+                    String resourceLevelThrottleKey, String resourceLevelTier,
+                    String authorizedUser, String apiContext, String apiVersion, String appTenant, String apiTenant,
+                    String appId, long timestamp) {
+        this.applicationLevelThrottleKey = applicationLevelThrottleKey;
+        this.applicationLevelTier = applicationLevelTier;
+        this.apiLevelThrottleKey = apiLevelThrottleKey;
+        this.apiLevelTier = apiLevelTier;
+        this.subscriptionLevelThrottleKey = subscriptionLevelThrottleKey;
+        this.subscriptionLevelTier = subscriptionLevelTier;
+        this.resourceLevelThrottleKey = resourceLevelThrottleKey;
+        this.resourceLevelTier = resourceLevelTier;
+        this.authorizedUser = authorizedUser;
+        this.apiContext = apiContext;
+        this.apiVersion = apiVersion;
+        this.appTenant = appTenant;
+        this.apiTenant = apiTenant;
+        this.appId = appId;
+        this.timestamp = timestamp;
+    }
+
+    public String getApplicationLevelThrottleKey() {
+        return applicationLevelThrottleKey;
+    }
+
+    public String getApplicationLevelTier() {
+        return applicationLevelTier;
+    }
+
+    public String getApiLevelThrottleKey() {
+        return apiLevelThrottleKey;
+    }
+
+    public String getApiLevelTier() {
+        return apiLevelTier;
+    }
+
+    public String getSubscriptionLevelThrottleKey() {
+        return subscriptionLevelThrottleKey;
+    }
+
+    public String getSubscriptionLevelTier() {
+        return subscriptionLevelTier;
+    }
+
+    public String getResourceLevelThrottleKey() {
+        return resourceLevelThrottleKey;
+    }
+
+    public String getResourceLevelTier() {
+        return resourceLevelTier;
+    }
+
+    public String getAuthorizedUser() {
+        return authorizedUser;
+    }
+
+    public String getApiContext() {
+        return apiContext;
+    }
+
+    public String getApiVersion() {
+        return apiVersion;
+    }
+
+    public String getAppTenant() {
+        return appTenant;
+    }
+
+    public String getApiTenant() {
+        return apiTenant;
+    }
+
+    public String getAppId() {
+        return appId;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.throttling.publisher;
+
+import org.wso2.carbon.apimgt.gateway.throttling.ThrottleException;
+
+/**
+ * Destination of the batches of throttle events drained by the throttle data publisher.
+ */
+public interface ThrottleEventSink {
+
+    /**
+     * Sends a batch of events. This is only called by the drainer thread of the publisher, and the events are reused
+     * once this returns, so implementations must not keep references to them.
+     *
+     * @param events array holding the events of the batch
+     * @param count  number of events in the batch, starting from the first element of the array
+     * @throws ThrottleException if the batch could not be sent
+     */
+    void publish(ThrottleEvent[] events, int count) throws ThrottleException;
+
+    /**
+     * Releases the resources held by the sink.
+     */
+    void close();
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.throttling.publisher;
+
+/**
+ * This class is used to keep the configurations of the throttle data publisher
+ */
+public class ThrottlePublisherConfiguration {
+
+    public static final String JMS_SINK = "jms";
+    public static final String FILE_SINK = "file";
+
+    private String sink = JMS_SINK;
+    private int bufferSize = 8192;
+    private int batchSize = 200;
+    private long flushIntervalMillis = 1000;
+
+    private String topicName = "throttleEventStream";
+    private String topicServerHost = "localhost";
+    private String topicServerPort = "5672";
+    private String username = "admin";
+    private String password = "admin";
+    private long initialRetryIntervalMillis = 1000;
+    private long maxRetryIntervalMillis = 60000;
+
+    private String filePath = "throttle-events.log";
+
+    public String getSink() {
+        return sink;
+    }
+
+    public void setSink(String sink) {
+        this.sink = sink;
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public long getFlushIntervalMillis() {
+        return flushIntervalMillis;
+    }
+
+    public void setFlushIntervalMillis(long flushIntervalMillis) {
+        this.flushIntervalMillis = flushIntervalMillis;
+    }
+
+    public String getTopicName() {
+        return topicName;
+    }
+
+    public void setTopicName(String topicName) {
+        this.topicName = topicName;
+    }
+
+    public String getTopicServerHost() {
+        return topicServerHost;
+    }
+
+    public void setTopicServerHost(String topicServerHost) {
+        this.topicServerHost = topicServerHost;
+    }
+
+    public String getTopicServerPort() {
+        return topicServerPort;
+    }
+
+    public void setTopicServerPort(String topicServerPort) {
+        this.topicServerPort = topicServerPort;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+
+    public long getInitialRetryIntervalMillis() {
+        return initialRetryIntervalMillis;
+    }
+
+    public void setInitialRetryIntervalMillis(long initialRetryIntervalMillis) {
+        this.initialRetryIntervalMillis = initialRetryIntervalMillis;
+    }
+
+    public long getMaxRetryIntervalMillis() {
+        return maxRetryIntervalMillis;
+    }
+
+    public void setMaxRetryIntervalMillis(long maxRetryIntervalMillis) {
+        this.maxRetryIntervalMillis = maxRetryIntervalMillis;
+    }
+
+    public String getFilePath() {
+        return filePath;
+    }
+
+    public void setFilePath(String filePath) {
+        this.filePath = filePath;
+    }
+}
@@ -2,18 +2,75 @@ package org.wso2.carbon.apimgt.gateway.throttling.temp;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.wso2.andes.client.AMQConnectionFactory;
+import org.wso2.andes.url.URLSyntaxException;
+import org.wso2.carbon.apimgt.gateway.jms.JmsThrottleEventSink;
+import org.wso2.carbon.apimgt.gateway.jms.JmsThrottleReceiver;
+import org.wso2.carbon.apimgt.gateway.throttling.ThrottleException;
 import org.wso2.carbon.apimgt.gateway.throttling.dto.AuthenticationContextDTO;
+import org.wso2.carbon.apimgt.gateway.throttling.dto.JMSConfigDTO;
+import org.wso2.carbon.apimgt.gateway.throttling.publisher.FileThrottleEventSink;
+import org.wso2.carbon.apimgt.gateway.throttling.publisher.ThrottleEvent;
+import org.wso2.carbon.apimgt.gateway.throttling.publisher.ThrottleEventSink;
+import org.wso2.carbon.apimgt.gateway.throttling.publisher.ThrottlePublisherConfiguration;
+import org.wso2.carbon.apimgt.gateway.utils.EventRingBuffer;
 import org.wso2.carbon.messaging.CarbonMessage;
 
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
 /**
- * temproray file should be deleted once the C5 datapublishing work is done
+ * Publishes the non throttled request events to the traffic manager.
+ * <p>
+ * Request threads only write the event to a slot of a bounded ring buffer, and a background drainer thread sends the
+ * events to the sink in batches. A batch is sent once it is full or once the flush interval has elapsed since its
+ * first event. If the buffer is full the event is dropped and counted, so publishing never blocks the request.
  */
 public class ThrottleDataPublisher {
 
     private static final Logger log = LoggerFactory.getLogger(ThrottleDataPublisher.class);
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 10000;
+
+    private final EventRingBuffer<ThrottleEvent> buffer;
+    private final ThrottleEventSink sink;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final Thread drainerThread;
+    private volatile boolean running = true;
+
+    private final LongAdder droppedEvents = new LongAdder();
+    private final AtomicLong publishedEvents = new AtomicLong();
+    private final AtomicLong failedEvents = new AtomicLong();
+    private final AtomicLong sentBatches = new AtomicLong();
+    // Accessed by the drainer thread only
+    private long outageFailedEvents = -1;
+
+    public ThrottleDataPublisher(ThrottlePublisherConfiguration configuration) throws ThrottleException {
+        this(createSink(configuration), configuration.getBufferSize(), configuration.getBatchSize(),
+                configuration.getFlushIntervalMillis());
+    }
 
     /**
-     * This method used to pass message context and let it run within separate thread.
+     * @param sink                sink to send the batches of events to
+     * @param bufferSize          maximum number of events waiting to be sent
+     * @param batchSize           maximum number of events sent to the sink at once
+     * @param flushIntervalMillis maximum time in milliseconds an event waits for its batch to fill up
+     */
+    public ThrottleDataPublisher(ThrottleEventSink sink, int bufferSize, int batchSize, long flushIntervalMillis) {
+        this.sink = sink;
+        this.buffer = new EventRingBuffer<>(bufferSize, ThrottleEvent::new);
+        this.batchSize = Math.max(1, batchSize);
+        this.flushIntervalMillis = flushIntervalMillis;
+        drainerThread = new Thread(this::drain, "ThrottleDataPublisher");
+        drainerThread.setDaemon(true);
+        drainerThread.start();
+    }
+
+    /**
+     * Adds the event of a request which was not throttled to the buffer. The event is dropped if the buffer is full.
      *
      * @param messageContext is message context object that holds
      */
@@ -26,6 +83,161 @@ public class ThrottleDataPublisher {
             String appId, CarbonMessage messageContext,
             AuthenticationContextDTO authenticationContext) {
 
-            log.info("Throttling event publisher yet to be implemented");
+        long sequence = buffer.tryClaim();
+        if (sequence < 0) {
+            droppedEvents.increment();
+            return;
+        }
+        buffer.get(sequence).set(applicationLevelThrottleKey, applicationLevelTier, apiLevelThrottleKey,
+                apiLevelTier, subscriptionLevelThrottleKey, subscriptionLevelTier, resourceLevelThrottleKey,
+                resourceLevelTier, authorizedUser, apiContext, apiVersion, appTenant, apiTenant, appId,
+                System.currentTimeMillis());
+        buffer.publish(sequence);
+    }
+
+    /**
+     * Stops the drainer thread after sending the events which are already in the buffer, and closes the sink.
+     */
+    public void shutdown() {
+        running = false;
+        LockSupport.unpark(drainerThread);
+        try {
+            drainerThread.join(SHUTDOWN_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted while waiting for the throttle data publisher to stop", e);
+        }
+    }
+
+    /**
+     * @return number of events sent to the sink
+     */
+    public long getPublishedEventCount() {
+        return publishedEvents.get();
+    }
+
+    /**
+     * @return number of events dropped as the buffer was full
+     */
+    public long getDroppedEventCount() {
+        return droppedEvents.sum();
+    }
+
+    /**
+     * @return number of events which the sink failed to send
+     */
+    public long getFailedEventCount() {
+        return failedEvents.get();
+    }
+
+    /**
+     * @return number of batches sent to the sink
+     */
+    public long getSentBatchCount() {
+        return sentBatches.get();
+    }
+
+    /**
+     * @return number of events in the buffer which are yet to be sent
+     */
+    public int getPendingEventCount() {
+        return buffer.size();
+    }
+
+    public int getBufferCapacity() {
+        return buffer.capacity();
+    }
+
+    private void drain() {
+        ThrottleEvent[] batch = new ThrottleEvent[batchSize];
+        for (int i = 0; i < batchSize; i++) {
+            batch[i] = new ThrottleEvent();
+        }
+        int count = 0;
+        long batchStartTime = 0;
+        long lastDropCheckTime = System.currentTimeMillis();
+        long lastDroppedEvents = 0;
+        while (running || buffer.size() > 0) {
+            boolean polled = false;
+            ThrottleEvent event;
+            // The event taken out of the buffer is exchanged with the batch event sent earlier in its place
+            while (count < batchSize && (event = buffer.poll(batch[count])) != null) {
+                if (count == 0) {
+                    batchStartTime = System.currentTimeMillis();
+                }
+                batch[count++] = event;
+                polled = true;
+            }
+            long currentTime = System.currentTimeMillis();
+            boolean flushDue = !running || currentTime - batchStartTime >= flushIntervalMillis;
+            if (count == batchSize || (count > 0 && flushDue)) {
+                send(batch, count);
+                count = 0;
+            } else if (!polled && running) {
+                long waitUntil = count > 0 ? batchStartTime + flushIntervalMillis
+                        : lastDropCheckTime + flushIntervalMillis;
+                buffer.awaitEvents(TimeUnit.MILLISECONDS.toNanos(waitUntil - currentTime));
+            }
+
+            if (currentTime - lastDropCheckTime >= flushIntervalMillis) {
+                long dropped = droppedEvents.sum();
+                if (dropped > lastDroppedEvents) {
+                    log.warn("Throttle event buffer is full. Dropped " + (dropped - lastDroppedEvents)
+                            + " events in the last " + (currentTime - lastDropCheckTime) + "ms");
+                    lastDroppedEvents = dropped;
+                }
+                lastDropCheckTime = currentTime;
+            }
+        }
+        if (count > 0) {
+            send(batch, count);
+        }
+        sink.close();
+    }
+
+    private void send(ThrottleEvent[] batch, int count) {
+        try {
+            sink.publish(batch, count);
+            publishedEvents.addAndGet(count);
+            sentBatches.incrementAndGet();
+            if (outageFailedEvents >= 0) {
+                log.info("Resumed publishing throttle events. " + outageFailedEvents
+                        + " events could not be published while publishing was failing");
+                outageFailedEvents = -1;
+            }
+        } catch (ThrottleException | RuntimeException e) {
+            // Catching runtime exceptions as well, as the drainer thread must keep running
+            failedEvents.addAndGet(count);
+            // Only the first failure is logged until publishing succeeds again, as every batch fails during an outage
+            if (outageFailedEvents < 0) {
+                log.error("Error while publishing " + count + " throttle events", e);
+                outageFailedEvents = count;
+            } else {
+                outageFailedEvents += count;
+                if (log.isDebugEnabled()) {
+                    log.debug("Error while publishing " + count + " throttle events", e);
+                }
+            }
+        }
+    }
+
+    private static ThrottleEventSink createSink(ThrottlePublisherConfiguration configuration)
+            throws ThrottleException {
+        if (ThrottlePublisherConfiguration.FILE_SINK.equals(configuration.getSink())) {
+            return new FileThrottleEventSink(Paths.get(configuration.getFilePath()));
+        }
+        JMSConfigDTO jmsConfig = new JMSConfigDTO(configuration.getUsername(), configuration.getPassword(),
+                configuration.getTopicName());
+        jmsConfig.setClientId("carbon");
+        jmsConfig.setVirtualHostName("carbon");
+        jmsConfig.setDefaultHostname(configuration.getTopicServerHost());
+        jmsConfig.setDefaultPort(configuration.getTopicServerPort());
+        try {
+            return new JmsThrottleEventSink(jmsConfig, new AMQConnectionFactory(
+                    JmsThrottleReceiver.getTCPConnectionURL(jmsConfig)), configuration.getInitialRetryIntervalMillis(),
+                    configuration.getMaxRetryIntervalMillis());
+        } catch (URLSyntaxException e) {
+            throw new ThrottleException("Invalid connection url for topic " + configuration.getTopicName(), e);
+        }
     }
 }
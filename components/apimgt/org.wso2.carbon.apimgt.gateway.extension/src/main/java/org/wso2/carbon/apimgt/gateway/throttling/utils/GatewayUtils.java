@@ -18,20 +18,19 @@
 */
 package org.wso2.carbon.apimgt.gateway.throttling.utils;
 
-import com.google.gson.JsonParser;
+import com.google.gson.Gson;
 import com.google.gson.JsonSyntaxException;
-//import org.apache.commons.codec.binary.Base64;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wso2.carbon.apimgt.gateway.throttling.constants.APIThrottleConstants;
 import org.wso2.carbon.apimgt.gateway.throttling.dto.AuthenticationContextDTO;
 import org.wso2.carbon.messaging.CarbonMessage;
 
-import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.TreeMap;
-import java.util.regex.Pattern;
 
 /**
  * Contains some util methods used by ThrottleCondition Evaluator
@@ -39,6 +38,7 @@ import java.util.regex.Pattern;
 public class GatewayUtils {
 
     private static final Logger log = LoggerFactory.getLogger(GatewayUtils.class);
+    private static final Gson gson = new Gson();
 
 
     /**
@@ -104,21 +104,30 @@ public class GatewayUtils {
         return null;
     }
 
+    /**
+     * Decodes the claims of the JWT of the caller. Use {@link RequestAttributes#getJWTClaims(AuthenticationContextDTO)}
+     * to decode the claims only once per request.
+     *
+     * @param authContext authentication context holding the caller token
+     * @return claims of the token, or null if the token is not a valid JWT
+     */
     public static Map getJWTClaims(AuthenticationContextDTO authContext) {
-        String[] jwtTokenArray = authContext.getCallerToken().split(Pattern.quote("."));
+        String callerToken = authContext.getCallerToken();
+        if (callerToken == null) {
+            return null;
+        }
+        int payloadStart = callerToken.indexOf('.') + 1;
+        int payloadEnd = callerToken.indexOf('.', payloadStart);
+        if (payloadStart == 0 || payloadEnd < 0) {
+            log.error("Error while decoding jwt header. Caller token is not a JWT");
+            return null;
+        }
         // decoding JWT
         try {
-            // byte[] jwtByteArray = Base64.decodeBase64(jwtTokenArray[1].getBytes("UTF-8"));
-            // TODO: remove below line and uncomment previous use a with suitable decoder
-            byte[] jwtByteArray = new byte[jwtTokenArray.length];
-            String jwtAssertion = new String(jwtByteArray, "UTF-8");
-            JsonParser parser = new JsonParser();
-            Object object = parser.parse(jwtAssertion);
-
-            if (object instanceof Map) {
-                return (Map) object;
-            }
-        } catch (UnsupportedEncodingException e) {
+            byte[] jwtByteArray = Base64.getUrlDecoder().decode(callerToken.substring(payloadStart, payloadEnd));
+            String jwtAssertion = new String(jwtByteArray, StandardCharsets.UTF_8);
+            return gson.fromJson(jwtAssertion, Map.class);
+        } catch (IllegalArgumentException e) {
             log.error("Error while decoding jwt header", e);
         } catch (JsonSyntaxException e) {
             log.error("Error while parsing jwt header", e);
@@ -0,0 +1,261 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.throttling.utils;
+
+/**
+ * Numeric form of an IPv4 or IPv6 address, used to compare IPs with the ranges of throttle conditions without
+ * parsing the range on each request. IPv6 addresses are held in two longs, and IPv4 addresses (including IPv4
+ * mapped IPv6 addresses) in the lower long. Addresses are only parsed from literals, so no name lookup is done.
+ */
+public final class IPAddress implements Comparable<IPAddress> {
+
+    private static final long IPV4_MAPPED_PREFIX = 0xffffL;
+
+    private final boolean ipv6;
+    private final long high;
+    private final long low;
+
+    private IPAddress(boolean ipv6, long high, long low) {
+        this.ipv6 = ipv6;
+        this.high = high;
+        this.low = low;
+    }
+
+    /**
+     * Parses an IPv4 or IPv6 literal, such as "192.168.1.2", "2001:db8::1" or "[::ffff:10.0.0.1]".
+     *
+     * @param address IP address literal
+     * @return parsed address, or null if the given value is not a valid IP literal
+     */
+    public static IPAddress parse(String address) {
+        if (address == null) {
+            return null;
+        }
+        String value = address.trim();
+        if (value.length() > 1 && value.charAt(0) == '[' && value.charAt(value.length() - 1) == ']') {
+            value = value.substring(1, value.length() - 1);
+        }
+        int zoneIndex = value.indexOf('%');
+        if (zoneIndex >= 0) {
+            value = value.substring(0, zoneIndex);
+        }
+        if (value.indexOf(':') < 0) {
+            long ipv4 = parseIPv4(value, 0, value.length());
+            return ipv4 < 0 ? null : new IPAddress(false, 0, ipv4);
+        }
+        return parseIPv6(value);
+    }
+
+    /**
+     * @return true if the address is within the given range, both ends inclusive. An address is never within a
+     * range of the other IP version.
+     */
+    public boolean isInRange(IPAddress start, IPAddress end) {
+        return start != null && end != null && ipv6 == start.ipv6 && ipv6 == end.ipv6 && compareTo(start) >= 0
+                && compareTo(end) <= 0;
+    }
+
+    public boolean isIPv6() {
+        return ipv6;
+    }
+
+    /**
+     * @return number of bits in the address, 32 for IPv4 and 128 for IPv6
+     */
+    public int getBitLength() {
+        return ipv6 ? 128 : 32;
+    }
+
+    /**
+     * Returns the first or the last address of the network this address belongs to, such as 10.1.0.0 or
+     * 10.1.255.255 for 10.1.2.3 and a prefix length of 16.
+     *
+     * @param prefixLength number of leading bits identifying the network
+     * @param last         true to get the last address of the network, false to get the first
+     * @return first or last address of the network
+     */
+    public IPAddress getNetworkBoundary(int prefixLength, boolean last) {
+        int hostBits = getBitLength() - prefixLength;
+        if (prefixLength < 0 || hostBits < 0) {
+            throw new IllegalArgumentException("Invalid prefix length: " + prefixLength);
+        }
+        long highMask = 0;
+        long lowMask;
+        if (hostBits >= 64) {
+            lowMask = -1L;
+            highMask = hostBits == 128 ? -1L : (1L << (hostBits - 64)) - 1;
+        } else {
+            lowMask = (1L << hostBits) - 1;
+        }
+        if (last) {
+            return new IPAddress(ipv6, high | highMask, low | lowMask);
+        }
+        return new IPAddress(ipv6, high & ~highMask, low & ~lowMask);
+    }
+
+    @Override
+    public int compareTo(IPAddress other) {
+        if (ipv6 != other.ipv6) {
+            return ipv6 ? 1 : -1;
+        }
+        int result = Long.compareUnsigned(high, other.high);
+        return result != 0 ? result : Long.compareUnsigned(low, other.low);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof IPAddress)) {
+            return false;
+        }
+        IPAddress that = (IPAddress) other;
+        return ipv6 == that.ipv6 && high == that.high && low == that.low;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = ipv6 ? 1 : 0;
+        result = 31 * result + Long.hashCode(high);
+        result = 31 * result + Long.hashCode(low);
+        return result;
+    }
+
+    /**
+     * @return the IPv4 address as an unsigned 32 bit value, or -1 if the value is not a valid IPv4 literal
+     */
+    private static long parseIPv4(String value, int start, int end) {
+        long result = 0;
+        int octets = 0;
+        int octet = -1;
+        for (int i = start; i < end; i++) {
+            char c = value.charAt(i);
+            if (c >= '0' && c <= '9') {
+                octet = octet < 0 ? c - '0' : octet * 10 + (c - '0');
+                if (octet > 255) {
+                    return -1;
+                }
+            } else if (c == '.' && octet >= 0 && octets < 3) {
+                result = (result << 8) | octet;
+                octets++;
+                octet = -1;
+            } else {
+                return -1;
+            }
+        }
+        if (octet < 0 || octets != 3) {
+            return -1;
+        }
+        return (result << 8) | octet;
+    }
+
+    private static IPAddress parseIPv6(String value) {
+        // Up to 8 groups of 16 bits. Groups after "::" are collected separately and moved to the end.
+        int[] groups = new int[8];
+        int groupCount = 0;
+        int compressionIndex = -1;
+        int length = value.length();
+        int index = 0;
+        if (value.startsWith("::")) {
+            compressionIndex = 0;
+            index = 2;
+        } else if (value.startsWith(":")) {
+            return null;
+        }
+        while (index < length) {
+            if (groupCount == 8) {
+                return null;
+            }
+            int groupEnd = value.indexOf(':', index);
+            if (groupEnd < 0) {
+                groupEnd = length;
+            }
+            if (groupEnd == length && value.indexOf('.', index) >= 0) {
+                // IPv4 address in the last 32 bits
+                long ipv4 = parseIPv4(value, index, length);
+                if (ipv4 < 0 || groupCount > 6) {
+                    return null;
+                }
+                groups[groupCount++] = (int) (ipv4 >>> 16);
+                groups[groupCount++] = (int) (ipv4 & 0xffff);
+                index = length;
+                break;
+            }
+            int group = parseHexGroup(value, index, groupEnd);
+            if (group < 0) {
+                return null;
+            }
+            groups[groupCount++] = group;
+            index = groupEnd + 1;
+            if (groupEnd == length) {
+                break;
+            }
+            if (index < length && value.charAt(index) == ':') {
+                if (compressionIndex >= 0) {
+                    return null;
+                }
+                compressionIndex = groupCount;
+                index++;
+            } else if (index == length) {
+                // Trailing single colon
+                return null;
+            }
+        }
+
+        if (compressionIndex >= 0) {
+            if (groupCount == 8) {
+                return null;
+            }
+            int shift = 8 - groupCount;
+            for (int i = groupCount - 1; i >= compressionIndex; i--) {
+                groups[i + shift] = groups[i];
+                groups[i] = 0;
+            }
+        } else if (groupCount != 8) {
+            return null;
+        }
+
+        long high = 0;
+        long low = 0;
+        for (int i = 0; i < 4; i++) {
+            high = (high << 16) | groups[i];
+            low = (low << 16) | groups[i + 4];
+        }
+        if (high == 0 && (low >>> 32) == IPV4_MAPPED_PREFIX) {
+            return new IPAddress(false, 0, low & 0xffffffffL);
+        }
+        return new IPAddress(true, high, low);
+    }
+
+    private static int parseHexGroup(String value, int start, int end) {
+        if (end <= start || end - start > 4) {
+            return -1;
+        }
+        int group = 0;
+        for (int i = start; i < end; i++) {
+            int digit = Character.digit(value.charAt(i), 16);
+            if (digit < 0) {
+                return -1;
+            }
+            group = (group << 4) | digit;
+        }
+        return group;
+    }
+}
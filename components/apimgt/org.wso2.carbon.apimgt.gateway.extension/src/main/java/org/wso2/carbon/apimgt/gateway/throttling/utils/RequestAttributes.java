@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.throttling.utils;
+
+import org.wso2.carbon.apimgt.gateway.throttling.constants.APIThrottleConstants;
+import org.wso2.carbon.apimgt.gateway.throttling.dto.AuthenticationContextDTO;
+import org.wso2.carbon.messaging.CarbonMessage;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Attributes of a request which are read by several handlers, such as the client IP, query parameters and JWT
+ * claims. The attributes are kept as a property of the {@link CarbonMessage}, and each of them is parsed at most once
+ * per request, when it is first needed.
+ * <p>
+ * The query string is not split. Only the offsets of the parameter names and values are recorded, and a value is
+ * extracted when it is looked up.
+ * <p>
+ * A message is processed by one thread at a time, so this class is not thread safe.
+ */
+public class RequestAttributes {
+
+    private static final int INITIAL_QUERY_PARAM_COUNT = 4;
+    // Offsets of each query parameter: name start, name end, value start and value end
+    private static final int OFFSETS_PER_PARAM = 4;
+
+    private final CarbonMessage carbonMessage;
+
+    private boolean clientIpResolved;
+    private String clientIp;
+    private boolean clientIpAddressResolved;
+    private IPAddress clientIpAddress;
+
+    private boolean queryParamsResolved;
+    private String queryString;
+    private int[] queryParamOffsets;
+    private int queryParamCount;
+
+    private boolean jwtClaimsResolved;
+    private Map jwtClaims;
+
+    private RequestAttributes(CarbonMessage carbonMessage) {
+        this.carbonMessage = carbonMessage;
+    }
+
+    /**
+     * Returns the attributes of the given message, creating and attaching them to the message if this is the first
+     * call for the request.
+     *
+     * @param carbonMessage message of the request
+     * @return attributes of the request
+     */
+    public static RequestAttributes get(CarbonMessage carbonMessage) {
+        Object attributes = carbonMessage.getProperty(APIThrottleConstants.REQUEST_ATTRIBUTES);
+        if (attributes instanceof RequestAttributes) {
+            return (RequestAttributes) attributes;
+        }
+        RequestAttributes requestAttributes = new RequestAttributes(carbonMessage);
+        carbonMessage.setProperty(APIThrottleConstants.REQUEST_ATTRIBUTES, requestAttributes);
+        return requestAttributes;
+    }
+
+    /**
+     * @return IP of the client, taken from the X-Forwarded-For header or the remote address
+     * @see GatewayUtils#getIp(CarbonMessage)
+     */
+    public String getClientIp() {
+        if (!clientIpResolved) {
+            clientIp = GatewayUtils.getIp(carbonMessage);
+            clientIpResolved = true;
+        }
+        return clientIp;
+    }
+
+    /**
+     * @return IP of the client in numeric form, or null if the client IP is not a valid IP literal
+     */
+    public IPAddress getClientIpAddress() {
+        if (!clientIpAddressResolved) {
+            clientIpAddress = IPAddress.parse(getClientIp());
+            clientIpAddressResolved = true;
+        }
+        return clientIpAddress;
+    }
+
+    /**
+     * Returns the value of a query parameter. If the parameter is repeated, the last value is returned, and a
+     * parameter without a value has an empty value.
+     *
+     * @param name name of the query parameter
+     * @return value of the parameter, or null if it is not present
+     */
+    public String getQueryParam(String name) {
+        if (!queryParamsResolved) {
+            parseQueryParams();
+        }
+        for (int i = queryParamCount - 1; i >= 0; i--) {
+            int offset = i * OFFSETS_PER_PARAM;
+            int nameStart = queryParamOffsets[offset];
+            int nameLength = queryParamOffsets[offset + 1] - nameStart;
+            if (nameLength == name.length() && queryString.regionMatches(nameStart, name, 0, nameLength)) {
+                return queryString.substring(queryParamOffsets[offset + 2], queryParamOffsets[offset + 3]);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return claims of the JWT of the caller, or null if the token could not be decoded
+     * @see GatewayUtils#getJWTClaims(AuthenticationContextDTO)
+     */
+    public Map getJWTClaims(AuthenticationContextDTO authenticationContext) {
+        if (!jwtClaimsResolved) {
+            jwtClaims = GatewayUtils.getJWTClaims(authenticationContext);
+            jwtClaimsResolved = true;
+        }
+        return jwtClaims;
+    }
+
+    private void parseQueryParams() {
+        queryParamsResolved = true;
+        String postfix = (String) carbonMessage.getProperty(APIThrottleConstants.REST_URL_POSTFIX);
+        if (StringUtils.isEmpty(postfix)) {
+            return;
+        }
+        queryString = postfix;
+        int start = postfix.indexOf('?') + 1;
+        int end = postfix.length();
+        queryParamOffsets = new int[INITIAL_QUERY_PARAM_COUNT * OFFSETS_PER_PARAM];
+        while (start < end) {
+            int paramEnd = postfix.indexOf('&', start);
+            if (paramEnd < 0) {
+                paramEnd = end;
+            }
+            if (paramEnd > start) {
+                int separator = postfix.indexOf('=', start);
+                if (separator < 0 || separator > paramEnd) {
+                    separator = paramEnd;
+                }
+                addQueryParam(start, separator, Math.min(separator + 1, paramEnd), paramEnd);
+            }
+            start = paramEnd + 1;
+        }
+    }
+
+    private void addQueryParam(int nameStart, int nameEnd, int valueStart, int valueEnd) {
+        int offset = queryParamCount * OFFSETS_PER_PARAM;
+        if (offset == queryParamOffsets.length) {
+            queryParamOffsets = Arrays.copyOf(queryParamOffsets, queryParamOffsets.length * 2);
+        }
+        queryParamOffsets[offset] = nameStart;
+        queryParamOffsets[offset + 1] = nameEnd;
+        queryParamOffsets[offset + 2] = valueStart;
+        queryParamOffsets[offset + 3] = valueEnd;
+        queryParamCount++;
+    }
+}
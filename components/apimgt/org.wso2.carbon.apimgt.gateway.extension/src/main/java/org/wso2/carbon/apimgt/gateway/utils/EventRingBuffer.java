@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Bounded ring buffer of events, written by the request threads and read by a single drainer thread.
+ * <p>
+ * Each slot has a sequence which tells whether it is free to be written or ready to be read, so producers only
+ * compete on a compare and set of the tail, and never wait for each other or for the drainer. A producer which finds
+ * the buffer full gets no slot and the event is dropped.
+ * <p>
+ * Slots can either be filled with events allocated once by a factory, which producers write in place, or be given
+ * the events of the producers. The drainer takes an event out of its slot by leaving another event in its place, so
+ * that neither side has to allocate or copy events. The drainer can block until events are published instead of
+ * polling the buffer.
+ *
+ * @param <E> type of the events
+ */
+public class EventRingBuffer<E> {
+
+    private final AtomicReferenceArray<E> events;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+    // Drainer thread which is blocked waiting for events, if any
+    private volatile Thread waitingConsumer;
+
+    /**
+     * Creates a buffer with empty slots, for producers which add their own events with {@link #offer(Object)}.
+     *
+     * @param capacity number of events the buffer can hold. This is rounded up to a power of two
+     */
+    public EventRingBuffer(int capacity) {
+        this(capacity, null);
+    }
+
+    /**
+     * Creates a buffer with an event allocated for each slot, for producers which write the event of the slot they
+     * claim.
+     *
+     * @param capacity     number of events the buffer can hold. This is rounded up to a power of two
+     * @param eventFactory creates the event of each slot, or null to leave the slots empty
+     */
+    public EventRingBuffer(int capacity, Supplier<E> eventFactory) {
+        int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        events = new AtomicReferenceArray<>(size);
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            if (eventFactory != null) {
+                events.set(i, eventFactory.get());
+            }
+            sequences.set(i, i);
+        }
+        mask = size - 1;
+    }
+
+    /**
+     * Claims a slot to write an event. The event of the slot has to be written and {@link #publish(long)} has to be
+     * called once it is written.
+     *
+     * @return sequence of the claimed slot, or -1 if the buffer is full
+     */
+    public long tryClaim() {
+        long position = tail.get();
+        while (true) {
+            long sequence = sequences.get((int) position & mask);
+            if (sequence == position) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    return position;
+                }
+                position = tail.get();
+            } else if (sequence < position) {
+                // The slot still holds an event from the previous round which has not been read yet
+                return -1;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * @param sequence sequence returned by {@link #tryClaim()}
+     * @return event of the claimed slot
+     */
+    public E get(long sequence) {
+        return events.get((int) sequence & mask);
+    }
+
+    /**
+     * Makes the event written to the claimed slot visible to the drainer.
+     *
+     * @param sequence sequence returned by {@link #tryClaim()}
+     */
+    public void publish(long sequence) {
+        // A volatile write, so that a drainer which has just started waiting either sees the event or is woken up
+        sequences.set((int) sequence & mask, sequence + 1);
+        Thread consumer = waitingConsumer;
+        if (consumer != null) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    /**
+     * Adds an event to a slot of the buffer, in place of the event the slot held.
+     *
+     * @param event event to add
+     * @return true if the event was added, false if the buffer is full
+     */
+    public boolean offer(E event) {
+        long sequence = tryClaim();
+        if (sequence < 0) {
+            return false;
+        }
+        events.lazySet((int) sequence & mask, event);
+        publish(sequence);
+        return true;
+    }
+
+    /**
+     * Takes the next event out of the buffer. This must only be called by the drainer thread.
+     *
+     * @param replacement event to leave in the slot of the event taken, which is written by a later producer
+     * @return next event, or null if there are no published events
+     */
+    public E poll(E replacement) {
+        long position = head.get();
+        int index = (int) position & mask;
+        if (sequences.get(index) != position + 1) {
+            return null;
+        }
+        E event = events.get(index);
+        events.lazySet(index, replacement);
+        sequences.lazySet(index, position + events.length());
+        head.lazySet(position + 1);
+        return event;
+    }
+
+    /**
+     * Blocks the drainer thread until an event is published, the timeout elapses or the thread is unparked. This
+     * must only be called by the drainer thread.
+     *
+     * @param timeoutNanos maximum time to wait in nanoseconds
+     */
+    public void awaitEvents(long timeoutNanos) {
+        if (timeoutNanos <= 0) {
+            return;
+        }
+        waitingConsumer = Thread.currentThread();
+        try {
+            // Checked after registering as waiting, so that an event published meanwhile is not missed
+            if (!hasPublishedEvent()) {
+                LockSupport.parkNanos(this, timeoutNanos);
+            }
+        } finally {
+            waitingConsumer = null;
+        }
+    }
+
+    public int size() {
+        return (int) Math.max(0, tail.get() - head.get());
+    }
+
+    public int capacity() {
+        return events.length();
+    }
+
+    private boolean hasPublishedEvent() {
+        long position = head.get();
+        return sequences.get((int) position & mask) == position + 1;
+    }
+}
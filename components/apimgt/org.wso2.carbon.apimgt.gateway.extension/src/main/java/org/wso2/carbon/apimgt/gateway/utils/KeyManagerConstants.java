@@ -28,6 +28,13 @@ public class KeyManagerConstants {
     public static final String USERNAME = "username";
     public static final String OAUTH2_TOKEN_EXP_TIME = "exp";
     public static final String OAUTH2_TOKEN_ISSUED_TIME = "iat";
+    public static final String OAUTH2_TOKEN_NOT_BEFORE_TIME = "nbf";
+    public static final String OAUTH2_TOKEN_ISSUER = "iss";
+    public static final String OAUTH2_TOKEN_AUDIENCE = "aud";
+    public static final String OAUTH2_TOKEN_SUBJECT = "sub";
+    public static final String OAUTH2_AUTHORIZED_PARTY = "azp";
+    // Attribute of the token validation context which holds the scopes required by the resource
+    public static final String REQUIRED_SCOPES = "REQUIRED_SCOPES";
 
     /**
      * Status codes used in key-validation process
@@ -35,6 +42,9 @@ public class KeyManagerConstants {
     public static class KeyValidationStatus {
         public static final int API_AUTH_GENERAL_ERROR = 900900;
         public static final int API_AUTH_INVALID_CREDENTIALS = 900901;
+        public static final int API_AUTH_MISSING_CREDENTIALS = 900902;
+        public static final int API_AUTH_ACCESS_TOKEN_EXPIRED = 900903;
+        public static final int INVALID_SCOPE = 900910;
 
 
         private KeyValidationStatus() {
@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.analytics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.apimgt.gateway.analytics.dto.AnalyticsEventStreamDTO;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class AnalyticsAggregatorTest {
+
+    private static final Logger log = LoggerFactory.getLogger(AnalyticsAggregatorTest.class);
+
+    @Test
+    public void testHistogramBuckets() {
+        for (long value = 0; value < 1000000; value++) {
+            int index = LatencyHistogram.bucketIndex(value);
+            Assert.assertTrue(LatencyHistogram.lowestValue(index) <= value);
+            Assert.assertTrue(LatencyHistogram.lowestValue(index + 1) > value);
+        }
+    }
+
+    @Test
+    public void testHistogramPercentilesAreAccurate() {
+        Random random = new Random(7);
+        LatencyHistogram histogram = new LatencyHistogram();
+        long[] values = new long[100000];
+        for (int i = 0; i < values.length; i++) {
+            // Long tailed latencies between 1ms and a few seconds
+            values[i] = 1 + (long) Math.exp(random.nextGaussian() * 1.5 + 4);
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+        for (double percentile : new double[] {50, 90, 99, 99.9}) {
+            long exact = values[(int) Math.ceil(percentile / 100 * values.length) - 1];
+            long reported = histogram.getValueAtPercentile(percentile);
+            Assert.assertTrue(Math.abs(reported - exact) <= Math.max(1, exact * 0.035),
+                    "p" + percentile + ": " + reported + " vs " + exact);
+        }
+        Assert.assertEquals(histogram.getTotalCount(), values.length);
+        Assert.assertEquals(histogram.getMin(), values[0]);
+        Assert.assertEquals(histogram.getMax(), values[values.length - 1]);
+        Assert.assertEquals(histogram.getValueAtPercentile(100), values[values.length - 1]);
+
+        LatencyHistogram merged = new LatencyHistogram();
+        merged.add(histogram);
+        merged.add(histogram);
+        Assert.assertEquals(merged.getTotalCount(), 2L * values.length);
+        Assert.assertEquals(merged.getValueAtPercentile(50), histogram.getValueAtPercentile(50));
+    }
+
+    @Test
+    public void testEventsAreAggregatedPerKeyAndWindow() {
+        AnalyticsAggregator aggregator = new AnalyticsAggregator(10000, 1000, 100);
+        aggregator.add(event("weather", "app1", "/current", 20000, 20050, "200"), 0);
+        aggregator.add(event("weather", "app1", "/current", 25000, 25150, "200"), 0);
+        AnalyticsEventStreamDTO throttled = event("weather", "app1", "/current", 29999, 29999, "429");
+        throttled.setIsThrottleDataExist(true);
+        aggregator.add(throttled, 0);
+        aggregator.add(event("weather", "app2", "/current", 21000, 21010, "500"), 0);
+        aggregator.add(event("weather", "app1", "/current", 30000, 30010, "200"), 0);
+
+        // The first window is not completed until the allowed lateness has passed
+        Assert.assertTrue(aggregator.completeWindows(30500).isEmpty());
+        List<AnalyticsAggregate> aggregates = aggregator.completeWindows(31000);
+        Assert.assertEquals(aggregates.size(), 2);
+        AnalyticsAggregate app1 = find(aggregates, "app1");
+        Assert.assertEquals(app1.getWindowStart(), 20000);
+        Assert.assertEquals(app1.getWindowEnd(), 30000);
+        Assert.assertEquals(app1.getResource(), "GET /current");
+        Assert.assertEquals(app1.getRequestCount(), 3);
+        Assert.assertEquals(app1.getThrottledCount(), 1);
+        Assert.assertEquals(app1.getResponseCodeCounts().get("200").longValue(), 2);
+        Assert.assertEquals(app1.getResponseCodeCounts().get("429").longValue(), 1);
+        Assert.assertEquals(app1.getLatency().getMax(), 150);
+        Assert.assertEquals(find(aggregates, "app2").getRequestCount(), 1);
+
+        Assert.assertEquals(aggregator.getOpenWindowCount(), 1);
+        Assert.assertEquals(aggregator.completeAllWindows().get(0).getWindowStart(), 30000);
+    }
+
+    @Test
+    public void testLateEventsAreAddedToOldestOpenWindow() {
+        AnalyticsAggregator aggregator = new AnalyticsAggregator(10000, 0, 100);
+        aggregator.add(event("weather", "app1", "/current", 5000, 5010, "200"), 0);
+        Assert.assertEquals(aggregator.completeWindows(10000).size(), 1);
+        aggregator.add(event("weather", "app1", "/current", 6000, 6010, "200"), 0);
+        List<AnalyticsAggregate> aggregates = aggregator.completeAllWindows();
+        Assert.assertEquals(aggregates.size(), 1);
+        Assert.assertEquals(aggregates.get(0).getWindowStart(), 10000);
+        Assert.assertEquals(aggregator.getLateEventCount(), 1);
+    }
+
+    @Test
+    public void testCardinalityIsBounded() {
+        AnalyticsAggregator aggregator = new AnalyticsAggregator(10000, 0, 100);
+        int events = 0;
+        for (int api = 0; api < 50; api++) {
+            for (int app = 0; app < 100; app++) {
+                aggregator.add(event("api" + api, "app" + app, "/resource", 1000, 1010, "200"), 0);
+                events++;
+            }
+        }
+        List<AnalyticsAggregate> aggregates = aggregator.completeAllWindows();
+        // 100 keys, 10 overflow keys of the APIs, and the overflow key of the window
+        Assert.assertEquals(aggregates.size(), 111);
+        long requests = 0;
+        for (AnalyticsAggregate aggregate : aggregates) {
+            requests += aggregate.getRequestCount();
+        }
+        Assert.assertEquals(requests, events);
+        Assert.assertEquals(aggregator.getOverflowEventCount(), events - 100);
+    }
+
+    @Test
+    public void testOutputVolumeIsReduced() throws Exception {
+        CollectingSink collectingSink = new CollectingSink();
+        AggregatingAnalyticsEventSink sink = new AggregatingAnalyticsEventSink(collectingSink,
+                new AnalyticsAggregator(10000, 0, 10000));
+        Random random = new Random(3);
+        int count = 1000000;
+        AnalyticsEventStreamDTO[] batch = new AnalyticsEventStreamDTO[1000];
+        for (int i = 0; i < batch.length; i++) {
+            batch[i] = new AnalyticsEventStreamDTO();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i += batch.length) {
+            for (int j = 0; j < batch.length; j++) {
+                // One minute of traffic over 20 APIs, 10 applications and 5 resources
+                long requestTime = (long) (i + j) * 60000 / count;
+                fill(batch[j], "api" + random.nextInt(20), "app" + random.nextInt(10), "/r" + random.nextInt(5),
+                        requestTime, requestTime + random.nextInt(500), random.nextInt(100) == 0 ? "500" : "200");
+            }
+            sink.publish(batch, batch.length);
+            sink.flush((long) i * 60000 / count);
+        }
+        sink.close();
+        long elapsed = System.nanoTime() - start;
+
+        long requests = 0;
+        for (AnalyticsAggregate aggregate : collectingSink.aggregates) {
+            requests += aggregate.getRequestCount();
+        }
+        log.info("Aggregated {} events into {} aggregates in {} ns/event", count, collectingSink.aggregates.size(),
+                elapsed / count);
+        Assert.assertEquals(requests, count);
+        Assert.assertEquals(sink.getAggregatedEventCount(), count);
+        Assert.assertEquals(sink.getPublishedAggregateCount(), collectingSink.aggregates.size());
+        Assert.assertTrue(collectingSink.aggregates.size() <= 6 * 20 * 10 * 5);
+        Assert.assertTrue(count / collectingSink.aggregates.size() >= 100);
+        Assert.assertTrue(collectingSink.closed);
+    }
+
+    private static AnalyticsAggregate find(List<AnalyticsAggregate> aggregates, String applicationId) {
+        for (AnalyticsAggregate aggregate : aggregates) {
+            if (applicationId.equals(aggregate.getApplicationId())) {
+                return aggregate;
+            }
+        }
+        throw new AssertionError("No aggregate of " + applicationId);
+    }
+
+    private static AnalyticsEventStreamDTO event(String apiName, String applicationId, String resource,
+                                                 long requestTime, long responseTime, String responseCode) {
+        AnalyticsEventStreamDTO event = new AnalyticsEventStreamDTO();
+        fill(event, apiName, applicationId, resource, requestTime, responseTime, responseCode);
+        return event;
+    }
+
+    private static void fill(AnalyticsEventStreamDTO event, String apiName, String applicationId, String resource,
+                             long requestTime, long responseTime, String responseCode) {
+        event.setApiName(apiName);
+        event.setVersion("1.0.0");
+        event.setApplicationId(applicationId);
+        event.setMethod("GET");
+        event.setUriTemplate(resource);
+        event.setRequestTime(Long.toString(requestTime));
+        event.setResponseTime(Long.toString(responseTime));
+        event.setResponseCode(responseCode);
+    }
+
+    private static class CollectingSink implements AnalyticsEventSink {
+
+        private final List<AnalyticsAggregate> aggregates = new ArrayList<>();
+        private boolean closed;
+
+        @Override
+        public void publish(AnalyticsEventStreamDTO[] events, int count) {
+            throw new AssertionError("Events should not be published when they are aggregated");
+        }
+
+        @Override
+        public void publishAggregates(List<AnalyticsAggregate> aggregates) {
+            this.aggregates.addAll(aggregates);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,264 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.analytics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.apimgt.gateway.analytics.dto.AnalyticsEventStreamDTO;
+import org.wso2.carbon.apimgt.gateway.utils.EventRingBuffer;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class EventPublisherImplTest {
+
+    private static final Logger log = LoggerFactory.getLogger(EventPublisherImplTest.class);
+
+    @Test
+    public void testEventsArePublishedInBatches() throws Exception {
+        Path file = Files.createTempFile("analytics-events", ".log");
+        try {
+            AnalyticsEventPool pool = new AnalyticsEventPool(1024);
+            EventPublisherImpl publisher = new EventPublisherImpl(new FileAnalyticsEventSink(file), pool, 1024, 100,
+                    100);
+            ExecutorService executorService = Executors.newFixedThreadPool(4);
+            for (int i = 0; i < 4; i++) {
+                final String apiName = "api" + i;
+                executorService.execute(() -> {
+                    for (int j = 0; j < 250; j++) {
+                        publish(publisher, pool, apiName);
+                    }
+                });
+            }
+            executorService.shutdown();
+            Assert.assertTrue(executorService.awaitTermination(10, TimeUnit.SECONDS));
+            publisher.shutdown();
+
+            List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+            Assert.assertEquals(publisher.getDroppedEventCount() + lines.size(), 1000);
+            Assert.assertEquals(publisher.getPublishedEventCount(), lines.size());
+            Assert.assertTrue(lines.get(0).matches("\\[\"api[0-3]\",\"1.0.0\",\"admin\"\\]"), lines.get(0));
+            Assert.assertEquals(pool.getIdleEventCount(), pool.getCreatedEventCount());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testSentEventsAreRecycled() throws Exception {
+        CollectingSink sink = new CollectingSink();
+        AnalyticsEventPool pool = new AnalyticsEventPool(16);
+        EventPublisherImpl publisher = new EventPublisherImpl(sink, pool, 64, 1, 10);
+        AnalyticsEventStreamDTO event = pool.acquire();
+        event.setApiName("api");
+        publisher.publishEvent(event);
+        Assert.assertTrue(sink.await(1, 5000));
+        publisher.shutdown();
+
+        AnalyticsEventStreamDTO recycled = pool.acquire();
+        Assert.assertSame(recycled, event);
+        Assert.assertNull(recycled.getApiName());
+        Assert.assertEquals(pool.getCreatedEventCount(), 1);
+    }
+
+    @Test
+    public void testPartialBatchIsFlushedAfterInterval() throws Exception {
+        CollectingSink sink = new CollectingSink();
+        AnalyticsEventPool pool = new AnalyticsEventPool(16);
+        EventPublisherImpl publisher = new EventPublisherImpl(sink, pool, 64, 100, 50);
+        for (int i = 0; i < 3; i++) {
+            publish(publisher, pool, "api");
+        }
+        // The batch is not full, so it is only sent once the flush interval elapses
+        Assert.assertTrue(sink.await(3, 5000));
+        publisher.shutdown();
+        Assert.assertEquals(publisher.getSentBatchCount(), 1);
+        Assert.assertEquals(sink.batchSizes.get(0).intValue(), 3);
+    }
+
+    @Test
+    public void testIdleDrainerIsWokenByEvent() throws Exception {
+        CollectingSink sink = new CollectingSink();
+        AnalyticsEventPool pool = new AnalyticsEventPool(16);
+        // The drainer waits for events up to the flush interval, so it is only sent in time if the drainer is woken
+        EventPublisherImpl publisher = new EventPublisherImpl(sink, pool, 64, 1, 60000);
+        Thread.sleep(100);
+        publish(publisher, pool, "api");
+        Assert.assertTrue(sink.await(1, 5000));
+        publisher.shutdown();
+        Assert.assertEquals(publisher.getPublishedEventCount(), 1);
+    }
+
+    @Test
+    public void testEventsAreDroppedWhenQueueIsFull() throws Exception {
+        final CountDownLatch sinkLatch = new CountDownLatch(1);
+        AnalyticsEventSink blockingSink = new AnalyticsEventSink() {
+            @Override
+            public void publish(AnalyticsEventStreamDTO[] events, int count) {
+                try {
+                    sinkLatch.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        AnalyticsEventPool pool = new AnalyticsEventPool(128);
+        EventPublisherImpl publisher = new EventPublisherImpl(blockingSink, pool, 16, 1, 10);
+        for (int i = 0; i < 100; i++) {
+            publish(publisher, pool, "api");
+        }
+        // At most one event is held by the blocked sink, and the rest of the events beyond the queue are dropped
+        Assert.assertTrue(publisher.getDroppedEventCount() >= 100 - 16 - 1);
+        Assert.assertTrue(publisher.getPendingEventCount() <= 16);
+
+        sinkLatch.countDown();
+        publisher.shutdown();
+        Assert.assertEquals(publisher.getPublishedEventCount() + publisher.getDroppedEventCount(), 100);
+        Assert.assertEquals(pool.getIdleEventCount(), pool.getCreatedEventCount());
+    }
+
+    @Test
+    public void testFailedBatchesAreCounted() throws Exception {
+        AnalyticsEventSink failingSink = new AnalyticsEventSink() {
+            @Override
+            public void publish(AnalyticsEventStreamDTO[] events, int count) throws AnalyticsException {
+                throw new AnalyticsException("Receiver is not available");
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        AnalyticsEventPool pool = new AnalyticsEventPool(16);
+        EventPublisherImpl publisher = new EventPublisherImpl(failingSink, pool, 64, 4, 10);
+        for (int i = 0; i < 10; i++) {
+            publish(publisher, pool, "api");
+        }
+        publisher.shutdown();
+        Assert.assertEquals(publisher.getFailedEventCount(), 10);
+        Assert.assertEquals(publisher.getPublishedEventCount(), 0);
+        Assert.assertEquals(pool.getIdleEventCount(), pool.getCreatedEventCount());
+    }
+
+    @Test
+    public void testQueueKeepsOrderOfEachProducer() throws Exception {
+        int producers = 4;
+        int eventsPerProducer = 100000;
+        EventRingBuffer<AnalyticsEventStreamDTO> queue = new EventRingBuffer<>(1024);
+        ExecutorService executorService = Executors.newFixedThreadPool(producers);
+        for (int i = 0; i < producers; i++) {
+            final String producer = Integer.toString(i);
+            executorService.execute(() -> {
+                for (int j = 0; j < eventsPerProducer; j++) {
+                    AnalyticsEventStreamDTO event = new AnalyticsEventStreamDTO();
+                    event.setApiName(producer);
+                    event.setRequestCount(Integer.toString(j));
+                    while (!queue.offer(event)) {
+                        Thread.yield();
+                    }
+                }
+            });
+        }
+        int[] nextEvent = new int[producers];
+        long deadline = System.currentTimeMillis() + 30000;
+        for (int received = 0; received < producers * eventsPerProducer; ) {
+            AnalyticsEventStreamDTO event = queue.poll(null);
+            if (event == null) {
+                Assert.assertTrue(System.currentTimeMillis() < deadline, "Events were not received in time");
+                continue;
+            }
+            int producer = Integer.parseInt(event.getApiName());
+            Assert.assertEquals(Integer.parseInt(event.getRequestCount()), nextEvent[producer]++);
+            received++;
+        }
+        executorService.shutdown();
+        Assert.assertNull(queue.poll(null));
+        Assert.assertEquals(queue.size(), 0);
+    }
+
+    @Test
+    public void testPublishOverhead() throws Exception {
+        CollectingSink sink = new CollectingSink();
+        AnalyticsEventPool pool = new AnalyticsEventPool(8192);
+        EventPublisherImpl publisher = new EventPublisherImpl(sink, pool, 8192, 200, 100);
+        int warmup = 100000;
+        int count = 1000000;
+        for (int i = 0; i < warmup; i++) {
+            publish(publisher, pool, "api");
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            publish(publisher, pool, "api");
+        }
+        long elapsed = System.nanoTime() - start;
+        publisher.shutdown();
+        log.info("Analytics event publishing: {} ns/request, {} published, {} dropped, {} events created",
+                elapsed / count, publisher.getPublishedEventCount(), publisher.getDroppedEventCount(),
+                pool.getCreatedEventCount());
+        Assert.assertEquals(publisher.getPublishedEventCount() + publisher.getDroppedEventCount(), warmup + count);
+        Assert.assertEquals(sink.eventCount.get(), publisher.getPublishedEventCount());
+    }
+
+    private static void publish(EventPublisherImpl publisher, AnalyticsEventPool pool, String apiName) {
+        AnalyticsEventStreamDTO event = pool.acquire();
+        event.setApiName(apiName);
+        event.setVersion("1.0.0");
+        event.setCreator("admin");
+        publisher.publishEvent(event);
+    }
+
+    private static class CollectingSink implements AnalyticsEventSink {
+
+        private final List<Integer> batchSizes = new ArrayList<>();
+        private final AtomicInteger eventCount = new AtomicInteger();
+
+        @Override
+        public synchronized void publish(AnalyticsEventStreamDTO[] events, int count) {
+            batchSizes.add(count);
+            eventCount.addAndGet(count);
+            notifyAll();
+        }
+
+        synchronized boolean await(int events, long timeoutMillis) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + timeoutMillis;
+            while (eventCount.get() < events && System.currentTimeMillis() < deadline) {
+                wait(Math.max(1, deadline - System.currentTimeMillis()));
+            }
+            return eventCount.get() >= events;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
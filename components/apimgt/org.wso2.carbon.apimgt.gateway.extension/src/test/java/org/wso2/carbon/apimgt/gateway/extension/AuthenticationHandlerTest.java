@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.extension;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.apimgt.gateway.exception.APIKeyMgtException;
+import org.wso2.carbon.apimgt.gateway.utils.KeyManagerConstants;
+
+public class AuthenticationHandlerTest {
+
+    @Test
+    public void testStatusCodes() {
+        Assert.assertEquals(getStatusCode(KeyManagerConstants.KeyValidationStatus.API_AUTH_INVALID_CREDENTIALS), 401);
+        Assert.assertEquals(getStatusCode(KeyManagerConstants.KeyValidationStatus.API_AUTH_ACCESS_TOKEN_EXPIRED), 401);
+        Assert.assertEquals(getStatusCode(KeyManagerConstants.KeyValidationStatus.API_AUTH_MISSING_CREDENTIALS), 401);
+        Assert.assertEquals(getStatusCode(KeyManagerConstants.KeyValidationStatus.INVALID_SCOPE), 403);
+        Assert.assertEquals(getStatusCode(KeyManagerConstants.KeyValidationStatus.API_AUTH_GENERAL_ERROR), 500);
+    }
+
+    private static int getStatusCode(int errorCode) {
+        return AuthenticationHandler.getStatusCode(new APIKeyMgtException(errorCode, "Authentication failed"));
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.extension;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.apimgt.gateway.internal.ServiceReferenceHolder;
+import org.wso2.carbon.apimgt.gateway.resource.APIResourceDataHolder;
+import org.wso2.carbon.apimgt.gateway.resource.ResourceDTO;
+import org.wso2.carbon.apimgt.gateway.throttling.constants.APIThrottleConstants;
+import org.wso2.carbon.apimgt.gateway.throttling.dto.VerbInfoDTO;
+import org.wso2.carbon.apimgt.gateway.throttling.publisher.ThrottlePublisherConfiguration;
+import org.wso2.carbon.messaging.CarbonMessage;
+import org.wso2.carbon.messaging.DefaultCarbonMessage;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class ThrottleHandlerTest {
+
+    private static final String API_CONTEXT = "/hardlimit";
+    private static final String API_VERSION = "1.0.0";
+
+    private ThrottleHandler throttleHandler;
+    private final List<String> loadedApis = new ArrayList<>();
+
+    @BeforeClass
+    public void createHandler() throws Exception {
+        ThrottlePublisherConfiguration configuration = new ThrottlePublisherConfiguration();
+        configuration.setSink(ThrottlePublisherConfiguration.FILE_SINK);
+        File eventFile = File.createTempFile("throttle-events", ".log");
+        eventFile.deleteOnExit();
+        configuration.setFilePath(eventFile.getAbsolutePath());
+        ServiceReferenceHolder.getInstance().setThrottlePublisherConfiguration(configuration);
+        // The resources are served as the API manager core returns them
+        APIResourceDataHolder resourceDataHolder = new APIResourceDataHolder(10, TimeUnit.MINUTES.toMillis(5), 0,
+                (apiContext, apiVersion) -> {
+                    loadedApis.add(apiContext + ':' + apiVersion);
+                    if (!API_CONTEXT.equals(apiContext) || !API_VERSION.equals(apiVersion)) {
+                        return Collections.emptyList();
+                    }
+                    ResourceDTO menu = new ResourceDTO();
+                    menu.setUriTemplate("/menu/{id}");
+                    menu.setHttpVerb("GET");
+                    menu.setAuthType("Application & Application User");
+                    menu.setPolicy(APIThrottleConstants.UNLIMITED_TIER);
+                    menu.setProductionMaxTps(2L);
+                    ResourceDTO other = new ResourceDTO();
+                    other.setUriTemplate("/*");
+                    other.setHttpVerb("GET");
+                    other.setPolicy(APIThrottleConstants.UNLIMITED_TIER);
+                    List<ResourceDTO> resources = new ArrayList<>();
+                    resources.add(other);
+                    resources.add(menu);
+                    return resources;
+                });
+        throttleHandler = new ThrottleHandler(resourceDataHolder);
+    }
+
+    @Test
+    public void testRequestsAboveEndpointMaxTpsAreThrottled() {
+        // Two tokens are added per second, so the third request is throttled unless half a second passes between
+        // the requests. In that case the requests are sent again once the bucket is full.
+        for (int attempt = 0; attempt < 3; attempt++) {
+            long startTime = System.nanoTime();
+            CarbonMessage first = sendRequest("/menu/42?size=large");
+            CarbonMessage second = sendRequest("/menu/7");
+            CarbonMessage third = sendRequest("/menu/42");
+            if (System.nanoTime() - startTime >= TimeUnit.MILLISECONDS.toNanos(500)) {
+                waitForRefill();
+                continue;
+            }
+            VerbInfoDTO verbInfoDTO = (VerbInfoDTO) first.getProperty(APIThrottleConstants.VERB_INFO_DTO);
+            Assert.assertNotNull(verbInfoDTO, "The resource of the request was not resolved");
+            Assert.assertEquals(verbInfoDTO.getRequestKey(), "/hardlimit/1.0.0/menu/{id}:GET");
+            Assert.assertEquals(verbInfoDTO.getProductionMaxTps(), Long.valueOf(2));
+            // The details of a resource are shared by its requests, so the throttle keys cached in them are reused
+            Assert.assertSame(third.getProperty(APIThrottleConstants.VERB_INFO_DTO), verbInfoDTO);
+            Assert.assertEquals(loadedApis, Collections.singletonList(API_CONTEXT + ':' + API_VERSION));
+
+            Assert.assertNull(first.getProperty(APIThrottleConstants.THROTTLED_OUT_REASON));
+            Assert.assertNull(second.getProperty(APIThrottleConstants.THROTTLED_OUT_REASON));
+            Assert.assertEquals(third.getProperty(APIThrottleConstants.THROTTLED_OUT_REASON),
+                    APIThrottleConstants.HARD_LIMIT_EXCEEDED);
+            Assert.assertEquals(third.getProperty(APIThrottleConstants.HTTP_STATUS_CODE),
+                    APIThrottleConstants.SC_SERVICE_UNAVAILABLE);
+            Assert.assertEquals(third.getProperty(APIThrottleConstants.ERROR_CODE),
+                    APIThrottleConstants.HARD_LIMIT_EXCEEDED_ERROR_CODE);
+
+            // Other resources of the API do not have the hard limit
+            CarbonMessage otherResource = sendRequest("/orders");
+            Assert.assertEquals(((VerbInfoDTO) otherResource.getProperty(APIThrottleConstants.VERB_INFO_DTO))
+                    .getRequestKey(), "/hardlimit/1.0.0/*:GET");
+            Assert.assertNull(otherResource.getProperty(APIThrottleConstants.THROTTLED_OUT_REASON));
+            return;
+        }
+        Assert.fail("Could not send the requests within half a second");
+    }
+
+    private CarbonMessage sendRequest(String postfix) {
+        CarbonMessage message = new DefaultCarbonMessage();
+        message.setProperty(APIThrottleConstants.REST_API_CONTEXT, API_CONTEXT);
+        message.setProperty(APIThrottleConstants.REST_API_VERSION, API_VERSION);
+        message.setProperty(APIThrottleConstants.HTTP_METHOD, "GET");
+        message.setProperty(APIThrottleConstants.REST_URL_POSTFIX, postfix);
+        throttleHandler.invokeAtSourceRequestReceiving(message);
+        return message;
+    }
+
+    private static void waitForRefill() {
+        try {
+            Thread.sleep(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
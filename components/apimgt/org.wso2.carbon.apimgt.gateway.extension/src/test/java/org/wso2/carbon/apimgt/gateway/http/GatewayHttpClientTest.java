@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.http;
+
+import com.sun.net.httpserver.HttpServer;
+import feign.Feign;
+import feign.RequestLine;
+import org.apache.commons.io.IOUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class GatewayHttpClientTest {
+
+    private HttpServer server;
+    private String baseUrl;
+    // Remote ports of the connections accepted by the server, one per TCP connection
+    private final Set<Integer> connections = ConcurrentHashMap.newKeySet();
+
+    @BeforeClass
+    public void startServer() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/echo", exchange -> {
+            connections.add(exchange.getRemoteAddress().getPort());
+            byte[] body = IOUtils.toByteArray(exchange.getRequestBody());
+            if (body.length == 0) {
+                body = "empty".getBytes(StandardCharsets.UTF_8);
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(body);
+            }
+        });
+        server.createContext("/missing", exchange -> {
+            connections.add(exchange.getRemoteAddress().getPort());
+            byte[] body = "not found".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(404, body.length);
+            try (OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(body);
+            }
+        });
+        server.start();
+        baseUrl = "http://localhost:" + server.getAddress().getPort();
+    }
+
+    @BeforeMethod
+    public void resetConnections() {
+        connections.clear();
+    }
+
+    @Test
+    public void testConnectionIsReused() throws Exception {
+        GatewayHttpClient httpClient = new GatewayHttpClient(new HttpClientConfiguration());
+        for (int i = 0; i < 20; i++) {
+            HttpResponse response = httpClient.post(baseUrl + "/echo", "text/plain",
+                    ("request" + i).getBytes(StandardCharsets.UTF_8));
+            Assert.assertEquals(response.getStatusCode(), 200);
+            Assert.assertEquals(response.getBodyAsString(), "request" + i);
+        }
+        // Error responses are read completely as well, so the connection is not closed
+        HttpResponse response = httpClient.execute("GET", baseUrl + "/missing", null, null);
+        Assert.assertEquals(response.getStatusCode(), 404);
+        Assert.assertEquals(response.getBodyAsString(), "not found");
+        Assert.assertEquals(connections.size(), 1);
+    }
+
+    @Test
+    public void testResponseIsStreamedToHandler() throws Exception {
+        GatewayHttpClient httpClient = new GatewayHttpClient(new HttpClientConfiguration());
+        for (int i = 0; i < 5; i++) {
+            // Only the first byte is read by the handler, and the rest of the body is skipped
+            int firstByte = httpClient.stream("GET", baseUrl + "/echo", null,
+                    (response, body) -> {
+                        Assert.assertEquals(response.getStatusCode(), 200);
+                        return body.read();
+                    });
+            Assert.assertEquals(firstByte, 'e');
+        }
+        Assert.assertEquals(connections.size(), 1);
+    }
+
+    @Test
+    public void testConnectionsPerRouteAreLimited() throws Exception {
+        HttpClientConfiguration configuration = new HttpClientConfiguration();
+        configuration.setMaxConnectionsPerRoute(2);
+        GatewayHttpClient httpClient = new GatewayHttpClient(configuration);
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        List<Future<HttpResponse>> responses = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            responses.add(executorService.submit(() -> httpClient.post(baseUrl + "/echo", "text/plain",
+                    "request".getBytes(StandardCharsets.UTF_8))));
+        }
+        for (Future<HttpResponse> response : responses) {
+            Assert.assertEquals(response.get(10, TimeUnit.SECONDS).getBodyAsString(), "request");
+        }
+        executorService.shutdown();
+        Assert.assertTrue(connections.size() <= 2, "Opened " + connections.size() + " connections");
+    }
+
+    @Test
+    public void testConnectionsOfBurstAreKept() throws Exception {
+        HttpClientConfiguration configuration = new HttpClientConfiguration();
+        configuration.setMaxConnectionsPerRoute(10);
+        GatewayHttpClient httpClient = new GatewayHttpClient(configuration);
+        ExecutorService executorService = Executors.newFixedThreadPool(10);
+        try {
+            // The connections opened for the first burst are kept in the pool and reused by the second one
+            for (int burst = 0; burst < 2; burst++) {
+                List<Future<HttpResponse>> responses = new ArrayList<>();
+                for (int i = 0; i < 50; i++) {
+                    responses.add(executorService.submit(() -> httpClient.post(baseUrl + "/echo", "text/plain",
+                            "request".getBytes(StandardCharsets.UTF_8))));
+                }
+                for (Future<HttpResponse> response : responses) {
+                    Assert.assertEquals(response.get(10, TimeUnit.SECONDS).getBodyAsString(), "request");
+                }
+            }
+        } finally {
+            executorService.shutdown();
+            httpClient.close();
+        }
+        Assert.assertTrue(connections.size() <= 10, "Opened " + connections.size() + " connections");
+    }
+
+    @Test
+    public void testFeignClient() throws Exception {
+        GatewayHttpClient httpClient = new GatewayHttpClient(new HttpClientConfiguration());
+        EchoService echoService = Feign.builder()
+                .client(new FeignHttpClient(httpClient))
+                .options(FeignHttpClient.getOptions(httpClient))
+                .target(EchoService.class, baseUrl);
+        for (int i = 0; i < 5; i++) {
+            Assert.assertEquals(echoService.echo(), "empty");
+        }
+        Assert.assertEquals(connections.size(), 1);
+    }
+
+    private interface EchoService {
+        @RequestLine("GET /echo")
+        String echo();
+    }
+
+    @AfterClass
+    public void stopServer() {
+        server.stop(0);
+    }
+}
@@ -0,0 +1,259 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.jms;
+
+import com.google.gson.Gson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.apimgt.core.dto.APIDTO;
+import org.wso2.carbon.apimgt.core.dto.EndpointDTO;
+import org.wso2.carbon.apimgt.core.dto.GatewayDTO;
+import org.wso2.carbon.apimgt.core.models.APISummary;
+import org.wso2.carbon.apimgt.core.models.Endpoint;
+import org.wso2.carbon.apimgt.core.models.SubscriptionValidationData;
+import org.wso2.carbon.apimgt.core.models.UriTemplate;
+import org.wso2.carbon.apimgt.core.util.BrokerUtil;
+import org.wso2.carbon.apimgt.gateway.GatewayConstants;
+import org.wso2.carbon.apimgt.gateway.subscription.Subscription;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import javax.jms.MessageFormatException;
+
+public class BinaryMessageDecoderTest {
+
+    private static final Logger log = LoggerFactory.getLogger(BinaryMessageDecoderTest.class);
+
+    @Test
+    public void testThrottleDecisionRoundTrip() throws Exception {
+        byte[] data = BrokerUtil.encodeThrottleDecision("/api/1.0.0:GET_admin", true, 1500000000000L);
+        ThrottleMessage message = BinaryMessageDecoder.decodeThrottleMessage(data, 42);
+        Assert.assertEquals(message.getType(), ThrottleMessage.Type.THROTTLE_DECISION);
+        Assert.assertEquals(message.getKey(), "/api/1.0.0:GET_admin");
+        Assert.assertTrue(message.isEnabled());
+        Assert.assertEquals(message.getExpiryTime(), 1500000000000L);
+        Assert.assertEquals(message.getPublishTime(), 42);
+    }
+
+    @Test
+    public void testBlockingConditionAndKeyTemplateRoundTrip() throws Exception {
+        ThrottleMessage condition = BinaryMessageDecoder.decodeThrottleMessage(
+                BrokerUtil.encodeBlockingCondition("IP", "carbon.super:10.0.0.0/8", false), 0);
+        Assert.assertEquals(condition.getType(), ThrottleMessage.Type.BLOCKING_CONDITION);
+        Assert.assertEquals(condition.getCondition(), "IP");
+        Assert.assertEquals(condition.getKey(), "carbon.super:10.0.0.0/8");
+        Assert.assertFalse(condition.isEnabled());
+
+        ThrottleMessage keyTemplate = BinaryMessageDecoder.decodeThrottleMessage(
+                BrokerUtil.encodeKeyTemplate("$userId:$apiContext:é", true), 0);
+        Assert.assertEquals(keyTemplate.getType(), ThrottleMessage.Type.KEY_TEMPLATE);
+        Assert.assertEquals(keyTemplate.getKey(), "$userId:$apiContext:é");
+        Assert.assertTrue(keyTemplate.isEnabled());
+    }
+
+    @Test
+    public void testSubscriptionEventRoundTrip() throws Exception {
+        SubscriptionValidationData data = new SubscriptionValidationData("/weather", "1.0.0", "consumerKey");
+        data.setApiProvider("admin");
+        data.setSubscriptionPolicy("Gold");
+        data.setApplicationName("app");
+        data.setApplicationOwner(null);
+        data.setKeyEnvType("PRODUCTION");
+        BinaryMessageDecoder.SubscriptionEvent event = BinaryMessageDecoder.decodeSubscriptionEvent(
+                BrokerUtil.encodeSubscriptionEvent(GatewayConstants.ACTION_NEW, data));
+        Assert.assertEquals(event.getAction(), GatewayConstants.ACTION_NEW);
+        Subscription subscription = event.getSubscription();
+        Assert.assertEquals(subscription.getApiContext(), "/weather");
+        Assert.assertEquals(subscription.getApiVersion(), "1.0.0");
+        Assert.assertEquals(subscription.getApiProvider(), "admin");
+        Assert.assertEquals(subscription.getConsumerKey(), "consumerKey");
+        Assert.assertEquals(subscription.getSubscriptionPolicy(), "Gold");
+        Assert.assertEquals(subscription.getApplicationName(), "app");
+        Assert.assertNull(subscription.getApplicationOwner());
+        Assert.assertEquals(subscription.getKeyEnvType(), "PRODUCTION");
+    }
+
+    @Test
+    public void testGatewayEventRoundTrip() throws Exception {
+        APISummary apiSummary = new APISummary("api-id");
+        apiSummary.setName("weather");
+        apiSummary.setContext("/weather");
+        apiSummary.setVersion("1.0.0");
+        apiSummary.setUriTemplates(createUriTemplates());
+        APIDTO apiDTO = new APIDTO("API_UPDATE");
+        apiDTO.setApiSummary(apiSummary);
+        apiDTO.setLabels(new HashSet<>(Arrays.asList("public", "private")));
+        GatewayDTO decodedApi = BinaryMessageDecoder.decodeGatewayEvent(BrokerUtil.encodeGatewayEvent(apiDTO));
+        Assert.assertTrue(decodedApi instanceof APIDTO);
+        Assert.assertEquals(decodedApi.getEventType(), "API_UPDATE");
+        Assert.assertEquals(decodedApi.getLabels(), apiDTO.getLabels());
+        APISummary decodedSummary = ((APIDTO) decodedApi).getApiSummary();
+        Assert.assertEquals(decodedSummary.getId(), "api-id");
+        Assert.assertEquals(decodedSummary.getName(), "weather");
+        Assert.assertEquals(decodedSummary.getContext(), "/weather");
+        Assert.assertEquals(decodedSummary.getVersion(), "1.0.0");
+        Assert.assertEquals(decodedSummary.getUriTemplates(), apiSummary.getUriTemplates());
+        Assert.assertEquals(decodedSummary.getUriTemplates().get(0).getEndpoint(),
+                apiSummary.getUriTemplates().get(0).getEndpoint());
+        Assert.assertEquals(decodedSummary.getUriTemplates().get(1).getTemplateId(), "template-2");
+
+        EndpointDTO endpointDTO = new EndpointDTO("ENDPOINT_CREATE");
+        endpointDTO.setEndpoint(createEndpoint());
+        GatewayDTO decodedEndpoint = BinaryMessageDecoder
+                .decodeGatewayEvent(BrokerUtil.encodeGatewayEvent(endpointDTO));
+        Assert.assertTrue(decodedEndpoint instanceof EndpointDTO);
+        Assert.assertNull(decodedEndpoint.getLabels());
+        Endpoint endpoint = ((EndpointDTO) decodedEndpoint).getEndpoint();
+        Assert.assertEquals(endpoint.getId(), "endpoint-id");
+        Assert.assertEquals(endpoint.getName(), "backend");
+        Assert.assertEquals(endpoint.getType(), "http");
+        Assert.assertEquals(endpoint.getEndpointConfig(), "{\"url\":\"http://localhost\"}");
+        Assert.assertNull(endpoint.getSecurity());
+        Assert.assertEquals(endpoint.getApplicableLevel(), "global");
+        Assert.assertEquals(endpoint.getMaxTps(), Long.valueOf(1000L));
+    }
+
+    @Test
+    public void testDecodedGatewayEventsMatchJsonMessages() throws Exception {
+        // Gateways which read the JSON messages must see the same event when the binary format is enabled
+        Gson gson = new Gson();
+        APISummary apiSummary = new APISummary("api-id");
+        apiSummary.setName("weather");
+        apiSummary.setContext("/weather");
+        apiSummary.setVersion("1.0.0");
+        apiSummary.setUriTemplates(createUriTemplates());
+        APIDTO apiDTO = new APIDTO("API_CREATE");
+        apiDTO.setApiSummary(apiSummary);
+        apiDTO.setLabels(new HashSet<>(Arrays.asList("public")));
+        Assert.assertEquals(
+                gson.toJson(BinaryMessageDecoder.decodeGatewayEvent(BrokerUtil.encodeGatewayEvent(apiDTO))),
+                gson.toJson(apiDTO));
+
+        APIDTO deletedApi = new APIDTO("API_DELETE");
+        deletedApi.setApiSummary(new APISummary("api-id"));
+        Assert.assertEquals(
+                gson.toJson(BinaryMessageDecoder.decodeGatewayEvent(BrokerUtil.encodeGatewayEvent(deletedApi))),
+                gson.toJson(deletedApi));
+
+        EndpointDTO endpointDTO = new EndpointDTO("ENDPOINT_UPDATE");
+        endpointDTO.setEndpoint(createEndpoint());
+        Assert.assertEquals(
+                gson.toJson(BinaryMessageDecoder.decodeGatewayEvent(BrokerUtil.encodeGatewayEvent(endpointDTO))),
+                gson.toJson(endpointDTO));
+    }
+
+    @Test
+    public void testJsonIsTheDefaultFormat() {
+        Assert.assertEquals(BrokerUtil.MessageFormat.fromString(null), BrokerUtil.MessageFormat.JSON);
+        Assert.assertEquals(BrokerUtil.MessageFormat.fromString("json"), BrokerUtil.MessageFormat.JSON);
+        Assert.assertEquals(BrokerUtil.MessageFormat.fromString("avro"), BrokerUtil.MessageFormat.JSON);
+        Assert.assertEquals(BrokerUtil.MessageFormat.fromString("BINARY"), BrokerUtil.MessageFormat.BINARY);
+    }
+
+    @Test
+    public void testTrailingFieldsAreIgnored() throws Exception {
+        byte[] data = BrokerUtil.encodeKeyTemplate("$userId", false);
+        byte[] extended = Arrays.copyOf(data, data.length + 3);
+        ThrottleMessage message = BinaryMessageDecoder.decodeThrottleMessage(extended, 0);
+        Assert.assertEquals(message.getKey(), "$userId");
+    }
+
+    @Test
+    public void testInvalidMessages() throws Exception {
+        byte[] data = BrokerUtil.encodeThrottleDecision("key", true, 10);
+        assertInvalid(Arrays.copyOf(data, data.length - 1));
+        assertInvalid(new byte[0]);
+        byte[] otherVersion = data.clone();
+        otherVersion[0] = (byte) (BrokerUtil.BINARY_FORMAT_VERSION + 1);
+        assertInvalid(otherVersion);
+        // A subscription event is not a throttle message
+        assertInvalid(BrokerUtil.encodeSubscriptionEvent(GatewayConstants.ACTION_REMOVED,
+                new SubscriptionValidationData("/weather", "1.0.0", "key")));
+        // Length beyond the end of the message
+        assertInvalid(new byte[] {(byte) BrokerUtil.BINARY_FORMAT_VERSION, (byte) BrokerUtil.KEY_TEMPLATE, 100, 'a'});
+    }
+
+    @Test
+    public void testBinaryMessagesAreSmallerAndFasterThanJson() throws Exception {
+        Gson gson = new Gson();
+        int count = 200000;
+        String[] keys = new String[1000];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = "/api" + i + "/1.0.0:GET_user" + i + "@carbon.super";
+        }
+
+        long binaryBytes = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            byte[] data = BrokerUtil.encodeThrottleDecision(keys[i % keys.length], true, 1500000000000L + i);
+            binaryBytes += data.length;
+            Assert.assertNotNull(BinaryMessageDecoder.decodeThrottleMessage(data, i).getKey());
+        }
+        long binaryNanos = System.nanoTime() - start;
+
+        long jsonBytes = 0;
+        start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            Map<String, Object> fields = new HashMap<>();
+            fields.put("throttleKey", keys[i % keys.length]);
+            fields.put("isThrottled", Boolean.TRUE);
+            fields.put("expiryTimeStamp", Long.toString(1500000000000L + i));
+            String json = gson.toJson(fields);
+            jsonBytes += json.getBytes(StandardCharsets.UTF_8).length;
+            Assert.assertNotNull(gson.fromJson(json, Map.class).get("throttleKey"));
+        }
+        long jsonNanos = System.nanoTime() - start;
+
+        log.info("Throttle decisions, binary: {} bytes/message, {} ns/message; json: {} bytes/message, "
+                        + "{} ns/message", binaryBytes / count, binaryNanos / count, jsonBytes / count,
+                jsonNanos / count);
+        Assert.assertTrue(binaryBytes < jsonBytes);
+    }
+
+    private static Endpoint createEndpoint() {
+        return new Endpoint.Builder().id("endpoint-id").name("backend").type("http")
+                .endpointConfig("{\"url\":\"http://localhost\"}").applicableLevel("global").maxTps(1000L).build();
+    }
+
+    private static List<UriTemplate> createUriTemplates() {
+        Map<String, Endpoint> endpoints = new HashMap<>();
+        endpoints.put("production", createEndpoint());
+        return Arrays.asList(
+                new UriTemplate.UriTemplateBuilder().templateId("template-1").uriTemplate("/forecast/{city}")
+                        .httpVerb("GET").authType("Application & Application User").policy("Unlimited")
+                        .endpoint(endpoints).build(),
+                new UriTemplate.UriTemplateBuilder().templateId("template-2").uriTemplate("/alerts")
+                        .httpVerb("POST").authType("None").policy("Gold").build());
+    }
+
+    private static void assertInvalid(byte[] data) {
+        try {
+            BinaryMessageDecoder.decodeThrottleMessage(data, 0);
+            Assert.fail("Invalid message was decoded");
+        } catch (MessageFormatException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.jms;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.apimgt.gateway.throttling.ThrottleException;
+import org.wso2.carbon.apimgt.gateway.throttling.dto.JMSConfigDTO;
+import org.wso2.carbon.apimgt.gateway.throttling.publisher.ThrottleEvent;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.jms.JMSException;
+import javax.jms.TopicConnectionFactory;
+
+public class JmsThrottleEventSinkTest {
+
+    @Test
+    public void testConnectionIsRetriedWithBackoff() throws Exception {
+        AtomicInteger connectAttempts = new AtomicInteger();
+        TopicConnectionFactory connectionFactory = (TopicConnectionFactory) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class[]{TopicConnectionFactory.class}, (proxy, method, args) -> {
+                    connectAttempts.incrementAndGet();
+                    throw new JMSException("Connection refused");
+                });
+        JmsThrottleEventSink sink = new JmsThrottleEventSink(new JMSConfigDTO("admin", "admin", "throttleData"),
+                connectionFactory, 200, 1000);
+        ThrottleEvent[] events = {new ThrottleEvent()};
+
+        //batches sent before the retry interval elapses fail without connecting
+        for (int i = 0; i < 10; i++) {
+            assertPublishFails(sink, events);
+        }
+        Assert.assertEquals(connectAttempts.get(), 1);
+
+        Thread.sleep(300);
+        assertPublishFails(sink, events);
+        Assert.assertEquals(connectAttempts.get(), 2);
+        sink.close();
+    }
+
+    private static void assertPublishFails(JmsThrottleEventSink sink, ThrottleEvent[] events) {
+        try {
+            sink.publish(events, events.length);
+            Assert.fail("Publishing should fail when the broker is not available");
+        } catch (ThrottleException e) {
+            // expected
+        }
+    }
+}
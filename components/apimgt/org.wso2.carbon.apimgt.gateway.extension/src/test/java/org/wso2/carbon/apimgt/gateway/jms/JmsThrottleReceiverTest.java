@@ -0,0 +1,409 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.jms;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.apimgt.gateway.throttling.ThrottleDataHolder;
+import org.wso2.carbon.apimgt.gateway.throttling.constants.APIThrottleConstants;
+import org.wso2.carbon.apimgt.gateway.throttling.dto.JMSConfigDTO;
+import org.wso2.carbon.apimgt.gateway.throttling.dto.ThrottleDataSnapshotDTO;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import javax.jms.ExceptionListener;
+import javax.jms.JMSException;
+import javax.jms.MapMessage;
+import javax.jms.Message;
+import javax.jms.MessageListener;
+import javax.jms.Topic;
+import javax.jms.TopicConnection;
+import javax.jms.TopicConnectionFactory;
+import javax.jms.TopicSession;
+import javax.jms.TopicSubscriber;
+
+public class JmsThrottleReceiverTest {
+
+    private static final long TIMEOUT_MILLIS = 10000;
+
+    private final ThrottleDataHolder throttleDataHolder = ThrottleDataHolder.getInstance();
+    private ThrottleJMSListner listener;
+    private StubTopicBroker broker;
+    private JmsThrottleReceiver receiver;
+
+    @BeforeClass
+    public void createListener() {
+        listener = new ThrottleJMSListner(2, 100, 10);
+    }
+
+    @BeforeMethod
+    public void createBroker() {
+        broker = new StubTopicBroker();
+    }
+
+    @AfterMethod
+    public void stopReceiver() {
+        if (receiver != null) {
+            receiver.stop();
+            receiver = null;
+        }
+    }
+
+    @AfterClass
+    public void shutdownListener() {
+        listener.getMessageProcessor().shutdown();
+        throttleDataHolder.replaceThrottleData(Collections.emptyMap(), Collections.emptyMap());
+        throttleDataHolder.replaceBlockingConditions(Collections.emptyList(), Collections.emptyList(),
+                Collections.emptyList(), Collections.emptyList());
+        throttleDataHolder.replaceKeyTemplates(Collections.emptyList());
+        throttleDataHolder.markUpToDate();
+    }
+
+    @Test
+    public void testConnectsWithBackoffAndLoadsState() throws Exception {
+        broker.setAvailable(false);
+        // Blocking conditions and key templates the state of the traffic manager may not hold are kept
+        throttleDataHolder.addAPIBlockingCondition("/existing", "/existing");
+        throttleDataHolder.addKeyTemplate("$apiContext", "$apiContext");
+        long expiryTime = System.currentTimeMillis() + 60000;
+        ThrottleDataSnapshotDTO snapshot = new ThrottleDataSnapshotDTO();
+        snapshot.getThrottleKeys().put("/pets/1.0.0:1.0.0_default", expiryTime);
+        snapshot.getThrottleKeys().put("app1:admin", expiryTime);
+        snapshot.getApiBlockingConditions().add("/blocked");
+        snapshot.getIpBlockingConditions().add("carbon.super:10.0.0.0/8");
+        snapshot.getKeyTemplates().add("$userId");
+        AtomicInteger loads = new AtomicInteger();
+        receiver = new JmsThrottleReceiver(newConfig(), broker.getConnectionFactory(), listener, () -> {
+            loads.incrementAndGet();
+            return snapshot;
+        }, 10, 50);
+        receiver.start();
+
+        waitFor(() -> broker.getConnectAttempts() >= 4);
+        Assert.assertFalse(receiver.isConnected());
+        Assert.assertTrue(throttleDataHolder.isStale());
+        Assert.assertEquals(loads.get(), 0);
+
+        broker.setAvailable(true);
+        waitFor(() -> receiver.getResyncCount() == 1);
+        Assert.assertTrue(receiver.isConnected());
+        Assert.assertFalse(throttleDataHolder.isStale());
+        Assert.assertTrue(receiver.getConnectionFailureCount() >= 4);
+        Assert.assertTrue(throttleDataHolder.isThrottled("app1:admin"));
+        Assert.assertTrue(throttleDataHolder.isAPIThrottled("/pets/1.0.0:1.0.0"));
+        Assert.assertTrue(throttleDataHolder.isRequestBlocked("/blocked", null, null, null, null, null));
+        Assert.assertTrue(throttleDataHolder.getKeyTemplateMap().containsKey("$userId"));
+        Assert.assertTrue(throttleDataHolder.isKeyTemplatesPresent());
+        Assert.assertTrue(throttleDataHolder.isRequestBlocked("/existing", null, null, null, null, null));
+        Assert.assertTrue(throttleDataHolder.getKeyTemplateMap().containsKey("$apiContext"));
+    }
+
+    @Test
+    public void testStateIsReloadedAfterConnectionLoss() throws Exception {
+        AtomicReference<ThrottleDataSnapshotDTO> snapshot = new AtomicReference<>(new ThrottleDataSnapshotDTO());
+        receiver = new JmsThrottleReceiver(newConfig(), broker.getConnectionFactory(), listener, snapshot::get,
+                10, 50);
+        receiver.start();
+        waitFor(() -> receiver.getResyncCount() == 1);
+
+        long expiryTime = System.currentTimeMillis() + 60000;
+        broker.publish(throttleMessage("app2:admin", true, expiryTime));
+        broker.publish(blockingMessage(APIThrottleConstants.BLOCKING_CONDITIONS_USER, "blockedUser", true));
+        Assert.assertTrue(listener.getMessageProcessor().awaitIdle(TIMEOUT_MILLIS));
+        Assert.assertTrue(throttleDataHolder.isThrottled("app2:admin"));
+        Assert.assertTrue(throttleDataHolder.isRequestBlocked(null, null, null, "blockedUser", null, null));
+
+        broker.crash();
+        waitFor(() -> !receiver.isConnected());
+        Assert.assertTrue(throttleDataHolder.isStale());
+
+        // The decisions published while the connection is down are lost, and are only found in the loaded state
+        ThrottleDataSnapshotDTO updatedSnapshot = new ThrottleDataSnapshotDTO();
+        updatedSnapshot.getThrottleKeys().put("app3:admin", expiryTime);
+        snapshot.set(updatedSnapshot);
+        broker.publish(throttleMessage("app2:admin", false, 0));
+        broker.setAvailable(true);
+
+        waitFor(() -> receiver.getResyncCount() == 2);
+        Assert.assertFalse(throttleDataHolder.isStale());
+        Assert.assertFalse(throttleDataHolder.isThrottled("app2:admin"));
+        Assert.assertTrue(throttleDataHolder.isThrottled("app3:admin"));
+        // Blocking conditions are not removed by the loaded state, as it may not hold the ones published before the
+        // traffic manager subscribed
+        Assert.assertTrue(throttleDataHolder.isRequestBlocked(null, null, null, "blockedUser", null, null));
+
+        broker.publish(throttleMessage("app4:admin", true, expiryTime));
+        waitFor(() -> throttleDataHolder.isThrottled("app4:admin"));
+    }
+
+    @Test
+    public void testMessagesReceivedWhileLoadingAreAppliedAfterState() throws Exception {
+        long expiryTime = System.currentTimeMillis() + 60000;
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch loadReleased = new CountDownLatch(1);
+        ThrottleDataSnapshotDTO snapshot = new ThrottleDataSnapshotDTO();
+        snapshot.getThrottleKeys().put("app5:admin", expiryTime);
+        receiver = new JmsThrottleReceiver(newConfig(), broker.getConnectionFactory(), listener, () -> {
+            loadStarted.countDown();
+            await(loadReleased);
+            return snapshot;
+        }, 10, 50);
+        receiver.start();
+        Assert.assertTrue(loadStarted.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+
+        // Published after the state was read by the traffic manager, so these messages are newer than the state
+        broker.publish(throttleMessage("app5:admin", false, 0));
+        broker.publish(throttleMessage("app6:admin", true, expiryTime));
+        Thread.sleep(100);
+        Assert.assertFalse(throttleDataHolder.isThrottled("app6:admin"));
+
+        loadReleased.countDown();
+        waitFor(() -> receiver.getResyncCount() == 1);
+        Assert.assertTrue(listener.getMessageProcessor().awaitIdle(TIMEOUT_MILLIS));
+        Assert.assertFalse(throttleDataHolder.isThrottled("app5:admin"));
+        Assert.assertTrue(throttleDataHolder.isThrottled("app6:admin"));
+    }
+
+    @Test
+    public void testFailedLoadIsRetried() throws Exception {
+        long expiryTime = System.currentTimeMillis() + 60000;
+        ThrottleDataSnapshotDTO snapshot = new ThrottleDataSnapshotDTO();
+        snapshot.getThrottleKeys().put("app7:admin", expiryTime);
+        AtomicInteger loads = new AtomicInteger();
+        receiver = new JmsThrottleReceiver(newConfig(), broker.getConnectionFactory(), listener, () -> {
+            if (loads.incrementAndGet() <= 2) {
+                throw new IOException("Traffic manager is not available");
+            }
+            return snapshot;
+        }, 10, 50);
+        receiver.start();
+
+        waitFor(() -> receiver.getResyncCount() == 1);
+        Assert.assertEquals(receiver.getFailedResyncCount(), 2);
+        Assert.assertEquals(loads.get(), 3);
+        Assert.assertTrue(throttleDataHolder.isThrottled("app7:admin"));
+        Assert.assertFalse(throttleDataHolder.isStale());
+    }
+
+    @Test
+    public void testRetryIntervalBackoff() {
+        receiver = new JmsThrottleReceiver(newConfig(), broker.getConnectionFactory(), listener, null, 1000,
+                60000);
+        for (int attempt = 0; attempt < 100; attempt++) {
+            long expected = Math.min(60000, 1000L << Math.min(attempt, 30));
+            long interval = receiver.getRetryInterval(attempt);
+            Assert.assertTrue(interval >= expected * 0.8 && interval <= expected * 1.2,
+                    "Attempt " + attempt + ": " + interval);
+        }
+    }
+
+    private static JMSConfigDTO newConfig() {
+        JMSConfigDTO config = new JMSConfigDTO("admin", "admin", "throttleData");
+        config.setClientId("carbon");
+        config.setVirtualHostName("carbon");
+        return config;
+    }
+
+    private static MapMessage throttleMessage(String throttleKey, boolean throttled, long expiryTime) {
+        Map<String, String> values = new HashMap<>();
+        values.put(APIThrottleConstants.THROTTLE_KEY, throttleKey);
+        values.put(APIThrottleConstants.IS_THROTTLED, Boolean.toString(throttled));
+        values.put(APIThrottleConstants.EXPIRY_TIMESTAMP, Long.toString(expiryTime));
+        return mapMessage(values);
+    }
+
+    private static MapMessage blockingMessage(String condition, String value, boolean enabled) {
+        Map<String, String> values = new HashMap<>();
+        values.put(APIThrottleConstants.BLOCKING_CONDITION_KEY, condition);
+        values.put(APIThrottleConstants.BLOCKING_CONDITION_VALUE, value);
+        values.put(APIThrottleConstants.BLOCKING_CONDITION_STATE, Boolean.toString(enabled));
+        return mapMessage(values);
+    }
+
+    private static MapMessage mapMessage(Map<String, String> values) {
+        long timestamp = System.currentTimeMillis();
+        return proxy(MapMessage.class, (method, args) -> {
+            switch (method) {
+                case "getString":
+                    return values.get((String) args[0]);
+                case "getJMSTimestamp":
+                    return timestamp;
+                default:
+                    return null;
+            }
+        });
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!condition.getAsBoolean()) {
+            Assert.assertTrue(System.currentTimeMillis() < deadline, "Timed out waiting for the condition");
+            Thread.sleep(5);
+        }
+    }
+
+    private static void await(CountDownLatch latch) throws IOException {
+        try {
+            if (!latch.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                throw new IOException("Timed out");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+    }
+
+    private interface MethodHandler {
+        Object invoke(String method, Object[] args) throws Exception;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, MethodHandler handler) {
+        return (T) Proxy.newProxyInstance(JmsThrottleReceiverTest.class.getClassLoader(), new Class[] {type},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        case "toString":
+                            return type.getSimpleName() + "@" + System.identityHashCode(proxy);
+                        default:
+                            return handler.invoke(method.getName(), args);
+                    }
+                });
+    }
+
+    /**
+     * Stand-in for the message broker, which delivers the published messages to the subscribers of its live
+     * connections on the publishing thread. A crash closes all the connections and notifies their exception
+     * listeners, as a JMS client does when its connection is lost.
+     */
+    private static final class StubTopicBroker {
+
+        private final List<StubConnection> connections = new CopyOnWriteArrayList<>();
+        private final AtomicInteger connectAttempts = new AtomicInteger();
+        private volatile boolean available = true;
+
+        TopicConnectionFactory getConnectionFactory() {
+            return proxy(TopicConnectionFactory.class, (method, args) -> {
+                if (!"createTopicConnection".equals(method)) {
+                    throw new UnsupportedOperationException(method);
+                }
+                connectAttempts.incrementAndGet();
+                if (!available) {
+                    throw new JMSException("Connection refused");
+                }
+                StubConnection connection = new StubConnection();
+                connections.add(connection);
+                return connection.topicConnection;
+            });
+        }
+
+        int getConnectAttempts() {
+            return connectAttempts.get();
+        }
+
+        void setAvailable(boolean available) {
+            this.available = available;
+        }
+
+        void publish(Message message) {
+            for (StubConnection connection : connections) {
+                if (connection.started && !connection.closed) {
+                    for (MessageListener messageListener : connection.messageListeners) {
+                        messageListener.onMessage(message);
+                    }
+                }
+            }
+        }
+
+        void crash() {
+            available = false;
+            for (StubConnection connection : connections) {
+                connection.closed = true;
+                ExceptionListener exceptionListener = connection.exceptionListener;
+                if (exceptionListener != null) {
+                    new Thread(() -> exceptionListener.onException(new JMSException("Connection lost"))).start();
+                }
+            }
+            connections.clear();
+        }
+    }
+
+    private static final class StubConnection {
+
+        private final List<MessageListener> messageListeners = new CopyOnWriteArrayList<>();
+        private volatile ExceptionListener exceptionListener;
+        private volatile boolean started;
+        private volatile boolean closed;
+        private final TopicConnection topicConnection;
+
+        private StubConnection() {
+            TopicSubscriber subscriber = proxy(TopicSubscriber.class, (method, args) -> {
+                if ("setMessageListener".equals(method)) {
+                    messageListeners.add((MessageListener) args[0]);
+                }
+                return null;
+            });
+            Topic topic = proxy(Topic.class, (method, args) -> null);
+            TopicSession session = proxy(TopicSession.class, (method, args) -> {
+                switch (method) {
+                    case "createTopic":
+                        return topic;
+                    case "createSubscriber":
+                        return subscriber;
+                    default:
+                        return null;
+                }
+            });
+            topicConnection = proxy(TopicConnection.class, (method, args) -> {
+                switch (method) {
+                    case "setExceptionListener":
+                        exceptionListener = (ExceptionListener) args[0];
+                        return null;
+                    case "createTopicSession":
+                        return session;
+                    case "start":
+                        started = true;
+                        return null;
+                    case "close":
+                        closed = true;
+                        return null;
+                    default:
+                        return null;
+                }
+            });
+        }
+    }
+}
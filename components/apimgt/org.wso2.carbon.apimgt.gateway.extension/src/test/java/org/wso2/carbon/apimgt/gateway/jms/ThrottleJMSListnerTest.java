@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.jms;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.apimgt.gateway.throttling.ThrottleDataHolder;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class ThrottleJMSListnerTest {
+
+    // Patterns the throttle keys were matched with before they were parsed by hand
+    private static final Pattern API_PATTERN = Pattern.compile("/.*/(.*):\\1_(condition_(\\d*)|default)");
+    private static final Pattern RESOURCE_PATTERN =
+            Pattern.compile("/.*/(.*)/\\1(.*)?:[A-Z]{0,5}_(condition_(\\d*)|default)");
+
+    private ThrottleJMSListner listener;
+
+    @BeforeClass
+    public void createListener() {
+        listener = new ThrottleJMSListner(2, 100, 10);
+    }
+
+    @AfterClass
+    public void shutdownListener() {
+        listener.getMessageProcessor().shutdown();
+    }
+
+    @Test
+    public void testExtractAPIorResourceKey() {
+        Assert.assertEquals(ThrottleJMSListner.extractAPIorResourceKey("/pizzashack/1.0.0:1.0.0_condition_1"),
+                "/pizzashack/1.0.0:1.0.0");
+        Assert.assertEquals(ThrottleJMSListner.extractAPIorResourceKey("/pizzashack/1.0.0:1.0.0_default"),
+                "/pizzashack/1.0.0:1.0.0");
+        Assert.assertEquals(ThrottleJMSListner.extractAPIorResourceKey("/pizzashack/1.0.0/1.0.0/menu:GET_default"),
+                "/pizzashack/1.0.0/1.0.0/menu:GET");
+        Assert.assertEquals(
+                ThrottleJMSListner.extractAPIorResourceKey("/t/wso2.com/pizzashack/2.0/2.0/order/{id}:PUT_condition_"),
+                "/t/wso2.com/pizzashack/2.0/2.0/order/{id}:PUT");
+        Assert.assertNull(ThrottleJMSListner.extractAPIorResourceKey("/pizzashack/1.0.0:2.0.0_default"));
+        Assert.assertNull(ThrottleJMSListner.extractAPIorResourceKey("/pizzashack/1.0.0/menu:GET_default"));
+        Assert.assertNull(ThrottleJMSListner.extractAPIorResourceKey("/pizzashack/1.0.0/1.0.0/menu:GETPUT_default"));
+        Assert.assertNull(ThrottleJMSListner.extractAPIorResourceKey("app1:admin"));
+        Assert.assertNull(ThrottleJMSListner.extractAPIorResourceKey(""));
+    }
+
+    @Test
+    public void testExtractAPIorResourceKeyMatchesPatterns() {
+        String[] parts = {"/", "/", "/", ":", "1.0", "v1", "GET", "POST", "x", "_", "_default", "_condition_",
+                "_condition_12", "menu", "A"};
+        Random random = new Random(7);
+        for (int i = 0; i < 200000; i++) {
+            StringBuilder key = new StringBuilder("/");
+            int count = random.nextInt(10);
+            for (int j = 0; j < count; j++) {
+                key.append(parts[random.nextInt(parts.length)]);
+            }
+            String throttleKey = key.toString();
+            Assert.assertEquals(ThrottleJMSListner.extractAPIorResourceKey(throttleKey),
+                    extractWithPatterns(throttleKey), throttleKey);
+        }
+    }
+
+    @Test
+    public void testLaterDecisionInBatchIsApplied() {
+        String throttleKey = "/batch/1.0.0:1.0.0_condition_1";
+        long expiryTime = System.currentTimeMillis() + 60000;
+        listener.applyMessages(Arrays.asList(
+                ThrottleMessage.throttleDecision(throttleKey, true, expiryTime, 0),
+                ThrottleMessage.throttleDecision(throttleKey, false, expiryTime, 0)));
+        Assert.assertFalse(ThrottleDataHolder.getInstance().isThrottled(throttleKey));
+
+        listener.applyMessages(Arrays.asList(
+                ThrottleMessage.throttleDecision(throttleKey, false, expiryTime, 0),
+                ThrottleMessage.throttleDecision(throttleKey, true, expiryTime, 0)));
+        Assert.assertTrue(ThrottleDataHolder.getInstance().isThrottled(throttleKey));
+        Assert.assertTrue(ThrottleDataHolder.getInstance().isAPIThrottled("/batch/1.0.0:1.0.0"));
+
+        listener.applyMessages(Arrays.asList(ThrottleMessage.throttleDecision(throttleKey, false, expiryTime, 0)));
+        Assert.assertFalse(ThrottleDataHolder.getInstance().isThrottled(throttleKey));
+        Assert.assertFalse(ThrottleDataHolder.getInstance().isAPIThrottled("/batch/1.0.0:1.0.0"));
+    }
+
+    private static String extractWithPatterns(String throttleKey) {
+        Matcher m = RESOURCE_PATTERN.matcher(throttleKey);
+        if (!m.matches()) {
+            m = API_PATTERN.matcher(throttleKey);
+            if (!m.matches()) {
+                return null;
+            }
+        }
+        // The key ends before the matched condition suffix, even if the same suffix appears earlier in the key
+        return throttleKey.substring(0, m.start(m.groupCount() - 1) - 1);
+    }
+}
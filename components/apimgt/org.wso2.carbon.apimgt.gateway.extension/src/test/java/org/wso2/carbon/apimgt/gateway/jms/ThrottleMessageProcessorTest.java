@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.jms;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class ThrottleMessageProcessorTest {
+
+    @Test
+    public void testMessagesOfKeyAreAppliedInOrder() throws Exception {
+        Map<String, List<Long>> applied = new ConcurrentHashMap<>();
+        int keys = 20;
+        int messagesPerKey = 500;
+        CountDownLatch latch = new CountDownLatch(keys * messagesPerKey);
+        ThrottleMessageProcessor processor = new ThrottleMessageProcessor(batch -> {
+            for (ThrottleMessage message : batch) {
+                applied.computeIfAbsent(message.getKey(), key -> new ArrayList<>()).add(message.getExpiryTime());
+                latch.countDown();
+            }
+        }, 4, 50, 16);
+
+        for (int i = 0; i < messagesPerKey; i++) {
+            for (int key = 0; key < keys; key++) {
+                Assert.assertTrue(processor.submit(ThrottleMessage.throttleDecision("key" + key, true, i, 0)));
+            }
+        }
+        Assert.assertTrue(latch.await(10, TimeUnit.SECONDS));
+        processor.shutdown();
+
+        Assert.assertEquals(applied.size(), keys);
+        for (List<Long> expiryTimes : applied.values()) {
+            Assert.assertEquals(expiryTimes.size(), messagesPerKey);
+            for (int i = 0; i < messagesPerKey; i++) {
+                Assert.assertEquals(expiryTimes.get(i).longValue(), i);
+            }
+        }
+        Assert.assertEquals(processor.getAppliedMessageCount(), keys * messagesPerKey);
+        Assert.assertTrue(processor.getAppliedBatchCount() < keys * messagesPerKey);
+        Assert.assertEquals(processor.getPendingMessageCount(), 0);
+        Assert.assertFalse(processor.submit(ThrottleMessage.throttleDecision("key0", true, 0, 0)));
+    }
+
+    @Test
+    public void testDecisionLag() throws Exception {
+        CountDownLatch latch = new CountDownLatch(2);
+        ThrottleMessageProcessor processor = new ThrottleMessageProcessor(batch -> {
+            for (ThrottleMessage message : batch) {
+                latch.countDown();
+            }
+        }, 1, 10, 10);
+        long currentTime = System.currentTimeMillis();
+        processor.submit(ThrottleMessage.throttleDecision("key", true, 0, currentTime - 500));
+        // A message without a publish time is not counted in the lag
+        processor.submit(ThrottleMessage.keyTemplate("$userId", true, 0));
+        Assert.assertTrue(latch.await(10, TimeUnit.SECONDS));
+        processor.shutdown();
+
+        Assert.assertTrue(processor.getMaxDecisionLag() >= 500);
+        Assert.assertEquals(processor.getAverageDecisionLag(), (double) processor.getMaxDecisionLag());
+        Assert.assertEquals(processor.getLastDecisionLag(), processor.getMaxDecisionLag());
+    }
+
+    @Test
+    public void testWorkerSurvivesFailure() throws Exception {
+        CountDownLatch latch = new CountDownLatch(1);
+        ThrottleMessageProcessor processor = new ThrottleMessageProcessor(batch -> {
+            if ("bad".equals(batch.get(0).getKey())) {
+                throw new IllegalStateException("Failed to apply");
+            }
+            latch.countDown();
+        }, 1, 10, 1);
+        processor.submit(ThrottleMessage.throttleDecision("bad", true, 0, 0));
+        processor.submit(ThrottleMessage.throttleDecision("good", true, 0, 0));
+        Assert.assertTrue(latch.await(10, TimeUnit.SECONDS));
+        processor.shutdown();
+        Assert.assertEquals(processor.getFailedMessageCount(), 1);
+        Assert.assertEquals(processor.getAppliedMessageCount(), 1);
+    }
+}
@@ -0,0 +1,267 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.metrics;
+
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.apimgt.gateway.throttling.ThrottleDataHolder;
+import org.wso2.carbon.apimgt.gateway.throttling.constants.APIThrottleConstants;
+import org.wso2.carbon.messaging.CarbonMessage;
+import org.wso2.carbon.messaging.DefaultCarbonMessage;
+
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+public class GatewayMetricsTest {
+
+    private static final Logger log = LoggerFactory.getLogger(GatewayMetricsTest.class);
+
+    @BeforeClass
+    public void enableMetrics() {
+        // Metrics are disabled by default, and timings are only attached to requests while they are enabled
+        GatewayMetrics.setInstance(new GatewayMetrics(true, 100));
+    }
+
+    @AfterClass
+    public void resetMetrics() {
+        GatewayMetrics.setInstance(null);
+    }
+
+    @Test
+    public void testTimingsAreAttachedToMessage() {
+        CarbonMessage carbonMessage = newMessage("/pets", "1.0.0");
+        RequestTimings timings = RequestTimings.get(carbonMessage);
+        Assert.assertSame(RequestTimings.get(carbonMessage), timings);
+        Assert.assertSame(RequestTimings.find(carbonMessage), timings);
+        Assert.assertNull(RequestTimings.find(new DefaultCarbonMessage()));
+
+        timings.add(Stage.ANALYTICS, 1000);
+        timings.add(Stage.ANALYTICS, 500);
+        timings.stop(Stage.BACKEND);
+        Assert.assertEquals(timings.getDurationNanos(Stage.ANALYTICS), 1500);
+        Assert.assertEquals(timings.getDurationNanos(Stage.BACKEND), -1);
+        Assert.assertNull(timings.getDurationMillis(Stage.BACKEND));
+
+        timings.start(Stage.BACKEND);
+        timings.stop(Stage.BACKEND);
+        Assert.assertTrue(timings.getDurationNanos(Stage.BACKEND) >= 0);
+        timings.add(Stage.THROTTLING, TimeUnit.MILLISECONDS.toNanos(12));
+        Assert.assertEquals(timings.getDurationMillis(Stage.THROTTLING), "12");
+        Assert.assertEquals(GatewayMetrics.getApiName(carbonMessage), "/pets:1.0.0");
+        Assert.assertEquals(GatewayMetrics.getApiName(new DefaultCarbonMessage()), GatewayMetrics.UNKNOWN_API);
+    }
+
+    @Test
+    public void testStageLatenciesAreRecorded() {
+        GatewayMetrics metrics = new GatewayMetrics(true, 10);
+        for (int i = 1; i <= 100; i++) {
+            RequestTimings timings = RequestTimings.get(newMessage("/pets", "1.0.0"));
+            timings.add(Stage.AUTHENTICATION, TimeUnit.MICROSECONDS.toNanos(i));
+            timings.add(Stage.BACKEND, TimeUnit.MILLISECONDS.toNanos(i));
+            metrics.record("/pets:1.0.0", timings);
+        }
+        StageLatencyHistogram auth = metrics.getHistogram("/pets:1.0.0", Stage.AUTHENTICATION);
+        Assert.assertEquals(auth.getTotalCount(), 100);
+        Assert.assertEquals(auth.getMax(), TimeUnit.MICROSECONDS.toNanos(100));
+        Assert.assertEquals(metrics.getRequestCount("/pets:1.0.0", "throttle"), 0);
+        Assert.assertEquals(metrics.getRequestCount("/pets:1.0.0", "backend"), 100);
+        Assert.assertEquals(metrics.getMeanLatencyMicros("/pets:1.0.0", "auth"), 50.5, 0.001);
+        assertWithin(metrics.getLatencyPercentileMicros("/pets:1.0.0", "auth", 50), 50);
+        assertWithin(metrics.getLatencyPercentileMicros("/pets:1.0.0", "auth", 99), 99);
+        assertWithin(metrics.getLatencyPercentileMicros("/pets:1.0.0", "backend", 90), 90000);
+        Assert.assertEquals(metrics.getLatencyPercentileMicros("/pets:1.0.0", "unknown", 90), 0.0);
+        Assert.assertEquals(metrics.getLatencyPercentileMicros("/cats:1.0.0", "auth", 90), 0.0);
+    }
+
+    @Test
+    public void testConcurrentRecording() throws Exception {
+        StageLatencyHistogram histogram = new StageLatencyHistogram();
+        int threads = 8;
+        int valuesPerThread = 100000;
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        List<Future<?>> results = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            results.add(executorService.submit(() -> {
+                for (int value = 1; value <= valuesPerThread; value++) {
+                    histogram.record(value);
+                }
+            }));
+        }
+        for (Future<?> result : results) {
+            result.get(30, TimeUnit.SECONDS);
+        }
+        executorService.shutdown();
+        Assert.assertEquals(histogram.getTotalCount(), (long) threads * valuesPerThread);
+        Assert.assertEquals(histogram.getSum(), (long) threads * valuesPerThread * (valuesPerThread + 1) / 2);
+        Assert.assertEquals(histogram.getMax(), valuesPerThread);
+        assertWithin(histogram.getValueAtPercentile(50), valuesPerThread / 2);
+        Assert.assertEquals(histogram.getValueAtPercentile(100), valuesPerThread);
+    }
+
+    @Test
+    public void testApisAreBounded() {
+        GatewayMetrics metrics = new GatewayMetrics(true, 5);
+        for (int i = 0; i < 20; i++) {
+            RequestTimings timings = RequestTimings.get(newMessage("/api" + i, "1.0.0"));
+            timings.add(Stage.THROTTLING, 1000);
+            metrics.record("/api" + i + ":1.0.0", timings);
+        }
+        Assert.assertEquals(metrics.getApis().length, 6);
+        Assert.assertEquals(metrics.getRequestCount(GatewayMetrics.OVERFLOW_API, "throttle"), 15);
+        Assert.assertEquals(metrics.getRequestCount("/api4:1.0.0", "throttle"), 1);
+        metrics.reset();
+        Assert.assertEquals(metrics.getApis().length, 0);
+    }
+
+    @Test
+    public void testDisabledMetricsAreNotRecorded() {
+        GatewayMetrics metrics = new GatewayMetrics(false, 5);
+        RequestTimings timings = RequestTimings.get(newMessage("/pets", "1.0.0"));
+        timings.add(Stage.THROTTLING, 1000);
+        metrics.record("/pets:1.0.0", timings);
+        Assert.assertEquals(metrics.getApis().length, 0);
+    }
+
+    @Test
+    public void testThrottleDataStaleness() {
+        GatewayMetrics metrics = new GatewayMetrics(true, 10);
+        ThrottleDataHolder throttleDataHolder = ThrottleDataHolder.getInstance();
+        try {
+            throttleDataHolder.markUpToDate();
+            Assert.assertEquals(metrics.getThrottleDataStaleSeconds(), 0.0);
+            Assert.assertTrue(metrics.scrape().contains(GatewayMetrics.THROTTLE_DATA_STALE_METRIC_NAME + " 0.0\n"));
+
+            throttleDataHolder.markStale();
+            Assert.assertTrue(metrics.getThrottleDataStaleSeconds() >= 0);
+            Assert.assertTrue(metrics.scrape().contains("# TYPE " + GatewayMetrics.THROTTLE_DATA_STALE_METRIC_NAME
+                    + " gauge\n"));
+        } finally {
+            throttleDataHolder.markUpToDate();
+        }
+    }
+
+    @Test
+    public void testPrometheusScrape() throws Exception {
+        GatewayMetrics metrics = new GatewayMetrics(true, 10);
+        // The staleness of the throttle data is scraped as well, and should not change between the two scrapes
+        ThrottleDataHolder.getInstance().markUpToDate();
+        RequestTimings timings = RequestTimings.get(newMessage("/pets", "1.0.0"));
+        timings.add(Stage.BACKEND, TimeUnit.MILLISECONDS.toNanos(20));
+        metrics.record("/pe\"ts:1.0.0", timings);
+
+        metrics.startScrapeServer("localhost", 0);
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:"
+                    + metrics.getScrapePort() + MetricsScrapeServer.PATH).openConnection();
+            Assert.assertEquals(connection.getResponseCode(), 200);
+            Assert.assertTrue(connection.getContentType().startsWith("text/plain; version=0.0.4"));
+            String body;
+            try (InputStream inputStream = connection.getInputStream()) {
+                body = new String(IOUtils.toByteArray(inputStream), StandardCharsets.UTF_8);
+            }
+            Assert.assertEquals(body, metrics.scrape());
+            String labels = "{api=\"/pe\\\"ts:1.0.0\",stage=\"backend\"";
+            Assert.assertTrue(body.contains("# TYPE " + GatewayMetrics.METRIC_NAME + " summary\n"), body);
+            Assert.assertTrue(body.contains(GatewayMetrics.METRIC_NAME + labels + ",quantile=\"0.5\"} 0.02"), body);
+            Assert.assertTrue(body.contains(GatewayMetrics.METRIC_NAME + "_sum" + labels + "} 0.02\n"), body);
+            Assert.assertTrue(body.contains(GatewayMetrics.METRIC_NAME + "_count" + labels + "} 1\n"), body);
+            Assert.assertFalse(body.contains("stage=\"auth\""), body);
+        } finally {
+            metrics.stopScrapeServer();
+        }
+        Assert.assertEquals(metrics.getScrapePort(), -1);
+    }
+
+    @Test
+    public void testMBeanIsRegistered() throws Exception {
+        GatewayMetrics metrics = new GatewayMetrics(true, 10);
+        RequestTimings timings = RequestTimings.get(newMessage("/pets", "1.0.0"));
+        timings.add(Stage.AUTHENTICATION, 1000);
+        metrics.record("/pets:1.0.0", timings);
+        metrics.registerMBean();
+
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName = new ObjectName(GatewayMetrics.OBJECT_NAME);
+        Assert.assertEquals((String[]) mBeanServer.getAttribute(objectName, "Apis"), new String[] {"/pets:1.0.0"});
+        Object count = mBeanServer.invoke(objectName, "getRequestCount", new Object[] {"/pets:1.0.0", "auth"},
+                new String[] {String.class.getName(), String.class.getName()});
+        Assert.assertEquals(count, 1L);
+    }
+
+    @Test(groups = "perf")
+    public void testOverheadPerRequest() {
+        GatewayMetrics metrics = new GatewayMetrics(true, 100);
+        CarbonMessage[] messages = new CarbonMessage[1000];
+        for (int i = 0; i < messages.length; i++) {
+            messages[i] = newMessage("/api" + (i % 50), "1.0.0");
+        }
+        // Warm up, then measure the instrumentation of a request across all the stages
+        int requests = 1000000;
+        runRequests(metrics, messages, requests);
+        long startTime = System.nanoTime();
+        runRequests(metrics, messages, requests);
+        long nanosPerRequest = (System.nanoTime() - startTime) / requests;
+        log.info("Latency instrumentation takes {} ns per request", nanosPerRequest);
+        Assert.assertEquals(metrics.getRequestCount("/api0:1.0.0", "auth"), 2 * requests / 50);
+        Assert.assertTrue(nanosPerRequest < 1000, "Overhead per request: " + nanosPerRequest + " ns");
+    }
+
+    private static void runRequests(GatewayMetrics metrics, CarbonMessage[] messages, int requests) {
+        for (int i = 0; i < requests; i++) {
+            // The messages are reused, so the timings of the previous request are removed first
+            CarbonMessage carbonMessage = messages[i % messages.length];
+            carbonMessage.removeProperty(RequestTimings.PROPERTY_NAME);
+            long startTime = System.nanoTime();
+            RequestTimings timings = RequestTimings.get(carbonMessage);
+            timings.add(Stage.AUTHENTICATION, System.nanoTime() - startTime);
+            timings.add(Stage.THROTTLING, System.nanoTime() - startTime);
+            timings.start(Stage.BACKEND);
+            RequestTimings.find(carbonMessage).stop(Stage.BACKEND);
+            timings.add(Stage.ANALYTICS, System.nanoTime() - startTime);
+            metrics.record(GatewayMetrics.getApiName(carbonMessage), timings);
+        }
+    }
+
+    private static CarbonMessage newMessage(String context, String version) {
+        CarbonMessage carbonMessage = new DefaultCarbonMessage();
+        carbonMessage.setProperty(APIThrottleConstants.REST_API_CONTEXT, context);
+        carbonMessage.setProperty("REST_API_VERSION", version);
+        return carbonMessage;
+    }
+
+    private static void assertWithin(double reported, double expected) {
+        Assert.assertTrue(Math.abs(reported - expected) <= expected * 0.035, reported + " vs " + expected);
+    }
+}
@@ -0,0 +1,123 @@
+/*
+*  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.carbon.apimgt.gateway.resource;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.apimgt.gateway.throttling.constants.APIThrottleConstants;
+import org.wso2.carbon.apimgt.gateway.throttling.dto.VerbInfoDTO;
+import org.wso2.carbon.messaging.CarbonMessage;
+import org.wso2.carbon.messaging.DefaultCarbonMessage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class APIResourceDataHolderTest {
+
+    @Test
+    public void testMostSpecificTemplateIsMatched() {
+        APIResourceDataHolder dataHolder = new APIResourceDataHolder(10, 60000, 0, (apiContext, apiVersion) ->
+                Arrays.asList(createResourceDTO("/*", "GET"), createResourceDTO("/menu", "GET"),
+                        createResourceDTO("/menu/{id}", "GET"), createResourceDTO("/menu/{id}", "DELETE"),
+                        createResourceDTO("/menu/{id}/*", "GET"), createResourceDTO("/menu/special", "GET"),
+                        createResourceDTO("/files/{name}.json", "GET")));
+
+        Assert.assertEquals(getUriTemplate(dataHolder, "GET", "/menu"), "/menu");
+        Assert.assertEquals(getUriTemplate(dataHolder, "GET", "/menu/"), "/menu");
+        Assert.assertEquals(getUriTemplate(dataHolder, "GET", "/menu/42?size=large"), "/menu/{id}");
+        Assert.assertEquals(getUriTemplate(dataHolder, "delete", "/menu/42"), "/menu/{id}");
+        Assert.assertEquals(getUriTemplate(dataHolder, "GET", "/menu/special"), "/menu/special");
+        Assert.assertEquals(getUriTemplate(dataHolder, "GET", "/menu/42/items/1"), "/menu/{id}/*");
+        Assert.assertEquals(getUriTemplate(dataHolder, "GET", "/files/report.json"), "/files/{name}.json");
+        Assert.assertEquals(getUriTemplate(dataHolder, "GET", "/files/report.xml"), "/*");
+        Assert.assertEquals(getUriTemplate(dataHolder, "GET", ""), "/*");
+        Assert.assertNull(getUriTemplate(dataHolder, "DELETE", "/menu"));
+        Assert.assertNull(getUriTemplate(dataHolder, "POST", "/menu/42"));
+    }
+
+    @Test
+    public void testResourceIsAttachedToRequest() {
+        AtomicInteger loadCount = new AtomicInteger();
+        APIResourceDataHolder dataHolder = new APIResourceDataHolder(10, 60000, 0, (apiContext, apiVersion) -> {
+            loadCount.incrementAndGet();
+            ResourceDTO resourceDTO = createResourceDTO("/menu/{id}", "GET");
+            resourceDTO.setProductionMaxTps(100L);
+            resourceDTO.setScopes(Arrays.asList("menu_read", "menu_write"));
+            return new ArrayList<>(Arrays.asList(resourceDTO));
+        });
+        CarbonMessage message = createMessage("GET", "/menu/1");
+        VerbInfoDTO verbInfoDTO = dataHolder.getVerbInfo(message);
+        Assert.assertNotNull(verbInfoDTO);
+        Assert.assertSame(message.getProperty(APIThrottleConstants.VERB_INFO_DTO), verbInfoDTO);
+        Assert.assertEquals(verbInfoDTO.getRequestKey(), "/api/1.0.0/menu/{id}:GET");
+        Assert.assertEquals(verbInfoDTO.getProductionMaxTps(), Long.valueOf(100));
+        Assert.assertNull(verbInfoDTO.getSandboxMaxTps());
+        Assert.assertEquals(verbInfoDTO.getScope(), "menu_read");
+        Assert.assertSame(dataHolder.getVerbInfo(message), verbInfoDTO);
+        Assert.assertSame(dataHolder.getVerbInfo(createMessage("GET", "/menu/2")), verbInfoDTO);
+        Assert.assertEquals(loadCount.get(), 1);
+
+        CarbonMessage unmatched = createMessage("GET", "/orders");
+        Assert.assertNull(dataHolder.getVerbInfo(unmatched));
+        Assert.assertNull(unmatched.getProperty(APIThrottleConstants.VERB_INFO_DTO));
+    }
+
+    @Test
+    public void testLoadsAreBlockedAfterFailedLoad() {
+        AtomicInteger loadCount = new AtomicInteger();
+        APIResourceDataHolder dataHolder = new APIResourceDataHolder(10, 60000, 60000, (apiContext, apiVersion) -> {
+            loadCount.incrementAndGet();
+            return null;
+        });
+        Assert.assertNull(dataHolder.getVerbInfo("/api", "1.0.0", "GET", "/menu"));
+        Assert.assertNull(dataHolder.getVerbInfo("/other", "1.0.0", "GET", "/menu"));
+        Assert.assertEquals(loadCount.get(), 1);
+        Assert.assertEquals(dataHolder.getApiCount(), 0);
+    }
+
+    private static String getUriTemplate(APIResourceDataHolder dataHolder, String httpMethod, String postfix) {
+        VerbInfoDTO verbInfoDTO = dataHolder.getVerbInfo("/api", "1.0.0", httpMethod, postfix);
+        if (verbInfoDTO == null) {
+            return null;
+        }
+        // {apiContext}/{apiVersion}{resourceUri}:{httpMethod}
+        String requestKey = verbInfoDTO.getRequestKey();
+        return requestKey.substring("/api/1.0.0".length(), requestKey.lastIndexOf(':'));
+    }
+
+    private static CarbonMessage createMessage(String httpMethod, String postfix) {
+        CarbonMessage message = new DefaultCarbonMessage();
+        message.setProperty(APIThrottleConstants.REST_API_CONTEXT, "/api");
+        message.setProperty(APIThrottleConstants.REST_API_VERSION, "1.0.0");
+        message.setProperty(APIThrottleConstants.HTTP_METHOD, httpMethod);
+        message.setProperty(APIThrottleConstants.REST_URL_POSTFIX, postfix);
+        return message;
+    }
+
+    private static ResourceDTO createResourceDTO(String uriTemplate, String httpVerb) {
+        ResourceDTO resourceDTO = new ResourceDTO();
+        resourceDTO.setUriTemplate(uriTemplate);
+        resourceDTO.setHttpVerb(httpVerb);
+        resourceDTO.setAuthType("Application & Application User");
+        resourceDTO.setPolicy("Unlimited");
+        return resourceDTO;
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.apimgt.gateway.security;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.apimgt.gateway.exception.APIKeyMgtException;
+import org.wso2.carbon.apimgt.gateway.models.APIKeyValidationInfoDTO;
+import org.wso2.carbon.apimgt.gateway.models.TokenValidationContext;
+import org.wso2.carbon.apimgt.gateway.resource.APIResourceDataHolder;
+import org.wso2.carbon.apimgt.gateway.resource.ResourceDTO;
+import org.wso2.carbon.apimgt.gateway.security.handlers.KeyValidationHandler;
+import org.wso2.carbon.apimgt.gateway.throttling.constants.APIThrottleConstants;
+import org.wso2.carbon.apimgt.gateway.utils.KeyManagerConstants;
+import org.wso2.carbon.messaging.CarbonMessage;
+import org.wso2.carbon.messaging.DefaultCarbonMessage;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+public class OAuthAuthenticatorTest {
+
+    private static final String VALID_TOKEN = "valid-token";
+    private static final String TOKEN_SCOPE = "read";
+    private static final APIResourceDataHolder EMPTY_DATA_HOLDER = new APIResourceDataHolder(10, 60000, 0,
+            (apiContext, apiVersion) -> Collections.emptyList());
+
+    @Test
+    public void testValidToken() throws Exception {
+        StubHandler handler = new StubHandler();
+        CarbonMessage message = new DefaultCarbonMessage();
+        message.setHeader("Authorization", "Bearer " + VALID_TOKEN);
+        message.setProperty("REST_API_CONTEXT", "/pets");
+        message.setProperty("REST_API_VERSION", "1.0.0");
+
+        Assert.assertTrue(new OAuthAuthenticator(handler, EMPTY_DATA_HOLDER).authenticate(message));
+        Assert.assertEquals(handler.context.getAccessToken(), VALID_TOKEN);
+        Assert.assertEquals(handler.context.getContext(), "/pets");
+        Assert.assertEquals(handler.context.getVersion(), "1.0.0");
+    }
+
+    @Test
+    public void testInvalidToken() {
+        CarbonMessage message = new DefaultCarbonMessage();
+        message.setHeader("Authorization", "Bearer other-token");
+        assertFailure(message, KeyManagerConstants.KeyValidationStatus.API_AUTH_ACCESS_TOKEN_EXPIRED);
+    }
+
+    @Test
+    public void testTokenWithoutRequiredScopeIsRejected() throws Exception {
+        // The scopes are resolved from the resources of the API, as returned by the API manager core
+        APIResourceDataHolder dataHolder = new APIResourceDataHolder(10, 60000, 0, (apiContext, apiVersion) ->
+                Arrays.asList(createResourceDTO("/pets/{id}", "DELETE", "admin"),
+                        createResourceDTO("/pets/{id}", "GET", TOKEN_SCOPE),
+                        createResourceDTO("/health", "GET", null)));
+
+        try {
+            new OAuthAuthenticator(new StubHandler(), dataHolder).authenticate(createMessage("DELETE", "/pets/1"));
+            Assert.fail("Request should not be authenticated");
+        } catch (APIKeyMgtException e) {
+            Assert.assertEquals(e.getErrorCode(), KeyManagerConstants.KeyValidationStatus.INVALID_SCOPE);
+        }
+
+        StubHandler handler = new StubHandler();
+        CarbonMessage readMessage = createMessage("GET", "/pets/1?details=true");
+        Assert.assertTrue(new OAuthAuthenticator(handler, dataHolder).authenticate(readMessage));
+        Assert.assertEquals(handler.context.getAttribute(KeyManagerConstants.REQUIRED_SCOPES), TOKEN_SCOPE);
+        Assert.assertEquals(handler.context.getHttpVerb(), "GET");
+        Assert.assertNotNull(readMessage.getProperty(APIThrottleConstants.VERB_INFO_DTO));
+
+        handler = new StubHandler();
+        Assert.assertTrue(new OAuthAuthenticator(handler, dataHolder).authenticate(createMessage("GET", "/health")));
+        Assert.assertNull(handler.context.getAttribute(KeyManagerConstants.REQUIRED_SCOPES));
+    }
+
+    @Test
+    public void testMissingToken() {
+        assertFailure(new DefaultCarbonMessage(), KeyManagerConstants.KeyValidationStatus.API_AUTH_MISSING_CREDENTIALS);
+
+        CarbonMessage basicAuthMessage = new DefaultCarbonMessage();
+        basicAuthMessage.setHeader("Authorization", "Basic YWRtaW46YWRtaW4=");
+        assertFailure(basicAuthMessage, KeyManagerConstants.KeyValidationStatus.API_AUTH_MISSING_CREDENTIALS);
+    }
+
+    private static CarbonMessage createMessage(String httpMethod, String postfix) {
+        CarbonMessage message = new DefaultCarbonMessage();
+        message.setHeader("Authorization", "Bearer " + VALID_TOKEN);
+        message.setProperty(APIThrottleConstants.REST_API_CONTEXT, "/pets");
+        message.setProperty(APIThrottleConstants.REST_API_VERSION, "1.0.0");
+        message.setProperty(APIThrottleConstants.HTTP_METHOD, httpMethod);
+        message.setProperty(APIThrottleConstants.REST_URL_POSTFIX, postfix);
+        return message;
+    }
+
+    private static ResourceDTO createResourceDTO(String uriTemplate, String httpVerb, String scope) {
+        ResourceDTO resourceDTO = new ResourceDTO();
+        resourceDTO.setUriTemplate(uriTemplate);
+        resourceDTO.setHttpVerb(httpVerb);
+        resourceDTO.setAuthType("Application & Application User");
+        resourceDTO.setPolicy("Unlimited");
+        if (scope != null) {
+            resourceDTO.setScopes(Collections.singletonList(scope));
+        }
+        return resourceDTO;
+    }
+
+    private static void assertFailure(CarbonMessage message, int errorCode) {
+        try {
+            new OAuthAuthenticator(new StubHandler(), EMPTY_DATA_HOLDER).authenticate(message);
+            Assert.fail("Request should not be authenticated");
+        } catch (APIKeyMgtException e) {
+            Assert.assertEquals(e.getErrorCode(), errorCode);
+        }
+    }
+
+    private static class StubHandler implements KeyValidationHandler {
+
+        private TokenValidationContext context;
+
+        @Override
+        public boolean validateToken(TokenValidationContext tokenValidationContext) {
+            context = tokenValidationContext;
+            boolean valid = VALID_TOKEN.equals(tokenValidationContext.getAccessToken());
+            APIKeyValidationInfoDTO validationInfoDTO = new APIKeyValidationInfoDTO();
+            validationInfoDTO.setAuthorized(valid);
+            if (!valid) {
+                validationInfoDTO.setValidationStatus(
+                        KeyManagerConstants.KeyValidationStatus.API_AUTH_ACCESS_TOKEN_EXPIRED);
+            }
+            tokenValidationContext.setValidationInfoDTO(validationInfoDTO);
+            return valid;
+        }
+
+        @Override
+        public boolean validateScopes(TokenValidationContext tokenValidationContext) {
+            Object requiredScopes = tokenValidationContext.getAttribute(KeyManagerConstants.REQUIRED_SCOPES);
+            return requiredScopes == null || TOKEN_SCOPE.equals(requiredScopes);
+        }
+
+        @Override
+        public boolean generateConsumerToken(TokenValidationContext tokenValidationContext) {
+            return false;
+        }
+    }
+}
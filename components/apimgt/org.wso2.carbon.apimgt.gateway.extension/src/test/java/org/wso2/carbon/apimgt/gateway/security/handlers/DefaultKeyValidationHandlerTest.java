@@ -0,0 +1,225 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.security.handlers;
+
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.io.IOUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.apimgt.gateway.exception.APIKeyMgtException;
+import org.wso2.carbon.apimgt.gateway.http.GatewayHttpClient;
+import org.wso2.carbon.apimgt.gateway.http.HttpClientConfiguration;
+import org.wso2.carbon.apimgt.gateway.models.AccessTokenInfo;
+import org.wso2.carbon.apimgt.gateway.models.TokenValidationContext;
+import org.wso2.carbon.apimgt.gateway.utils.KeyManagerConstants;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class DefaultKeyValidationHandlerTest {
+
+    private static final String ACTIVE_TOKEN = "active-token";
+    private static final String SLOW_TOKEN = "slow-token";
+
+    private HttpServer introspectServer;
+    private String introspectEndpoint;
+    private final GatewayHttpClient httpClient = new GatewayHttpClient(new HttpClientConfiguration());
+    private final ConcurrentHashMap<String, AtomicInteger> introspectCalls = new ConcurrentHashMap<>();
+
+    @BeforeClass
+    public void startIntrospectServer() throws Exception {
+        introspectServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        introspectServer.setExecutor(Executors.newCachedThreadPool());
+        introspectServer.createContext("/oauth2/introspect", exchange -> {
+            String token = new String(IOUtils.toByteArray(exchange.getRequestBody()), StandardCharsets.UTF_8)
+                    .substring("token=".length());
+            introspectCalls.computeIfAbsent(token, key -> new AtomicInteger()).incrementAndGet();
+            String response;
+            if (token.startsWith(ACTIVE_TOKEN) || SLOW_TOKEN.equals(token)) {
+                if (SLOW_TOKEN.equals(token)) {
+                    sleep(200);
+                }
+                long exp = System.currentTimeMillis() / 1000 + 3600;
+                response = "{\"active\":true,\"client_id\":\"consumerKey\",\"username\":\"admin\",\"exp\":" + exp
+                        + ",\"iat\":" + (exp - 3600) + ",\"scope\":\"read write\"}";
+            } else {
+                response = "{\"active\":false}";
+            }
+            byte[] body = response.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(body);
+            }
+        });
+        introspectServer.start();
+        introspectEndpoint = "http://localhost:" + introspectServer.getAddress().getPort() + "/oauth2/introspect";
+    }
+
+    @BeforeMethod
+    public void resetCalls() {
+        introspectCalls.clear();
+    }
+
+    @Test
+    public void testValidTokenIsCached() throws Exception {
+        TokenInfoCache cache = new TokenInfoCache(100, 60000, 1000);
+        DefaultKeyValidationHandler handler = new DefaultKeyValidationHandler(introspectEndpoint, cache, httpClient);
+        for (int i = 0; i < 5; i++) {
+            TokenValidationContext context = new TokenValidationContext();
+            context.setAccessToken(ACTIVE_TOKEN);
+            Assert.assertTrue(handler.validateToken(context));
+            Assert.assertEquals(context.getValidationInfoDTO().getConsumerKey(), "consumerKey");
+            Assert.assertTrue(context.getValidationInfoDTO().getScopes().contains("write"));
+        }
+        Assert.assertEquals(introspectCalls.get(ACTIVE_TOKEN).get(), 1);
+        Assert.assertEquals(cache.getMissCount(), 1);
+        Assert.assertEquals(cache.getHitCount(), 4);
+    }
+
+    @Test
+    public void testInvalidTokenIsCachedForShortTime() throws Exception {
+        TokenInfoCache cache = new TokenInfoCache(100, 60000, 100);
+        DefaultKeyValidationHandler handler = new DefaultKeyValidationHandler(introspectEndpoint, cache, httpClient);
+        for (int i = 0; i < 3; i++) {
+            TokenValidationContext context = new TokenValidationContext();
+            context.setAccessToken("revoked-token");
+            Assert.assertFalse(handler.validateToken(context));
+            Assert.assertEquals(context.getValidationInfoDTO().getValidationStatus(),
+                    KeyManagerConstants.KeyValidationStatus.API_AUTH_INVALID_CREDENTIALS);
+        }
+        Assert.assertEquals(introspectCalls.get("revoked-token").get(), 1);
+
+        sleep(150);
+        TokenValidationContext context = new TokenValidationContext();
+        context.setAccessToken("revoked-token");
+        Assert.assertFalse(handler.validateToken(context));
+        Assert.assertEquals(introspectCalls.get("revoked-token").get(), 2);
+    }
+
+    @Test
+    public void testConcurrentMissesAreCollapsed() throws Exception {
+        TokenInfoCache cache = new TokenInfoCache(100, 60000, 1000);
+        DefaultKeyValidationHandler handler = new DefaultKeyValidationHandler(introspectEndpoint, cache, httpClient);
+        int threads = 8;
+        CountDownLatch startLatch = new CountDownLatch(1);
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            results.add(executorService.submit(() -> {
+                startLatch.await();
+                TokenValidationContext context = new TokenValidationContext();
+                context.setAccessToken(SLOW_TOKEN);
+                return handler.validateToken(context);
+            }));
+        }
+        startLatch.countDown();
+        for (Future<Boolean> result : results) {
+            Assert.assertTrue(result.get(10, TimeUnit.SECONDS));
+        }
+        executorService.shutdown();
+        Assert.assertEquals(introspectCalls.get(SLOW_TOKEN).get(), 1);
+    }
+
+    @Test
+    public void testExpiryIsCappedByTokenExpiry() throws Exception {
+        TokenInfoCache cache = new TokenInfoCache(100, 60000, 1000);
+        AtomicInteger loads = new AtomicInteger();
+        TokenInfoCache.Loader loader = accessToken -> {
+            loads.incrementAndGet();
+            AccessTokenInfo tokenInfo = new AccessTokenInfo();
+            tokenInfo.setTokenValid(true);
+            tokenInfo.setValidityPeriod(1500);
+            return tokenInfo;
+        };
+        cache.get("token", loader, 1000);
+        cache.get("token", loader, 1400);
+        Assert.assertEquals(loads.get(), 1);
+        // The token has expired although the time to live of the cache has not elapsed
+        cache.get("token", loader, 1600);
+        Assert.assertEquals(loads.get(), 2);
+    }
+
+    @Test
+    public void testCacheIsBounded() throws Exception {
+        TokenInfoCache cache = new TokenInfoCache(10, 60000, 1000);
+        DefaultKeyValidationHandler handler = new DefaultKeyValidationHandler(introspectEndpoint, cache, httpClient);
+        for (int i = 0; i < 25; i++) {
+            TokenValidationContext context = new TokenValidationContext();
+            context.setAccessToken(ACTIVE_TOKEN + i);
+            Assert.assertTrue(handler.validateToken(context));
+        }
+        Assert.assertTrue(cache.size() <= 10);
+        Assert.assertEquals(cache.getEvictionCount(), 15);
+    }
+
+    @Test(expectedExceptions = APIKeyMgtException.class)
+    public void testLoadFailureIsNotCached() throws Exception {
+        TokenInfoCache cache = new TokenInfoCache(10, 60000, 1000);
+        DefaultKeyValidationHandler handler = new DefaultKeyValidationHandler("http://localhost:1/oauth2/introspect",
+                cache, httpClient);
+        TokenValidationContext context = new TokenValidationContext();
+        context.setAccessToken(ACTIVE_TOKEN);
+        try {
+            handler.validateToken(context);
+        } finally {
+            Assert.assertEquals(cache.size(), 0);
+        }
+    }
+
+    @Test
+    public void testUnreachableEndpointIsAGeneralError() throws Exception {
+        DefaultKeyValidationHandler handler = new DefaultKeyValidationHandler("http://localhost:1/oauth2/introspect",
+                new TokenInfoCache(10, 60000, 1000), httpClient);
+        TokenValidationContext context = new TokenValidationContext();
+        context.setAccessToken(ACTIVE_TOKEN);
+        try {
+            handler.validateToken(context);
+            Assert.fail("Token should not be validated while the introspect endpoint is unreachable");
+        } catch (APIKeyMgtException e) {
+            Assert.assertEquals(e.getErrorCode(), KeyManagerConstants.KeyValidationStatus.API_AUTH_GENERAL_ERROR);
+        }
+    }
+
+    @AfterClass
+    public void stopIntrospectServer() {
+        introspectServer.stop(0);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.security.handlers;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.apimgt.gateway.models.TokenValidationContext;
+import org.wso2.carbon.apimgt.gateway.utils.KeyManagerConstants;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class JWTKeyValidationHandlerTest {
+
+    private KeyPair keyPair;
+    private JWTValidationConfiguration configuration;
+
+    @BeforeClass
+    public void init() throws Exception {
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+        keyPairGenerator.initialize(2048);
+        keyPair = keyPairGenerator.generateKeyPair();
+        configuration = new JWTValidationConfiguration();
+        configuration.setIssuer("https://localhost:9443/oauth2/token");
+        configuration.setAudience("gateway");
+        configuration.setTimestampSkewMillis(0);
+    }
+
+    @Test
+    public void testValidJWT() throws Exception {
+        CountingHandler introspectionHandler = new CountingHandler();
+        JWTKeyValidationHandler handler = createHandler(introspectionHandler);
+        String token = createToken(keyPair.getPrivate(), "\"aud\":[\"gateway\"],\"scope\":\"read write\"",
+                currentTimeSeconds() + 3600);
+
+        TokenValidationContext context = createContext(token);
+        Assert.assertTrue(handler.validateToken(context));
+        Assert.assertEquals(context.getValidationInfoDTO().getConsumerKey(), "consumerKey");
+        Assert.assertEquals(context.getValidationInfoDTO().getEndUserName(), "admin");
+        Assert.assertEquals(introspectionHandler.calls.get(), 0);
+
+        context.setAttribute(KeyManagerConstants.REQUIRED_SCOPES, "read");
+        Assert.assertTrue(handler.validateScopes(context));
+        context.setAttribute(KeyManagerConstants.REQUIRED_SCOPES, "read admin");
+        Assert.assertFalse(handler.validateScopes(context));
+        Assert.assertEquals(context.getValidationInfoDTO().getValidationStatus(),
+                KeyManagerConstants.KeyValidationStatus.INVALID_SCOPE);
+    }
+
+    @Test
+    public void testInvalidJWTs() throws Exception {
+        JWTKeyValidationHandler handler = createHandler(new CountingHandler());
+        long exp = currentTimeSeconds() + 3600;
+
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+        keyPairGenerator.initialize(2048);
+        String untrustedToken = createToken(keyPairGenerator.generateKeyPair().getPrivate(), "\"aud\":\"gateway\"",
+                exp);
+        assertInvalid(handler, untrustedToken, KeyManagerConstants.KeyValidationStatus.API_AUTH_INVALID_CREDENTIALS);
+
+        String expiredToken = createToken(keyPair.getPrivate(), "\"aud\":\"gateway\"", currentTimeSeconds() - 10);
+        assertInvalid(handler, expiredToken, KeyManagerConstants.KeyValidationStatus.API_AUTH_ACCESS_TOKEN_EXPIRED);
+
+        String otherAudienceToken = createToken(keyPair.getPrivate(), "\"aud\":\"other\"", exp);
+        assertInvalid(handler, otherAudienceToken,
+                KeyManagerConstants.KeyValidationStatus.API_AUTH_INVALID_CREDENTIALS);
+
+        String tamperedToken = createToken(keyPair.getPrivate(), "\"aud\":\"gateway\"", exp);
+        String[] parts = tamperedToken.split("\\.");
+        String tamperedPayload = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                new String(Base64.getUrlDecoder().decode(parts[1]), StandardCharsets.UTF_8)
+                        .replace("admin", "root").getBytes(StandardCharsets.UTF_8));
+        assertInvalid(handler, parts[0] + "." + tamperedPayload + "." + parts[2],
+                KeyManagerConstants.KeyValidationStatus.API_AUTH_INVALID_CREDENTIALS);
+    }
+
+    @Test
+    public void testJWTIsRejectedWithoutTrustedIssuerAndAudience() throws Exception {
+        String token = createToken(keyPair.getPrivate(), "\"aud\":\"gateway\"", currentTimeSeconds() + 3600);
+        JWTValidationConfiguration withoutIssuer = new JWTValidationConfiguration();
+        withoutIssuer.setAudience("gateway");
+        assertInvalid(createHandler(withoutIssuer, new CountingHandler()), token,
+                KeyManagerConstants.KeyValidationStatus.API_AUTH_INVALID_CREDENTIALS);
+
+        JWTValidationConfiguration withoutAudience = new JWTValidationConfiguration();
+        withoutAudience.setIssuer("https://localhost:9443/oauth2/token");
+        assertInvalid(createHandler(withoutAudience, new CountingHandler()), token,
+                KeyManagerConstants.KeyValidationStatus.API_AUTH_INVALID_CREDENTIALS);
+    }
+
+    @Test
+    public void testOpaqueTokenIsIntrospected() throws Exception {
+        CountingHandler introspectionHandler = new CountingHandler();
+        JWTKeyValidationHandler handler = createHandler(introspectionHandler);
+        Assert.assertTrue(handler.validateToken(createContext("3f2a9c4e-5b1d-4f6a-8c7e-0d9b2a1f4e6c")));
+        Assert.assertEquals(introspectionHandler.calls.get(), 1);
+
+        Assert.assertFalse(JWTKeyValidationHandler.isJWT("a.b"));
+        Assert.assertFalse(JWTKeyValidationHandler.isJWT("a..c"));
+        Assert.assertFalse(JWTKeyValidationHandler.isJWT("a.b.c.d"));
+        Assert.assertTrue(JWTKeyValidationHandler.isJWT("a.b.c"));
+        Assert.assertTrue(JWTKeyValidationHandler.isJWT("a.b."));
+    }
+
+    private JWTKeyValidationHandler createHandler(KeyValidationHandler introspectionHandler) {
+        return createHandler(configuration, introspectionHandler);
+    }
+
+    private JWTKeyValidationHandler createHandler(JWTValidationConfiguration validationConfiguration,
+                                                  KeyValidationHandler introspectionHandler) {
+        return new JWTKeyValidationHandler(validationConfiguration, (RSAPublicKey) keyPair.getPublic(),
+                introspectionHandler, new TokenInfoCache(100, 60000, 1000));
+    }
+
+    private static void assertInvalid(JWTKeyValidationHandler handler, String token, int errorCode)
+            throws Exception {
+        TokenValidationContext context = createContext(token);
+        Assert.assertFalse(handler.validateToken(context));
+        Assert.assertEquals(context.getValidationInfoDTO().getValidationStatus(), errorCode);
+    }
+
+    private static TokenValidationContext createContext(String token) {
+        TokenValidationContext context = new TokenValidationContext();
+        context.setAccessToken(token);
+        return context;
+    }
+
+    private static long currentTimeSeconds() {
+        return System.currentTimeMillis() / 1000;
+    }
+
+    private static String createToken(PrivateKey privateKey, String claims, long exp) throws Exception {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        String header = encoder.encodeToString("{\"alg\":\"RS256\",\"typ\":\"JWT\"}".getBytes(StandardCharsets.UTF_8));
+        String payload = encoder.encodeToString(("{\"iss\":\"https://localhost:9443/oauth2/token\",\"sub\":\"admin\","
+                + "\"client_id\":\"consumerKey\",\"iat\":" + (exp - 3600) + ",\"exp\":" + exp + "," + claims + "}")
+                .getBytes(StandardCharsets.UTF_8));
+        Signature signature = Signature.getInstance("SHA256withRSA");
+        signature.initSign(privateKey);
+        signature.update((header + "." + payload).getBytes(StandardCharsets.US_ASCII));
+        return header + "." + payload + "." + encoder.encodeToString(signature.sign());
+    }
+
+    private static class CountingHandler implements KeyValidationHandler {
+
+        private final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public boolean validateToken(TokenValidationContext tokenValidationContext) {
+            calls.incrementAndGet();
+            return true;
+        }
+
+        @Override
+        public boolean validateScopes(TokenValidationContext tokenValidationContext) {
+            return true;
+        }
+
+        @Override
+        public boolean generateConsumerToken(TokenValidationContext tokenValidationContext) {
+            return false;
+        }
+    }
+}
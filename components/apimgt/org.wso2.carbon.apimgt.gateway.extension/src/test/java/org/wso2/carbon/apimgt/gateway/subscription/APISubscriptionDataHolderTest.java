@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.subscription;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class APISubscriptionDataHolderTest {
+
+    @Test
+    public void testAddAndRemoveSubscription() {
+        APISubscriptionDataHolder dataHolder = new APISubscriptionDataHolder(10, null);
+        dataHolder.addSubscriptions(Collections.singletonList(createSubscriptionDTO(0, 0, "Gold")));
+        dataHolder.addSubscription(new Subscription("/api0", "1.0.0", "admin", "key1", "Silver", "App", "admin",
+                "PRODUCTION"));
+        Subscription subscription = dataHolder.getSubscription("/api0", "1.0.0", "key1");
+        Assert.assertNotNull(subscription);
+        Assert.assertEquals(subscription.getSubscriptionPolicy(), "Silver");
+        Assert.assertNull(dataHolder.getSubscription("/api0", "2.0.0", "key1"));
+        Assert.assertNull(dataHolder.getSubscription("/api0", "1.0.0", "key2"));
+
+        dataHolder.removeApiSubscriptionFromMap("/api0", "1.0.0", "key1");
+        Assert.assertNull(dataHolder.getSubscription("/api0", "1.0.0", "key1"));
+        Assert.assertEquals(dataHolder.getHitCount(), 1);
+        Assert.assertEquals(dataHolder.getMissCount(), 3);
+    }
+
+    @Test
+    public void testLeastRecentlyUsedApiIsEvicted() {
+        APISubscriptionDataHolder dataHolder = new APISubscriptionDataHolder(3, null);
+        for (int i = 0; i < 3; i++) {
+            dataHolder.addSubscriptions(Collections.singletonList(createSubscriptionDTO(i, 0, "Gold")));
+        }
+        // API 0 is used, so API 1 is the least recently used API when API 3 is added
+        Assert.assertNotNull(dataHolder.getSubscription("/api0", "1.0.0", "key0"));
+        dataHolder.addSubscriptions(Collections.singletonList(createSubscriptionDTO(3, 0, "Gold")));
+
+        Assert.assertNotNull(dataHolder.getSubscription("/api0", "1.0.0", "key0"));
+        Assert.assertNull(dataHolder.getSubscription("/api1", "1.0.0", "key0"));
+        Assert.assertNotNull(dataHolder.getSubscription("/api2", "1.0.0", "key0"));
+        Assert.assertNotNull(dataHolder.getSubscription("/api3", "1.0.0", "key0"));
+        Assert.assertEquals(dataHolder.getEvictionCount(), 1);
+    }
+
+    @Test
+    public void testBulkLoad() {
+        int apiCount = 10000;
+        int consumerKeyCount = 10;
+        List<SubscriptionDTO> subscriptions = new ArrayList<>(apiCount * consumerKeyCount);
+        for (int i = 0; i < apiCount; i++) {
+            for (int j = 0; j < consumerKeyCount; j++) {
+                SubscriptionDTO subscriptionDTO = new SubscriptionDTO();
+                subscriptionDTO.setApiContext("/api" + i);
+                subscriptionDTO.setApiVersion("1.0.0");
+                subscriptionDTO.setConsumerKey("key" + j);
+                subscriptionDTO.setSubscriptionPolicy("Gold");
+                subscriptions.add(subscriptionDTO);
+            }
+        }
+        APISubscriptionDataHolder dataHolder = new APISubscriptionDataHolder(apiCount, null);
+        dataHolder.addSubscriptions(subscriptions);
+
+        Assert.assertEquals(dataHolder.getApiCount(), apiCount);
+        for (int i = 0; i < apiCount; i++) {
+            for (int j = 0; j < consumerKeyCount; j++) {
+                Assert.assertNotNull(dataHolder.getSubscription("/api" + i, "1.0.0", "key" + j));
+            }
+        }
+        Assert.assertEquals(dataHolder.getHitCount(), apiCount * consumerKeyCount);
+        Assert.assertEquals(dataHolder.getEvictionCount(), 0);
+    }
+
+    @Test
+    public void testEvictedApiIsLoadedOnLookup() {
+        int maxApis = 3;
+        Map<String, AtomicInteger> loads = new ConcurrentHashMap<>();
+        APISubscriptionDataHolder dataHolder = new APISubscriptionDataHolder(maxApis, (apiContext, apiVersion) -> {
+            loads.computeIfAbsent(apiContext, key -> new AtomicInteger()).incrementAndGet();
+            List<SubscriptionDTO> subscriptions = new ArrayList<>();
+            for (int j = 0; j < 2; j++) {
+                SubscriptionDTO subscriptionDTO = createSubscriptionDTO(0, j, "Gold");
+                subscriptionDTO.setApiContext(apiContext);
+                subscriptions.add(subscriptionDTO);
+            }
+            return subscriptions;
+        });
+        List<SubscriptionDTO> subscriptions = new ArrayList<>();
+        for (int i = 0; i < maxApis * 2; i++) {
+            subscriptions.add(createSubscriptionDTO(i, 0, "Gold"));
+            subscriptions.add(createSubscriptionDTO(i, 1, "Gold"));
+        }
+        dataHolder.addSubscriptions(subscriptions);
+        Assert.assertEquals(dataHolder.getApiCount(), maxApis);
+
+        // API 0 was evicted, and is loaded from the core with all its subscriptions
+        Assert.assertNotNull(dataHolder.getSubscription("/api0", "1.0.0", "key0"));
+        Assert.assertNotNull(dataHolder.getSubscription("/api0", "1.0.0", "key1"));
+        Assert.assertNull(dataHolder.getSubscription("/api0", "1.0.0", "key2"));
+        Assert.assertEquals(loads.get("/api0").get(), 1);
+        Assert.assertNull(loads.get("/api5"));
+
+        // A subscription added to an API which is not held is included when the API is loaded
+        dataHolder.addSubscription(createSubscription(1, 2));
+        Assert.assertNotNull(dataHolder.getSubscription("/api1", "1.0.0", "key1"));
+        Assert.assertEquals(loads.get("/api1").get(), 1);
+    }
+
+    @Test
+    public void testFailedLoadIsNotCached() {
+        AtomicInteger loads = new AtomicInteger();
+        APISubscriptionDataHolder dataHolder = new APISubscriptionDataHolder(10, (apiContext, apiVersion) -> {
+            if (loads.incrementAndGet() == 1) {
+                throw new IllegalStateException("API manager core is not available");
+            }
+            return Collections.singletonList(createSubscriptionDTO(0, 0, "Gold"));
+        });
+        Assert.assertNull(dataHolder.getSubscription("/api0", "1.0.0", "key0"));
+        Assert.assertNotNull(dataHolder.getSubscription("/api0", "1.0.0", "key0"));
+        Assert.assertEquals(loads.get(), 2);
+    }
+
+    @Test
+    public void testLoadsAreBlockedAfterFailedLoad() {
+        AtomicInteger loads = new AtomicInteger();
+        APISubscriptionDataHolder dataHolder = new APISubscriptionDataHolder(10, 60000, (apiContext, apiVersion) -> {
+            loads.incrementAndGet();
+            throw new IllegalStateException("API manager core is not available");
+        });
+        Assert.assertNull(dataHolder.getSubscription("/api0", "1.0.0", "key0"));
+        // Lookups of any API fail without loading until the retry interval has passed
+        Assert.assertNull(dataHolder.getSubscription("/api0", "1.0.0", "key0"));
+        Assert.assertNull(dataHolder.getSubscription("/api1", "1.0.0", "key0"));
+        Assert.assertEquals(loads.get(), 1);
+        Assert.assertEquals(dataHolder.getBlockedLoadCount(), 2);
+    }
+
+    @Test
+    public void testLoadIsRetriedAfterRetryInterval() throws InterruptedException {
+        AtomicInteger loads = new AtomicInteger();
+        APISubscriptionDataHolder dataHolder = new APISubscriptionDataHolder(10, 50, (apiContext, apiVersion) -> {
+            if (loads.incrementAndGet() == 1) {
+                throw new IllegalStateException("API manager core is not available");
+            }
+            SubscriptionDTO subscriptionDTO = createSubscriptionDTO(0, 0, "Gold");
+            subscriptionDTO.setApiContext(apiContext);
+            return Collections.singletonList(subscriptionDTO);
+        });
+        Assert.assertNull(dataHolder.getSubscription("/api0", "1.0.0", "key0"));
+        Thread.sleep(100);
+        Assert.assertNotNull(dataHolder.getSubscription("/api0", "1.0.0", "key0"));
+        // The successful load unblocks the loads of the other APIs
+        Assert.assertNotNull(dataHolder.getSubscription("/api1", "1.0.0", "key0"));
+        Assert.assertEquals(loads.get(), 3);
+    }
+
+    @Test
+    public void testApplyChanges() {
+        APISubscriptionDataHolder dataHolder = new APISubscriptionDataHolder(10, null);
+        Assert.assertEquals(dataHolder.getRevision(), -1);
+        List<SubscriptionDTO> subscriptions = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            subscriptions.add(createSubscriptionDTO(0, i, "Gold"));
+        }
+        dataHolder.addSubscriptions(subscriptions);
+        SubscriptionChangeListDTO subscriptionChanges = new SubscriptionChangeListDTO();
+        subscriptionChanges.setRevision(5);
+        subscriptionChanges.getSubscriptions().add(createSubscriptionDTO(0, 3, "Gold"));
+        dataHolder.applyChanges(subscriptionChanges);
+        Assert.assertEquals(dataHolder.getRevision(), 5);
+        Assert.assertNotNull(dataHolder.getSubscription("/api0", "1.0.0", "key3"));
+
+        // key0 is removed, the policy of key1 is updated, and key2 is removed and added again
+        subscriptionChanges = new SubscriptionChangeListDTO();
+        subscriptionChanges.setRevision(8);
+        subscriptionChanges.getRemovedSubscriptions().add(createSubscriptionDTO(0, 0, null));
+        subscriptionChanges.getRemovedSubscriptions().add(createSubscriptionDTO(0, 2, null));
+        subscriptionChanges.getSubscriptions().add(createSubscriptionDTO(0, 1, "Silver"));
+        subscriptionChanges.getSubscriptions().add(createSubscriptionDTO(0, 2, "Bronze"));
+        dataHolder.applyChanges(subscriptionChanges);
+
+        Assert.assertEquals(dataHolder.getRevision(), 8);
+        Assert.assertNull(dataHolder.getSubscription("/api0", "1.0.0", "key0"));
+        Assert.assertEquals(dataHolder.getSubscription("/api0", "1.0.0", "key1").getSubscriptionPolicy(), "Silver");
+        Assert.assertEquals(dataHolder.getSubscription("/api0", "1.0.0", "key2").getSubscriptionPolicy(), "Bronze");
+    }
+
+    private static SubscriptionDTO createSubscriptionDTO(int api, int consumerKey, String subscriptionPolicy) {
+        SubscriptionDTO subscriptionDTO = new SubscriptionDTO();
+        subscriptionDTO.setApiContext("/api" + api);
+        subscriptionDTO.setApiVersion("1.0.0");
+        subscriptionDTO.setConsumerKey("key" + consumerKey);
+        subscriptionDTO.setSubscriptionPolicy(subscriptionPolicy);
+        return subscriptionDTO;
+    }
+
+    private static Subscription createSubscription(int api, int consumerKey) {
+        return new Subscription("/api" + api, "1.0.0", "admin", "key" + consumerKey, "Gold", "App", "admin",
+                "PRODUCTION");
+    }
+}
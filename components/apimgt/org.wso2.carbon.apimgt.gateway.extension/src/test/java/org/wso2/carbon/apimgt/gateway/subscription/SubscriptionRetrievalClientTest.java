@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.apimgt.gateway.subscription;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.apimgt.gateway.http.GatewayHttpClient;
+import org.wso2.carbon.apimgt.gateway.http.HttpClientConfiguration;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+
+public class SubscriptionRetrievalClientTest {
+
+    private static final int SUBSCRIPTION_COUNT = 2500;
+
+    private HttpServer server;
+    private String baseUrl;
+    private final GatewayHttpClient httpClient = new GatewayHttpClient(new HttpClientConfiguration());
+
+    @BeforeClass
+    public void startServer() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/core/subscriptions/export", exchange -> writeExport(exchange,
+                "{\"count\":" + SUBSCRIPTION_COUNT + "}\n"));
+        // Exports aborted by the API manager core after the response was started
+        server.createContext("/aborted/subscriptions/export", exchange -> writeExport(exchange, ""));
+        server.createContext("/miscounted/subscriptions/export", exchange -> writeExport(exchange,
+                "{\"count\":" + (SUBSCRIPTION_COUNT + 1) + "}\n"));
+        server.createContext("/core/subscriptions/changes", exchange -> {
+            Assert.assertEquals(exchange.getRequestURI().getQuery(), "since=42");
+            String changes = "{\"revision\":43,\"list\":[{\"apiContext\":\"/api0\",\"apiVersion\":\"1.0.0\","
+                    + "\"consumerKey\":\"key0\",\"subscriptionPolicy\":\"Silver\"}],\"removed\":[{\"apiContext\":"
+                    + "\"/api1\",\"apiVersion\":\"1.0.0\",\"consumerKey\":\"key0\"}]}";
+            byte[] body = changes.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(body);
+            }
+        });
+        server.createContext("/failing/subscriptions/export", exchange -> {
+            exchange.sendResponseHeaders(500, -1);
+            exchange.close();
+        });
+        server.start();
+        baseUrl = "http://localhost:" + server.getAddress().getPort();
+    }
+
+    @Test
+    public void testExportAndSynchronize() throws Exception {
+        SubscriptionRetrievalClient client = new SubscriptionRetrievalClient(baseUrl + "/core", httpClient);
+        APISubscriptionDataHolder dataHolder = new APISubscriptionDataHolder(1000, null);
+        dataHolder.synchronize(client);
+
+        Assert.assertEquals(dataHolder.getRevision(), 42);
+        Assert.assertEquals(dataHolder.getApiCount(), 100);
+        for (int i = 0; i < SUBSCRIPTION_COUNT; i++) {
+            Assert.assertNotNull(dataHolder.getSubscription("/api" + i % 100, "1.0.0", "key" + i / 100));
+        }
+
+        // Only the changes after the revision of the export are retrieved
+        dataHolder.synchronize(client);
+        Assert.assertEquals(dataHolder.getRevision(), 43);
+        Assert.assertEquals(dataHolder.getSubscription("/api0", "1.0.0", "key0").getSubscriptionPolicy(), "Silver");
+        Assert.assertNull(dataHolder.getSubscription("/api1", "1.0.0", "key0"));
+    }
+
+    @Test
+    public void testExportInBatches() throws Exception {
+        SubscriptionRetrievalClient client = new SubscriptionRetrievalClient(baseUrl + "/core", httpClient);
+        int[] batches = new int[1];
+        long revision = client.exportSubscriptions(1000, batch -> {
+            Assert.assertTrue(batch.size() <= 1000);
+            batches[0]++;
+        });
+        Assert.assertEquals(revision, 42);
+        Assert.assertEquals(batches[0], 3);
+    }
+
+    @Test
+    public void testFailedExport() throws Exception {
+        SubscriptionRetrievalClient client = new SubscriptionRetrievalClient(baseUrl + "/failing", httpClient);
+        APISubscriptionDataHolder dataHolder = new APISubscriptionDataHolder(1000, null);
+        try {
+            dataHolder.synchronize(client);
+            Assert.fail("Export should fail");
+        } catch (IOException e) {
+            Assert.assertEquals(dataHolder.getRevision(), -1);
+        }
+    }
+
+    @Test
+    public void testIncompleteExportIsRejected() throws Exception {
+        for (String path : new String[] {"/aborted", "/miscounted"}) {
+            SubscriptionRetrievalClient client = new SubscriptionRetrievalClient(baseUrl + path, httpClient);
+            APISubscriptionDataHolder dataHolder = new APISubscriptionDataHolder(1000, null);
+            try {
+                dataHolder.synchronize(client);
+                Assert.fail("Export should fail");
+            } catch (IOException e) {
+                Assert.assertTrue(e.getMessage().startsWith("Subscription export is incomplete"), e.getMessage());
+                Assert.assertEquals(dataHolder.getRevision(), -1);
+            }
+        }
+    }
+
+    private static void writeExport(HttpExchange exchange, String lastLine) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "application/x-ndjson");
+        exchange.getResponseHeaders().add("X-Subscription-Revision", "42");
+        // A chunked response, which is written as it is read
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            for (int i = 0; i < SUBSCRIPTION_COUNT; i++) {
+                outputStream.write(("{\"apiContext\":\"/api" + i % 100 + "\",\"apiVersion\":\"1.0.0\","
+                        + "\"consumerKey\":\"key" + i / 100 + "\",\"subscriptionPolicy\":\"Gold\"}\n")
+                        .getBytes(StandardCharsets.UTF_8));
+                if (i % 500 == 0) {
+                    outputStream.flush();
+                }
+            }
+            outputStream.write(lastLine.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    @AfterClass
+    public void stopServer() {
+        server.stop(0);
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.throttling;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.apimgt.gateway.throttling.utils.IPAddress;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class BlockingConditionIndexTest {
+
+    private static final Logger log = LoggerFactory.getLogger(BlockingConditionIndexTest.class);
+    private static final String TENANT = "carbon.super";
+    private static final int MANY_CONDITIONS = 100000;
+    private static final int MANY_RANGES = 50000;
+
+    @Test
+    public void testAPIApplicationAndUserConditions() {
+        BlockingConditionIndex index = new BlockingConditionIndex();
+        Assert.assertTrue(index.isEmpty());
+
+        index.addAPICondition("/pets");
+        index.addApplicationCondition("admin:DefaultApplication");
+        index.addUserCondition("john");
+        Assert.assertFalse(index.isEmpty());
+
+        Assert.assertTrue(isBlocked(index, "/pets", "bob", "App", "bob", "10.0.0.1"));
+        Assert.assertTrue(isBlocked(index, "/stores", "admin", "DefaultApplication", "bob", "10.0.0.1"));
+        Assert.assertTrue(isBlocked(index, "/stores", "bob", "App", "john", "10.0.0.1"));
+        Assert.assertFalse(isBlocked(index, "/stores", "admin", "App", "bob", "10.0.0.1"));
+        Assert.assertFalse(isBlocked(index, "/stores", "bob", "DefaultApplication", "bob", "10.0.0.1"));
+        Assert.assertFalse(isBlocked(index, null, null, null, null, null));
+
+        index.removeAPICondition("/pets");
+        index.removeApplicationCondition("admin:DefaultApplication");
+        index.removeUserCondition("john");
+        Assert.assertFalse(isBlocked(index, "/pets", "admin", "DefaultApplication", "john", "10.0.0.1"));
+        Assert.assertTrue(index.isEmpty());
+    }
+
+    @Test
+    public void testIPConditions() {
+        BlockingConditionIndex index = new BlockingConditionIndex();
+        Assert.assertTrue(index.addIPCondition(TENANT + ":192.168.1.10"));
+        Assert.assertTrue(index.addIPCondition(TENANT + ":10.0.0.0/8"));
+        Assert.assertTrue(index.addIPCondition(TENANT + ":10.1.0.0/16"));
+        Assert.assertTrue(index.addIPCondition(TENANT + ":2001:db8::/32"));
+        Assert.assertTrue(index.addIPCondition("172.16.0.1"));
+        Assert.assertFalse(index.addIPCondition(TENANT + ":localhost"));
+        Assert.assertFalse(index.addIPCondition(TENANT + ":10.0.0.0/33"));
+
+        Assert.assertTrue(isIpBlocked(index, TENANT, "192.168.1.10"));
+        Assert.assertFalse(isIpBlocked(index, TENANT, "192.168.1.11"));
+        Assert.assertTrue(isIpBlocked(index, TENANT, "10.255.255.255"));
+        Assert.assertTrue(isIpBlocked(index, TENANT, "10.1.2.3"));
+        Assert.assertFalse(isIpBlocked(index, TENANT, "11.0.0.0"));
+        Assert.assertTrue(isIpBlocked(index, TENANT, "2001:db8:ffff::1"));
+        Assert.assertTrue(isIpBlocked(index, TENANT, "::ffff:10.0.0.1"));
+        Assert.assertFalse(isIpBlocked(index, TENANT, "2001:db9::1"));
+        Assert.assertFalse(isIpBlocked(index, "wso2.com", "10.0.0.1"));
+        // A condition without a tenant domain applies to all the tenants
+        Assert.assertTrue(isIpBlocked(index, "wso2.com", "172.16.0.1"));
+
+        // Removing the enclosing range keeps the nested range
+        Assert.assertTrue(index.removeIPCondition(TENANT + ":10.0.0.0/8"));
+        Assert.assertFalse(isIpBlocked(index, TENANT, "10.0.0.1"));
+        Assert.assertTrue(isIpBlocked(index, TENANT, "10.1.0.1"));
+
+        index.removeIPCondition(TENANT + ":192.168.1.10");
+        index.removeIPCondition(TENANT + ":10.1.0.0/16");
+        index.removeIPCondition(TENANT + ":2001:db8::/32");
+        index.removeIPCondition("172.16.0.1");
+        Assert.assertTrue(index.isEmpty());
+    }
+
+    @Test
+    public void testConcurrentUpdates() throws Exception {
+        BlockingConditionIndex index = new BlockingConditionIndex();
+        int threads = 4;
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        Future<?>[] results = new Future<?>[threads];
+        for (int i = 0; i < threads; i++) {
+            int thread = i;
+            results[i] = executorService.submit(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    String range = TENANT + ":10." + thread + "." + (j % 256) + ".0/24";
+                    index.addIPCondition(range);
+                    index.addApplicationCondition("admin:App" + j);
+                    index.removeIPCondition(range);
+                    index.removeApplicationCondition("admin:App" + j);
+                }
+            });
+        }
+        for (Future<?> result : results) {
+            result.get();
+        }
+        executorService.shutdown();
+        Assert.assertTrue(index.isEmpty());
+    }
+
+    @Test
+    public void testLookupWithManyConditions() {
+        BlockingConditionIndex index = createIndexWithManyConditions();
+        for (IPAddress address : createUnblockedAddresses()) {
+            Assert.assertFalse(index.isBlocked("/pets", "subscriber", "App", "user", TENANT, address));
+        }
+        Assert.assertTrue(isIpBlocked(index, TENANT, ipv4(MANY_CONDITIONS - 1)));
+        Assert.assertTrue(isIpBlocked(index, TENANT, "2001:db8:3e7:ffff::1"));
+        Assert.assertTrue(isBlocked(index, "/pets", "subscriber99999", "App", "user", TENANT, "127.0.0.1"));
+    }
+
+    @Test(groups = "perf")
+    public void testLookupLatencyWithManyConditions() {
+        BlockingConditionIndex index = createIndexWithManyConditions();
+        IPAddress[] addresses = createUnblockedAddresses();
+        int lookups = 1000000;
+        int blocked = 0;
+        long startTime = System.nanoTime();
+        for (int i = 0; i < lookups; i++) {
+            if (index.isBlocked("/pets", "subscriber", "App", "user", TENANT, addresses[i & 1023])) {
+                blocked++;
+            }
+        }
+        long averageNanos = (System.nanoTime() - startTime) / lookups;
+        log.info("Average blocking condition lookup time with " + MANY_CONDITIONS + " conditions of each type: "
+                + averageNanos + " ns");
+
+        Assert.assertEquals(blocked, 0);
+        Assert.assertTrue(averageNanos < 20000, "Average lookup time: " + averageNanos + " ns");
+    }
+
+    @Test
+    public void testBulkLoadOfManyRanges() {
+        BlockingConditionIndex index = new BlockingConditionIndex();
+        List<String> invalidConditions = index.addIPConditions(createManyRanges());
+
+        Assert.assertEquals(invalidConditions, Collections.singletonList(TENANT + ":10.0.0.0/33"));
+        for (int i = 0; i < MANY_RANGES; i += 97) {
+            Assert.assertTrue(isIpBlocked(index, TENANT, ipv4(i * 16)));
+            Assert.assertTrue(isIpBlocked(index, TENANT, ipv4(i * 16 + 15)));
+        }
+        Assert.assertFalse(isIpBlocked(index, TENANT, ipv4(MANY_RANGES * 16)));
+        Assert.assertTrue(isIpBlocked(index, TENANT, "11.255.0.1"));
+        Assert.assertTrue(isIpBlocked(index, TENANT, "12.0.0.1"));
+        Assert.assertFalse(isIpBlocked(index, TENANT, "12.0.0.2"));
+
+        // Duplicates are added once, so a single removal unblocks the range
+        Assert.assertTrue(index.removeIPCondition(TENANT + ":" + ipv4(0) + "/28"));
+        Assert.assertFalse(isIpBlocked(index, TENANT, ipv4(0)));
+        Assert.assertTrue(index.removeIPCondition(TENANT + ":11.0.0.0/8"));
+        Assert.assertFalse(isIpBlocked(index, TENANT, "11.255.0.1"));
+        Assert.assertTrue(isIpBlocked(index, TENANT, "11.1.0.1"));
+    }
+
+    @Test(groups = "perf")
+    public void testBulkLoadTimeOfManyRanges() {
+        List<String> conditions = createManyRanges();
+        BlockingConditionIndex index = new BlockingConditionIndex();
+        long startTime = System.nanoTime();
+        index.addIPConditions(conditions);
+        long loadMillis = (System.nanoTime() - startTime) / 1000000;
+        log.info("Loaded " + conditions.size() + " IP conditions in " + loadMillis + " ms");
+
+        // Adding one range at a time copies the sorted arrays for each range, which takes more than ten seconds for
+        // this many ranges
+        Assert.assertTrue(loadMillis < 10000, "Load time: " + loadMillis + " ms");
+    }
+
+    private static BlockingConditionIndex createIndexWithManyConditions() {
+        BlockingConditionIndex index = new BlockingConditionIndex();
+        for (int i = 0; i < MANY_CONDITIONS; i++) {
+            index.addIPCondition(TENANT + ":" + ipv4(i));
+            index.addUserCondition("user" + i);
+            index.addApplicationCondition("subscriber" + i + ":App");
+        }
+        for (int i = 0; i < 1000; i++) {
+            index.addIPCondition(TENANT + ":2001:db8:" + Integer.toHexString(i) + "::/48");
+        }
+        return index;
+    }
+
+    private static IPAddress[] createUnblockedAddresses() {
+        IPAddress[] addresses = new IPAddress[1024];
+        for (int i = 0; i < addresses.length; i++) {
+            addresses[i] = IPAddress.parse(i % 2 == 0 ? ipv4(MANY_CONDITIONS + i) :
+                    "2001:db9::" + Integer.toHexString(i));
+        }
+        return addresses;
+    }
+
+    private static List<String> createManyRanges() {
+        List<String> conditions = new ArrayList<>();
+        for (int i = 0; i < MANY_RANGES; i++) {
+            conditions.add(TENANT + ":" + ipv4(i * 16) + "/28");
+        }
+        // Duplicates, overlapping ranges, single addresses and invalid conditions
+        conditions.addAll(conditions.subList(0, 100));
+        conditions.add(TENANT + ":11.0.0.0/8");
+        conditions.add(TENANT + ":11.1.0.0/16");
+        conditions.add(TENANT + ":12.0.0.1");
+        conditions.add(TENANT + ":10.0.0.0/33");
+        Collections.shuffle(conditions);
+        return conditions;
+    }
+
+    private static boolean isBlocked(BlockingConditionIndex index, String apiContext, String subscriber,
+                                     String applicationName, String user, String clientIp) {
+        return isBlocked(index, apiContext, subscriber, applicationName, user, TENANT, clientIp);
+    }
+
+    private static boolean isBlocked(BlockingConditionIndex index, String apiContext, String subscriber,
+                                     String applicationName, String user, String tenantDomain, String clientIp) {
+        return index.isBlocked(apiContext, subscriber, applicationName, user, tenantDomain, IPAddress.parse(clientIp));
+    }
+
+    private static boolean isIpBlocked(BlockingConditionIndex index, String tenantDomain, String clientIp) {
+        return isBlocked(index, null, null, null, null, tenantDomain, clientIp);
+    }
+
+    private static String ipv4(int value) {
+        return "10." + ((value >>> 16) & 0xff) + "." + ((value >>> 8) & 0xff) + "." + (value & 0xff);
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.throttling;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class KeyTemplateTest {
+
+    @DataProvider(name = "templates")
+    public Object[][] templates() {
+        return new Object[][]{
+                {"$userId"},
+                {"$userId:$apiContext:$apiVersion"},
+                {"$resourceKey_$appTenant"},
+                {"prefix-$apiTenant-$appId-suffix"},
+                {"$appId$appTenant$apiTenant"},
+                {"no placeholders"},
+                {"$unknown:$userId$"},
+                {""}
+        };
+    }
+
+    @Test(dataProvider = "templates")
+    public void testRenderMatchesReplacement(String template) {
+        String expected = template.replaceAll("\\$resourceKey", "/test/1.0.0/*:GET")
+                .replaceAll("\\$userId", "admin")
+                .replaceAll("\\$apiContext", "/test")
+                .replaceAll("\\$apiVersion", "1.0.0")
+                .replaceAll("\\$appTenant", "carbon.super")
+                .replaceAll("\\$apiTenant", "wso2.com")
+                .replaceAll("\\$appId", "12");
+
+        KeyTemplate keyTemplate = new KeyTemplate(template);
+        Assert.assertEquals(keyTemplate.render("/test/1.0.0/*:GET", "admin", "/test", "1.0.0", "carbon.super",
+                "wso2.com", "12"), expected);
+        Assert.assertEquals(keyTemplate.getTemplate(), template);
+    }
+
+    @Test
+    public void testRenderedKeyIsLookedUp() {
+        KeyTemplate keyTemplate = new KeyTemplate("$userId:$apiContext:$apiVersion");
+        Map<String, Long> throttleData = new ConcurrentHashMap<>();
+        throttleData.put("admin:/test:1.0.0", 1L);
+        String key = keyTemplate.render(null, "admin", "/test", "1.0.0", null, null, null);
+        Assert.assertEquals(throttleData.get(key), Long.valueOf(1L));
+        Assert.assertTrue(throttleData.remove(key, 1L));
+        Assert.assertNull(throttleData.get(key));
+
+        // The buffer is reused, but each rendered key is a separate String
+        Assert.assertEquals(keyTemplate.render(null, "user1", "/test", "1.0.0", null, null, null),
+                "user1:/test:1.0.0");
+        Assert.assertEquals(key, "admin:/test:1.0.0");
+        Assert.assertEquals(keyTemplate.render(null, null, "/test", "1.0.0", null, null, null), "null:/test:1.0.0");
+    }
+}
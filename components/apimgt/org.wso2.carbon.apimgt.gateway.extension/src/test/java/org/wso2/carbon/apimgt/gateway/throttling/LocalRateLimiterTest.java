@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.throttling;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class LocalRateLimiterTest {
+
+    private static final long UNIT_TIME = 1000;
+
+    private LocalRateLimiter rateLimiter;
+
+    @BeforeMethod
+    public void createRateLimiter() {
+        rateLimiter = new LocalRateLimiter("test");
+    }
+
+    @AfterMethod
+    public void shutdownRateLimiter() {
+        rateLimiter.shutdown();
+    }
+
+    @Test
+    public void testTokensAreRefilledAtTheRateOfTheLimit() {
+        long now = 100000;
+        for (int i = 0; i < 10; i++) {
+            Assert.assertTrue(rateLimiter.tryAcquire("key", 10, UNIT_TIME, now));
+        }
+        Assert.assertFalse(rateLimiter.tryAcquire("key", 10, UNIT_TIME, now));
+        Assert.assertTrue(rateLimiter.tryAcquire("otherKey", 10, UNIT_TIME, now));
+        // A token is added every tenth of the unit time
+        Assert.assertFalse(rateLimiter.tryAcquire("key", 10, UNIT_TIME, now + UNIT_TIME / 10 - 1));
+        Assert.assertTrue(rateLimiter.tryAcquire("key", 10, UNIT_TIME, now + UNIT_TIME / 10));
+        Assert.assertFalse(rateLimiter.tryAcquire("key", 10, UNIT_TIME, now + UNIT_TIME / 10));
+        Assert.assertTrue(rateLimiter.tryAcquire("key", 0, UNIT_TIME, now));
+    }
+
+    @Test
+    public void testBurstAcrossWindowBoundaryIsLimited() {
+        long now = 100000;
+        int allowed = 0;
+        // A fixed window would admit the limit at the end of a window and again at the start of the next one
+        for (int i = 0; i < 20; i++) {
+            if (rateLimiter.tryAcquire("key", 10, UNIT_TIME, now + UNIT_TIME - 1)) {
+                allowed++;
+            }
+        }
+        for (int i = 0; i < 20; i++) {
+            if (rateLimiter.tryAcquire("key", 10, UNIT_TIME, now + UNIT_TIME)) {
+                allowed++;
+            }
+        }
+        Assert.assertEquals(allowed, 10);
+        // The full limit is admitted again once the bucket is refilled
+        for (int i = 0; i < 10; i++) {
+            Assert.assertTrue(rateLimiter.tryAcquire("key", 10, UNIT_TIME, now + 2 * UNIT_TIME));
+        }
+        Assert.assertFalse(rateLimiter.tryAcquire("key", 10, UNIT_TIME, now + 2 * UNIT_TIME));
+    }
+
+    @Test
+    public void testIdleBucketsAreRemoved() {
+        long now = 100000;
+        rateLimiter.tryAcquire("key1", 10, UNIT_TIME, now);
+        rateLimiter.tryAcquire("key2", 10, UNIT_TIME, now + UNIT_TIME);
+
+        rateLimiter.removeIdleBuckets(now + UNIT_TIME);
+        Assert.assertEquals(rateLimiter.getBucketCount(), 1);
+        rateLimiter.removeIdleBuckets(now + 2 * UNIT_TIME);
+        Assert.assertEquals(rateLimiter.getBucketCount(), 0);
+    }
+
+    @Test
+    public void testLimitUnderConcurrentRequests() throws Exception {
+        final int threadCount = 16;
+        final int requestsPerThread = 10000;
+        final int limit = 5000;
+        final long now = 100000;
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        ExecutorService executorService = Executors.newFixedThreadPool(threadCount);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < threadCount; i++) {
+                results.add(executorService.submit((Callable<Integer>) () -> {
+                    startLatch.await();
+                    int allowed = 0;
+                    for (int j = 0; j < requestsPerThread; j++) {
+                        if (rateLimiter.tryAcquire("/test:1.0.0", limit, UNIT_TIME, now)) {
+                            allowed++;
+                        }
+                    }
+                    return allowed;
+                }));
+            }
+            startLatch.countDown();
+            int totalAllowed = 0;
+            for (Future<Integer> result : results) {
+                totalAllowed += result.get();
+            }
+            Assert.assertEquals(totalAllowed, limit);
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.throttling;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.lang.management.ManagementFactory;
+
+public class ThrottleKeyCacheTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ThrottleKeyCacheTest.class);
+
+    @Test
+    public void testKeyIsBuiltOnce() {
+        ThrottleKeyCache cache = new ThrottleKeyCache();
+        String key = cache.getKey("1", ":", "admin");
+        Assert.assertEquals(key, "1:admin");
+        Assert.assertSame(cache.getKey("1", ":", "admin"), key);
+        Assert.assertEquals(cache.getKey("1", ":", "user1"), "1:user1");
+        Assert.assertEquals(cache.getKey("/test/1.0.0/*:GET", "", "_default"), "/test/1.0.0/*:GET_default");
+        Assert.assertEquals(cache.size(), 3);
+    }
+
+    @Test
+    public void testNullParts() {
+        ThrottleKeyCache cache = new ThrottleKeyCache();
+        Assert.assertEquals(cache.getKey(null, ":", null), null + ":" + null);
+    }
+
+    @Test
+    public void testDelimiterIsPartOfKey() {
+        ThrottleKeyCache cache = new ThrottleKeyCache();
+        Assert.assertEquals(cache.getKey("app", ":", "user"), "app:user");
+        Assert.assertEquals(cache.getKey("app", "_", "user"), "app_user");
+        Assert.assertEquals(cache.getKey("app", "", "user"), "appuser");
+        Assert.assertEquals(cache.size(), 3);
+    }
+
+    @Test
+    public void testBuildKey() {
+        Assert.assertEquals(ThrottleKeyCache.buildKey("1", ":", "admin"), "1:admin");
+        Assert.assertEquals(ThrottleKeyCache.buildKey("/test/1.0.0/*:GET", "_", "admin"), "/test/1.0.0/*:GET_admin");
+        Assert.assertEquals(ThrottleKeyCache.buildKey(null, ":", null), null + ":" + null);
+    }
+
+    /**
+     * Compares the allocation of the keys of requests built the way the throttle handler builds them with the keys
+     * built by plain string concatenation, which is how they were built before the keys were cached. The times are
+     * only logged. Keys that do not depend on the user are looked up in the cache, so they are neither built nor
+     * hashed again. The hash code of each key is computed, as the throttle maps do for each lookup.
+     */
+    @Test(groups = "perf")
+    public void testKeysAllocateLessThanConcatenation() {
+        ThrottleKeyCache cache = new ThrottleKeyCache();
+        String[][] requests = new String[10000][];
+        for (int i = 0; i < requests.length; i++) {
+            // {applicationId, user, apiContext, apiVersion, resourceKey, keyType, conditionGroupId}
+            requests[i] = new String[] {String.valueOf(i % 100), "user" + i, "/pets" + i % 10, "1.0.0",
+                    "/pets" + i % 10 + "/1.0.0/*:GET", "PRODUCTION", "_default"};
+        }
+        int iterations = 1000000;
+        // Warm up both paths, so that the measurement does not include class loading and compilation
+        for (int i = 0; i < 5; i++) {
+            buildKeysByConcatenation(requests, iterations);
+            buildKeysWithCache(cache, requests, iterations);
+        }
+
+        long concatenationBytes = getAllocatedBytes();
+        long concatenationTime = System.nanoTime();
+        int concatenationHash = buildKeysByConcatenation(requests, iterations);
+        concatenationTime = System.nanoTime() - concatenationTime;
+        concatenationBytes = getAllocatedBytes() - concatenationBytes;
+
+        long cacheBytes = getAllocatedBytes();
+        long cacheTime = System.nanoTime();
+        int cacheHash = buildKeysWithCache(cache, requests, iterations);
+        cacheTime = System.nanoTime() - cacheTime;
+        cacheBytes = getAllocatedBytes() - cacheBytes;
+
+        log.info("Throttle keys of " + iterations + " requests: concatenation " + concatenationTime / 1000000
+                + " ms, " + concatenationBytes / iterations + " bytes per request, cached " + cacheTime / 1000000
+                + " ms, " + cacheBytes / iterations + " bytes per request");
+        Assert.assertEquals(cacheHash, concatenationHash);
+        Assert.assertTrue(cacheBytes < concatenationBytes, "Cached keys allocated " + cacheBytes
+                + " bytes while concatenation allocated " + concatenationBytes + " bytes");
+    }
+
+    private static int buildKeysByConcatenation(String[][] requests, int iterations) {
+        int hash = 0;
+        for (int i = 0; i < iterations; i++) {
+            String[] request = requests[i % requests.length];
+            String apiKey = request[2] + ":" + request[3];
+            hash += (request[0] + ":" + request[1]).hashCode();
+            hash += apiKey.hashCode();
+            hash += (request[0] + ":" + apiKey).hashCode();
+            hash += (request[4] + "_" + request[1]).hashCode();
+            hash += (apiKey + ":" + request[5]).hashCode();
+            hash += (request[4] + request[6]).hashCode();
+        }
+        return hash;
+    }
+
+    private static int buildKeysWithCache(ThrottleKeyCache cache, String[][] requests, int iterations) {
+        int hash = 0;
+        for (int i = 0; i < iterations; i++) {
+            String[] request = requests[i % requests.length];
+            String apiKey = cache.getKey(request[2], ":", request[3]);
+            hash += ThrottleKeyCache.buildKey(request[0], ":", request[1]).hashCode();
+            hash += apiKey.hashCode();
+            hash += ThrottleKeyCache.buildKey(request[0], ":", apiKey).hashCode();
+            hash += ThrottleKeyCache.buildKey(request[4], "_", request[1]).hashCode();
+            hash += cache.getKey(apiKey, ":", request[5]).hashCode();
+            hash += cache.getKey(request[4], "", request[6]).hashCode();
+        }
+        return hash;
+    }
+
+    private static long getAllocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    @Test
+    public void testCacheIsBounded() {
+        ThrottleKeyCache cache = new ThrottleKeyCache(10);
+        for (int i = 0; i < 100; i++) {
+            Assert.assertEquals(cache.getKey("app", ":", "user" + i), "app:user" + i);
+            Assert.assertTrue(cache.size() <= 10);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.throttling;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class ThrottleKeyExpiryWheelTest {
+
+    private static final long TICK = 1000;
+
+    @Test
+    public void testExpiredKeysAreRemoved() {
+        Map<String, Long> keys = new ConcurrentHashMap<>();
+        ThrottleKeyExpiryWheel wheel = new ThrottleKeyExpiryWheel(keys, TICK);
+        long now = 100000;
+        for (int i = 0; i < 1000; i++) {
+            String key = "/test/1.0.0/*:GET_default_user" + i;
+            long expiryTime = now + (i % 10) * TICK;
+            keys.put(key, expiryTime);
+            wheel.schedule(key, expiryTime);
+        }
+
+        Assert.assertEquals(wheel.expire(now), 0);
+        Assert.assertEquals(keys.size(), 1000);
+        Assert.assertEquals(wheel.expire(now + 5 * TICK), 500);
+        Assert.assertEquals(keys.size(), 500);
+        Assert.assertEquals(wheel.expire(now + 10 * TICK), 500);
+        Assert.assertTrue(keys.isEmpty());
+        Assert.assertEquals(wheel.getPendingBucketCount(), 0);
+    }
+
+    @Test
+    public void testUpdatedKeyIsNotRemoved() {
+        Map<String, Long> keys = new ConcurrentHashMap<>();
+        ThrottleKeyExpiryWheel wheel = new ThrottleKeyExpiryWheel(keys, TICK);
+        long now = 100000;
+        keys.put("key", now);
+        wheel.schedule("key", now);
+        keys.put("key", now + 10 * TICK);
+        wheel.schedule("key", now + 10 * TICK);
+
+        Assert.assertEquals(wheel.getScheduledKeyCount(), 1);
+        Assert.assertEquals(wheel.expire(now + 2 * TICK), 0);
+        Assert.assertEquals(keys.get("key"), Long.valueOf(now + 10 * TICK));
+        Assert.assertEquals(wheel.expire(now + 11 * TICK), 1);
+        Assert.assertFalse(keys.containsKey("key"));
+        Assert.assertEquals(wheel.getScheduledKeyCount(), 0);
+    }
+
+    @Test
+    public void testKeyUpdatedWithinBucketIsScheduledOnce() {
+        Map<String, Long> keys = new ConcurrentHashMap<>();
+        ThrottleKeyExpiryWheel wheel = new ThrottleKeyExpiryWheel(keys, TICK);
+        long now = 100000;
+        for (int i = 0; i < 10; i++) {
+            keys.put("key", now + i);
+            wheel.schedule("key", now + i);
+        }
+
+        Assert.assertEquals(wheel.getPendingBucketCount(), 1);
+        Assert.assertEquals(wheel.getScheduledKeyCount(), 1);
+        Assert.assertEquals(wheel.expire(now + TICK), 1);
+        Assert.assertTrue(keys.isEmpty());
+        Assert.assertEquals(wheel.getScheduledKeyCount(), 0);
+    }
+
+    @Test
+    public void testKeysScheduledWhileExpiringAreRemoved() throws Exception {
+        Map<String, Long> keys = new ConcurrentHashMap<>();
+        ThrottleKeyExpiryWheel wheel = new ThrottleKeyExpiryWheel(keys, 1);
+        int keyCount = 100000;
+        long expiryTime = 1000;
+        Thread scheduler = new Thread(() -> {
+            for (int i = 0; i < keyCount; i++) {
+                keys.put("key" + i, expiryTime);
+                wheel.schedule("key" + i, expiryTime);
+            }
+        });
+        scheduler.start();
+        while (scheduler.isAlive()) {
+            wheel.expire(expiryTime + 10);
+        }
+        scheduler.join();
+        wheel.expire(expiryTime + 10);
+
+        Assert.assertTrue(keys.isEmpty(), keys.size() + " keys were not removed");
+        Assert.assertEquals(wheel.getScheduledKeyCount(), 0);
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.throttling.temp;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.apimgt.gateway.throttling.publisher.FileThrottleEventSink;
+import org.wso2.carbon.apimgt.gateway.throttling.publisher.ThrottleEvent;
+import org.wso2.carbon.apimgt.gateway.throttling.publisher.ThrottleEventSink;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class ThrottleDataPublisherTest {
+
+    @Test
+    public void testEventsArePublishedInBatches() throws Exception {
+        Path file = Files.createTempFile("throttle-events", ".log");
+        try {
+            ThrottleDataPublisher publisher = new ThrottleDataPublisher(new FileThrottleEventSink(file), 1024, 100,
+                    100);
+            ExecutorService executorService = Executors.newFixedThreadPool(4);
+            for (int i = 0; i < 4; i++) {
+                final String appId = Integer.toString(i);
+                executorService.execute(() -> {
+                    for (int j = 0; j < 250; j++) {
+                        publish(publisher, appId);
+                    }
+                });
+            }
+            executorService.shutdown();
+            Assert.assertTrue(executorService.awaitTermination(10, TimeUnit.SECONDS));
+            publisher.shutdown();
+
+            List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+            Assert.assertEquals(publisher.getDroppedEventCount() + lines.size(), 1000);
+            Assert.assertEquals(publisher.getPublishedEventCount(), lines.size());
+            Assert.assertTrue(lines.get(0).matches("[0-3]:admin,Gold,/test:1.0.0,Unlimited,.*"));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testEventsAreDroppedWhenBufferIsFull() throws Exception {
+        final CountDownLatch sinkLatch = new CountDownLatch(1);
+        ThrottleEventSink blockingSink = new ThrottleEventSink() {
+            @Override
+            public void publish(ThrottleEvent[] events, int count) {
+                try {
+                    sinkLatch.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        ThrottleDataPublisher publisher = new ThrottleDataPublisher(blockingSink, 16, 1, 10);
+        for (int i = 0; i < 100; i++) {
+            publish(publisher, "1");
+        }
+        // At most one event is held by the blocked sink, and the rest of the events beyond the buffer are dropped
+        Assert.assertTrue(publisher.getDroppedEventCount() >= 100 - 16 - 1);
+        Assert.assertTrue(publisher.getPendingEventCount() <= publisher.getBufferCapacity());
+
+        sinkLatch.countDown();
+        publisher.shutdown();
+        Assert.assertEquals(publisher.getPublishedEventCount() + publisher.getDroppedEventCount(), 100);
+    }
+
+    private static void publish(ThrottleDataPublisher publisher, String appId) {
+        publisher.publishNonThrottledEvent(appId + ":admin", "Gold", "/test:1.0.0", "Unlimited",
+                appId + ":/test:1.0.0", "Gold", "/test/1.0.0/*:GET", "Unlimited", "admin", "/test", "1.0.0",
+                "carbon.super", "carbon.super", appId, null, null);
+    }
+}
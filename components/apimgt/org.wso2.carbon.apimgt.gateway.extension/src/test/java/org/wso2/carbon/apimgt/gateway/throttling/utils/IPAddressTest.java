@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.throttling.utils;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class IPAddressTest {
+
+    @DataProvider(name = "invalidAddresses")
+    public Object[][] invalidAddresses() {
+        return new Object[][]{
+                {""}, {"localhost"}, {"10.0.0"}, {"10.0.0.256"}, {"10..0.1"}, {"10.0.0.1."}, {"1:2:3"},
+                {"1::2::3"}, {"1:2:3:4:5:6:7:8:9"}, {"12345::"}, {"1:"}, {":1"}, {"g::1"}, {"10.0.0.1:8080"}
+        };
+    }
+
+    @Test(dataProvider = "invalidAddresses")
+    public void testInvalidAddress(String address) {
+        Assert.assertNull(IPAddress.parse(address));
+    }
+
+    @Test
+    public void testIPv4Range() {
+        IPAddress start = IPAddress.parse("192.168.1.0");
+        IPAddress end = IPAddress.parse("192.168.1.255");
+        Assert.assertTrue(IPAddress.parse("192.168.1.0").isInRange(start, end));
+        Assert.assertTrue(IPAddress.parse("192.168.1.100").isInRange(start, end));
+        Assert.assertTrue(IPAddress.parse("192.168.1.255").isInRange(start, end));
+        Assert.assertFalse(IPAddress.parse("192.168.2.0").isInRange(start, end));
+        Assert.assertFalse(IPAddress.parse("10.0.0.1").isInRange(start, end));
+        // Addresses above 128.0.0.0 must compare as unsigned values
+        Assert.assertTrue(IPAddress.parse("255.255.255.255").compareTo(IPAddress.parse("1.0.0.0")) > 0);
+        Assert.assertTrue(IPAddress.parse("::ffff:192.168.1.10").isInRange(start, end));
+        Assert.assertFalse(IPAddress.parse("::1").isInRange(start, end));
+    }
+
+    @Test
+    public void testIPv6Addresses() {
+        Assert.assertEquals(IPAddress.parse("2001:db8::1"), IPAddress.parse("2001:0db8:0:0:0:0:0:0001"));
+        Assert.assertEquals(IPAddress.parse("[fe80::1%eth0]"), IPAddress.parse("fe80::1"));
+        Assert.assertEquals(IPAddress.parse("::"), IPAddress.parse("0:0:0:0:0:0:0:0"));
+        Assert.assertEquals(IPAddress.parse("1::"), IPAddress.parse("1:0:0:0:0:0:0:0"));
+        Assert.assertEquals(IPAddress.parse("::ffff:10.0.0.1"), IPAddress.parse("10.0.0.1"));
+        Assert.assertTrue(IPAddress.parse("2001:db8::1").isIPv6());
+
+        IPAddress start = IPAddress.parse("2001:db8::");
+        IPAddress end = IPAddress.parse("2001:db8::ffff:ffff");
+        Assert.assertTrue(IPAddress.parse("2001:db8::1:2").isInRange(start, end));
+        Assert.assertFalse(IPAddress.parse("2001:db8::1:0:0").isInRange(start, end));
+        Assert.assertFalse(IPAddress.parse("ffff::1").isInRange(start, end));
+    }
+
+    @Test
+    public void testNetworkBoundary() {
+        IPAddress ipv4 = IPAddress.parse("10.1.2.3");
+        Assert.assertEquals(ipv4.getNetworkBoundary(16, false), IPAddress.parse("10.1.0.0"));
+        Assert.assertEquals(ipv4.getNetworkBoundary(16, true), IPAddress.parse("10.1.255.255"));
+        Assert.assertEquals(ipv4.getNetworkBoundary(32, true), ipv4);
+        Assert.assertEquals(ipv4.getNetworkBoundary(0, true), IPAddress.parse("255.255.255.255"));
+
+        IPAddress ipv6 = IPAddress.parse("2001:db8:1:2::3");
+        Assert.assertEquals(ipv6.getNetworkBoundary(32, false), IPAddress.parse("2001:db8::"));
+        Assert.assertEquals(ipv6.getNetworkBoundary(32, true),
+                IPAddress.parse("2001:db8:ffff:ffff:ffff:ffff:ffff:ffff"));
+        Assert.assertEquals(ipv6.getNetworkBoundary(80, true), IPAddress.parse("2001:db8:1:2:0:ffff:ffff:ffff"));
+        Assert.assertEquals(ipv6.getNetworkBoundary(0, false), IPAddress.parse("::"));
+        Assert.assertEquals(ipv6.getNetworkBoundary(128, false), ipv6);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidPrefixLength() {
+        IPAddress.parse("10.1.2.3").getNetworkBoundary(33, false);
+    }
+}
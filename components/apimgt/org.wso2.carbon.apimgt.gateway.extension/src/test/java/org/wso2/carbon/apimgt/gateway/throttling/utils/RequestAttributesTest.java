@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.gateway.throttling.utils;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.apimgt.gateway.throttling.constants.APIThrottleConstants;
+import org.wso2.carbon.apimgt.gateway.throttling.dto.AuthenticationContextDTO;
+import org.wso2.carbon.messaging.CarbonMessage;
+import org.wso2.carbon.messaging.DefaultCarbonMessage;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class RequestAttributesTest {
+
+    @Test
+    public void testQueryParams() {
+        CarbonMessage carbonMessage = new DefaultCarbonMessage();
+        carbonMessage.setProperty(APIThrottleConstants.REST_URL_POSTFIX,
+                "/pets?type=dog&&limit=10&empty=&flag&type=cat&expr=a=b");
+        RequestAttributes requestAttributes = RequestAttributes.get(carbonMessage);
+
+        Assert.assertSame(RequestAttributes.get(carbonMessage), requestAttributes);
+        Assert.assertEquals(requestAttributes.getQueryParam("type"), "cat");
+        Assert.assertEquals(requestAttributes.getQueryParam("limit"), "10");
+        Assert.assertEquals(requestAttributes.getQueryParam("empty"), "");
+        Assert.assertEquals(requestAttributes.getQueryParam("flag"), "");
+        Assert.assertEquals(requestAttributes.getQueryParam("expr"), "a=b");
+        Assert.assertNull(requestAttributes.getQueryParam("typ"));
+        Assert.assertNull(requestAttributes.getQueryParam("/pets"));
+    }
+
+    @Test
+    public void testNoQueryParams() {
+        RequestAttributes requestAttributes = RequestAttributes.get(new DefaultCarbonMessage());
+        Assert.assertNull(requestAttributes.getQueryParam("type"));
+    }
+
+    @Test
+    public void testClientIp() {
+        CarbonMessage carbonMessage = new DefaultCarbonMessage();
+        TreeMap<String, String> headers = new TreeMap<>();
+        headers.put(APIThrottleConstants.X_FORWARDED_FOR, "2001:db8::1, 10.0.0.1");
+        carbonMessage.setProperty(APIThrottleConstants.TRANSPORT_HEADERS, headers);
+        carbonMessage.setProperty(APIThrottleConstants.REMOTE_ADDR, "10.0.0.2");
+        RequestAttributes requestAttributes = RequestAttributes.get(carbonMessage);
+
+        Assert.assertEquals(requestAttributes.getClientIp(), "2001:db8::1");
+        Assert.assertEquals(requestAttributes.getClientIpAddress(), IPAddress.parse("2001:db8::1"));
+        // Parsed once per request
+        headers.remove(APIThrottleConstants.X_FORWARDED_FOR);
+        Assert.assertEquals(requestAttributes.getClientIp(), "2001:db8::1");
+    }
+
+    @Test
+    public void testJWTClaims() {
+        String payload = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                "{\"sub\":\"admin\",\"department\":\"sales\"}".getBytes(StandardCharsets.UTF_8));
+        AuthenticationContextDTO authContext = new AuthenticationContextDTO();
+        authContext.setCallerToken("eyJhbGciOiJub25lIn0." + payload + ".");
+        RequestAttributes requestAttributes = RequestAttributes.get(new DefaultCarbonMessage());
+
+        Map claims = requestAttributes.getJWTClaims(authContext);
+        Assert.assertEquals(claims.get("department"), "sales");
+        Assert.assertSame(requestAttributes.getJWTClaims(authContext), claims);
+
+        authContext.setCallerToken("opaque-token");
+        Assert.assertNull(RequestAttributes.get(new DefaultCarbonMessage()).getJWTClaims(authContext));
+    }
+}
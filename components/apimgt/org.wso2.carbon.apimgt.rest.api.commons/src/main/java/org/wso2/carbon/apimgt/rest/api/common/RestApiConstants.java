@@ -66,6 +66,9 @@ public class RestApiConstants {
     public static final String RESOURCE_PATH_APIS = "/apis";
     public static final String APIID_PARAM = "{apiId}";
     public static final String RESOURCE_PATH_THUMBNAIL = RESOURCE_PATH_APIS + "/" + APIID_PARAM + "/thumbnail";
+    public static final String CURSOR_PARAM = "{cursor}";
+    public static final String APIS_GET_PAGINATION_URL =
+            RESOURCE_PATH_APIS + "?limit=" + LIMIT_PARAM + "&cursor=" + CURSOR_PARAM;
     public static final String APPLICATION_OCTET_STREAM = "application/octet-stream";
 
     public static final String REST_API_PROVIDER = "admin";
@@ -277,6 +277,20 @@ public class RestApiUtil {
         return paginatedURL;
     }
 
+    /**
+     * Returns the paginated url for APIs API
+     *
+     * @param cursor cursor token of the next page
+     * @param limit  max number of objects returned
+     * @return constructed paginated url
+     */
+    public static String getAPIPaginatedURL(String cursor, Integer limit) {
+        String paginatedURL = RestApiConstants.APIS_GET_PAGINATION_URL;
+        paginatedURL = paginatedURL.replace(RestApiConstants.LIMIT_PARAM, String.valueOf(limit));
+        paginatedURL = paginatedURL.replace(RestApiConstants.CURSOR_PARAM, cursor);
+        return paginatedURL;
+    }
+
     /**
      * Returns the gateway config retrieve url
      *
@@ -4,6 +4,8 @@ package org.wso2.carbon.apimgt.rest.api.core;
 import io.swagger.annotations.ApiParam;
 
 import org.wso2.carbon.apimgt.rest.api.core.dto.ErrorDTO;
+import org.wso2.carbon.apimgt.rest.api.core.dto.SubscriptionChangeListDTO;
+import org.wso2.carbon.apimgt.rest.api.core.dto.SubscriptionDTO;
 import org.wso2.carbon.apimgt.rest.api.core.dto.SubscriptionListDTO;
 import org.wso2.carbon.apimgt.rest.api.core.factories.SubscriptionsApiServiceFactory;
 
@@ -42,6 +44,37 @@ public class SubscriptionsApi implements Microservice  {
    private final SubscriptionsApiService delegate = SubscriptionsApiServiceFactory.getSubscriptionsApi();
 
     @GET
+    @Path("/changes")
+    @Consumes({ "application/json" })
+    @Produces({ "application/json" })
+    @io.swagger.annotations.ApiOperation(value = "Return the subscriptions changed after a revision ", notes = "Return the subscriptions which were added, updated or removed after the given revision, along with the latest revision. All the subscriptions are returned if the revision is not given. The returned revision should be used as the `since` value of the next request. ", response = SubscriptionChangeListDTO.class, tags={ "Subscriptions of API", })
+    @io.swagger.annotations.ApiResponses(value = { 
+        @io.swagger.annotations.ApiResponse(code = 200, message = "OK. The subscriptions changed after the revision. ", response = SubscriptionChangeListDTO.class),
+        
+        @io.swagger.annotations.ApiResponse(code = 400, message = "Bad Request. Invalid request or validation error ", response = SubscriptionChangeListDTO.class),
+        
+        @io.swagger.annotations.ApiResponse(code = 406, message = "Not Acceptable. The requested media type is not supported ", response = SubscriptionChangeListDTO.class) })
+    public Response subscriptionsChangesGet(@ApiParam(value = "Revision returned by the previous request. ") @QueryParam("since") Long since
+,@ApiParam(value = "Media types acceptable for the response. Default is application/json. " , defaultValue="application/json")@HeaderParam("Accept") String accept
+, @Context Request request)
+    throws NotFoundException {
+        return delegate.subscriptionsChangesGet(since,accept, request);
+    }
+    @GET
+    @Path("/export")
+    @Consumes({ "application/json" })
+    @Produces({ "application/x-ndjson" })
+    @io.swagger.annotations.ApiOperation(value = "Export all subscriptions ", notes = "Return all the subscriptions as newline delimited JSON, one subscription per line. The subscriptions are read and written in pages, so the response is streamed as it is read. The revision of the subscriptions when the export started is returned in the `X-Subscription-Revision` header, and can be used as the `since` value to retrieve the changes made after the export started. ", response = SubscriptionDTO.class, tags={ "Subscriptions of API", })
+    @io.swagger.annotations.ApiResponses(value = { 
+        @io.swagger.annotations.ApiResponse(code = 200, message = "OK. The subscriptions, one per line. ", response = SubscriptionDTO.class),
+        
+        @io.swagger.annotations.ApiResponse(code = 406, message = "Not Acceptable. The requested media type is not supported ", response = SubscriptionDTO.class) })
+    public Response subscriptionsExportGet(@ApiParam(value = "Media types acceptable for the response. Default is application/json. " , defaultValue="application/json")@HeaderParam("Accept") String accept
+, @Context Request request)
+    throws NotFoundException {
+        return delegate.subscriptionsExportGet(accept, request);
+    }
+    @GET
     
     @Consumes({ "application/json" })
     @Produces({ "application/json" })
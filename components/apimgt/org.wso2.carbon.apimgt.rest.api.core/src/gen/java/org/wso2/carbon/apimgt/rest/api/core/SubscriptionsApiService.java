@@ -8,6 +8,8 @@ import org.wso2.msf4j.formparam.FileInfo;
 import org.wso2.msf4j.Request;
 
 import org.wso2.carbon.apimgt.rest.api.core.dto.ErrorDTO;
+import org.wso2.carbon.apimgt.rest.api.core.dto.SubscriptionChangeListDTO;
+import org.wso2.carbon.apimgt.rest.api.core.dto.SubscriptionDTO;
 import org.wso2.carbon.apimgt.rest.api.core.dto.SubscriptionListDTO;
 
 import java.util.List;
@@ -19,6 +21,11 @@ import javax.ws.rs.core.Response;
 import javax.ws.rs.core.SecurityContext;
 
 public abstract class SubscriptionsApiService {
+    public abstract Response subscriptionsChangesGet(Long since
+ ,String accept
+ , Request request) throws NotFoundException;
+    public abstract Response subscriptionsExportGet(String accept
+ , Request request) throws NotFoundException;
     public abstract Response subscriptionsGet(String apiContext
  ,String apiVersion
  ,Integer limit
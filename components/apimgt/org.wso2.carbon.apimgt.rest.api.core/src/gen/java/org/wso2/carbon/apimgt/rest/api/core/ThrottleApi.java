@@ -0,0 +1,60 @@
+package org.wso2.carbon.apimgt.rest.api.core;
+
+
+import io.swagger.annotations.ApiParam;
+
+import org.wso2.carbon.apimgt.rest.api.core.dto.ErrorDTO;
+import org.wso2.carbon.apimgt.rest.api.core.dto.ThrottleSnapshotDTO;
+import org.wso2.carbon.apimgt.rest.api.core.factories.ThrottleApiServiceFactory;
+
+import org.wso2.msf4j.Microservice;
+import org.wso2.msf4j.Request;
+import org.wso2.msf4j.formparam.FileInfo;
+import org.wso2.msf4j.formparam.FormDataParam;
+import org.osgi.service.component.annotations.Component;
+
+import java.io.InputStream;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.DELETE;
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.GET;
+import javax.ws.rs.HEAD;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.POST;
+import javax.ws.rs.PUT;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.Response;
+
+@Component(
+    name = "org.wso2.carbon.apimgt.rest.api.core.ThrottleApi",
+    service = Microservice.class,
+    immediate = true
+)
+@Path("/api/am/core/v1.[\\d]+/throttle")
+@Consumes({ "application/json" })
+@Produces({ "application/json" })
+@io.swagger.annotations.Api(description = "the throttle API")
+public class ThrottleApi implements Microservice  {
+   private final ThrottleApiService delegate = ThrottleApiServiceFactory.getThrottleApi();
+
+    @GET
+    @Path("/snapshot")
+    @Consumes({ "application/json" })
+    @Produces({ "application/json" })
+    @io.swagger.annotations.ApiOperation(value = "Return the throttle state ", notes = "Return the throttled keys, blocking conditions and key templates published by the traffic manager, so that a gateway can catch up with the throttle messages it missed. ", response = ThrottleSnapshotDTO.class, tags={ "Throttle State", })
+    @io.swagger.annotations.ApiResponses(value = { 
+        @io.swagger.annotations.ApiResponse(code = 200, message = "OK. The throttle state. ", response = ThrottleSnapshotDTO.class),
+        
+        @io.swagger.annotations.ApiResponse(code = 406, message = "Not Acceptable. The requested media type is not supported ", response = ThrottleSnapshotDTO.class),
+        
+        @io.swagger.annotations.ApiResponse(code = 503, message = "Service Unavailable. The throttle messages are not being received. ", response = ThrottleSnapshotDTO.class) })
+    public Response throttleSnapshotGet(@ApiParam(value = "Media types acceptable for the response. Default is application/json. " , defaultValue="application/json")@HeaderParam("Accept") String accept
+, @Context Request request)
+    throws NotFoundException {
+        return delegate.throttleSnapshotGet(accept, request);
+    }
+}
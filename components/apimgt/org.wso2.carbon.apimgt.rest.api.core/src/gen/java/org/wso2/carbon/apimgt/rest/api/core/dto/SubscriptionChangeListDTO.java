@@ -0,0 +1,132 @@
+package org.wso2.carbon.apimgt.rest.api.core.dto;
+
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+import java.util.ArrayList;
+import java.util.List;
+import org.wso2.carbon.apimgt.rest.api.core.dto.SubscriptionDTO;
+import java.util.Objects;
+
+/**
+ * SubscriptionChangeListDTO
+ */
+public class SubscriptionChangeListDTO   {
+  @JsonProperty("revision")
+  private Long revision = null;
+
+  @JsonProperty("list")
+  private List<SubscriptionDTO> list = new ArrayList<SubscriptionDTO>();
+
+  @JsonProperty("removed")
+  private List<SubscriptionDTO> removed = new ArrayList<SubscriptionDTO>();
+
+  public SubscriptionChangeListDTO revision(Long revision) {
+    this.revision = revision;
+    return this;
+  }
+
+   /**
+   * Latest revision of the subscriptions
+   * @return revision
+  **/
+  @ApiModelProperty(value = "Latest revision of the subscriptions")
+  public Long getRevision() {
+    return revision;
+  }
+
+  public void setRevision(Long revision) {
+    this.revision = revision;
+  }
+
+  public SubscriptionChangeListDTO list(List<SubscriptionDTO> list) {
+    this.list = list;
+    return this;
+  }
+
+  public SubscriptionChangeListDTO addListItem(SubscriptionDTO listItem) {
+    this.list.add(listItem);
+    return this;
+  }
+
+   /**
+   * Subscriptions added or updated after the given revision
+   * @return list
+  **/
+  @ApiModelProperty(value = "Subscriptions added or updated after the given revision")
+  public List<SubscriptionDTO> getList() {
+    return list;
+  }
+
+  public void setList(List<SubscriptionDTO> list) {
+    this.list = list;
+  }
+
+  public SubscriptionChangeListDTO removed(List<SubscriptionDTO> removed) {
+    this.removed = removed;
+    return this;
+  }
+
+  public SubscriptionChangeListDTO addRemovedItem(SubscriptionDTO removedItem) {
+    this.removed.add(removedItem);
+    return this;
+  }
+
+   /**
+   * Subscriptions removed after the given revision. Only the API context, API version, consumer key and key environment type are set. 
+   * @return removed
+  **/
+  @ApiModelProperty(value = "Subscriptions removed after the given revision. Only the API context, API version, consumer key and key environment type are set. ")
+  public List<SubscriptionDTO> getRemoved() {
+    return removed;
+  }
+
+  public void setRemoved(List<SubscriptionDTO> removed) {
+    this.removed = removed;
+  }
+
+
+  @Override
+  public boolean equals(java.lang.Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    SubscriptionChangeListDTO subscriptionChangeList = (SubscriptionChangeListDTO) o;
+    return Objects.equals(this.revision, subscriptionChangeList.revision) &&
+        Objects.equals(this.list, subscriptionChangeList.list) &&
+        Objects.equals(this.removed, subscriptionChangeList.removed);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(revision, list, removed);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    sb.append("class SubscriptionChangeListDTO {\n");
+    
+    sb.append("    revision: ").append(toIndentedString(revision)).append("\n");
+    sb.append("    list: ").append(toIndentedString(list)).append("\n");
+    sb.append("    removed: ").append(toIndentedString(removed)).append("\n");
+    sb.append("}");
+    return sb.toString();
+  }
+
+  /**
+   * Convert the given object to string with each line indented by 4 spaces
+   * (except the first line).
+   */
+  private String toIndentedString(java.lang.Object o) {
+    if (o == null) {
+      return "null";
+    }
+    return o.toString().replace("\n", "\n    ");
+  }
+}
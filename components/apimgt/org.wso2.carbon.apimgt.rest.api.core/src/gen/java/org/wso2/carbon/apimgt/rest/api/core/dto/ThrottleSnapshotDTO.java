@@ -0,0 +1,222 @@
+package org.wso2.carbon.apimgt.rest.api.core.dto;
+
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * ThrottleSnapshotDTO
+ */
+public class ThrottleSnapshotDTO   {
+  @JsonProperty("throttleKeys")
+  private Map<String, Long> throttleKeys = new HashMap<String, Long>();
+
+  @JsonProperty("apiBlockingConditions")
+  private List<String> apiBlockingConditions = new ArrayList<String>();
+
+  @JsonProperty("applicationBlockingConditions")
+  private List<String> applicationBlockingConditions = new ArrayList<String>();
+
+  @JsonProperty("userBlockingConditions")
+  private List<String> userBlockingConditions = new ArrayList<String>();
+
+  @JsonProperty("ipBlockingConditions")
+  private List<String> ipBlockingConditions = new ArrayList<String>();
+
+  @JsonProperty("keyTemplates")
+  private List<String> keyTemplates = new ArrayList<String>();
+
+  public ThrottleSnapshotDTO throttleKeys(Map<String, Long> throttleKeys) {
+    this.throttleKeys = throttleKeys;
+    return this;
+  }
+
+  public ThrottleSnapshotDTO putThrottleKeysItem(String key, Long throttleKeysItem) {
+    this.throttleKeys.put(key, throttleKeysItem);
+    return this;
+  }
+
+   /**
+   * Throttled keys with the time their throttle window expires at, in milliseconds
+   * @return throttleKeys
+  **/
+  @ApiModelProperty(value = "Throttled keys with the time their throttle window expires at, in milliseconds")
+  public Map<String, Long> getThrottleKeys() {
+    return throttleKeys;
+  }
+
+  public void setThrottleKeys(Map<String, Long> throttleKeys) {
+    this.throttleKeys = throttleKeys;
+  }
+
+  public ThrottleSnapshotDTO apiBlockingConditions(List<String> apiBlockingConditions) {
+    this.apiBlockingConditions = apiBlockingConditions;
+    return this;
+  }
+
+  public ThrottleSnapshotDTO addApiBlockingConditionsItem(String apiBlockingConditionsItem) {
+    this.apiBlockingConditions.add(apiBlockingConditionsItem);
+    return this;
+  }
+
+   /**
+   * Get apiBlockingConditions
+   * @return apiBlockingConditions
+  **/
+  @ApiModelProperty(value = "")
+  public List<String> getApiBlockingConditions() {
+    return apiBlockingConditions;
+  }
+
+  public void setApiBlockingConditions(List<String> apiBlockingConditions) {
+    this.apiBlockingConditions = apiBlockingConditions;
+  }
+
+  public ThrottleSnapshotDTO applicationBlockingConditions(List<String> applicationBlockingConditions) {
+    this.applicationBlockingConditions = applicationBlockingConditions;
+    return this;
+  }
+
+  public ThrottleSnapshotDTO addApplicationBlockingConditionsItem(String applicationBlockingConditionsItem) {
+    this.applicationBlockingConditions.add(applicationBlockingConditionsItem);
+    return this;
+  }
+
+   /**
+   * Get applicationBlockingConditions
+   * @return applicationBlockingConditions
+  **/
+  @ApiModelProperty(value = "")
+  public List<String> getApplicationBlockingConditions() {
+    return applicationBlockingConditions;
+  }
+
+  public void setApplicationBlockingConditions(List<String> applicationBlockingConditions) {
+    this.applicationBlockingConditions = applicationBlockingConditions;
+  }
+
+  public ThrottleSnapshotDTO userBlockingConditions(List<String> userBlockingConditions) {
+    this.userBlockingConditions = userBlockingConditions;
+    return this;
+  }
+
+  public ThrottleSnapshotDTO addUserBlockingConditionsItem(String userBlockingConditionsItem) {
+    this.userBlockingConditions.add(userBlockingConditionsItem);
+    return this;
+  }
+
+   /**
+   * Get userBlockingConditions
+   * @return userBlockingConditions
+  **/
+  @ApiModelProperty(value = "")
+  public List<String> getUserBlockingConditions() {
+    return userBlockingConditions;
+  }
+
+  public void setUserBlockingConditions(List<String> userBlockingConditions) {
+    this.userBlockingConditions = userBlockingConditions;
+  }
+
+  public ThrottleSnapshotDTO ipBlockingConditions(List<String> ipBlockingConditions) {
+    this.ipBlockingConditions = ipBlockingConditions;
+    return this;
+  }
+
+  public ThrottleSnapshotDTO addIpBlockingConditionsItem(String ipBlockingConditionsItem) {
+    this.ipBlockingConditions.add(ipBlockingConditionsItem);
+    return this;
+  }
+
+   /**
+   * Get ipBlockingConditions
+   * @return ipBlockingConditions
+  **/
+  @ApiModelProperty(value = "")
+  public List<String> getIpBlockingConditions() {
+    return ipBlockingConditions;
+  }
+
+  public void setIpBlockingConditions(List<String> ipBlockingConditions) {
+    this.ipBlockingConditions = ipBlockingConditions;
+  }
+
+  public ThrottleSnapshotDTO keyTemplates(List<String> keyTemplates) {
+    this.keyTemplates = keyTemplates;
+    return this;
+  }
+
+  public ThrottleSnapshotDTO addKeyTemplatesItem(String keyTemplatesItem) {
+    this.keyTemplates.add(keyTemplatesItem);
+    return this;
+  }
+
+   /**
+   * Key templates of the custom policies
+   * @return keyTemplates
+  **/
+  @ApiModelProperty(value = "Key templates of the custom policies")
+  public List<String> getKeyTemplates() {
+    return keyTemplates;
+  }
+
+  public void setKeyTemplates(List<String> keyTemplates) {
+    this.keyTemplates = keyTemplates;
+  }
+
+
+  @Override
+  public boolean equals(java.lang.Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    ThrottleSnapshotDTO throttleSnapshot = (ThrottleSnapshotDTO) o;
+    return Objects.equals(this.throttleKeys, throttleSnapshot.throttleKeys) &&
+        Objects.equals(this.apiBlockingConditions, throttleSnapshot.apiBlockingConditions) &&
+        Objects.equals(this.applicationBlockingConditions, throttleSnapshot.applicationBlockingConditions) &&
+        Objects.equals(this.userBlockingConditions, throttleSnapshot.userBlockingConditions) &&
+        Objects.equals(this.ipBlockingConditions, throttleSnapshot.ipBlockingConditions) &&
+        Objects.equals(this.keyTemplates, throttleSnapshot.keyTemplates);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(throttleKeys, apiBlockingConditions, applicationBlockingConditions, userBlockingConditions, ipBlockingConditions, keyTemplates);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    sb.append("class ThrottleSnapshotDTO {\n");
+    
+    sb.append("    throttleKeys: ").append(toIndentedString(throttleKeys)).append("\n");
+    sb.append("    apiBlockingConditions: ").append(toIndentedString(apiBlockingConditions)).append("\n");
+    sb.append("    applicationBlockingConditions: ").append(toIndentedString(applicationBlockingConditions)).append("\n");
+    sb.append("    userBlockingConditions: ").append(toIndentedString(userBlockingConditions)).append("\n");
+    sb.append("    ipBlockingConditions: ").append(toIndentedString(ipBlockingConditions)).append("\n");
+    sb.append("    keyTemplates: ").append(toIndentedString(keyTemplates)).append("\n");
+    sb.append("}");
+    return sb.toString();
+  }
+
+  /**
+   * Convert the given object to string with each line indented by 4 spaces
+   * (except the first line).
+   */
+  private String toIndentedString(java.lang.Object o) {
+    if (o == null) {
+      return "null";
+    }
+    return o.toString().replace("\n", "\n    ");
+  }
+}
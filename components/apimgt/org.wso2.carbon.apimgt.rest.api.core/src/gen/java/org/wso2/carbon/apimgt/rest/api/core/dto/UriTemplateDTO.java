@@ -28,6 +28,12 @@ public class UriTemplateDTO   {
   @JsonProperty("scopes")
   private List<String> scopes = new ArrayList<String>();
 
+  @JsonProperty("productionMaxTps")
+  private Long productionMaxTps = null;
+
+  @JsonProperty("sandboxMaxTps")
+  private Long sandboxMaxTps = null;
+
   public UriTemplateDTO uriTemplate(String uriTemplate) {
     this.uriTemplate = uriTemplate;
     return this;
@@ -123,6 +129,42 @@ public class UriTemplateDTO   {
     this.scopes = scopes;
   }
 
+  public UriTemplateDTO productionMaxTps(Long productionMaxTps) {
+    this.productionMaxTps = productionMaxTps;
+    return this;
+  }
+
+   /**
+   * maximum TPS of the production endpoint of the resource. 
+   * @return productionMaxTps
+  **/
+  @ApiModelProperty(value = "maximum TPS of the production endpoint of the resource. ")
+  public Long getProductionMaxTps() {
+    return productionMaxTps;
+  }
+
+  public void setProductionMaxTps(Long productionMaxTps) {
+    this.productionMaxTps = productionMaxTps;
+  }
+
+  public UriTemplateDTO sandboxMaxTps(Long sandboxMaxTps) {
+    this.sandboxMaxTps = sandboxMaxTps;
+    return this;
+  }
+
+   /**
+   * maximum TPS of the sandbox endpoint of the resource. 
+   * @return sandboxMaxTps
+  **/
+  @ApiModelProperty(value = "maximum TPS of the sandbox endpoint of the resource. ")
+  public Long getSandboxMaxTps() {
+    return sandboxMaxTps;
+  }
+
+  public void setSandboxMaxTps(Long sandboxMaxTps) {
+    this.sandboxMaxTps = sandboxMaxTps;
+  }
+
 
   @Override
   public boolean equals(java.lang.Object o) {
@@ -137,12 +179,14 @@ public class UriTemplateDTO   {
         Objects.equals(this.httpVerb, uriTemplate.httpVerb) &&
         Objects.equals(this.authType, uriTemplate.authType) &&
         Objects.equals(this.policy, uriTemplate.policy) &&
-        Objects.equals(this.scopes, uriTemplate.scopes);
+        Objects.equals(this.scopes, uriTemplate.scopes) &&
+        Objects.equals(this.productionMaxTps, uriTemplate.productionMaxTps) &&
+        Objects.equals(this.sandboxMaxTps, uriTemplate.sandboxMaxTps);
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(uriTemplate, httpVerb, authType, policy, scopes);
+    return Objects.hash(uriTemplate, httpVerb, authType, policy, scopes, productionMaxTps, sandboxMaxTps);
   }
 
   @Override
@@ -155,6 +199,8 @@ public class UriTemplateDTO   {
     sb.append("    authType: ").append(toIndentedString(authType)).append("\n");
     sb.append("    policy: ").append(toIndentedString(policy)).append("\n");
     sb.append("    scopes: ").append(toIndentedString(scopes)).append("\n");
+    sb.append("    productionMaxTps: ").append(toIndentedString(productionMaxTps)).append("\n");
+    sb.append("    sandboxMaxTps: ").append(toIndentedString(sandboxMaxTps)).append("\n");
     sb.append("}");
     return sb.toString();
   }
@@ -0,0 +1,12 @@
+package org.wso2.carbon.apimgt.rest.api.core.factories;
+
+import org.wso2.carbon.apimgt.rest.api.core.ThrottleApiService;
+import org.wso2.carbon.apimgt.rest.api.core.impl.ThrottleApiServiceImpl;
+
+public class ThrottleApiServiceFactory {
+    private static final ThrottleApiService service = new ThrottleApiServiceImpl();
+
+    public static ThrottleApiService getThrottleApi() {
+        return service;
+    }
+}
@@ -6,7 +6,7 @@ import org.slf4j.LoggerFactory;
 import org.wso2.carbon.apimgt.core.api.APIMgtAdminService;
 import org.wso2.carbon.apimgt.core.exception.APIManagementException;
 import org.wso2.carbon.apimgt.core.impl.APIManagerFactory;
-import org.wso2.carbon.apimgt.core.models.UriTemplate;
+import org.wso2.carbon.apimgt.core.models.APIResource;
 import org.wso2.carbon.apimgt.core.util.APIMgtConstants;
 import org.wso2.carbon.apimgt.rest.api.common.util.RestApiUtil;
 import org.wso2.carbon.apimgt.rest.api.core.NotFoundException;
@@ -31,7 +31,7 @@ public class ResourcesApiServiceImpl extends ResourcesApiService {
             , Request request) throws NotFoundException {
         try {
             APIMgtAdminService apiMgtAdminService = APIManagerFactory.getInstance().getAPIMgtAdminService();
-            List<UriTemplate> resourcesOfApi = new ArrayList<>();
+            List<APIResource> resourcesOfApi = new ArrayList<>();
             if (!StringUtils.isEmpty(apiContext) && !StringUtils.isEmpty(apiVersion)) {
                 resourcesOfApi = apiMgtAdminService.getAllResourcesForApi(apiContext, apiVersion);
             }
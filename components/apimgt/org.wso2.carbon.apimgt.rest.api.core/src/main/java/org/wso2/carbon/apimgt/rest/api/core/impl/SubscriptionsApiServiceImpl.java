@@ -6,6 +6,7 @@ import org.slf4j.LoggerFactory;
 import org.wso2.carbon.apimgt.core.api.APIMgtAdminService;
 import org.wso2.carbon.apimgt.core.exception.APIManagementException;
 import org.wso2.carbon.apimgt.core.impl.APIManagerFactory;
+import org.wso2.carbon.apimgt.core.models.SubscriptionChanges;
 import org.wso2.carbon.apimgt.core.models.SubscriptionValidationData;
 import org.wso2.carbon.apimgt.core.util.APIMgtConstants;
 import org.wso2.carbon.apimgt.core.util.APIUtils;
@@ -15,6 +16,7 @@ import org.wso2.carbon.apimgt.rest.api.core.NotFoundException;
 import org.wso2.carbon.apimgt.rest.api.core.SubscriptionsApiService;
 import org.wso2.carbon.apimgt.rest.api.core.dto.SubscriptionListDTO;
 import org.wso2.carbon.apimgt.rest.api.core.utils.MappingUtil;
+import org.wso2.carbon.apimgt.rest.api.core.utils.SubscriptionExportStreamingOutput;
 import org.wso2.msf4j.Request;
 
 import java.util.HashMap;
@@ -25,6 +27,60 @@ import javax.ws.rs.core.Response;
 public class SubscriptionsApiServiceImpl extends SubscriptionsApiService {
 
     private static final Logger log = LoggerFactory.getLogger(SubscriptionsApiServiceImpl.class);
+    private static final int EXPORT_PAGE_SIZE = 1000;
+    private static final String NDJSON_MEDIA_TYPE = "application/x-ndjson";
+    private static final String SUBSCRIPTION_REVISION_HEADER = "X-Subscription-Revision";
+
+    /**
+     * Retrieve subscriptions changed after a revision
+     *
+     * @param since   Revision returned by the previous request, or null to retrieve all subscriptions
+     * @param accept  Accept header value
+     * @param request msf4j request object
+     * @return Subscriptions changed after the revision, along with the latest revision
+     * @throws NotFoundException If failed to retrieve subscriptions
+     */
+    @Override
+    public Response subscriptionsChangesGet(Long since, String accept, Request request) throws NotFoundException {
+        try {
+            APIMgtAdminService apiMgtAdminService = APIManagerFactory.getInstance().getAPIMgtAdminService();
+            SubscriptionChanges subscriptionChanges = apiMgtAdminService
+                    .getAPISubscriptionChanges(since == null ? -1 : since);
+            return Response.ok(MappingUtil.convertToSubscriptionChangeListDto(subscriptionChanges)).build();
+        } catch (APIManagementException e) {
+            String errorMessage = "Error while retrieving subscriptions changed after revision " + since;
+            ErrorDTO errorDTO = RestApiUtil.getErrorDTO(e.getErrorHandler());
+            log.error(errorMessage, e);
+            return Response.status(e.getErrorHandler().getHttpStatusCode()).entity(errorDTO).build();
+        }
+    }
+
+    /**
+     * Export all subscriptions as newline delimited JSON. The first page is read before the response is started, so
+     * that a failure to read the subscriptions is returned as an error response.
+     *
+     * @param accept  Accept header value
+     * @param request msf4j request object
+     * @return Streamed subscriptions, along with the revision of the subscriptions when the export started
+     * @throws NotFoundException If failed to retrieve subscriptions
+     */
+    @Override
+    public Response subscriptionsExportGet(String accept, Request request) throws NotFoundException {
+        try {
+            APIMgtAdminService apiMgtAdminService = APIManagerFactory.getInstance().getAPIMgtAdminService();
+            // The revision is read first, so that the changes made while exporting are returned after it
+            long revision = apiMgtAdminService.getAPISubscriptionRevision();
+            List<SubscriptionValidationData> firstPage = apiMgtAdminService.getAPISubscriptions(null, null,
+                    EXPORT_PAGE_SIZE);
+            return Response.ok(new SubscriptionExportStreamingOutput(apiMgtAdminService, firstPage, EXPORT_PAGE_SIZE),
+                    NDJSON_MEDIA_TYPE).header(SUBSCRIPTION_REVISION_HEADER, revision).build();
+        } catch (APIManagementException e) {
+            String errorMessage = "Error while exporting subscriptions.";
+            ErrorDTO errorDTO = RestApiUtil.getErrorDTO(e.getErrorHandler());
+            log.error(errorMessage, e);
+            return Response.status(e.getErrorHandler().getHttpStatusCode()).entity(errorDTO).build();
+        }
+    }
 
     /**
      * Retrieve subscriptions
@@ -0,0 +1,44 @@
+package org.wso2.carbon.apimgt.rest.api.core.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.apimgt.core.exception.ExceptionCodes;
+import org.wso2.carbon.apimgt.core.impl.ThrottleStateTracker;
+import org.wso2.carbon.apimgt.rest.api.common.dto.ErrorDTO;
+import org.wso2.carbon.apimgt.rest.api.common.util.RestApiUtil;
+import org.wso2.carbon.apimgt.rest.api.core.NotFoundException;
+import org.wso2.carbon.apimgt.rest.api.core.ThrottleApiService;
+import org.wso2.carbon.apimgt.rest.api.core.dto.ThrottleSnapshotDTO;
+import org.wso2.carbon.apimgt.rest.api.core.utils.MappingUtil;
+import org.wso2.msf4j.Request;
+
+import javax.ws.rs.core.Response;
+
+public class ThrottleApiServiceImpl extends ThrottleApiService {
+    private static final Logger log = LoggerFactory.getLogger(ThrottleApiServiceImpl.class);
+
+    private final ThrottleStateTracker throttleStateTracker;
+
+    public ThrottleApiServiceImpl() {
+        this(ThrottleStateTracker.getInstance());
+    }
+
+    ThrottleApiServiceImpl(ThrottleStateTracker throttleStateTracker) {
+        this.throttleStateTracker = throttleStateTracker;
+    }
+
+    @Override
+    public Response throttleSnapshotGet(String accept, Request request) throws NotFoundException {
+        if (!throttleStateTracker.isReady()) {
+            // The gateways keep the state they have rather than loading one which misses messages
+            String errorMessage = "The throttle state is not available as the throttle messages have not been "
+                    + "received for long enough";
+            log.warn(errorMessage);
+            ErrorDTO errorDTO = RestApiUtil.getErrorDTO(errorMessage, ExceptionCodes.BROKER_EXCEPTION.getErrorCode(),
+                    errorMessage);
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE).entity(errorDTO).build();
+        }
+        ThrottleSnapshotDTO throttleSnapshotDTO = MappingUtil.convertToThrottleSnapshotDto(throttleStateTracker);
+        return Response.ok(throttleSnapshotDTO).build();
+    }
+}
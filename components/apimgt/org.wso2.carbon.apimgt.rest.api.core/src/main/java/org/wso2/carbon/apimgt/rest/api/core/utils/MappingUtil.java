@@ -23,14 +23,21 @@
 package org.wso2.carbon.apimgt.rest.api.core.utils;
 
 
+import org.wso2.carbon.apimgt.core.impl.ThrottleStateTracker;
 import org.wso2.carbon.apimgt.core.models.API;
+import org.wso2.carbon.apimgt.core.models.APIResource;
+import org.wso2.carbon.apimgt.core.models.Endpoint;
 import org.wso2.carbon.apimgt.core.models.Label;
+import org.wso2.carbon.apimgt.core.models.SubscriptionChanges;
 import org.wso2.carbon.apimgt.core.models.SubscriptionValidationData;
 import org.wso2.carbon.apimgt.core.models.UriTemplate;
+import org.wso2.carbon.apimgt.core.util.APIMgtConstants;
 import org.wso2.carbon.apimgt.rest.api.core.dto.LabelDTO;
 import org.wso2.carbon.apimgt.rest.api.core.dto.ResourcesListDTO;
+import org.wso2.carbon.apimgt.rest.api.core.dto.SubscriptionChangeListDTO;
 import org.wso2.carbon.apimgt.rest.api.core.dto.SubscriptionDTO;
 import org.wso2.carbon.apimgt.rest.api.core.dto.SubscriptionListDTO;
+import org.wso2.carbon.apimgt.rest.api.core.dto.ThrottleSnapshotDTO;
 import org.wso2.carbon.apimgt.rest.api.core.dto.UriTemplateDTO;
 import org.wso2.carbon.apimgt.rest.api.core.dto.APIInfoDTO;
 import org.wso2.carbon.apimgt.rest.api.core.dto.APIListDTO;
@@ -52,21 +59,51 @@ public class MappingUtil {
             List<SubscriptionValidationData> subscriptionValidationData) {
         SubscriptionListDTO subscriptionListDTO = new SubscriptionListDTO();
         for (SubscriptionValidationData subscriptionData : subscriptionValidationData) {
-            SubscriptionDTO subscriptionDTO = new SubscriptionDTO();
-            subscriptionDTO.setApiName(subscriptionData.getApiName());
-            subscriptionDTO.setApiContext(subscriptionData.getApiContext());
-            subscriptionDTO.setApiVersion(subscriptionData.getApiVersion());
-            subscriptionDTO.setApiProvider(subscriptionData.getApiProvider());
-            subscriptionDTO.setConsumerKey(subscriptionData.getConsumerKey());
-            subscriptionDTO.setSubscriptionPolicy(subscriptionData.getSubscriptionPolicy());
-            subscriptionDTO.setApplicationName(subscriptionData.getApplicationName());
-            subscriptionDTO.setApplicationOwner(subscriptionData.getApplicationOwner());
-            subscriptionDTO.setKeyEnvType(subscriptionData.getKeyEnvType());
-            subscriptionListDTO.addListItem(subscriptionDTO);
+            subscriptionListDTO.addListItem(convertToSubscriptionDto(subscriptionData));
         }
         return subscriptionListDTO;
     }
 
+    /**
+     * This method converts SubscriptionChanges into SubscriptionChangeListDTO object.
+     *
+     * @param subscriptionChanges Subscriptions changed after a revision
+     * @return subscriptionChangeListDTO
+     */
+    public static SubscriptionChangeListDTO convertToSubscriptionChangeListDto(
+            SubscriptionChanges subscriptionChanges) {
+        SubscriptionChangeListDTO subscriptionChangeListDTO = new SubscriptionChangeListDTO();
+        subscriptionChangeListDTO.setRevision(subscriptionChanges.getRevision());
+        for (SubscriptionValidationData subscriptionData : subscriptionChanges.getSubscriptions()) {
+            subscriptionChangeListDTO.addListItem(convertToSubscriptionDto(subscriptionData));
+        }
+        for (SubscriptionValidationData subscriptionData : subscriptionChanges.getRemovedSubscriptions()) {
+            subscriptionChangeListDTO.addRemovedItem(convertToSubscriptionDto(subscriptionData));
+        }
+        return subscriptionChangeListDTO;
+    }
+
+    /**
+     * This method converts the throttle state into ThrottleSnapshotDTO object.
+     *
+     * @param throttleStateTracker Tracker of the throttle messages published by the traffic manager
+     * @return throttleSnapshotDTO
+     */
+    public static ThrottleSnapshotDTO convertToThrottleSnapshotDto(ThrottleStateTracker throttleStateTracker) {
+        ThrottleSnapshotDTO throttleSnapshotDTO = new ThrottleSnapshotDTO();
+        throttleSnapshotDTO.setThrottleKeys(throttleStateTracker.getThrottleKeys());
+        throttleSnapshotDTO.setApiBlockingConditions(new ArrayList<>(
+                throttleStateTracker.getBlockingConditions(ThrottleStateTracker.BLOCKING_CONDITIONS_API)));
+        throttleSnapshotDTO.setApplicationBlockingConditions(new ArrayList<>(
+                throttleStateTracker.getBlockingConditions(ThrottleStateTracker.BLOCKING_CONDITIONS_APPLICATION)));
+        throttleSnapshotDTO.setUserBlockingConditions(new ArrayList<>(
+                throttleStateTracker.getBlockingConditions(ThrottleStateTracker.BLOCKING_CONDITIONS_USER)));
+        throttleSnapshotDTO.setIpBlockingConditions(new ArrayList<>(
+                throttleStateTracker.getBlockingConditions(ThrottleStateTracker.BLOCKING_CONDITIONS_IP)));
+        throttleSnapshotDTO.setKeyTemplates(new ArrayList<>(throttleStateTracker.getKeyTemplates()));
+        return throttleSnapshotDTO;
+    }
+
     /**
      * Converts labelDTOs into labels
      *
@@ -85,26 +122,45 @@ public class MappingUtil {
     }
 
     /**
-     * Convert Uritemplate list to ResourceListDto
-     * @param resourcesOfApi list of uriTemplates
+     * Convert APIResource list to ResourceListDto
+     * @param resourcesOfApi list of API resources
      * @return ResourcesListDTO
      */
-    public static ResourcesListDTO convertToResourceListDto(List<UriTemplate> resourcesOfApi){
+    public static ResourcesListDTO convertToResourceListDto(List<APIResource> resourcesOfApi){
         ResourcesListDTO resourcesListDTO = new ResourcesListDTO();
         List<UriTemplateDTO> uriTemplateDTOArrayList = new ArrayList<>();
-        resourcesOfApi.forEach((v)->{
+        resourcesOfApi.forEach((resource)->{
+            UriTemplate v = resource.getUriTemplate();
             UriTemplateDTO uriTemplateDTO = new UriTemplateDTO();
             uriTemplateDTO.setUriTemplate(v.getUriTemplate());
             uriTemplateDTO.setAuthType(v.getAuthType());
             uriTemplateDTO.setPolicy(v.getPolicy());
             uriTemplateDTO.setHttpVerb(v.getHttpVerb());
-            uriTemplateDTO.setScopes(Collections.emptyList());
+            uriTemplateDTO.setScopes(resource.getScope() != null ? Collections.singletonList(resource.getScope()
+                    .getKey()) : Collections.emptyList());
+            uriTemplateDTO.setProductionMaxTps(getMaxTps(v, APIMgtConstants.PRODUCTION_ENDPOINT));
+            uriTemplateDTO.setSandboxMaxTps(getMaxTps(v, APIMgtConstants.SANDBOX_ENDPOINT));
             uriTemplateDTOArrayList.add(uriTemplateDTO);
         });
         resourcesListDTO.setList(uriTemplateDTOArrayList);
         return resourcesListDTO;
     }
 
+    /**
+     * Returns the maximum TPS of the given endpoint of a resource.
+     *
+     * @param uriTemplate  resource
+     * @param endpointType {@link APIMgtConstants#PRODUCTION_ENDPOINT} or {@link APIMgtConstants#SANDBOX_ENDPOINT}
+     * @return maximum TPS, or null if the resource has no such endpoint or it has no limit
+     */
+    private static Long getMaxTps(UriTemplate uriTemplate, String endpointType) {
+        if (uriTemplate.getEndpoint() == null) {
+            return null;
+        }
+        Endpoint endpoint = uriTemplate.getEndpoint().get(endpointType);
+        return endpoint != null ? endpoint.getMaxTps() : null;
+    }
+
     /**
      * Converts API list to APIListDTO list.
      *
@@ -124,6 +180,26 @@ public class MappingUtil {
      * @param apiList
      * @return
      */
+    /**
+     * This method converts SubscriptionValidationData into SubscriptionDTO object.
+     *
+     * @param subscriptionData Subscription Validation Data
+     * @return subscriptionDTO
+     */
+    public static SubscriptionDTO convertToSubscriptionDto(SubscriptionValidationData subscriptionData) {
+        SubscriptionDTO subscriptionDTO = new SubscriptionDTO();
+        subscriptionDTO.setApiName(subscriptionData.getApiName());
+        subscriptionDTO.setApiContext(subscriptionData.getApiContext());
+        subscriptionDTO.setApiVersion(subscriptionData.getApiVersion());
+        subscriptionDTO.setApiProvider(subscriptionData.getApiProvider());
+        subscriptionDTO.setConsumerKey(subscriptionData.getConsumerKey());
+        subscriptionDTO.setSubscriptionPolicy(subscriptionData.getSubscriptionPolicy());
+        subscriptionDTO.setApplicationName(subscriptionData.getApplicationName());
+        subscriptionDTO.setApplicationOwner(subscriptionData.getApplicationOwner());
+        subscriptionDTO.setKeyEnvType(subscriptionData.getKeyEnvType());
+        return subscriptionDTO;
+    }
+
     private static List<APIInfoDTO> toAPIInfo(List<API> apiList) {
         List<APIInfoDTO> apiInfoList = new ArrayList<APIInfoDTO>();
         for (API api : apiList) {
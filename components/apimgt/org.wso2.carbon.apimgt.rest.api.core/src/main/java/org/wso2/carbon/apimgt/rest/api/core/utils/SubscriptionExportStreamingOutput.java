@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.apimgt.rest.api.core.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.apimgt.core.api.APIMgtAdminService;
+import org.wso2.carbon.apimgt.core.exception.APIManagementException;
+import org.wso2.carbon.apimgt.core.models.SubscriptionValidationData;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.List;
+import javax.ws.rs.core.StreamingOutput;
+
+/**
+ * Writes all the subscriptions as newline delimited JSON. The subscriptions are read one page at a time, and each
+ * page is written and flushed before the next page is read, so only one page is held in memory and the database
+ * connection is not held while the client reads the response.
+ * <p>
+ * The last line holds the number of subscriptions written, as {@code {"count":<count>}}. The status of the response
+ * is sent before the subscriptions are read, so a client can only tell that an aborted export is incomplete by the
+ * missing last line.
+ */
+public class SubscriptionExportStreamingOutput implements StreamingOutput {
+
+    private static final Logger log = LoggerFactory.getLogger(SubscriptionExportStreamingOutput.class);
+    private static final byte NEW_LINE = '\n';
+    private static final String COUNT = "count";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final APIMgtAdminService apiMgtAdminService;
+    private final int pageSize;
+    private List<SubscriptionValidationData> firstPage;
+
+    /**
+     * @param apiMgtAdminService service used to read the subscriptions
+     * @param firstPage          first page of subscriptions, which is read before the response is started so that
+     *                           a failure to read it can be returned as an error response
+     * @param pageSize           number of subscriptions read at a time
+     */
+    public SubscriptionExportStreamingOutput(APIMgtAdminService apiMgtAdminService,
+                                             List<SubscriptionValidationData> firstPage, int pageSize) {
+        this.apiMgtAdminService = apiMgtAdminService;
+        this.firstPage = firstPage;
+        this.pageSize = pageSize;
+    }
+
+    @Override
+    public void write(OutputStream outputStream) throws IOException {
+        OutputStream bufferedOutputStream = new BufferedOutputStream(outputStream);
+        List<SubscriptionValidationData> page = firstPage;
+        firstPage = null;
+        int count = 0;
+        while (!page.isEmpty()) {
+            for (SubscriptionValidationData subscription : page) {
+                bufferedOutputStream.write(objectMapper.writeValueAsBytes(
+                        MappingUtil.convertToSubscriptionDto(subscription)));
+                bufferedOutputStream.write(NEW_LINE);
+            }
+            bufferedOutputStream.flush();
+            count += page.size();
+            if (page.size() < pageSize) {
+                break;
+            }
+            SubscriptionValidationData last = page.get(page.size() - 1);
+            try {
+                page = apiMgtAdminService.getAPISubscriptions(last.getSubscriptionId(), last.getKeyEnvType(),
+                        pageSize);
+            } catch (APIManagementException e) {
+                // The response has already been started, so the export is aborted without completing the response
+                throw new IOException("Error while retrieving subscriptions after " + count + " subscriptions", e);
+            }
+        }
+        bufferedOutputStream.write(objectMapper.writeValueAsBytes(Collections.singletonMap(COUNT, count)));
+        bufferedOutputStream.write(NEW_LINE);
+        bufferedOutputStream.flush();
+        if (log.isDebugEnabled()) {
+            log.debug("Exported " + count + " subscriptions");
+        }
+    }
+}
@@ -1180,6 +1180,7 @@ public class ApisApiServiceImpl extends ApisApiService {
      * @param limit       maximum APIs to return
      * @param offset      starting position of the pagination
      * @param query       search query
+     * @param cursor      cursor of the next page, returned with the previous page
      * @param accept      Accept header value
      * @param ifNoneMatch If-None-Match header value
      * @param request     msf4j request object
@@ -1187,13 +1188,17 @@ public class ApisApiServiceImpl extends ApisApiService {
      * @throws NotFoundException When the particular resource does not exist in the system
      */
     @Override
-    public Response apisGet(Integer limit, Integer offset, String query, String accept, String ifNoneMatch,
-                            Request request) throws NotFoundException {
+    public Response apisGet(Integer limit, Integer offset, String query, String cursor, String accept,
+                            String ifNoneMatch, Request request) throws NotFoundException {
         String username = RestApiUtil.getLoggedInUsername();
         APIListDTO apiListDTO = null;
         try {
-            apiListDTO = MappingUtil.toAPIListDTO(RestAPIPublisherUtil.getApiPublisher(username).searchAPIs
-                    (limit, offset, query));
+            APIPublisher apiPublisher = RestAPIPublisherUtil.getApiPublisher(username);
+            if (StringUtils.isEmpty(query) && (cursor != null || offset == 0)) {
+                apiListDTO = MappingUtil.toAPIListDTO(apiPublisher.getAPIs(cursor, limit), limit);
+            } else {
+                apiListDTO = MappingUtil.toAPIListDTO(apiPublisher.searchAPIs(limit, offset, query));
+            }
             return Response.ok().entity(apiListDTO).build();
         } catch (APIManagementException e) {
             String errorMessage = "Error while retrieving APIs";
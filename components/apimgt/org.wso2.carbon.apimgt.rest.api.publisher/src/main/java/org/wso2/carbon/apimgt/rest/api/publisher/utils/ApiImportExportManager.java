@@ -21,6 +21,7 @@
 package org.wso2.carbon.apimgt.rest.api.publisher.utils;
 
 import com.sun.jndi.toolkit.url.Uri;
+import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wso2.carbon.apimgt.core.api.APIPublisher;
@@ -33,9 +34,12 @@ import org.wso2.carbon.apimgt.core.models.Endpoint;
 import org.wso2.carbon.apimgt.core.models.UriTemplate;
 import org.wso2.carbon.apimgt.core.util.APIMgtConstants;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URLConnection;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -81,11 +85,16 @@ public class ApiImportExportManager {
             return apiDetailSet;
         }
 
-        // iterate and collect all information
+        // search operation returns a summary of APIs, retrieve the details of all of them together
+        List<String> apiIds = new ArrayList<>();
         for (API api : apis) {
-            api = apiPublisher.getAPIbyUUID(api.getId());
+            apiIds.add(api.getId());
+        }
+
+        // iterate and collect all information
+        for (API api : apiPublisher.getAPIsByUUIDs(apiIds)) {
             // get endpoints at API Level
-            Map<String, Endpoint> endpoints = api.getEndpoint();
+            Map<String, Endpoint> endpoints = new HashMap<>(api.getEndpoint());
             if (endpoints.isEmpty()) {
                 log.error("No Endpoints found for api: " + api.getName() + ", version: " + api.getVersion());
                 // skip this API
@@ -101,7 +110,7 @@ public class ApiImportExportManager {
                 }
             }
             // get Endpoints at Resource Level
-            Map<String,UriTemplate> uriTemplateMap = api.getUriTemplates();
+            Map<String, UriTemplate> uriTemplateMap = new HashMap<>(api.getUriTemplates());
             uriTemplateMap.forEach((k, v) -> {
                 UriTemplate.UriTemplateBuilder uriTemplateBuilder = new UriTemplate.UriTemplateBuilder(v);
                 Map<String,Endpoint> resourceEndpoints = uriTemplateBuilder.getEndpoint();
@@ -159,8 +168,9 @@ public class ApiImportExportManager {
                 // iterate and collect document content
                 for (DocumentInfo aDocumentInfo : documentInfo) {
                     try {
-                        documentContents.add(apiPublisher.getDocumentationContent(aDocumentInfo.getId()));
-                    } catch (APIManagementException e) {
+                        documentContents.add(readFileContent(apiPublisher.getDocumentationContent(aDocumentInfo
+                                .getId())));
+                    } catch (APIManagementException | IOException e) {
                         log.error("Error in getting documentation content for api: " + api.getName() +
                                 ", version: " + api.getVersion() + ", doc id: " + aDocumentInfo.getId(), e);
                         // no need to skip the API as docs don't affect API functionality
@@ -171,8 +181,8 @@ public class ApiImportExportManager {
             // get thumbnail
             InputStream thumbnailStream = null;
             try {
-                thumbnailStream = apiPublisher.getThumbnailImage(api.getId());
-            } catch (APIManagementException e) {
+                thumbnailStream = readFully(apiPublisher.getThumbnailImage(api.getId()));
+            } catch (APIManagementException | IOException e) {
                 log.error("Error in getting thumbnail for api: " + api.getName() + ", version: " + api.getVersion(), e);
                 // no need to skip the API as thumbnail don't affect API functionality
             }
@@ -197,6 +207,39 @@ public class ApiImportExportManager {
         return apiDetailSet;
     }
 
+    /**
+     * Reads the file content of a document into memory, as the stream read from the database holds a connection until
+     * it is closed, and the contents of all the APIs are collected before they are written.
+     *
+     * @param documentContent document content read from the database
+     * @return document content with the file content in memory
+     * @throws IOException if an error occurs while reading the file content
+     */
+    private static DocumentContent readFileContent(DocumentContent documentContent) throws IOException {
+        if (documentContent == null || documentContent.getFileContent() == null) {
+            return documentContent;
+        }
+        return DocumentContent.newDocumentContent().documentInfo(documentContent.getDocumentInfo())
+                .inlineContent(documentContent.getInlineContent())
+                .fileContent(readFully(documentContent.getFileContent())).build();
+    }
+
+    /**
+     * Reads a stream into memory and closes it.
+     *
+     * @param stream stream to read
+     * @return stream of the content in memory, or null if the stream is null
+     * @throws IOException if an error occurs while reading the stream
+     */
+    private static InputStream readFully(InputStream stream) throws IOException {
+        if (stream == null) {
+            return null;
+        }
+        try (InputStream content = stream) {
+            return new ByteArrayInputStream(IOUtils.toByteArray(content));
+        }
+    }
+
     /**
      * Adds the API details
      *
@@ -266,9 +309,10 @@ public class ApiImportExportManager {
             for (DocumentContent aDocContent : apiDetails.getDocumentContents()) {
                 // add documentation
                 if (aDocContent.getDocumentInfo().getSourceType().equals(DocumentInfo.SourceType.FILE)) {
-                    apiPublisher.uploadDocumentationFile(aDocContent.getDocumentInfo().getId(),
-                            aDocContent.getFileContent(), 
-                            URLConnection.guessContentTypeFromStream(aDocContent.getFileContent()));
+                    // the content type is guessed by reading the start of the stream, which needs mark and reset
+                    InputStream fileContent = new BufferedInputStream(aDocContent.getFileContent());
+                    apiPublisher.uploadDocumentationFile(aDocContent.getDocumentInfo().getId(), fileContent,
+                            URLConnection.guessContentTypeFromStream(fileContent));
                 } else if (aDocContent.getDocumentInfo().getSourceType().equals(DocumentInfo.SourceType.INLINE)) {
                     apiPublisher.addDocumentationContent(aDocContent.getDocumentInfo().getId(),
                             aDocContent.getInlineContent());
@@ -337,9 +381,9 @@ public class ApiImportExportManager {
             for (DocumentContent docContent : docContents) {
                 // update documentation
                 if (docContent.getDocumentInfo().getSourceType().equals(DocumentInfo.SourceType.FILE)) {
-                    apiPublisher
-                            .uploadDocumentationFile(docContent.getDocumentInfo().getId(), docContent.getFileContent(),
-                                    URLConnection.guessContentTypeFromStream(docContent.getFileContent()));
+                    InputStream fileContent = new BufferedInputStream(docContent.getFileContent());
+                    apiPublisher.uploadDocumentationFile(docContent.getDocumentInfo().getId(), fileContent,
+                            URLConnection.guessContentTypeFromStream(fileContent));
                 } else if (docContent.getDocumentInfo().getSourceType().equals(DocumentInfo.SourceType.INLINE)) {
                     apiPublisher.addDocumentationContent(docContent.getDocumentInfo().getId(),
                             docContent.getInlineContent());
@@ -29,6 +29,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.wso2.carbon.apimgt.core.api.WorkflowResponse;
 import org.wso2.carbon.apimgt.core.dao.ApiType;
 import org.wso2.carbon.apimgt.core.models.API;
+import org.wso2.carbon.apimgt.core.models.APIResults;
 import org.wso2.carbon.apimgt.core.models.Application;
 import org.wso2.carbon.apimgt.core.models.BusinessInformation;
 import org.wso2.carbon.apimgt.core.models.CorsConfiguration;
@@ -39,6 +40,7 @@ import org.wso2.carbon.apimgt.core.models.Subscription;
 import org.wso2.carbon.apimgt.core.models.UriTemplate;
 import org.wso2.carbon.apimgt.core.util.APIMgtConstants;
 import org.wso2.carbon.apimgt.core.util.APIUtils;
+import org.wso2.carbon.apimgt.rest.api.common.util.RestApiUtil;
 import org.wso2.carbon.apimgt.rest.api.publisher.dto.APIDTO;
 import org.wso2.carbon.apimgt.rest.api.publisher.dto.APIInfoDTO;
 import org.wso2.carbon.apimgt.rest.api.publisher.dto.APIListDTO;
@@ -268,6 +270,21 @@ public class MappingUtil {
         return apiListDTO;
     }
 
+    /**
+     * Converts a page of APIs to APIListDTO, with a link to the next page if there is one.
+     *
+     * @param apiResults Page of APIs
+     * @param limit      Maximum number of APIs in a page
+     * @return APIListDTO object
+     */
+    public static APIListDTO toAPIListDTO(APIResults apiResults, Integer limit) {
+        APIListDTO apiListDTO = toAPIListDTO(apiResults.getApiList());
+        if (apiResults.getNextCursor() != null) {
+            apiListDTO.setNext(RestApiUtil.getAPIPaginatedURL(apiResults.getNextCursor().toToken(), limit));
+        }
+        return apiListDTO;
+    }
+
     /**
      * this  method convert Model object into Dto
      *
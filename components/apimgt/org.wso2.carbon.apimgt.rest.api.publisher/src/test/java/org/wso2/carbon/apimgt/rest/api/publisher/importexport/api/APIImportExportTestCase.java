@@ -114,7 +114,6 @@ public class APIImportExportTestCase {
         DocumentContent api1Doc2Content = createDocContent(api1Doc2Info, "", api1Doc2Stream);
         DocumentContent api1Doc3Content = createDocContent(api1Doc3Info, "", null);
 
-        Mockito.when(apiPublisher.getAPIbyUUID(api1Id)).thenReturn(api1);
         Mockito.when(apiPublisher.getSwagger20Definition(api1Id)).thenReturn(api1Definition);
         Mockito.when(apiPublisher.getApiGatewayConfig(api1Id)).thenReturn(api1GatewayConfig);
         Mockito.when(apiPublisher.getAllDocumentation(api1Id, 0, Integer.MAX_VALUE)).thenReturn(api1DocumentInfo);
@@ -126,6 +125,7 @@ public class APIImportExportTestCase {
         List<API> apis = new ArrayList<>();
         apis.add(api1);
         Mockito.when(apiPublisher.searchAPIs(Integer.MAX_VALUE, 0, "*")).thenReturn(apis);
+        Mockito.when(apiPublisher.getAPIsByUUIDs(Arrays.asList(api1Id))).thenReturn(apis);
 
         ApiImportExportManager importExportManager = new ApiImportExportManager(apiPublisher);
         Set<APIDetails> apiDetailsSet = importExportManager.getAPIDetails(Integer.MAX_VALUE, 0, "*");
@@ -166,7 +166,6 @@ public class APIImportExportTestCase {
         DocumentContent api4Doc2Content = createDocContent(api4Doc2Info, "", api1Doc2Stream);
         DocumentContent api4Doc3Content = createDocContent(api4Doc3Info, "", null);
 
-        Mockito.when(apiPublisher.getAPIbyUUID(api4Id)).thenReturn(api4);
         Mockito.when(apiPublisher.getSwagger20Definition(api4Id)).thenReturn(api1Definition);
         Mockito.when(apiPublisher.getApiGatewayConfig(api4Id)).thenReturn(api1GatewayConfig);
         Mockito.when(apiPublisher.getAllDocumentation(api4Id, 0, Integer.MAX_VALUE)).thenReturn(api1DocumentInfo);
@@ -198,7 +197,6 @@ public class APIImportExportTestCase {
         DocumentContent api5Doc1Content = createDocContent(api5Doc1Info, "Sample inline content for API1 DOC 1", null);
         DocumentContent api5Doc3Content = createDocContent(api5Doc3Info, "", null);
 
-        Mockito.when(apiPublisher.getAPIbyUUID(api5Id)).thenReturn(api5);
         Mockito.when(apiPublisher.getSwagger20Definition(api5Id)).thenReturn(api1Definition);
         Mockito.when(apiPublisher.getApiGatewayConfig(api5Id)).thenReturn(api1GatewayConfig);
         Mockito.when(apiPublisher.getAllDocumentation(api5Id, 0, Integer.MAX_VALUE)).thenReturn(api5DocumentInfo);
@@ -213,6 +211,7 @@ public class APIImportExportTestCase {
         apis.add(api4);
         apis.add(api5);
         Mockito.when(apiPublisher.searchAPIs(Integer.MAX_VALUE, 0, "*")).thenReturn(apis);
+        Mockito.when(apiPublisher.getAPIsByUUIDs(Arrays.asList(api4Id, api5Id))).thenReturn(apis);
 
         ApiImportExportManager importExportManager = new ApiImportExportManager(apiPublisher);
         Set<APIDetails> apiDetailsSet = importExportManager.getAPIDetails(Integer.MAX_VALUE, 0, "*");
@@ -252,7 +251,6 @@ public class APIImportExportTestCase {
         DocumentContent api6Doc2Content = createDocContent(api6Doc2Info, "", api1Doc2Stream);
         DocumentContent api6Doc3Content = createDocContent(api6Doc3Info, "", null);
 
-        Mockito.when(apiPublisher.getAPIbyUUID(api6Id)).thenReturn(api6);
         Mockito.when(apiPublisher.getSwagger20Definition(api6Id)).thenReturn(api1Definition);
         Mockito.when(apiPublisher.getApiGatewayConfig(api6Id)).thenReturn(api1GatewayConfig);
         Mockito.when(apiPublisher.getAllDocumentation(api6Id, 0, Integer.MAX_VALUE)).thenReturn(api1DocumentInfo);
@@ -284,7 +282,6 @@ public class APIImportExportTestCase {
         DocumentContent api7Doc1Content = createDocContent(api7Doc1Info, "Sample inline content for API1 DOC 1", null);
         DocumentContent api7Doc3Content = createDocContent(api7Doc3Info, "", null);
 
-        Mockito.when(apiPublisher.getAPIbyUUID(api7Id)).thenReturn(api7);
         Mockito.when(apiPublisher.getSwagger20Definition(api7Id)).thenReturn(api1Definition);
         Mockito.when(apiPublisher.getApiGatewayConfig(api7Id)).thenReturn(api1GatewayConfig);
         Mockito.when(apiPublisher.getAllDocumentation(api7Id, 0, Integer.MAX_VALUE)).thenReturn(api7DocumentInfo);
@@ -299,6 +296,7 @@ public class APIImportExportTestCase {
         apis.add(api6);
         apis.add(api7);
         Mockito.when(apiPublisher.searchAPIs(Integer.MAX_VALUE, 0, "*")).thenReturn(apis);
+        Mockito.when(apiPublisher.getAPIsByUUIDs(Arrays.asList(api6Id, api7Id))).thenReturn(apis);
 
         ApiImportExportManager importExportManager = new ApiImportExportManager(apiPublisher);
         Set<APIDetails> apiDetailsSet = importExportManager.getAPIDetails(Integer.MAX_VALUE, 0, "*");
@@ -93,6 +93,7 @@ public abstract class ApisApiService {
     public abstract Response apisGet(Integer limit
  ,Integer offset
  ,String query
+ ,String cursor
  ,String accept
  ,String ifNoneMatch
  , Request request) throws NotFoundException;
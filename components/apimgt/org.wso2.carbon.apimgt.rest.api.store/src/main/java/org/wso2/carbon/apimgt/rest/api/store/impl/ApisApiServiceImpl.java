@@ -702,22 +702,26 @@ public class ApisApiServiceImpl extends ApisApiService {
      * @param limit       maximum number of APIs returns
      * @param offset      starting index
      * @param query       search condition
+     * @param cursor      cursor of the next page, returned with the previous page
      * @param accept      Accept header value
      * @param ifNoneMatch If-None-Match header value
      * @param request     msf4j request object
      * @return matched APIs for the given search condition
      */
     @Override
-    public Response apisGet(Integer limit, Integer offset, String query, String accept, String ifNoneMatch,
-                            Request request) throws NotFoundException {
-        List<API> apisResult = null;
+    public Response apisGet(Integer limit, Integer offset, String query, String cursor, String accept,
+                            String ifNoneMatch, Request request) throws NotFoundException {
         APIListDTO apiListDTO = null;
         try {
             String username = RestApiUtil.getLoggedInUsername();
             APIStore apiStore = RestApiUtil.getConsumer(username);
-            apisResult = apiStore.searchAPIs(query, offset, limit);
-            // convert API
-            apiListDTO = APIMappingUtil.toAPIListDTO(apisResult);
+            if (StringUtils.isEmpty(query) && (cursor != null || offset == 0)) {
+                apiListDTO = APIMappingUtil.toAPIListDTO(apiStore.getAPIs(cursor, limit), limit);
+            } else {
+                List<API> apisResult = apiStore.searchAPIs(query, offset, limit);
+                // convert API
+                apiListDTO = APIMappingUtil.toAPIListDTO(apisResult);
+            }
         } catch (APIManagementException e) {
             String errorMessage = "Error while retrieving APIs ";
             HashMap<String, String> paramList = new HashMap<String, String>();
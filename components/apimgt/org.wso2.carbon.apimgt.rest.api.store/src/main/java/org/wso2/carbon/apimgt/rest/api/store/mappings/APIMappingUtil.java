@@ -21,6 +21,8 @@
 package org.wso2.carbon.apimgt.rest.api.store.mappings;
 
 import org.wso2.carbon.apimgt.core.models.API;
+import org.wso2.carbon.apimgt.core.models.APIResults;
+import org.wso2.carbon.apimgt.rest.api.common.util.RestApiUtil;
 import org.wso2.carbon.apimgt.rest.api.store.dto.APIDTO;
 import org.wso2.carbon.apimgt.rest.api.store.dto.APIInfoDTO;
 import org.wso2.carbon.apimgt.rest.api.store.dto.APIListDTO;
@@ -45,6 +47,21 @@ public class APIMappingUtil {
         return apiListDTO;
     }
 
+    /**
+     * Converts a page of {@link APIResults} to {@link APIListDTO} DTO, with a link to the next page if there is one.
+     *
+     * @param apiResults Page of APIs
+     * @param limit      Maximum number of APIs in a page
+     * @return APIListDTO
+     */
+    public static APIListDTO toAPIListDTO(APIResults apiResults, Integer limit) {
+        APIListDTO apiListDTO = toAPIListDTO(apiResults.getApiList());
+        if (apiResults.getNextCursor() != null) {
+            apiListDTO.setNext(RestApiUtil.getAPIPaginatedURL(apiResults.getNextCursor().toToken(), limit));
+        }
+        return apiListDTO;
+    }
+
     /**
      * Converts {@link API} List to an {@link APIInfoDTO} List.
      *
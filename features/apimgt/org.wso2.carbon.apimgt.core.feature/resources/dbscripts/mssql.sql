@@ -173,6 +173,8 @@ CREATE TABLE AM_API (
 );
 CREATE UNIQUE INDEX API_UUID ON AM_API(UUID);
 
+CREATE INDEX IDX_API_NAME_UUID ON AM_API (NAME, UUID);
+
 CREATE FULLTEXT CATALOG API_CATALOG WITH ACCENT_SENSITIVITY = OFF;
 
 CREATE FULLTEXT INDEX ON AM_API(NAME, VERSION, DESCRIPTION, PROVIDER, CONTEXT, CURRENT_LC_STATUS, TECHNICAL_OWNER, BUSINESS_OWNER ) KEY INDEX API_UUID ON API_CATALOG;
@@ -327,12 +329,36 @@ CREATE TABLE AM_SUBSCRIPTION (
   CREATED_TIME DATETIME DEFAULT GETDATE(),
   UPDATED_BY VARCHAR(100),
   LAST_UPDATED_TIME DATETIME DEFAULT GETDATE(),
+  REVISION BIGINT DEFAULT 0,
   FOREIGN KEY(APPLICATION_ID) REFERENCES AM_APPLICATION(UUID) ON UPDATE CASCADE ON DELETE NO ACTION,
   FOREIGN KEY(API_ID) REFERENCES AM_API(UUID) ON UPDATE CASCADE ON DELETE NO ACTION,
   FOREIGN KEY(TIER_ID) REFERENCES AM_SUBSCRIPTION_POLICY(UUID) ON UPDATE CASCADE ON DELETE NO ACTION,
   PRIMARY KEY (UUID)
 );
 
+CREATE INDEX IDX_SUB_REVISION ON AM_SUBSCRIPTION (REVISION);
+
+CREATE TABLE AM_SUBSCRIPTION_REVISION (
+  ID INTEGER,
+  REVISION BIGINT DEFAULT 0,
+  PURGED_REVISION BIGINT DEFAULT 0,
+  PRIMARY KEY (ID)
+);
+
+INSERT INTO AM_SUBSCRIPTION_REVISION (ID, REVISION) VALUES (1, 0);
+
+CREATE TABLE AM_DELETED_SUBSCRIPTION (
+  UUID VARCHAR(255),
+  API_CONTEXT VARCHAR(255),
+  API_VERSION VARCHAR(30),
+  CLIENT_ID VARCHAR(255),
+  KEY_TYPE VARCHAR(255),
+  REVISION BIGINT,
+  DELETED_TIME DATETIME
+);
+
+CREATE INDEX IDX_DELETED_SUB_REVISION ON AM_DELETED_SUBSCRIPTION (REVISION);
+
 CREATE TABLE AM_API_GROUP_PERMISSION (
   API_ID VARCHAR(255) NOT NULL DEFAULT '',
   GROUP_ID VARCHAR(11) NOT NULL,
@@ -170,6 +170,7 @@ CREATE TABLE `AM_API` (
   PRIMARY KEY (`UUID`),
   FOREIGN KEY (`API_TYPE_ID`) REFERENCES `AM_API_TYPES`(`TYPE_ID`),
   UNIQUE (`PROVIDER`,`NAME`,`VERSION`,`API_TYPE_ID`),
+  INDEX IDX_API_NAME_UUID (`NAME`,`UUID`),
   UNIQUE (`CONTEXT`,`VERSION`),
   FULLTEXT (`NAME`,`PROVIDER`,`CONTEXT`,`VERSION`,`DESCRIPTION`,`CURRENT_LC_STATUS`,`TECHNICAL_OWNER`, `BUSINESS_OWNER`)
 )CHARACTER SET utf8 COLLATE utf8_general_ci;
@@ -323,12 +324,34 @@ CREATE TABLE IF NOT EXISTS AM_SUBSCRIPTION (
   `CREATED_TIME` TIMESTAMP(6) DEFAULT CURRENT_TIMESTAMP(6),
   `UPDATED_BY` VARCHAR(100),
   `LAST_UPDATED_TIME` TIMESTAMP(6) DEFAULT CURRENT_TIMESTAMP(6),
+  `REVISION` BIGINT DEFAULT 0,
   FOREIGN KEY(APPLICATION_ID) REFERENCES AM_APPLICATION(UUID) ON UPDATE CASCADE ON DELETE RESTRICT,
   FOREIGN KEY(API_ID) REFERENCES AM_API(UUID) ON UPDATE CASCADE ON DELETE RESTRICT,
   FOREIGN KEY(TIER_ID) REFERENCES AM_SUBSCRIPTION_POLICY(UUID) ON UPDATE CASCADE ON DELETE RESTRICT,
+  INDEX IDX_SUB_REVISION (`REVISION`),
   PRIMARY KEY (UUID)
 )CHARACTER SET utf8 COLLATE utf8_general_ci;
 
+CREATE TABLE IF NOT EXISTS AM_SUBSCRIPTION_REVISION (
+  `ID` INTEGER,
+  `REVISION` BIGINT DEFAULT 0,
+  `PURGED_REVISION` BIGINT DEFAULT 0,
+  PRIMARY KEY (ID)
+)CHARACTER SET utf8 COLLATE utf8_general_ci;
+
+INSERT IGNORE INTO AM_SUBSCRIPTION_REVISION (ID, REVISION) VALUES (1, 0);
+
+CREATE TABLE IF NOT EXISTS AM_DELETED_SUBSCRIPTION (
+  `UUID` VARCHAR(255),
+  `API_CONTEXT` VARCHAR(255),
+  `API_VERSION` VARCHAR(30),
+  `CLIENT_ID` VARCHAR(255),
+  `KEY_TYPE` VARCHAR(255),
+  `REVISION` BIGINT,
+  `DELETED_TIME` TIMESTAMP(6) NULL,
+  INDEX IDX_DELETED_SUB_REVISION (`REVISION`)
+)CHARACTER SET utf8 COLLATE utf8_general_ci;
+
 CREATE TABLE `AM_API_GROUP_PERMISSION` (
   `API_ID` VARCHAR(255) NOT NULL DEFAULT '',
   `GROUP_ID` VARCHAR(11) NOT NULL,
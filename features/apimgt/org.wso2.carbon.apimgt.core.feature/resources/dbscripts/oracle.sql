@@ -249,6 +249,9 @@ CREATE TABLE AM_API (
 )
 /
 
+CREATE INDEX IDX_API_NAME_UUID ON AM_API (NAME, UUID)
+/
+
 BEGIN
 ctx_ddl.create_preference('API_DATASTORE', 'MULTI_COLUMN_DATASTORE');
 END;
@@ -438,6 +441,7 @@ CREATE TABLE AM_SUBSCRIPTION (
   CREATED_TIME TIMESTAMP(6) DEFAULT CURRENT_TIMESTAMP(6),
   UPDATED_BY VARCHAR2(100),
   LAST_UPDATED_TIME TIMESTAMP(6) DEFAULT CURRENT_TIMESTAMP(6),
+  REVISION NUMBER(19) DEFAULT 0,
   FOREIGN KEY(APPLICATION_ID) REFERENCES AM_APPLICATION(UUID),
   FOREIGN KEY(API_ID) REFERENCES AM_API(UUID),
   FOREIGN KEY(TIER_ID) REFERENCES AM_SUBSCRIPTION_POLICY(UUID),
@@ -445,6 +449,34 @@ CREATE TABLE AM_SUBSCRIPTION (
 )
 /
 
+CREATE INDEX IDX_SUB_REVISION ON AM_SUBSCRIPTION (REVISION)
+/
+
+CREATE TABLE AM_SUBSCRIPTION_REVISION (
+  ID NUMBER(10),
+  REVISION NUMBER(19) DEFAULT 0,
+  PURGED_REVISION NUMBER(19) DEFAULT 0,
+  PRIMARY KEY (ID)
+)
+/
+
+INSERT INTO AM_SUBSCRIPTION_REVISION (ID, REVISION) VALUES (1, 0)
+/
+
+CREATE TABLE AM_DELETED_SUBSCRIPTION (
+  UUID VARCHAR2(255),
+  API_CONTEXT VARCHAR2(255),
+  API_VERSION VARCHAR2(30),
+  CLIENT_ID VARCHAR2(255),
+  KEY_TYPE VARCHAR2(255),
+  REVISION NUMBER(19),
+  DELETED_TIME TIMESTAMP(6)
+)
+/
+
+CREATE INDEX IDX_DELETED_SUB_REVISION ON AM_DELETED_SUBSCRIPTION (REVISION)
+/
+
 CREATE TABLE AM_API_GROUP_PERMISSION (
   API_ID VARCHAR2(255) DEFAULT '' NOT NULL ,
   GROUP_ID VARCHAR2(11) NOT NULL,
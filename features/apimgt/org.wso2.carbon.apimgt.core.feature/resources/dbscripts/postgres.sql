@@ -183,6 +183,8 @@ CREATE TABLE AM_API (
   UNIQUE (CONTEXT,VERSION)
 );
 
+CREATE INDEX IDX_API_NAME_UUID ON AM_API (NAME, UUID);
+
 ALTER TABLE AM_API ADD COLUMN textsearchable_index_col tsvector;
 
 UPDATE AM_API SET textsearchable_index_col = to_tsvector( coalesce(NAME,'') || ' ' || coalesce(CONTEXT,'') || ' ' || coalesce(PROVIDER,'') || ' ' || coalesce(VERSION,'') || ' ' || coalesce(DESCRIPTION,'') || ' ' || coalesce(TECHNICAL_OWNER,'') || ' ' || coalesce(BUSINESS_OWNER,'') || ' ' || coalesce(CURRENT_LC_STATUS,''));
@@ -340,12 +342,37 @@ CREATE TABLE IF NOT EXISTS AM_SUBSCRIPTION (
   CREATED_TIME TIMESTAMP(6) DEFAULT CURRENT_TIMESTAMP(6),
   UPDATED_BY VARCHAR(100),
   LAST_UPDATED_TIME TIMESTAMP(6) DEFAULT CURRENT_TIMESTAMP(6),
+  REVISION BIGINT DEFAULT 0,
   FOREIGN KEY(APPLICATION_ID) REFERENCES AM_APPLICATION(UUID) ON UPDATE CASCADE ON DELETE RESTRICT,
   FOREIGN KEY(API_ID) REFERENCES AM_API(UUID) ON UPDATE CASCADE ON DELETE RESTRICT,
   FOREIGN KEY(TIER_ID) REFERENCES AM_SUBSCRIPTION_POLICY(UUID) ON UPDATE CASCADE ON DELETE RESTRICT,
   PRIMARY KEY (UUID)
 );
 
+CREATE INDEX IDX_SUB_REVISION ON AM_SUBSCRIPTION (REVISION);
+
+CREATE TABLE IF NOT EXISTS AM_SUBSCRIPTION_REVISION (
+  ID INTEGER,
+  REVISION BIGINT DEFAULT 0,
+  PURGED_REVISION BIGINT DEFAULT 0,
+  PRIMARY KEY (ID)
+);
+
+INSERT INTO AM_SUBSCRIPTION_REVISION (ID, REVISION) SELECT 1, 0
+  WHERE NOT EXISTS (SELECT ID FROM AM_SUBSCRIPTION_REVISION WHERE ID = 1);
+
+CREATE TABLE IF NOT EXISTS AM_DELETED_SUBSCRIPTION (
+  UUID VARCHAR(255),
+  API_CONTEXT VARCHAR(255),
+  API_VERSION VARCHAR(30),
+  CLIENT_ID VARCHAR(255),
+  KEY_TYPE VARCHAR(255),
+  REVISION BIGINT,
+  DELETED_TIME TIMESTAMP(6)
+);
+
+CREATE INDEX IDX_DELETED_SUB_REVISION ON AM_DELETED_SUBSCRIPTION (REVISION);
+
 CREATE TABLE AM_API_GROUP_PERMISSION (
   API_ID VARCHAR(255) NOT NULL DEFAULT '',
   GROUP_ID VARCHAR(11) NOT NULL,
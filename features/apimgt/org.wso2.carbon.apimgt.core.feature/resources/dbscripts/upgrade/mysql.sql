@@ -0,0 +1,29 @@
+-- Upgrades an existing API manager database to the indexes and tables of the create script.
+--
+-- Tracks the revision of the subscription changes retrieved by the gateways. Existing subscriptions get revision 0,
+-- so gateways load them with a full retrieval.
+
+ALTER TABLE AM_SUBSCRIPTION ADD COLUMN `REVISION` BIGINT DEFAULT 0, ADD INDEX IDX_SUB_REVISION (`REVISION`);
+
+CREATE TABLE IF NOT EXISTS AM_SUBSCRIPTION_REVISION (
+  `ID` INTEGER,
+  `REVISION` BIGINT DEFAULT 0,
+  `PURGED_REVISION` BIGINT DEFAULT 0,
+  PRIMARY KEY (ID)
+)CHARACTER SET utf8 COLLATE utf8_general_ci;
+
+INSERT IGNORE INTO AM_SUBSCRIPTION_REVISION (ID, REVISION) VALUES (1, 0);
+
+CREATE TABLE IF NOT EXISTS AM_DELETED_SUBSCRIPTION (
+  `UUID` VARCHAR(255),
+  `API_CONTEXT` VARCHAR(255),
+  `API_VERSION` VARCHAR(30),
+  `CLIENT_ID` VARCHAR(255),
+  `KEY_TYPE` VARCHAR(255),
+  `REVISION` BIGINT,
+  `DELETED_TIME` TIMESTAMP(6) NULL,
+  INDEX IDX_DELETED_SUB_REVISION (`REVISION`)
+)CHARACTER SET utf8 COLLATE utf8_general_ci;
+
+-- Index for the API listing, which is sorted by name and then by UUID
+ALTER TABLE AM_API ADD INDEX IDX_API_NAME_UUID (`NAME`,`UUID`);
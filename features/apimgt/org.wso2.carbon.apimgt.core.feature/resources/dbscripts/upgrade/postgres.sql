@@ -0,0 +1,33 @@
+-- Upgrades an existing API manager database to the indexes and tables of the create script.
+--
+-- Tracks the revision of the subscription changes retrieved by the gateways. Existing subscriptions get revision 0,
+-- so gateways load them with a full retrieval.
+
+ALTER TABLE AM_SUBSCRIPTION ADD COLUMN IF NOT EXISTS REVISION BIGINT DEFAULT 0;
+
+CREATE INDEX IF NOT EXISTS IDX_SUB_REVISION ON AM_SUBSCRIPTION (REVISION);
+
+CREATE TABLE IF NOT EXISTS AM_SUBSCRIPTION_REVISION (
+  ID INTEGER,
+  REVISION BIGINT DEFAULT 0,
+  PURGED_REVISION BIGINT DEFAULT 0,
+  PRIMARY KEY (ID)
+);
+
+INSERT INTO AM_SUBSCRIPTION_REVISION (ID, REVISION) SELECT 1, 0
+  WHERE NOT EXISTS (SELECT ID FROM AM_SUBSCRIPTION_REVISION WHERE ID = 1);
+
+CREATE TABLE IF NOT EXISTS AM_DELETED_SUBSCRIPTION (
+  UUID VARCHAR(255),
+  API_CONTEXT VARCHAR(255),
+  API_VERSION VARCHAR(30),
+  CLIENT_ID VARCHAR(255),
+  KEY_TYPE VARCHAR(255),
+  REVISION BIGINT,
+  DELETED_TIME TIMESTAMP(6)
+);
+
+CREATE INDEX IF NOT EXISTS IDX_DELETED_SUB_REVISION ON AM_DELETED_SUBSCRIPTION (REVISION);
+
+-- Index for the API listing, which is sorted by name and then by UUID
+CREATE INDEX IF NOT EXISTS IDX_API_NAME_UUID ON AM_API (NAME, UUID);